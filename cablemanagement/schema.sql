@@ -616,4 +616,76 @@ CREATE TABLE IF NOT EXISTS User_Rights (
     UNIQUE(username, page_name)
 );
 
+-- Secondary indexes (kept in sync with IndexMigration.INDEXES)
+-- Ledgers and balances
+CREATE INDEX IF NOT EXISTS idx_customer_transaction_customer_date ON Customer_Transaction(customer_id, transaction_date);
+CREATE INDEX IF NOT EXISTS idx_customer_transaction_reference ON Customer_Transaction(reference_invoice_number, transaction_type);
+CREATE INDEX IF NOT EXISTS idx_supplier_transaction_supplier_date ON Supplier_Transaction(supplier_id, transaction_date);
+CREATE INDEX IF NOT EXISTS idx_supplier_transaction_reference ON Supplier_Transaction(reference_invoice_number, transaction_type);
+
+-- Sales
+CREATE INDEX IF NOT EXISTS idx_sales_invoice_customer_date ON Sales_Invoice(customer_id, sales_date);
+CREATE INDEX IF NOT EXISTS idx_sales_invoice_date ON Sales_Invoice(sales_date);
+CREATE INDEX IF NOT EXISTS idx_sales_invoice_item_invoice ON Sales_Invoice_Item(sales_invoice_id, production_stock_id, quantity, unit_price);
+CREATE INDEX IF NOT EXISTS idx_sales_invoice_item_product ON Sales_Invoice_Item(production_stock_id);
+CREATE INDEX IF NOT EXISTS idx_sales_return_invoice_customer_date ON Sales_Return_Invoice(customer_id, return_date);
+CREATE INDEX IF NOT EXISTS idx_sales_return_invoice_original ON Sales_Return_Invoice(original_sales_invoice_id);
+CREATE INDEX IF NOT EXISTS idx_sales_return_invoice_date ON Sales_Return_Invoice(return_date);
+CREATE INDEX IF NOT EXISTS idx_sales_return_invoice_item_invoice ON Sales_Return_Invoice_Item(sales_return_invoice_id, production_stock_id);
+
+-- Purchases
+CREATE INDEX IF NOT EXISTS idx_raw_purchase_invoice_supplier_date ON Raw_Purchase_Invoice(supplier_id, invoice_date);
+CREATE INDEX IF NOT EXISTS idx_raw_purchase_invoice_date ON Raw_Purchase_Invoice(invoice_date);
+CREATE INDEX IF NOT EXISTS idx_raw_purchase_invoice_item_invoice ON Raw_Purchase_Invoice_Item(raw_purchase_invoice_id, raw_stock_id, quantity, unit_price);
+CREATE INDEX IF NOT EXISTS idx_raw_purchase_invoice_item_stock ON Raw_Purchase_Invoice_Item(raw_stock_id);
+CREATE INDEX IF NOT EXISTS idx_raw_purchase_return_invoice_supplier_date ON Raw_Purchase_Return_Invoice(supplier_id, return_date);
+CREATE INDEX IF NOT EXISTS idx_raw_purchase_return_invoice_original ON Raw_Purchase_Return_Invoice(original_invoice_id);
+CREATE INDEX IF NOT EXISTS idx_raw_purchase_return_invoice_date ON Raw_Purchase_Return_Invoice(return_date);
+CREATE INDEX IF NOT EXISTS idx_raw_purchase_return_invoice_item_invoice ON Raw_Purchase_Return_Invoice_Item(raw_purchase_return_invoice_id, raw_stock_id);
+
+-- Raw stock usage and production
+CREATE INDEX IF NOT EXISTS idx_raw_stock_use_invoice_date ON Raw_Stock_Use_Invoice(usage_date);
+CREATE INDEX IF NOT EXISTS idx_raw_stock_use_invoice_item_invoice ON Raw_Stock_Use_Invoice_Item(raw_stock_use_invoice_id, raw_stock_id);
+CREATE INDEX IF NOT EXISTS idx_raw_stock_use_invoice_item_stock ON Raw_Stock_Use_Invoice_Item(raw_stock_id);
+CREATE INDEX IF NOT EXISTS idx_production_invoice_date ON Production_Invoice(production_date);
+CREATE INDEX IF NOT EXISTS idx_production_invoice_item_invoice ON Production_Invoice_Item(production_invoice_id, production_id);
+CREATE INDEX IF NOT EXISTS idx_production_invoice_item_product ON Production_Invoice_Item(production_id);
+CREATE INDEX IF NOT EXISTS idx_production_stock_raw_usage_invoice ON Production_Stock_Raw_Usage(production_invoice_id);
+CREATE INDEX IF NOT EXISTS idx_production_return_invoice_original ON Production_Return_Invoice(original_production_invoice_id);
+CREATE INDEX IF NOT EXISTS idx_production_return_invoice_date ON Production_Return_Invoice(return_date);
+CREATE INDEX IF NOT EXISTS idx_production_return_invoice_item_invoice ON Production_Return_Invoice_Item(production_return_invoice_id, production_id);
+
+-- Master data lookups by name and by parent
+CREATE INDEX IF NOT EXISTS idx_customer_name ON Customer(customer_name);
+CREATE INDEX IF NOT EXISTS idx_customer_tehsil ON Customer(tehsil_id);
+CREATE INDEX IF NOT EXISTS idx_supplier_name ON Supplier(supplier_name);
+CREATE INDEX IF NOT EXISTS idx_supplier_tehsil ON Supplier(tehsil_id);
+CREATE INDEX IF NOT EXISTS idx_district_province ON District(province_id);
+CREATE INDEX IF NOT EXISTS idx_tehsil_district ON Tehsil(district_id);
+CREATE INDEX IF NOT EXISTS idx_manufacturer_tehsil ON Manufacturer(tehsil_id);
+CREATE INDEX IF NOT EXISTS idx_brand_manufacturer ON Brand(manufacturer_id);
+CREATE INDEX IF NOT EXISTS idx_production_stock_name_brand ON ProductionStock(product_name, brand_id);
+CREATE INDEX IF NOT EXISTS idx_production_stock_brand ON ProductionStock(brand_id);
+CREATE INDEX IF NOT EXISTS idx_raw_stock_name ON Raw_Stock(item_name);
+
+-- Books
+CREATE INDEX IF NOT EXISTS idx_purchase_book_date ON Purchase_Book(invoice_date);
+CREATE INDEX IF NOT EXISTS idx_purchase_book_invoice ON Purchase_Book(raw_purchase_invoice_id);
+CREATE INDEX IF NOT EXISTS idx_return_purchase_book_date ON Return_Purchase_Book(return_date);
+CREATE INDEX IF NOT EXISTS idx_raw_stock_use_book_date ON Raw_Stock_Use_Book(usage_date);
+CREATE INDEX IF NOT EXISTS idx_production_book_date ON Production_Book(production_date);
+CREATE INDEX IF NOT EXISTS idx_return_production_book_date ON Return_Production_Book(return_date);
+CREATE INDEX IF NOT EXISTS idx_sales_book_date ON Sales_Book(sales_date);
+CREATE INDEX IF NOT EXISTS idx_sales_book_invoice_number ON Sales_Book(sales_invoice_number);
+CREATE INDEX IF NOT EXISTS idx_sales_book_invoice ON Sales_Book(sales_invoice_id);
+CREATE INDEX IF NOT EXISTS idx_return_sales_book_date ON Return_Sales_Book(return_date);
+CREATE INDEX IF NOT EXISTS idx_return_sales_book_invoice ON Return_Sales_Book(sales_return_invoice_id);
+
+-- Cash, bank and employees
+CREATE INDEX IF NOT EXISTS idx_bank_transaction_bank_date ON Bank_Transaction(bank_id, transaction_date);
+CREATE INDEX IF NOT EXISTS idx_bank_transaction_date ON Bank_Transaction(transaction_date);
+CREATE INDEX IF NOT EXISTS idx_cash_transaction_date ON Cash_Transaction(transaction_date);
+CREATE INDEX IF NOT EXISTS idx_employee_attendance_employee_date ON Employee_Attendance(employee_id, attendance_date);
+CREATE INDEX IF NOT EXISTS idx_contract_task_record_employee_date ON Contract_Task_Record(employee_id, work_date);
+
 -- SELECT * FROM Province;
\ No newline at end of file
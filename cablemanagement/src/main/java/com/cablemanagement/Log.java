@@ -0,0 +1,69 @@
+package com.cablemanagement;
+
+/**
+ * Leveled console logging. Only warnings and errors are printed unless a lower level
+ * is chosen at startup with -Dcablemanagement.log=info (or debug), so the trace lines
+ * in hot database paths cost nothing more than a level check in normal use.
+ *
+ * Build expensive messages only after checking isDebugEnabled().
+ */
+public class Log {
+
+    public enum Level { DEBUG, INFO, WARN, ERROR, OFF }
+
+    private static volatile Level level = parseLevel(System.getProperty("cablemanagement.log"), Level.WARN);
+
+    private Log() {
+    }
+
+    public static Level getLevel() {
+        return level;
+    }
+
+    public static void setLevel(Level newLevel) {
+        level = newLevel;
+    }
+
+    public static boolean isDebugEnabled() {
+        return level.compareTo(Level.DEBUG) <= 0;
+    }
+
+    public static boolean isInfoEnabled() {
+        return level.compareTo(Level.INFO) <= 0;
+    }
+
+    public static void debug(String message) {
+        if (isDebugEnabled()) {
+            System.out.println("DEBUG: " + message);
+        }
+    }
+
+    public static void info(String message) {
+        if (isInfoEnabled()) {
+            System.out.println(message);
+        }
+    }
+
+    public static void warn(String message) {
+        if (level.compareTo(Level.WARN) <= 0) {
+            System.err.println("WARN: " + message);
+        }
+    }
+
+    public static void error(String message) {
+        if (level.compareTo(Level.ERROR) <= 0) {
+            System.err.println("ERROR: " + message);
+        }
+    }
+
+    static Level parseLevel(String value, Level fallback) {
+        if (value == null || value.trim().isEmpty()) {
+            return fallback;
+        }
+        try {
+            return Level.valueOf(value.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            return fallback;
+        }
+    }
+}
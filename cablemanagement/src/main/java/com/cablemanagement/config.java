@@ -1,10 +1,12 @@
 package com.cablemanagement;
 
+import com.cablemanagement.database.QueryMetrics;
 import com.cablemanagement.database.SQLiteDatabase;
 import com.cablemanagement.database.db;
 
 public class config {
-    public static db database = new SQLiteDatabase();
+    // Calls through this are timed and counted (see QueryMetrics)
+    public static db database = QueryMetrics.instrument(SQLiteDatabase.getInstance());
     
     // Current user session management
     private static String currentUsername = null;
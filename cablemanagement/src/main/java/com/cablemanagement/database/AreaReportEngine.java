@@ -0,0 +1,205 @@
+package com.cablemanagement.database;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.cablemanagement.model.AreaPartyTotals;
+
+/**
+ * Ledger totals for every customer or supplier in a province, district or tehsil.
+ *
+ * Each party type takes two grouped statements over the whole area: one sums the
+ * ledger columns per party (the same amounts getCustomerLedger() and
+ * getSupplierLedger() show per line), the other lists the items each party bought.
+ * Balances come from Customer_Balance and Supplier.balance rather than a ledger replay.
+ */
+class AreaReportEngine {
+
+    private static final String CUSTOMER = "Customer";
+    private static final String SUPPLIER = "Supplier";
+
+    /**
+     * Party side of one report: the table, its balance source and its ledger tables
+     */
+    private static final class Side {
+        final String partyType;
+        final String partiesSql;      // selects party_id, name, balance; area joins follow
+        final String alias;
+        final String transactionSql;  // ledger amounts per transaction, joined to Parties
+        final String transactionDate;
+        final String itemsSql;        // party_id, item, qty
+        final String itemDate;
+
+        Side(String partyType, String partiesSql, String alias, String transactionSql, String transactionDate,
+             String itemsSql, String itemDate) {
+            this.partyType = partyType;
+            this.partiesSql = partiesSql;
+            this.alias = alias;
+            this.transactionSql = transactionSql;
+            this.transactionDate = transactionDate;
+            this.itemsSql = itemsSql;
+            this.itemDate = itemDate;
+        }
+    }
+
+    private static final Side CUSTOMERS = new Side(CUSTOMER,
+        "SELECT c.customer_id AS party_id, c.customer_name AS name, COALESCE(cb.balance, c.balance, 0) AS balance " +
+        "FROM Customer c LEFT JOIN Customer_Balance cb ON cb.customer_id = c.customer_id ",
+        "c",
+        "SELECT tx.party_id, " +
+        "       CASE WHEN tx.transaction_type = 'invoice_charge' THEN COALESCE(it.invoice_total, 0) ELSE 0 END AS sale, " +
+        "       CASE WHEN tx.transaction_type = 'invoice_charge' " +
+        "            THEN COALESCE(it.discount_amount, 0) + COALESCE(it.other_discount, 0) ELSE 0 END AS discount, " +
+        "       CASE WHEN tx.transaction_type = 'payment_received' THEN ABS(tx.amount) ELSE 0 END AS payment, " +
+        "       CASE WHEN tx.transaction_type = 'adjustment' AND tx.amount < 0 THEN ABS(tx.amount) ELSE 0 END AS return_amount " +
+        "FROM (SELECT ct.customer_id AS party_id, ct.transaction_type, ct.amount, ct.reference_invoice_number " +
+        "      FROM Customer_Transaction ct JOIN Parties p ON p.party_id = ct.customer_id %s) tx " +
+        "LEFT JOIN (SELECT si.sales_invoice_number, COALESCE(SUM(sii.quantity * sii.unit_price), 0) AS invoice_total, " +
+        "                  si.discount_amount, si.other_discount " +
+        "           FROM Sales_Invoice si " +
+        "           LEFT JOIN Sales_Invoice_Item sii ON sii.sales_invoice_id = si.sales_invoice_id " +
+        "           WHERE si.customer_id IN (SELECT party_id FROM Parties) " +
+        "           GROUP BY si.sales_invoice_id) it " +
+        "  ON tx.transaction_type = 'invoice_charge' AND it.sales_invoice_number = tx.reference_invoice_number",
+        "ct.transaction_date",
+        "SELECT si.customer_id AS party_id, ps.product_name AS item, SUM(sii.quantity) AS qty " +
+        "FROM Sales_Invoice si " +
+        "JOIN Sales_Invoice_Item sii ON si.sales_invoice_id = sii.sales_invoice_id " +
+        "JOIN ProductionStock ps ON sii.production_stock_id = ps.production_id " +
+        "WHERE si.customer_id IN (SELECT party_id FROM Parties) %s " +
+        "GROUP BY si.customer_id, ps.product_name " +
+        "ORDER BY si.customer_id, ps.product_name",
+        "si.sales_date");
+
+    private static final Side SUPPLIERS = new Side(SUPPLIER,
+        "SELECT s.supplier_id AS party_id, s.supplier_name AS name, COALESCE(s.balance, 0) AS balance " +
+        "FROM Supplier s ",
+        "s",
+        "SELECT tx.party_id, " +
+        "       CASE WHEN tx.transaction_type = 'invoice_charge' THEN COALESCE(rpi.total_amount, 0) ELSE 0 END AS sale, " +
+        "       CASE WHEN tx.transaction_type = 'invoice_charge' THEN COALESCE(rpi.discount_amount, 0) ELSE 0 END AS discount, " +
+        "       CASE WHEN tx.transaction_type = 'payment_made' THEN ABS(tx.amount) ELSE 0 END AS payment, " +
+        "       CASE WHEN tx.transaction_type = 'adjustment' AND tx.amount < 0 THEN ABS(tx.amount) ELSE 0 END AS return_amount " +
+        "FROM (SELECT st.supplier_id AS party_id, st.transaction_type, st.amount, st.reference_invoice_number " +
+        "      FROM Supplier_Transaction st JOIN Parties p ON p.party_id = st.supplier_id %s) tx " +
+        "LEFT JOIN Raw_Purchase_Invoice rpi " +
+        "  ON tx.transaction_type = 'invoice_charge' AND rpi.invoice_number = tx.reference_invoice_number",
+        "st.transaction_date",
+        "SELECT rpin.supplier_id AS party_id, rs.item_name AS item, SUM(rpi.quantity) AS qty " +
+        "FROM Raw_Purchase_Invoice rpin " +
+        "JOIN Raw_Purchase_Invoice_Item rpi ON rpin.raw_purchase_invoice_id = rpi.raw_purchase_invoice_id " +
+        "JOIN Raw_Stock rs ON rpi.raw_stock_id = rs.stock_id " +
+        "WHERE rpin.supplier_id IN (SELECT party_id FROM Parties) %s " +
+        "GROUP BY rpin.supplier_id, rs.item_name " +
+        "ORDER BY rpin.supplier_id, rs.item_name",
+        "rpin.invoice_date");
+
+    private AreaReportEngine() {
+    }
+
+    /**
+     * Totals for the parties of an area that have a sale, payment or return in the range.
+     * @param partyType "Customer", "Supplier" or "Both"
+     * @param areaType "province", "district", "tehsil" or "all"
+     * @param areaValue area name, or "All" for every area
+     * @param startDate yyyy-MM-dd, or null together with endDate for the whole history
+     * @return customers then suppliers, each by name
+     */
+    static List<AreaPartyTotals> getTotals(Connection connection, String partyType, String areaType, String areaValue,
+                                           String startDate, String endDate) throws SQLException {
+        List<AreaPartyTotals> totals = new ArrayList<>();
+        if (CUSTOMER.equals(partyType) || "Both".equals(partyType)) {
+            addTotals(connection, CUSTOMERS, areaType, areaValue, startDate, endDate, totals);
+        }
+        if (SUPPLIER.equals(partyType) || "Both".equals(partyType)) {
+            addTotals(connection, SUPPLIERS, areaType, areaValue, startDate, endDate, totals);
+        }
+        return totals;
+    }
+
+    private static void addTotals(Connection connection, Side side, String areaType, String areaValue,
+                                  String startDate, String endDate, List<AreaPartyTotals> totals) throws SQLException {
+        String areaFilter = areaFilter(side.alias, areaType, areaValue);
+        boolean filtered = !areaFilter.isEmpty();
+        boolean dated = startDate != null && endDate != null;
+        String parties = "WITH Parties AS (" + side.partiesSql + areaFilter + ") ";
+
+        Map<Integer, String> items = new HashMap<>();
+        String itemsQuery = parties + String.format(side.itemsSql,
+            dated ? "AND " + side.itemDate + " BETWEEN ? AND ?" : "");
+        try (PreparedStatement pstmt = connection.prepareStatement(itemsQuery)) {
+            bind(pstmt, filtered ? areaValue : null, dated ? startDate : null, endDate);
+            RowMapper.forEach(pstmt, rs -> new Object[] { rs.getInt("party_id"), rs.getString("item"), rs.getDouble("qty") },
+                row -> {
+                    double qty = (Double) row[2];
+                    // Show as Name (qty) with integer qty if whole number
+                    String qtyStr = (Math.floor(qty) == qty) ? String.format("%.0f", qty) : String.format("%.2f", qty);
+                    items.merge((Integer) row[0], row[1] + " (" + qtyStr + ")", (a, b) -> a + ", " + b);
+                });
+        }
+
+        String totalsQuery = parties +
+            "SELECT p.party_id, p.name, p.balance, " +
+            "       SUM(a.sale) AS total_sale, SUM(a.discount) AS total_discount, " +
+            "       SUM(a.payment) AS total_payment, SUM(a.return_amount) AS total_return " +
+            "FROM Parties p JOIN (" + String.format(side.transactionSql,
+                dated ? "WHERE " + side.transactionDate + " BETWEEN ? AND ?" : "") + ") a ON a.party_id = p.party_id " +
+            "GROUP BY p.party_id " +
+            "HAVING total_sale > 0 OR total_payment > 0 OR total_return > 0 " +
+            "ORDER BY p.name, p.party_id";
+        try (PreparedStatement pstmt = connection.prepareStatement(totalsQuery)) {
+            bind(pstmt, filtered ? areaValue : null, dated ? startDate : null, endDate);
+            RowMapper.forEach(pstmt, rs -> new AreaPartyTotals(
+                side.partyType,
+                rs.getInt("party_id"),
+                rs.getString("name"),
+                rs.getDouble("total_sale"),
+                rs.getDouble("total_discount"),
+                rs.getDouble("total_payment"),
+                rs.getDouble("total_return"),
+                rs.getDouble("balance"),
+                items.getOrDefault(rs.getInt("party_id"), "")), totals::add);
+        }
+    }
+
+    /**
+     * Joins and WHERE clause limiting the parties to one area, or "" for every area
+     */
+    private static String areaFilter(String alias, String areaType, String areaValue) {
+        if (areaType == null || areaValue == null || areaType.equalsIgnoreCase("all") || areaValue.equals("All")) {
+            return "";
+        }
+        switch (areaType.toLowerCase()) {
+            case "province":
+                return "LEFT JOIN Tehsil t ON " + alias + ".tehsil_id = t.tehsil_id " +
+                       "LEFT JOIN District d ON t.district_id = d.district_id " +
+                       "LEFT JOIN Province p ON d.province_id = p.province_id " +
+                       "WHERE p.province_name = ?";
+            case "district":
+                return "LEFT JOIN Tehsil t ON " + alias + ".tehsil_id = t.tehsil_id " +
+                       "LEFT JOIN District d ON t.district_id = d.district_id " +
+                       "WHERE d.district_name = ?";
+            case "tehsil":
+                return "LEFT JOIN Tehsil t ON " + alias + ".tehsil_id = t.tehsil_id " +
+                       "WHERE t.tehsil_name = ?";
+            default:
+                return "";
+        }
+    }
+
+    private static void bind(PreparedStatement pstmt, String areaValue, String startDate, String endDate) throws SQLException {
+        int index = 1;
+        if (areaValue != null) {
+            pstmt.setString(index++, areaValue);
+        }
+        if (startDate != null) {
+            pstmt.setString(index++, startDate);
+            pstmt.setString(index, endDate);
+        }
+    }
+}
@@ -0,0 +1,147 @@
+package com.cablemanagement.database;
+
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * Runs db calls on a small background pool so pages do not block the JavaFX
+ * thread while SQLite works. Results come back as CompletableFutures; callers
+ * hand them to the UI with Platform.runLater.
+ *
+ * Requests submitted with a key replace any earlier request with the same key
+ * that has not finished yet (e.g. a table reloaded before its last load returned),
+ * so stale results never overwrite newer ones.
+ *
+ * Each call runs with a pooled read-only connection bound to its worker thread (see
+ * ConnectionProvider.withReader()), so it never uses the writer connection, or a
+ * transaction the FX thread has open on it. Calls submitted here must only read.
+ * Backups and restores, which need a connection of their own or the writer, go through
+ * submitMaintenance() instead.
+ */
+public class AsyncDatabase {
+
+    private static final int WORKER_THREADS = 2;
+    private static final int QUEUE_CAPACITY = 64;
+
+    private static AsyncDatabase sharedInstance;
+
+    private final db database;
+    private final ConnectionProvider provider;
+    private final ThreadPoolExecutor executor;
+    private final ExecutorService maintenance;
+    private final Map<String, CompletableFuture<?>> latestByKey = new ConcurrentHashMap<>();
+
+    public AsyncDatabase(db database) {
+        this.database = database;
+        this.provider = database instanceof SQLiteDatabase ? ((SQLiteDatabase) database).getProvider() : null;
+        AtomicInteger threadNumber = new AtomicInteger(1);
+        this.executor = new ThreadPoolExecutor(WORKER_THREADS, WORKER_THREADS, 30, TimeUnit.SECONDS,
+            new ArrayBlockingQueue<>(QUEUE_CAPACITY),
+            runnable -> {
+                Thread thread = new Thread(runnable, "db-worker-" + threadNumber.getAndIncrement());
+                thread.setDaemon(true);
+                return thread;
+            });
+        this.executor.allowCoreThreadTimeOut(true);
+        this.maintenance = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "db-maintenance");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Get the application-wide facade over config.database
+     */
+    public static synchronized AsyncDatabase getInstance() {
+        if (sharedInstance == null) {
+            sharedInstance = new AsyncDatabase(com.cablemanagement.config.database);
+        }
+        return sharedInstance;
+    }
+
+    /**
+     * Run a db call in the background.
+     * Cancelling the returned future before the call starts skips it; cancelling it
+     * while running discards its result.
+     */
+    public <T> CompletableFuture<T> submit(Function<db, T> call) {
+        return submit(executor, call, true);
+    }
+
+    /**
+     * Run a backup, restore or other maintenance call in the background. The call gets no
+     * pooled reader, so it may write; maintenance calls run one at a time on a thread of
+     * their own and never wait behind page loads.
+     */
+    public <T> CompletableFuture<T> submitMaintenance(Function<db, T> call) {
+        return submit(maintenance, call, false);
+    }
+
+    private <T> CompletableFuture<T> submit(ExecutorService workers, Function<db, T> call, boolean readOnly) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        Future<?> task;
+        try {
+            task = workers.submit(() -> {
+                if (result.isDone()) {
+                    return; // Cancelled while queued
+                }
+                try {
+                    result.complete(readOnly && provider != null ? provider.withReader(() -> call.apply(database))
+                                                                 : call.apply(database));
+                } catch (Throwable t) {
+                    result.completeExceptionally(t);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            System.err.println("Database queue is full, request rejected");
+            result.completeExceptionally(e);
+            return result;
+        }
+        result.whenComplete((value, error) -> {
+            if (result.isCancelled()) {
+                task.cancel(false);
+            }
+        });
+        return result;
+    }
+
+    /**
+     * Run a db call in the background, cancelling the previous call submitted
+     * with the same key if it has not completed
+     */
+    public <T> CompletableFuture<T> submitLatest(String key, Function<db, T> call) {
+        CompletableFuture<T> result = submit(call);
+        CompletableFuture<?> previous = latestByKey.put(key, result);
+        if (previous != null) {
+            previous.cancel(false);
+        }
+        result.whenComplete((value, error) -> latestByKey.remove(key, result));
+        return result;
+    }
+
+    /**
+     * Cancel the pending call for a key, if any
+     */
+    public void cancel(String key) {
+        CompletableFuture<?> pending = latestByKey.remove(key);
+        if (pending != null) {
+            pending.cancel(false);
+        }
+    }
+
+    public void shutdown() {
+        executor.shutdownNow();
+        maintenance.shutdownNow();
+    }
+}
@@ -0,0 +1,248 @@
+package com.cablemanagement.database;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import com.cablemanagement.Log;
+import com.cablemanagement.model.DatabaseBackup;
+
+/**
+ * Snapshots of one database file, taken while the application keeps running.
+ *
+ * A snapshot is written with VACUUM INTO on a connection of its own. It reads one
+ * consistent WAL snapshot, so it never includes half a transaction, and the writer
+ * carries on saving invoices while it runs. Each snapshot is written to a .partial
+ * file and only renamed to its final name once PRAGMA integrity_check on the copy
+ * passes, so every file listed is a verified backup.
+ *
+ * Snapshots go to backups/ next to the database file, named
+ * cable_management-yyyyMMdd-HHmmss-kind.db. The schedule takes one every
+ * -Dcablemanagement.backup.intervalHours (default 24, 0 turns it off), and only the
+ * newest -Dcablemanagement.backup.keep (default 14) are kept. Set
+ * -Dcablemanagement.backup.dir to write them somewhere else.
+ */
+class BackupService {
+
+    static final String SCHEDULED = "scheduled";
+    static final String MANUAL = "manual";
+    static final String PRE_RESTORE = "pre-restore";
+    static final String PRE_ARCHIVE = "pre-archive";
+
+    private static final DateTimeFormatter STAMP = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+    private static final long FIRST_BACKUP_DELAY_MINUTES = 2;
+
+    private final File databaseFile;
+    private final File directory;
+    private final String baseName;
+    private final Pattern fileNames;
+    private final long intervalHours = Long.getLong("cablemanagement.backup.intervalHours", 24);
+    private final int keep = Math.max(1, Integer.getInteger("cablemanagement.backup.keep", 14));
+    private ScheduledExecutorService scheduler;
+
+    BackupService(String databasePath) {
+        this.databaseFile = new File(databasePath).getAbsoluteFile();
+        String dir = System.getProperty("cablemanagement.backup.dir");
+        this.directory = dir != null ? new File(dir) : new File(databaseFile.getParentFile(), "backups");
+        String name = databaseFile.getName();
+        this.baseName = name.endsWith(".db") ? name.substring(0, name.length() - 3) : name;
+        this.fileNames = Pattern.compile(Pattern.quote(baseName) + "-(\\d{8}-\\d{6})-([a-z-]+)\\.db");
+    }
+
+    /**
+     * Take a snapshot, verify it and drop the ones beyond the retention count
+     * @param kind SCHEDULED, MANUAL, PRE_RESTORE or PRE_ARCHIVE
+     * @throws SQLException if the snapshot could not be written or failed its integrity check
+     */
+    synchronized DatabaseBackup create(String kind) throws SQLException {
+        if (!directory.exists() && !directory.mkdirs()) {
+            throw new SQLException("Cannot create backup directory " + directory);
+        }
+        LocalDateTime now = LocalDateTime.now();
+        File target = new File(directory, baseName + "-" + now.format(STAMP) + "-" + kind + ".db");
+        while (target.exists()) {
+            // Two snapshots within one second: step the stamp forward rather than overwrite
+            now = now.plusSeconds(1);
+            target = new File(directory, baseName + "-" + now.format(STAMP) + "-" + kind + ".db");
+        }
+        File partial = new File(target.getPath() + ".partial");
+        partial.delete();
+
+        long start = System.nanoTime();
+        try {
+            // Not a pooled reader: those are query_only, which VACUUM INTO refuses
+            try (Connection source = DriverManager.getConnection("jdbc:sqlite:" + databaseFile.getPath())) {
+                try (Statement stmt = source.createStatement()) {
+                    stmt.execute("PRAGMA busy_timeout = 30000");
+                }
+                try (PreparedStatement pstmt = source.prepareStatement("VACUUM INTO ?")) {
+                    pstmt.setString(1, partial.getPath());
+                    pstmt.execute();
+                }
+            }
+            String check = verify(partial);
+            if (!"ok".equals(check)) {
+                throw new SQLException("Snapshot failed its integrity check: " + check);
+            }
+            Files.move(partial.toPath(), target.toPath(), StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new SQLException("Cannot save snapshot " + target + ": " + e.getMessage(), e);
+        } finally {
+            partial.delete();
+        }
+
+        Log.info(String.format("Database backup written to %s (%.1f MB, %d ms)", target,
+            target.length() / (1024.0 * 1024.0), (System.nanoTime() - start) / 1_000_000));
+        prune();
+        return new DatabaseBackup(target.getPath(), now, target.length(), kind);
+    }
+
+    /**
+     * Verified snapshots in the backup directory, newest first
+     */
+    List<DatabaseBackup> list() {
+        List<DatabaseBackup> backups = new ArrayList<>();
+        File[] files = directory.listFiles();
+        if (files == null) {
+            return backups;
+        }
+        for (File file : files) {
+            Matcher matcher = fileNames.matcher(file.getName());
+            if (!matcher.matches()) {
+                continue;
+            }
+            try {
+                backups.add(new DatabaseBackup(file.getPath(), LocalDateTime.parse(matcher.group(1), STAMP),
+                                               file.length(), matcher.group(2)));
+            } catch (DateTimeParseException e) {
+                // Not one of ours
+            }
+        }
+        backups.sort(Comparator.comparing(DatabaseBackup::createdAt).reversed());
+        return backups;
+    }
+
+    /**
+     * Run PRAGMA integrity_check on a database file without changing it
+     * @return "ok", or the first problem found
+     */
+    static String verify(File file) {
+        if (!file.isFile()) {
+            return "file not found";
+        }
+        try (Connection connection = DriverManager.getConnection("jdbc:sqlite:" + file.getPath());
+             Statement stmt = connection.createStatement()) {
+            stmt.execute("PRAGMA query_only = ON");
+            try (ResultSet rs = stmt.executeQuery("PRAGMA integrity_check")) {
+                String result = rs.next() ? rs.getString(1) : "no result";
+                if (!"ok".equals(result)) {
+                    return result;
+                }
+            }
+            // An empty or foreign file also passes integrity_check
+            try (ResultSet rs = stmt.executeQuery(
+                    "SELECT COUNT(*) FROM sqlite_master WHERE type = 'table' AND name IN ('Customer', 'Sales_Invoice')")) {
+                return rs.next() && rs.getInt(1) == 2 ? "ok" : "not a cable management database";
+            }
+        } catch (SQLException e) {
+            return e.getMessage();
+        }
+    }
+
+    /**
+     * Replace the live database with a snapshot. The current state is saved as a
+     * pre-restore snapshot first, so a restore can itself be undone.
+     *
+     * Runs SQLite's online backup from the snapshot into the writer connection, so the
+     * open connections stay valid and see the restored data on their next read.
+     * @throws SQLException if the snapshot is not a verified backup or the copy fails
+     */
+    synchronized void restore(Connection writer, String path) throws SQLException {
+        File file = new File(path);
+        String check = verify(file);
+        if (!"ok".equals(check)) {
+            throw new SQLException("Backup " + path + " cannot be restored: " + check);
+        }
+        create(PRE_RESTORE);
+
+        // The driver's "restore from" command wraps sqlite3_backup_*() with the writer as destination
+        String quoted = file.getPath().contains("\"") ? "'" + file.getPath() + "'" : "\"" + file.getPath() + "\"";
+        try (Statement stmt = writer.createStatement()) {
+            stmt.executeUpdate("restore from " + quoted);
+        }
+        Log.info("Database restored from " + path);
+    }
+
+    /**
+     * Delete the oldest snapshots beyond the retention count
+     */
+    private void prune() {
+        List<DatabaseBackup> backups = list();
+        for (DatabaseBackup backup : backups.subList(Math.min(keep, backups.size()), backups.size())) {
+            if (new File(backup.path()).delete()) {
+                Log.info("Old database backup removed: " + backup.path());
+            }
+        }
+    }
+
+    /**
+     * Start taking scheduled snapshots in the background. The first one is taken shortly
+     * after startup if the newest snapshot is older than the interval.
+     */
+    synchronized void startSchedule() {
+        if (scheduler != null || intervalHours <= 0) {
+            return;
+        }
+        long intervalMinutes = TimeUnit.HOURS.toMinutes(intervalHours);
+        long delayMinutes = FIRST_BACKUP_DELAY_MINUTES;
+        List<DatabaseBackup> backups = list();
+        if (!backups.isEmpty()) {
+            long age = Duration.between(backups.get(0).createdAt(), LocalDateTime.now()).toMinutes();
+            delayMinutes = Math.max(FIRST_BACKUP_DELAY_MINUTES, intervalMinutes - age);
+        }
+
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "database-backup");
+            thread.setDaemon(true);
+            thread.setPriority(Thread.MIN_PRIORITY);
+            return thread;
+        });
+        scheduler.scheduleAtFixedRate(() -> {
+            try {
+                create(SCHEDULED);
+            } catch (SQLException | RuntimeException e) {
+                Log.error("Scheduled database backup failed: " + e.getMessage());
+                e.printStackTrace();
+            }
+        }, delayMinutes, intervalMinutes, TimeUnit.MINUTES);
+    }
+
+    /**
+     * Stop the schedule; a snapshot already running is left to finish
+     */
+    synchronized void stopSchedule() {
+        if (scheduler != null) {
+            scheduler.shutdown();
+            scheduler = null;
+        }
+    }
+}
@@ -0,0 +1,189 @@
+package com.cablemanagement.database;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes the book rows of one invoice. The product, brand, manufacturer and unit names
+ * for all of an invoice's items are resolved with one joined query, and the rows are
+ * collected in a Batch and inserted with a single executeBatch() on the caller's
+ * connection, so they commit or roll back with the rest of the invoice.
+ */
+class BookWriter {
+
+    /**
+     * The book tables and the columns written for each
+     */
+    enum Book {
+        PURCHASE("Purchase_Book",
+            "raw_purchase_invoice_id", "invoice_number", "supplier_name", "invoice_date", "item_name",
+            "brand_name", "manufacturer_name", "quantity", "unit_price", "item_total", "total_amount",
+            "discount_amount", "paid_amount", "balance"),
+        RETURN_PURCHASE("Return_Purchase_Book",
+            "raw_purchase_return_invoice_id", "return_invoice_number", "supplier_name", "return_date", "item_name",
+            "brand_name", "manufacturer_name", "quantity", "unit_price", "item_total", "total_return_amount",
+            "balance"),
+        RAW_STOCK_USE("Raw_Stock_Use_Book",
+            "raw_stock_use_invoice_id", "use_invoice_number", "usage_date", "item_name", "brand_name",
+            "manufacturer_name", "quantity_used", "unit_cost", "total_cost", "total_usage_amount",
+            "reference_purpose"),
+        PRODUCTION("Production_Book",
+            "production_invoice_id", "production_date", "product_name", "brand_name", "manufacturer_name",
+            "quantity_produced", "unit_cost", "total_cost", "notes"),
+        RETURN_PRODUCTION("Return_Production_Book",
+            "production_return_invoice_id", "return_invoice_number", "return_date", "product_name", "brand_name",
+            "manufacturer_name", "quantity_returned", "unit_cost", "total_cost", "notes"),
+        SALES("Sales_Book",
+            "sales_invoice_id", "sales_invoice_number", "customer_name", "sales_date", "product_name",
+            "brand_name", "manufacturer_name", "quantity", "unit_price", "discount_percentage", "discount_amount",
+            "item_total", "total_amount", "other_discount", "paid_amount", "net_invoice_amount",
+            "previous_balance", "total_balance", "net_balance"),
+        RETURN_SALES("Return_Sales_Book",
+            "sales_return_invoice_id", "return_invoice_number", "customer_name", "customer_contact",
+            "customer_tehsil", "return_date", "product_name", "brand_name", "manufacturer_name", "unit_name",
+            "quantity", "unit_price", "item_discount_percentage", "item_discount_amount", "item_total",
+            "total_return_amount", "previous_balance", "invoice_discount", "other_discount", "paid_amount",
+            "calculated_balance", "original_sales_invoice_number");
+
+        final String table;
+        final int columnCount;
+        final String insertSql;
+
+        Book(String table, String... columns) {
+            this.table = table;
+            this.columnCount = columns.length;
+            this.insertSql = "INSERT INTO " + table + " (" + String.join(", ", columns) + ") VALUES (" +
+                             String.join(", ", Collections.nCopies(columns.length, "?")) + ")";
+        }
+    }
+
+    /**
+     * Names of one stock row; a name is null when the row has no matching brand, manufacturer or unit
+     */
+    record Names(String product, String brand, String manufacturer, String unit) {
+    }
+
+    private static final String PRODUCTION_NAMES_QUERY =
+        "SELECT ps.production_id AS id, ps.product_name AS product, b.brand_name AS brand, " +
+        "       m.manufacturer_name AS manufacturer, u.unit_name AS unit " +
+        "FROM ProductionStock ps " +
+        "LEFT JOIN Brand b ON b.brand_id = ps.brand_id " +
+        "LEFT JOIN Manufacturer m ON m.manufacturer_id = ps.manufacturer_id " +
+        "LEFT JOIN Unit u ON u.unit_id = ps.unit_id " +
+        "WHERE ps.production_id IN (SELECT value FROM json_each(?))";
+
+    private static final String RAW_STOCK_NAMES_QUERY =
+        "SELECT rs.stock_id AS id, rs.item_name AS product, b.brand_name AS brand, " +
+        "       m.manufacturer_name AS manufacturer, u.unit_name AS unit " +
+        "FROM Raw_Stock rs " +
+        "LEFT JOIN Brand b ON b.brand_id = rs.brand_id " +
+        "LEFT JOIN Manufacturer m ON m.manufacturer_id = rs.manufacturer_id " +
+        "LEFT JOIN Unit u ON u.unit_id = rs.unit_id " +
+        "WHERE rs.stock_id IN (SELECT value FROM json_each(?))";
+
+    private BookWriter() {
+    }
+
+    /**
+     * Names of the given ProductionStock rows, keyed by production_id; missing ids are absent
+     */
+    static Map<Integer, Names> productionNames(Connection connection, Collection<Integer> productionIds) throws SQLException {
+        return names(connection, PRODUCTION_NAMES_QUERY, productionIds);
+    }
+
+    /**
+     * Names of the given Raw_Stock rows, keyed by stock_id; missing ids are absent
+     */
+    static Map<Integer, Names> rawStockNames(Connection connection, Collection<Integer> rawStockIds) throws SQLException {
+        return names(connection, RAW_STOCK_NAMES_QUERY, rawStockIds);
+    }
+
+    private static Map<Integer, Names> names(Connection connection, String query, Collection<Integer> ids) throws SQLException {
+        Map<Integer, Names> names = new HashMap<>();
+        if (ids.isEmpty()) {
+            return names;
+        }
+        // The ids go in as one JSON array so the statement text (and its cached plan) is the same for every invoice
+        StringBuilder idList = new StringBuilder("[");
+        for (Integer id : new LinkedHashSet<>(ids)) {
+            if (idList.length() > 1) {
+                idList.append(',');
+            }
+            idList.append(id.intValue());
+        }
+        idList.append(']');
+
+        try (PreparedStatement pstmt = connection.prepareStatement(query)) {
+            pstmt.setString(1, idList.toString());
+            RowMapper.forEach(pstmt, rs -> new Object[] {
+                    rs.getInt("id"),
+                    new Names(rs.getString("product"), rs.getString("brand"),
+                              rs.getString("manufacturer"), rs.getString("unit")) },
+                row -> names.put((Integer) row[0], (Names) row[1]));
+        }
+        return names;
+    }
+
+    /**
+     * Rows collected for one book table
+     */
+    static final class Batch {
+        private final Book book;
+        private final List<Object[]> rows = new ArrayList<>();
+
+        Batch(Book book) {
+            this.book = book;
+        }
+
+        /**
+         * Add one row; values are in the order of the Book's columns
+         */
+        Batch add(Object... values) {
+            if (values.length != book.columnCount) {
+                throw new IllegalArgumentException(book.table + " takes " + book.columnCount +
+                                                   " values, got " + values.length);
+            }
+            rows.add(values);
+            return this;
+        }
+
+        int size() {
+            return rows.size();
+        }
+
+        /**
+         * Insert every collected row with one executeBatch()
+         * @return the number of rows written
+         * @throws SQLException if the insert fails or any row is not written; the caller rolls back
+         */
+        int write(Connection connection) throws SQLException {
+            if (rows.isEmpty()) {
+                return 0;
+            }
+            try (PreparedStatement pstmt = connection.prepareStatement(book.insertSql)) {
+                for (Object[] row : rows) {
+                    for (int i = 0; i < row.length; i++) {
+                        pstmt.setObject(i + 1, row[i]);
+                    }
+                    pstmt.addBatch();
+                }
+                int[] results = pstmt.executeBatch();
+                for (int result : results) {
+                    if (result == 0 || result == Statement.EXECUTE_FAILED) {
+                        throw new SQLException("Failed to insert " + book.table + " row");
+                    }
+                }
+            }
+            return rows.size();
+        }
+    }
+}
@@ -0,0 +1,418 @@
+package com.cablemanagement.database;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
+
+import com.cablemanagement.model.StatementCacheStats;
+
+/**
+ * Owns the connections to one database file: a single writer connection shared by
+ * every SQLiteDatabase instance on that file, plus a small pool of read-only
+ * connections. The database runs in WAL mode, so readers see the last committed
+ * state without waiting on the writer.
+ *
+ * Providers are shared per file path, so schema setup runs once per process no
+ * matter how many DAO objects are created.
+ *
+ * Background threads read through withReader(), which binds a pooled reader to the
+ * thread for the length of a call; the DAO's connection (getConnection()) follows that
+ * binding, so only the thread that owns the writer's transactions ever uses the writer.
+ * History connections a thread takes for reports over archived years (historyReader())
+ * are held by that thread and given back when its withReader() call ends.
+ * A restore runs through exclusive(), which holds every other thread's writer calls
+ * until it is done.
+ */
+public class ConnectionProvider {
+
+    private static final int READER_POOL_SIZE = 3;
+    private static final long READER_WAIT_MILLIS = 200;
+    private static final long BOUND_READER_WAIT_SECONDS = 30;
+    // History connections a thread outside withReader() keeps between reports
+    private static final int HELD_HISTORY_READERS = 3;
+
+    private static final Map<String, ConnectionProvider> providers = new HashMap<>();
+
+    private final String databasePath;
+    private final BlockingQueue<Connection> idleReaders = new ArrayBlockingQueue<>(READER_POOL_SIZE);
+    private final List<Connection> allReaders = new ArrayList<>();
+    private final ThreadLocal<Connection> boundReader = new ThreadLocal<>();
+    /** History connections held by the thread, by the fromDate they were taken for */
+    private final ThreadLocal<Map<String, Connection>> heldHistory = ThreadLocal.withInitial(this::newHeldHistory);
+    private final Connection routedConnection;
+    private volatile Connection writer;
+    /** Writer calls hold the read side; exclusive() holds the write side */
+    private final ReentrantReadWriteLock writerLock = new ReentrantReadWriteLock();
+    private boolean initialized = false;
+    private final MasterDataCache masterData = new MasterDataCache();
+    private final ProductCatalog productCatalog = new ProductCatalog();
+    private final InvoiceSequence invoiceSequence = new InvoiceSequence();
+    private final BackupService backups;
+    private final FiscalYearArchive archives;
+
+    private ConnectionProvider(String databasePath) {
+        this.databasePath = databasePath;
+        this.backups = new BackupService(databasePath);
+        this.archives = new FiscalYearArchive(databasePath);
+        this.routedConnection = (Connection) Proxy.newProxyInstance(
+            ConnectionProvider.class.getClassLoader(), new Class<?>[] { Connection.class }, this::route);
+    }
+
+    /**
+     * Get the shared provider for a database file, creating it on first use
+     */
+    public static synchronized ConnectionProvider forPath(String databasePath) {
+        return providers.computeIfAbsent(databasePath, ConnectionProvider::new);
+    }
+
+    public String getDatabasePath() {
+        return databasePath;
+    }
+
+    /**
+     * Reference data cache shared by every database object using this file
+     */
+    public MasterDataCache getMasterData() {
+        return masterData;
+    }
+
+    /**
+     * Production stock catalog index shared by every database object using this file
+     */
+    ProductCatalog getProductCatalog() {
+        return productCatalog;
+    }
+
+    /**
+     * Invoice number allocator (and this terminal's reserved number blocks) for this file
+     */
+    InvoiceSequence getInvoiceSequence() {
+        return invoiceSequence;
+    }
+
+    /**
+     * Snapshots of this file (see BackupService)
+     */
+    BackupService getBackups() {
+        return backups;
+    }
+
+    /**
+     * Fiscal years archived out of this file (see FiscalYearArchive)
+     */
+    FiscalYearArchive getArchives() {
+        return archives;
+    }
+
+    /**
+     * Get the writer connection, opening it (and enabling WAL) if needed
+     */
+    public synchronized Connection getWriter() throws SQLException {
+        if (writer == null || writer.isClosed()) {
+            writer = StatementCache.wrap(DriverManager.getConnection("jdbc:sqlite:" + databasePath),
+                                         StatementCache.DEFAULT_CAPACITY);
+            try (Statement stmt = writer.createStatement()) {
+                // Enable foreign keys
+                stmt.execute("PRAGMA foreign_keys = ON");
+
+                // Set timeout for busy connections (in milliseconds)
+                stmt.execute("PRAGMA busy_timeout = 30000");
+
+                // Use WAL mode for better concurrency
+                stmt.execute("PRAGMA journal_mode = WAL");
+
+                // Optimize for better performance
+                stmt.execute("PRAGMA synchronous = NORMAL");
+                stmt.execute("PRAGMA cache_size = 10000");
+                stmt.execute("PRAGMA temp_store = memory");
+            }
+        }
+        return writer;
+    }
+
+    /**
+     * The connection DAO code runs its statements on: the reader bound to the calling
+     * thread by withReader(), otherwise the writer
+     */
+    public Connection getConnection() {
+        return routedConnection;
+    }
+
+    /**
+     * Run an action once the transaction open on this thread's connection commits or
+     * rolls back, or right away when none is open (see StatementCache)
+     */
+    void afterTransaction(Runnable action) throws SQLException {
+        Connection target = boundReader.get();
+        StatementCache.afterTransaction(target != null ? target : getWriter(), action);
+    }
+
+    private Object route(Object proxy, Method method, Object[] args) throws Throwable {
+        Connection target = boundReader.get();
+        if (target != null) {
+            return invoke(target, method, args);
+        }
+        writerLock.readLock().lock();
+        try {
+            return invoke(writer != null ? writer : getWriter(), method, args);
+        } finally {
+            writerLock.readLock().unlock();
+        }
+    }
+
+    private static Object invoke(Connection target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Run a call with the writer to itself: writer calls from other threads wait until it
+     * returns. For work that replaces the data underneath the writer, such as a restore.
+     */
+    <T> T exclusive(Supplier<T> call) {
+        writerLock.writeLock().lock();
+        try {
+            return call.get();
+        } finally {
+            writerLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Run a call with a pooled reader bound to the current thread. Until it returns,
+     * getConnection() and acquireReader() on this thread use that reader, so a background
+     * load never shares the writer, or a transaction open on it, with the FX thread.
+     * Waits for a free reader instead of falling back to the writer.
+     */
+    public <T> T withReader(Supplier<T> call) throws SQLException {
+        if (boundReader.get() != null) {
+            return call.get();
+        }
+        Connection reader = pooledReader();
+        if (reader == null) {
+            try {
+                reader = idleReaders.poll(BOUND_READER_WAIT_SECONDS, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            if (reader == null) {
+                throw new SQLException("No read connection became free");
+            }
+        }
+        boundReader.set(reader);
+        try {
+            return call.get();
+        } finally {
+            boundReader.remove();
+            releaseReader(reader);
+            Map<String, Connection> held = heldHistory.get();
+            held.values().forEach(archives::releaseHistoryReader);
+            held.clear();
+        }
+    }
+
+    /**
+     * History connection for a report whose date range starts at fromDate (null for the
+     * whole history), for reads that hand back a ResultSet and so cannot give it back
+     * themselves. It stays with the current thread: inside withReader() until the call
+     * ends, elsewhere for the next reports from the same date until the archives change.
+     * @return null when the range does not reach into an archived year
+     */
+    Connection historyReader(String fromDate) throws SQLException {
+        Map<String, Connection> held = heldHistory.get();
+        String key = fromDate == null ? "" : fromDate;
+        Connection history = held.get(key);
+        if (history != null) {
+            if (archives.isCurrent(history)) {
+                return history;
+            }
+            held.remove(key);
+            archives.releaseHistoryReader(history);
+        }
+        history = archives.acquireHistoryReader(getWriter(), fromDate);
+        if (history != null) {
+            held.put(key, history);
+        }
+        return history;
+    }
+
+    private Map<String, Connection> newHeldHistory() {
+        return new LinkedHashMap<>() {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Connection> eldest) {
+                if (size() <= HELD_HISTORY_READERS || boundReader.get() != null) {
+                    return false;
+                }
+                archives.releaseHistoryReader(eldest.getValue());
+                return true;
+            }
+        };
+    }
+
+    /**
+     * Mark the schema as set up for this file.
+     * @return true only for the first caller, which should run the schema setup
+     */
+    synchronized boolean markInitialized() {
+        if (initialized) {
+            return false;
+        }
+        initialized = true;
+        return true;
+    }
+
+    /**
+     * Borrow a read-only connection. Opens a new one while the pool is below its
+     * size, otherwise waits briefly for one to be returned and falls back to the
+     * writer connection if none is free. Inside withReader() this is the bound reader.
+     * Must be given back with releaseReader().
+     */
+    public Connection acquireReader() throws SQLException {
+        Connection reader = boundReader.get();
+        if (reader != null) {
+            return reader;
+        }
+        reader = pooledReader();
+        if (reader != null) {
+            return reader;
+        }
+        try {
+            reader = idleReaders.poll(READER_WAIT_MILLIS, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return reader != null ? reader : getWriter();
+    }
+
+    /**
+     * An idle pooled reader, or a new one while the pool is below its size; null if all are in use
+     */
+    private Connection pooledReader() throws SQLException {
+        Connection reader = idleReaders.poll();
+        if (reader != null) {
+            return reader;
+        }
+        synchronized (this) {
+            if (allReaders.size() < READER_POOL_SIZE) {
+                getWriter(); // The writer sets up WAL before any reader opens the file
+                reader = StatementCache.wrap(DriverManager.getConnection("jdbc:sqlite:" + databasePath),
+                                             StatementCache.DEFAULT_CAPACITY);
+                try (Statement stmt = reader.createStatement()) {
+                    stmt.execute("PRAGMA busy_timeout = 30000");
+                    stmt.execute("PRAGMA cache_size = 10000");
+                    stmt.execute("PRAGMA temp_store = memory");
+                    stmt.execute("PRAGMA query_only = ON");
+                }
+                allReaders.add(reader);
+                return reader;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Borrow a read-only connection for a read whose date range starts at fromDate (null
+     * for the whole history). When the range reaches into an archived fiscal year this is
+     * a history connection of its own with those archives attached, otherwise a pooled
+     * reader. Must be given back with releaseReader().
+     */
+    public Connection acquireReader(String fromDate) throws SQLException {
+        Connection history = archives.acquireHistoryReader(getWriter(), fromDate);
+        return history != null ? history : acquireReader();
+    }
+
+    /**
+     * Return a connection obtained from acquireReader()
+     */
+    public void releaseReader(Connection reader) {
+        if (reader == null || reader == writer || reader == boundReader.get() || archives.releaseHistoryReader(reader)) {
+            return;
+        }
+        synchronized (this) {
+            if (!allReaders.contains(reader)) {
+                return;
+            }
+        }
+        try {
+            if (reader.isClosed() || !idleReaders.offer(reader)) {
+                reader.close();
+                synchronized (this) {
+                    allReaders.remove(reader);
+                }
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Prepared statement cache counters summed over the writer and every pooled reader
+     */
+    public synchronized StatementCacheStats getStatementCacheStats() {
+        List<Connection> connections = new ArrayList<>(allReaders);
+        connections.add(writer);
+        long hits = 0;
+        long misses = 0;
+        long evictions = 0;
+        int cached = 0;
+        for (Connection connection : connections) {
+            StatementCache cache = StatementCache.of(connection);
+            if (cache != null) {
+                hits += cache.getHits();
+                misses += cache.getMisses();
+                evictions += cache.getEvictions();
+                cached += cache.size();
+            }
+        }
+        return new StatementCacheStats(hits, misses, evictions, cached);
+    }
+
+    public synchronized boolean isOpen() {
+        try {
+            return writer != null && !writer.isClosed();
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Close the writer and every pooled reader
+     */
+    public synchronized void close() {
+        backups.stopSchedule();
+        archives.changed();
+        for (Connection reader : allReaders) {
+            try {
+                reader.close();
+            } catch (SQLException e) {
+                e.printStackTrace();
+            }
+        }
+        allReaders.clear();
+        idleReaders.clear();
+        try {
+            if (writer != null && !writer.isClosed()) {
+                writer.close();
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+    }
+}
@@ -0,0 +1,173 @@
+package com.cablemanagement.database;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+
+import com.cablemanagement.Log;
+
+/**
+ * Streams a query result into a CSV file that Excel opens as it is.
+ *
+ * Rows are read one at a time from the forward-only ResultSet and written through a
+ * buffered writer, so an export holds one row in memory however large the book or
+ * report is. The file is UTF-8 with a byte order mark (Excel otherwise assumes the
+ * ANSI code page), rows end in CRLF and fields are quoted as RFC 4180 requires.
+ * Text that Excel would take for a formula (starting with =, +, -, @, a tab or a
+ * carriage return) is written with a leading apostrophe, so a customer name or note
+ * can never run as one; plain numbers, negative ones included, are written as they are.
+ *
+ * The rows go to a .partial file next to the target, which is renamed once the last
+ * row is written; a failed or cancelled export leaves no file behind.
+ */
+public final class CsvExport {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final int PROGRESS_INTERVAL = 256;
+    private static final Pattern NUMBER = Pattern.compile("[+-]?\\d+(\\.\\d+)?([eE][+-]?\\d+)?");
+
+    /**
+     * One export, shared between the thread writing it and the page showing it
+     */
+    public static final class Job {
+        private final AtomicBoolean cancelled = new AtomicBoolean();
+        private final AtomicLong rows = new AtomicLong();
+
+        /**
+         * Stop the export at the next row; the partial file is deleted
+         */
+        public void cancel() {
+            cancelled.set(true);
+        }
+
+        public boolean isCancelled() {
+            return cancelled.get();
+        }
+
+        /**
+         * Rows written so far, updated every few hundred rows
+         */
+        public long getRows() {
+            return rows.get();
+        }
+    }
+
+    private CsvExport() {
+    }
+
+    /**
+     * Write every row of a result set, headed by its column labels, and close it
+     * @param rs an open result set positioned before its first row
+     * @param file the CSV file to create or replace
+     * @param job receives progress and may cancel the export; may be null
+     * @return the number of rows written
+     * @throws CancellationException if the job was cancelled
+     * @throws SQLException if reading the rows fails
+     * @throws IOException if the file cannot be written
+     */
+    public static long write(ResultSet rs, File file, Job job) throws SQLException, IOException {
+        File partial = new File(file.getPath() + ".partial");
+        long start = System.nanoTime();
+        long rows = 0;
+        try (ResultSet results = rs;
+             Writer out = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(partial),
+                                                                    StandardCharsets.UTF_8), BUFFER_SIZE)) {
+            out.write('\uFEFF');
+            ResultSetMetaData metaData = results.getMetaData();
+            int columnCount = metaData.getColumnCount();
+            for (int i = 1; i <= columnCount; i++) {
+                writeField(out, metaData.getColumnLabel(i), i == 1);
+            }
+            out.write("\r\n");
+
+            while (results.next()) {
+                for (int i = 1; i <= columnCount; i++) {
+                    writeField(out, results.getString(i), i == 1);
+                }
+                out.write("\r\n");
+                rows++;
+                if (rows % PROGRESS_INTERVAL == 0 && job != null) {
+                    if (job.isCancelled()) {
+                        throw new CancellationException("Export to " + file + " cancelled");
+                    }
+                    job.rows.set(rows);
+                }
+            }
+        } catch (SQLException | IOException | RuntimeException e) {
+            partial.delete();
+            throw e;
+        }
+        if (job != null) {
+            if (job.isCancelled()) {
+                partial.delete();
+                throw new CancellationException("Export to " + file + " cancelled");
+            }
+            job.rows.set(rows);
+        }
+        try {
+            Files.move(partial.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            partial.delete();
+            throw e;
+        }
+
+        Log.info(String.format("Exported %d rows to %s (%d ms)", rows, file,
+            (System.nanoTime() - start) / 1_000_000));
+        return rows;
+    }
+
+    /**
+     * Write one field, quoted when it holds a separator, a quote, a line break or
+     * leading or trailing blanks. NULL is written as an empty field.
+     */
+    private static void writeField(Writer out, String value, boolean first) throws IOException {
+        if (!first) {
+            out.write(',');
+        }
+        if (value == null || value.isEmpty()) {
+            return;
+        }
+        if (isFormula(value)) {
+            value = "'" + value;
+        }
+        boolean quote = value.charAt(0) == ' ' || value.charAt(value.length() - 1) == ' ';
+        for (int i = 0; i < value.length() && !quote; i++) {
+            char c = value.charAt(i);
+            quote = c == ',' || c == '"' || c == '\r' || c == '\n';
+        }
+        if (!quote) {
+            out.write(value);
+            return;
+        }
+        out.write('"');
+        out.write(value.replace("\"", "\"\""));
+        out.write('"');
+    }
+
+    /**
+     * Whether a spreadsheet would evaluate the text as a formula
+     */
+    private static boolean isFormula(String value) {
+        switch (value.charAt(0)) {
+            case '=': case '@': case '\t': case '\r':
+                return true;
+            case '+': case '-':
+                return !NUMBER.matcher(value).matches();
+            default:
+                return false;
+        }
+    }
+}
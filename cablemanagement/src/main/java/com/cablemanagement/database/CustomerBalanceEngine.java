@@ -0,0 +1,246 @@
+package com.cablemanagement.database;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.cablemanagement.Log;
+
+/**
+ * Materialized running balance per customer, kept in Customer_Balance.
+ *
+ * Triggers on Customer_Transaction apply each row's effect in the same
+ * transaction as the insert, update or delete, using the same rules as the ledger replay:
+ * invoice charges add the invoice's net (item total - discount - other discount),
+ * payments subtract, adjustments and opening balances add their signed amount.
+ * Customers without any transactions have no row and fall back to Customer.balance.
+ */
+class CustomerBalanceEngine {
+
+    static final String COMPONENT = "customer_balance";
+    static final int VERSION = 2;
+
+    private static final double DRIFT_TOLERANCE = 0.005;
+
+    /**
+     * Signed effect of one Customer_Transaction row on the balance; ROW is NEW or OLD
+     */
+    private static String deltaExpression(String row) {
+        return "CASE " + row + ".transaction_type " +
+               "WHEN 'invoice_charge' THEN COALESCE((" +
+               "  SELECT COALESCE((SELECT SUM(sii.quantity * sii.unit_price) FROM Sales_Invoice_Item sii " +
+               "                   WHERE sii.sales_invoice_id = si.sales_invoice_id), 0) " +
+               "         - si.discount_amount - si.other_discount " +
+               "  FROM Sales_Invoice si WHERE si.sales_invoice_number = " + row + ".reference_invoice_number), 0) " +
+               "WHEN 'payment_received' THEN -ABS(" + row + ".amount) " +
+               "WHEN 'adjustment' THEN " + row + ".amount " +
+               "WHEN 'opening_balance' THEN " + row + ".amount " +
+               "ELSE 0 END";
+    }
+
+    /**
+     * Balance of every customer with transactions, recomputed from the full history in one pass
+     */
+    private static final String RECOMPUTE_QUERY = recomputeQuery("");
+
+    /**
+     * Balance of every customer with transactions matching a condition on ct
+     * @param where "" for every transaction, or a WHERE clause
+     */
+    private static String recomputeQuery(String where) {
+        return "WITH InvoiceNet AS (" +
+               "  SELECT si.sales_invoice_number, " +
+               "         COALESCE(SUM(sii.quantity * sii.unit_price), 0) - si.discount_amount - si.other_discount AS net_amount " +
+               "  FROM Sales_Invoice si " +
+               "  LEFT JOIN Sales_Invoice_Item sii ON sii.sales_invoice_id = si.sales_invoice_id " +
+               "  GROUP BY si.sales_invoice_id" +
+               ") " +
+               "SELECT ct.customer_id, " +
+               "       SUM(CASE ct.transaction_type " +
+               "           WHEN 'invoice_charge' THEN COALESCE(inv.net_amount, 0) " +
+               "           WHEN 'payment_received' THEN -ABS(ct.amount) " +
+               "           WHEN 'adjustment' THEN ct.amount " +
+               "           WHEN 'opening_balance' THEN ct.amount " +
+               "           ELSE 0 END) AS balance, " +
+               "       COUNT(*) AS transaction_count, " +
+               "       MAX(ct.transaction_id) AS last_transaction_id " +
+               "FROM Customer_Transaction ct " +
+               "LEFT JOIN InvoiceNet inv ON ct.transaction_type = 'invoice_charge' " +
+               "                        AND inv.sales_invoice_number = ct.reference_invoice_number " +
+               where + " " +
+               "GROUP BY ct.customer_id";
+    }
+
+    private CustomerBalanceEngine() {
+    }
+
+    /**
+     * Create the Customer_Balance table and its triggers, and backfill it from history,
+     * if the recorded version is behind VERSION
+     * @return true if the engine was installed on this call
+     */
+    static boolean install(Connection connection) throws SQLException {
+        if (SchemaVersion.get(connection, COMPONENT) >= VERSION) {
+            return false;
+        }
+
+        try (Statement stmt = connection.createStatement()) {
+            stmt.execute("CREATE TABLE IF NOT EXISTS Customer_Balance (" +
+                        "customer_id INTEGER PRIMARY KEY, " +
+                        "balance REAL NOT NULL DEFAULT 0, " +
+                        "transaction_count INTEGER NOT NULL DEFAULT 0, " +
+                        "last_transaction_id INTEGER, " +
+                        "updated_at TEXT DEFAULT CURRENT_TIMESTAMP" +
+                        ")");
+
+            stmt.execute("DROP TRIGGER IF EXISTS trg_customer_balance_insert");
+            stmt.execute("CREATE TRIGGER trg_customer_balance_insert AFTER INSERT ON Customer_Transaction " +
+                        "BEGIN " +
+                        "  INSERT INTO Customer_Balance (customer_id, balance, transaction_count, last_transaction_id, updated_at) " +
+                        "  VALUES (NEW.customer_id, " + deltaExpression("NEW") + ", 1, NEW.transaction_id, CURRENT_TIMESTAMP) " +
+                        "  ON CONFLICT(customer_id) DO UPDATE SET " +
+                        "    balance = balance + excluded.balance, " +
+                        "    transaction_count = transaction_count + 1, " +
+                        "    last_transaction_id = MAX(COALESCE(last_transaction_id, 0), excluded.last_transaction_id), " +
+                        "    updated_at = CURRENT_TIMESTAMP; " +
+                        "END");
+
+            stmt.execute("DROP TRIGGER IF EXISTS trg_customer_balance_delete");
+            stmt.execute("CREATE TRIGGER trg_customer_balance_delete AFTER DELETE ON Customer_Transaction " +
+                        "BEGIN " +
+                        "  UPDATE Customer_Balance SET " +
+                        "    balance = balance - (" + deltaExpression("OLD") + "), " +
+                        "    transaction_count = transaction_count - 1, " +
+                        "    updated_at = CURRENT_TIMESTAMP " +
+                        "  WHERE customer_id = OLD.customer_id; " +
+                        "  DELETE FROM Customer_Balance WHERE customer_id = OLD.customer_id AND transaction_count <= 0; " +
+                        "END");
+
+            // An edited row takes back its old effect and applies the new one, on whichever customers they belong to
+            stmt.execute("DROP TRIGGER IF EXISTS trg_customer_balance_update");
+            stmt.execute("CREATE TRIGGER trg_customer_balance_update " +
+                        "AFTER UPDATE OF amount, customer_id, transaction_type, reference_invoice_number ON Customer_Transaction " +
+                        "BEGIN " +
+                        "  UPDATE Customer_Balance SET " +
+                        "    balance = balance - (" + deltaExpression("OLD") + "), " +
+                        "    transaction_count = transaction_count - 1, " +
+                        "    updated_at = CURRENT_TIMESTAMP " +
+                        "  WHERE customer_id = OLD.customer_id; " +
+                        "  INSERT INTO Customer_Balance (customer_id, balance, transaction_count, last_transaction_id, updated_at) " +
+                        "  VALUES (NEW.customer_id, " + deltaExpression("NEW") + ", 1, NEW.transaction_id, CURRENT_TIMESTAMP) " +
+                        "  ON CONFLICT(customer_id) DO UPDATE SET " +
+                        "    balance = balance + excluded.balance, " +
+                        "    transaction_count = transaction_count + 1, " +
+                        "    last_transaction_id = MAX(COALESCE(last_transaction_id, 0), excluded.last_transaction_id), " +
+                        "    updated_at = CURRENT_TIMESTAMP; " +
+                        "  DELETE FROM Customer_Balance WHERE customer_id = OLD.customer_id AND transaction_count <= 0; " +
+                        "END");
+
+            stmt.execute("DROP TRIGGER IF EXISTS trg_customer_balance_customer_delete");
+            stmt.execute("CREATE TRIGGER trg_customer_balance_customer_delete AFTER DELETE ON Customer " +
+                        "BEGIN " +
+                        "  DELETE FROM Customer_Balance WHERE customer_id = OLD.customer_id; " +
+                        "END");
+        }
+
+        List<Object[]> drift = reconcile(connection);
+        SchemaVersion.set(connection, COMPONENT, VERSION);
+        Log.info("Customer balance engine v" + VERSION + " installed (" + drift.size() + " balances backfilled)");
+        return true;
+    }
+
+    /**
+     * Current balance of one customer: the materialized balance if the customer
+     * has transactions, otherwise the stored Customer.balance
+     */
+    static double getBalance(Connection connection, int customerId) throws SQLException {
+        String query = "SELECT COALESCE(cb.balance, c.balance, 0) AS balance " +
+                      "FROM Customer c LEFT JOIN Customer_Balance cb ON cb.customer_id = c.customer_id " +
+                      "WHERE c.customer_id = ?";
+        try (PreparedStatement pstmt = connection.prepareStatement(query)) {
+            pstmt.setInt(1, customerId);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                if (rs.next()) {
+                    return rs.getDouble("balance");
+                }
+            }
+        }
+        return 0.0;
+    }
+
+    /**
+     * Balance of every customer with transactions dated before a day, summed with the same
+     * rules as the triggers
+     * @param day yyyy-MM-dd
+     * @return customer_id to balance
+     */
+    static Map<Integer, Double> getBalancesBefore(Connection connection, String day) throws SQLException {
+        Map<Integer, Double> balances = new LinkedHashMap<>();
+        try (PreparedStatement pstmt = connection.prepareStatement(recomputeQuery("WHERE ct.transaction_date < ?"))) {
+            pstmt.setString(1, day);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    balances.put(rs.getInt("customer_id"), rs.getDouble("balance"));
+                }
+            }
+        }
+        return balances;
+    }
+
+    /**
+     * Rebuild Customer_Balance from the full transaction history in a single transaction.
+     * @return rows of [customer_id, customer_name, stored balance, recomputed balance, drift]
+     *         for every customer whose stored balance differed from the recomputed one
+     */
+    static List<Object[]> reconcile(Connection connection) throws SQLException {
+        List<Object[]> drift = new ArrayList<>();
+        boolean autoCommit = connection.getAutoCommit();
+        try {
+            connection.setAutoCommit(false);
+
+            String compareQuery = "WITH Recomputed AS (" + RECOMPUTE_QUERY + ") " +
+                                 "SELECT c.customer_id, c.customer_name, cb.balance AS stored_balance, r.balance AS recomputed_balance " +
+                                 "FROM Customer c " +
+                                 "LEFT JOIN Customer_Balance cb ON cb.customer_id = c.customer_id " +
+                                 "LEFT JOIN Recomputed r ON r.customer_id = c.customer_id " +
+                                 "WHERE cb.customer_id IS NOT NULL OR r.customer_id IS NOT NULL";
+            try (Statement stmt = connection.createStatement();
+                 ResultSet rs = stmt.executeQuery(compareQuery)) {
+                while (rs.next()) {
+                    double stored = rs.getDouble("stored_balance");
+                    double recomputed = rs.getDouble("recomputed_balance");
+                    if (Math.abs(recomputed - stored) > DRIFT_TOLERANCE) {
+                        drift.add(new Object[]{
+                            rs.getInt("customer_id"),
+                            rs.getString("customer_name"),
+                            stored,
+                            recomputed,
+                            recomputed - stored
+                        });
+                    }
+                }
+            }
+
+            try (Statement stmt = connection.createStatement()) {
+                stmt.executeUpdate("DELETE FROM Customer_Balance");
+                stmt.executeUpdate("INSERT INTO Customer_Balance (customer_id, balance, transaction_count, last_transaction_id, updated_at) " +
+                                  "SELECT customer_id, balance, transaction_count, last_transaction_id, CURRENT_TIMESTAMP " +
+                                  "FROM (" + RECOMPUTE_QUERY + ")");
+            }
+
+            connection.commit();
+        } catch (SQLException e) {
+            connection.rollback();
+            throw e;
+        } finally {
+            connection.setAutoCommit(autoCommit);
+        }
+        return drift;
+    }
+}
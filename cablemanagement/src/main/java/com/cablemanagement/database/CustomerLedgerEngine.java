@@ -0,0 +1,208 @@
+package com.cablemanagement.database;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+import com.cablemanagement.model.LedgerRow;
+
+/**
+ * Builds customer ledger rows with one statement per page: invoice totals and
+ * return item descriptions are aggregated only for the invoices referenced by the
+ * page, and the running balance is a window SUM over the page continued from the
+ * balance of the previous page.
+ *
+ * Pages are keyed on (transaction_date, transaction_id), the ledger order, so the
+ * next page seeks straight into idx_customer_transaction_customer_date instead of
+ * skipping an OFFSET.
+ */
+class CustomerLedgerEngine {
+
+    /**
+     * Ledger row layout shared with getCustomerLedger(): the 12 display columns plus the keyset key
+     */
+    static final int COL_SERIAL = 0;
+    static final int COL_DATE = 1;
+    static final int COL_BALANCE = 11;
+    static final int COL_TRANSACTION_ID = 12;
+
+    /**
+     * Per-transaction amounts for the rows in Page (must be defined by the caller's WITH clause)
+     */
+    private static final String AMOUNTS_CTES =
+        "InvoiceTotals AS (" +
+        "  SELECT si.sales_invoice_number, " +
+        "         COALESCE(SUM(sii.quantity * sii.unit_price), 0) AS invoice_total, " +
+        "         si.discount_amount, si.other_discount " +
+        "  FROM Sales_Invoice si " +
+        "  LEFT JOIN Sales_Invoice_Item sii ON sii.sales_invoice_id = si.sales_invoice_id " +
+        "  WHERE si.sales_invoice_number IN (SELECT reference_invoice_number FROM Page WHERE transaction_type = 'invoice_charge') " +
+        "  GROUP BY si.sales_invoice_id" +
+        "), " +
+        "Amounts AS (" +
+        "  SELECT p.*, " +
+        "         CASE WHEN p.transaction_type = 'invoice_charge' THEN COALESCE(it.invoice_total, 0) ELSE 0 END AS total_bill, " +
+        "         CASE WHEN p.transaction_type = 'invoice_charge' THEN COALESCE(it.discount_amount, 0) ELSE 0 END AS discount_amount, " +
+        "         CASE WHEN p.transaction_type = 'invoice_charge' THEN COALESCE(it.other_discount, 0) ELSE 0 END AS other_discount, " +
+        "         CASE p.transaction_type " +
+        "           WHEN 'invoice_charge' THEN COALESCE(it.invoice_total, 0) - COALESCE(it.discount_amount, 0) - COALESCE(it.other_discount, 0) " +
+        "           WHEN 'adjustment' THEN MAX(p.amount, 0) " +
+        "           WHEN 'opening_balance' THEN p.amount " +
+        "           ELSE 0 END AS net_amount, " +
+        "         CASE WHEN p.transaction_type = 'payment_received' THEN ABS(p.amount) ELSE 0 END AS payment_amount, " +
+        "         CASE WHEN p.transaction_type = 'adjustment' AND p.amount < 0 THEN ABS(p.amount) ELSE 0 END AS return_amount " +
+        "  FROM Page p " +
+        "  LEFT JOIN InvoiceTotals it ON p.transaction_type = 'invoice_charge' " +
+        "                            AND it.sales_invoice_number = p.reference_invoice_number" +
+        ")";
+
+    private static final String PAGE_QUERY =
+        "WITH Page AS (" +
+        "  SELECT ct.transaction_id, ct.transaction_date, ct.transaction_type, ct.amount, " +
+        "         ct.description, ct.reference_invoice_number, ct.created_at " +
+        "  FROM Customer_Transaction ct " +
+        "  WHERE ct.customer_id = ? AND (ct.transaction_date, ct.transaction_id) > (?, ?) " +
+        "  ORDER BY ct.transaction_date, ct.transaction_id " +
+        "  LIMIT ?" +
+        "), " +
+        "ReturnItems AS (" +
+        "  SELECT sri.return_invoice_number, " +
+        "         GROUP_CONCAT(printf(char(10) || '• %s | Qty: %.2f | Unit Price: %.2f', ps.product_name, srii.quantity, srii.unit_price), '' " +
+        "                      ORDER BY srii.sales_return_invoice_item_id) AS item_lines " +
+        "  FROM Sales_Return_Invoice sri " +
+        "  JOIN Sales_Return_Invoice_Item srii ON srii.sales_return_invoice_id = sri.sales_return_invoice_id " +
+        "  JOIN ProductionStock ps ON srii.production_stock_id = ps.production_id " +
+        "  WHERE sri.return_invoice_number IN (SELECT reference_invoice_number FROM Page " +
+        "                                      WHERE transaction_type = 'adjustment' AND reference_invoice_number LIKE 'SRI%') " +
+        "  GROUP BY sri.sales_return_invoice_id" +
+        "), " +
+        AMOUNTS_CTES + " " +
+        "SELECT a.*, ri.item_lines, " +
+        "       ROW_NUMBER() OVER w AS row_number, " +
+        "       SUM(a.net_amount - a.payment_amount - a.return_amount) OVER w AS running_total " +
+        "FROM Amounts a " +
+        "LEFT JOIN ReturnItems ri ON a.transaction_type = 'adjustment' AND ri.return_invoice_number = a.reference_invoice_number " +
+        "WINDOW w AS (ORDER BY a.transaction_date, a.transaction_id ROWS UNBOUNDED PRECEDING) " +
+        "ORDER BY a.transaction_date, a.transaction_id";
+
+    private static final String SUMMARY_QUERY =
+        "WITH Page AS (" +
+        "  SELECT ct.transaction_id, ct.transaction_type, ct.amount, ct.reference_invoice_number " +
+        "  FROM Customer_Transaction ct WHERE ct.customer_id = ?" +
+        "), " +
+        AMOUNTS_CTES + " " +
+        "SELECT COALESCE(SUM(total_bill), 0) AS total_sale, " +
+        "       COALESCE(SUM(discount_amount + other_discount), 0) AS total_discount, " +
+        "       COALESCE(SUM(payment_amount), 0) AS total_payment, " +
+        "       COALESCE(SUM(return_amount), 0) AS total_return, " +
+        "       COALESCE(SUM(net_amount - payment_amount - return_amount), 0) AS current_balance " +
+        "FROM Amounts";
+
+    private CustomerLedgerEngine() {
+    }
+
+    /**
+     * Read one page of a customer's ledger.
+     * @param afterRow the last row of the previous page, or null for the first page
+     * @param limit maximum number of rows, or -1 for the rest of the ledger
+     * @return ledger rows [serial, date, time, description, invoice, totalBill, discount,
+     *         otherDiscount, netAmount, payment, return, balance, transactionId]
+     */
+    static List<Object[]> getPage(Connection connection, int customerId, Object[] afterRow, int limit) throws SQLException {
+        List<Object[]> ledger = new ArrayList<>();
+        if (afterRow == null) {
+            forEachRow(connection, customerId, "", 0, 0, 0.0, limit, row -> ledger.add(row.toArray()));
+        } else {
+            forEachRow(connection, customerId,
+                (String) afterRow[COL_DATE],
+                ((Number) afterRow[COL_TRANSACTION_ID]).intValue(),
+                ((Number) afterRow[COL_SERIAL]).intValue(),
+                ((Number) afterRow[COL_BALANCE]).doubleValue(),
+                limit, row -> ledger.add(row.toArray()));
+        }
+        return ledger;
+    }
+
+    /**
+     * Typed version of getPage()
+     */
+    static List<LedgerRow> getRows(Connection connection, int customerId, LedgerRow afterRow, int limit) throws SQLException {
+        List<LedgerRow> ledger = new ArrayList<>();
+        if (afterRow == null) {
+            forEachRow(connection, customerId, "", 0, 0, 0.0, limit, ledger::add);
+        } else {
+            forEachRow(connection, customerId, afterRow.date(), afterRow.transactionId(),
+                afterRow.serial(), afterRow.balance(), limit, ledger::add);
+        }
+        return ledger;
+    }
+
+    /**
+     * Stream the ledger rows after (afterDate, afterTransactionId), numbering them from
+     * serialOffset + 1 and continuing the running balance from openingBalance
+     */
+    private static void forEachRow(Connection connection, int customerId, String afterDate, int afterTransactionId,
+                                   int serialOffset, double openingBalance, int limit,
+                                   Consumer<LedgerRow> consumer) throws SQLException {
+        try (PreparedStatement pstmt = connection.prepareStatement(PAGE_QUERY)) {
+            pstmt.setInt(1, customerId);
+            pstmt.setString(2, afterDate);
+            pstmt.setInt(3, afterTransactionId);
+            pstmt.setInt(4, limit);
+            RowMapper.forEach(pstmt, rs -> {
+                String description = rs.getString("description");
+                String itemLines = rs.getString("item_lines");
+                if (itemLines != null) {
+                    // Return invoices list their items under the description
+                    description = (description != null ? description : "") + itemLines;
+                }
+                String referenceInvoice = rs.getString("reference_invoice_number");
+                String createdAt = rs.getString("created_at");
+                String time = "";
+                if (createdAt != null && createdAt.length() > 10) {
+                    time = createdAt.substring(11); // Extract time part
+                }
+                return new LedgerRow(
+                    serialOffset + rs.getInt("row_number"),
+                    rs.getString("transaction_date"),
+                    time,
+                    description,
+                    referenceInvoice != null ? referenceInvoice : "",
+                    rs.getDouble("total_bill"),
+                    rs.getDouble("discount_amount"),
+                    rs.getDouble("other_discount"),
+                    rs.getDouble("net_amount"),
+                    rs.getDouble("payment_amount"),
+                    rs.getDouble("return_amount"),
+                    openingBalance + rs.getDouble("running_total"),
+                    rs.getInt("transaction_id"));
+            }, consumer);
+        }
+    }
+
+    /**
+     * Totals over a customer's whole ledger in one aggregate pass.
+     * @return [totalSale, totalDiscount, totalPayment, totalReturn, currentBalance]
+     */
+    static Object[] getSummary(Connection connection, int customerId) throws SQLException {
+        try (PreparedStatement pstmt = connection.prepareStatement(SUMMARY_QUERY)) {
+            pstmt.setInt(1, customerId);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                if (rs.next()) {
+                    return new Object[]{
+                        rs.getDouble("total_sale"),
+                        rs.getDouble("total_discount"),
+                        rs.getDouble("total_payment"),
+                        rs.getDouble("total_return"),
+                        rs.getDouble("current_balance")
+                    };
+                }
+            }
+        }
+        return new Object[]{0.0, 0.0, 0.0, 0.0, 0.0};
+    }
+}
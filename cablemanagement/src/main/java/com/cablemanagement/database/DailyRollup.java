@@ -0,0 +1,302 @@
+package com.cablemanagement.database;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import com.cablemanagement.Log;
+
+/**
+ * Per-day totals of sales, purchases and both kinds of returns, kept in Daily_Rollup
+ * so date-range reports add up days instead of invoices.
+ *
+ * Each row is (kind, day, key_id): invoice totals per customer or supplier
+ * ("sales", "purchase", "sales_return", "purchase_return") and item totals per brand
+ * ("sales_brand", "purchase_brand"). Triggers on the invoice and item tables apply
+ * every insert, update and delete in the same transaction, so the totals always
+ * match the invoices. Item totals use the product's brand when the item was saved;
+ * rebuild() recomputes everything from the invoices.
+ */
+class DailyRollup {
+
+    static final String COMPONENT = "daily_rollup";
+    static final int VERSION = 1;
+
+    static final String SALES = "sales";
+    static final String SALES_BRAND = "sales_brand";
+    static final String PURCHASE = "purchase";
+    static final String PURCHASE_BRAND = "purchase_brand";
+    static final String SALES_RETURN = "sales_return";
+    static final String PURCHASE_RETURN = "purchase_return";
+
+    /**
+     * Invoice header table rolled up per customer or supplier. The amount columns are
+     * SQL expressions over the alias t (or NEW/OLD in triggers).
+     */
+    private static final class Header {
+        final String kind;
+        final String table;
+        final String idColumn;
+        final String dateColumn;
+        final String keyColumn;
+        final String amount;
+        final String discount;
+        final String paid;
+        final String watchedColumns;
+
+        Header(String kind, String table, String idColumn, String dateColumn, String keyColumn,
+               String amount, String discount, String paid, String watchedColumns) {
+            this.kind = kind;
+            this.table = table;
+            this.idColumn = idColumn;
+            this.dateColumn = dateColumn;
+            this.keyColumn = keyColumn;
+            this.amount = amount;
+            this.discount = discount;
+            this.paid = paid;
+            this.watchedColumns = watchedColumns;
+        }
+
+        String column(String expression, String row) {
+            return expression.replace("t.", row + ".");
+        }
+
+        /**
+         * Add (sign 1) or remove (sign -1) one invoice row
+         */
+        String apply(String row, int sign) {
+            return upsert("VALUES ('" + kind + "', SUBSTR(" + row + "." + dateColumn + ", 1, 10), " +
+                          row + "." + keyColumn + ", " + sign + ", 0, " +
+                          sign + " * (" + column(amount, row) + "), " +
+                          sign + " * (" + column(discount, row) + "), " +
+                          sign + " * (" + column(paid, row) + "))");
+        }
+
+        /**
+         * @param schema "" for the live tables, or an attached schema followed by a dot
+         */
+        String rebuild(String schema) {
+            return "INSERT INTO " + schema + "Daily_Rollup (kind, day, key_id, invoices, quantity, amount, discount, paid) " +
+                   "SELECT '" + kind + "', SUBSTR(t." + dateColumn + ", 1, 10), t." + keyColumn + ", COUNT(*), 0, " +
+                   "SUM(" + amount + "), SUM(" + discount + "), SUM(" + paid + ") " +
+                   "FROM " + schema + table + " t GROUP BY SUBSTR(t." + dateColumn + ", 1, 10), t." + keyColumn;
+        }
+    }
+
+    /**
+     * Invoice item table rolled up per brand of the item's product, dated by its invoice
+     */
+    private static final class Item {
+        final String kind;
+        final Header header;
+        final String table;
+        final String stockTable;
+        final String stockIdColumn;
+        final String stockColumn;
+        final String quantity;
+        final String amount;
+        final String watchedColumns;
+
+        Item(String kind, Header header, String table, String stockTable, String stockIdColumn,
+             String stockColumn, String quantity, String amount, String watchedColumns) {
+            this.kind = kind;
+            this.header = header;
+            this.table = table;
+            this.stockTable = stockTable;
+            this.stockIdColumn = stockIdColumn;
+            this.stockColumn = stockColumn;
+            this.quantity = quantity;
+            this.amount = amount;
+            this.watchedColumns = watchedColumns;
+        }
+
+        /**
+         * Add or remove the items of i matching a condition, dated by dateRow's invoice date
+         */
+        String apply(String from, String where, String day, int sign) {
+            return upsert("SELECT '" + kind + "', " + day + ", s.brand_id, 0, " +
+                          sign + " * SUM(" + quantity + "), " + sign + " * SUM(" + amount + "), 0, 0 " +
+                          from + " JOIN " + stockTable + " s ON s." + stockIdColumn + " = i." + stockColumn + " " +
+                          "WHERE " + where + " GROUP BY s.brand_id");
+        }
+
+        /**
+         * Add or remove one item row (NEW or OLD), if its invoice still exists
+         */
+        String applyRow(String row, int sign) {
+            String rowQuantity = quantity.replace("i.", row + ".");
+            String rowAmount = amount.replace("i.", row + ".");
+            return upsert("SELECT '" + kind + "', SUBSTR(h." + header.dateColumn + ", 1, 10), s.brand_id, 0, " +
+                          sign + " * (" + rowQuantity + "), " + sign + " * (" + rowAmount + "), 0, 0 " +
+                          "FROM " + header.table + " h JOIN " + stockTable + " s ON s." + stockIdColumn + " = " + row + "." + stockColumn + " " +
+                          "WHERE h." + header.idColumn + " = " + row + "." + header.idColumn);
+        }
+
+        /**
+         * @param schema "" for the live tables, or an attached schema followed by a dot;
+         *        the stock table is always read from the live database
+         */
+        String rebuild(String schema) {
+            return "INSERT INTO " + schema + "Daily_Rollup (kind, day, key_id, invoices, quantity, amount, discount, paid) " +
+                   "SELECT '" + kind + "', SUBSTR(h." + header.dateColumn + ", 1, 10), s.brand_id, 0, SUM(" + quantity + "), SUM(" + amount + "), 0, 0 " +
+                   "FROM " + schema + table + " i " +
+                   "JOIN " + schema + header.table + " h ON h." + header.idColumn + " = i." + header.idColumn + " " +
+                   "JOIN main." + stockTable + " s ON s." + stockIdColumn + " = i." + stockColumn + " " +
+                   "GROUP BY SUBSTR(h." + header.dateColumn + ", 1, 10), s.brand_id";
+        }
+    }
+
+    private static final Header SALES_INVOICE = new Header(SALES, "Sales_Invoice", "sales_invoice_id", "sales_date", "customer_id",
+        "t.total_amount", "t.discount_amount + t.other_discount", "t.paid_amount",
+        "sales_date, customer_id, total_amount, discount_amount, other_discount, paid_amount");
+    private static final Header PURCHASE_INVOICE = new Header(PURCHASE, "Raw_Purchase_Invoice", "raw_purchase_invoice_id", "invoice_date", "supplier_id",
+        "t.total_amount", "COALESCE(t.discount_amount, 0)", "COALESCE(t.paid_amount, 0)",
+        "invoice_date, supplier_id, total_amount, discount_amount, paid_amount");
+    private static final Header SALES_RETURN_INVOICE = new Header(SALES_RETURN, "Sales_Return_Invoice", "sales_return_invoice_id", "return_date", "customer_id",
+        "t.total_return_amount", "0", "0",
+        "return_date, customer_id, total_return_amount");
+    private static final Header PURCHASE_RETURN_INVOICE = new Header(PURCHASE_RETURN, "Raw_Purchase_Return_Invoice", "raw_purchase_return_invoice_id", "return_date", "supplier_id",
+        "t.total_return_amount", "0", "0",
+        "return_date, supplier_id, total_return_amount");
+
+    private static final Header[] HEADERS = {
+        SALES_INVOICE, PURCHASE_INVOICE, SALES_RETURN_INVOICE, PURCHASE_RETURN_INVOICE
+    };
+
+    private static final Item SALES_INVOICE_ITEM =
+        new Item(SALES_BRAND, SALES_INVOICE, "Sales_Invoice_Item", "ProductionStock", "production_id", "production_stock_id",
+                 "i.quantity", "i.total_price", "sales_invoice_id, production_stock_id, quantity, total_price");
+    private static final Item PURCHASE_INVOICE_ITEM =
+        new Item(PURCHASE_BRAND, PURCHASE_INVOICE, "Raw_Purchase_Invoice_Item", "Raw_Stock", "stock_id", "raw_stock_id",
+                 "i.quantity", "i.quantity * i.unit_price", "raw_purchase_invoice_id, raw_stock_id, quantity, unit_price");
+
+    private static final Item[] ITEMS = {
+        SALES_INVOICE_ITEM, PURCHASE_INVOICE_ITEM
+    };
+
+    private DailyRollup() {
+    }
+
+    private static String upsert(String values) {
+        return "INSERT INTO Daily_Rollup (kind, day, key_id, invoices, quantity, amount, discount, paid) " + values + " " +
+               "ON CONFLICT(kind, day, key_id) DO UPDATE SET " +
+               "invoices = invoices + excluded.invoices, " +
+               "quantity = quantity + excluded.quantity, " +
+               "amount = amount + excluded.amount, " +
+               "discount = discount + excluded.discount, " +
+               "paid = paid + excluded.paid";
+    }
+
+    /**
+     * Subquery summing one column of a kind over the days between two bound parameters
+     */
+    static String sumBetween(String kind, String column) {
+        return "(SELECT COALESCE(SUM(" + column + "), 0) FROM Daily_Rollup WHERE kind = '" + kind + "' AND day BETWEEN ? AND ?)";
+    }
+
+    /**
+     * @param schema "" for the live table, or an attached schema followed by a dot
+     */
+    static String createTable(String schema) {
+        return "CREATE TABLE IF NOT EXISTS " + schema + "Daily_Rollup (" +
+               "kind TEXT NOT NULL, " +
+               "day TEXT NOT NULL, " +
+               "key_id INTEGER NOT NULL, " +
+               "invoices INTEGER NOT NULL DEFAULT 0, " +
+               "quantity REAL NOT NULL DEFAULT 0, " +
+               "amount REAL NOT NULL DEFAULT 0, " +
+               "discount REAL NOT NULL DEFAULT 0, " +
+               "paid REAL NOT NULL DEFAULT 0, " +
+               "PRIMARY KEY (kind, day, key_id)" +
+               ") WITHOUT ROWID";
+    }
+
+    /**
+     * Create Daily_Rollup and its triggers and backfill it, if the recorded version is behind VERSION
+     * @return true if the rollups were installed on this call
+     */
+    static boolean install(Connection connection) throws SQLException {
+        if (SchemaVersion.get(connection, COMPONENT) >= VERSION) {
+            return false;
+        }
+
+        try (Statement stmt = connection.createStatement()) {
+            stmt.execute(createTable(""));
+
+            for (Header header : HEADERS) {
+                String prefix = "trg_rollup_" + header.table.toLowerCase();
+                createTrigger(stmt, prefix + "_insert", "AFTER INSERT ON " + header.table,
+                              header.apply("NEW", 1));
+                createTrigger(stmt, prefix + "_update", "AFTER UPDATE OF " + header.watchedColumns + " ON " + header.table,
+                              header.apply("OLD", -1) + "; " + header.apply("NEW", 1));
+                createTrigger(stmt, prefix + "_delete", "AFTER DELETE ON " + header.table,
+                              header.apply("OLD", -1));
+            }
+
+            for (Item item : ITEMS) {
+                String prefix = "trg_rollup_" + item.table.toLowerCase();
+                createTrigger(stmt, prefix + "_insert", "AFTER INSERT ON " + item.table,
+                              item.applyRow("NEW", 1));
+                createTrigger(stmt, prefix + "_update", "AFTER UPDATE OF " + item.watchedColumns + " ON " + item.table,
+                              item.applyRow("OLD", -1) + "; " + item.applyRow("NEW", 1));
+                createTrigger(stmt, prefix + "_delete", "AFTER DELETE ON " + item.table,
+                              item.applyRow("OLD", -1));
+
+                // Moving an invoice to another day moves its items' brand totals with it
+                Header header = item.header;
+                String from = "FROM " + item.table + " i";
+                String where = "i." + header.idColumn + " = NEW." + header.idColumn;
+                createTrigger(stmt, "trg_rollup_" + header.table.toLowerCase() + "_redate",
+                              "AFTER UPDATE OF " + header.dateColumn + " ON " + header.table + " " +
+                              "WHEN SUBSTR(OLD." + header.dateColumn + ", 1, 10) <> SUBSTR(NEW." + header.dateColumn + ", 1, 10)",
+                              item.apply(from, where, "SUBSTR(OLD." + header.dateColumn + ", 1, 10)", -1) + "; " +
+                              item.apply(from, where, "SUBSTR(NEW." + header.dateColumn + ", 1, 10)", 1));
+            }
+        }
+
+        int rows = rebuild(connection);
+        SchemaVersion.set(connection, COMPONENT, VERSION);
+        Log.info("Daily rollups v" + VERSION + " installed (" + rows + " day rows built)");
+        return true;
+    }
+
+    private static void createTrigger(Statement stmt, String name, String event, String body) throws SQLException {
+        stmt.execute("DROP TRIGGER IF EXISTS " + name);
+        stmt.execute("CREATE TRIGGER " + name + " " + event + " BEGIN " + body + "; END");
+    }
+
+    /**
+     * Recompute every day row from the invoices
+     * @return the number of day rows written
+     */
+    static int rebuild(Connection connection) throws SQLException {
+        int rows = 0;
+        try (Statement stmt = connection.createStatement()) {
+            stmt.execute("DELETE FROM Daily_Rollup");
+            for (Header header : HEADERS) {
+                rows += stmt.executeUpdate(header.rebuild(""));
+            }
+            for (Item item : ITEMS) {
+                rows += stmt.executeUpdate(item.rebuild(""));
+            }
+        }
+        return rows;
+    }
+
+    /**
+     * Build the sales-side day rows (sales, sales_brand, sales_return) of the invoices held
+     * in an attached schema, into that schema's own Daily_Rollup
+     * @param schema attached schema name followed by a dot
+     * @return the number of day rows written
+     */
+    static int rebuildSales(Connection connection, String schema) throws SQLException {
+        int rows = 0;
+        try (Statement stmt = connection.createStatement()) {
+            stmt.execute(createTable(schema));
+            rows += stmt.executeUpdate(SALES_INVOICE.rebuild(schema));
+            rows += stmt.executeUpdate(SALES_RETURN_INVOICE.rebuild(schema));
+            rows += stmt.executeUpdate(SALES_INVOICE_ITEM.rebuild(schema));
+        }
+        return rows;
+    }
+}
@@ -0,0 +1,563 @@
+package com.cablemanagement.database;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import com.cablemanagement.Log;
+import com.cablemanagement.model.ArchivedYear;
+import com.cablemanagement.model.FiscalYear;
+
+/**
+ * Closed fiscal years moved out of the live database into archive files of their own.
+ *
+ * archive() moves a closed year's sales invoices and returns (with their items and
+ * Sales_Book / Return_Sales_Book rows), the customer ledger rows and the rows of the
+ * other book tables into archives/cable_management-FY2023-24.db next to the database.
+ * Each customer gets one opening_balance row dated on the year's last day carrying
+ * the balance forward, so balances and the live ledger are unchanged while the live
+ * file only holds the open years. Years are archived oldest first, one at a time.
+ * An invoice stays in the live file while a return or ledger charge dated after the
+ * year still refers to it, and moves with a later year once nothing newer does.
+ *
+ * Reads whose date range starts inside an archived year run on a history connection:
+ * the archives from that year on are ATTACHed and TEMP views named like the moved
+ * tables union the live rows with the archived ones, so the report and ledger queries
+ * run unchanged. The carry-forward rows of the attached years are left out of those
+ * views, since the rows they sum up are visible. History connections are pooled like
+ * the readers: each one serves a single read at a time and goes back to the pool after.
+ * SQLite attaches at most MAX_ATTACHED files to a connection, so a range reaching back
+ * further (such as a whole-history read) attaches only the newest MAX_ATTACHED of its
+ * years; the older ones show up through the balance carried forward out of them.
+ *
+ * Archived invoices are removed from the global search index together with the live
+ * rows, so global search only finds invoices of the open years; archived ones are
+ * still listed by the reports and books for their dates.
+ *
+ * The fiscal year starts in the month given by -Dcablemanagement.fiscalYearStartMonth
+ * (default 7, July to June).
+ */
+class FiscalYearArchive {
+
+    static final String COMPONENT = "fiscal_year_archive";
+    static final int VERSION = 1;
+
+    /**
+     * reference_invoice_number prefix of the carry-forward rows, followed by the year's label
+     */
+    static final String CARRY_FORWARD_PREFIX = "ARCHIVE-";
+
+    // SQLite's limit on attached databases per connection
+    private static final int MAX_ATTACHED = 10;
+    // Idle history connections kept per first attached year
+    private static final int IDLE_HISTORY_READERS = 3;
+
+    /**
+     * A table whose closed-year rows move to the archive. The selection is a condition on
+     * the live row t, where :next stands for the first day after the year and archive is
+     * the archive being written.
+     */
+    private static final class Moved {
+        final String table;
+        final String idColumn;
+        final String selection;
+        final String[] indexes;
+
+        Moved(String table, String idColumn, String selection, String... indexes) {
+            this.table = table;
+            this.idColumn = idColumn;
+            this.selection = selection;
+            this.indexes = indexes;
+        }
+    }
+
+    /**
+     * In copy order; rows are deleted from the live file in the reverse order
+     */
+    private static final Moved[] MOVED = {
+        new Moved("Sales_Invoice", "sales_invoice_id",
+            "t.sales_date < :next " +
+            "AND NOT EXISTS (SELECT 1 FROM main.Sales_Return_Invoice sri " +
+            "                WHERE sri.original_sales_invoice_id = t.sales_invoice_id AND sri.return_date >= :next) " +
+            "AND NOT EXISTS (SELECT 1 FROM main.Customer_Transaction ct " +
+            "                WHERE ct.reference_invoice_number = t.sales_invoice_number " +
+            "                  AND ct.transaction_type = 'invoice_charge' AND ct.transaction_date >= :next)",
+            "sales_invoice_id", "sales_invoice_number", "sales_date", "customer_id"),
+        new Moved("Sales_Invoice_Item", "sales_invoice_item_id",
+            "t.sales_invoice_id IN (SELECT sales_invoice_id FROM archive.Sales_Invoice)",
+            "sales_invoice_id"),
+        new Moved("Sales_Return_Invoice", "sales_return_invoice_id",
+            "t.original_sales_invoice_id IN (SELECT sales_invoice_id FROM archive.Sales_Invoice)",
+            "sales_return_invoice_id", "return_invoice_number", "return_date", "original_sales_invoice_id"),
+        new Moved("Sales_Return_Invoice_Item", "sales_return_invoice_item_id",
+            "t.sales_return_invoice_id IN (SELECT sales_return_invoice_id FROM archive.Sales_Return_Invoice)",
+            "sales_return_invoice_id"),
+        new Moved("Sales_Book", "sales_book_id",
+            "t.sales_invoice_id IN (SELECT sales_invoice_id FROM archive.Sales_Invoice)",
+            "sales_date"),
+        new Moved("Return_Sales_Book", "return_sales_book_id",
+            "t.sales_return_invoice_id IN (SELECT sales_return_invoice_id FROM archive.Sales_Return_Invoice)",
+            "return_date"),
+        new Moved("Purchase_Book", "purchase_book_id", "t.invoice_date < :next", "invoice_date"),
+        new Moved("Return_Purchase_Book", "return_purchase_book_id", "t.return_date < :next", "return_date"),
+        new Moved("Raw_Stock_Use_Book", "raw_stock_use_book_id", "t.usage_date < :next", "usage_date"),
+        new Moved("Production_Book", "production_book_id", "t.production_date < :next", "production_date"),
+        new Moved("Return_Production_Book", "return_production_book_id", "t.return_date < :next", "return_date"),
+        // Last, so it is deleted first: the balance triggers look up the invoices of its charges
+        new Moved("Customer_Transaction", "transaction_id", "t.transaction_date < :next",
+            "customer_id, transaction_date"),
+    };
+
+    /**
+     * Earliest date in the tables that get archived, for the first year to archive
+     */
+    private static final String EARLIEST_DATE_QUERY =
+        "SELECT MIN(day) AS first_day FROM (" +
+        "  SELECT MIN(sales_date) AS day FROM Sales_Invoice " +
+        "  UNION ALL SELECT MIN(transaction_date) FROM Customer_Transaction " +
+        "  UNION ALL SELECT MIN(invoice_date) FROM Purchase_Book " +
+        "  UNION ALL SELECT MIN(return_date) FROM Return_Purchase_Book " +
+        "  UNION ALL SELECT MIN(usage_date) FROM Raw_Stock_Use_Book " +
+        "  UNION ALL SELECT MIN(production_date) FROM Production_Book " +
+        "  UNION ALL SELECT MIN(return_date) FROM Return_Production_Book" +
+        ")";
+
+    private final File databaseFile;
+    private final File directory;
+    private final String baseName;
+    private final int startMonth;
+    private List<ArchivedYear> archives;
+    /** Idle history connections, by the first archived year they attach */
+    private final Map<Integer, List<Connection>> idleHistory = new HashMap<>();
+    /** History connections in use, with the first year they attach and the generation they were opened in */
+    private final Map<Connection, int[]> borrowedHistory = new HashMap<>();
+    /** Moves on whenever the archives change, retiring every history connection opened before */
+    private int generation;
+
+    FiscalYearArchive(String databasePath) {
+        this.databaseFile = new File(databasePath).getAbsoluteFile();
+        this.directory = new File(databaseFile.getParentFile(), "archives");
+        String name = databaseFile.getName();
+        this.baseName = name.endsWith(".db") ? name.substring(0, name.length() - 3) : name;
+        int month = Integer.getInteger("cablemanagement.fiscalYearStartMonth", 7);
+        this.startMonth = month >= 1 && month <= 12 ? month : 7;
+    }
+
+    /**
+     * Create the Fiscal_Year_Archive table listing the archived years, if the recorded
+     * version is behind VERSION
+     * @return true if the table was created on this call
+     */
+    static boolean install(Connection connection) throws SQLException {
+        if (SchemaVersion.get(connection, COMPONENT) >= VERSION) {
+            return false;
+        }
+        try (Statement stmt = connection.createStatement()) {
+            stmt.execute("CREATE TABLE IF NOT EXISTS Fiscal_Year_Archive (" +
+                        "start_year INTEGER PRIMARY KEY, " +
+                        "label TEXT NOT NULL, " +
+                        "first_day TEXT NOT NULL, " +
+                        "last_day TEXT NOT NULL, " +
+                        "file_name TEXT NOT NULL, " +
+                        "sales_invoices INTEGER NOT NULL DEFAULT 0, " +
+                        "customer_transactions INTEGER NOT NULL DEFAULT 0, " +
+                        "archived_at TEXT DEFAULT CURRENT_TIMESTAMP" +
+                        ")");
+        }
+        SchemaVersion.set(connection, COMPONENT, VERSION);
+        return true;
+    }
+
+    /**
+     * The fiscal year starting in the given calendar year
+     */
+    FiscalYear year(int startYear) {
+        LocalDate first = LocalDate.of(startYear, startMonth, 1);
+        String label = startMonth == 1
+            ? "FY" + startYear
+            : String.format("FY%d-%02d", startYear, (startYear + 1) % 100);
+        return new FiscalYear(startYear, label, first.toString(), first.plusYears(1).minusDays(1).toString());
+    }
+
+    /**
+     * The fiscal year a day falls in
+     */
+    FiscalYear yearOf(LocalDate day) {
+        return year(day.getMonthValue() >= startMonth ? day.getYear() : day.getYear() - 1);
+    }
+
+    /**
+     * Archived years, oldest first
+     */
+    synchronized List<ArchivedYear> list(Connection connection) throws SQLException {
+        if (archives == null) {
+            List<ArchivedYear> years = new ArrayList<>();
+            String query = "SELECT start_year, label, first_day, last_day, file_name, sales_invoices, " +
+                          "customer_transactions, archived_at FROM Fiscal_Year_Archive ORDER BY start_year";
+            try (Statement stmt = connection.createStatement();
+                 ResultSet rs = stmt.executeQuery(query)) {
+                while (rs.next()) {
+                    years.add(new ArchivedYear(
+                        new FiscalYear(rs.getInt("start_year"), rs.getString("label"),
+                                       rs.getString("first_day"), rs.getString("last_day")),
+                        new File(directory, rs.getString("file_name")).getPath(),
+                        rs.getInt("sales_invoices"),
+                        rs.getInt("customer_transactions"),
+                        rs.getString("archived_at")));
+                }
+            }
+            archives = years;
+        }
+        return new ArrayList<>(archives);
+    }
+
+    /**
+     * The oldest fiscal year still in the live file, if it has ended
+     * @return the year archive() would take next, or null if there is none
+     */
+    FiscalYear nextToArchive(Connection connection) throws SQLException {
+        List<ArchivedYear> years = list(connection);
+        FiscalYear next;
+        if (!years.isEmpty()) {
+            next = year(years.get(years.size() - 1).year().startYear() + 1);
+        } else {
+            try (Statement stmt = connection.createStatement();
+                 ResultSet rs = stmt.executeQuery(EARLIEST_DATE_QUERY)) {
+                String firstDay = rs.next() ? rs.getString("first_day") : null;
+                if (firstDay == null || firstDay.length() < 10) {
+                    return null;
+                }
+                next = yearOf(LocalDate.parse(firstDay.substring(0, 10)));
+            }
+        }
+        return LocalDate.parse(next.lastDay()).isBefore(LocalDate.now()) ? next : null;
+    }
+
+    /**
+     * Move one closed fiscal year into its archive file. The archive is written and
+     * checked first; the rows are then removed from the live file and the balances
+     * carried forward in one transaction, which leaves the live file as it was if
+     * anything fails.
+     * @param writer the writer connection, not inside a transaction
+     * @param startYear must be the year nextToArchive() returns
+     * @throws SQLException if the year cannot be archived; nothing is changed
+     */
+    synchronized ArchivedYear archive(Connection writer, int startYear) throws SQLException {
+        FiscalYear year = nextToArchive(writer);
+        if (year == null || year.startYear() != startYear) {
+            throw new SQLException(year(startYear).label() + " cannot be archived: " +
+                (year == null ? "no closed fiscal year is left in the live database"
+                              : "the oldest open year " + year.label() + " must be archived first"));
+        }
+        if (!directory.exists() && !directory.mkdirs()) {
+            throw new SQLException("Cannot create archive directory " + directory);
+        }
+        String next = "'" + LocalDate.parse(year.lastDay()).plusDays(1) + "'";
+        File target = new File(directory, baseName + "-" + year.label() + ".db");
+        File partial = new File(target.getPath() + ".partial");
+        // Left over from an archive run that never committed: it is not listed, so rewrite it
+        target.delete();
+        partial.delete();
+
+        long start = System.nanoTime();
+        Map<String, Integer> counts = new HashMap<>();
+        Map<String, String> ids = new HashMap<>();
+        try {
+            // 1. Copy the year into the archive file and check it. This runs on a connection
+            // of its own: an attached file cannot be detached from the writer while any of
+            // its statements is still open.
+            try (Connection source = DriverManager.getConnection("jdbc:sqlite:" + databaseFile.getPath())) {
+                try (Statement stmt = source.createStatement()) {
+                    stmt.execute("PRAGMA busy_timeout = 30000");
+                }
+                attach(source, partial, "archive");
+                source.setAutoCommit(false);
+                try (Statement stmt = source.createStatement()) {
+                    for (Moved moved : MOVED) {
+                        stmt.execute("CREATE TABLE archive." + moved.table + " AS SELECT * FROM main." + moved.table + " t " +
+                                     "WHERE " + moved.selection.replace(":next", next));
+                        for (String columns : moved.indexes) {
+                            stmt.execute("CREATE INDEX archive.idx_" + moved.table.toLowerCase() + "_" +
+                                         columns.replace(", ", "_") + " ON " + moved.table + " (" + columns + ")");
+                        }
+                        try (ResultSet rs = stmt.executeQuery("SELECT COUNT(*), COALESCE(json_group_array(" +
+                                moved.idColumn + "), '[]') FROM archive." + moved.table)) {
+                            rs.next();
+                            counts.put(moved.table, rs.getInt(1));
+                            ids.put(moved.table, rs.getString(2));
+                        }
+                    }
+                    DailyRollup.rebuildSales(source, "archive.");
+                    source.commit();
+                } catch (SQLException e) {
+                    source.rollback();
+                    throw e;
+                }
+            }
+            String check = integrityCheck(partial);
+            if (!"ok".equals(check)) {
+                throw new SQLException("Archive failed its integrity check: " + check);
+            }
+            Files.move(partial.toPath(), target.toPath(), StandardCopyOption.ATOMIC_MOVE);
+
+            // 2. Remove the archived rows from the live file and carry the balances forward
+            boolean autoCommit = writer.getAutoCommit();
+            writer.setAutoCommit(false);
+            try (Statement stmt = writer.createStatement()) {
+                Map<Integer, Double> balances = CustomerBalanceEngine.getBalancesBefore(writer, next.replace("'", ""));
+                for (int i = MOVED.length - 1; i >= 0; i--) {
+                    Moved moved = MOVED[i];
+                    try (PreparedStatement pstmt = writer.prepareStatement("DELETE FROM " + moved.table + " WHERE " +
+                            moved.idColumn + " IN (SELECT value FROM json_each(?))")) {
+                        pstmt.setString(1, ids.get(moved.table));
+                        if (pstmt.executeUpdate() != counts.get(moved.table)) {
+                            throw new SQLException(moved.table + " changed while " + year.label() + " was archived");
+                        }
+                    }
+                }
+                insertCarryForward(writer, year, balances);
+                // The delete triggers leave the archived days at zero
+                stmt.executeUpdate("DELETE FROM Daily_Rollup WHERE kind IN ('" + DailyRollup.SALES + "', '" +
+                                   DailyRollup.SALES_BRAND + "', '" + DailyRollup.SALES_RETURN + "') " +
+                                   "AND day < " + next + " AND invoices = 0 AND ROUND(quantity, 6) = 0 " +
+                                   "AND ROUND(amount, 4) = 0 AND ROUND(discount, 4) = 0 AND ROUND(paid, 4) = 0");
+                try (PreparedStatement pstmt = writer.prepareStatement(
+                        "INSERT INTO Fiscal_Year_Archive (start_year, label, first_day, last_day, file_name, " +
+                        "sales_invoices, customer_transactions) VALUES (?, ?, ?, ?, ?, ?, ?)")) {
+                    pstmt.setInt(1, year.startYear());
+                    pstmt.setString(2, year.label());
+                    pstmt.setString(3, year.firstDay());
+                    pstmt.setString(4, year.lastDay());
+                    pstmt.setString(5, target.getName());
+                    pstmt.setInt(6, counts.get("Sales_Invoice"));
+                    pstmt.setInt(7, counts.get("Customer_Transaction"));
+                    pstmt.executeUpdate();
+                }
+                writer.commit();
+            } catch (SQLException e) {
+                writer.rollback();
+                throw e;
+            } finally {
+                writer.setAutoCommit(autoCommit);
+            }
+        } catch (SQLException | IOException e) {
+            partial.delete();
+            target.delete();
+            throw e instanceof SQLException ? (SQLException) e
+                : new SQLException("Cannot save archive " + target + ": " + e.getMessage(), e);
+        } finally {
+            changed();
+        }
+
+        Log.info(String.format("%s archived to %s (%d invoices, %d ledger rows, %d ms)", year.label(), target,
+            counts.get("Sales_Invoice"), counts.get("Customer_Transaction"), (System.nanoTime() - start) / 1_000_000));
+        List<ArchivedYear> years = list(writer);
+        return years.get(years.size() - 1);
+    }
+
+    /**
+     * One opening_balance row per customer whose ledger reaches into the year
+     */
+    private static void insertCarryForward(Connection writer, FiscalYear year, Map<Integer, Double> balances)
+            throws SQLException {
+        String insert = "INSERT INTO Customer_Transaction (customer_id, transaction_date, transaction_type, amount, " +
+                       "description, reference_invoice_number, balance_after_transaction) " +
+                       "VALUES (?, ?, 'opening_balance', ?, ?, ?, ?)";
+        try (PreparedStatement pstmt = writer.prepareStatement(insert)) {
+            for (Map.Entry<Integer, Double> balance : balances.entrySet()) {
+                pstmt.setInt(1, balance.getKey());
+                pstmt.setString(2, year.lastDay());
+                pstmt.setDouble(3, balance.getValue());
+                pstmt.setString(4, "Balance brought forward from " + year.label());
+                pstmt.setString(5, CARRY_FORWARD_PREFIX + year.label());
+                pstmt.setDouble(6, balance.getValue());
+                pstmt.addBatch();
+            }
+            pstmt.executeBatch();
+        }
+    }
+
+    /**
+     * Borrow a connection for a read whose date range starts at fromDate, with the archives
+     * the range reaches into attached (see the class comment). Must be given back with
+     * releaseHistoryReader() once the read is done.
+     * @param fromDate yyyy-MM-dd, or null for the whole history
+     * @return null if the range starts after every archived year
+     */
+    synchronized Connection acquireHistoryReader(Connection writer, String fromDate) throws SQLException {
+        List<ArchivedYear> attached = new ArrayList<>();
+        for (ArchivedYear archived : list(writer)) {
+            if (fromDate == null || fromDate.compareTo(archived.year().lastDay()) <= 0) {
+                attached.add(archived);
+            }
+        }
+        if (attached.isEmpty()) {
+            return null;
+        }
+        if (attached.size() > MAX_ATTACHED) {
+            List<ArchivedYear> left = attached.subList(0, attached.size() - MAX_ATTACHED);
+            String years = left.size() == 1 ? left.get(0).year().label()
+                : left.get(0).year().label() + " to " + left.get(left.size() - 1).year().label();
+            Log.warn("Only the last " + MAX_ATTACHED + " archived years can be read together; " + years +
+                     " left out" + (fromDate == null ? "" : " of the range from " + fromDate));
+            attached = new ArrayList<>(attached.subList(attached.size() - MAX_ATTACHED, attached.size()));
+        }
+        int firstYear = attached.get(0).year().startYear();
+        List<Connection> idle = idleHistory.get(firstYear);
+        Connection history = idle != null && !idle.isEmpty() ? idle.remove(idle.size() - 1) : openHistory(attached);
+        borrowedHistory.put(history, new int[] { firstYear, generation });
+        return history;
+    }
+
+    /**
+     * Give back a connection from acquireHistoryReader(). It is kept for the next read of
+     * the same years unless the archives changed since it was opened.
+     * @return false if the connection is not a history connection
+     */
+    synchronized boolean releaseHistoryReader(Connection history) {
+        int[] borrowed = borrowedHistory.remove(history);
+        if (borrowed == null) {
+            return false;
+        }
+        List<Connection> idle = idleHistory.computeIfAbsent(borrowed[0], year -> new ArrayList<>());
+        if (borrowed[1] != generation || idle.size() >= IDLE_HISTORY_READERS) {
+            close(history);
+        } else {
+            idle.add(history);
+        }
+        return true;
+    }
+
+    /**
+     * Whether a borrowed history connection still matches the archives, i.e. they have not
+     * changed since it was opened
+     */
+    synchronized boolean isCurrent(Connection history) {
+        int[] borrowed = borrowedHistory.get(history);
+        return borrowed != null && borrowed[1] == generation;
+    }
+
+    private Connection openHistory(List<ArchivedYear> attached) throws SQLException {
+        Connection history = DriverManager.getConnection("jdbc:sqlite:" + databaseFile.getPath());
+        try (Statement stmt = history.createStatement()) {
+            stmt.execute("PRAGMA busy_timeout = 30000");
+            stmt.execute("PRAGMA cache_size = 10000");
+            stmt.execute("PRAGMA temp_store = memory");
+
+            List<String> schemas = new ArrayList<>();
+            List<String> carried = new ArrayList<>();
+            for (ArchivedYear archived : attached) {
+                File file = new File(archived.path());
+                if (!file.isFile()) {
+                    throw new SQLException("Archive of " + archived.year().label() + " not found: " + file);
+                }
+                String schema = "fy" + archived.year().startYear();
+                attach(history, file, schema);
+                schemas.add(schema);
+                carried.add("'" + CARRY_FORWARD_PREFIX + archived.year().label() + "'");
+            }
+
+            for (Moved moved : MOVED) {
+                String where = moved.table.equals("Customer_Transaction")
+                    ? " WHERE NOT (transaction_type = 'opening_balance' AND COALESCE(reference_invoice_number, '') IN (" +
+                      String.join(", ", carried) + "))"
+                    : "";
+                stmt.execute(unionView(history, moved.table, schemas, where));
+            }
+            stmt.execute(unionView(history, "Daily_Rollup", schemas, ""));
+            // Only now: query_only also refuses the TEMP views
+            stmt.execute("PRAGMA query_only = ON");
+        } catch (SQLException e) {
+            history.close();
+            throw e;
+        }
+        return history;
+    }
+
+    /**
+     * TEMP view named like a live table, with the live rows and those of each attached
+     * archive; columns added to the live table after an archive was written read as NULL
+     */
+    private static String unionView(Connection connection, String table, List<String> schemas, String where)
+            throws SQLException {
+        List<String> columns = new ArrayList<>(columns(connection, "main", table));
+        StringBuilder view = new StringBuilder("CREATE TEMP VIEW " + table + " AS SELECT ")
+            .append(String.join(", ", columns)).append(" FROM main.").append(table).append(where);
+        for (String schema : schemas) {
+            Set<String> archived = columns(connection, schema, table);
+            List<String> select = new ArrayList<>();
+            for (String column : columns) {
+                select.add(archived.contains(column) ? column : "NULL AS " + column);
+            }
+            view.append(" UNION ALL SELECT ").append(String.join(", ", select))
+                .append(" FROM ").append(schema).append('.').append(table).append(where);
+        }
+        return view.toString();
+    }
+
+    private static Set<String> columns(Connection connection, String schema, String table) throws SQLException {
+        Set<String> columns = new LinkedHashSet<>();
+        try (Statement stmt = connection.createStatement();
+             ResultSet rs = stmt.executeQuery("PRAGMA " + schema + ".table_info(" + table + ")")) {
+            while (rs.next()) {
+                columns.add(rs.getString("name"));
+            }
+        }
+        if (columns.isEmpty()) {
+            throw new SQLException(schema + "." + table + " not found");
+        }
+        return columns;
+    }
+
+    private static void attach(Connection connection, File file, String schema) throws SQLException {
+        try (Statement stmt = connection.createStatement()) {
+            stmt.execute("ATTACH DATABASE '" + file.getPath().replace("'", "''") + "' AS " + schema);
+        }
+    }
+
+    private static String integrityCheck(File file) {
+        try (Connection connection = DriverManager.getConnection("jdbc:sqlite:" + file.getPath());
+             Statement stmt = connection.createStatement();
+             ResultSet rs = stmt.executeQuery("PRAGMA integrity_check")) {
+            return rs.next() ? rs.getString(1) : "no result";
+        } catch (SQLException e) {
+            return e.getMessage();
+        }
+    }
+
+    /**
+     * Forget the cached list and retire the history connections, after archiving or
+     * after the live file was replaced by a restore. Idle ones are closed now, those in
+     * use when they are given back.
+     */
+    synchronized void changed() {
+        archives = null;
+        generation++;
+        for (List<Connection> idle : idleHistory.values()) {
+            idle.forEach(FiscalYearArchive::close);
+        }
+        idleHistory.clear();
+    }
+
+    private static void close(Connection history) {
+        try {
+            history.close();
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+    }
+}
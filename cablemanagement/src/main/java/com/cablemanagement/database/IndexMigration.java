@@ -0,0 +1,221 @@
+package com.cablemanagement.database;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.cablemanagement.Log;
+
+/**
+ * Secondary indexes for the foreign key, invoice number and date columns used by
+ * the ledger, book and report queries. Applied once per database file at startup
+ * and mirrored at the end of schema.sql for freshly created databases.
+ */
+class IndexMigration {
+
+    static final String COMPONENT = "indexes";
+
+    /**
+     * Bump this whenever INDEXES changes so existing databases pick up the new set
+     */
+    static final int VERSION = 1;
+
+    static final String[] INDEXES = {
+        // Ledgers and balances
+        "CREATE INDEX IF NOT EXISTS idx_customer_transaction_customer_date ON Customer_Transaction(customer_id, transaction_date)",
+        "CREATE INDEX IF NOT EXISTS idx_customer_transaction_reference ON Customer_Transaction(reference_invoice_number, transaction_type)",
+        "CREATE INDEX IF NOT EXISTS idx_supplier_transaction_supplier_date ON Supplier_Transaction(supplier_id, transaction_date)",
+        "CREATE INDEX IF NOT EXISTS idx_supplier_transaction_reference ON Supplier_Transaction(reference_invoice_number, transaction_type)",
+
+        // Sales
+        "CREATE INDEX IF NOT EXISTS idx_sales_invoice_customer_date ON Sales_Invoice(customer_id, sales_date)",
+        "CREATE INDEX IF NOT EXISTS idx_sales_invoice_date ON Sales_Invoice(sales_date)",
+        "CREATE INDEX IF NOT EXISTS idx_sales_invoice_item_invoice ON Sales_Invoice_Item(sales_invoice_id, production_stock_id, quantity, unit_price)",
+        "CREATE INDEX IF NOT EXISTS idx_sales_invoice_item_product ON Sales_Invoice_Item(production_stock_id)",
+        "CREATE INDEX IF NOT EXISTS idx_sales_return_invoice_customer_date ON Sales_Return_Invoice(customer_id, return_date)",
+        "CREATE INDEX IF NOT EXISTS idx_sales_return_invoice_original ON Sales_Return_Invoice(original_sales_invoice_id)",
+        "CREATE INDEX IF NOT EXISTS idx_sales_return_invoice_date ON Sales_Return_Invoice(return_date)",
+        "CREATE INDEX IF NOT EXISTS idx_sales_return_invoice_item_invoice ON Sales_Return_Invoice_Item(sales_return_invoice_id, production_stock_id)",
+
+        // Purchases
+        "CREATE INDEX IF NOT EXISTS idx_raw_purchase_invoice_supplier_date ON Raw_Purchase_Invoice(supplier_id, invoice_date)",
+        "CREATE INDEX IF NOT EXISTS idx_raw_purchase_invoice_date ON Raw_Purchase_Invoice(invoice_date)",
+        "CREATE INDEX IF NOT EXISTS idx_raw_purchase_invoice_item_invoice ON Raw_Purchase_Invoice_Item(raw_purchase_invoice_id, raw_stock_id, quantity, unit_price)",
+        "CREATE INDEX IF NOT EXISTS idx_raw_purchase_invoice_item_stock ON Raw_Purchase_Invoice_Item(raw_stock_id)",
+        "CREATE INDEX IF NOT EXISTS idx_raw_purchase_return_invoice_supplier_date ON Raw_Purchase_Return_Invoice(supplier_id, return_date)",
+        "CREATE INDEX IF NOT EXISTS idx_raw_purchase_return_invoice_original ON Raw_Purchase_Return_Invoice(original_invoice_id)",
+        "CREATE INDEX IF NOT EXISTS idx_raw_purchase_return_invoice_date ON Raw_Purchase_Return_Invoice(return_date)",
+        "CREATE INDEX IF NOT EXISTS idx_raw_purchase_return_invoice_item_invoice ON Raw_Purchase_Return_Invoice_Item(raw_purchase_return_invoice_id, raw_stock_id)",
+
+        // Raw stock usage and production
+        "CREATE INDEX IF NOT EXISTS idx_raw_stock_use_invoice_date ON Raw_Stock_Use_Invoice(usage_date)",
+        "CREATE INDEX IF NOT EXISTS idx_raw_stock_use_invoice_item_invoice ON Raw_Stock_Use_Invoice_Item(raw_stock_use_invoice_id, raw_stock_id)",
+        "CREATE INDEX IF NOT EXISTS idx_raw_stock_use_invoice_item_stock ON Raw_Stock_Use_Invoice_Item(raw_stock_id)",
+        "CREATE INDEX IF NOT EXISTS idx_production_invoice_date ON Production_Invoice(production_date)",
+        "CREATE INDEX IF NOT EXISTS idx_production_invoice_item_invoice ON Production_Invoice_Item(production_invoice_id, production_id)",
+        "CREATE INDEX IF NOT EXISTS idx_production_invoice_item_product ON Production_Invoice_Item(production_id)",
+        "CREATE INDEX IF NOT EXISTS idx_production_stock_raw_usage_invoice ON Production_Stock_Raw_Usage(production_invoice_id)",
+        "CREATE INDEX IF NOT EXISTS idx_production_return_invoice_original ON Production_Return_Invoice(original_production_invoice_id)",
+        "CREATE INDEX IF NOT EXISTS idx_production_return_invoice_date ON Production_Return_Invoice(return_date)",
+        "CREATE INDEX IF NOT EXISTS idx_production_return_invoice_item_invoice ON Production_Return_Invoice_Item(production_return_invoice_id, production_id)",
+
+        // Master data lookups by name and by parent
+        "CREATE INDEX IF NOT EXISTS idx_customer_name ON Customer(customer_name)",
+        "CREATE INDEX IF NOT EXISTS idx_customer_tehsil ON Customer(tehsil_id)",
+        "CREATE INDEX IF NOT EXISTS idx_supplier_name ON Supplier(supplier_name)",
+        "CREATE INDEX IF NOT EXISTS idx_supplier_tehsil ON Supplier(tehsil_id)",
+        "CREATE INDEX IF NOT EXISTS idx_district_province ON District(province_id)",
+        "CREATE INDEX IF NOT EXISTS idx_tehsil_district ON Tehsil(district_id)",
+        "CREATE INDEX IF NOT EXISTS idx_manufacturer_tehsil ON Manufacturer(tehsil_id)",
+        "CREATE INDEX IF NOT EXISTS idx_brand_manufacturer ON Brand(manufacturer_id)",
+        "CREATE INDEX IF NOT EXISTS idx_production_stock_name_brand ON ProductionStock(product_name, brand_id)",
+        "CREATE INDEX IF NOT EXISTS idx_production_stock_brand ON ProductionStock(brand_id)",
+        "CREATE INDEX IF NOT EXISTS idx_raw_stock_name ON Raw_Stock(item_name)",
+
+        // Books
+        "CREATE INDEX IF NOT EXISTS idx_purchase_book_date ON Purchase_Book(invoice_date)",
+        "CREATE INDEX IF NOT EXISTS idx_purchase_book_invoice ON Purchase_Book(raw_purchase_invoice_id)",
+        "CREATE INDEX IF NOT EXISTS idx_return_purchase_book_date ON Return_Purchase_Book(return_date)",
+        "CREATE INDEX IF NOT EXISTS idx_raw_stock_use_book_date ON Raw_Stock_Use_Book(usage_date)",
+        "CREATE INDEX IF NOT EXISTS idx_production_book_date ON Production_Book(production_date)",
+        "CREATE INDEX IF NOT EXISTS idx_return_production_book_date ON Return_Production_Book(return_date)",
+        "CREATE INDEX IF NOT EXISTS idx_sales_book_date ON Sales_Book(sales_date)",
+        "CREATE INDEX IF NOT EXISTS idx_sales_book_invoice_number ON Sales_Book(sales_invoice_number)",
+        "CREATE INDEX IF NOT EXISTS idx_sales_book_invoice ON Sales_Book(sales_invoice_id)",
+        "CREATE INDEX IF NOT EXISTS idx_return_sales_book_date ON Return_Sales_Book(return_date)",
+        "CREATE INDEX IF NOT EXISTS idx_return_sales_book_invoice ON Return_Sales_Book(sales_return_invoice_id)",
+
+        // Cash, bank and employees
+        "CREATE INDEX IF NOT EXISTS idx_bank_transaction_bank_date ON Bank_Transaction(bank_id, transaction_date)",
+        "CREATE INDEX IF NOT EXISTS idx_bank_transaction_date ON Bank_Transaction(transaction_date)",
+        "CREATE INDEX IF NOT EXISTS idx_cash_transaction_date ON Cash_Transaction(transaction_date)",
+        "CREATE INDEX IF NOT EXISTS idx_employee_attendance_employee_date ON Employee_Attendance(employee_id, attendance_date)",
+        "CREATE INDEX IF NOT EXISTS idx_contract_task_record_employee_date ON Contract_Task_Record(employee_id, work_date)"
+    };
+
+    /**
+     * Representative ledger, book and report queries checked by the query plan report.
+     * Each entry is {label, sql}; parameters are left unbound for EXPLAIN QUERY PLAN.
+     */
+    static final String[][] REPORT_QUERIES = {
+        {"Customer ledger",
+         "SELECT * FROM Customer_Transaction WHERE customer_id = ? ORDER BY transaction_date ASC, transaction_id ASC"},
+        {"Customer latest balance",
+         "SELECT balance_after_transaction FROM Customer_Transaction WHERE customer_id = ? ORDER BY transaction_id DESC LIMIT 1"},
+        {"Customer ledger by date range",
+         "SELECT * FROM Customer_Transaction WHERE customer_id = ? AND transaction_date BETWEEN ? AND ? ORDER BY transaction_id ASC"},
+        {"Supplier ledger",
+         "SELECT * FROM Supplier_Transaction WHERE supplier_id = ? ORDER BY transaction_date ASC, transaction_id ASC"},
+        {"Invoice transaction lookup",
+         "SELECT transaction_id FROM Customer_Transaction WHERE reference_invoice_number = ? AND transaction_type = ?"},
+        {"Sales invoice by number",
+         "SELECT * FROM Sales_Invoice WHERE sales_invoice_number = ?"},
+        {"Sales invoice total",
+         "SELECT SUM(quantity * unit_price) FROM Sales_Invoice_Item WHERE sales_invoice_id = ?"},
+        {"Sales invoices by customer",
+         "SELECT * FROM Sales_Invoice WHERE customer_id = ? AND sales_date BETWEEN ? AND ?"},
+        {"Sales report date range",
+         "SELECT si.sales_invoice_number, sii.quantity, sii.total_price FROM Sales_Invoice si " +
+         "JOIN Sales_Invoice_Item sii ON si.sales_invoice_id = sii.sales_invoice_id WHERE si.sales_date BETWEEN ? AND ?"},
+        {"Sales return items",
+         "SELECT * FROM Sales_Return_Invoice_Item WHERE sales_return_invoice_id = ?"},
+        {"Purchase report date range",
+         "SELECT rpi.invoice_number, rpii.quantity FROM Raw_Purchase_Invoice rpi " +
+         "JOIN Raw_Purchase_Invoice_Item rpii ON rpi.raw_purchase_invoice_id = rpii.raw_purchase_invoice_id " +
+         "WHERE rpi.invoice_date BETWEEN ? AND ?"},
+        {"Purchase return date range",
+         "SELECT * FROM Raw_Purchase_Return_Invoice WHERE return_date BETWEEN ? AND ?"},
+        {"Purchase book date range",
+         "SELECT * FROM Purchase_Book WHERE invoice_date >= ? AND invoice_date <= ? ORDER BY invoice_date DESC"},
+        {"Sales book date range",
+         "SELECT * FROM Sales_Book WHERE sales_date >= ? AND sales_date <= ? ORDER BY sales_date DESC"},
+        {"Sales book by invoice",
+         "SELECT * FROM Sales_Book WHERE sales_invoice_number = ?"},
+        {"Return sales book date range",
+         "SELECT * FROM Return_Sales_Book WHERE return_date >= ? AND return_date <= ? ORDER BY return_date DESC"},
+        {"Customers by tehsil",
+         "SELECT * FROM Customer WHERE tehsil_id = ?"},
+        {"Customer by name",
+         "SELECT customer_id FROM Customer WHERE customer_name = ?"},
+        {"Production stock by name",
+         "SELECT production_id FROM ProductionStock WHERE product_name = ?"},
+        {"Bank transactions by date",
+         "SELECT * FROM Bank_Transaction WHERE transaction_date BETWEEN ? AND ?"}
+    };
+
+    private IndexMigration() {
+    }
+
+    /**
+     * Create any missing indexes if the recorded version is behind VERSION.
+     * Each index is created independently so a table missing from an older
+     * database does not prevent the rest from being built; the version is only
+     * recorded once every index exists.
+     * @return true if the migration ran on this call
+     */
+    static boolean apply(Connection connection) throws SQLException {
+        if (SchemaVersion.get(connection, COMPONENT) >= VERSION) {
+            return false;
+        }
+
+        int created = 0;
+        int failed = 0;
+        try (Statement stmt = connection.createStatement()) {
+            for (String sql : INDEXES) {
+                try {
+                    stmt.execute(sql);
+                    created++;
+                } catch (SQLException e) {
+                    failed++;
+                    System.err.println("Error creating index: " + sql + "\n" + e.getMessage());
+                }
+            }
+            // Give the planner statistics for the new indexes
+            stmt.execute("ANALYZE");
+        }
+
+        // Leave the version behind while any index is missing, so the next startup retries it
+        if (failed == 0) {
+            SchemaVersion.set(connection, COMPONENT, VERSION);
+        }
+        Log.info("Index migration v" + VERSION + " applied: " + created + " indexes, " + failed + " errors");
+        return true;
+    }
+
+    /**
+     * Run EXPLAIN QUERY PLAN over REPORT_QUERIES.
+     * @return rows of [label, plan detail, uses index (Boolean)]
+     */
+    static List<Object[]> queryPlanReport(Connection connection) {
+        List<Object[]> report = new ArrayList<>();
+        for (String[] entry : REPORT_QUERIES) {
+            String label = entry[0];
+            StringBuilder plan = new StringBuilder();
+            boolean usesIndex = false;
+            boolean fullScan = false;
+            try (PreparedStatement pstmt = connection.prepareStatement("EXPLAIN QUERY PLAN " + entry[1]);
+                 ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    String detail = rs.getString("detail");
+                    if (plan.length() > 0) {
+                        plan.append("; ");
+                    }
+                    plan.append(detail);
+                    if (detail.contains(" USING ")) {
+                        usesIndex = true;
+                    } else if (detail.startsWith("SCAN ")) {
+                        fullScan = true;
+                    }
+                }
+            } catch (SQLException e) {
+                plan.append("ERROR: ").append(e.getMessage());
+            }
+            report.add(new Object[]{label, plan.toString(), usesIndex && !fullScan});
+        }
+        return report;
+    }
+}
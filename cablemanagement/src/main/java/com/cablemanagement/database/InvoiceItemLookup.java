@@ -0,0 +1,106 @@
+package com.cablemanagement.database;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The items of many invoices, looked up by invoice number in a single query and
+ * grouped in memory, so printing a ledger costs one query however many invoices
+ * it lists.
+ */
+final class InvoiceItemLookup {
+
+    private static final String SALES_ITEMS_QUERY =
+        "SELECT sv.sales_invoice_number AS invoice_number, COALESCE(ps.product_name, 'Product') AS item_desc, " +
+        "si.quantity, si.unit_price, si.discount_amount " +
+        "FROM Sales_Invoice sv " +
+        "JOIN Sales_Invoice_Item si ON si.sales_invoice_id = sv.sales_invoice_id " +
+        "LEFT JOIN ProductionStock ps ON si.production_stock_id = ps.production_id " +
+        "WHERE sv.sales_invoice_number IN (SELECT value FROM json_each(?)) " +
+        "ORDER BY si.sales_invoice_item_id";
+
+    private static final String RAW_PURCHASE_ITEMS_QUERY =
+        "SELECT rpin.invoice_number, COALESCE(rs.item_name, 'Item') AS item_desc, " +
+        "rpi.quantity, rpi.unit_price, rpin.discount_amount " +
+        "FROM Raw_Purchase_Invoice rpin " +
+        "JOIN Raw_Purchase_Invoice_Item rpi ON rpi.raw_purchase_invoice_id = rpin.raw_purchase_invoice_id " +
+        "LEFT JOIN Raw_Stock rs ON rpi.raw_stock_id = rs.stock_id " +
+        "WHERE rpin.invoice_number IN (SELECT value FROM json_each(?)) " +
+        "ORDER BY rpi.raw_purchase_invoice_item_id";
+
+    private InvoiceItemLookup() {
+    }
+
+    /**
+     * Items of the given sales invoices as {item name, quantity, unit price, item discount amount},
+     * keyed by invoice number; unknown numbers are absent
+     */
+    static Map<String, List<Object[]>> salesItems(Connection connection, Collection<String> invoiceNumbers)
+            throws SQLException {
+        return items(connection, SALES_ITEMS_QUERY, invoiceNumbers);
+    }
+
+    /**
+     * Items of the given raw purchase invoices as {item name, quantity, unit price, invoice discount amount},
+     * keyed by invoice number; unknown numbers are absent
+     */
+    static Map<String, List<Object[]>> rawPurchaseItems(Connection connection, Collection<String> invoiceNumbers)
+            throws SQLException {
+        return items(connection, RAW_PURCHASE_ITEMS_QUERY, invoiceNumbers);
+    }
+
+    private static Map<String, List<Object[]>> items(Connection connection, String query, Collection<String> invoiceNumbers)
+            throws SQLException {
+        Map<String, List<Object[]>> items = new HashMap<>();
+        if (invoiceNumbers.isEmpty()) {
+            return items;
+        }
+        try (PreparedStatement pstmt = connection.prepareStatement(query)) {
+            pstmt.setString(1, jsonArray(invoiceNumbers));
+            RowMapper.forEach(pstmt, rs -> new Object[] {
+                    rs.getString("invoice_number"),
+                    rs.getString("item_desc"),
+                    rs.getDouble("quantity"),
+                    rs.getDouble("unit_price"),
+                    rs.getDouble("discount_amount") },
+                row -> items.computeIfAbsent((String) row[0], number -> new ArrayList<>())
+                            .add(new Object[] { row[1], row[2], row[3], row[4] }));
+        }
+        return items;
+    }
+
+    /**
+     * The numbers as one JSON array of strings, so a single statement takes any number of them
+     */
+    private static String jsonArray(Collection<String> values) {
+        StringBuilder json = new StringBuilder("[");
+        for (String value : new LinkedHashSet<>(values)) {
+            if (value == null) {
+                continue;
+            }
+            if (json.length() > 1) {
+                json.append(',');
+            }
+            json.append('"');
+            for (int i = 0; i < value.length(); i++) {
+                char c = value.charAt(i);
+                if (c == '"' || c == '\\') {
+                    json.append('\\').append(c);
+                } else if (c < 0x20) {
+                    json.append(String.format("\\u%04x", (int) c));
+                } else {
+                    json.append(c);
+                }
+            }
+            json.append('"');
+        }
+        return json.append(']').toString();
+    }
+}
@@ -0,0 +1,339 @@
+package com.cablemanagement.database;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.HashMap;
+import java.util.Map;
+
+import com.cablemanagement.Log;
+
+/**
+ * Invoice number allocator backed by the Invoice_Sequence table, which holds the next
+ * number for each prefix ("SI-", "PI-", ...). Reading the next number is a primary key
+ * lookup instead of a MAX over the whole invoice table.
+ *
+ * An insert trigger on each invoice table moves the counter past the number just
+ * saved, inside the same transaction as the insert, so the counter can never fall
+ * behind the data no matter which screen or terminal saved the invoice.
+ *
+ * Forms show the next number from peek(), but the number is only taken by
+ * allocateFor() inside the transaction that saves the invoice, so two terminals
+ * showing the same number still save two different ones.
+ *
+ * Optionally each terminal can reserve a block of numbers at a time
+ * (-Dcablemanagement.invoice.blockSize=N), so terminals sharing one database file
+ * hand out numbers from their own range. Numbers left in a block when the
+ * application closes are skipped.
+ */
+class InvoiceSequence {
+
+    static final String COMPONENT = "invoice_sequence";
+    static final int VERSION = 1;
+
+    /**
+     * One numbered series: invoice numbers of the form prefix + zero-padded number,
+     * stored in table.column
+     */
+    static class Sequence {
+        final String prefix;
+        final String table;
+        final String column;
+        final int width;
+
+        Sequence(String prefix, String table, String column, int width) {
+            this.prefix = prefix;
+            this.table = table;
+            this.column = column;
+            this.width = width;
+        }
+
+        String format(long number) {
+            return prefix + String.format("%0" + width + "d", number);
+        }
+
+        /** Whether number is prefix followed by digits only, as matches() has it in SQL */
+        boolean owns(String number) {
+            if (number == null || number.length() <= prefix.length() || !number.startsWith(prefix)) {
+                return false;
+            }
+            for (int i = prefix.length(); i < number.length(); i++) {
+                if (!Character.isDigit(number.charAt(i))) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /** SQL condition: the invoice number in row is prefix followed by digits only */
+        String matches(String row) {
+            int length = prefix.length();
+            return "SUBSTR(" + row + "." + column + ", 1, " + length + ") = " + quote(prefix) + " " +
+                   "AND LENGTH(" + row + "." + column + ") > " + length + " " +
+                   "AND SUBSTR(" + row + "." + column + ", " + (length + 1) + ") NOT GLOB '*[^0-9]*'";
+        }
+
+        /** SQL expression: the number part of the invoice number in row */
+        String number(String row) {
+            return "CAST(SUBSTR(" + row + "." + column + ", " + (prefix.length() + 1) + ") AS INTEGER)";
+        }
+
+        String triggerName() {
+            return "trg_seq_" + table.toLowerCase() + "_" + prefix.toLowerCase().replaceAll("[^a-z0-9]", "_");
+        }
+    }
+
+    /**
+     * Production invoices have no number column; their number follows production_invoice_id
+     */
+    private static final class IdSequence extends Sequence {
+
+        IdSequence(String prefix, String table, String idColumn, int width) {
+            super(prefix, table, idColumn, width);
+        }
+
+        @Override
+        String matches(String row) {
+            return "1 = 1";
+        }
+
+        @Override
+        String number(String row) {
+            return row + "." + column;
+        }
+    }
+
+    /**
+     * A raw purchase prefix with no counter of its own: the next number is worked out from
+     * the invoices already saved, so it needs no trigger or Invoice_Sequence row
+     */
+    private static final class ScannedSequence extends Sequence {
+
+        ScannedSequence(String prefix, String table, String column, int width) {
+            super(prefix, table, column, width);
+        }
+    }
+
+    static final Sequence RAW_PURCHASE = new Sequence("RPI-", "Raw_Purchase_Invoice", "invoice_number", 4);
+    static final Sequence RAW_PURCHASE_FORM = new Sequence("RPI", "Raw_Purchase_Invoice", "invoice_number", 6);
+    static final Sequence RAW_PURCHASE_RETURN = new Sequence("RPRI-", "Raw_Purchase_Return_Invoice", "return_invoice_number", 4);
+    static final Sequence RAW_RETURN = new Sequence("INV-RPR-", "Raw_Purchase_Return_Invoice", "return_invoice_number", 3);
+    static final Sequence RAW_USE = new Sequence("INV-RSU-", "Raw_Stock_Use_Invoice", "use_invoice_number", 3);
+    static final Sequence PRODUCTION = new IdSequence("PI-", "Production_Invoice", "production_invoice_id", 4);
+    static final Sequence PRODUCTION_RETURN = new Sequence("PRI-", "Production_Return_Invoice", "return_invoice_number", 4);
+    static final Sequence SALES = new Sequence("SI-", "Sales_Invoice", "sales_invoice_number", 3);
+    static final Sequence SALES_RETURN = new Sequence("SRI-", "Sales_Return_Invoice", "return_invoice_number", 3);
+
+    private static final Sequence[] SEQUENCES = {
+        RAW_PURCHASE, RAW_PURCHASE_FORM, RAW_PURCHASE_RETURN, RAW_RETURN, RAW_USE,
+        PRODUCTION, PRODUCTION_RETURN, SALES, SALES_RETURN
+    };
+
+    /** Numbers reserved by this terminal but not yet used, per prefix: {next, end} */
+    private final Map<String, long[]> blocks = new HashMap<>();
+    private final int blockSize = Math.max(1, Integer.getInteger("cablemanagement.invoice.blockSize", 1));
+
+    /**
+     * Create Invoice_Sequence and the invoice table triggers, and seed every counter from
+     * the invoices already saved, if the recorded version is behind VERSION
+     * @return true if the sequences were installed on this call
+     */
+    static boolean install(Connection connection) throws SQLException {
+        if (SchemaVersion.get(connection, COMPONENT) >= VERSION) {
+            return false;
+        }
+
+        try (Statement stmt = connection.createStatement()) {
+            stmt.execute("CREATE TABLE IF NOT EXISTS Invoice_Sequence (" +
+                        "prefix TEXT PRIMARY KEY, " +
+                        "next_value INTEGER NOT NULL" +
+                        ")");
+        }
+        for (Sequence sequence : SEQUENCES) {
+            installSequence(connection, sequence);
+        }
+
+        SchemaVersion.set(connection, COMPONENT, VERSION);
+        Log.info("Invoice sequences v" + VERSION + " installed (" + SEQUENCES.length + " prefixes seeded)");
+        return true;
+    }
+
+    private static void installSequence(Connection connection, Sequence sequence) throws SQLException {
+        try (Statement stmt = connection.createStatement()) {
+            stmt.execute("DROP TRIGGER IF EXISTS " + sequence.triggerName());
+            stmt.execute("CREATE TRIGGER " + sequence.triggerName() + " AFTER INSERT ON " + sequence.table + " " +
+                        "WHEN " + sequence.matches("NEW") + " " +
+                        "BEGIN " +
+                        "  UPDATE Invoice_Sequence SET next_value = " + sequence.number("NEW") + " + 1 " +
+                        "  WHERE prefix = " + quote(sequence.prefix) + " AND next_value <= " + sequence.number("NEW") + "; " +
+                        "END");
+        }
+        seed(connection, sequence);
+    }
+
+    /**
+     * Move the counter past the highest number already saved (never backwards)
+     */
+    private static void seed(Connection connection, Sequence sequence) throws SQLException {
+        String query = "INSERT INTO Invoice_Sequence (prefix, next_value) " +
+                      "SELECT ?, COALESCE(MAX(" + sequence.number("t") + "), 0) + 1 " +
+                      "FROM " + sequence.table + " t WHERE " + sequence.matches("t") + " " +
+                      "ON CONFLICT(prefix) DO UPDATE SET next_value = MAX(next_value, excluded.next_value)";
+        try (PreparedStatement pstmt = connection.prepareStatement(query)) {
+            pstmt.setString(1, sequence.prefix);
+            pstmt.executeUpdate();
+        }
+    }
+
+    /**
+     * Sequence for a raw purchase invoice prefix of the invoice form (6-digit numbers).
+     * Only "RPI" has a counter, installed with the others at startup; any other prefix is
+     * numbered from the invoices already saved, so no schema change happens here.
+     */
+    static Sequence rawPurchase(String prefix) {
+        if (RAW_PURCHASE_FORM.prefix.equals(prefix)) {
+            return RAW_PURCHASE_FORM;
+        }
+        return new ScannedSequence(prefix, RAW_PURCHASE_FORM.table, RAW_PURCHASE_FORM.column, RAW_PURCHASE_FORM.width);
+    }
+
+    /**
+     * Forget reserved blocks, after the database was replaced underneath this allocator
+     * (see BackupService.restore())
+     */
+    synchronized void reset() {
+        blocks.clear();
+    }
+
+    /**
+     * Next number to offer for a new invoice. Does not use it up: the number is taken
+     * when the invoice is saved with it, so showing it on a form costs nothing.
+     */
+    synchronized String peek(Connection connection, Sequence sequence) throws SQLException {
+        if (sequence instanceof ScannedSequence) {
+            return sequence.format(scan(connection, sequence));
+        }
+        if (blockSize > 1) {
+            long[] block = currentBlock(connection, sequence);
+            return sequence.format(block[0]);
+        }
+        return sequence.format(counter(connection, sequence));
+    }
+
+    /**
+     * Take the next number for an invoice about to be inserted. Call on the writer
+     * connection inside the invoice transaction, so a rollback returns the number.
+     */
+    synchronized String allocate(Connection connection, Sequence sequence) throws SQLException {
+        if (sequence instanceof ScannedSequence) {
+            return sequence.format(scan(connection, sequence));
+        }
+        if (blockSize > 1) {
+            long[] block = currentBlock(connection, sequence);
+            return sequence.format(block[0]++);
+        }
+        return sequence.format(reserve(connection, sequence, 1));
+    }
+
+    /**
+     * The number to save a new invoice under. Call on the writer connection inside the
+     * invoice transaction. A number in the format of one of the sequences is the one a
+     * form showed from peek(), which another terminal may have saved since, so it is
+     * replaced by a newly allocated one; a number typed in any other format is kept.
+     * @param sequences the series the invoice table is numbered in
+     */
+    String allocateFor(Connection connection, String requested, Sequence... sequences) throws SQLException {
+        for (Sequence sequence : sequences) {
+            if (sequence.owns(requested)) {
+                return allocate(connection, sequence);
+            }
+        }
+        return requested;
+    }
+
+    /**
+     * This terminal's block for a prefix, skipping numbers already saved and reserving
+     * a new block once it runs out
+     */
+    private long[] currentBlock(Connection connection, Sequence sequence) throws SQLException {
+        long[] block = blocks.get(sequence.prefix);
+        while (block != null && block[0] < block[1] && isUsed(connection, sequence, block[0])) {
+            block[0]++;
+        }
+        if (block == null || block[0] >= block[1]) {
+            long start = reserve(connection, sequence, blockSize);
+            block = new long[] { start, start + blockSize };
+            blocks.put(sequence.prefix, block);
+        }
+        return block;
+    }
+
+    /**
+     * Atomically advance the counter by count
+     * @return the first of the count numbers reserved
+     */
+    private static long reserve(Connection connection, Sequence sequence, int count) throws SQLException {
+        String query = "UPDATE Invoice_Sequence SET next_value = next_value + ? WHERE prefix = ? RETURNING next_value";
+        for (int attempt = 0; attempt < 2; attempt++) {
+            try (PreparedStatement pstmt = connection.prepareStatement(query)) {
+                pstmt.setInt(1, count);
+                pstmt.setString(2, sequence.prefix);
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    if (rs.next()) {
+                        return rs.getLong(1) - count;
+                    }
+                }
+            }
+            seed(connection, sequence);
+        }
+        throw new SQLException("No invoice sequence for prefix " + sequence.prefix);
+    }
+
+    private static long counter(Connection connection, Sequence sequence) throws SQLException {
+        String query = "SELECT next_value FROM Invoice_Sequence WHERE prefix = ?";
+        for (int attempt = 0; attempt < 2; attempt++) {
+            try (PreparedStatement pstmt = connection.prepareStatement(query)) {
+                pstmt.setString(1, sequence.prefix);
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    if (rs.next()) {
+                        return rs.getLong(1);
+                    }
+                }
+            }
+            seed(connection, sequence);
+        }
+        throw new SQLException("No invoice sequence for prefix " + sequence.prefix);
+    }
+
+    /**
+     * One past the highest number saved under a prefix that has no counter
+     */
+    private static long scan(Connection connection, Sequence sequence) throws SQLException {
+        String query = "SELECT COALESCE(MAX(" + sequence.number("t") + "), 0) + 1 " +
+                      "FROM " + sequence.table + " t WHERE " + sequence.matches("t");
+        try (Statement stmt = connection.createStatement();
+             ResultSet rs = stmt.executeQuery(query)) {
+            return rs.next() ? rs.getLong(1) : 1;
+        }
+    }
+
+    private static boolean isUsed(Connection connection, Sequence sequence, long number) throws SQLException {
+        String query = "SELECT 1 FROM " + sequence.table + " WHERE " + sequence.column + " = ?";
+        try (PreparedStatement pstmt = connection.prepareStatement(query)) {
+            if (sequence instanceof IdSequence) {
+                pstmt.setLong(1, number);
+            } else {
+                pstmt.setString(1, sequence.format(number));
+            }
+            try (ResultSet rs = pstmt.executeQuery()) {
+                return rs.next();
+            }
+        }
+    }
+
+    private static String quote(String text) {
+        return "'" + text.replace("'", "''") + "'";
+    }
+}
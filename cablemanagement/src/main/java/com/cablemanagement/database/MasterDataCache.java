@@ -0,0 +1,192 @@
+package com.cablemanagement.database;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * In-memory copy of the reference tables (units, categories, brands, manufacturers,
+ * provinces, districts, tehsils) used by forms and autocomplete.
+ *
+ * Each table is loaded on first use and kept until one of the SQLiteDatabase
+ * methods that writes it calls invalidate(). Every invalidation bumps the table's
+ * version, and a load that raced with an invalidation is returned but not kept.
+ */
+public class MasterDataCache {
+
+    /**
+     * A cached reference table, with the parent it references (if any)
+     */
+    public enum Kind {
+        UNIT("Unit", "unit_id", "unit_name", null),
+        CATEGORY("Category", "category_id", "category_name", null),
+        PROVINCE("Province", "province_id", "province_name", null),
+        DISTRICT("District", "district_id", "district_name", "province_id"),
+        TEHSIL("Tehsil", "tehsil_id", "tehsil_name", "district_id"),
+        MANUFACTURER("Manufacturer", "manufacturer_id", "manufacturer_name", "tehsil_id"),
+        BRAND("Brand", "brand_id", "brand_name", "manufacturer_id");
+
+        final String table;
+        final String idColumn;
+        final String nameColumn;
+        final String parentColumn;
+
+        Kind(String table, String idColumn, String nameColumn, String parentColumn) {
+            this.table = table;
+            this.idColumn = idColumn;
+            this.nameColumn = nameColumn;
+            this.parentColumn = parentColumn;
+        }
+    }
+
+    /**
+     * Immutable snapshot of one table
+     */
+    static final class Table {
+        /** Every row's name, ordered by name (duplicates kept, as the table allows them) */
+        final List<String> names;
+        /** id -> name, ordered by name */
+        final Map<Integer, String> nameById;
+        /** name -> lowest id with that name, matching "WHERE name = ?" on the first row */
+        final Map<String, Integer> idByName;
+        /** id -> parent id, for tables that reference a parent */
+        final Map<Integer, Integer> parentById;
+        /** lower-case name -> names with that spelling, for case-insensitive prefix search */
+        final TreeMap<String, List<String>> namesByKey;
+
+        private Table(List<String> names, Map<Integer, String> nameById, Map<String, Integer> idByName,
+                      Map<Integer, Integer> parentById, TreeMap<String, List<String>> namesByKey) {
+            this.names = Collections.unmodifiableList(names);
+            this.nameById = Collections.unmodifiableMap(nameById);
+            this.idByName = Collections.unmodifiableMap(idByName);
+            this.parentById = Collections.unmodifiableMap(parentById);
+            this.namesByKey = namesByKey;
+        }
+
+        /**
+         * Names of the rows whose parent (a row of parents) is called parentName, ordered by name
+         */
+        List<String> namesUnder(Table parents, String parentName) {
+            List<String> result = new ArrayList<>();
+            if (parentName == null) {
+                return result;
+            }
+            for (Map.Entry<Integer, String> entry : nameById.entrySet()) {
+                Integer parentId = parentById.get(entry.getKey());
+                if (parentId != null && parentName.equals(parents.nameById.get(parentId))) {
+                    result.add(entry.getValue());
+                }
+            }
+            return result;
+        }
+
+        /**
+         * Distinct names starting with prefix (case-insensitive), ordered by name
+         */
+        List<String> namesWithPrefix(String prefix, int limit) {
+            String key = prefix == null ? "" : prefix.trim().toLowerCase(Locale.ROOT);
+            List<String> result = new ArrayList<>();
+            Map<String, List<String>> range = key.isEmpty() ? namesByKey : namesByKey.subMap(key, true, key + Character.MAX_VALUE, false);
+            for (List<String> spellings : range.values()) {
+                for (String name : spellings) {
+                    if (!result.contains(name)) {
+                        result.add(name);
+                    }
+                    if (limit > 0 && result.size() >= limit) {
+                        return result;
+                    }
+                }
+            }
+            return result;
+        }
+    }
+
+    private final Map<Kind, Table> tables = new EnumMap<>(Kind.class);
+    private final Map<Kind, Integer> versions = new EnumMap<>(Kind.class);
+
+    /**
+     * Get a table, loading it with the given connection if it is not cached
+     */
+    Table get(Connection connection, Kind kind) throws SQLException {
+        int version;
+        synchronized (this) {
+            Table table = tables.get(kind);
+            if (table != null) {
+                return table;
+            }
+            version = versions.getOrDefault(kind, 0);
+        }
+
+        Table loaded = load(connection, kind);
+
+        synchronized (this) {
+            // Only keep the load if nothing invalidated the table meanwhile
+            if (versions.getOrDefault(kind, 0) == version) {
+                tables.put(kind, loaded);
+            }
+        }
+        return loaded;
+    }
+
+    /**
+     * Drop the cached copies of the given tables after they have been written
+     */
+    public synchronized void invalidate(Kind... kinds) {
+        for (Kind kind : kinds) {
+            tables.remove(kind);
+            versions.merge(kind, 1, Integer::sum);
+        }
+    }
+
+    public synchronized void invalidateAll() {
+        invalidate(Kind.values());
+    }
+
+    /**
+     * Current version of a table; changes every time the table is invalidated
+     */
+    public synchronized int getVersion(Kind kind) {
+        return versions.getOrDefault(kind, 0);
+    }
+
+    private static Table load(Connection connection, Kind kind) throws SQLException {
+        String query = "SELECT " + kind.idColumn + ", " + kind.nameColumn +
+                      (kind.parentColumn != null ? ", " + kind.parentColumn : "") +
+                      " FROM " + kind.table + " ORDER BY " + kind.nameColumn + ", " + kind.idColumn;
+
+        List<String> names = new ArrayList<>();
+        Map<Integer, String> nameById = new LinkedHashMap<>();
+        Map<String, Integer> idByName = new HashMap<>();
+        Map<Integer, Integer> parentById = new HashMap<>();
+        TreeMap<String, List<String>> namesByKey = new TreeMap<>();
+
+        try (Statement stmt = connection.createStatement();
+             ResultSet rs = stmt.executeQuery(query)) {
+            while (rs.next()) {
+                int id = rs.getInt(1);
+                String name = rs.getString(2);
+                if (name == null) {
+                    continue;
+                }
+                names.add(name);
+                nameById.put(id, name);
+                idByName.merge(name, id, Math::min);
+                if (kind.parentColumn != null) {
+                    parentById.put(id, rs.getInt(3));
+                }
+                namesByKey.computeIfAbsent(name.toLowerCase(Locale.ROOT), k -> new ArrayList<>(1)).add(name);
+            }
+        }
+        return new Table(names, nameById, idByName, parentById, namesByKey);
+    }
+}
@@ -0,0 +1,112 @@
+package com.cablemanagement.database;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import com.cablemanagement.model.ProductCatalogEntry;
+
+/**
+ * In-memory index of the production stock catalog: by id, by name and by name + brand.
+ *
+ * Used while building sales and production invoices, where every line item needs
+ * a product's id, name, unit or cost. The index holds no stock quantities, so sales
+ * and returns (which only move quantity) leave it valid; inserting, deleting or
+ * re-pricing a product invalidates it and it is reloaded on next use.
+ */
+class ProductCatalog {
+
+    private static final String QUERY =
+        "SELECT ps.production_id, ps.product_name, b.brand_name, u.unit_name, ps.unit_cost, ps.sale_price " +
+        "FROM ProductionStock ps " +
+        "LEFT JOIN Brand b ON ps.brand_id = b.brand_id " +
+        "LEFT JOIN Unit u ON ps.unit_id = u.unit_id " +
+        "ORDER BY ps.production_id";
+
+    /**
+     * Immutable snapshot of the catalog
+     */
+    static final class Index {
+        final Map<Integer, ProductCatalogEntry> byId;
+        /** product name -> lowest id with that name, matching "WHERE product_name = ?" on the first row */
+        final Map<String, ProductCatalogEntry> byName;
+        final Map<String, ProductCatalogEntry> byNameAndBrand;
+
+        private Index(Map<Integer, ProductCatalogEntry> byId, Map<String, ProductCatalogEntry> byName,
+                      Map<String, ProductCatalogEntry> byNameAndBrand) {
+            this.byId = Collections.unmodifiableMap(byId);
+            this.byName = Collections.unmodifiableMap(byName);
+            this.byNameAndBrand = Collections.unmodifiableMap(byNameAndBrand);
+        }
+
+        ProductCatalogEntry find(String productName, String brandName) {
+            return byNameAndBrand.get(key(productName, brandName));
+        }
+    }
+
+    private Index index;
+    private int version = 0;
+
+    /**
+     * Get the index, loading it with the given connection if it is not cached
+     */
+    Index get(Connection connection) throws SQLException {
+        int loadVersion;
+        synchronized (this) {
+            if (index != null) {
+                return index;
+            }
+            loadVersion = version;
+        }
+
+        Index loaded = load(connection);
+
+        synchronized (this) {
+            // Only keep the load if nothing invalidated the catalog meanwhile
+            if (version == loadVersion) {
+                index = loaded;
+            }
+        }
+        return loaded;
+    }
+
+    synchronized void invalidate() {
+        index = null;
+        version++;
+    }
+
+    private static Index load(Connection connection) throws SQLException {
+        Map<Integer, ProductCatalogEntry> byId = new HashMap<>();
+        Map<String, ProductCatalogEntry> byName = new HashMap<>();
+        Map<String, ProductCatalogEntry> byNameAndBrand = new HashMap<>();
+
+        try (Statement stmt = connection.createStatement();
+             ResultSet rs = stmt.executeQuery(QUERY)) {
+            while (rs.next()) {
+                ProductCatalogEntry entry = new ProductCatalogEntry(
+                    rs.getInt("production_id"),
+                    rs.getString("product_name"),
+                    rs.getString("brand_name"),
+                    rs.getString("unit_name") != null ? rs.getString("unit_name") : "N/A",
+                    rs.getDouble("unit_cost"),
+                    rs.getDouble("sale_price"));
+
+                byId.put(entry.productionId(), entry);
+                if (entry.productName() != null) {
+                    // Rows come in id order, so the first one wins
+                    byName.putIfAbsent(entry.productName(), entry);
+                    byNameAndBrand.putIfAbsent(key(entry.productName(), entry.brandName()), entry);
+                }
+            }
+        }
+        return new Index(byId, byName, byNameAndBrand);
+    }
+
+    private static String key(String productName, String brandName) {
+        return productName + '\u0000' + brandName;
+    }
+}
@@ -0,0 +1,129 @@
+package com.cablemanagement.database;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import com.cablemanagement.model.ProductionStockRow;
+import com.cablemanagement.model.ProductionStockSummary;
+
+/**
+ * Filtered, sorted and paged production stock queries for the stock screen.
+ *
+ * Filters (all optional):
+ *   "search" - product or brand name contains the text (case-insensitive)
+ *   "brand"  - brand name equals the value
+ *
+ * Sort keys: name, category, manufacturer, brand, unit, quantity, salePrice, totalValue.
+ * Rows with equal sort values are ordered by production_id so paging is stable.
+ */
+class ProductionStockSearch {
+
+    static final String FILTER_SEARCH = "search";
+    static final String FILTER_BRAND = "brand";
+
+    /** Items below this quantity count as low stock */
+    static final int LOW_STOCK_THRESHOLD = 10;
+
+    static final String SELECT =
+        "SELECT ps.production_id, ps.product_name, " +
+        "c.category_name, m.manufacturer_name, " +
+        "b.brand_name, u.unit_name, " +
+        "ps.quantity, ps.unit_cost, ps.sale_price, ps.total_cost, ps.production_date ";
+
+    static final String FROM =
+        "FROM ProductionStock ps " +
+        "JOIN Category c ON ps.category_id = c.category_id " +
+        "JOIN Manufacturer m ON ps.manufacturer_id = m.manufacturer_id " +
+        "JOIN Brand b ON ps.brand_id = b.brand_id " +
+        "LEFT JOIN Unit u ON ps.unit_id = u.unit_id ";
+
+    private static final Map<String, String> SORT_COLUMNS = Map.of(
+        "name", "ps.product_name",
+        "category", "c.category_name",
+        "manufacturer", "m.manufacturer_name",
+        "brand", "b.brand_name",
+        "unit", "u.unit_name",
+        "quantity", "ps.quantity",
+        "salePrice", "ps.sale_price",
+        "totalValue", "ps.quantity * ps.sale_price");
+
+    /**
+     * Get one page of matching items
+     * @param limit Page size, or 0 for every matching item
+     */
+    static List<ProductionStockRow> search(Connection connection, Map<String, String> filters,
+                                           String sortKey, boolean ascending, int offset, int limit) throws SQLException {
+        List<String> values = new ArrayList<>();
+        String sortColumn = SORT_COLUMNS.getOrDefault(sortKey, "ps.product_name");
+        String direction = ascending ? " ASC" : " DESC";
+
+        StringBuilder query = new StringBuilder(SELECT).append(FROM);
+        appendFilters(query, filters, values);
+        query.append("ORDER BY ").append(sortColumn).append(direction)
+             .append(", ps.production_id").append(direction);
+        if (limit > 0) {
+            query.append(" LIMIT ").append(limit).append(" OFFSET ").append(Math.max(offset, 0));
+        }
+
+        try (PreparedStatement pstmt = connection.prepareStatement(query.toString())) {
+            for (int i = 0; i < values.size(); i++) {
+                pstmt.setString(i + 1, values.get(i));
+            }
+            return RowMapper.list(pstmt, RowMapper.PRODUCTION_STOCK);
+        }
+    }
+
+    /**
+     * Count and total the matching items in one pass
+     */
+    static ProductionStockSummary summarize(Connection connection, Map<String, String> filters) throws SQLException {
+        List<String> values = new ArrayList<>();
+        StringBuilder query = new StringBuilder(
+            "SELECT COUNT(*), COALESCE(SUM(ps.quantity * ps.sale_price), 0), " +
+            "COALESCE(SUM(CASE WHEN ps.quantity < " + LOW_STOCK_THRESHOLD + " THEN 1 ELSE 0 END), 0) ");
+        query.append(FROM);
+        appendFilters(query, filters, values);
+
+        try (PreparedStatement pstmt = connection.prepareStatement(query.toString())) {
+            for (int i = 0; i < values.size(); i++) {
+                pstmt.setString(i + 1, values.get(i));
+            }
+            try (ResultSet rs = pstmt.executeQuery()) {
+                if (rs.next()) {
+                    return new ProductionStockSummary(rs.getInt(1), rs.getDouble(2), rs.getInt(3));
+                }
+            }
+        }
+        return new ProductionStockSummary(0, 0.0, 0);
+    }
+
+    private static void appendFilters(StringBuilder query, Map<String, String> filters, List<String> values) {
+        List<String> clauses = new ArrayList<>();
+        if (filters != null) {
+            String search = filters.get(FILTER_SEARCH);
+            if (search != null && !search.trim().isEmpty()) {
+                String pattern = "%" + escapeLike(search.trim()) + "%";
+                clauses.add("(ps.product_name LIKE ? ESCAPE '\\' OR b.brand_name LIKE ? ESCAPE '\\')");
+                values.add(pattern);
+                values.add(pattern);
+            }
+            String brand = filters.get(FILTER_BRAND);
+            if (brand != null && !brand.isEmpty()) {
+                clauses.add("b.brand_name = ?");
+                values.add(brand);
+            }
+        }
+        if (!clauses.isEmpty()) {
+            query.append("WHERE ").append(String.join(" AND ", clauses)).append(' ');
+        }
+    }
+
+    private static String escapeLike(String text) {
+        return text.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+}
@@ -0,0 +1,296 @@
+package com.cablemanagement.database;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Call counts, latency histograms and row counts for every db method, and for every
+ * prepared SQL statement, since the application started.
+ *
+ * instrument() wraps a db so each call through it is timed. Statements prepared
+ * on the cached connections (see StatementCache) report their own timings, and the
+ * statements run during a db call are remembered with it: a call slower than
+ * -Dcablemanagement.slowQueryMillis (default 200) is written to the slow query log
+ * together with its slowest SQL. Set -Dcablemanagement.metrics=false to turn the
+ * db wrapper off.
+ *
+ * Multi-step writes such as the sales invoice pipeline also report the time of each
+ * of their stages here (see recordStage()).
+ */
+public class QueryMetrics {
+
+    /** Upper bounds of the latency histogram buckets; the last bucket is open-ended */
+    static final long[] BUCKET_LIMITS_MILLIS = { 1, 2, 5, 10, 25, 50, 100, 250, 500, 1000, 2500 };
+
+    static final long SLOW_MILLIS = Long.getLong("cablemanagement.slowQueryMillis", 200);
+
+    /** Distinct SQL texts tracked; statements built with varying text beyond this are pooled */
+    private static final int MAX_STATEMENTS = 500;
+    private static final String OTHER_STATEMENTS = "(other statements)";
+
+    /** Slowest statements remembered per db call for the slow query log */
+    private static final int SQL_PER_CALL = 5;
+
+    private static final Map<String, Stats> methods = new ConcurrentHashMap<>();
+    private static final Map<String, Stats> statements = new ConcurrentHashMap<>();
+    private static final Map<String, Stats> stages = new ConcurrentHashMap<>();
+    private static final ThreadLocal<Call> currentCall = new ThreadLocal<>();
+
+    /**
+     * Counters for one db method or SQL text
+     */
+    static final class Stats {
+        final String name;
+        final LongAdder calls = new LongAdder();
+        final LongAdder errors = new LongAdder();
+        final LongAdder rows = new LongAdder();
+        final LongAdder totalNanos = new LongAdder();
+        final AtomicLong maxNanos = new AtomicLong();
+        final LongAdder[] buckets = new LongAdder[BUCKET_LIMITS_MILLIS.length + 1];
+
+        Stats(String name) {
+            this.name = name;
+            for (int i = 0; i < buckets.length; i++) {
+                buckets[i] = new LongAdder();
+            }
+        }
+
+        void record(long nanos, long rowCount, boolean failed) {
+            calls.increment();
+            if (failed) {
+                errors.increment();
+            }
+            if (rowCount > 0) {
+                rows.add(rowCount);
+            }
+            totalNanos.add(nanos);
+            maxNanos.accumulateAndGet(nanos, Math::max);
+            buckets[bucketOf(nanos)].increment();
+        }
+
+        /**
+         * Upper bound (ms) of the bucket holding the given fraction of calls, or -1 if open-ended
+         */
+        long percentileMillis(double fraction) {
+            long total = calls.sum();
+            long target = (long) Math.ceil(total * fraction);
+            long seen = 0;
+            for (int i = 0; i < buckets.length; i++) {
+                seen += buckets[i].sum();
+                if (seen >= target && seen > 0) {
+                    return i < BUCKET_LIMITS_MILLIS.length ? BUCKET_LIMITS_MILLIS[i] : -1;
+                }
+            }
+            return 0;
+        }
+    }
+
+    /**
+     * The db call running on a thread and the slowest SQL it has run so far
+     */
+    private static final class Call {
+        final List<Object[]> slowestSql = new ArrayList<>(); // [nanos (Long), sql]
+
+        void add(String sql, long nanos) {
+            slowestSql.add(new Object[] { nanos, sql });
+            slowestSql.sort(Comparator.comparingLong((Object[] entry) -> (Long) entry[0]).reversed());
+            if (slowestSql.size() > SQL_PER_CALL) {
+                slowestSql.remove(slowestSql.size() - 1);
+            }
+        }
+    }
+
+    private QueryMetrics() {
+    }
+
+    /**
+     * Wrap a db so every call through it is timed and counted
+     */
+    public static db instrument(db target) {
+        if (!Boolean.parseBoolean(System.getProperty("cablemanagement.metrics", "true"))) {
+            return target;
+        }
+        return (db) Proxy.newProxyInstance(db.class.getClassLoader(), new Class<?>[] { db.class },
+            new Handler(target));
+    }
+
+    private static final class Handler implements InvocationHandler {
+        private final db target;
+
+        Handler(db target) {
+            this.target = target;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            if (method.getDeclaringClass() == Object.class) {
+                switch (method.getName()) {
+                    case "equals":
+                        return proxy == args[0];
+                    case "hashCode":
+                        return System.identityHashCode(proxy);
+                    default:
+                        return method.invoke(target, args);
+                }
+            }
+
+            Call outer = currentCall.get();
+            Call call = new Call();
+            currentCall.set(call);
+            long start = System.nanoTime();
+            Object result = null;
+            boolean failed = false;
+            try {
+                result = method.invoke(target, args);
+                return result;
+            } catch (InvocationTargetException e) {
+                failed = true;
+                throw e.getCause();
+            } finally {
+                long nanos = System.nanoTime() - start;
+                if (outer != null) {
+                    currentCall.set(outer);
+                    for (Object[] entry : call.slowestSql) {
+                        outer.add((String) entry[1], (Long) entry[0]);
+                    }
+                } else {
+                    currentCall.remove();
+                }
+                long rowCount = rowsOf(result);
+                methods.computeIfAbsent(method.getName(), Stats::new).record(nanos, rowCount, failed);
+                if (nanos >= SLOW_MILLIS * 1_000_000L) {
+                    SlowQueryLog.write("db." + method.getName(), nanos, rowCount, call.slowestSql);
+                }
+            }
+        }
+    }
+
+    /**
+     * Record one execution of a prepared statement
+     * @param rowCount rows changed, or -1 for queries
+     */
+    static void recordStatement(String sql, long nanos, long rowCount, boolean failed) {
+        Stats stats = statements.get(sql);
+        if (stats == null) {
+            String key = statements.size() < MAX_STATEMENTS ? sql : OTHER_STATEMENTS;
+            stats = statements.computeIfAbsent(key, Stats::new);
+        }
+        stats.record(nanos, rowCount, failed);
+
+        Call call = currentCall.get();
+        if (call != null) {
+            call.add(sql, nanos);
+        } else if (nanos >= SLOW_MILLIS * 1_000_000L) {
+            // Not inside an instrumented call, so nothing else will report it
+            SlowQueryLog.write("sql", nanos, rowCount, List.<Object[]>of(new Object[] { nanos, sql }));
+        }
+    }
+
+    /**
+     * Record one run of a named stage of a write pipeline, e.g. "sales_invoice.items"
+     * @param rowCount rows written by the stage, or -1
+     */
+    static void recordStage(String stage, long nanos, long rowCount) {
+        stages.computeIfAbsent(stage, Stats::new).record(nanos, rowCount, false);
+    }
+
+    private static long rowsOf(Object result) {
+        if (result instanceof Collection) {
+            return ((Collection<?>) result).size();
+        }
+        if (result instanceof Map) {
+            return ((Map<?, ?>) result).size();
+        }
+        if (result instanceof Object[]) {
+            return ((Object[]) result).length;
+        }
+        return -1;
+    }
+
+    static int bucketOf(long nanos) {
+        double millis = nanos / 1_000_000.0;
+        for (int i = 0; i < BUCKET_LIMITS_MILLIS.length; i++) {
+            if (millis <= BUCKET_LIMITS_MILLIS[i]) {
+                return i;
+            }
+        }
+        return BUCKET_LIMITS_MILLIS.length;
+    }
+
+    /**
+     * Clear every counter
+     */
+    public static void reset() {
+        methods.clear();
+        statements.clear();
+        stages.clear();
+    }
+
+    /**
+     * Text report of the db methods and SQL statements, most total time first
+     * @param limit rows to show in each section
+     */
+    public static String formatReport(int limit) {
+        StringBuilder sb = new StringBuilder();
+        sb.append("Slow query threshold: ").append(SLOW_MILLIS).append(" ms (log: ")
+          .append(SlowQueryLog.getPath()).append(")\n\n");
+        sb.append("Database calls\n");
+        appendSection(sb, methods.values(), limit, 40);
+        sb.append("\nSQL statements\n");
+        appendSection(sb, statements.values(), limit, 80);
+        if (!stages.isEmpty()) {
+            sb.append("\nPipeline stages\n");
+            appendSection(sb, stages.values(), limit, 40);
+        }
+        sb.append("\nHistogram buckets (ms): ");
+        for (long bound : BUCKET_LIMITS_MILLIS) {
+            sb.append("<=").append(bound).append(' ');
+        }
+        sb.append(">").append(BUCKET_LIMITS_MILLIS[BUCKET_LIMITS_MILLIS.length - 1]).append('\n');
+        return sb.toString();
+    }
+
+    private static void appendSection(StringBuilder sb, Collection<Stats> all, int limit, int nameWidth) {
+        List<Stats> sorted = new ArrayList<>(all);
+        sorted.sort(Comparator.comparingLong((Stats stats) -> stats.totalNanos.sum()).reversed());
+        if (sorted.isEmpty()) {
+            sb.append("  (no calls recorded)\n");
+            return;
+        }
+        sb.append(String.format("  %-" + nameWidth + "s %8s %6s %10s %9s %7s %7s %10s %9s  %s%n",
+            "Name", "Calls", "Errors", "Total ms", "Avg ms", "p50", "p95", "Max ms", "Rows", "Histogram"));
+        for (Stats stats : sorted.subList(0, Math.min(limit, sorted.size()))) {
+            long calls = stats.calls.sum();
+            double totalMillis = stats.totalNanos.sum() / 1_000_000.0;
+            StringBuilder histogram = new StringBuilder();
+            for (LongAdder bucket : stats.buckets) {
+                if (histogram.length() > 0) {
+                    histogram.append('/');
+                }
+                histogram.append(bucket.sum());
+            }
+            String name = stats.name.replaceAll("\\s+", " ").trim();
+            if (name.length() > nameWidth) {
+                name = name.substring(0, nameWidth - 3) + "...";
+            }
+            sb.append(String.format("  %-" + nameWidth + "s %8d %6d %10.1f %9.2f %7s %7s %10.1f %9d  %s%n",
+                name, calls, stats.errors.sum(), totalMillis, calls == 0 ? 0.0 : totalMillis / calls,
+                formatBound(stats.percentileMillis(0.50)), formatBound(stats.percentileMillis(0.95)),
+                stats.maxNanos.get() / 1_000_000.0, stats.rows.sum(), histogram));
+        }
+    }
+
+    private static String formatBound(long millis) {
+        return millis < 0 ? ">" + BUCKET_LIMITS_MILLIS[BUCKET_LIMITS_MILLIS.length - 1] : "<=" + millis;
+    }
+}
@@ -0,0 +1,81 @@
+package com.cablemanagement.database;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+import com.cablemanagement.model.ProductionStockRow;
+import com.cablemanagement.model.SalesBookRow;
+import com.cablemanagement.model.SalesInvoiceItemRow;
+
+/**
+ * Maps the current row of a ResultSet to a typed row record
+ */
+@FunctionalInterface
+interface RowMapper<T> {
+
+    T map(ResultSet rs) throws SQLException;
+
+    /**
+     * Execute a prepared query and hand each mapped row to the consumer as it is read
+     */
+    static <T> void forEach(PreparedStatement pstmt, RowMapper<T> mapper, Consumer<? super T> consumer) throws SQLException {
+        try (ResultSet rs = pstmt.executeQuery()) {
+            while (rs.next()) {
+                consumer.accept(mapper.map(rs));
+            }
+        }
+    }
+
+    static <T> List<T> list(PreparedStatement pstmt, RowMapper<T> mapper) throws SQLException {
+        List<T> rows = new ArrayList<>();
+        forEach(pstmt, mapper, rows::add);
+        return rows;
+    }
+
+    RowMapper<ProductionStockRow> PRODUCTION_STOCK = rs -> new ProductionStockRow(
+        rs.getInt("production_id"),
+        rs.getString("product_name"),
+        rs.getString("category_name"),
+        rs.getString("brand_name"),
+        rs.getString("manufacturer_name"),
+        rs.getString("unit_name") != null ? rs.getString("unit_name") : "N/A",
+        rs.getInt("quantity"),
+        rs.getDouble("unit_cost"),
+        rs.getDouble("sale_price"),
+        rs.getDouble("total_cost"),
+        rs.getString("production_date"));
+
+    RowMapper<SalesInvoiceItemRow> SALES_INVOICE_ITEM = rs -> new SalesInvoiceItemRow(
+        rs.getInt("production_stock_id"),
+        rs.getString("product_name"),
+        rs.getDouble("quantity"),
+        rs.getDouble("unit_price"),
+        rs.getDouble("discount_percentage"),
+        rs.getDouble("discount_amount"));
+
+    RowMapper<SalesBookRow> SALES_BOOK = rs -> new SalesBookRow(
+        rs.getInt("sales_book_id"),
+        rs.getInt("sales_invoice_id"),
+        rs.getString("sales_invoice_number"),
+        rs.getString("customer_name"),
+        rs.getString("sales_date"),
+        rs.getString("product_name"),
+        rs.getString("brand_name"),
+        rs.getString("manufacturer_name"),
+        rs.getDouble("quantity"),
+        rs.getDouble("unit_price"),
+        rs.getDouble("discount_percentage"),
+        rs.getDouble("discount_amount"),
+        rs.getDouble("item_total"),
+        rs.getDouble("total_amount"),
+        rs.getDouble("other_discount"),
+        rs.getDouble("paid_amount"),
+        rs.getDouble("net_invoice_amount"),
+        rs.getDouble("previous_balance"),
+        rs.getDouble("total_balance"),
+        rs.getDouble("net_balance"));
+}
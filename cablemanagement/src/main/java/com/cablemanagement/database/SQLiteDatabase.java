@@ -1,5 +1,6 @@
 package com.cablemanagement.database;
 
+import com.cablemanagement.Log;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
@@ -8,7 +9,6 @@ import java.nio.file.Path;
 import java.sql.Connection;
 import java.sql.DatabaseMetaData;
 import java.sql.Date;
-import java.sql.DriverManager;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.ResultSetMetaData;
@@ -19,17 +19,33 @@ import java.text.SimpleDateFormat;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.function.Consumer;
+import java.util.function.Function;
 
+import com.cablemanagement.model.AreaPartyTotals;
+import com.cablemanagement.model.ArchivedYear;
 import com.cablemanagement.model.Bank;
 import com.cablemanagement.model.BankTransaction;
 import com.cablemanagement.model.Brand;
 import com.cablemanagement.model.Customer;
+import com.cablemanagement.model.DatabaseBackup;
+import com.cablemanagement.model.FiscalYear;
+import com.cablemanagement.model.LedgerRow;
+import com.cablemanagement.model.ProductCatalogEntry;
 import com.cablemanagement.model.Manufacturer;
+import com.cablemanagement.model.ProductionStockRow;
+import com.cablemanagement.model.ProductionStockSummary;
 import com.cablemanagement.model.RawStockPurchaseItem;
 import com.cablemanagement.model.RawStockUseItem;
+import com.cablemanagement.model.SalesBookRow;
+import com.cablemanagement.model.SalesInvoiceItemRow;
+import com.cablemanagement.model.SearchResult;
+import com.cablemanagement.model.StatementCacheStats;
 import com.cablemanagement.model.Supplier;
 import java.nio.file.Path;
 
@@ -38,44 +54,55 @@ public class SQLiteDatabase implements db {
      * Generate auto-increment raw stock purchase invoice number
      */
     public String generateRawPurchaseInvoiceNumber() {
-        String query = "SELECT MAX(CAST(SUBSTR(invoice_number, 5) AS INTEGER)) as max_number " +
-                      "FROM Raw_Purchase_Invoice WHERE invoice_number LIKE 'RPI-%'";
-        try (Statement stmt = connection.createStatement();
-             ResultSet rs = stmt.executeQuery(query)) {
-            if (rs.next()) {
-                int maxNumber = rs.getInt("max_number");
-                if (rs.wasNull() || maxNumber < 1) {
-                    return "RPI-0001";
-                } else {
-                    return String.format("RPI-%04d", maxNumber + 1);
-                }
-            }
+        return nextInvoiceNumber(InvoiceSequence.RAW_PURCHASE);
+    }
+
+    /**
+     * Generate auto-increment raw stock return invoice number
+     */
+    public String generateRawReturnInvoiceNumber() {
+        return nextInvoiceNumber(InvoiceSequence.RAW_PURCHASE_RETURN);
+    }
+
+    /**
+     * Next number of a series from the invoice sequence table (see InvoiceSequence)
+     */
+    private String nextInvoiceNumber(InvoiceSequence.Sequence sequence) {
+        try {
+            return provider.getInvoiceSequence().peek(connection, sequence);
         } catch (SQLException e) {
             e.printStackTrace();
         }
-        return "RPI-0001";
+        return sequence.format(1);
     }
 
     /**
-     * Generate auto-increment raw stock return invoice number
+     * Number to save a new invoice under, taken from its sequence inside the caller's
+     * transaction (see InvoiceSequence.allocateFor())
      */
-    public String generateRawReturnInvoiceNumber() {
-        String query = "SELECT MAX(CAST(SUBSTR(return_invoice_number, 6) AS INTEGER)) as max_number " +
-                      "FROM Return_Purchase_Invoice WHERE return_invoice_number LIKE 'RPRI-%'";
-        try (Statement stmt = connection.createStatement();
-             ResultSet rs = stmt.executeQuery(query)) {
-            if (rs.next()) {
-                int maxNumber = rs.getInt("max_number");
-                if (rs.wasNull() || maxNumber < 1) {
-                    return "RPRI-0001";
-                } else {
-                    return String.format("RPRI-%04d", maxNumber + 1);
-                }
-            }
+    private String allocateInvoiceNumber(String requested, InvoiceSequence.Sequence... sequences) throws SQLException {
+        return provider.getInvoiceSequence().allocateFor(connection, requested, sequences);
+    }
+
+    @Override
+    public String getLastSavedInvoiceNumber() {
+        return savedInvoiceNumber.get();
+    }
+
+    private void rollbackQuietly() {
+        try {
+            connection.rollback();
+        } catch (SQLException rollbackEx) {
+            rollbackEx.printStackTrace();
+        }
+    }
+
+    private void restoreAutoCommit() {
+        try {
+            connection.setAutoCommit(true);
         } catch (SQLException e) {
             e.printStackTrace();
         }
-        return "RPRI-0001";
     }
 
     public SQLiteDatabase() {
@@ -89,17 +116,38 @@ public class SQLiteDatabase implements db {
             this.databasePath = "cable_management.db";
         }
 
+        // Only run schema.sql if the database file does not exist
+        File dbFile = new File(this.databasePath);
+        boolean newDatabase = !dbFile.exists();
+
         // Auto-connect when instantiated
+        this.provider = ConnectionProvider.forPath(this.databasePath);
         connect(null, null, null);
 
-        // Only run schema.sql if the database file does not exist
-        File dbFile = new File(this.databasePath);
-        if (!dbFile.exists()) {
-            runSchemaSql();
+        // Schema work runs once per database file, not once per instance
+        if (provider.markInitialized()) {
+            if (newDatabase) {
+                runSchemaSql();
+            }
+
+            // Initialize all required tables (legacy/manual)
+            initializeDatabase();
         }
+    }
+
+    private static SQLiteDatabase sharedInstance;
 
-        // Initialize all required tables (legacy/manual)
-        initializeDatabase();
+    /**
+     * Get the application-wide database instance. Pages should use this (or
+     * config.database, which is the same object) instead of constructing their own.
+     */
+    public static synchronized SQLiteDatabase getInstance() {
+        if (sharedInstance == null) {
+            sharedInstance = new SQLiteDatabase();
+            // Only the application's own database is backed up on a schedule
+            sharedInstance.provider.getBackups().startSchedule();
+        }
+        return sharedInstance;
     }
 
     /**
@@ -154,19 +202,29 @@ public class SQLiteDatabase implements db {
 
     public SQLiteDatabase(String databasePath) {
         this.databasePath = databasePath;
+        this.provider = ConnectionProvider.forPath(databasePath);
         // Auto-connect when instantiated
-        connect(databasePath, null, null);
+        connect(null, null, null);
         // Initialize all required tables
-        initializeDatabase();
+        if (provider.markInitialized()) {
+            initializeDatabase();
+        }
     }
 
     private Connection connection;
     private String databasePath;
+    private ConnectionProvider provider;
+    /** Number of the last invoice saved on each thread (see getLastSavedInvoiceNumber()) */
+    private final ThreadLocal<String> savedInvoiceNumber = new ThreadLocal<>();
 
     public Connection getConnection() {
         return this.connection;
     }
 
+    ConnectionProvider getProvider() {
+        return provider;
+    }
+
     
     public List<Object[]> getLastProductionReturnInvoice() {
         List<Object[]> result = new ArrayList<>();
@@ -178,8 +236,7 @@ public class SQLiteDatabase implements db {
         ResultSet rs = null;
         
         try {
-            String jdbcUrl = "jdbc:sqlite:cable_management.db";
-            connection = DriverManager.getConnection(jdbcUrl);
+            connection = provider.acquireReader();
             stmt = connection.prepareStatement(query);
             rs = stmt.executeQuery();
             
@@ -197,10 +254,10 @@ public class SQLiteDatabase implements db {
             try {
                 if (rs != null) rs.close();
                 if (stmt != null) stmt.close();
-                if (connection != null) connection.close();
             } catch (SQLException e) {
                 e.printStackTrace();
             }
+            provider.releaseReader(connection);
         }
         return result;
     }
@@ -219,8 +276,7 @@ public class SQLiteDatabase implements db {
         ResultSet rs = null;
         
         try {
-            String jdbcUrl = "jdbc:sqlite:cable_management.db";
-            connection = DriverManager.getConnection(jdbcUrl);
+            connection = provider.acquireReader();
             stmt = connection.prepareStatement(query);
             stmt.setString(1, returnInvoiceNumber);
             rs = stmt.executeQuery();
@@ -239,10 +295,10 @@ public class SQLiteDatabase implements db {
             try {
                 if (rs != null) rs.close();
                 if (stmt != null) stmt.close();
-                if (connection != null) connection.close();
             } catch (SQLException e) {
                 e.printStackTrace();
             }
+            provider.releaseReader(connection);
         }
         return items;
     }
@@ -414,24 +470,14 @@ public class SQLiteDatabase implements db {
     @Override
     public String connect(String url, String user, String password) {
         try {
-            String jdbcUrl = "jdbc:sqlite:" + (url != null ? url : databasePath);
-            connection = DriverManager.getConnection(jdbcUrl);
-            
-            try (Statement stmt = connection.createStatement()) {
-                // Enable foreign keys
-                stmt.execute("PRAGMA foreign_keys = ON");
-                
-                // Set timeout for busy connections (in milliseconds)
-                stmt.execute("PRAGMA busy_timeout = 30000");
-                
-                // Use WAL mode for better concurrency
-                stmt.execute("PRAGMA journal_mode = WAL");
-                
-                // Optimize for better performance
-                stmt.execute("PRAGMA synchronous = NORMAL");
-                stmt.execute("PRAGMA cache_size = 10000");
-                stmt.execute("PRAGMA temp_store = memory");
+            if (url != null && !url.equals(databasePath)) {
+                databasePath = url;
+                provider = ConnectionProvider.forPath(url);
             }
+            // The writer connection is shared by every instance on the same file; statements
+            // run inside ConnectionProvider.withReader() go to the bound reader instead
+            provider.getWriter();
+            connection = provider.getConnection();
             
             return "Connected to SQLite database successfully";
         } catch (SQLException e) {
@@ -442,13 +488,8 @@ public class SQLiteDatabase implements db {
 
     @Override
     public void disconnect() {
-        try {
-            if (connection != null && !connection.isClosed()) {
-                connection.close();
-            }
-        } catch (SQLException e) {
-            e.printStackTrace();
-        }
+        // Closes the shared writer and reader pool for this database file
+        provider.close();
     }
 
     @Override
@@ -486,7 +527,11 @@ public class SQLiteDatabase implements db {
     @Override
     public int executeUpdate(String query) {
         try (Statement stmt = connection.createStatement()) {
-            return stmt.executeUpdate(query);
+            int rows = stmt.executeUpdate(query);
+            // Raw SQL may touch any reference table or the product catalog
+            invalidateMasterData(MasterDataCache.Kind.values());
+            invalidateProductCatalog();
+            return rows;
         } catch (SQLException e) {
             e.printStackTrace();
             return -1;
@@ -800,69 +845,71 @@ public class SQLiteDatabase implements db {
     }
 
     private void initializeDatabase() {
-        System.out.println("DEBUG: Starting initializeDatabase() method");
+        Log.debug("Starting initializeDatabase() method");
         try (Statement stmt = connection.createStatement()) {
-            System.out.println("DEBUG: Database statement created successfully");
+            Log.debug("Database statement created successfully");
             // Enable foreign key constraints
             stmt.execute("PRAGMA foreign_keys = ON");
-            System.out.println("DEBUG: Foreign keys enabled");
+            Log.debug("Foreign keys enabled");
 
             // Check if database is already initialized by checking for main tables
             boolean databaseExists = false;
             boolean hasUserTable = false;
             try {
-                System.out.println("DEBUG: Checking for Customer table...");
+                Log.debug("Checking for Customer table...");
                 ResultSet rs = stmt.executeQuery("SELECT name FROM sqlite_master WHERE type='table' AND name='Customer' LIMIT 1");
                 if (rs.next()) {
                     databaseExists = true;
-                    System.out.println("DEBUG: Database already initialized with Customer table");
+                    Log.debug("Database already initialized with Customer table");
                 } else {
-                    System.out.println("DEBUG: Customer table not found");
+                    Log.debug("Customer table not found");
                 }
                 
                 // Check for User table specifically
-                System.out.println("DEBUG: Checking for User table...");
+                Log.debug("Checking for User table...");
                 rs = stmt.executeQuery("SELECT name FROM sqlite_master WHERE type='table' AND name='User' LIMIT 1");
                 if (rs.next()) {
                     hasUserTable = true;
-                    System.out.println("DEBUG: User table exists");
+                    Log.debug("User table exists");
                 } else {
-                    System.out.println("DEBUG: User table not found");
+                    Log.debug("User table not found");
                 }
             } catch (SQLException e) {
                 // Tables don't exist, continue with initialization
-                System.out.println("DEBUG: Database tables not found, will initialize from schema. Error: " + e.getMessage());
+                Log.debug("Database tables not found, will initialize from schema. Error: " + e.getMessage());
             }
 
-            System.out.println("DEBUG: databaseExists=" + databaseExists + ", hasUserTable=" + hasUserTable);
+            Log.debug("databaseExists=" + databaseExists + ", hasUserTable=" + hasUserTable);
             
             // If database already has core tables, skip schema initialization
             if (databaseExists && hasUserTable) {
-                System.out.println("DEBUG: Database is fully initialized, skipping schema import");
+                Log.debug("Database is fully initialized, skipping schema import");
                 // Still ensure User table exists for authentication
                 ensureUserTableExists();
                 // Initialize book tables
                 initializeBookTables();
-                System.out.println("DEBUG: Early return from initializeDatabase()");
+                // Bring indexes and derived tables up to date
+                applyStartupMigrations();
+                Log.debug("Early return from initializeDatabase()");
                 return;
             }
 
             // Only run schema if database is not initialized
-            System.out.println("DEBUG: Initializing database from schema...");
+            Log.debug("Initializing database from schema...");
 
             // Read SQL from file - first try the project root location
             String projectRoot = System.getProperty("user.dir");
             String schemaPath = projectRoot + "/schema.sql";
-            System.out.println("DEBUG: Trying schema path: " + schemaPath);
+            Log.debug("Trying schema path: " + schemaPath);
             
             // If not found in project root, try other common locations
             if (!new File(schemaPath).exists()) {
                 schemaPath = projectRoot + "/CableManagement/cablemanagement/schema.sql";
-                System.out.println("DEBUG: Trying schema path: " + schemaPath);
+                Log.debug("Trying schema path: " + schemaPath);
             }
             if (!new File(schemaPath).exists()) {
                 schemaPath = projectRoot + "/cablemanagement/schema.sql";
-                System.out.println("DEBUG: Trying schema path: " + schemaPath);
+                Log.debug("Trying schema path: " + schemaPath);
             }
             
             // Check if schema file exists before trying to read it
@@ -872,7 +919,7 @@ public class SQLiteDatabase implements db {
                 throw new IOException("Schema file not found: " + schemaPath);
             }
             
-            System.out.println("DEBUG: Reading schema from: " + schemaPath);
+            Log.debug("Reading schema from: " + schemaPath);
             String sql = readSqlFile(schemaPath);
 
             // Better approach: Parse SQL statements by looking for CREATE, INSERT, etc.
@@ -901,6 +948,8 @@ public class SQLiteDatabase implements db {
 
             // Initialize book tables instead of views
             initializeBookTables();
+            // Bring indexes and derived tables up to date
+            applyStartupMigrations();
 
         } catch (SQLException | IOException e) {
             System.err.println("Error initializing database: " + e.getMessage());
@@ -909,42 +958,311 @@ public class SQLiteDatabase implements db {
     }
 
 
+    /**
+     * Apply the versioned startup migrations this database has not got yet
+     */
+    private void applyStartupMigrations() {
+        try {
+            if (IndexMigration.apply(connection) && Log.isInfoEnabled()) {
+                for (Object[] row : IndexMigration.queryPlanReport(connection)) {
+                    Log.info("  [" + (Boolean.TRUE.equals(row[2]) ? "INDEX" : "SCAN ") + "] " + row[0] + ": " + row[1]);
+                }
+            }
+        } catch (SQLException e) {
+            System.err.println("Error applying index migration: " + e.getMessage());
+            e.printStackTrace();
+        }
+
+        try {
+            CustomerBalanceEngine.install(connection);
+        } catch (SQLException e) {
+            System.err.println("Error installing customer balance engine: " + e.getMessage());
+            e.printStackTrace();
+        }
+
+        try {
+            SearchIndex.install(connection);
+        } catch (SQLException e) {
+            System.err.println("Error installing search index: " + e.getMessage());
+            e.printStackTrace();
+        }
+
+        try {
+            InvoiceSequence.install(connection);
+        } catch (SQLException e) {
+            System.err.println("Error installing invoice sequences: " + e.getMessage());
+            e.printStackTrace();
+        }
+
+        try {
+            DailyRollup.install(connection);
+        } catch (SQLException e) {
+            System.err.println("Error installing daily rollups: " + e.getMessage());
+            e.printStackTrace();
+        }
+
+        try {
+            FiscalYearArchive.install(connection);
+        } catch (SQLException e) {
+            System.err.println("Error installing fiscal year archives: " + e.getMessage());
+            e.printStackTrace();
+        }
+    }
+
+    @Override
+    public List<Object[]> getQueryPlanReport() {
+        return IndexMigration.queryPlanReport(connection);
+    }
+
     @Override
-    public List<String> getAllTehsils() {
-        List<String> tehsils = new ArrayList<>();
-        String query = "SELECT tehsil_name FROM Tehsil ORDER BY tehsil_name";
-        
-        try (Statement stmt = connection.createStatement();
-             ResultSet rs = stmt.executeQuery(query)) {
-            
-            while (rs.next()) {
-                tehsils.add(rs.getString("tehsil_name"));
+    public List<SearchResult> globalSearch(String text, int limit) {
+        Connection reader = null;
+        try {
+            reader = provider.acquireReader();
+            return SearchIndex.search(reader, text, limit);
+        } catch (SQLException e) {
+            System.err.println("Error searching: " + e.getMessage());
+            e.printStackTrace();
+        } finally {
+            provider.releaseReader(reader);
+        }
+        return new ArrayList<>();
+    }
+
+    @Override
+    public int rebuildSearchIndex() {
+        try {
+            return SearchIndex.rebuild(connection);
+        } catch (SQLException e) {
+            System.err.println("Error rebuilding search index: " + e.getMessage());
+            e.printStackTrace();
+        }
+        return -1;
+    }
+
+    @Override
+    public int rebuildDailyRollups() {
+        try {
+            return DailyRollup.rebuild(connection);
+        } catch (SQLException e) {
+            System.err.println("Error rebuilding daily rollups: " + e.getMessage());
+            e.printStackTrace();
+        }
+        return -1;
+    }
+
+    @Override
+    public StatementCacheStats getStatementCacheStats() {
+        return provider.getStatementCacheStats();
+    }
+
+    @Override
+    public DatabaseBackup createBackup() {
+        try {
+            return provider.getBackups().create(BackupService.MANUAL);
+        } catch (SQLException e) {
+            System.err.println("Error backing up database: " + e.getMessage());
+            e.printStackTrace();
+        }
+        return null;
+    }
+
+    @Override
+    public List<DatabaseBackup> getBackups() {
+        return provider.getBackups().list();
+    }
+
+    @Override
+    public boolean restoreBackup(String path) {
+        // Other threads' writes wait until the data is replaced and migrated
+        return provider.exclusive(() -> {
+            try {
+                provider.getBackups().restore(connection, path);
+            } catch (SQLException e) {
+                System.err.println("Error restoring database: " + e.getMessage());
+                e.printStackTrace();
+                return false;
             }
+            // Everything held in memory describes the data that was just replaced
+            provider.getMasterData().invalidateAll();
+            provider.getProductCatalog().invalidate();
+            provider.getInvoiceSequence().reset();
+            provider.getArchives().changed();
+            // A snapshot from an older version may lack the later migrations
+            applyStartupMigrations();
+            return true;
+        });
+    }
+
+    @Override
+    public List<ArchivedYear> getArchivedYears() {
+        try {
+            return provider.getArchives().list(connection);
         } catch (SQLException e) {
+            System.err.println("Error listing archived fiscal years: " + e.getMessage());
             e.printStackTrace();
         }
-        return tehsils;
+        return new ArrayList<>();
+    }
+
+    @Override
+    public FiscalYear getNextFiscalYearToArchive() {
+        try {
+            return provider.getArchives().nextToArchive(connection);
+        } catch (SQLException e) {
+            System.err.println("Error finding the fiscal year to archive: " + e.getMessage());
+            e.printStackTrace();
+        }
+        return null;
+    }
+
+    @Override
+    public ArchivedYear archiveFiscalYear(int startYear) {
+        try {
+            provider.getBackups().create(BackupService.PRE_ARCHIVE);
+            return provider.getArchives().archive(connection, startYear);
+        } catch (SQLException e) {
+            System.err.println("Error archiving fiscal year: " + e.getMessage());
+            e.printStackTrace();
+        }
+        return null;
+    }
+
+    /**
+     * Connection for a report or book read whose date range starts at fromDate (null for
+     * no lower bound): the thread's history connection when the range reaches into an
+     * archived fiscal year (see FiscalYearArchive), otherwise the usual connection, which
+     * is the bound pooled reader inside ConnectionProvider.withReader()
+     */
+    private Connection reportConnection(String fromDate) throws SQLException {
+        Connection history = provider.historyReader(fromDate);
+        return history != null ? history : connection;
+    }
+
+    /**
+     * reportConnection() for the fromDate of a book filter map
+     */
+    private Connection bookConnection(Map<String, String> filters) throws SQLException {
+        return reportConnection(filters != null ? filters.get("fromDate") : null);
+    }
+
+    /**
+     * Cached copy of a reference table, loaded on first use
+     */
+    private MasterDataCache.Table masterData(MasterDataCache.Kind kind) throws SQLException {
+        return provider.getMasterData().get(connection, kind);
+    }
+
+    /**
+     * Drop the cached copies of reference tables that were just written. Inside a
+     * transaction they are dropped again when it ends, since a reader may reload the
+     * old rows before the commit and would otherwise keep them until the next write.
+     */
+    private void invalidateMasterData(MasterDataCache.Kind... kinds) {
+        provider.getMasterData().invalidate(kinds);
+        afterTransaction(() -> provider.getMasterData().invalidate(kinds));
+    }
+
+    private void afterTransaction(Runnable action) {
+        try {
+            provider.afterTransaction(action);
+        } catch (SQLException e) {
+            // Transaction state unknown; act now rather than risk never acting
+            action.run();
+        }
+    }
+
+    /**
+     * Cached production stock catalog index, loaded on first use
+     */
+    private ProductCatalog.Index productCatalog() throws SQLException {
+        return provider.getProductCatalog().get(connection);
+    }
+
+    @Override
+    public ProductCatalogEntry getProductCatalogEntry(int productionId) {
+        try {
+            return productCatalog().byId.get(productionId);
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        return null;
+    }
+
+    @Override
+    public ProductCatalogEntry findProductCatalogEntry(String productName) {
+        try {
+            return productCatalog().byName.get(productName);
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        return null;
+    }
+
+    @Override
+    public ProductCatalogEntry findProductCatalogEntry(String productName, String brandName) {
+        try {
+            return productCatalog().find(productName, brandName);
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        return null;
+    }
+
+    @Override
+    public void invalidateProductCatalog() {
+        provider.getProductCatalog().invalidate();
+        afterTransaction(() -> provider.getProductCatalog().invalidate());
+    }
+
+    @Override
+    public Map<Integer, String> getMasterDataNamesById(MasterDataCache.Kind kind) {
+        try {
+            return masterData(kind).nameById;
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        return new HashMap<>();
+    }
+
+    @Override
+    public Map<String, Integer> getMasterDataIdsByName(MasterDataCache.Kind kind) {
+        try {
+            return masterData(kind).idByName;
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        return new HashMap<>();
+    }
+
+    @Override
+    public List<String> searchMasterData(MasterDataCache.Kind kind, String prefix, int limit) {
+        try {
+            return masterData(kind).namesWithPrefix(prefix, limit);
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        return new ArrayList<>();
+    }
+
+    @Override
+    public List<String> getAllTehsils() {
+        try {
+            return new ArrayList<>(masterData(MasterDataCache.Kind.TEHSIL).names);
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        return new ArrayList<>();
     }
 
     @Override
     public List<String> getTehsilsByDistrict(String districtName) {
-        List<String> tehsils = new ArrayList<>();
-        String query = "SELECT t.tehsil_name FROM Tehsil t " +
-                      "JOIN District d ON t.district_id = d.district_id " +
-                      "WHERE d.district_name = ? ORDER BY t.tehsil_name";
-        
-        try (PreparedStatement pstmt = connection.prepareStatement(query)) {
-            pstmt.setString(1, districtName);
-            
-            try (ResultSet rs = pstmt.executeQuery()) {
-                while (rs.next()) {
-                    tehsils.add(rs.getString("tehsil_name"));
-                }
-            }
+        try {
+            return masterData(MasterDataCache.Kind.TEHSIL).namesUnder(masterData(MasterDataCache.Kind.DISTRICT), districtName);
         } catch (SQLException e) {
             e.printStackTrace();
         }
-        return tehsils;
+        return new ArrayList<>();
     }
 
     @Override
@@ -963,7 +1281,11 @@ public class SQLiteDatabase implements db {
                         insertStmt.setString(1, tehsilName);
                         insertStmt.setInt(2, districtId);
                         
-                        return insertStmt.executeUpdate() > 0;
+                        boolean inserted = insertStmt.executeUpdate() > 0;
+                        if (inserted) {
+                            invalidateMasterData(MasterDataCache.Kind.TEHSIL);
+                        }
+                        return inserted;
                     }
                 }
             }
@@ -992,40 +1314,22 @@ public class SQLiteDatabase implements db {
 
     @Override
     public List<String> getAllDistricts() {
-        List<String> districts = new ArrayList<>();
-        String query = "SELECT district_name FROM District ORDER BY district_name";
-        
-        try (Statement stmt = connection.createStatement();
-             ResultSet rs = stmt.executeQuery(query)) {
-            
-            while (rs.next()) {
-                districts.add(rs.getString("district_name"));
-            }
+        try {
+            return new ArrayList<>(masterData(MasterDataCache.Kind.DISTRICT).names);
         } catch (SQLException e) {
             e.printStackTrace();
         }
-        return districts;
+        return new ArrayList<>();
     }
 
     @Override
     public List<String> getDistrictsByProvince(String provinceName) {
-        List<String> districts = new ArrayList<>();
-        String query = "SELECT d.district_name FROM District d " +
-                      "JOIN Province p ON d.province_id = p.province_id " +
-                      "WHERE p.province_name = ? ORDER BY d.district_name";
-        
-        try (PreparedStatement pstmt = connection.prepareStatement(query)) {
-            pstmt.setString(1, provinceName);
-            
-            try (ResultSet rs = pstmt.executeQuery()) {
-                while (rs.next()) {
-                    districts.add(rs.getString("district_name"));
-                }
-            }
+        try {
+            return masterData(MasterDataCache.Kind.DISTRICT).namesUnder(masterData(MasterDataCache.Kind.PROVINCE), provinceName);
         } catch (SQLException e) {
             e.printStackTrace();
         }
-        return districts;
+        return new ArrayList<>();
     }
 
     @Override
@@ -1044,7 +1348,11 @@ public class SQLiteDatabase implements db {
                         insertStmt.setString(1, districtName);
                         insertStmt.setInt(2, provinceId);
                         
-                        return insertStmt.executeUpdate() > 0;
+                        boolean inserted = insertStmt.executeUpdate() > 0;
+                        if (inserted) {
+                            invalidateMasterData(MasterDataCache.Kind.DISTRICT);
+                        }
+                        return inserted;
                     }
                 }
             }
@@ -1056,19 +1364,12 @@ public class SQLiteDatabase implements db {
 
     @Override
     public List<String> getAllProvinces() {
-        List<String> provinces = new ArrayList<>();
-        String query = "SELECT province_name FROM Province ORDER BY province_name";
-        
-        try (Statement stmt = connection.createStatement();
-             ResultSet rs = stmt.executeQuery(query)) {
-            
-            while (rs.next()) {
-                provinces.add(rs.getString("province_name"));
-            }
+        try {
+            return new ArrayList<>(masterData(MasterDataCache.Kind.PROVINCE).names);
         } catch (SQLException e) {
             e.printStackTrace();
         }
-        return provinces;
+        return new ArrayList<>();
     }
 
     @Override
@@ -1076,7 +1377,11 @@ public class SQLiteDatabase implements db {
         String query = "INSERT INTO Province (province_name) VALUES (?)";
         try (PreparedStatement pstmt = connection.prepareStatement(query)) {
             pstmt.setString(1, provinceName);
-            return pstmt.executeUpdate() > 0;
+            boolean inserted = pstmt.executeUpdate() > 0;
+            if (inserted) {
+                invalidateMasterData(MasterDataCache.Kind.PROVINCE);
+            }
+            return inserted;
         } catch (SQLException e) {
             e.printStackTrace();
         }
@@ -1085,19 +1390,12 @@ public class SQLiteDatabase implements db {
 
     @Override
     public List<String> getAllCategories() {
-        List<String> categories = new ArrayList<>();
-        String query = "SELECT category_name FROM Category ORDER BY category_name";
-        
-        try (Statement stmt = connection.createStatement();
-             ResultSet rs = stmt.executeQuery(query)) {
-            
-            while (rs.next()) {
-                categories.add(rs.getString("category_name"));
-            }
+        try {
+            return new ArrayList<>(masterData(MasterDataCache.Kind.CATEGORY).names);
         } catch (SQLException e) {
             e.printStackTrace();
         }
-        return categories;
+        return new ArrayList<>();
     }
 
     @Override
@@ -1105,7 +1403,11 @@ public class SQLiteDatabase implements db {
         String query = "INSERT INTO Category (category_name) VALUES (?)";
         try (PreparedStatement pstmt = connection.prepareStatement(query)) {
             pstmt.setString(1, categoryName);
-            return pstmt.executeUpdate() > 0;
+            boolean inserted = pstmt.executeUpdate() > 0;
+            if (inserted) {
+                invalidateMasterData(MasterDataCache.Kind.CATEGORY);
+            }
+            return inserted;
         } catch (SQLException e) {
             e.printStackTrace();
         }
@@ -1120,14 +1422,10 @@ public class SQLiteDatabase implements db {
             return 1; // Default to first category
         }
         
-        String query = "SELECT category_id FROM Category WHERE category_name = ?";
-        try (PreparedStatement pstmt = connection.prepareStatement(query)) {
-            pstmt.setString(1, categoryName.trim());
-            
-            try (ResultSet rs = pstmt.executeQuery()) {
-                if (rs.next()) {
-                    return rs.getInt("category_id");
-                }
+        try {
+            Integer id = masterData(MasterDataCache.Kind.CATEGORY).idByName.get(categoryName.trim());
+            if (id != null) {
+                return id;
             }
         } catch (SQLException e) {
             e.printStackTrace();
@@ -1147,6 +1445,7 @@ public class SQLiteDatabase implements db {
             
             int rowsAffected = pstmt.executeUpdate();
             if (rowsAffected > 0) {
+                invalidateMasterData(MasterDataCache.Kind.CATEGORY);
                 try (ResultSet generatedKeys = pstmt.getGeneratedKeys()) {
                     if (generatedKeys.next()) {
                         return generatedKeys.getInt(1);
@@ -1168,14 +1467,10 @@ public class SQLiteDatabase implements db {
             return 1; // Default to first manufacturer
         }
         
-        String query = "SELECT manufacturer_id FROM Manufacturer WHERE manufacturer_name = ?";
-        try (PreparedStatement pstmt = connection.prepareStatement(query)) {
-            pstmt.setString(1, manufacturerName.trim());
-            
-            try (ResultSet rs = pstmt.executeQuery()) {
-                if (rs.next()) {
-                    return rs.getInt("manufacturer_id");
-                }
+        try {
+            Integer id = masterData(MasterDataCache.Kind.MANUFACTURER).idByName.get(manufacturerName.trim());
+            if (id != null) {
+                return id;
             }
         } catch (SQLException e) {
             e.printStackTrace();
@@ -1196,6 +1491,7 @@ public class SQLiteDatabase implements db {
             
             int rowsAffected = pstmt.executeUpdate();
             if (rowsAffected > 0) {
+                invalidateMasterData(MasterDataCache.Kind.MANUFACTURER);
                 try (ResultSet generatedKeys = pstmt.getGeneratedKeys()) {
                     if (generatedKeys.next()) {
                         return generatedKeys.getInt(1);
@@ -1212,23 +1508,14 @@ public class SQLiteDatabase implements db {
     @Override
     public List<Manufacturer> getAllManufacturers() {
         List<Manufacturer> manufacturers = new ArrayList<>();
-        String query = "SELECT m.manufacturer_name, t.tehsil_name, d.district_name, p.province_name " +
-                      "FROM Manufacturer m " +
-                      "JOIN Tehsil t ON m.tehsil_id = t.tehsil_id " +
-                      "JOIN District d ON t.district_id = d.district_id " +
-                      "JOIN Province p ON d.province_id = p.province_id " +
-                      "ORDER BY m.manufacturer_name";
-        
-        try (Statement stmt = connection.createStatement();
-             ResultSet rs = stmt.executeQuery(query)) {
-            
-            while (rs.next()) {
-                String name = rs.getString("manufacturer_name");
-                String province = rs.getString("province_name");
-                String district = rs.getString("district_name");
-                String tehsil = rs.getString("tehsil_name");
-                
-                manufacturers.add(new Manufacturer(name, province, district, tehsil));
+        try {
+            MasterDataCache.Table manufacturerTable = masterData(MasterDataCache.Kind.MANUFACTURER);
+            for (Map.Entry<Integer, String> entry : manufacturerTable.nameById.entrySet()) {
+                String[] location = resolveLocation(manufacturerTable.parentById.get(entry.getKey()));
+                // Same rows as the old inner join: skip manufacturers with a broken location chain
+                if (location != null) {
+                    manufacturers.add(new Manufacturer(entry.getValue(), location[0], location[1], location[2]));
+                }
             }
         } catch (SQLException e) {
             e.printStackTrace();
@@ -1257,7 +1544,11 @@ public class SQLiteDatabase implements db {
                         insertStmt.setString(1, name);
                         insertStmt.setInt(2, tehsilId);
                         
-                        return insertStmt.executeUpdate() > 0;
+                        boolean inserted = insertStmt.executeUpdate() > 0;
+                        if (inserted) {
+                            invalidateMasterData(MasterDataCache.Kind.MANUFACTURER);
+                        }
+                        return inserted;
                     }
                 }
             }
@@ -1287,30 +1578,48 @@ public class SQLiteDatabase implements db {
     @Override
     public List<Brand> getAllBrands() {
         List<Brand> brands = new ArrayList<>();
-        String query = "SELECT b.brand_name, t.tehsil_name, d.district_name, p.province_name " +
-                    "FROM Brand b " +
-                    "JOIN Manufacturer m ON b.manufacturer_id = m.manufacturer_id " +
-                    "JOIN Tehsil t ON m.tehsil_id = t.tehsil_id " +
-                    "JOIN District d ON t.district_id = d.district_id " +
-                    "JOIN Province p ON d.province_id = p.province_id " +
-                    "ORDER BY b.brand_name";
-        
-        try (Statement stmt = connection.createStatement();
-            ResultSet rs = stmt.executeQuery(query)) {
-            
-            while (rs.next()) {
-                String name = rs.getString("brand_name");
-                String province = rs.getString("province_name");
-                String district = rs.getString("district_name");
-                String tehsil = rs.getString("tehsil_name");
-                
-                brands.add(new Brand(name, province, district, tehsil));
+        try {
+            MasterDataCache.Table brandTable = masterData(MasterDataCache.Kind.BRAND);
+            MasterDataCache.Table manufacturerTable = masterData(MasterDataCache.Kind.MANUFACTURER);
+            for (Map.Entry<Integer, String> entry : brandTable.nameById.entrySet()) {
+                Integer manufacturerId = brandTable.parentById.get(entry.getKey());
+                if (manufacturerId == null || !manufacturerTable.nameById.containsKey(manufacturerId)) {
+                    continue;
+                }
+                String[] location = resolveLocation(manufacturerTable.parentById.get(manufacturerId));
+                if (location != null) {
+                    brands.add(new Brand(entry.getValue(), location[0], location[1], location[2]));
+                }
             }
         } catch (SQLException e) {
             e.printStackTrace();
         }
         return brands;
     }
+
+    /**
+     * Resolve a tehsil id to [province, district, tehsil] names from the master data cache
+     * @return null if the tehsil, its district or its province no longer exists
+     */
+    private String[] resolveLocation(Integer tehsilId) throws SQLException {
+        if (tehsilId == null) {
+            return null;
+        }
+        MasterDataCache.Table tehsils = masterData(MasterDataCache.Kind.TEHSIL);
+        MasterDataCache.Table districts = masterData(MasterDataCache.Kind.DISTRICT);
+        MasterDataCache.Table provinces = masterData(MasterDataCache.Kind.PROVINCE);
+
+        String tehsil = tehsils.nameById.get(tehsilId);
+        Integer districtId = tehsils.parentById.get(tehsilId);
+        String district = districtId != null ? districts.nameById.get(districtId) : null;
+        Integer provinceId = districtId != null ? districts.parentById.get(districtId) : null;
+        String province = provinceId != null ? provinces.nameById.get(provinceId) : null;
+
+        if (tehsil == null || district == null || province == null) {
+            return null;
+        }
+        return new String[] {province, district, tehsil};
+    }
         
     @Override
     public boolean insertBrand(String name, String province, String district, String tehsil) {
@@ -1377,6 +1686,8 @@ public class SQLiteDatabase implements db {
             e.printStackTrace();
             return false;
         } finally {
+            invalidateMasterData(MasterDataCache.Kind.PROVINCE, MasterDataCache.Kind.DISTRICT, MasterDataCache.Kind.TEHSIL,
+                                 MasterDataCache.Kind.MANUFACTURER, MasterDataCache.Kind.BRAND);
             try {
                 connection.setAutoCommit(true);
             } catch (SQLException e) {
@@ -1525,11 +1836,11 @@ public class SQLiteDatabase implements db {
                                                 
                                                 int transactionInserted = transactionStmt.executeUpdate();
                                                 if (transactionInserted > 0) {
-                                                    System.out.println("DEBUG: Opening balance transaction added for customer: " + name + " with balance: " + balance);
+                                                    Log.debug("Opening balance transaction added for customer: " + name + " with balance: " + balance);
                                                     connection.commit();
                                                     return true;
                                                 } else {
-                                                    System.out.println("DEBUG: Failed to add opening balance transaction");
+                                                    Log.debug("Failed to add opening balance transaction");
                                                     connection.rollback();
                                                     return false;
                                                 }
@@ -1706,11 +2017,11 @@ public class SQLiteDatabase implements db {
                                                 
                                                 int transactionInserted = transactionStmt.executeUpdate();
                                                 if (transactionInserted > 0) {
-                                                    System.out.println("DEBUG: Opening balance transaction added for supplier: " + name + " with balance: " + balance);
+                                                    Log.debug("Opening balance transaction added for supplier: " + name + " with balance: " + balance);
                                                     connection.commit();
                                                     return true;
                                                 } else {
-                                                    System.out.println("DEBUG: Failed to add opening balance transaction for supplier");
+                                                    Log.debug("Failed to add opening balance transaction for supplier");
                                                     connection.rollback();
                                                     return false;
                                                 }
@@ -1766,7 +2077,7 @@ public class SQLiteDatabase implements db {
     @Override
     public boolean updateCustomerBalance(String customerName, double amount) {
         // NO-OP: Using Customer_Transaction table only for balance tracking
-        System.out.println("DEBUG: updateCustomerBalance called but ignored (using Customer_Transaction only)");
+        Log.debug("updateCustomerBalance called but ignored (using Customer_Transaction only)");
         return true;
     }
 
@@ -1807,88 +2118,36 @@ public class SQLiteDatabase implements db {
 
     @Override
     public double getCustomerCurrentBalance(String customerName) {
-        // First try to calculate from transaction history
         int customerId = getCustomerIdByName(customerName);
         if (customerId == -1) {
             return 0.0;
         }
         
-        // Check if customer has any transactions
-        String countQuery = "SELECT COUNT(*) as count FROM Customer_Transaction WHERE customer_id = ?";
-        int transactionCount = 0;
-        try (PreparedStatement countStmt = connection.prepareStatement(countQuery)) {
-            countStmt.setInt(1, customerId);
-            try (ResultSet countRs = countStmt.executeQuery()) {
-                if (countRs.next()) {
-                    transactionCount = countRs.getInt("count");
-                }
-            }
+        // Materialized balance maintained by the Customer_Transaction triggers
+        try {
+            return CustomerBalanceEngine.getBalance(connection, customerId);
         } catch (SQLException e) {
             e.printStackTrace();
         }
-        
-        // If no transactions exist, fallback to stored balance in Customer table
-        if (transactionCount == 0) {
-            String balanceQuery = "SELECT balance FROM Customer WHERE customer_id = ?";
-            try (PreparedStatement balanceStmt = connection.prepareStatement(balanceQuery)) {
-                balanceStmt.setInt(1, customerId);
-                try (ResultSet balanceRs = balanceStmt.executeQuery()) {
-                    if (balanceRs.next()) {
-                        return balanceRs.getDouble("balance");
-                    }
-                }
-            } catch (SQLException e) {
-                e.printStackTrace();
-            }
-            return 0.0;
-        }
-        
-        // Calculate running balance from transactions
-        String query = "SELECT transaction_type, amount, reference_invoice_number " +
-                       "FROM Customer_Transaction WHERE customer_id = ? ORDER BY transaction_date ASC, transaction_id ASC";
-        double runningBalance = 0.0;
-        try (PreparedStatement pstmt = connection.prepareStatement(query)) {
-            pstmt.setInt(1, customerId);
-            try (ResultSet rs = pstmt.executeQuery()) {
-                while (rs.next()) {
-                    String transactionType = rs.getString("transaction_type");
-                    double amount = rs.getDouble("amount");
-                    String invoiceNumber = rs.getString("reference_invoice_number");
-                    double totalBillAmount = 0.0;
-                    double discountAmount = 0.0;
-                    double otherDiscountAmount = 0.0;
-                    double netAmount = 0.0;
-                    if ("invoice_charge".equals(transactionType)) {
-                        // Get invoice details
-                        String invoiceQuery = "SELECT (SELECT SUM(sii.quantity * sii.unit_price) FROM Sales_Invoice_Item sii WHERE sii.sales_invoice_id = si.sales_invoice_id) as invoice_total, si.discount_amount, si.other_discount FROM Sales_Invoice si WHERE si.sales_invoice_number = ?";
-                        try (PreparedStatement invStmt = connection.prepareStatement(invoiceQuery)) {
-                            invStmt.setString(1, invoiceNumber);
-                            try (ResultSet invRs = invStmt.executeQuery()) {
-                                if (invRs.next()) {
-                                    totalBillAmount = invRs.getDouble("invoice_total");
-                                    discountAmount = invRs.getDouble("discount_amount");
-                                    otherDiscountAmount = invRs.getDouble("other_discount");
-                                }
-                            }
-                        }
-                        netAmount = totalBillAmount - discountAmount - otherDiscountAmount;
-                        runningBalance += netAmount;
-                    } else if ("payment_received".equals(transactionType)) {
-                        runningBalance -= Math.abs(amount);
-                    } else if ("adjustment".equals(transactionType)) {
-                        // For sales returns, amount is negative and should reduce the balance
-                        // For other adjustments, amount can be positive or negative
-                        runningBalance += amount;
-                    } else if ("opening_balance".equals(transactionType)) {
-                        // Opening balance sets the initial balance
-                        runningBalance += amount;
-                    }
-                }
+        return 0.0;
+    }
+
+    @Override
+    public List<Object[]> reconcileCustomerBalances() {
+        try {
+            List<Object[]> drift = CustomerBalanceEngine.reconcile(connection);
+            if (drift.isEmpty()) {
+                Log.info("Customer balance reconciliation: no balances corrected");
+            } else {
+                // A corrected balance means a write got past the triggers
+                Log.warn("Customer balance reconciliation: " + drift.size() + " balances corrected");
             }
+            return drift;
         } catch (SQLException e) {
+            System.err.println("Error reconciling customer balances: " + e.getMessage());
             e.printStackTrace();
+            return null;
         }
-        return runningBalance;
     }
 
     @Override
@@ -1984,11 +2243,11 @@ public class SQLiteDatabase implements db {
             }
         }
         
-        System.out.println("DEBUG: Previous balance calculation for customer: " + customerName);
-        System.out.println("  Invoice number: " + excludeInvoiceNumber);
-        System.out.println("  Is return invoice: " + isReturnInvoice);
-        System.out.println("  Transaction type: " + transactionType);
-        System.out.println("  Calculated previous balance: " + previousBalance);
+        Log.debug("Previous balance calculation for customer: " + customerName);
+        Log.debug("  Invoice number: " + excludeInvoiceNumber);
+        Log.debug("  Is return invoice: " + isReturnInvoice);
+        Log.debug("  Transaction type: " + transactionType);
+        Log.debug("  Calculated previous balance: " + previousBalance);
         
         return previousBalance;
     }
@@ -2001,12 +2260,12 @@ public class SQLiteDatabase implements db {
      */
     @Override
     public double getSupplierPreviousBalance(String supplierName, String excludeInvoiceNumber) {
-        System.out.println("DEBUG: getSupplierPreviousBalance called for " + supplierName + " invoice " + excludeInvoiceNumber);
+        Log.debug("getSupplierPreviousBalance called for " + supplierName + " invoice " + excludeInvoiceNumber);
         
         // If no invoice number provided, return current balance
         if (excludeInvoiceNumber == null || excludeInvoiceNumber.trim().isEmpty()) {
             double currentBalance = getSupplierBalance(supplierName);
-            System.out.println("  No invoice number provided, returning current balance: " + currentBalance);
+            Log.debug("  No invoice number provided, returning current balance: " + currentBalance);
             return currentBalance;
         }
 
@@ -2014,7 +2273,7 @@ public class SQLiteDatabase implements db {
             // First get supplier ID
             int supplierId = getSupplierIdByName(supplierName);
             if (supplierId == -1) {
-                System.out.println("  Supplier not found, returning 0");
+                Log.debug("  Supplier not found, returning 0");
                 return 0.0;
             }
 
@@ -2032,13 +2291,13 @@ public class SQLiteDatabase implements db {
                 try (ResultSet rs = pstmt.executeQuery()) {
                     if (rs.next()) {
                         invoiceTransactionId = rs.getInt("transaction_id");
-                        System.out.println("  Found invoice transaction ID: " + invoiceTransactionId);
+                        Log.debug("  Found invoice transaction ID: " + invoiceTransactionId);
                     }
                 }
             }
             
             if (invoiceTransactionId == -1) {
-                System.out.println("  Invoice transaction not found, returning 0");
+                Log.debug("  Invoice transaction not found, returning 0");
                 return 0.0;
             }
             
@@ -2054,14 +2313,14 @@ public class SQLiteDatabase implements db {
                 try (ResultSet rs = pstmt.executeQuery()) {
                     if (rs.next()) {
                         double previousBalance = rs.getDouble("balance_after_transaction");
-                        System.out.println("  Found previous balance before invoice: " + previousBalance);
+                        Log.debug("  Found previous balance before invoice: " + previousBalance);
                         return previousBalance;
                     }
                 }
             }
             
             // If no previous transactions found, this was the first transaction, so previous balance is 0
-            System.out.println("  No previous transactions found, this was the first transaction, returning 0");
+            Log.debug("  No previous transactions found, this was the first transaction, returning 0");
             return 0.0;
             
         } catch (SQLException e) {
@@ -2104,13 +2363,13 @@ public class SQLiteDatabase implements db {
         // Net balance = total balance - payment
         double netBalance = totalBalance - currentInvoicePaid;
         
-        System.out.println("DEBUG: Balance details for " + customerName + " invoice " + invoiceNumber + ":");
-        System.out.println("  Previous Balance: " + previousBalance);
-        System.out.println("  Current Invoice Total (after item discounts): " + currentInvoiceTotal);
-        System.out.println("  Other Discount: " + otherDiscount);
-        System.out.println("  Current Invoice Paid: " + currentInvoicePaid);
-        System.out.println("  Total Balance (previous + invoice - other discount): " + totalBalance);
-        System.out.println("  Final Net Balance (after payment): " + netBalance);
+        Log.debug("Balance details for " + customerName + " invoice " + invoiceNumber + ":");
+        Log.debug("  Previous Balance: " + previousBalance);
+        Log.debug("  Current Invoice Total (after item discounts): " + currentInvoiceTotal);
+        Log.debug("  Other Discount: " + otherDiscount);
+        Log.debug("  Current Invoice Paid: " + currentInvoicePaid);
+        Log.debug("  Total Balance (previous + invoice - other discount): " + totalBalance);
+        Log.debug("  Final Net Balance (after payment): " + netBalance);
         
         return new Object[]{previousBalance, totalBalance, netBalance};
     }
@@ -2149,13 +2408,13 @@ public class SQLiteDatabase implements db {
         // Net balance = total balance - payment
         double netBalance = totalBalance - currentInvoicePaid;
         
-        System.out.println("DEBUG: Balance details for " + customerName + " invoice " + invoiceNumber + " (with pre-calculated previous balance):");
-        System.out.println("  Previous Balance: " + actualPreviousBalance);
-        System.out.println("  Current Invoice Total (after item discounts): " + currentInvoiceTotal);
-        System.out.println("  Other Discount: " + otherDiscount);
-        System.out.println("  Current Invoice Paid: " + currentInvoicePaid);
-        System.out.println("  Total Balance (previous + invoice - other discount): " + totalBalance);
-        System.out.println("  Final Net Balance (after payment): " + netBalance);
+        Log.debug("Balance details for " + customerName + " invoice " + invoiceNumber + " (with pre-calculated previous balance):");
+        Log.debug("  Previous Balance: " + actualPreviousBalance);
+        Log.debug("  Current Invoice Total (after item discounts): " + currentInvoiceTotal);
+        Log.debug("  Other Discount: " + otherDiscount);
+        Log.debug("  Current Invoice Paid: " + currentInvoicePaid);
+        Log.debug("  Total Balance (previous + invoice - other discount): " + totalBalance);
+        Log.debug("  Final Net Balance (after payment): " + netBalance);
         
         return new Object[]{actualPreviousBalance, totalBalance, netBalance};
     }
@@ -2171,23 +2430,23 @@ public class SQLiteDatabase implements db {
     @Override
     public Object[] getSupplierInvoiceBalanceDetails(String supplierName, String invoiceNumber,
                                                    double currentInvoiceTotal, double currentInvoicePaid) {
-        System.out.println("DEBUG: getSupplierInvoiceBalanceDetails for " + supplierName + " invoice " + invoiceNumber);
-        System.out.println("  Input currentInvoiceTotal: " + currentInvoiceTotal);
-        System.out.println("  Input currentInvoicePaid: " + currentInvoicePaid);
+        Log.debug("getSupplierInvoiceBalanceDetails for " + supplierName + " invoice " + invoiceNumber);
+        Log.debug("  Input currentInvoiceTotal: " + currentInvoiceTotal);
+        Log.debug("  Input currentInvoicePaid: " + currentInvoicePaid);
 
         // Get the total balance before this invoice
         double previousBalance = getSupplierPreviousBalance(supplierName, invoiceNumber);
-        System.out.println("  Previous balance before invoice: " + previousBalance);
+        Log.debug("  Previous balance before invoice: " + previousBalance);
 
         // Calculate the total balance by adding the full invoice amount 
         double totalBalance = previousBalance + currentInvoiceTotal;
-        System.out.println("  Total balance (previous + invoice): " + totalBalance);
+        Log.debug("  Total balance (previous + invoice): " + totalBalance);
 
         // Calculate remaining balance after payment
         double netBalance = totalBalance - currentInvoicePaid;
-        System.out.println("  Net balance (after payment): " + netBalance);
+        Log.debug("  Net balance (after payment): " + netBalance);
 
-        System.out.println("  Returning: [" + previousBalance + ", " + totalBalance + ", " + netBalance + "]");
+        Log.debug("  Returning: [" + previousBalance + ", " + totalBalance + ", " + netBalance + "]");
         return new Object[]{previousBalance, totalBalance, netBalance};
     }
 
@@ -2451,7 +2710,7 @@ public class SQLiteDatabase implements db {
                         updateStmt.setInt(2, customerId);
                         updateStmt.executeUpdate();
                         
-                        System.out.println("DEBUG: Customer balance reduced by payment: " + paymentAmount);
+                        Log.debug("Customer balance reduced by payment: " + paymentAmount);
                         connection.commit();
                         return true;
                     }
@@ -2529,7 +2788,7 @@ public class SQLiteDatabase implements db {
                         updateStmt.setInt(2, customerId);
                         updateStmt.executeUpdate();
                         
-                        System.out.println("DEBUG: Customer balance adjusted by: " + adjustmentAmount);
+                        Log.debug("Customer balance adjusted by: " + adjustmentAmount);
                         connection.commit();
                         return true;
                     }
@@ -2602,119 +2861,49 @@ public class SQLiteDatabase implements db {
     
     @Override
     public List<Object[]> getCustomerLedger(int customerId) {
-        List<Object[]> ledger = new ArrayList<>();
-        String query = "WITH InvoiceDetails AS (" +
-                      "  SELECT si.sales_invoice_number, " +
-                      "         (SELECT SUM(sii.quantity * sii.unit_price) FROM Sales_Invoice_Item sii WHERE sii.sales_invoice_id = si.sales_invoice_id) as invoice_total, " +
-                      "         si.discount_amount as invoice_discount, " +
-                      "         si.other_discount, " +
-                      "         si.paid_amount " +
-                      "  FROM Sales_Invoice si" +
-                      "), " +
-                      "TransactionDetails AS (" +
-                      "  SELECT ct.transaction_date, " +
-                      "         ct.transaction_type, " +
-                      "         ct.amount, " +
-                      "         ct.description, " +
-                      "         ct.reference_invoice_number, " +
-                      "         ct.created_at, " +
-                      "         id.invoice_total, " +
-                      "         id.invoice_discount, " +
-                      "         id.other_discount, " +
-                      "         id.paid_amount " +
-                      "  FROM Customer_Transaction ct " +
-                      "  LEFT JOIN InvoiceDetails id ON ct.reference_invoice_number = id.sales_invoice_number " +
-                      "  WHERE ct.customer_id = ? " +
-                      "  ORDER BY ct.transaction_date ASC, ct.transaction_id ASC" +
-                      ") " +
-                      "SELECT * FROM TransactionDetails";
-
-        try (PreparedStatement pstmt = connection.prepareStatement(query)) {
-            pstmt.setInt(1, customerId);
-            try (ResultSet rs = pstmt.executeQuery()) {
-                int serialNumber = 1;
-                double runningBalance = 0.0;
-                while (rs.next()) {
-                    String transactionDate = rs.getString("transaction_date");
-                    String transactionType = rs.getString("transaction_type");
-                    double amount = rs.getDouble("amount");
-                    String description = rs.getString("description");
-                    String referenceInvoice = rs.getString("reference_invoice_number");
-                    // If it's a return invoice, add item details to description
-                    if (transactionType.equals("adjustment") && referenceInvoice != null && referenceInvoice.startsWith("SRI")) {
-                        // Get return invoice id
-                        int returnInvoiceId = getSalesReturnInvoiceIdByNumber(referenceInvoice);
-                        if (returnInvoiceId != -1) {
-                            List<Object[]> items = getSalesReturnInvoiceItemsByInvoiceId(returnInvoiceId);
-                            StringBuilder descBuilder = new StringBuilder();
-                            descBuilder.append(description != null ? description : "");
-                            for (Object[] item : items) {
-                                descBuilder.append(String.format("\n• %s | Qty: %.2f | Unit Price: %.2f", item[1], item[2], item[3]));
-                            }
-                            description = descBuilder.toString();
-                        }
-                    }
-                    String createdAt = rs.getString("created_at");
-                    double invoiceTotal = rs.getDouble("invoice_total");
-                    double invoiceDiscount = rs.getDouble("invoice_discount"); 
-                    double otherDiscount = rs.getDouble("other_discount");
-                    // Extract time from created_at (format: YYYY-MM-DD HH:MM:SS)
-                    String time = "";
-                    if (createdAt != null && createdAt.length() > 10) {
-                        time = createdAt.substring(11); // Extract time part
-                    }
-                    // Categorize amounts based on transaction type
-                    double totalBillAmount = 0.0;
-                    double discountAmount = 0.0;
-                    double netAmount = 0.0;
-                    double paymentAmount = 0.0;
-                    double returnAmount = 0.0;
-                    double otherDiscountAmount = 0.0;
-                    if (transactionType.equals("invoice_charge")) {
-                        totalBillAmount = invoiceTotal;
-                        discountAmount = invoiceDiscount;
-                        otherDiscountAmount = otherDiscount;
-                        netAmount = totalBillAmount - discountAmount - otherDiscountAmount;
-                        runningBalance += netAmount;
-                    } else if (transactionType.equals("payment_received")) {
-                        paymentAmount = Math.abs(amount);
-                        runningBalance -= paymentAmount;
-                    } else if (transactionType.equals("adjustment")) {
-                        if (amount < 0) {
-                            // Negative adjustment (like returns)
-                            returnAmount = Math.abs(amount);
-                            runningBalance -= returnAmount;
-                        } else {
-                            // Positive adjustment (like balance increases)
-                            netAmount = amount;
-                            runningBalance += amount;
-                        }
-                    } else if (transactionType.equals("opening_balance")) {
-                        // Opening balance - display as net amount
-                        netAmount = amount;
-                        runningBalance += amount;
-                    }
-                    Object[] transaction = {
-                        serialNumber++,
-                        transactionDate,
-                        time,
-                        description,
-                        referenceInvoice != null ? referenceInvoice : "",
-                        totalBillAmount,
-                        discountAmount,
-                        otherDiscountAmount,
-                        netAmount,
-                        paymentAmount,
-                        returnAmount,
-                        runningBalance
-                    };
-                    ledger.add(transaction);
-                }
-            }
+        return getCustomerLedgerPage(customerId, null, -1);
+    }
+    
+    @Override
+    public List<Object[]> getCustomerLedgerPage(int customerId, Object[] afterRow, int limit) {
+        Connection reader = null;
+        try {
+            reader = provider.acquireReader();
+            return CustomerLedgerEngine.getPage(reader, customerId, afterRow, limit);
         } catch (SQLException e) {
             e.printStackTrace();
+        } finally {
+            provider.releaseReader(reader);
         }
-        return ledger;
+        return new ArrayList<>();
+    }
+    
+    @Override
+    public List<LedgerRow> getCustomerLedgerRows(int customerId, LedgerRow afterRow, int limit) {
+        Connection reader = null;
+        try {
+            reader = provider.acquireReader();
+            return CustomerLedgerEngine.getRows(reader, customerId, afterRow, limit);
+        } catch (SQLException e) {
+            e.printStackTrace();
+        } finally {
+            provider.releaseReader(reader);
+        }
+        return new ArrayList<>();
+    }
+    
+    @Override
+    public Object[] getCustomerLedgerSummary(int customerId) {
+        Connection reader = null;
+        try {
+            reader = provider.acquireReader();
+            return CustomerLedgerEngine.getSummary(reader, customerId);
+        } catch (SQLException e) {
+            e.printStackTrace();
+        } finally {
+            provider.releaseReader(reader);
+        }
+        return new Object[]{0.0, 0.0, 0.0, 0.0, 0.0};
     }
     
     @Override
@@ -2733,7 +2922,7 @@ public class SQLiteDatabase implements db {
                       "LEFT JOIN Sales_Invoice si ON ct.reference_invoice_number = si.sales_invoice_number " +
                       "WHERE ct.customer_id = ? AND ct.transaction_date BETWEEN ? AND ? " +
                       "ORDER BY ct.transaction_id ASC";
-        try (PreparedStatement pstmt = connection.prepareStatement(query)) {
+        try (PreparedStatement pstmt = reportConnection(startDate).prepareStatement(query)) {
             pstmt.setInt(1, customerId);
             pstmt.setString(2, startDate);
             pstmt.setString(3, endDate);
@@ -2777,6 +2966,10 @@ public class SQLiteDatabase implements db {
                             // Positive adjustment (balance increase)
                             runningBalance += amount;
                         }
+                    } else if (transactionType.equals("opening_balance")) {
+                        // Includes the balances carried forward when a fiscal year is archived
+                        netAmount = amount;
+                        runningBalance += amount;
                     }
                     Object[] transaction = {
                         serialNumber++,
@@ -2835,19 +3028,12 @@ public class SQLiteDatabase implements db {
 
     @Override
     public List<String> getAllUnits() {
-        List<String> units = new ArrayList<>();
-        String query = "SELECT unit_name FROM Unit ORDER BY unit_name";
-        
-        try (Statement stmt = connection.createStatement();
-             ResultSet rs = stmt.executeQuery(query)) {
-            
-            while (rs.next()) {
-                units.add(rs.getString("unit_name"));
-            }
+        try {
+            return new ArrayList<>(masterData(MasterDataCache.Kind.UNIT).names);
         } catch (SQLException e) {
             e.printStackTrace();
         }
-        return units;
+        return new ArrayList<>();
     }
 
     /**
@@ -2858,14 +3044,10 @@ public class SQLiteDatabase implements db {
             return 1; // Default to first unit (Piece)
         }
         
-        String query = "SELECT unit_id FROM Unit WHERE unit_name = ?";
-        try (PreparedStatement pstmt = connection.prepareStatement(query)) {
-            pstmt.setString(1, unitName.trim());
-            
-            try (ResultSet rs = pstmt.executeQuery()) {
-                if (rs.next()) {
-                    return rs.getInt("unit_id");
-                }
+        try {
+            Integer id = masterData(MasterDataCache.Kind.UNIT).idByName.get(unitName.trim());
+            if (id != null) {
+                return id;
             }
         } catch (SQLException e) {
             e.printStackTrace();
@@ -2885,6 +3067,7 @@ public class SQLiteDatabase implements db {
             int rowsAffected = pstmt.executeUpdate();
             
             if (rowsAffected > 0) {
+                invalidateMasterData(MasterDataCache.Kind.UNIT);
                 try (ResultSet generatedKeys = pstmt.getGeneratedKeys()) {
                     if (generatedKeys.next()) {
                         int unitId = generatedKeys.getInt(1);
@@ -2904,14 +3087,10 @@ public class SQLiteDatabase implements db {
      * Get unit name by unit_id
      */
     public String getUnitNameById(int unitId) {
-        String query = "SELECT unit_name FROM Unit WHERE unit_id = ?";
-        try (PreparedStatement pstmt = connection.prepareStatement(query)) {
-            pstmt.setInt(1, unitId);
-            
-            try (ResultSet rs = pstmt.executeQuery()) {
-                if (rs.next()) {
-                    return rs.getString("unit_name");
-                }
+        try {
+            String unitName = masterData(MasterDataCache.Kind.UNIT).nameById.get(unitId);
+            if (unitName != null) {
+                return unitName;
             }
         } catch (SQLException e) {
             e.printStackTrace();
@@ -2925,7 +3104,11 @@ public class SQLiteDatabase implements db {
         String query = "INSERT INTO Unit (unit_name) VALUES (?)";
         try (PreparedStatement pstmt = connection.prepareStatement(query)) {
             pstmt.setString(1, unitName);
-            return pstmt.executeUpdate() > 0;
+            boolean inserted = pstmt.executeUpdate() > 0;
+            if (inserted) {
+                invalidateMasterData(MasterDataCache.Kind.UNIT);
+            }
+            return inserted;
         } catch (SQLException e) {
             e.printStackTrace();
         }
@@ -3082,19 +3265,19 @@ public class SQLiteDatabase implements db {
             return false;
         }
         
-        System.out.println("DEBUG addUserRights: username=" + username + ", rights=" + rights + ", grantedBy=" + grantedBy);
+        Log.debug("addUserRights: username=" + username + ", rights=" + rights + ", grantedBy=" + grantedBy);
         
         String query = "INSERT OR IGNORE INTO User_Rights (username, page_name, granted_by) VALUES (?, ?, ?)";
         try (PreparedStatement pstmt = connection.prepareStatement(query)) {
             for (String right : rights) {
-                System.out.println("DEBUG: Adding right '" + right + "' for user '" + username + "'");
+                Log.debug("Adding right '" + right + "' for user '" + username + "'");
                 pstmt.setString(1, username);
                 pstmt.setString(2, right);
                 pstmt.setString(3, grantedBy);
                 pstmt.addBatch();
             }
             int[] results = pstmt.executeBatch();
-            System.out.println("DEBUG: Batch execution results: " + java.util.Arrays.toString(results));
+            Log.debug("Batch execution results: " + java.util.Arrays.toString(results));
             return results.length > 0;
         } catch (SQLException e) {
             System.err.println("ERROR in addUserRights: " + e.getMessage());
@@ -3288,7 +3471,7 @@ public class SQLiteDatabase implements db {
                 balanceStmt.setInt(2, supplierId);
                 balanceStmt.executeUpdate();
                 
-                System.out.println("DEBUG: Supplier balance reduced by payment amount: " + paymentAmount);
+                Log.debug("Supplier balance reduced by payment amount: " + paymentAmount);
             }
             
             // Insert payment transaction for record keeping
@@ -3627,7 +3810,7 @@ public class SQLiteDatabase implements db {
             pstmt.setInt(7, 1); // Use supplier_id = 1 (matches 'rewf')
             pstmt.setString(8, brand);
             
-            System.out.println("Attempting to insert Raw_Stock: item_name=" + name + ", category=" + category + 
+            Log.debug("Attempting to insert Raw_Stock: item_name=" + name + ", category=" + category + 
                             " (category_id=" + categoryId + "), brand=" + brand + 
                             ", unit=" + unit + " (unit_id=" + unitId + "), quantity=" + quantity + 
                             ", unit_price=" + purchasePrice + ", supplier_id=1");
@@ -3641,7 +3824,7 @@ public class SQLiteDatabase implements db {
             try (ResultSet generatedKeys = pstmt.getGeneratedKeys()) {
                 if (generatedKeys.next()) {
                     int stockId = generatedKeys.getInt(1);
-                    System.out.println("Successfully inserted Raw_Stock with stock_id: " + stockId);
+                    Log.debug("Successfully inserted Raw_Stock with stock_id: " + stockId);
                     return true;
                 } else {
                     System.err.println("No generated key returned for Raw_Stock: " + name);
@@ -3685,7 +3868,7 @@ public class SQLiteDatabase implements db {
             pstmt.setInt(6, id);
             pstmt.setString(7, brand);
             
-            System.out.println("Attempting to update Raw_Stock with stock_id=" + id + 
+            Log.debug("Attempting to update Raw_Stock with stock_id=" + id + 
                                ": name=" + name + ", brand=" + brand + ", unit_id=" + unitId + 
                                ", quantity=" + quantity + ", unit_price=" + unitPrice);
             
@@ -3695,7 +3878,7 @@ public class SQLiteDatabase implements db {
                 return false;
             }
             
-            System.out.println("Successfully updated Raw_Stock with stock_id: " + id);
+            Log.debug("Successfully updated Raw_Stock with stock_id: " + id);
             return true;
         } catch (SQLException e) {
             System.err.println("Error updating Raw_Stock for stock_id " + id + ": " + e.getMessage());
@@ -3756,24 +3939,13 @@ public class SQLiteDatabase implements db {
     // New methods for enhanced invoice functionality
     @Override
     public String generateNextInvoiceNumber(String prefix) {
-        String query = "SELECT MAX(CAST(SUBSTR(invoice_number, LENGTH(?) + 1) AS INTEGER)) " +
-                      "FROM Raw_Purchase_Invoice WHERE invoice_number LIKE ?";
-        
-        try (PreparedStatement pstmt = connection.prepareStatement(query)) {
-            pstmt.setString(1, prefix);
-            pstmt.setString(2, prefix + "%");
-            
-            try (ResultSet rs = pstmt.executeQuery()) {
-                if (rs.next()) {
-                    int maxNumber = rs.getInt(1);
-                    return prefix + String.format("%06d", maxNumber + 1);
-                }
-            }
+        try {
+            return provider.getInvoiceSequence().peek(connection, InvoiceSequence.rawPurchase(prefix));
         } catch (SQLException e) {
             e.printStackTrace();
         }
         
-        // If no invoices found or error, start with 000001
+        // If the sequence could not be read, start with 000001
         return prefix + "000001";
     }
     
@@ -3874,10 +4046,10 @@ public class SQLiteDatabase implements db {
             ResultSet rs = pstmt.executeQuery();
             if (rs.next()) {
                 int stockId = rs.getInt("stock_id");
-                System.out.println("Found stock_id: " + stockId + " for item_name: " + itemName);
+                Log.debug("Found stock_id: " + stockId + " for item_name: " + itemName);
                 return stockId;
             } else {
-                System.out.println("No stock_id found for item_name: " + itemName);
+                Log.debug("No stock_id found for item_name: " + itemName);
                 return -1;
             }
         } catch (SQLException e) {
@@ -3908,7 +4080,8 @@ public class SQLiteDatabase implements db {
             pstmt.setString(1, brandName);
             pstmt.setInt(2, 1); // Assume manufacturer_id = 1 exists; adjust as needed
             int rowsAffected = pstmt.executeUpdate();
-            System.out.println("Inserted Default Brand: " + brandName);
+            invalidateMasterData(MasterDataCache.Kind.BRAND);
+            Log.debug("Inserted Default Brand: " + brandName);
             return rowsAffected > 0;
         } catch (SQLException e) {
             System.err.println("Failed to insert brand " + brandName + ": " + e.getMessage());
@@ -3929,10 +4102,10 @@ public class SQLiteDatabase implements db {
                 connection.rollback();
                 return false;
             }
-            System.out.println("Items list size: " + items.size());
+            Log.debug("Items list size: " + items.size());
             for (int i = 0; i < items.size(); i++) {
                 RawStockPurchaseItem item = items.get(i);
-                System.out.println("Item " + (i + 1) + ": name=" + (item != null ? item.getRawStockName() : "null") + 
+                Log.debug("Item " + (i + 1) + ": name=" + (item != null ? item.getRawStockName() : "null") + 
                                 ", quantity=" + (item != null ? item.getQuantity() : "null") + 
                                 ", unit_price=" + (item != null ? item.getUnitPrice() : "null"));
             }
@@ -3944,7 +4117,7 @@ public class SQLiteDatabase implements db {
                 connection.rollback();
                 return false;
             }
-            System.out.println("Found supplier_id: " + supplierId + " for supplier: " + supplierName);
+            Log.debug("Found supplier_id: " + supplierId + " for supplier: " + supplierName);
 
             // 3. Get a valid tehsil_id and name
             int tehsilId = -1;
@@ -3955,7 +4128,7 @@ public class SQLiteDatabase implements db {
                 if (rs.next()) {
                     tehsilId = rs.getInt("tehsil_id");
                     tehsilName = rs.getString("tehsil_name");
-                    System.out.println("Found tehsil_id: " + tehsilId + ", tehsil_name: " + tehsilName);
+                    Log.debug("Found tehsil_id: " + tehsilId + ", tehsil_name: " + tehsilName);
                 } else {
                     System.err.println("No tehsil found in Tehsil table");
                     connection.rollback();
@@ -3970,7 +4143,8 @@ public class SQLiteDatabase implements db {
                 return false;
             }
 
-            // 5. Insert into Raw_Purchase_Invoice
+            // 5. Insert into Raw_Purchase_Invoice, under a number taken inside this transaction
+            invoiceNumber = allocateInvoiceNumber(invoiceNumber, InvoiceSequence.RAW_PURCHASE_FORM, InvoiceSequence.RAW_PURCHASE);
             String insertInvoiceQuery = "INSERT INTO Raw_Purchase_Invoice (invoice_number, supplier_id, invoice_date, total_amount, discount_amount, paid_amount) " +
                                     "VALUES (?, ?, ?, ?, ?, ?)";
             int rawPurchaseInvoiceId;
@@ -3982,7 +4156,7 @@ public class SQLiteDatabase implements db {
                 pstmt.setDouble(5, discountAmount);
                 pstmt.setDouble(6, paidAmount);
 
-                System.out.println("Inserting Raw_Purchase_Invoice: invoiceNumber=" + invoiceNumber + ", supplierId=" + supplierId +
+                Log.debug("Inserting Raw_Purchase_Invoice: invoiceNumber=" + invoiceNumber + ", supplierId=" + supplierId +
                                 ", invoiceDate=" + invoiceDate + ", totalAmount=" + totalAmount +
                                 ", discountAmount=" + discountAmount + ", paidAmount=" + paidAmount);
 
@@ -3996,7 +4170,7 @@ public class SQLiteDatabase implements db {
                 try (ResultSet generatedKeys = pstmt.getGeneratedKeys()) {
                     if (generatedKeys.next()) {
                         rawPurchaseInvoiceId = generatedKeys.getInt(1);
-                        System.out.println("Inserted Raw_Purchase_Invoice with ID: " + rawPurchaseInvoiceId);
+                        Log.debug("Inserted Raw_Purchase_Invoice with ID: " + rawPurchaseInvoiceId);
                     } else {
                         System.err.println("Failed to retrieve generated invoice ID");
                         connection.rollback();
@@ -4009,9 +4183,9 @@ public class SQLiteDatabase implements db {
             String insertItemQuery = "INSERT INTO Raw_Purchase_Invoice_Item (raw_purchase_invoice_id, raw_stock_id, quantity, unit_price) " +
                         "VALUES (?, ?, ?, ?)";
             // Print all items that are going to be inserted
-            System.out.println("Items to be inserted into Raw_Purchase_Invoice_Item:");
+            Log.debug("Items to be inserted into Raw_Purchase_Invoice_Item:");
             for (RawStockPurchaseItem item : items) {
-                System.out.println("Raw Purchase Invoice ID: " + rawPurchaseInvoiceId +
+                Log.debug("Raw Purchase Invoice ID: " + rawPurchaseInvoiceId +
                 ", Raw Stock ID: " + (item != null ? item.getRawStockId() : "null") +
                 ", Quantity: " + (item != null ? item.getQuantity() : "null") +
                 ", Unit Price: " + (item != null ? item.getUnitPrice() : "null"));
@@ -4028,11 +4202,11 @@ public class SQLiteDatabase implements db {
                             connection.rollback();
                             return false;
                         }
-                        System.out.println("Processing item: " + item.getRawStockName() + ", quantity=" + item.getQuantity() + 
+                        Log.debug("Processing item: " + item.getRawStockName() + ", quantity=" + item.getQuantity() + 
                                         ", unit_price=" + item.getUnitPrice());
 
                         int rawStockId = getRawStockIdByName(item.getRawStockName());
-                        System.out.println("Initial getRawStockIdByName for " + item.getRawStockName() + ": " + rawStockId);
+                        Log.debug("Initial getRawStockIdByName for " + item.getRawStockName() + ": " + rawStockId);
                         if (rawStockId == -1) {
                             boolean inserted = insertRawStock(item.getRawStockName(), "General", "Default Brand", "Piece", 0, item.getUnitPrice(), 0);
                             if (!inserted) {
@@ -4041,7 +4215,7 @@ public class SQLiteDatabase implements db {
                                 return false;
                             }
                             rawStockId = getRawStockIdByName(item.getRawStockName());
-                            System.out.println("Post-insert getRawStockIdByName for " + item.getRawStockName() + ": " + rawStockId);
+                            Log.debug("Post-insert getRawStockIdByName for " + item.getRawStockName() + ": " + rawStockId);
                             if (rawStockId == -1) {
                                 System.err.println("Failed to retrieve new raw stock ID for: " + item.getRawStockName());
                                 connection.rollback();
@@ -4065,7 +4239,7 @@ public class SQLiteDatabase implements db {
                         pstmt.setInt(2, rawStockId);
                         pstmt.setInt(3, item.getQuantity().intValue());
                         pstmt.setDouble(4, item.getUnitPrice());
-                        System.out.println("Adding batch for Raw_Purchase_Invoice_Item: raw_purchase_invoice_id=" + rawPurchaseInvoiceId +
+                        Log.debug("Adding batch for Raw_Purchase_Invoice_Item: raw_purchase_invoice_id=" + rawPurchaseInvoiceId +
                                         ", raw_stock_id=" + rawStockId + ", quantity=" + item.getQuantity() +
                                         ", unit_price=" + item.getUnitPrice());
                         pstmt.addBatch();
@@ -4076,7 +4250,7 @@ public class SQLiteDatabase implements db {
                         return false;
                     }
                 }
-                System.out.println("Executing batch insert for Raw_Purchase_Invoice_Item");
+                Log.debug("Executing batch insert for Raw_Purchase_Invoice_Item");
                 pstmt.executeBatch();
             }
             try (Statement stmt = connection.createStatement()) {
@@ -4100,7 +4274,7 @@ public class SQLiteDatabase implements db {
                             return false;
                         }
                         double totalCost = item.getQuantity() * item.getUnitPrice();
-                        System.out.println("Updating stock for item: " + item.getRawStockName() + 
+                        Log.debug("Updating stock for item: " + item.getRawStockName() + 
                                         ", Quantity: " + item.getQuantity() + ", Total Cost: " + totalCost);
 
                         pstmt.setInt(1, item.getQuantity().intValue());
@@ -4114,7 +4288,7 @@ public class SQLiteDatabase implements db {
                         return false;
                     }
                 }
-                System.out.println("Executing batch update for Raw_Stock");
+                Log.debug("Executing batch update for Raw_Stock");
                 pstmt.executeBatch();
             }
 
@@ -4128,7 +4302,7 @@ public class SQLiteDatabase implements db {
                 balanceStmt.setInt(2, supplierId);
                 balanceStmt.executeUpdate();
                 
-                System.out.println("DEBUG: Supplier balance increased by net amount owed: " + netAmountOwed + 
+                Log.debug("Supplier balance increased by net amount owed: " + netAmountOwed + 
                                  " (total: " + totalAmount + ", discount: " + discountAmount + ", paid: " + paidAmount + ")");
             }
             
@@ -4151,7 +4325,7 @@ public class SQLiteDatabase implements db {
                 
                 int invoiceTransactionInserted = invoiceTransactionStmt.executeUpdate();
                 if (invoiceTransactionInserted > 0) {
-                    System.out.println("DEBUG: Supplier invoice transaction ledger entry added for invoice: " + invoiceNumber);
+                    Log.debug("Supplier invoice transaction ledger entry added for invoice: " + invoiceNumber);
                     
                     // If payment was made, add separate payment transaction
                     if (paidAmount > 0) {
@@ -4169,77 +4343,47 @@ public class SQLiteDatabase implements db {
                             
                             int paymentTransactionInserted = paymentTransactionStmt.executeUpdate();
                             if (paymentTransactionInserted > 0) {
-                                System.out.println("DEBUG: Supplier payment transaction ledger entry added for invoice: " + invoiceNumber);
+                                Log.debug("Supplier payment transaction ledger entry added for invoice: " + invoiceNumber);
                             } else {
-                                System.out.println("DEBUG: Failed to add supplier payment transaction ledger entry");
+                                Log.debug("Failed to add supplier payment transaction ledger entry");
                                 connection.rollback();
                                 return false;
                             }
                         }
                     }
                 } else {
-                    System.out.println("DEBUG: Failed to add supplier invoice transaction ledger entry");
+                    Log.debug("Failed to add supplier invoice transaction ledger entry");
                     connection.rollback();
                     return false;
                 }
             }
 
             // 8. Insert into Purchase_Book table
-            System.out.println("DEBUG: Starting Purchase_Book insertions for " + items.size() + " items");
-            for (RawStockPurchaseItem item : items) {
-                try {
-                    // Get additional item details
+            Log.debug("Starting Purchase_Book insertions for " + items.size() + " items");
+            try {
+                double balance = totalAmount - paidAmount; // Calculate remaining balance
+                BookWriter.Batch book = new BookWriter.Batch(BookWriter.Book.PURCHASE);
+                for (RawStockPurchaseItem item : items) {
                     String brandName = item.getBrandName() != null ? item.getBrandName() : "Default Brand";
                     String manufacturerName = item.getManufacturerName() != null ? item.getManufacturerName() : "Default Manufacturer";
-                    double itemTotal = item.getQuantity() * item.getUnitPrice();
-                    double balance = totalAmount - paidAmount; // Calculate remaining balance
-                    
-                    System.out.println("DEBUG: Inserting Purchase_Book entry for item: " + item.getRawStockName());
-                    System.out.println("  rawPurchaseInvoiceId: " + rawPurchaseInvoiceId);
-                    System.out.println("  invoiceNumber: " + invoiceNumber);
-                    System.out.println("  supplierName: " + supplierName);
-                    System.out.println("  itemName: " + item.getRawStockName());
-                    System.out.println("  brandName: " + brandName);
-                    System.out.println("  manufacturerName: " + manufacturerName);
-                    System.out.println("  itemTotal: " + itemTotal);
-                    System.out.println("  totalAmount: " + totalAmount);
-                    System.out.println("  balance: " + balance);
-                    
-                    boolean bookInserted = insertPurchaseBookEntry(
-                        rawPurchaseInvoiceId,
-                        invoiceNumber,
-                        supplierName,
-                        invoiceDate,
-                        item.getRawStockName(),
-                        brandName,
-                        manufacturerName,
-                        item.getQuantity(),
-                        item.getUnitPrice(),
-                        itemTotal,
-                        totalAmount,
-                        discountAmount,
-                        paidAmount,
-                        balance
-                    );
-                    
-                    if (!bookInserted) {
-                        System.err.println("Failed to insert into Purchase_Book for item: " + item.getRawStockName());
-                        connection.rollback();
-                        return false;
-                    } else {
-                        System.out.println("DEBUG: Successfully inserted Purchase_Book entry for: " + item.getRawStockName());
-                    }
-                } catch (Exception e) {
-                    System.err.println("Failed to insert into Purchase_Book for item: " + item.getRawStockName() + 
-                                     ", Error: " + e.getMessage());
-                    e.printStackTrace();
-                    connection.rollback();
-                    return false;
+                    book.add(rawPurchaseInvoiceId, invoiceNumber, supplierName, invoiceDate,
+                             item.getRawStockName(), brandName, manufacturerName,
+                             item.getQuantity(), item.getUnitPrice(), item.getQuantity() * item.getUnitPrice(),
+                             totalAmount, discountAmount, paidAmount, balance);
                 }
+                book.write(connection);
+                Log.debug("Inserted " + book.size() + " Purchase_Book entries for invoice: " + invoiceNumber);
+            } catch (SQLException e) {
+                System.err.println("Failed to insert into Purchase_Book for invoice: " + invoiceNumber + 
+                                 ", Error: " + e.getMessage());
+                e.printStackTrace();
+                connection.rollback();
+                return false;
             }
 
             connection.commit();
-            System.out.println("Successfully inserted Raw_Purchase_Invoice and items for invoice: " + invoiceNumber);
+            savedInvoiceNumber.set(invoiceNumber);
+            Log.debug("Successfully inserted Raw_Purchase_Invoice and items for invoice: " + invoiceNumber);
             return true;
         } catch (SQLException e) {
             System.err.println("SQLException during insertSimpleRawPurchaseInvoice: " + e.getMessage());
@@ -4323,17 +4467,7 @@ public class SQLiteDatabase implements db {
      * Generate auto-increment return invoice number
      */
     public String generateReturnInvoiceNumber() {
-        String query = "SELECT COUNT(*) + 1 as next_id FROM Raw_Purchase_Return_Invoice";
-        try (Statement stmt = connection.createStatement();
-             ResultSet rs = stmt.executeQuery(query)) {
-            if (rs.next()) {
-                int nextId = rs.getInt("next_id");
-                return String.format("INV-RPR-%03d", nextId);
-            }
-        } catch (SQLException e) {
-            e.printStackTrace();
-        }
-        return "INV-RPR-001"; // fallback
+        return nextInvoiceNumber(InvoiceSequence.RAW_RETURN);
     }
     
     /**
@@ -4384,7 +4518,7 @@ public class SQLiteDatabase implements db {
         
         try (PreparedStatement pstmt = connection.prepareStatement(query)) {
             pstmt.setInt(1, invoiceId);
-            System.out.println("DEBUG: Executing getRawStockItemsByInvoiceId with invoiceId: " + invoiceId);
+            Log.debug("Executing getRawStockItemsByInvoiceId with invoiceId: " + invoiceId);
             ResultSet rs = pstmt.executeQuery();
             
             while (rs.next()) {
@@ -4398,10 +4532,10 @@ public class SQLiteDatabase implements db {
                     rs.getString("manufacturer_name"), // index 6 - manufacturerName
                     rs.getString("category_name")     // index 7 - categoryName
                 };
-                System.out.println("DEBUG: Fetched raw stock item: rawStockId=" + row[0] + ", name=" + row[1] + ", brand=" + row[2]);
+                Log.debug("Fetched raw stock item: rawStockId=" + row[0] + ", name=" + row[1] + ", brand=" + row[2]);
                 items.add(row);
             }
-            System.out.println("DEBUG: Total raw stock items fetched for invoice " + invoiceId + ": " + items.size());
+            Log.debug("Total raw stock items fetched for invoice " + invoiceId + ": " + items.size());
         } catch (SQLException e) {
             System.err.println("Error fetching raw stock items for invoice " + invoiceId + ": " + e.getMessage());
             e.printStackTrace();
@@ -4418,22 +4552,44 @@ public class SQLiteDatabase implements db {
                            "(return_invoice_number, original_invoice_id, supplier_id, return_date, total_return_amount) " +
                            "VALUES (?, ?, ?, ?, ?)";
         
-        try (PreparedStatement pstmt = connection.prepareStatement(insertQuery, Statement.RETURN_GENERATED_KEYS)) {
-            pstmt.setString(1, returnInvoiceNumber);
-            pstmt.setInt(2, originalInvoiceId);
-            pstmt.setInt(3, supplierId);
-            pstmt.setString(4, returnDate);
-            pstmt.setDouble(5, totalReturnAmount);
-            
-            int affectedRows = pstmt.executeUpdate();
-            if (affectedRows > 0) {
-                try (ResultSet generatedKeys = pstmt.getGeneratedKeys()) {
-                    if (generatedKeys.next()) {
-                        return generatedKeys.getInt(1);
+        try {
+            connection.setAutoCommit(false);
+            // Take the return invoice number inside this transaction
+            String number = allocateInvoiceNumber(returnInvoiceNumber,
+                InvoiceSequence.RAW_RETURN, InvoiceSequence.RAW_PURCHASE_RETURN);
+            int returnInvoiceId = -1;
+            try (PreparedStatement pstmt = connection.prepareStatement(insertQuery, Statement.RETURN_GENERATED_KEYS)) {
+                pstmt.setString(1, number);
+                pstmt.setInt(2, originalInvoiceId);
+                pstmt.setInt(3, supplierId);
+                pstmt.setString(4, returnDate);
+                pstmt.setDouble(5, totalReturnAmount);
+                
+                int affectedRows = pstmt.executeUpdate();
+                if (affectedRows > 0) {
+                    try (ResultSet generatedKeys = pstmt.getGeneratedKeys()) {
+                        if (generatedKeys.next()) {
+                            returnInvoiceId = generatedKeys.getInt(1);
+                        }
                     }
                 }
             }
+            if (returnInvoiceId == -1) {
+                connection.rollback();
+                connection.setAutoCommit(true);
+                return -1;
+            }
+            connection.commit();
+            connection.setAutoCommit(true);
+            savedInvoiceNumber.set(number);
+            return returnInvoiceId;
         } catch (SQLException e) {
+            try {
+                connection.rollback();
+                connection.setAutoCommit(true);
+            } catch (SQLException rollbackEx) {
+                rollbackEx.printStackTrace();
+            }
             e.printStackTrace();
         }
         return -1;
@@ -4554,7 +4710,7 @@ public class SQLiteDatabase implements db {
                     balanceStmt.setInt(2, supplierId);
                     balanceStmt.executeUpdate();
                     
-                    System.out.println("DEBUG: Supplier balance reduced by return amount: " + totalReturnAmount);
+                    Log.debug("Supplier balance reduced by return amount: " + totalReturnAmount);
                     
                     // Add ledger entry for purchase return (credit to supplier account)
                     double currentBalance = getSupplierCurrentBalance(getSupplierNameById(supplierId));
@@ -4581,9 +4737,9 @@ public class SQLiteDatabase implements db {
                                     
                                     int transactionInserted = transactionStmt.executeUpdate();
                                     if (transactionInserted > 0) {
-                                        System.out.println("DEBUG: Supplier return transaction ledger entry added for return invoice: " + returnInvoiceNumber);
+                                        Log.debug("Supplier return transaction ledger entry added for return invoice: " + returnInvoiceNumber);
                                     } else {
-                                        System.out.println("DEBUG: Failed to add supplier return transaction ledger entry");
+                                        Log.debug("Failed to add supplier return transaction ledger entry");
                                     }
                                 }
                             }
@@ -4604,28 +4760,15 @@ public class SQLiteDatabase implements db {
                     // Get supplier balance after the return transaction
                     double balanceAfterReturn = getSupplierCurrentBalance(supplierName);
                     
+                    BookWriter.Batch book = new BookWriter.Batch(BookWriter.Book.RETURN_PURCHASE);
                     for (com.cablemanagement.model.RawStockPurchaseItem item : items) {
-                        boolean inserted = insertReturnPurchaseBookEntry(
-                            returnInvoiceId,
-                            returnInvoiceNumber,
-                            supplierName,
-                            returnDate,
-                            item.getRawStockName(),
-                            item.getBrandName(),
-                            item.getManufacturerName(),
-                            item.getQuantity(),
-                            item.getUnitPrice(),
-                            item.getQuantity() * item.getUnitPrice(),
-                            totalReturnAmount,
-                            balanceAfterReturn
-                        );
-                        
-                        if (inserted) {
-                            System.out.println("DEBUG: Successfully inserted return purchase book entry for: " + item.getRawStockName());
-                        } else {
-                            System.err.println("DEBUG: Failed to insert return purchase book entry for: " + item.getRawStockName());
-                        }
+                        book.add(returnInvoiceId, returnInvoiceNumber, supplierName, returnDate,
+                                 item.getRawStockName(), item.getBrandName(), item.getManufacturerName(),
+                                 item.getQuantity(), item.getUnitPrice(), item.getQuantity() * item.getUnitPrice(),
+                                 totalReturnAmount, balanceAfterReturn);
                     }
+                    book.write(connection);
+                    Log.debug("Inserted " + book.size() + " return purchase book entries for: " + returnInvoiceNumber);
                 }
             } catch (Exception e) {
                 System.err.println("Failed to insert into Return_Purchase_Book: " + e.getMessage());
@@ -4691,17 +4834,7 @@ public class SQLiteDatabase implements db {
      */
     @Override
     public String generateUseInvoiceNumber() {
-        String query = "SELECT COUNT(*) FROM Raw_Stock_Use_Invoice";
-        try (Statement stmt = connection.createStatement();
-             ResultSet rs = stmt.executeQuery(query)) {
-            if (rs.next()) {
-                int count = rs.getInt(1) + 1;
-                return String.format("INV-RSU-%03d", count);
-            }
-        } catch (SQLException e) {
-            e.printStackTrace();
-        }
-        return "INV-RSU-001";
+        return nextInvoiceNumber(InvoiceSequence.RAW_USE);
     }
     
     /**
@@ -4748,21 +4881,42 @@ public class SQLiteDatabase implements db {
         String query = "INSERT INTO Raw_Stock_Use_Invoice (use_invoice_number, usage_date, " +
                       "total_usage_amount, reference_purpose) VALUES (?, ?, ?, ?)";
         
-        try (PreparedStatement pstmt = connection.prepareStatement(query, Statement.RETURN_GENERATED_KEYS)) {
-            pstmt.setString(1, useInvoiceNumber);
-            pstmt.setString(2, usageDate);
-            pstmt.setDouble(3, totalUsageAmount);
-            pstmt.setString(4, referencePurpose);
-            
-            int affectedRows = pstmt.executeUpdate();
-            if (affectedRows > 0) {
-                try (ResultSet generatedKeys = pstmt.getGeneratedKeys()) {
-                    if (generatedKeys.next()) {
-                        return generatedKeys.getInt(1);
+        try {
+            connection.setAutoCommit(false);
+            // Take the use invoice number inside this transaction
+            String number = allocateInvoiceNumber(useInvoiceNumber, InvoiceSequence.RAW_USE);
+            int useInvoiceId = -1;
+            try (PreparedStatement pstmt = connection.prepareStatement(query, Statement.RETURN_GENERATED_KEYS)) {
+                pstmt.setString(1, number);
+                pstmt.setString(2, usageDate);
+                pstmt.setDouble(3, totalUsageAmount);
+                pstmt.setString(4, referencePurpose);
+                
+                int affectedRows = pstmt.executeUpdate();
+                if (affectedRows > 0) {
+                    try (ResultSet generatedKeys = pstmt.getGeneratedKeys()) {
+                        if (generatedKeys.next()) {
+                            useInvoiceId = generatedKeys.getInt(1);
+                        }
                     }
                 }
             }
+            if (useInvoiceId == -1) {
+                connection.rollback();
+                connection.setAutoCommit(true);
+                return -1;
+            }
+            connection.commit();
+            connection.setAutoCommit(true);
+            savedInvoiceNumber.set(number);
+            return useInvoiceId;
         } catch (SQLException e) {
+            try {
+                connection.rollback();
+                connection.setAutoCommit(true);
+            } catch (SQLException rollbackEx) {
+                rollbackEx.printStackTrace();
+            }
             e.printStackTrace();
         }
         return -1; // Return -1 if insertion failed
@@ -4784,7 +4938,7 @@ public class SQLiteDatabase implements db {
             
             connection.setAutoCommit(false); // Start transaction
             
-            System.out.println("DEBUG: Inserting " + items.size() + " raw stock use items and updating stock quantities");
+            Log.debug("Inserting " + items.size() + " raw stock use items and updating stock quantities");
             
             // First, validate that all items have sufficient stock
             for (RawStockUseItem item : items) {
@@ -4824,7 +4978,7 @@ public class SQLiteDatabase implements db {
                 updatePstmt.setDouble(3, item.getQuantityUsed()); // Safety check: only update if sufficient stock
                 updatePstmt.addBatch();
                 
-                System.out.println("DEBUG: Prepared to deduct " + item.getQuantityUsed() + 
+                Log.debug("Prepared to deduct " + item.getQuantityUsed() + 
                                  " from raw stock ID " + item.getRawStockId() + " (" + item.getRawStockName() + ")");
             }
             
@@ -4859,30 +5013,25 @@ public class SQLiteDatabase implements db {
                         String referencePurpose = (String) invoiceDetails[2];
                         double totalUsageAmount = (Double) invoiceDetails[3]; // Get total usage amount
                         
+                        // Manufacturer names of all the used raw stock in one query
+                        List<Integer> rawStockIds = new ArrayList<>();
                         for (RawStockUseItem item : items) {
-                            // Get manufacturer name from raw stock
-                            String manufacturerName = getRawStockManufacturerName(item.getRawStockId());
-                            
-                            boolean inserted = insertRawStockUseBookEntry(
-                                useInvoiceId,
-                                useInvoiceNumber,
-                                usageDate,
-                                item.getRawStockName(),
-                                item.getBrandName(),
-                                manufacturerName,
-                                item.getQuantityUsed(),
-                                item.getUnitCost(),
-                                item.getTotalCost(),
-                                totalUsageAmount,
-                                referencePurpose
-                            );
-                            
-                            if (inserted) {
-                                System.out.println("DEBUG: Successfully inserted raw stock use book entry for: " + item.getRawStockName());
-                            } else {
-                                System.err.println("DEBUG: Failed to insert raw stock use book entry for: " + item.getRawStockName());
-                            }
+                            rawStockIds.add(item.getRawStockId());
                         }
+                        Map<Integer, BookWriter.Names> names = BookWriter.rawStockNames(connection, rawStockIds);
+                        
+                        BookWriter.Batch book = new BookWriter.Batch(BookWriter.Book.RAW_STOCK_USE);
+                        for (RawStockUseItem item : items) {
+                            BookWriter.Names name = names.get(item.getRawStockId());
+                            String manufacturerName = name != null && name.manufacturer() != null
+                                ? name.manufacturer() : "Default Manufacturer";
+                            book.add(useInvoiceId, useInvoiceNumber, usageDate,
+                                     item.getRawStockName(), item.getBrandName(), manufacturerName,
+                                     item.getQuantityUsed(), item.getUnitCost(), item.getTotalCost(),
+                                     totalUsageAmount, referencePurpose);
+                        }
+                        book.write(connection);
+                        Log.debug("Inserted " + book.size() + " raw stock use book entries for: " + useInvoiceNumber);
                     }
                 } catch (Exception e) {
                     System.err.println("Failed to insert into Raw_Stock_Use_Book: " + e.getMessage());
@@ -4892,7 +5041,7 @@ public class SQLiteDatabase implements db {
                 }
                 
                 connection.commit(); // Commit transaction
-                System.out.println("DEBUG: Successfully inserted use items and updated raw stock quantities");
+                Log.debug("Successfully inserted use items and updated raw stock quantities");
             } else {
                 connection.rollback(); // Rollback on error
                 System.err.println("ERROR: Failed to insert use items or update stock quantities");
@@ -4938,27 +5087,6 @@ public class SQLiteDatabase implements db {
         return null;
     }
     
-    /**
-     * Get manufacturer name by raw stock ID
-     */
-    private String getRawStockManufacturerName(int rawStockId) {
-        String query = "SELECT m.manufacturer_name " +
-                      "FROM Raw_Stock rs " +
-                      "JOIN Manufacturer m ON rs.manufacturer_id = m.manufacturer_id " +
-                      "WHERE rs.stock_id = ?";
-        try (PreparedStatement pstmt = connection.prepareStatement(query)) {
-            pstmt.setInt(1, rawStockId);
-            try (ResultSet rs = pstmt.executeQuery()) {
-                if (rs.next()) {
-                    return rs.getString("manufacturer_name");
-                }
-            }
-        } catch (SQLException e) {
-            e.printStackTrace();
-        }
-        return "Default Manufacturer";
-    }
-    
     /**
      * Get production invoice details by ID
      */
@@ -4984,52 +5112,8 @@ public class SQLiteDatabase implements db {
      * Get production stock name by ID
      */
     private String getProductionStockNameById(int productionId) {
-        String query = "SELECT product_name FROM ProductionStock WHERE production_id = ?";
-        try (PreparedStatement pstmt = connection.prepareStatement(query)) {
-            pstmt.setInt(1, productionId);
-            try (ResultSet rs = pstmt.executeQuery()) {
-                if (rs.next()) {
-                    return rs.getString("product_name");
-                }
-            }
-        } catch (SQLException e) {
-            e.printStackTrace();
-        }
-        return "Unknown Product";
-    }
-    
-    private String getProductionStockBrandName(int productionId) {
-        String query = "SELECT b.brand_name FROM ProductionStock p " +
-                      "JOIN Brand b ON p.brand_id = b.brand_id " +
-                      "WHERE p.production_id = ?";
-        try (PreparedStatement pstmt = connection.prepareStatement(query)) {
-            pstmt.setInt(1, productionId);
-            try (ResultSet rs = pstmt.executeQuery()) {
-                if (rs.next()) {
-                    return rs.getString("brand_name");
-                }
-            }
-        } catch (SQLException e) {
-            e.printStackTrace();
-        }
-        return "Unknown Brand";
-    }
-    
-    private String getProductionStockManufacturerName(int productionId) {
-        String query = "SELECT m.manufacturer_name FROM ProductionStock p " +
-                      "JOIN Manufacturer m ON p.manufacturer_id = m.manufacturer_id " +
-                      "WHERE p.production_id = ?";
-        try (PreparedStatement pstmt = connection.prepareStatement(query)) {
-            pstmt.setInt(1, productionId);
-            try (ResultSet rs = pstmt.executeQuery()) {
-                if (rs.next()) {
-                    return rs.getString("manufacturer_name");
-                }
-            }
-        } catch (SQLException e) {
-            e.printStackTrace();
-        }
-        return "Unknown Manufacturer";
+        ProductCatalogEntry entry = getProductCatalogEntry(productionId);
+        return entry != null ? entry.productName() : "Unknown Product";
     }
     
     /**
@@ -5228,42 +5312,60 @@ public class SQLiteDatabase implements db {
     @Override
     public List<Object[]> getAllProductionStocks() {
         List<Object[]> productionStocks = new ArrayList<>();
-        String query = "SELECT ps.production_id, ps.product_name, " +
-                    "c.category_name, m.manufacturer_name, " +
-                    "b.brand_name, u.unit_name, " +
-                    "ps.quantity, ps.unit_cost, ps.sale_price, ps.total_cost, ps.production_date " +
-                    "FROM ProductionStock ps " +
-                    "JOIN Category c ON ps.category_id = c.category_id " +
-                    "JOIN Manufacturer m ON ps.manufacturer_id = m.manufacturer_id " +
-                    "JOIN Brand b ON ps.brand_id = b.brand_id " +
-                    "LEFT JOIN Unit u ON ps.unit_id = u.unit_id " +
+        forEachProductionStockRow(row -> productionStocks.add(row.toArray()));
+        return productionStocks;
+    }
+
+    private static final String PRODUCTION_STOCK_QUERY =
+                    ProductionStockSearch.SELECT + ProductionStockSearch.FROM +
                     "ORDER BY ps.product_name";
 
-        
-        try (Statement stmt = connection.createStatement();
-             ResultSet rs = stmt.executeQuery(query)) {
-            
-            while (rs.next()) {
-                Object[] row = {
-                    rs.getInt("production_id"),        // 0
-                    rs.getString("product_name"),      // 1
-                    rs.getString("category_name"),     // 2
-                    rs.getString("brand_name"),        // 3
-                    rs.getString("manufacturer_name"), // 4
-                    rs.getString("unit_name") != null ? rs.getString("unit_name") : "N/A", // 5 - Unit name
-                    rs.getInt("quantity"),             // 6
-                    rs.getDouble("unit_cost"),         // 7
-                    rs.getDouble("sale_price"),        // 8
-                    rs.getDouble("total_cost"),        // 9
-                    rs.getString("production_date")    // 10
-                };
-                productionStocks.add(row);
-            }
+    @Override
+    public List<ProductionStockRow> getAllProductionStockRows() {
+        List<ProductionStockRow> productionStocks = new ArrayList<>();
+        forEachProductionStockRow(productionStocks::add);
+        return productionStocks;
+    }
+
+    @Override
+    public void forEachProductionStockRow(Consumer<ProductionStockRow> consumer) {
+        try (PreparedStatement pstmt = connection.prepareStatement(PRODUCTION_STOCK_QUERY)) {
+            RowMapper.forEach(pstmt, RowMapper.PRODUCTION_STOCK, consumer);
         } catch (SQLException e) {
             System.err.println("ERROR: Failed to get all production stocks: " + e.getMessage());
             e.printStackTrace();
         }
-        return productionStocks;
+    }
+
+    @Override
+    public List<ProductionStockRow> searchProductionStock(Map<String, String> filters, String sortKey, boolean ascending,
+                                                          int offset, int limit) {
+        Connection reader = null;
+        try {
+            reader = provider.acquireReader();
+            return ProductionStockSearch.search(reader, filters, sortKey, ascending, offset, limit);
+        } catch (SQLException e) {
+            System.err.println("ERROR: Failed to search production stock: " + e.getMessage());
+            e.printStackTrace();
+        } finally {
+            provider.releaseReader(reader);
+        }
+        return new ArrayList<>();
+    }
+
+    @Override
+    public ProductionStockSummary getProductionStockSummary(Map<String, String> filters) {
+        Connection reader = null;
+        try {
+            reader = provider.acquireReader();
+            return ProductionStockSearch.summarize(reader, filters);
+        } catch (SQLException e) {
+            System.err.println("ERROR: Failed to summarize production stock: " + e.getMessage());
+            e.printStackTrace();
+        } finally {
+            provider.releaseReader(reader);
+        }
+        return new ProductionStockSummary(0, 0.0, 0);
     }
 
     @Override
@@ -5300,22 +5402,7 @@ public class SQLiteDatabase implements db {
 
     @Override
     public String generateProductionInvoiceNumber() {
-        String query = "SELECT MAX(CAST(SUBSTR(production_invoice_number, 4) AS INTEGER)) as max_number " +
-                      "FROM Production_Invoice WHERE production_invoice_number LIKE 'PI-%'";
-        try (Statement stmt = connection.createStatement();
-             ResultSet rs = stmt.executeQuery(query)) {
-            if (rs.next()) {
-                int maxNumber = rs.getInt("max_number");
-                if (rs.wasNull() || maxNumber < 1) {
-                    return "PI-0001";
-                } else {
-                    return String.format("PI-%04d", maxNumber + 1);
-                }
-            }
-        } catch (SQLException e) {
-            e.printStackTrace();
-        }
-        return "PI-0001";
+        return nextInvoiceNumber(InvoiceSequence.PRODUCTION);
     }
 
     @Override
@@ -5388,25 +5475,22 @@ public class SQLiteDatabase implements db {
                     String productionDate = (String) invoiceDetails[0];
                     String notes = (String) invoiceDetails[1];
                     
+                    // Product details from ProductionStock for all items in one query
+                    Map<Integer, BookWriter.Names> names = BookWriter.productionNames(connection, productionIds(productionItems));
+                    BookWriter.Batch book = new BookWriter.Batch(BookWriter.Book.PRODUCTION);
                     for (Object[] item : productionItems) {
-                        // Get product details from ProductionStock
-                        int productionId = (Integer) item[0];
-                        String productName = getProductionStockNameById(productionId);
-                        String brandName = getProductionStockBrandName(productionId);
-                        String manufacturerName = getProductionStockManufacturerName(productionId);
-                        
-                        insertProductionBookEntry(
-                            productionInvoiceId,
-                            productionDate,
-                            productName,
-                            brandName,
-                            manufacturerName,
-                            (Double) item[1], // quantity produced
-                            0.0, // unit cost - not available in this context
-                            0.0, // total cost - not available in this context
-                            notes != null ? notes : ""
-                        );
+                        BookWriter.Names name = names.get((Integer) item[0]);
+                        book.add(productionInvoiceId,
+                                 productionDate,
+                                 name != null ? name.product() : "Unknown Product",
+                                 name != null && name.brand() != null ? name.brand() : "Unknown Brand",
+                                 name != null && name.manufacturer() != null ? name.manufacturer() : "Unknown Manufacturer",
+                                 (Double) item[1], // quantity produced
+                                 0.0, // unit cost - not available in this context
+                                 0.0, // total cost - not available in this context
+                                 notes != null ? notes : "");
                     }
+                    book.write(connection);
                 }
             } catch (Exception e) {
                 System.err.println("Failed to insert into Production_Book: " + e.getMessage());
@@ -5536,8 +5620,9 @@ public class SQLiteDatabase implements db {
 
             connection.commit(); // Commit transaction
             connection.setAutoCommit(true);
+            invalidateProductCatalog();
 
-            System.out.println("DEBUG: Inserted ProductionStock - " +
+            Log.debug("Inserted ProductionStock - " +
                     "Name: " + name +
                     ", Category: " + category + " (id=" + categoryId + ")" +
                     ", Manufacturer: " + manufacturer + " (id=" + manufacturerId + ")" +
@@ -5594,23 +5679,8 @@ public class SQLiteDatabase implements db {
     /**
      * Generate auto-increment production return invoice number
      */
-    public String generateProductionReturnInvoiceNumber() {
-        String query = "SELECT MAX(CAST(SUBSTR(return_invoice_number, 5) AS INTEGER)) as max_number " +
-                      "FROM Production_Return_Invoice WHERE return_invoice_number LIKE 'PRI-%'";
-        try (Statement stmt = connection.createStatement();
-             ResultSet rs = stmt.executeQuery(query)) {
-            if (rs.next()) {
-                int maxNumber = rs.getInt("max_number");
-                if (rs.wasNull() || maxNumber < 1) {
-                    return "PRI-0001";
-                } else {
-                    return String.format("PRI-%04d", maxNumber + 1);
-                }
-            }
-        } catch (SQLException e) {
-            e.printStackTrace();
-        }
-        return "PRI-0001";
+    public String generateProductionReturnInvoiceNumber() {
+        return nextInvoiceNumber(InvoiceSequence.PRODUCTION_RETURN);
     }
 
     /**
@@ -5630,8 +5700,8 @@ public class SQLiteDatabase implements db {
                 totalAmount += (Double) item[3]; // total_cost
             }
             
-            // Generate return invoice number
-            String returnInvoiceNumber = generateProductionReturnInvoiceNumber();
+            // Take the return invoice number inside this transaction
+            String returnInvoiceNumber = provider.getInvoiceSequence().allocate(connection, InvoiceSequence.PRODUCTION_RETURN);
             
             // Insert return invoice
             int returnInvoiceId = insertProductionReturnInvoiceAndGetId(
@@ -5656,6 +5726,7 @@ public class SQLiteDatabase implements db {
             
             connection.commit();
             connection.setAutoCommit(true);
+            savedInvoiceNumber.set(returnInvoiceNumber);
             return true;
             
         } catch (SQLException e) {
@@ -5793,26 +5864,23 @@ public class SQLiteDatabase implements db {
                     String returnDate = (String) invoiceDetails[1];
                     String notes = (String) invoiceDetails[2];
                     
+                    // Product details from ProductionStock for all items in one query
+                    Map<Integer, BookWriter.Names> names = BookWriter.productionNames(connection, productionIds(returnItems));
+                    BookWriter.Batch book = new BookWriter.Batch(BookWriter.Book.RETURN_PRODUCTION);
                     for (Object[] item : returnItems) {
-                        // Get product details from ProductionStock
-                        int productionId = (Integer) item[0];
-                        String productName = getProductionStockNameById(productionId);
-                        String brandName = getProductionStockBrandName(productionId);
-                        String manufacturerName = getProductionStockManufacturerName(productionId);
-                        
-                        insertReturnProductionBookEntry(
-                            returnInvoiceId,
-                            returnInvoiceNumber,
-                            returnDate,
-                            productName,
-                            brandName,
-                            manufacturerName,
-                            (Double) item[1], // quantity returned
-                            (Double) item[2], // unit cost
-                            (Double) item[3], // total cost
-                            notes != null ? notes : ""
-                        );
+                        BookWriter.Names name = names.get((Integer) item[0]);
+                        book.add(returnInvoiceId,
+                                 returnInvoiceNumber,
+                                 returnDate,
+                                 name != null ? name.product() : "Unknown Product",
+                                 name != null && name.brand() != null ? name.brand() : "Unknown Brand",
+                                 name != null && name.manufacturer() != null ? name.manufacturer() : "Unknown Manufacturer",
+                                 (Double) item[1], // quantity returned
+                                 (Double) item[2], // unit cost
+                                 (Double) item[3], // total cost
+                                 notes != null ? notes : "");
                     }
+                    book.write(connection);
                 }
             } catch (Exception e) {
                 System.err.println("Failed to insert into Return_Production_Book: " + e.getMessage());
@@ -5913,6 +5981,7 @@ public class SQLiteDatabase implements db {
      * Update production stock quantity after return
      */
     public boolean updateProductionStockAfterReturn(int productionId, double returnedQuantity) {
+        // Only the quantity changes, which the product catalog index does not hold
         String query = "UPDATE ProductionStock SET quantity = quantity - ? WHERE production_id = ?";
         try (PreparedStatement pstmt = connection.prepareStatement(query)) {
             pstmt.setDouble(1, returnedQuantity);
@@ -5926,12 +5995,13 @@ public class SQLiteDatabase implements db {
 
     // Method to decrease production stock when items are sold
     public boolean decreaseProductionStock(int productionId, double soldQuantity) {
+        // Only the quantity changes, which the product catalog index does not hold
         String query = "UPDATE ProductionStock SET quantity = quantity - ? WHERE production_id = ?";
         try (PreparedStatement pstmt = connection.prepareStatement(query)) {
             pstmt.setDouble(1, soldQuantity);
             pstmt.setInt(2, productionId);
             int rowsAffected = pstmt.executeUpdate();
-            System.out.println("DEBUG: Decreased stock for production_id " + productionId + " by " + soldQuantity + ", rows affected: " + rowsAffected);
+            Log.debug("Decreased stock for production_id " + productionId + " by " + soldQuantity + ", rows affected: " + rowsAffected);
             return rowsAffected > 0;
         } catch (SQLException e) {
             System.err.println("ERROR: Failed to decrease production stock: " + e.getMessage());
@@ -5946,7 +6016,10 @@ public class SQLiteDatabase implements db {
         try (PreparedStatement pstmt = connection.prepareStatement(query)) {
             pstmt.setInt(1, productionId);
             int rowsAffected = pstmt.executeUpdate();
-            System.out.println("DEBUG: Deleted production stock with production_id " + productionId + ", rows affected: " + rowsAffected);
+            if (rowsAffected > 0) {
+                invalidateProductCatalog();
+            }
+            Log.debug("Deleted production stock with production_id " + productionId + ", rows affected: " + rowsAffected);
             return rowsAffected > 0;
         } catch (SQLException e) {
             System.err.println("ERROR: Failed to delete production stock: " + e.getMessage());
@@ -5991,7 +6064,11 @@ public class SQLiteDatabase implements db {
             pstmt.setString(5, brandName);
             
             int rowsAffected = pstmt.executeUpdate();
-            System.out.println("DEBUG: Added " + addedQuantity + " to existing stock for " + productName + " (" + brandName + "), rows affected: " + rowsAffected);
+            if (rowsAffected > 0) {
+                // Unit cost and sale price are re-set along with the quantity
+                invalidateProductCatalog();
+            }
+            Log.debug("Added " + addedQuantity + " to existing stock for " + productName + " (" + brandName + "), rows affected: " + rowsAffected);
             return rowsAffected > 0;
         } catch (SQLException e) {
             System.err.println("ERROR: Failed to add to production stock: " + e.getMessage());
@@ -6100,25 +6177,7 @@ public class SQLiteDatabase implements db {
     // --------------------------
     @Override
     public String generateSalesInvoiceNumber() {
-        String query = "SELECT MAX(CAST(SUBSTR(sales_invoice_number, 4) AS INTEGER)) as max_number " +
-                      "FROM Sales_Invoice WHERE sales_invoice_number LIKE 'SI-%'";
-        
-        try (Statement stmt = connection.createStatement();
-             ResultSet rs = stmt.executeQuery(query)) {
-            if (rs.next()) {
-                int maxNumber = rs.getInt("max_number");
-                if (rs.wasNull() || maxNumber < 1) {
-                    return "SI-001";
-                } else {
-                    return String.format("SI-%03d", maxNumber + 1);
-                }
-            }
-        } catch (SQLException e) {
-            e.printStackTrace();
-
-        }
-        return "SI-001";
-        
+        return nextInvoiceNumber(InvoiceSequence.SALES);
     }
 
     @Override
@@ -6202,20 +6261,8 @@ public class SQLiteDatabase implements db {
 
     @Override
     public int getProductionStockIdByName(String productName) {
-        String query = "SELECT production_id FROM ProductionStock WHERE product_name = ?";
-        
-        try (PreparedStatement pstmt = connection.prepareStatement(query)) {
-            pstmt.setString(1, productName);
-            
-            try (ResultSet rs = pstmt.executeQuery()) {
-                if (rs.next()) {
-                    return rs.getInt("production_id");
-                }
-            }
-        } catch (SQLException e) {
-            e.printStackTrace();
-        }
-        return -1;
+        ProductCatalogEntry entry = findProductCatalogEntry(productName);
+        return entry != null ? entry.productionId() : -1;
     }
 
     @Override
@@ -6298,7 +6345,7 @@ public class SQLiteDatabase implements db {
                     return false;
                 }
             }
-            System.out.println("DEBUG: Successfully inserted sales invoice items and updated stock levels");
+            Log.debug("Successfully inserted sales invoice items and updated stock levels");
             return true;
         } catch (SQLException e) {
             System.err.println("Error inserting sales invoice items: " + e.getMessage());
@@ -6311,247 +6358,24 @@ public class SQLiteDatabase implements db {
     public boolean insertSalesInvoice(String invoiceNumber, int customerId, String salesDate, 
                                      double totalAmount, double discountAmount, double otherDiscount, double paidAmount, 
                                      List<Object[]> items) {
+        // Number, customer, balances, items, stock, ledger and Sales_Book in one transaction:
+        // the pipeline commits or rolls back the number taken here along with the rest
         try {
-            // Set a timeout for database operations to prevent indefinite locks
             connection.setAutoCommit(false);
-            
-            System.out.println("DEBUG: Starting sales invoice transaction...");
-            
-            // *** CRITICAL: Capture customer balance BEFORE making any changes ***
-            String customerName = getCustomerNameById(customerId);
-            double previousBalanceBeforeInvoice = getCustomerBalance(customerName);
-            System.out.println("DEBUG: Customer previous balance (before invoice): " + previousBalanceBeforeInvoice);
-            
-            int salesInvoiceId = insertSalesInvoiceAndGetId(invoiceNumber, customerId, salesDate, 
-                                                           totalAmount, discountAmount, otherDiscount, paidAmount);
-            
-            if (salesInvoiceId > 0) {
-                System.out.println("DEBUG: Sales invoice created with ID: " + salesInvoiceId);
-                
-                if (insertSalesInvoiceItems(salesInvoiceId, items)) {
-                    System.out.println("DEBUG: Sales invoice items inserted successfully");
-                    
-                    // Calculate invoice amount after all discounts
-                    double invoiceAmountAfterDiscounts = totalAmount - discountAmount - otherDiscount;
-                    
-                    // Update customer balance: add net invoice amount (total - discounts - paid)
-                    double netInvoiceAmount = invoiceAmountAfterDiscounts - paidAmount;
-                    String updateBalanceQuery = "UPDATE Customer SET balance = balance + ? WHERE customer_id = ?";
-                    
-                    try (PreparedStatement balanceStmt = connection.prepareStatement(updateBalanceQuery)) {
-                        balanceStmt.setDouble(1, netInvoiceAmount);
-                        balanceStmt.setInt(2, customerId);
-                        int updated = balanceStmt.executeUpdate();
-                        
-                        if (updated > 0) {
-                            System.out.println("DEBUG: Customer balance updated by: " + netInvoiceAmount);
-                            
-                            // Get current balance for transaction recording
-                            double currentBalance = getCustomerCurrentBalance(getCustomerNameById(customerId));
-                            
-                            // Add ledger entry for full invoice charge
-                            String insertInvoiceTransactionQuery = "INSERT INTO Customer_Transaction " +
-                                                           "(customer_id, transaction_date, transaction_type, amount, description, reference_invoice_number, balance_after_transaction) " +
-                                                           "VALUES (?, ?, 'invoice_charge', ?, ?, ?, ?)";
-                            
-                            try (PreparedStatement invoiceTransactionStmt = connection.prepareStatement(insertInvoiceTransactionQuery)) {
-                                invoiceTransactionStmt.setInt(1, customerId);
-                                invoiceTransactionStmt.setString(2, salesDate);
-                                invoiceTransactionStmt.setDouble(3, totalAmount); // Use full invoice amount before discounts
-                                invoiceTransactionStmt.setString(4, "Sales Invoice - " + invoiceNumber);
-                                invoiceTransactionStmt.setString(5, invoiceNumber);
-                                // Balance after adding invoice amount
-                                invoiceTransactionStmt.setDouble(6, currentBalance - netInvoiceAmount + totalAmount);
-                                
-                                int invoiceTransactionInserted = invoiceTransactionStmt.executeUpdate();
-                                if (invoiceTransactionInserted > 0) {
-                                    System.out.println("DEBUG: Customer invoice transaction ledger entry added for invoice: " + invoiceNumber);
-                                    System.out.println("DEBUG: Total Amount (before discounts): " + totalAmount);
-                                    System.out.println("DEBUG: Regular Discount: " + discountAmount);
-                                    System.out.println("DEBUG: Other Discount: " + otherDiscount);
-                                    System.out.println("DEBUG: Net Amount (after discounts): " + (totalAmount - discountAmount - otherDiscount));
-                                    
-                                    // If payment was made, add separate payment transaction
-                                    if (paidAmount > 0) {
-                                        String insertPaymentTransactionQuery = "INSERT INTO Customer_Transaction " +
-                                                               "(customer_id, transaction_date, transaction_type, amount, description, reference_invoice_number, balance_after_transaction) " +
-                                                               "VALUES (?, ?, 'payment_received', ?, ?, ?, ?)";
-                                        
-                                        try (PreparedStatement paymentTransactionStmt = connection.prepareStatement(insertPaymentTransactionQuery)) {
-                                            paymentTransactionStmt.setInt(1, customerId);
-                                            paymentTransactionStmt.setString(2, salesDate);
-                                            paymentTransactionStmt.setDouble(3, paidAmount);
-                                            paymentTransactionStmt.setString(4, "Payment for Invoice - " + invoiceNumber);
-                                            paymentTransactionStmt.setString(5, invoiceNumber);
-                                            paymentTransactionStmt.setDouble(6, currentBalance);
-                                            
-                                            int paymentTransactionInserted = paymentTransactionStmt.executeUpdate();
-                                            if (paymentTransactionInserted > 0) {
-                                                System.out.println("DEBUG: Customer payment transaction ledger entry added for invoice: " + invoiceNumber);
-                                                
-                                // Insert into Sales_Book table
-                                try {
-                                    // Calculate the actual balance details as they would appear on the invoice
-                                    double netInvoiceTotal = totalAmount - discountAmount - otherDiscount;
-                                    Object[] balanceDetails = getCustomerInvoiceBalanceDetails(
-                                        customerName, invoiceNumber, netInvoiceTotal, paidAmount, previousBalanceBeforeInvoice
-                                    );
-                                    double previousBalance = (Double) balanceDetails[0];
-                                    double totalBalance = (Double) balanceDetails[1];
-                                    double netBalance = (Double) balanceDetails[2];
-                                    
-                                    System.out.println("DEBUG: Storing Sales_Book data for " + invoiceNumber + ":");
-                                    System.out.println("  Net Invoice Amount: " + netInvoiceTotal);
-                                    System.out.println("  Previous Balance: " + previousBalance);
-                                    System.out.println("  Total Balance: " + totalBalance);
-                                    System.out.println("  Net Balance: " + netBalance);                                                    for (Object[] item : items) {
-                                                        int productionId = ((Number) item[0]).intValue();
-                                                        String productName = getProductionStockNameById(productionId);
-                                                        String brandName = getBrandNameByProductionId(productionId);
-                                                        String manufacturerName = getManufacturerNameByProductionId(productionId);
-                                                        double quantity = ((Number) item[1]).doubleValue();
-                                                        double unitPrice = ((Number) item[2]).doubleValue();
-                                                        double discountPercentage = ((Number) item[3]).doubleValue();
-                                                        double itemDiscountAmount = ((Number) item[4]).doubleValue();
-                                                        double itemTotal = quantity * unitPrice - itemDiscountAmount;
-                                                        
-                                                        insertSalesBookEntry(
-                                                            salesInvoiceId,
-                                                            invoiceNumber,
-                                                            customerName,
-                                                            salesDate,
-                                                            productName,
-                                                            brandName,
-                                                            manufacturerName,
-                                                            quantity,
-                                                            unitPrice,
-                                                            discountPercentage,
-                                                            itemDiscountAmount,
-                                                            itemTotal,
-                                                            totalAmount,
-                                                            otherDiscount,
-                                                            paidAmount,
-                                                            netInvoiceTotal,    // Net invoice amount after all discounts
-                                                            previousBalance,    // Customer balance before this invoice
-                                                            totalBalance,       // Previous balance + net invoice amount
-                                                            netBalance          // Total balance - paid amount
-                                                        );
-                                                    }
-                                                } catch (Exception e) {
-                                                    System.err.println("Failed to insert into Sales_Book: " + e.getMessage());
-                                                    e.printStackTrace();
-                                                    connection.rollback();
-                                                    return false;
-                                                }
-                                                
-                                                connection.commit();
-                                                System.out.println("DEBUG: Transaction committed successfully");
-                                                return true;
-                                            } else {
-                                                System.out.println("DEBUG: Failed to add customer payment transaction ledger entry, rolling back");
-                                                connection.rollback();
-                                                return false;
-                                            }
-                                        }
-                                    } else {
-                                        // No payment made, just commit the invoice transaction
-                                        
-                        // Insert into Sales_Book table
-                        try {
-                            // Calculate the actual balance details as they would appear on the invoice
-                            double netInvoiceTotal = totalAmount - discountAmount - otherDiscount;
-                            Object[] balanceDetails = getCustomerInvoiceBalanceDetails(
-                                customerName, invoiceNumber, netInvoiceTotal, paidAmount, previousBalanceBeforeInvoice
-                            );
-                            double previousBalance = (Double) balanceDetails[0];
-                            double totalBalance = (Double) balanceDetails[1];
-                            double netBalance = (Double) balanceDetails[2];
-                            
-                            System.out.println("DEBUG: Storing Sales_Book data (no payment) for " + invoiceNumber + ":");
-                            System.out.println("  Net Invoice Amount: " + netInvoiceTotal);
-                            System.out.println("  Previous Balance: " + previousBalance);
-                            System.out.println("  Total Balance: " + totalBalance);
-                            System.out.println("  Net Balance: " + netBalance);                                            for (Object[] item : items) {
-                                                int productionId = ((Number) item[0]).intValue();
-                                                String productName = getProductionStockNameById(productionId);
-                                                String brandName = getBrandNameByProductionId(productionId);
-                                                String manufacturerName = getManufacturerNameByProductionId(productionId);
-                                                double quantity = ((Number) item[1]).doubleValue();
-                                                double unitPrice = ((Number) item[2]).doubleValue();
-                                                double discountPercentage = ((Number) item[3]).doubleValue();
-                                                double itemDiscountAmount = ((Number) item[4]).doubleValue();
-                                                double itemTotal = quantity * unitPrice - itemDiscountAmount;
-                                                
-                                                insertSalesBookEntry(
-                                                    salesInvoiceId,
-                                                    invoiceNumber,
-                                                    customerName,
-                                                    salesDate,
-                                                    productName,
-                                                    brandName,
-                                                    manufacturerName,
-                                                    quantity,
-                                                    unitPrice,
-                                                    discountPercentage,
-                                                    itemDiscountAmount,
-                                                    itemTotal,
-                                                    totalAmount,
-                                                    otherDiscount,
-                                                    paidAmount,
-                                                    netInvoiceTotal,    // Net invoice amount after all discounts
-                                                    previousBalance,    // Customer balance before this invoice
-                                                    totalBalance,       // Previous balance + net invoice amount
-                                                    netBalance          // Total balance - paid amount
-                                                );
-                                            }
-                                        } catch (Exception e) {
-                                            System.err.println("Failed to insert into Sales_Book: " + e.getMessage());
-                                            e.printStackTrace();
-                                            connection.rollback();
-                                            return false;
-                                        }
-                                        
-                                        connection.commit();
-                                        System.out.println("DEBUG: Transaction committed successfully");
-                                        return true;
-                                    }
-                                } else {
-                                    System.out.println("DEBUG: Failed to add customer invoice transaction ledger entry, rolling back");
-                                    connection.rollback();
-                                    return false;
-                                }
-                            }
-                        } else {
-                            System.out.println("DEBUG: Failed to update customer balance, rolling back");
-                            connection.rollback();
-                            return false;
-                        }
-                    }
-                } else {
-                    System.out.println("DEBUG: Failed to insert sales invoice items, rolling back");
-                    connection.rollback();
-                    return false;
-                }
-            } else {
-                System.out.println("DEBUG: Failed to create sales invoice, rolling back");
-                connection.rollback();
-                return false;
-            }
-        } catch (SQLException e) {
+            String number = allocateInvoiceNumber(invoiceNumber, InvoiceSequence.SALES);
+            int salesInvoiceId = SalesInvoicePipeline.saveSalesInvoice(connection, number, customerId, salesDate,
+                                                                      totalAmount, discountAmount, otherDiscount,
+                                                                      paidAmount, items);
+            savedInvoiceNumber.set(number);
+            Log.debug("Sales invoice " + number + " saved with ID: " + salesInvoiceId);
+            return true;
+        } catch (SQLException | RuntimeException e) {
+            rollbackQuietly();
             System.err.println("Error in insertSalesInvoice: " + e.getMessage());
             e.printStackTrace();
-            try {
-                connection.rollback();
-            } catch (SQLException rollbackEx) {
-                System.err.println("Error rolling back transaction: " + rollbackEx.getMessage());
-            }
             return false;
         } finally {
-            try {
-                connection.setAutoCommit(true);
-            } catch (SQLException e) {
-                System.err.println("Error resetting auto-commit: " + e.getMessage());
-            }
+            restoreAutoCommit();
         }
     }
 
@@ -6560,22 +6384,7 @@ public class SQLiteDatabase implements db {
     // --------------------------
     @Override
     public String generateSalesReturnInvoiceNumber() {
-        String query = "SELECT MAX(CAST(SUBSTR(return_invoice_number, 5) AS INTEGER)) as max_number " +
-                      "FROM Sales_Return_Invoice WHERE return_invoice_number LIKE 'SRI-%'";
-        try (Statement stmt = connection.createStatement();
-             ResultSet rs = stmt.executeQuery(query)) {
-            if (rs.next()) {
-                int maxNumber = rs.getInt("max_number");
-                if (rs.wasNull() || maxNumber < 1) {
-                    return "SRI-001";
-                } else {
-                    return String.format("SRI-%03d", maxNumber + 1);
-                }
-            }
-        } catch (SQLException e) {
-            e.printStackTrace();
-        }
-        return "SRI-001";
+        return nextInvoiceNumber(InvoiceSequence.SALES_RETURN);
     }
 
     @Override
@@ -6607,6 +6416,14 @@ public class SQLiteDatabase implements db {
     @Override
     public List<Object[]> getSalesInvoiceItemsByInvoiceId(int salesInvoiceId) {
         List<Object[]> items = new ArrayList<>();
+        for (SalesInvoiceItemRow row : getSalesInvoiceItemRows(salesInvoiceId)) {
+            items.add(row.toArray());
+        }
+        return items;
+    }
+
+    @Override
+    public List<SalesInvoiceItemRow> getSalesInvoiceItemRows(int salesInvoiceId) {
         String query = "SELECT sii.production_stock_id, ps.product_name, sii.quantity, sii.unit_price, " +
                       "COALESCE(sii.discount_percentage, 0.0) as discount_percentage, " +
                       "COALESCE(sii.discount_amount, 0.0) as discount_amount " +
@@ -6616,24 +6433,41 @@ public class SQLiteDatabase implements db {
         
         try (PreparedStatement pstmt = connection.prepareStatement(query)) {
             pstmt.setInt(1, salesInvoiceId);
-            
-            try (ResultSet rs = pstmt.executeQuery()) {
-                while (rs.next()) {
-                    Object[] row = {
-                        rs.getInt("production_stock_id"),
-                        rs.getString("product_name"),
-                        rs.getDouble("quantity"),
-                        rs.getDouble("unit_price"),
-                        rs.getDouble("discount_percentage"),
-                        rs.getDouble("discount_amount")
-                    };
-                    items.add(row);
-                }
-            }
+            return RowMapper.list(pstmt, RowMapper.SALES_INVOICE_ITEM);
         } catch (SQLException e) {
             e.printStackTrace();
         }
-        return items;
+        return new ArrayList<>();
+    }
+
+    @Override
+    public Map<String, List<Object[]>> getSalesInvoiceItemsByNumbers(Collection<String> invoiceNumbers, String fromDate) {
+        Connection reader = null;
+        try {
+            reader = provider.acquireReader(fromDate);
+            return InvoiceItemLookup.salesItems(reader, invoiceNumbers);
+        } catch (SQLException e) {
+            System.err.println("ERROR: Failed to load sales invoice items: " + e.getMessage());
+            e.printStackTrace();
+        } finally {
+            provider.releaseReader(reader);
+        }
+        return new HashMap<>();
+    }
+
+    @Override
+    public Map<String, List<Object[]>> getRawPurchaseInvoiceItemsByNumbers(Collection<String> invoiceNumbers, String fromDate) {
+        Connection reader = null;
+        try {
+            reader = provider.acquireReader(fromDate);
+            return InvoiceItemLookup.rawPurchaseItems(reader, invoiceNumbers);
+        } catch (SQLException e) {
+            System.err.println("ERROR: Failed to load raw purchase invoice items: " + e.getMessage());
+            e.printStackTrace();
+        } finally {
+            provider.releaseReader(reader);
+        }
+        return new HashMap<>();
     }
 
     @Override
@@ -6761,7 +6595,7 @@ public class SQLiteDatabase implements db {
                         balanceStmt.setInt(2, customerId);
                         balanceStmt.executeUpdate();
                         
-                        System.out.println("DEBUG: Customer balance reduced by return amount: " + totalReturnAmount);
+                        Log.debug("Customer balance reduced by return amount: " + totalReturnAmount);
                         
                         // Add ledger entry for sales return (credit to customer)
                         double currentBalance = getCustomerCurrentBalance(getCustomerNameById(customerId));
@@ -6779,28 +6613,28 @@ public class SQLiteDatabase implements db {
                             
                             int transactionInserted = transactionStmt.executeUpdate();
                             if (transactionInserted > 0) {
-                                System.out.println("DEBUG: Customer return transaction ledger entry added for return invoice: " + returnInvoiceNumber);
+                                Log.debug("Customer return transaction ledger entry added for return invoice: " + returnInvoiceNumber);
                             } else {
-                                System.out.println("DEBUG: Failed to add customer return transaction ledger entry");
+                                Log.debug("Failed to add customer return transaction ledger entry");
                             }
                         }
                     }
                 } else {
-                    System.out.println("DEBUG: Cash refund - customer balance not updated");
+                    Log.debug("Cash refund - customer balance not updated");
                 }
                 
                 // Insert into Return_Sales_Book table
                 try {
                     String customerName = getCustomerNameById(customerId);
-                    System.out.println("DEBUG: Return_Sales_Book insertion for " + returnInvoiceNumber);
-                    System.out.println("  Customer: " + customerName);
-                    System.out.println("  Items count: " + items.size());
+                    Log.debug("Return_Sales_Book insertion for " + returnInvoiceNumber);
+                    Log.debug("  Customer: " + customerName);
+                    Log.debug("  Items count: " + items.size());
                     
                     for (int i = 0; i < items.size(); i++) {
                         Object[] item = items.get(i);
-                        System.out.println("  Item " + i + " array length: " + item.length);
+                        Log.debug("  Item " + i + " array length: " + item.length);
                         for (int j = 0; j < item.length; j++) {
-                            System.out.println("    item[" + j + "] = " + item[j] + " (type: " + (item[j] != null ? item[j].getClass().getSimpleName() : "null") + ")");
+                            Log.debug("    item[" + j + "] = " + item[j] + " (type: " + (item[j] != null ? item[j].getClass().getSimpleName() : "null") + ")");
                         }
                         
                         // Get product name from production stock ID
@@ -6811,16 +6645,16 @@ public class SQLiteDatabase implements db {
                         double unitPrice = ((Number) item[2]).doubleValue(); // unit price
                         double itemTotal = quantity * unitPrice; // calculate item total
                         
-                        System.out.println("  Processed values:");
-                        System.out.println("    productionStockId: " + productionStockId);
-                        System.out.println("    productName: " + productName);
-                        System.out.println("    quantity: " + quantity);
-                        System.out.println("    unitPrice: " + unitPrice);
-                        System.out.println("    itemTotal: " + itemTotal);
+                        Log.debug("  Processed values:");
+                        Log.debug("    productionStockId: " + productionStockId);
+                        Log.debug("    productName: " + productName);
+                        Log.debug("    quantity: " + quantity);
+                        Log.debug("    unitPrice: " + unitPrice);
+                        Log.debug("    itemTotal: " + itemTotal);
                         
                         // NOTE: Return_Sales_Book insertion is now handled by the comprehensive method
                         // insertSalesReturnInvoiceWithFullData() when called from the UI
-                        System.out.println("DEBUG: Skipping basic Return_Sales_Book insertion - using comprehensive method from UI");
+                        Log.debug("Skipping basic Return_Sales_Book insertion - using comprehensive method from UI");
                     }
                 } catch (Exception e) {
                     System.err.println("Failed to insert into Return_Sales_Book: " + e.getMessage());
@@ -6867,138 +6701,24 @@ public class SQLiteDatabase implements db {
                                                        List<Object[]> items, boolean updateBalance, double previousBalance,
                                                        double invoiceDiscount, double otherDiscount, double paidAmount,
                                                        double calculatedBalance, String originalInvoiceNumber) {
+        // Number, return, items, stock, balance credit and Return_Sales_Book in one transaction
         try {
             connection.setAutoCommit(false);
-            
-            int salesReturnInvoiceId = insertSalesReturnInvoiceAndGetId(returnInvoiceNumber, originalSalesInvoiceId, 
-                                                                       customerId, returnDate, totalReturnAmount);
-            
-            if (salesReturnInvoiceId > 0 && insertSalesReturnInvoiceItems(salesReturnInvoiceId, items)) {
-                // Update customer balance only if refund method is "Refund to Balance"
-                if (updateBalance) {
-                    String updateBalanceQuery = "UPDATE Customer SET balance = balance - ? WHERE customer_id = ?";
-                    
-                    try (PreparedStatement balanceStmt = connection.prepareStatement(updateBalanceQuery)) {
-                        balanceStmt.setDouble(1, totalReturnAmount);
-                        balanceStmt.setInt(2, customerId);
-                        balanceStmt.executeUpdate();
-                        
-                        System.out.println("DEBUG: Customer balance reduced by return amount: " + totalReturnAmount);
-                        
-                        // Add ledger entry for sales return (credit to customer)
-                        double currentBalance = getCustomerCurrentBalance(customerName);
-                        String insertTransactionQuery = "INSERT INTO Customer_Transaction " +
-                                                       "(customer_id, transaction_date, transaction_type, amount, description, reference_invoice_number, balance_after_transaction) " +
-                                                       "VALUES (?, ?, 'adjustment', ?, ?, ?, ?)";
-                        
-                        try (PreparedStatement transactionStmt = connection.prepareStatement(insertTransactionQuery)) {
-                            transactionStmt.setInt(1, customerId);
-                            transactionStmt.setString(2, returnDate);
-                            transactionStmt.setDouble(3, -totalReturnAmount); // Negative amount for credit
-                            transactionStmt.setString(4, "Sales Return - " + returnInvoiceNumber);
-                            transactionStmt.setString(5, returnInvoiceNumber);
-                            transactionStmt.setDouble(6, currentBalance);
-                            
-                            int transactionInserted = transactionStmt.executeUpdate();
-                            if (transactionInserted > 0) {
-                                System.out.println("DEBUG: Customer return transaction ledger entry added for return invoice: " + returnInvoiceNumber);
-                            } else {
-                                System.out.println("DEBUG: Failed to add customer return transaction ledger entry");
-                            }
-                        }
-                    }
-                } else {
-                    System.out.println("DEBUG: Cash refund - customer balance not updated");
-                }
-                
-                // Insert comprehensive data into Return_Sales_Book table
-                try {
-                    System.out.println("DEBUG: Comprehensive Return_Sales_Book insertion for " + returnInvoiceNumber);
-                    System.out.println("  Customer: " + customerName + " (" + customerContact + ", " + customerTehsil + ")");
-                    System.out.println("  Previous Balance: " + previousBalance);
-                    System.out.println("  Items count: " + items.size());
-                    
-                    for (int i = 0; i < items.size(); i++) {
-                        Object[] item = items.get(i);
-                        
-                        // Get comprehensive product details from production stock ID
-                        int productionStockId = ((Number) item[0]).intValue(); // production stock ID
-                        String productName = getProductionStockNameById(productionStockId);
-                        String brandName = getBrandNameByProductionId(productionStockId);
-                        String manufacturerName = getManufacturerNameByProductionId(productionStockId);
-                        String unitName = getUnitNameByProductionId(productionStockId);
-                        
-                        double quantity = ((Number) item[1]).doubleValue(); // quantity
-                        double unitPrice = ((Number) item[2]).doubleValue(); // unit price
-                        
-                        // Calculate item-level values (for return invoices, typically no discounts)
-                        double itemDiscountPercentage = 0.0;
-                        double itemDiscountAmount = 0.0;
-                        double itemTotal = quantity * unitPrice;
-                        
-                        System.out.println("  Item " + i + ": " + productName + " (" + brandName + ", " + manufacturerName + ")");
-                        System.out.println("    Quantity: " + quantity + " " + unitName);
-                        System.out.println("    Unit Price: " + unitPrice);
-                        System.out.println("    Item Total: " + itemTotal);
-                        
-                        boolean success = insertReturnSalesBook(
-                            returnDate,
-                            returnInvoiceNumber,
-                            customerName,
-                            customerContact,
-                            customerTehsil,
-                            productName,
-                            brandName,
-                            manufacturerName,
-                            unitName,
-                            (int) quantity,
-                            unitPrice,
-                            itemDiscountPercentage,
-                            itemDiscountAmount,
-                            itemTotal,
-                            totalReturnAmount,
-                            previousBalance,
-                            invoiceDiscount,
-                            otherDiscount,
-                            paidAmount,
-                            calculatedBalance,
-                            originalInvoiceNumber,
-                            salesReturnInvoiceId
-                        );
-                        
-                        if (!success) {
-                            System.err.println("Failed to insert comprehensive return sales book entry for item: " + productName);
-                            connection.rollback();
-                            return false;
-                        }
-                    }
-                } catch (Exception e) {
-                    System.err.println("Failed to insert comprehensive Return_Sales_Book data: " + e.getMessage());
-                    e.printStackTrace();
-                    connection.rollback();
-                    return false;
-                }
-                
-                connection.commit();
-                return true;
-            } else {
-                connection.rollback();
-                return false;
-            }
-        } catch (SQLException e) {
-            try {
-                connection.rollback();
-            } catch (SQLException rollbackEx) {
-                rollbackEx.printStackTrace();
-            }
+            String number = allocateInvoiceNumber(returnInvoiceNumber, InvoiceSequence.SALES_RETURN);
+            int salesReturnInvoiceId = SalesInvoicePipeline.saveSalesReturn(connection, number,
+                originalSalesInvoiceId, customerId, customerName, customerContact, customerTehsil, returnDate,
+                totalReturnAmount, items, updateBalance, previousBalance, invoiceDiscount, otherDiscount,
+                paidAmount, calculatedBalance, originalInvoiceNumber);
+            savedInvoiceNumber.set(number);
+            Log.debug("Sales return " + number + " saved with ID: " + salesReturnInvoiceId);
+            return true;
+        } catch (SQLException | RuntimeException e) {
+            rollbackQuietly();
+            System.err.println("Failed to save sales return " + returnInvoiceNumber + ": " + e.getMessage());
             e.printStackTrace();
             return false;
         } finally {
-            try {
-                connection.setAutoCommit(true);
-            } catch (SQLException e) {
-                e.printStackTrace();
-            }
+            restoreAutoCommit();
         }
     }    @Override
     public List<Object[]> getAllSalesReturnInvoices() {
@@ -7584,8 +7304,7 @@ public class SQLiteDatabase implements db {
                     String tehsil = rs.getString("tehsil_name");
                     String contact = rs.getString("contact_number");
                     
-                    // Debug information
-                    System.out.println("Supplier Details: ID=" + id + ", Name=" + name + 
+                    Log.debug("Supplier Details: ID=" + id + ", Name=" + name + 
                                      ", Address=" + address + ", Tehsil=" + tehsil + 
                                      ", Contact=" + contact);
                     
@@ -7609,7 +7328,11 @@ public class SQLiteDatabase implements db {
         String query = "DELETE FROM Category WHERE category_name = ?";
         try (PreparedStatement pstmt = connection.prepareStatement(query)) {
             pstmt.setString(1, categoryName);
-            return pstmt.executeUpdate() > 0;
+            boolean deleted = pstmt.executeUpdate() > 0;
+            if (deleted) {
+                invalidateMasterData(MasterDataCache.Kind.CATEGORY);
+            }
+            return deleted;
         } catch (SQLException e) {
             e.printStackTrace();
         }
@@ -7621,7 +7344,11 @@ public class SQLiteDatabase implements db {
         String query = "DELETE FROM Manufacturer WHERE manufacturer_name = ?";
         try (PreparedStatement pstmt = connection.prepareStatement(query)) {
             pstmt.setString(1, name);
-            return pstmt.executeUpdate() > 0;
+            boolean deleted = pstmt.executeUpdate() > 0;
+            if (deleted) {
+                invalidateMasterData(MasterDataCache.Kind.MANUFACTURER);
+            }
+            return deleted;
         } catch (SQLException e) {
             e.printStackTrace();
         }
@@ -7633,7 +7360,11 @@ public class SQLiteDatabase implements db {
         String query = "DELETE FROM Brand WHERE brand_name = ?";
         try (PreparedStatement pstmt = connection.prepareStatement(query)) {
             pstmt.setString(1, name);
-            return pstmt.executeUpdate() > 0;
+            boolean deleted = pstmt.executeUpdate() > 0;
+            if (deleted) {
+                invalidateMasterData(MasterDataCache.Kind.BRAND);
+            }
+            return deleted;
         } catch (SQLException e) {
             e.printStackTrace();
         }
@@ -7645,7 +7376,11 @@ public class SQLiteDatabase implements db {
         String query = "DELETE FROM Province WHERE province_name = ?";
         try (PreparedStatement pstmt = connection.prepareStatement(query)) {
             pstmt.setString(1, provinceName);
-            return pstmt.executeUpdate() > 0;
+            boolean deleted = pstmt.executeUpdate() > 0;
+            if (deleted) {
+                invalidateMasterData(MasterDataCache.Kind.PROVINCE);
+            }
+            return deleted;
         } catch (SQLException e) {
             e.printStackTrace();
         }
@@ -7657,7 +7392,11 @@ public class SQLiteDatabase implements db {
         String query = "DELETE FROM District WHERE district_name = ?";
         try (PreparedStatement pstmt = connection.prepareStatement(query)) {
             pstmt.setString(1, districtName);
-            return pstmt.executeUpdate() > 0;
+            boolean deleted = pstmt.executeUpdate() > 0;
+            if (deleted) {
+                invalidateMasterData(MasterDataCache.Kind.DISTRICT);
+            }
+            return deleted;
         } catch (SQLException e) {
             e.printStackTrace();
         }
@@ -7669,7 +7408,11 @@ public class SQLiteDatabase implements db {
         String query = "DELETE FROM Tehsil WHERE tehsil_name = ?";
         try (PreparedStatement pstmt = connection.prepareStatement(query)) {
             pstmt.setString(1, tehsilName);
-            return pstmt.executeUpdate() > 0;
+            boolean deleted = pstmt.executeUpdate() > 0;
+            if (deleted) {
+                invalidateMasterData(MasterDataCache.Kind.TEHSIL);
+            }
+            return deleted;
         } catch (SQLException e) {
             e.printStackTrace();
         }
@@ -7681,7 +7424,11 @@ public class SQLiteDatabase implements db {
         String query = "DELETE FROM Unit WHERE unit_name = ?";
         try (PreparedStatement pstmt = connection.prepareStatement(query)) {
             pstmt.setString(1, unitName);
-            return pstmt.executeUpdate() > 0;
+            boolean deleted = pstmt.executeUpdate() > 0;
+            if (deleted) {
+                invalidateMasterData(MasterDataCache.Kind.UNIT);
+            }
+            return deleted;
         } catch (SQLException e) {
             e.printStackTrace();
         }
@@ -8352,7 +8099,7 @@ public class SQLiteDatabase implements db {
 
         try (PreparedStatement pstmt = connection.prepareStatement(query)) {
             pstmt.setInt(1, invoiceID);
-            System.out.println("DEBUG: Executing getInvoiceItemsByID query with invoiceID: " + invoiceID);
+            Log.debug("Executing getInvoiceItemsByID query with invoiceID: " + invoiceID);
             try (ResultSet rs = pstmt.executeQuery()) {
                 while (rs.next()) {
                     Object[] row = {
@@ -8365,10 +8112,10 @@ public class SQLiteDatabase implements db {
                         rs.getString("manufacturer_name"), // index 6 - manufacturerName
                         rs.getString("category_name")     // index 7 - categoryName
                     };
-                    System.out.println("DEBUG: Fetched invoice item: rawStockId=" + row[0] + ", name=" + row[1] + ", brand=" + row[2]);
+                    Log.debug("Fetched invoice item: rawStockId=" + row[0] + ", name=" + row[1] + ", brand=" + row[2]);
                     items.add(row);
                 }
-                System.out.println("DEBUG: Total items fetched for invoice " + invoiceID + ": " + items.size());
+                Log.debug("Total items fetched for invoice " + invoiceID + ": " + items.size());
             }
         } catch (SQLException e) {
             System.err.println("SQL Error for invoiceID " + invoiceID + ": " + e.getMessage());
@@ -8403,10 +8150,10 @@ public class SQLiteDatabase implements db {
             String toDateStr = sdf.format(toDate);
             
             // Debug logging
-            System.out.println("DEBUG: getPurchaseReportList called with dates:");
-            System.out.println("DEBUG: fromDate: " + fromDate + " -> " + fromDateStr);
-            System.out.println("DEBUG: toDate: " + toDate + " -> " + toDateStr);
-            System.out.println("DEBUG: Query: " + query);
+            Log.debug("getPurchaseReportList called with dates:");
+            Log.debug("fromDate: " + fromDate + " -> " + fromDateStr);
+            Log.debug("toDate: " + toDate + " -> " + toDateStr);
+            Log.debug("Query: " + query);
             
             pstmt.setString(1, fromDateStr);
             pstmt.setString(2, toDateStr);
@@ -8423,10 +8170,10 @@ public class SQLiteDatabase implements db {
                     };
                     reports.add(row);
                 }
-                System.out.println("DEBUG: Loaded " + reports.size() + " purchase report rows");
+                Log.debug("Loaded " + reports.size() + " purchase report rows");
             }
         } catch (SQLException e) {
-            System.err.println("DEBUG: SQLException in getPurchaseReportList: " + e.getMessage());
+            Log.error("SQLException in getPurchaseReportList: " + e.getMessage());
             e.printStackTrace();
         }
         return reports;
@@ -8484,16 +8231,16 @@ public ResultSet getPurchaseReport(Date fromDate, Date toDate, String reportType
                 break;
 
             case "Brand-wise Report":
+                // Per-day brand totals instead of every invoice item in the range
                 finalQuery =
                     "SELECT " +
                     "b.brand_name AS brandName, " +
-                    "SUM(rpii.quantity * rpii.unit_price) AS totalCost " +
-                    "FROM Raw_Purchase_Invoice rpi " +
-                    "JOIN Raw_Purchase_Invoice_Item rpii ON rpi.raw_purchase_invoice_id = rpii.raw_purchase_invoice_id " +
-                    "JOIN Raw_Stock rs ON rpii.raw_stock_id = rs.stock_id " +
-                    "JOIN Brand b ON rs.brand_id = b.brand_id " +
-                    "WHERE rpi.invoice_date BETWEEN ? AND ? " +
+                    "SUM(r.amount) AS totalCost " +
+                    "FROM Daily_Rollup r " +
+                    "JOIN Brand b ON r.key_id = b.brand_id " +
+                    "WHERE r.kind = '" + DailyRollup.PURCHASE_BRAND + "' AND r.day BETWEEN ? AND ? " +
                     "GROUP BY b.brand_name " +
+                    "HAVING SUM(r.quantity) <> 0 OR SUM(r.amount) <> 0 " +
                     "ORDER BY totalCost DESC";
                 break;
 
@@ -8516,7 +8263,7 @@ public ResultSet getPurchaseReport(Date fromDate, Date toDate, String reportType
                 break;
         }
 
-        System.out.println("DEBUG: Final Query: " + finalQuery);
+        Log.debug("Final Query: " + finalQuery);
 
         PreparedStatement pstmt = connection.prepareStatement(finalQuery);
         SimpleDateFormat sdf = new SimpleDateFormat("yyyy-MM-dd");
@@ -8526,7 +8273,7 @@ public ResultSet getPurchaseReport(Date fromDate, Date toDate, String reportType
         return pstmt.executeQuery();
 
     } catch (SQLException e) {
-        System.err.println("DEBUG: SQLException in getPurchaseReport: " + e.getMessage());
+        Log.error("SQLException in getPurchaseReport: " + e.getMessage());
         e.printStackTrace();
         return null;
     }
@@ -8557,7 +8304,7 @@ public ResultSet getPurchaseReport(Date fromDate, Date toDate, String reportType
                         dateFilter +
                         "GROUP BY ps.product_name, cat.category_name, b.brand_name " +
                         "ORDER BY TotalAmount DESC";
-                System.out.println("DEBUG: Generated Product-wise Report Query: " + query);
+                Log.debug("Generated Product-wise Report Query: " + query);
                 break;
 
             case "Category-wise Report":
@@ -8572,22 +8319,22 @@ public ResultSet getPurchaseReport(Date fromDate, Date toDate, String reportType
                         dateFilter +
                         "GROUP BY cat.category_name " +
                         "ORDER BY TotalAmount DESC";
-                System.out.println("DEBUG: Generated Category-wise Report Query: " + query);
+                Log.debug("Generated Category-wise Report Query: " + query);
                 break;
 
             case "Brand-wise Report":
+                // Per-day brand totals instead of every invoice item in the range
                 query = "SELECT " +
                         "b.brand_name AS Brand, " +
-                        "SUM(sii.quantity) AS Quantity, " +
-                        "SUM(sii.total_price) AS TotalAmount " +
-                        "FROM Sales_Invoice si " +
-                        "JOIN Sales_Invoice_Item sii ON si.sales_invoice_id = sii.sales_invoice_id " +
-                        "JOIN ProductionStock ps ON sii.production_stock_id = ps.production_id " +
-                        "JOIN Brand b ON ps.brand_id = b.brand_id " +
-                        dateFilter +
+                        "SUM(r.quantity) AS Quantity, " +
+                        "SUM(r.amount) AS TotalAmount " +
+                        "FROM Daily_Rollup r " +
+                        "JOIN Brand b ON r.key_id = b.brand_id " +
+                        "WHERE r.kind = '" + DailyRollup.SALES_BRAND + "' AND r.day BETWEEN ? AND ? " +
                         "GROUP BY b.brand_name " +
+                        "HAVING SUM(r.quantity) <> 0 OR SUM(r.amount) <> 0 " +
                         "ORDER BY TotalAmount DESC";
-                System.out.println("DEBUG: Generated Brand-wise Report Query: " + query);
+                Log.debug("Generated Brand-wise Report Query: " + query);
                 break;
 
             case "Manufacturer-wise Report":
@@ -8602,7 +8349,7 @@ public ResultSet getPurchaseReport(Date fromDate, Date toDate, String reportType
                         dateFilter +
                         "GROUP BY m.manufacturer_name " +
                         "ORDER BY TotalAmount DESC";
-                System.out.println("DEBUG: Generated Manufacturer-wise Report Query: " + query);
+                Log.debug("Generated Manufacturer-wise Report Query: " + query);
                 break;
 
             default: // "All Reports"
@@ -8617,21 +8364,21 @@ public ResultSet getPurchaseReport(Date fromDate, Date toDate, String reportType
                         "LEFT JOIN Customer c ON si.customer_id = c.customer_id " +
                         dateFilter +
                         "ORDER BY si.sales_date DESC";
-                System.out.println("DEBUG: Generated All Reports Query: " + query);
+                Log.debug("Generated All Reports Query: " + query);
                 break;
         }
 
         try {
-            PreparedStatement pstmt = connection.prepareStatement(query);
             SimpleDateFormat sdf = new SimpleDateFormat("yyyy-MM-dd");
             String fromDateStr = sdf.format(fromDate);
             String toDateStr = sdf.format(toDate);
+            PreparedStatement pstmt = reportConnection(fromDateStr).prepareStatement(query);
 
             pstmt.setString(1, fromDateStr);
             pstmt.setString(2, toDateStr);
 
-            System.out.println("DEBUG: getSalesReport [" + reportType + "]");
-            System.out.println("Query: " + query);
+            Log.debug("getSalesReport [" + reportType + "]");
+            Log.debug("Query: " + query);
 
             return pstmt.executeQuery();
         } catch (SQLException e) {
@@ -8734,11 +8481,11 @@ public ResultSet getPurchaseReport(Date fromDate, Date toDate, String reportType
             String toDateStr = sdf.format(toDate);
             
             // Debug logging
-            System.out.println("DEBUG: getReturnPurchaseReport called with dates:");
-            System.out.println("DEBUG: fromDate: " + fromDate + " -> " + fromDateStr);
-            System.out.println("DEBUG: toDate: " + toDate + " -> " + toDateStr);
-            System.out.println("DEBUG: reportType: " + reportType);
-            System.out.println("DEBUG: Query: " + query);
+            Log.debug("getReturnPurchaseReport called with dates:");
+            Log.debug("fromDate: " + fromDate + " -> " + fromDateStr);
+            Log.debug("toDate: " + toDate + " -> " + toDateStr);
+            Log.debug("reportType: " + reportType);
+            Log.debug("Query: " + query);
             
             pstmt.setString(1, fromDateStr);
             pstmt.setString(2, toDateStr);
@@ -8746,11 +8493,11 @@ public ResultSet getPurchaseReport(Date fromDate, Date toDate, String reportType
             ResultSet rs = pstmt.executeQuery();
             
             // Debug: Just log that we're returning the ResultSet
-            System.out.println("DEBUG: Returning ResultSet from getReturnPurchaseReport");
+            Log.debug("Returning ResultSet from getReturnPurchaseReport");
             
             return rs;
         } catch (SQLException e) {
-            System.err.println("DEBUG: SQLException in getReturnPurchaseReport: " + e.getMessage());
+            Log.error("SQLException in getReturnPurchaseReport: " + e.getMessage());
             e.printStackTrace();
             return null;
         }
@@ -8758,14 +8505,14 @@ public ResultSet getPurchaseReport(Date fromDate, Date toDate, String reportType
 
     @Override
     public ResultSet getReturnSalesReport(Date fromDate, Date toDate, String reportType) {
-        System.out.println("DEBUG: getReturnSalesReport called with dates: " + fromDate + " to " + toDate + " and reportType: " + reportType);
+        Log.debug("getReturnSalesReport called with dates: " + fromDate + " to " + toDate + " and reportType: " + reportType);
         
         // Convert Date to string format for comparison
         SimpleDateFormat sdf = new SimpleDateFormat("yyyy-MM-dd");
         String fromDateStr = sdf.format(fromDate);
         String toDateStr = sdf.format(toDate);
         
-        System.out.println("DEBUG: Date strings: " + fromDateStr + " to " + toDateStr + ", Report type: " + reportType);
+        Log.debug("Date strings: " + fromDateStr + " to " + toDateStr + ", Report type: " + reportType);
         
         String query;
         
@@ -8842,14 +8589,14 @@ public ResultSet getPurchaseReport(Date fromDate, Date toDate, String reportType
         }
         
         try {
-            PreparedStatement pstmt = connection.prepareStatement(query);
+            PreparedStatement pstmt = reportConnection(fromDateStr).prepareStatement(query);
             pstmt.setString(1, fromDateStr);
             pstmt.setString(2, toDateStr);
             
-            System.out.println("DEBUG: Executing return sales report query: " + query);
+            Log.debug("Executing return sales report query: " + query);
             return pstmt.executeQuery();
         } catch (SQLException e) {
-            System.err.println("DEBUG: SQLException in getReturnSalesReport: " + e.getMessage());
+            Log.error("SQLException in getReturnSalesReport: " + e.getMessage());
             e.printStackTrace();
             return null;
         }
@@ -8857,40 +8604,42 @@ public ResultSet getPurchaseReport(Date fromDate, Date toDate, String reportType
 
     @Override
     public ResultSet getBankTransferReport(Date fromDate, Date toDate) {
-        System.out.println("DEBUG: getBankTransferReport called with dates: " + fromDate + " to " + toDate);
+        Log.debug("getBankTransferReport called with dates: " + fromDate + " to " + toDate);
         
         // Convert Date to String format (YYYY-MM-DD) for SQLite comparison
         SimpleDateFormat sdf = new SimpleDateFormat("yyyy-MM-dd");
         String fromDateStr = sdf.format(fromDate);
         String toDateStr = sdf.format(toDate);
         
-        System.out.println("DEBUG: Date strings: " + fromDateStr + " to " + toDateStr);
+        Log.debug("Date strings: " + fromDateStr + " to " + toDateStr);
         
-        // First, let's check all bank transactions to see what's available
-        String debugQuery = "SELECT transaction_type, COUNT(*) as count FROM Bank_Transaction GROUP BY transaction_type";
-        try (PreparedStatement debugStmt = connection.prepareStatement(debugQuery)) {
-            ResultSet debugRs = debugStmt.executeQuery();
-            System.out.println("DEBUG: Available transaction types in Bank_Transaction:");
-            while (debugRs.next()) {
-                System.out.println("  - " + debugRs.getString("transaction_type") + ": " + debugRs.getInt("count") + " records");
+        if (Log.isDebugEnabled()) {
+            // First, let's check all bank transactions to see what's available
+            String debugQuery = "SELECT transaction_type, COUNT(*) as count FROM Bank_Transaction GROUP BY transaction_type";
+            try (PreparedStatement debugStmt = connection.prepareStatement(debugQuery)) {
+                ResultSet debugRs = debugStmt.executeQuery();
+                Log.debug("Available transaction types in Bank_Transaction:");
+                while (debugRs.next()) {
+                    Log.debug("  - " + debugRs.getString("transaction_type") + ": " + debugRs.getInt("count") + " records");
+                }
+                debugRs.close();
+            } catch (SQLException e) {
+                Log.debug("Error checking transaction types: " + e.getMessage());
             }
-            debugRs.close();
-        } catch (SQLException e) {
-            System.err.println("DEBUG: Error checking transaction types: " + e.getMessage());
-        }
         
-        // Check transactions in date range
-        String dateCheckQuery = "SELECT COUNT(*) as count FROM Bank_Transaction WHERE transaction_date >= ? AND transaction_date <= ?";
-        try (PreparedStatement dateStmt = connection.prepareStatement(dateCheckQuery)) {
-            dateStmt.setString(1, fromDateStr);
-            dateStmt.setString(2, toDateStr);
-            ResultSet dateRs = dateStmt.executeQuery();
-            if (dateRs.next()) {
-                System.out.println("DEBUG: Transactions in date range " + fromDateStr + " to " + toDateStr + ": " + dateRs.getInt("count"));
+            // Check transactions in date range
+            String dateCheckQuery = "SELECT COUNT(*) as count FROM Bank_Transaction WHERE transaction_date >= ? AND transaction_date <= ?";
+            try (PreparedStatement dateStmt = connection.prepareStatement(dateCheckQuery)) {
+                dateStmt.setString(1, fromDateStr);
+                dateStmt.setString(2, toDateStr);
+                ResultSet dateRs = dateStmt.executeQuery();
+                if (dateRs.next()) {
+                    Log.debug("Transactions in date range " + fromDateStr + " to " + toDateStr + ": " + dateRs.getInt("count"));
+                }
+                dateRs.close();
+            } catch (SQLException e) {
+                Log.debug("Error checking date range: " + e.getMessage());
             }
-            dateRs.close();
-        } catch (SQLException e) {
-            System.err.println("DEBUG: Error checking date range: " + e.getMessage());
         }
         
         String query = "SELECT " +
@@ -8916,12 +8665,12 @@ public ResultSet getPurchaseReport(Date fromDate, Date toDate, String reportType
             pstmt.setString(1, fromDateStr);
             pstmt.setString(2, toDateStr);
             
-            System.out.println("DEBUG: Executing bank transfer query: " + query);
-            System.out.println("DEBUG: Parameters: " + fromDateStr + ", " + toDateStr);
+            Log.debug("Executing bank transfer query: " + query);
+            Log.debug("Parameters: " + fromDateStr + ", " + toDateStr);
             
             return pstmt.executeQuery();
         } catch (SQLException e) {
-            System.err.println("DEBUG: SQLException in getBankTransferReport: " + e.getMessage());
+            Log.error("SQLException in getBankTransferReport: " + e.getMessage());
             e.printStackTrace();
             return null;
         }
@@ -8929,27 +8678,27 @@ public ResultSet getPurchaseReport(Date fromDate, Date toDate, String reportType
 
     @Override
     public ResultSet getProfitReport(Date fromDate, Date toDate) {
-        System.out.println("DEBUG: Profit Report - Getting data from " + fromDate + " to " + toDate);
+        Log.debug("Profit Report - Getting data from " + fromDate + " to " + toDate);
         
         // First, let's check table counts for debugging
         try {
             Statement stmt = connection.createStatement();
             ResultSet countRs = stmt.executeQuery("SELECT COUNT(*) as count FROM Sales_Invoice");
             if (countRs.next()) {
-                System.out.println("DEBUG: Total Sales_Invoice records: " + countRs.getInt("count"));
+                Log.debug("Total Sales_Invoice records: " + countRs.getInt("count"));
             }
             
             countRs = stmt.executeQuery("SELECT COUNT(*) as count FROM Sales_Invoice_Item");
             if (countRs.next()) {
-                System.out.println("DEBUG: Total Sales_Invoice_Item records: " + countRs.getInt("count"));
+                Log.debug("Total Sales_Invoice_Item records: " + countRs.getInt("count"));
             }
             
             countRs = stmt.executeQuery("SELECT COUNT(*) as count FROM ProductionStock");
             if (countRs.next()) {
-                System.out.println("DEBUG: Total ProductionStock records: " + countRs.getInt("count"));
+                Log.debug("Total ProductionStock records: " + countRs.getInt("count"));
             }
         } catch (SQLException e) {
-            System.out.println("DEBUG: Error getting table counts: " + e.getMessage());
+            Log.debug("Error getting table counts: " + e.getMessage());
         }
         
         String query = "SELECT " +
@@ -8965,45 +8714,47 @@ public ResultSet getPurchaseReport(Date fromDate, Date toDate, String reportType
                       "GROUP BY si.sales_invoice_number, si.sales_date " +
                       "ORDER BY si.sales_date DESC";
         
-        System.out.println("DEBUG: Executing profit query: " + query);
-        System.out.println("DEBUG: Date range: " + fromDate + " to " + toDate);
+        Log.debug("Executing profit query: " + query);
+        Log.debug("Date range: " + fromDate + " to " + toDate);
         
         try {
-            PreparedStatement pstmt = connection.prepareStatement(query);
+            PreparedStatement pstmt = reportConnection(fromDate.toString()).prepareStatement(query);
             pstmt.setString(1, fromDate.toString());
             pstmt.setString(2, toDate.toString());
             
             ResultSet rs = pstmt.executeQuery();
-            System.out.println("DEBUG: Profit query executed successfully");
+            Log.debug("Profit query executed successfully");
             
-            // Test query without date filter to see if we get any results
-            try {
-                Statement testStmt = connection.createStatement();
-                ResultSet testRs = testStmt.executeQuery(
-                    "SELECT si.sales_invoice_number, si.sales_date, " +
-                    "SUM(sii.quantity * CASE WHEN ps.sale_price > 0 THEN ps.sale_price ELSE sii.unit_price END) as sale_amount, " +
-                    "SUM(sii.quantity * ps.unit_cost) as cost_amount " +
-                    "FROM Sales_Invoice si " +
-                    "JOIN Sales_Invoice_Item sii ON si.sales_invoice_id = sii.sales_invoice_id " +
-                    "JOIN ProductionStock ps ON sii.production_stock_id = ps.production_id " +
-                    "GROUP BY si.sales_invoice_number, si.sales_date LIMIT 3"
-                );
-                int testCount = 0;
-                while (testRs.next()) {
-                    System.out.println("DEBUG: Test result - Invoice: " + testRs.getString("sales_invoice_number") + 
-                                     ", Date: " + testRs.getString("sales_date") + 
-                                     ", Sale: " + testRs.getDouble("sale_amount") + 
-                                     ", Cost: " + testRs.getDouble("cost_amount"));
-                    testCount++;
-                }
-                System.out.println("DEBUG: Test query returned " + testCount + " results");
-            } catch (SQLException e) {
-                System.out.println("DEBUG: Test query failed: " + e.getMessage());
+            if (Log.isDebugEnabled()) {
+                // Test query without date filter to see if we get any results
+                try {
+                    Statement testStmt = connection.createStatement();
+                    ResultSet testRs = testStmt.executeQuery(
+                        "SELECT si.sales_invoice_number, si.sales_date, " +
+                        "SUM(sii.quantity * CASE WHEN ps.sale_price > 0 THEN ps.sale_price ELSE sii.unit_price END) as sale_amount, " +
+                        "SUM(sii.quantity * ps.unit_cost) as cost_amount " +
+                        "FROM Sales_Invoice si " +
+                        "JOIN Sales_Invoice_Item sii ON si.sales_invoice_id = sii.sales_invoice_id " +
+                        "JOIN ProductionStock ps ON sii.production_stock_id = ps.production_id " +
+                        "GROUP BY si.sales_invoice_number, si.sales_date LIMIT 3"
+                    );
+                    int testCount = 0;
+                    while (testRs.next()) {
+                        Log.debug("Test result - Invoice: " + testRs.getString("sales_invoice_number") + 
+                                         ", Date: " + testRs.getString("sales_date") + 
+                                         ", Sale: " + testRs.getDouble("sale_amount") + 
+                                         ", Cost: " + testRs.getDouble("cost_amount"));
+                        testCount++;
+                    }
+                    Log.debug("Test query returned " + testCount + " results");
+                } catch (SQLException e) {
+                    Log.debug("Test query failed: " + e.getMessage());
+                }
             }
             
             return rs;
         } catch (SQLException e) {
-            System.out.println("DEBUG: Error executing profit query: " + e.getMessage());
+            Log.debug("Error executing profit query: " + e.getMessage());
             e.printStackTrace();
             return null;
         }
@@ -9011,135 +8762,38 @@ public ResultSet getPurchaseReport(Date fromDate, Date toDate, String reportType
 
     @Override
     public ResultSet getSummaryReport(Date fromDate, Date toDate) {
-        System.out.println("DEBUG: Summary Report - Getting data from " + fromDate + " to " + toDate);
-        
-        // First, let's check what data exists in each table
-        try {
-            System.out.println("DEBUG: Checking table contents...");
-            
-            // Check Raw_Purchase_Invoice table
-            String checkPurchases = "SELECT COUNT(*) as count, MIN(invoice_date) as min_date, MAX(invoice_date) as max_date, SUM(total_amount) as total FROM Raw_Purchase_Invoice";
-            try (PreparedStatement checkStmt = connection.prepareStatement(checkPurchases)) {
-                ResultSet rs = checkStmt.executeQuery();
-                if (rs.next()) {
-                    System.out.println("DEBUG: Raw_Purchase_Invoice - Count: " + rs.getInt("count") + 
-                                     ", Date range: " + rs.getString("min_date") + " to " + rs.getString("max_date") + 
-                                     ", Total amount: " + rs.getDouble("total"));
-                }
-            }
-            
-            // Check Sales_Invoice table
-            String checkSales = "SELECT COUNT(*) as count, MIN(sales_date) as min_date, MAX(sales_date) as max_date, SUM(total_amount) as total FROM Sales_Invoice";
-            try (PreparedStatement checkStmt = connection.prepareStatement(checkSales)) {
-                ResultSet rs = checkStmt.executeQuery();
-                if (rs.next()) {
-                    System.out.println("DEBUG: Sales_Invoice - Count: " + rs.getInt("count") + 
-                                     ", Date range: " + rs.getString("min_date") + " to " + rs.getString("max_date") + 
-                                     ", Total amount: " + rs.getDouble("total"));
-                }
-            }
-            
-            // Check Bank table
-            String checkBank = "SELECT COUNT(*) as count, SUM(balance) as total FROM Bank";
-            try (PreparedStatement checkStmt = connection.prepareStatement(checkBank)) {
-                ResultSet rs = checkStmt.executeQuery();
-                if (rs.next()) {
-                    System.out.println("DEBUG: Bank - Count: " + rs.getInt("count") + ", Total balance: " + rs.getDouble("total"));
-                }
-            }
-            
-            // Check ProductionStock table
-            String checkStock = "SELECT COUNT(*) as count, SUM(quantity * unit_cost) as total_value FROM ProductionStock";
-            try (PreparedStatement checkStmt = connection.prepareStatement(checkStock)) {
-                ResultSet rs = checkStmt.executeQuery();
-                if (rs.next()) {
-                    System.out.println("DEBUG: ProductionStock - Count: " + rs.getInt("count") + ", Total value: " + rs.getDouble("total_value"));
-                }
-            }
-            
-            // Check return tables
-            String checkPurchaseReturns = "SELECT COUNT(*) as count, SUM(total_return_amount) as total FROM Raw_Purchase_Return_Invoice";
-            try (PreparedStatement checkStmt = connection.prepareStatement(checkPurchaseReturns)) {
-                ResultSet rs = checkStmt.executeQuery();
-                if (rs.next()) {
-                    System.out.println("DEBUG: Raw_Purchase_Return_Invoice - Count: " + rs.getInt("count") + ", Total: " + rs.getDouble("total"));
-                }
-            }
-            
-            String checkSalesReturns = "SELECT COUNT(*) as count, SUM(total_return_amount) as total FROM Sales_Return_Invoice";
-            try (PreparedStatement checkStmt = connection.prepareStatement(checkSalesReturns)) {
-                ResultSet rs = checkStmt.executeQuery();
-                if (rs.next()) {
-                    System.out.println("DEBUG: Sales_Return_Invoice - Count: " + rs.getInt("count") + ", Total: " + rs.getDouble("total"));
-                }
-            }
-            
-        } catch (SQLException e) {
-            System.out.println("DEBUG: Error checking table contents: " + e.getMessage());
-        }
+        Log.debug("Summary Report - Getting data from " + fromDate + " to " + toDate);
         
+        // Invoice totals come from the per-day rollups, so this adds up days rather than invoices
         String query = "SELECT " +
-                    "(SELECT COALESCE(SUM(total_amount), 0) FROM Raw_Purchase_Invoice WHERE invoice_date BETWEEN ? AND ?) AS total_purchases, " +
-                    "(SELECT COALESCE(SUM(total_amount), 0) FROM Sales_Invoice WHERE sales_date BETWEEN ? AND ?) AS total_sales, " +
-                    "(SELECT COALESCE(SUM(total_return_amount), 0) FROM Raw_Purchase_Return_Invoice WHERE return_date BETWEEN ? AND ?) AS total_purchase_returns, " +
-                    "(SELECT COALESCE(SUM(total_return_amount), 0) FROM Sales_Return_Invoice WHERE return_date BETWEEN ? AND ?) AS total_sales_returns, " +
+                    DailyRollup.sumBetween(DailyRollup.PURCHASE, "amount") + " AS total_purchases, " +
+                    DailyRollup.sumBetween(DailyRollup.SALES, "amount") + " AS total_sales, " +
+                    DailyRollup.sumBetween(DailyRollup.PURCHASE_RETURN, "amount") + " AS total_purchase_returns, " +
+                    DailyRollup.sumBetween(DailyRollup.SALES_RETURN, "amount") + " AS total_sales_returns, " +
                     "(SELECT COALESCE(SUM(balance), 0) FROM Bank) AS total_bank_balance, " +
                     "(SELECT COUNT(*) FROM Customer) AS total_customers, " +
                     "(SELECT COUNT(*) FROM Supplier) AS total_suppliers, " +
                     "(SELECT COALESCE(SUM(quantity * unit_cost), 0) FROM ProductionStock) AS total_inventory_value";
         
-        System.out.println("DEBUG: Executing summary query: " + query);
-        
         try {
             // Don't use try-with-resources since we need to return the ResultSet
-            PreparedStatement pstmt = connection.prepareStatement(query);
-            
-            // Debug the date parameters being used
-            System.out.println("DEBUG: Date parameters:");
-            System.out.println("  fromDate: " + fromDate + " (SQL Date: " + fromDate.toString() + ")");
-            System.out.println("  toDate: " + toDate + " (SQL Date: " + toDate.toString() + ")");
-            
-            pstmt.setDate(1, fromDate);
-            pstmt.setDate(2, toDate);
-            pstmt.setDate(3, fromDate);
-            pstmt.setDate(4, toDate);
-            pstmt.setDate(5, fromDate);
-            pstmt.setDate(6, toDate);
-            pstmt.setDate(7, fromDate);
-            pstmt.setDate(8, toDate);
-            
-            // Test individual subqueries to see which ones return data
-            System.out.println("DEBUG: Testing individual subqueries...");
-            
-            // Test purchases in date range
-            try (PreparedStatement testStmt = connection.prepareStatement(
-                    "SELECT COALESCE(SUM(total_amount), 0) as result FROM Raw_Purchase_Invoice WHERE invoice_date BETWEEN ? AND ?")) {
-                testStmt.setDate(1, fromDate);
-                testStmt.setDate(2, toDate);
-                ResultSet testRs = testStmt.executeQuery();
-                if (testRs.next()) {
-                    System.out.println("  Purchases in date range: " + testRs.getDouble("result"));
-                }
-            }
-            
-            // Test sales in date range
-            try (PreparedStatement testStmt = connection.prepareStatement(
-                    "SELECT COALESCE(SUM(total_amount), 0) as result FROM Sales_Invoice WHERE sales_date BETWEEN ? AND ?")) {
-                testStmt.setDate(1, fromDate);
-                testStmt.setDate(2, toDate);
-                ResultSet testRs = testStmt.executeQuery();
-                if (testRs.next()) {
-                    System.out.println("  Sales in date range: " + testRs.getDouble("result"));
-                }
+            // Invoice dates are stored as yyyy-MM-dd text
+            SimpleDateFormat sdf = new SimpleDateFormat("yyyy-MM-dd");
+            String fromDateStr = sdf.format(fromDate);
+            String toDateStr = sdf.format(toDate);
+            PreparedStatement pstmt = reportConnection(fromDateStr).prepareStatement(query);
+            for (int i = 1; i <= 8; i += 2) {
+                pstmt.setString(i, fromDateStr);
+                pstmt.setString(i + 1, toDateStr);
             }
             
             ResultSet rs = pstmt.executeQuery();
             
-            System.out.println("DEBUG: Summary query executed successfully");
+            Log.debug("Summary query executed successfully");
             
             return rs;
         } catch (SQLException e) {
-            System.out.println("DEBUG: Error executing summary query: " + e.getMessage());
+            Log.debug("Error executing summary query: " + e.getMessage());
             e.printStackTrace();
             return null;
         }
@@ -9159,7 +8813,7 @@ public ResultSet getPurchaseReport(Date fromDate, Date toDate, String reportType
     @Override
     public Object[] getBalanceSheetData() {
         try {
-            System.out.println("DEBUG: Starting balance sheet data calculation...");
+            Log.debug("Starting balance sheet data calculation...");
             
             // 1. Cash in hand from all banks
             double totalBankBalance = 0.0;
@@ -9169,9 +8823,9 @@ public ResultSet getPurchaseReport(Date fromDate, Date toDate, String reportType
                 if (rs.next()) {
                     totalBankBalance = rs.getDouble("total");
                 }
-                System.out.println("DEBUG: Total bank balance: " + totalBankBalance);
+                Log.debug("Total bank balance: " + totalBankBalance);
             } catch (SQLException e) {
-                System.err.println("DEBUG: Error getting bank balance: " + e.getMessage());
+                Log.error("Error getting bank balance: " + e.getMessage());
                 totalBankBalance = 0.0;
             }
             
@@ -9189,9 +8843,9 @@ public ResultSet getPurchaseReport(Date fromDate, Date toDate, String reportType
                         weOweCustomers += Math.abs(balance); // Negative means we owe them
                     }
                 }
-                System.out.println("DEBUG: Customers owe us: " + customersOweUs + ", We owe customers: " + weOweCustomers);
+                Log.debug("Customers owe us: " + customersOweUs + ", We owe customers: " + weOweCustomers);
             } catch (SQLException e) {
-                System.err.println("DEBUG: Error getting customer balances: " + e.getMessage());
+                Log.error("Error getting customer balances: " + e.getMessage());
             }
             
             // 3. Supplier balances (money we owe them vs they owe us)
@@ -9208,9 +8862,9 @@ public ResultSet getPurchaseReport(Date fromDate, Date toDate, String reportType
                         suppliersOweUs += Math.abs(balance); // Negative means they owe us
                     }
                 }
-                System.out.println("DEBUG: We owe suppliers: " + weOweSuppliers + ", Suppliers owe us: " + suppliersOweUs);
+                Log.debug("We owe suppliers: " + weOweSuppliers + ", Suppliers owe us: " + suppliersOweUs);
             } catch (SQLException e) {
-                System.err.println("DEBUG: Error getting supplier balances: " + e.getMessage());
+                Log.error("Error getting supplier balances: " + e.getMessage());
             }
             
             // Calculate net amounts
@@ -9218,8 +8872,8 @@ public ResultSet getPurchaseReport(Date fromDate, Date toDate, String reportType
             double totalLiabilitiesToPeople = weOweCustomers + weOweSuppliers; // Money going from us
             double netWorth = totalBankBalance + totalAssetsFromPeople - totalLiabilitiesToPeople;
             
-            System.out.println("DEBUG: Balance sheet calculated successfully");
-            System.out.println("DEBUG: Net worth: " + netWorth);
+            Log.debug("Balance sheet calculated successfully");
+            Log.debug("Net worth: " + netWorth);
             
             return new Object[] {
                 totalBankBalance,        // 0 - Cash in hand (all banks)
@@ -9252,7 +8906,7 @@ public ResultSet getPurchaseReport(Date fromDate, Date toDate, String reportType
     @Override
     public ResultSet getCustomersReport() {
         String query = "SELECT * FROM Customer";
-        System.out.println("DEBUG: Executing customers report query: " + query);
+        Log.debug("Executing customers report query: " + query);
         
         try {
             // First check if the table exists and has data
@@ -9261,7 +8915,7 @@ public ResultSet getPurchaseReport(Date fromDate, Date toDate, String reportType
                 ResultSet countRs = countStmt.executeQuery();
                 if (countRs.next()) {
                     int totalCustomers = countRs.getInt("total");
-                    System.out.println("DEBUG: Total customers in database: " + totalCustomers);
+                    Log.debug("Total customers in database: " + totalCustomers);
                 }
                 countRs.close();
             }
@@ -9269,10 +8923,10 @@ public ResultSet getPurchaseReport(Date fromDate, Date toDate, String reportType
             // Now execute the main query
             PreparedStatement pstmt = connection.prepareStatement(query);
             ResultSet rs = pstmt.executeQuery();
-            System.out.println("DEBUG: Successfully executed customers report query");
+            Log.debug("Successfully executed customers report query");
             return rs;
         } catch (SQLException e) {
-            System.err.println("DEBUG: SQLException in getCustomersReport: " + e.getMessage());
+            Log.error("SQLException in getCustomersReport: " + e.getMessage());
             e.printStackTrace();
             return null;
         }
@@ -9281,7 +8935,7 @@ public ResultSet getPurchaseReport(Date fromDate, Date toDate, String reportType
     @Override
     public ResultSet getSuppliersReport() {
         String query = "SELECT * FROM Supplier";
-        System.out.println("DEBUG: Executing suppliers report query: " + query);
+        Log.debug("Executing suppliers report query: " + query);
         
         try {
             // First check if the table exists and has data
@@ -9290,7 +8944,7 @@ public ResultSet getPurchaseReport(Date fromDate, Date toDate, String reportType
                 ResultSet countRs = countStmt.executeQuery();
                 if (countRs.next()) {
                     int totalSuppliers = countRs.getInt("total");
-                    System.out.println("DEBUG: Total suppliers in database: " + totalSuppliers);
+                    Log.debug("Total suppliers in database: " + totalSuppliers);
                 }
                 countRs.close();
             }
@@ -9298,10 +8952,10 @@ public ResultSet getPurchaseReport(Date fromDate, Date toDate, String reportType
             // Now execute the main query
             PreparedStatement pstmt = connection.prepareStatement(query);
             ResultSet rs = pstmt.executeQuery();
-            System.out.println("DEBUG: Successfully executed suppliers report query");
+            Log.debug("Successfully executed suppliers report query");
             return rs;
         } catch (SQLException e) {
-            System.err.println("DEBUG: SQLException in getSuppliersReport: " + e.getMessage());
+            Log.error("SQLException in getSuppliersReport: " + e.getMessage());
             e.printStackTrace();
             return null;
         }
@@ -9309,110 +8963,111 @@ public ResultSet getPurchaseReport(Date fromDate, Date toDate, String reportType
 
     @Override
     public ResultSet getBrandSalesReport(Date fromDate, Date toDate) {
-        System.out.println("DEBUG: getBrandSalesReport called with dates: " + fromDate + " to " + toDate);
+        Log.debug("getBrandSalesReport called with dates: " + fromDate + " to " + toDate);
         
         // Convert Date to String format (YYYY-MM-DD) for SQLite comparison
         SimpleDateFormat sdf = new SimpleDateFormat("yyyy-MM-dd");
         String fromDateStr = sdf.format(fromDate);
         String toDateStr = sdf.format(toDate);
         
-        System.out.println("DEBUG: Date strings: " + fromDateStr + " to " + toDateStr);
+        Log.debug("Date strings: " + fromDateStr + " to " + toDateStr);
         
-        // First, let's check what tables exist and have data
-        try {
-            // Check Sales_Invoice table
-            String checkSalesQuery = "SELECT COUNT(*) as count FROM Sales_Invoice";
-            try (PreparedStatement checkStmt = connection.prepareStatement(checkSalesQuery)) {
-                ResultSet rs = checkStmt.executeQuery();
-                if (rs.next()) {
-                    System.out.println("DEBUG: Total Sales_Invoice records: " + rs.getInt("count"));
+        if (Log.isDebugEnabled()) {
+            // First, let's check what tables exist and have data
+            try {
+                // Check Sales_Invoice table
+                String checkSalesQuery = "SELECT COUNT(*) as count FROM Sales_Invoice";
+                try (PreparedStatement checkStmt = connection.prepareStatement(checkSalesQuery)) {
+                    ResultSet rs = checkStmt.executeQuery();
+                    if (rs.next()) {
+                        Log.debug("Total Sales_Invoice records: " + rs.getInt("count"));
+                    }
+                    rs.close();
                 }
-                rs.close();
-            }
             
-            // Check Sales_Invoice_Item table
-            String checkItemsQuery = "SELECT COUNT(*) as count FROM Sales_Invoice_Item";
-            try (PreparedStatement checkStmt = connection.prepareStatement(checkItemsQuery)) {
-                ResultSet rs = checkStmt.executeQuery();
-                if (rs.next()) {
-                    System.out.println("DEBUG: Total Sales_Invoice_Item records: " + rs.getInt("count"));
+                // Check Sales_Invoice_Item table
+                String checkItemsQuery = "SELECT COUNT(*) as count FROM Sales_Invoice_Item";
+                try (PreparedStatement checkStmt = connection.prepareStatement(checkItemsQuery)) {
+                    ResultSet rs = checkStmt.executeQuery();
+                    if (rs.next()) {
+                        Log.debug("Total Sales_Invoice_Item records: " + rs.getInt("count"));
+                    }
+                    rs.close();
                 }
-                rs.close();
-            }
             
-            // Check ProductionStock table
-            String checkProdQuery = "SELECT COUNT(*) as count FROM ProductionStock";
-            try (PreparedStatement checkStmt = connection.prepareStatement(checkProdQuery)) {
-                ResultSet rs = checkStmt.executeQuery();
-                if (rs.next()) {
-                    System.out.println("DEBUG: Total ProductionStock records: " + rs.getInt("count"));
+                // Check ProductionStock table
+                String checkProdQuery = "SELECT COUNT(*) as count FROM ProductionStock";
+                try (PreparedStatement checkStmt = connection.prepareStatement(checkProdQuery)) {
+                    ResultSet rs = checkStmt.executeQuery();
+                    if (rs.next()) {
+                        Log.debug("Total ProductionStock records: " + rs.getInt("count"));
+                    }
+                    rs.close();
                 }
-                rs.close();
-            }
             
-            // Check Brand table
-            String checkBrandQuery = "SELECT COUNT(*) as count FROM Brand";
-            try (PreparedStatement checkStmt = connection.prepareStatement(checkBrandQuery)) {
-                ResultSet rs = checkStmt.executeQuery();
-                if (rs.next()) {
-                    System.out.println("DEBUG: Total Brand records: " + rs.getInt("count"));
+                // Check Brand table
+                String checkBrandQuery = "SELECT COUNT(*) as count FROM Brand";
+                try (PreparedStatement checkStmt = connection.prepareStatement(checkBrandQuery)) {
+                    ResultSet rs = checkStmt.executeQuery();
+                    if (rs.next()) {
+                        Log.debug("Total Brand records: " + rs.getInt("count"));
+                    }
+                    rs.close();
                 }
-                rs.close();
-            }
             
-            // Check dates in Sales_Invoice
-            String checkDatesQuery = "SELECT MIN(sales_date) as min_date, MAX(sales_date) as max_date FROM Sales_Invoice";
-            try (PreparedStatement checkStmt = connection.prepareStatement(checkDatesQuery)) {
-                ResultSet rs = checkStmt.executeQuery();
-                if (rs.next()) {
-                    System.out.println("DEBUG: Sales_Invoice date range: " + rs.getString("min_date") + " to " + rs.getString("max_date"));
+                // Check dates in Sales_Invoice
+                String checkDatesQuery = "SELECT MIN(sales_date) as min_date, MAX(sales_date) as max_date FROM Sales_Invoice";
+                try (PreparedStatement checkStmt = connection.prepareStatement(checkDatesQuery)) {
+                    ResultSet rs = checkStmt.executeQuery();
+                    if (rs.next()) {
+                        Log.debug("Sales_Invoice date range: " + rs.getString("min_date") + " to " + rs.getString("max_date"));
+                    }
+                    rs.close();
+                }
+            
+                // Test the query first without parameters to see all data
+                String testQuery = "SELECT b.brand_name, SUM(sii.quantity) AS total_quantity, SUM(sii.total_price) AS total_sales FROM Sales_Invoice si JOIN Sales_Invoice_Item sii ON si.sales_invoice_id = sii.sales_invoice_id JOIN ProductionStock ps ON sii.production_stock_id = ps.production_id JOIN Brand b ON ps.brand_id = b.brand_id GROUP BY b.brand_name";
+                try (PreparedStatement testStmt = connection.prepareStatement(testQuery)) {
+                    ResultSet testRs = testStmt.executeQuery();
+                    Log.debug("All brand sales data (no date filter):");
+                    while (testRs.next()) {
+                        Log.debug("  Brand: " + testRs.getString("brand_name") + 
+                                         ", Quantity: " + testRs.getDouble("total_quantity") + 
+                                         ", Sales: " + testRs.getDouble("total_sales"));
+                    }
+                    testRs.close();
                 }
-                rs.close();
-            }
             
-            // Test the query first without parameters to see all data
-            String testQuery = "SELECT b.brand_name, SUM(sii.quantity) AS total_quantity, SUM(sii.total_price) AS total_sales FROM Sales_Invoice si JOIN Sales_Invoice_Item sii ON si.sales_invoice_id = sii.sales_invoice_id JOIN ProductionStock ps ON sii.production_stock_id = ps.production_id JOIN Brand b ON ps.brand_id = b.brand_id GROUP BY b.brand_name";
-            try (PreparedStatement testStmt = connection.prepareStatement(testQuery)) {
-                ResultSet testRs = testStmt.executeQuery();
-                System.out.println("DEBUG: All brand sales data (no date filter):");
-                while (testRs.next()) {
-                    System.out.println("  Brand: " + testRs.getString("brand_name") + 
-                                     ", Quantity: " + testRs.getDouble("total_quantity") + 
-                                     ", Sales: " + testRs.getDouble("total_sales"));
-                }
-                testRs.close();
+            } catch (SQLException e) {
+                Log.debug("Error checking table data: " + e.getMessage());
             }
-            
-        } catch (SQLException e) {
-            System.err.println("DEBUG: Error checking table data: " + e.getMessage());
         }
         
         String query = "SELECT " +
                       "b.brand_name, " +
-                      "SUM(sii.quantity) AS total_quantity, " +
-                      "SUM(sii.total_price) AS total_sales, " +
+                      "SUM(r.quantity) AS total_quantity, " +
+                      "SUM(r.amount) AS total_sales, " +
                       "'N/A' AS salesman_name " +
-                      "FROM Sales_Invoice si " +
-                      "JOIN Sales_Invoice_Item sii ON si.sales_invoice_id = sii.sales_invoice_id " +
-                      "JOIN ProductionStock ps ON sii.production_stock_id = ps.production_id " +
-                      "JOIN Brand b ON ps.brand_id = b.brand_id " +
-                      "WHERE si.sales_date >= ? AND si.sales_date <= ? " +
+                      "FROM Daily_Rollup r " +
+                      "JOIN Brand b ON r.key_id = b.brand_id " +
+                      "WHERE r.kind = '" + DailyRollup.SALES_BRAND + "' AND r.day >= ? AND r.day <= ? " +
                       "GROUP BY b.brand_name " +
+                      "HAVING SUM(r.quantity) <> 0 OR SUM(r.amount) <> 0 " +
                       "ORDER BY total_sales DESC";
         
-        System.out.println("DEBUG: Executing brand sales query: " + query);
-        System.out.println("DEBUG: Parameters: " + fromDateStr + ", " + toDateStr);
+        Log.debug("Executing brand sales query: " + query);
+        Log.debug("Parameters: " + fromDateStr + ", " + toDateStr);
         
         try {
-            PreparedStatement pstmt = connection.prepareStatement(query);
+            PreparedStatement pstmt = reportConnection(fromDateStr).prepareStatement(query);
             pstmt.setString(1, fromDateStr);
             pstmt.setString(2, toDateStr);
             
             ResultSet rs = pstmt.executeQuery();
-            System.out.println("DEBUG: Query executed successfully, returning ResultSet");
+            Log.debug("Query executed successfully, returning ResultSet");
             return rs;
         } catch (SQLException e) {
-            System.err.println("DEBUG: SQLException in getBrandSalesReport: " + e.getMessage());
+            Log.error("SQLException in getBrandSalesReport: " + e.getMessage());
             e.printStackTrace();
             return null;
         }
@@ -9534,8 +9189,8 @@ public ResultSet getPurchaseReport(Date fromDate, Date toDate, String reportType
                     "GROUP BY s.supplier_id, s.supplier_name, s.balance, st.payment_amount, rr.return_amount " +
                     "ORDER BY party_type, name";
         
-        System.out.println("DEBUG: Executing area-wise report query with date filter: " + query);
-        System.out.println("DEBUG: Date parameters: fromDate=" + fromDate + ", toDate=" + toDate);
+        Log.debug("Executing area-wise report query with date filter: " + query);
+        Log.debug("Date parameters: fromDate=" + fromDate + ", toDate=" + toDate);
         
         try {
             // First check if the tables exist and have data
@@ -9544,7 +9199,7 @@ public ResultSet getPurchaseReport(Date fromDate, Date toDate, String reportType
                 ResultSet countRs = countStmt.executeQuery();
                 if (countRs.next()) {
                     int totalCustomers = countRs.getInt("total");
-                    System.out.println("DEBUG: Total customers for area-wise report: " + totalCustomers);
+                    Log.debug("Total customers for area-wise report: " + totalCustomers);
                 }
                 countRs.close();
             }
@@ -9554,13 +9209,13 @@ public ResultSet getPurchaseReport(Date fromDate, Date toDate, String reportType
                 ResultSet countRs = countStmt.executeQuery();
                 if (countRs.next()) {
                     int totalSuppliers = countRs.getInt("total");
-                    System.out.println("DEBUG: Total suppliers for area-wise report: " + totalSuppliers);
+                    Log.debug("Total suppliers for area-wise report: " + totalSuppliers);
                 }
                 countRs.close();
             }
             
             // Now execute the main query with date parameters
-            PreparedStatement pstmt = connection.prepareStatement(query);
+            PreparedStatement pstmt = reportConnection(fromDate.toString()).prepareStatement(query);
             // Set date parameters for customer query (sales_date, transaction_date, return_date)
             pstmt.setString(1, fromDate.toString());
             pstmt.setString(2, toDate.toString());
@@ -9577,10 +9232,10 @@ public ResultSet getPurchaseReport(Date fromDate, Date toDate, String reportType
             pstmt.setString(12, toDate.toString());
             
             ResultSet rs = pstmt.executeQuery();
-            System.out.println("DEBUG: Successfully executed area-wise report query with date filters");
+            Log.debug("Successfully executed area-wise report query with date filters");
             return rs;
         } catch (SQLException e) {
-            System.err.println("DEBUG: SQLException in getAreaWiseReport: " + e.getMessage());
+            Log.error("SQLException in getAreaWiseReport: " + e.getMessage());
             e.printStackTrace();
             return null;
         }
@@ -9676,16 +9331,16 @@ public ResultSet getPurchaseReport(Date fromDate, Date toDate, String reportType
         query.append(" ORDER BY party_type, name");
 
         // Logging
-        System.out.println("DEBUG: getAreaWiseReport called with parameters:");
-        System.out.println("  partyType: " + partyType);
-        System.out.println("  areaType: " + areaType);
-        System.out.println("  areaValue: " + areaValue);
-        System.out.println("  fromDate: " + fromDate);
-        System.out.println("  toDate: " + toDate);
-        System.out.println("DEBUG: Final SQL Query: " + query);
+        Log.debug("getAreaWiseReport called with parameters:");
+        Log.debug("  partyType: " + partyType);
+        Log.debug("  areaType: " + areaType);
+        Log.debug("  areaValue: " + areaValue);
+        Log.debug("  fromDate: " + fromDate);
+        Log.debug("  toDate: " + toDate);
+        Log.debug("Final SQL Query: " + query);
 
         try {
-            PreparedStatement pstmt = connection.prepareStatement(query.toString());
+            PreparedStatement pstmt = reportConnection(fromDate.toString()).prepareStatement(query.toString());
             int paramIndex = 1;
 
             // Set date parameters for customer/supplier queries
@@ -9729,9 +9384,9 @@ public ResultSet getPurchaseReport(Date fromDate, Date toDate, String reportType
                 }
             }
 
-            System.out.println("DEBUG: PreparedStatement parameters set. Executing query...");
+            Log.debug("PreparedStatement parameters set. Executing query...");
             ResultSet rs = pstmt.executeQuery();
-            System.out.println("DEBUG: Query executed successfully");
+            Log.debug("Query executed successfully");
             return rs;
         } catch (SQLException e) {
             System.err.println("ERROR: SQLException in getAreaWiseReport: " + e.getMessage());
@@ -9740,6 +9395,22 @@ public ResultSet getPurchaseReport(Date fromDate, Date toDate, String reportType
         }
     }
 
+    @Override
+    public List<AreaPartyTotals> getAreaWiseTotals(String partyType, String areaType, String areaValue,
+                                                   String startDate, String endDate) {
+        Connection reader = null;
+        try {
+            reader = provider.acquireReader(startDate);
+            return AreaReportEngine.getTotals(reader, partyType, areaType, areaValue, startDate, endDate);
+        } catch (SQLException e) {
+            System.err.println("Error building area-wise totals: " + e.getMessage());
+            e.printStackTrace();
+        } finally {
+            provider.releaseReader(reader);
+        }
+        return new ArrayList<>();
+    }
+
     @Override
     public int getSalesInvoiceIdByNumber(String invoiceNumber) {
         String query = "SELECT sales_invoice_id FROM Sales_Invoice WHERE sales_invoice_number = ?";
@@ -10085,26 +9756,12 @@ public ResultSet getPurchaseReport(Date fromDate, Date toDate, String reportType
                                           String brandName, String manufacturerName, double quantity, 
                                           double unitPrice, double itemTotal, double totalAmount, 
                                           double discountAmount, double paidAmount, double balance) {
-        String sql = "INSERT INTO Purchase_Book (raw_purchase_invoice_id, invoice_number, supplier_name, " +
-                    "invoice_date, item_name, brand_name, manufacturer_name, quantity, unit_price, " +
-                    "item_total, total_amount, discount_amount, paid_amount, balance) " +
-                    "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
-        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
-            pstmt.setInt(1, rawPurchaseInvoiceId);
-            pstmt.setString(2, invoiceNumber);
-            pstmt.setString(3, supplierName);
-            pstmt.setString(4, invoiceDate);
-            pstmt.setString(5, itemName);
-            pstmt.setString(6, brandName);
-            pstmt.setString(7, manufacturerName);
-            pstmt.setDouble(8, quantity);
-            pstmt.setDouble(9, unitPrice);
-            pstmt.setDouble(10, itemTotal);
-            pstmt.setDouble(11, totalAmount);
-            pstmt.setDouble(12, discountAmount);
-            pstmt.setDouble(13, paidAmount);
-            pstmt.setDouble(14, balance);
-            return pstmt.executeUpdate() > 0;
+        try {
+            return new BookWriter.Batch(BookWriter.Book.PURCHASE)
+                .add(rawPurchaseInvoiceId, invoiceNumber, supplierName, invoiceDate, itemName, brandName,
+                     manufacturerName, quantity, unitPrice, itemTotal, totalAmount, discountAmount, paidAmount,
+                     balance)
+                .write(connection) > 0;
         } catch (SQLException e) {
             System.err.println("Error inserting purchase book entry: " + e.getMessage());
             e.printStackTrace();
@@ -10117,24 +9774,11 @@ public ResultSet getPurchaseReport(Date fromDate, Date toDate, String reportType
                                                String supplierName, String returnDate, String itemName, 
                                                String brandName, String manufacturerName, double quantity, 
                                                double unitPrice, double itemTotal, double totalReturnAmount, double balance) {
-        String sql = "INSERT INTO Return_Purchase_Book (raw_purchase_return_invoice_id, return_invoice_number, " +
-                    "supplier_name, return_date, item_name, brand_name, manufacturer_name, quantity, " +
-                    "unit_price, item_total, total_return_amount, balance) " +
-                    "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
-        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
-            pstmt.setInt(1, rawPurchaseReturnInvoiceId);
-            pstmt.setString(2, returnInvoiceNumber);
-            pstmt.setString(3, supplierName);
-            pstmt.setString(4, returnDate);
-            pstmt.setString(5, itemName);
-            pstmt.setString(6, brandName);
-            pstmt.setString(7, manufacturerName);
-            pstmt.setDouble(8, quantity);
-            pstmt.setDouble(9, unitPrice);
-            pstmt.setDouble(10, itemTotal);
-            pstmt.setDouble(11, totalReturnAmount);
-            pstmt.setDouble(12, balance);
-            return pstmt.executeUpdate() > 0;
+        try {
+            return new BookWriter.Batch(BookWriter.Book.RETURN_PURCHASE)
+                .add(rawPurchaseReturnInvoiceId, returnInvoiceNumber, supplierName, returnDate, itemName,
+                     brandName, manufacturerName, quantity, unitPrice, itemTotal, totalReturnAmount, balance)
+                .write(connection) > 0;
         } catch (SQLException e) {
             System.err.println("Error inserting return purchase book entry: " + e.getMessage());
             e.printStackTrace();
@@ -10147,23 +9791,11 @@ public ResultSet getPurchaseReport(Date fromDate, Date toDate, String reportType
                                             String usageDate, String itemName, String brandName, 
                                             String manufacturerName, double quantityUsed, double unitCost, 
                                             double totalCost, double totalUsageAmount, String referencePurpose) {
-        String sql = "INSERT INTO Raw_Stock_Use_Book (raw_stock_use_invoice_id, use_invoice_number, " +
-                    "usage_date, item_name, brand_name, manufacturer_name, quantity_used, unit_cost, " +
-                    "total_cost, total_usage_amount, reference_purpose) " +
-                    "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
-        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
-            pstmt.setInt(1, rawStockUseInvoiceId);
-            pstmt.setString(2, useInvoiceNumber);
-            pstmt.setString(3, usageDate);
-            pstmt.setString(4, itemName);
-            pstmt.setString(5, brandName);
-            pstmt.setString(6, manufacturerName);
-            pstmt.setDouble(7, quantityUsed);
-            pstmt.setDouble(8, unitCost);
-            pstmt.setDouble(9, totalCost);
-            pstmt.setDouble(10, totalUsageAmount);
-            pstmt.setString(11, referencePurpose);
-            return pstmt.executeUpdate() > 0;
+        try {
+            return new BookWriter.Batch(BookWriter.Book.RAW_STOCK_USE)
+                .add(rawStockUseInvoiceId, useInvoiceNumber, usageDate, itemName, brandName, manufacturerName,
+                     quantityUsed, unitCost, totalCost, totalUsageAmount, referencePurpose)
+                .write(connection) > 0;
         } catch (SQLException e) {
             System.err.println("Error inserting raw stock use book entry: " + e.getMessage());
             e.printStackTrace();
@@ -10175,20 +9807,11 @@ public ResultSet getPurchaseReport(Date fromDate, Date toDate, String reportType
     public boolean insertProductionBookEntry(int productionInvoiceId, String productionDate, 
                                            String productName, String brandName, String manufacturerName, 
                                            double quantityProduced, double unitCost, double totalCost, String notes) {
-        String sql = "INSERT INTO Production_Book (production_invoice_id, production_date, product_name, " +
-                    "brand_name, manufacturer_name, quantity_produced, unit_cost, total_cost, notes) " +
-                    "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
-        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
-            pstmt.setInt(1, productionInvoiceId);
-            pstmt.setString(2, productionDate);
-            pstmt.setString(3, productName);
-            pstmt.setString(4, brandName);
-            pstmt.setString(5, manufacturerName);
-            pstmt.setDouble(6, quantityProduced);
-            pstmt.setDouble(7, unitCost);
-            pstmt.setDouble(8, totalCost);
-            pstmt.setString(9, notes);
-            return pstmt.executeUpdate() > 0;
+        try {
+            return new BookWriter.Batch(BookWriter.Book.PRODUCTION)
+                .add(productionInvoiceId, productionDate, productName, brandName, manufacturerName,
+                     quantityProduced, unitCost, totalCost, notes)
+                .write(connection) > 0;
         } catch (SQLException e) {
             System.err.println("Error inserting production book entry: " + e.getMessage());
             e.printStackTrace();
@@ -10201,22 +9824,11 @@ public ResultSet getPurchaseReport(Date fromDate, Date toDate, String reportType
                                                  String returnDate, String productName, String brandName, 
                                                  String manufacturerName, double quantityReturned, double unitCost, 
                                                  double totalCost, String notes) {
-        String sql = "INSERT INTO Return_Production_Book (production_return_invoice_id, return_invoice_number, " +
-                    "return_date, product_name, brand_name, manufacturer_name, quantity_returned, unit_cost, " +
-                    "total_cost, notes) " +
-                    "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
-        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
-            pstmt.setInt(1, productionReturnInvoiceId);
-            pstmt.setString(2, returnInvoiceNumber);
-            pstmt.setString(3, returnDate);
-            pstmt.setString(4, productName);
-            pstmt.setString(5, brandName);
-            pstmt.setString(6, manufacturerName);
-            pstmt.setDouble(7, quantityReturned);
-            pstmt.setDouble(8, unitCost);
-            pstmt.setDouble(9, totalCost);
-            pstmt.setString(10, notes);
-            return pstmt.executeUpdate() > 0;
+        try {
+            return new BookWriter.Batch(BookWriter.Book.RETURN_PRODUCTION)
+                .add(productionReturnInvoiceId, returnInvoiceNumber, returnDate, productName, brandName,
+                     manufacturerName, quantityReturned, unitCost, totalCost, notes)
+                .write(connection) > 0;
         } catch (SQLException e) {
             System.err.println("Error inserting return production book entry: " + e.getMessage());
             e.printStackTrace();
@@ -10230,32 +9842,13 @@ public ResultSet getPurchaseReport(Date fromDate, Date toDate, String reportType
                                        double quantity, double unitPrice, double discountPercentage, double discountAmount, 
                                        double itemTotal, double totalAmount, double otherDiscount, double paidAmount, 
                                        double netInvoiceAmount, double previousBalance, double totalBalance, double netBalance) {
-        String sql = "INSERT INTO Sales_Book (sales_invoice_id, sales_invoice_number, customer_name, " +
-                    "sales_date, product_name, brand_name, manufacturer_name, quantity, unit_price, " +
-                    "discount_percentage, discount_amount, item_total, total_amount, other_discount, " +
-                    "paid_amount, net_invoice_amount, previous_balance, total_balance, net_balance) " +
-                    "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
-        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
-            pstmt.setInt(1, salesInvoiceId);
-            pstmt.setString(2, salesInvoiceNumber);
-            pstmt.setString(3, customerName);
-            pstmt.setString(4, salesDate);
-            pstmt.setString(5, productName);
-            pstmt.setString(6, brandName);
-            pstmt.setString(7, manufacturerName);
-            pstmt.setDouble(8, quantity);
-            pstmt.setDouble(9, unitPrice);
-            pstmt.setDouble(10, discountPercentage);
-            pstmt.setDouble(11, discountAmount);
-            pstmt.setDouble(12, itemTotal);
-            pstmt.setDouble(13, totalAmount);
-            pstmt.setDouble(14, otherDiscount);
-            pstmt.setDouble(15, paidAmount);
-            pstmt.setDouble(16, netInvoiceAmount);
-            pstmt.setDouble(17, previousBalance);
-            pstmt.setDouble(18, totalBalance);
-            pstmt.setDouble(19, netBalance);
-            return pstmt.executeUpdate() > 0;
+        try {
+            return new BookWriter.Batch(BookWriter.Book.SALES)
+                .add(salesInvoiceId, salesInvoiceNumber, customerName, salesDate, productName, brandName,
+                     manufacturerName, quantity, unitPrice, discountPercentage, discountAmount, itemTotal,
+                     totalAmount, otherDiscount, paidAmount, netInvoiceAmount, previousBalance, totalBalance,
+                     netBalance)
+                .write(connection) > 0;
         } catch (SQLException e) {
             System.err.println("Error inserting sales book entry: " + e.getMessage());
             e.printStackTrace();
@@ -10263,6 +9856,17 @@ public ResultSet getPurchaseReport(Date fromDate, Date toDate, String reportType
         }
     }
     
+    /**
+     * Production stock IDs from item arrays whose first element is the production_id
+     */
+    private static List<Integer> productionIds(List<Object[]> items) {
+        List<Integer> ids = new ArrayList<>();
+        for (Object[] item : items) {
+            ids.add(((Number) item[0]).intValue());
+        }
+        return ids;
+    }
+    
     @Override
     @Deprecated
     public boolean insertReturnSalesBookEntry(int salesReturnInvoiceId, String returnInvoiceNumber, 
@@ -10305,7 +9909,7 @@ public ResultSet getPurchaseReport(Date fromDate, Date toDate, String reportType
         
         query.append(" ORDER BY invoice_date DESC");
         
-        try (PreparedStatement stmt = connection.prepareStatement(query.toString())) {
+        try (PreparedStatement stmt = bookConnection(filters).prepareStatement(query.toString())) {
             for (int i = 0; i < values.size(); i++) {
                 stmt.setString(i + 1, values.get(i));
             }
@@ -10356,7 +9960,7 @@ public ResultSet getPurchaseReport(Date fromDate, Date toDate, String reportType
         
         query.append(" ORDER BY return_date DESC");
         
-        try (PreparedStatement stmt = connection.prepareStatement(query.toString())) {
+        try (PreparedStatement stmt = bookConnection(filters).prepareStatement(query.toString())) {
             for (int i = 0; i < values.size(); i++) {
                 stmt.setString(i + 1, values.get(i));
             }
@@ -10407,7 +10011,7 @@ public ResultSet getPurchaseReport(Date fromDate, Date toDate, String reportType
         
         query.append(" ORDER BY usage_date DESC");
         
-        try (PreparedStatement stmt = connection.prepareStatement(query.toString())) {
+        try (PreparedStatement stmt = bookConnection(filters).prepareStatement(query.toString())) {
             for (int i = 0; i < values.size(); i++) {
                 stmt.setString(i + 1, values.get(i));
             }
@@ -10458,7 +10062,7 @@ public ResultSet getPurchaseReport(Date fromDate, Date toDate, String reportType
         
         query.append(" ORDER BY production_date DESC");
         
-        try (PreparedStatement stmt = connection.prepareStatement(query.toString())) {
+        try (PreparedStatement stmt = bookConnection(filters).prepareStatement(query.toString())) {
             for (int i = 0; i < values.size(); i++) {
                 stmt.setString(i + 1, values.get(i));
             }
@@ -10509,7 +10113,7 @@ public ResultSet getPurchaseReport(Date fromDate, Date toDate, String reportType
         
         query.append(" ORDER BY return_date DESC");
         
-        try (PreparedStatement stmt = connection.prepareStatement(query.toString())) {
+        try (PreparedStatement stmt = bookConnection(filters).prepareStatement(query.toString())) {
             for (int i = 0; i < values.size(); i++) {
                 stmt.setString(i + 1, values.get(i));
             }
@@ -10534,6 +10138,54 @@ public ResultSet getPurchaseReport(Date fromDate, Date toDate, String reportType
     public List<Object[]> getSalesBookData(Map<String, String> filters) {
         List<Object[]> results = new ArrayList<>();
         StringBuilder query = new StringBuilder("SELECT * FROM Sales_Book");
+        List<String> values = appendBookFilters(query, filters, "sales_date");
+        query.append(" ORDER BY sales_date DESC");
+        
+        try (PreparedStatement stmt = bookConnection(filters).prepareStatement(query.toString())) {
+            for (int i = 0; i < values.size(); i++) {
+                stmt.setString(i + 1, values.get(i));
+            }
+            try (ResultSet rs = stmt.executeQuery()) {
+                int columnCount = rs.getMetaData().getColumnCount();
+                while (rs.next()) {
+                    Object[] row = new Object[columnCount];
+                    for (int i = 0; i < columnCount; i++) {
+                        row[i] = rs.getObject(i + 1);
+                    }
+                    results.add(row);
+                }
+            }
+        } catch (SQLException e) {
+            System.err.println("Error getting sales book data: " + e.getMessage());
+            e.printStackTrace();
+        }
+        return results;
+    }
+    
+    @Override
+    public List<SalesBookRow> getSalesBookRows(Map<String, String> filters) {
+        StringBuilder query = new StringBuilder("SELECT * FROM Sales_Book");
+        List<String> values = appendBookFilters(query, filters, "sales_date");
+        query.append(" ORDER BY sales_date DESC");
+        
+        try (PreparedStatement stmt = bookConnection(filters).prepareStatement(query.toString())) {
+            for (int i = 0; i < values.size(); i++) {
+                stmt.setString(i + 1, values.get(i));
+            }
+            return RowMapper.list(stmt, RowMapper.SALES_BOOK);
+        } catch (SQLException e) {
+            System.err.println("Error getting sales book data: " + e.getMessage());
+            e.printStackTrace();
+        }
+        return new ArrayList<>();
+    }
+    
+    /**
+     * Append a WHERE clause for book filters: fromDate/toDate bound the date column,
+     * any other key is a LIKE match on that column
+     * @return the values to bind, in order
+     */
+    private List<String> appendBookFilters(StringBuilder query, Map<String, String> filters, String dateColumn) {
         List<String> values = new ArrayList<>();
         
         if (filters != null && !filters.isEmpty()) {
@@ -10545,10 +10197,10 @@ public ResultSet getPurchaseReport(Date fromDate, Date toDate, String reportType
                 String value = entry.getValue();
                 
                 if (key.equals("fromDate")) {
-                    clauses.add("sales_date >= ?");
+                    clauses.add(dateColumn + " >= ?");
                     values.add(value);
                 } else if (key.equals("toDate")) {
-                    clauses.add("sales_date <= ?");
+                    clauses.add(dateColumn + " <= ?");
                     values.add(value);
                 } else {
                     clauses.add(key + " LIKE ?");
@@ -10557,28 +10209,7 @@ public ResultSet getPurchaseReport(Date fromDate, Date toDate, String reportType
             }
             query.append(String.join(" AND ", clauses));
         }
-        
-        query.append(" ORDER BY sales_date DESC");
-        
-        try (PreparedStatement stmt = connection.prepareStatement(query.toString())) {
-            for (int i = 0; i < values.size(); i++) {
-                stmt.setString(i + 1, values.get(i));
-            }
-            try (ResultSet rs = stmt.executeQuery()) {
-                int columnCount = rs.getMetaData().getColumnCount();
-                while (rs.next()) {
-                    Object[] row = new Object[columnCount];
-                    for (int i = 0; i < columnCount; i++) {
-                        row[i] = rs.getObject(i + 1);
-                    }
-                    results.add(row);
-                }
-            }
-        } catch (SQLException e) {
-            System.err.println("Error getting sales book data: " + e.getMessage());
-            e.printStackTrace();
-        }
-        return results;
+        return values;
     }
     
     @Override
@@ -10611,7 +10242,7 @@ public ResultSet getPurchaseReport(Date fromDate, Date toDate, String reportType
         
         query.append(" ORDER BY return_date DESC");
         
-        try (PreparedStatement stmt = connection.prepareStatement(query.toString())) {
+        try (PreparedStatement stmt = bookConnection(filters).prepareStatement(query.toString())) {
             for (int i = 0; i < values.size(); i++) {
                 stmt.setString(i + 1, values.get(i));
             }
@@ -10631,6 +10262,79 @@ public ResultSet getPurchaseReport(Date fromDate, Date toDate, String reportType
         }
         return results;
     }
+    
+    /**
+     * Date column of each book table, as filtered by fromDate/toDate
+     */
+    private static final Map<String, String> BOOK_DATE_COLUMNS = Map.of(
+        "Purchase_Book", "invoice_date",
+        "Return_Purchase_Book", "return_date",
+        "Raw_Stock_Use_Book", "usage_date",
+        "Production_Book", "production_date",
+        "Return_Production_Book", "return_date",
+        "Sales_Book", "sales_date",
+        "Return_Sales_Book", "return_date");
+    
+    @Override
+    public long exportBookToCsv(String book, Map<String, String> filters, File file, CsvExport.Job job) {
+        String dateColumn = BOOK_DATE_COLUMNS.get(book);
+        if (dateColumn == null) {
+            System.err.println("Error exporting book: unknown book " + book);
+            return -1;
+        }
+        StringBuilder query = new StringBuilder("SELECT * FROM " + book);
+        List<String> values = appendBookFilters(query, filters, dateColumn);
+        query.append(" ORDER BY ").append(dateColumn).append(" DESC");
+        
+        // A pooled reader, so a long export never holds a statement open on the writer
+        Connection reader = null;
+        try {
+            reader = provider.acquireReader(filters != null ? filters.get("fromDate") : null);
+            try (PreparedStatement stmt = reader.prepareStatement(query.toString())) {
+                for (int i = 0; i < values.size(); i++) {
+                    stmt.setString(i + 1, values.get(i));
+                }
+                return CsvExport.write(stmt.executeQuery(), file, job);
+            }
+        } catch (CancellationException e) {
+            Log.info("Export of " + book + " cancelled");
+        } catch (SQLException | IOException e) {
+            System.err.println("Error exporting " + book + ": " + e.getMessage());
+            e.printStackTrace();
+        } finally {
+            provider.releaseReader(reader);
+        }
+        return -1;
+    }
+
+    @Override
+    public long exportReportToCsv(Function<db, ResultSet> report, File file, CsvExport.Job job) {
+        // Bound to a pooled reader, so the report's statement and the history connection
+        // of an archived range stay open until the last row is written
+        try {
+            return provider.withReader(() -> writeReport(report, file, job));
+        } catch (SQLException e) {
+            System.err.println("Error exporting report: " + e.getMessage());
+            e.printStackTrace();
+            return -1;
+        }
+    }
+
+    private long writeReport(Function<db, ResultSet> report, File file, CsvExport.Job job) {
+        ResultSet rs = report.apply(this);
+        if (rs == null) {
+            return -1;
+        }
+        try {
+            return CsvExport.write(rs, file, job);
+        } catch (CancellationException e) {
+            Log.info("Export to " + file + " cancelled");
+        } catch (SQLException | IOException e) {
+            System.err.println("Error exporting report: " + e.getMessage());
+            e.printStackTrace();
+        }
+        return -1;
+    }
 
     // --------------------------
     // Simple Book Insert Methods (convenience methods)
@@ -10698,93 +10402,17 @@ public ResultSet getPurchaseReport(Date fromDate, Date toDate, String reportType
                                         double paidAmount, double calculatedBalance, String originalSalesInvoiceNumber,
                                         int salesReturnInvoiceId) {
         
-        String sql = "INSERT INTO Return_Sales_Book (sales_return_invoice_id, return_invoice_number, customer_name, " +
-                    "customer_contact, customer_tehsil, return_date, product_name, brand_name, manufacturer_name, " +
-                    "unit_name, quantity, unit_price, item_discount_percentage, item_discount_amount, item_total, " +
-                    "total_return_amount, previous_balance, invoice_discount, other_discount, paid_amount, " +
-                    "calculated_balance, original_sales_invoice_number) " +
-                    "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
-        
-        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
-            pstmt.setInt(1, salesReturnInvoiceId);
-            pstmt.setString(2, returnInvoiceNumber);
-            pstmt.setString(3, customerName);
-            pstmt.setString(4, customerContact);
-            pstmt.setString(5, customerTehsil);
-            pstmt.setString(6, returnDate);
-            pstmt.setString(7, productName);
-            pstmt.setString(8, brandName);
-            pstmt.setString(9, manufacturerName);
-            pstmt.setString(10, unitName);
-            pstmt.setInt(11, quantity);
-            pstmt.setDouble(12, unitPrice);
-            pstmt.setDouble(13, itemDiscountPercentage);
-            pstmt.setDouble(14, itemDiscountAmount);
-            pstmt.setDouble(15, itemTotal);
-            pstmt.setDouble(16, totalReturnAmount);
-            pstmt.setDouble(17, previousBalance);
-            pstmt.setDouble(18, invoiceDiscount);
-            pstmt.setDouble(19, otherDiscount);
-            pstmt.setDouble(20, paidAmount);
-            pstmt.setDouble(21, calculatedBalance);
-            pstmt.setString(22, originalSalesInvoiceNumber);
-            
-            return pstmt.executeUpdate() > 0;
+        try {
+            return new BookWriter.Batch(BookWriter.Book.RETURN_SALES)
+                .add(salesReturnInvoiceId, returnInvoiceNumber, customerName, customerContact, customerTehsil,
+                     returnDate, productName, brandName, manufacturerName, unitName, quantity, unitPrice,
+                     itemDiscountPercentage, itemDiscountAmount, itemTotal, totalReturnAmount, previousBalance,
+                     invoiceDiscount, otherDiscount, paidAmount, calculatedBalance, originalSalesInvoiceNumber)
+                .write(connection) > 0;
         } catch (SQLException e) {
             System.err.println("Error inserting comprehensive return sales book entry: " + e.getMessage());
             e.printStackTrace();
             return false;
         }
     }
-    
-    // Helper method to get brand name by production ID
-    private String getBrandNameByProductionId(int productionId) {
-        String sql = "SELECT b.brand_name FROM Brand b " +
-                    "JOIN ProductionStock ps ON b.brand_id = ps.brand_id " +
-                    "WHERE ps.production_id = ?";
-        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
-            pstmt.setInt(1, productionId);
-            ResultSet rs = pstmt.executeQuery();
-            if (rs.next()) {
-                return rs.getString("brand_name");
-            }
-        } catch (SQLException e) {
-            System.err.println("Error getting brand name: " + e.getMessage());
-        }
-        return "";
-    }
-    
-    // Helper method to get manufacturer name by production ID
-    private String getManufacturerNameByProductionId(int productionId) {
-        String sql = "SELECT m.manufacturer_name FROM Manufacturer m " +
-                    "JOIN ProductionStock ps ON m.manufacturer_id = ps.manufacturer_id " +
-                    "WHERE ps.production_id = ?";
-        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
-            pstmt.setInt(1, productionId);
-            ResultSet rs = pstmt.executeQuery();
-            if (rs.next()) {
-                return rs.getString("manufacturer_name");
-            }
-        } catch (SQLException e) {
-            System.err.println("Error getting manufacturer name: " + e.getMessage());
-        }
-        return "";
-    }
-    
-    // Helper method to get unit name by production ID
-    private String getUnitNameByProductionId(int productionId) {
-        String sql = "SELECT u.unit_name FROM Unit u " +
-                    "JOIN ProductionStock ps ON u.unit_id = ps.unit_id " +
-                    "WHERE ps.production_id = ?";
-        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
-            pstmt.setInt(1, productionId);
-            ResultSet rs = pstmt.executeQuery();
-            if (rs.next()) {
-                return rs.getString("unit_name");
-            }
-        } catch (SQLException e) {
-            System.err.println("Error getting unit name: " + e.getMessage());
-        }
-        return "N/A";
-    }
 }
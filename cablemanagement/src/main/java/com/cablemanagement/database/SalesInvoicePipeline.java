@@ -0,0 +1,467 @@
+package com.cablemanagement.database;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import com.cablemanagement.Log;
+
+/**
+ * Saves a sales invoice or a sales return in one transaction with a fixed number of
+ * statements, however many items it has.
+ *
+ * Every value the writes depend on is read first: the customer's name and balance in
+ * one query, and the names of all the invoice's products in another. The writes then
+ * follow in stages (header, items, stock, customer balance, ledger, book, commit), each
+ * one statement or one executeBatch(). Nothing is re-read between stages; the balances
+ * written to the ledger and the book are worked out from the first read with the same
+ * rules the step-by-step code used.
+ *
+ * The time of each stage goes to QueryMetrics ("Pipeline stages" in the query
+ * statistics) and, with -Dcablemanagement.log=info, to the console per invoice.
+ */
+class SalesInvoicePipeline {
+
+    static final String SALES = "sales_invoice";
+    static final String SALES_RETURN = "sales_return";
+
+    private static final String CUSTOMER_QUERY =
+        "SELECT c.customer_name, c.balance AS stored_balance, cb.balance AS ledger_balance " +
+        "FROM Customer c LEFT JOIN Customer_Balance cb ON cb.customer_id = c.customer_id " +
+        "WHERE c.customer_id = ?";
+
+    private static final String INSERT_INVOICE =
+        "INSERT INTO Sales_Invoice (sales_invoice_number, customer_id, sales_date, " +
+        "total_amount, discount_amount, other_discount, paid_amount) VALUES (?, ?, ?, ?, ?, ?, ?) " +
+        "RETURNING sales_invoice_id";
+
+    private static final String INSERT_INVOICE_ITEM =
+        "INSERT INTO Sales_Invoice_Item (sales_invoice_id, production_stock_id, quantity, unit_price, " +
+        "discount_percentage, discount_amount, total_price) VALUES (?, ?, ?, ?, ?, ?, ?)";
+
+    private static final String INSERT_RETURN =
+        "INSERT INTO Sales_Return_Invoice (return_invoice_number, original_sales_invoice_id, " +
+        "customer_id, return_date, total_return_amount) VALUES (?, ?, ?, ?, ?) " +
+        "RETURNING sales_return_invoice_id";
+
+    private static final String INSERT_RETURN_ITEM =
+        "INSERT INTO Sales_Return_Invoice_Item (sales_return_invoice_id, production_stock_id, quantity, " +
+        "unit_price, total_price) VALUES (?, ?, ?, ?, ?)";
+
+    private static final String ADJUST_STOCK =
+        "UPDATE ProductionStock SET quantity = quantity + ? WHERE production_id = ?";
+
+    private static final String ADJUST_CUSTOMER_BALANCE =
+        "UPDATE Customer SET balance = balance + ? WHERE customer_id = ?";
+
+    private static final String INSERT_TRANSACTION =
+        "INSERT INTO Customer_Transaction (customer_id, transaction_date, transaction_type, amount, " +
+        "description, reference_invoice_number, balance_after_transaction) VALUES (?, ?, ?, ?, ?, ?, ?)";
+
+    /**
+     * One item of an invoice: [production_id, quantity, unit_price, discount %, discount amount]
+     */
+    private record Line(int productionId, double quantity, double unitPrice,
+                        double discountPercentage, double discountAmount) {
+
+        static Line of(Object[] item) {
+            return new Line(((Number) item[0]).intValue(),
+                            ((Number) item[1]).doubleValue(),
+                            ((Number) item[2]).doubleValue(),
+                            item.length > 3 ? ((Number) item[3]).doubleValue() : 0.0,
+                            item.length > 4 ? ((Number) item[4]).doubleValue() : 0.0);
+        }
+    }
+
+    /**
+     * The customer row as read before any write. storedBalance is Customer.balance and
+     * ledgerBalance the materialized Customer_Balance; either may be null.
+     */
+    private record Customer(String name, Double storedBalance, Double ledgerBalance) {
+
+        /**
+         * What CustomerBalanceEngine.getBalance() returns once Customer.balance has moved by delta
+         */
+        double balanceAfter(double storedDelta) {
+            if (ledgerBalance != null) {
+                return ledgerBalance;
+            }
+            return storedBalance != null ? storedBalance + storedDelta : 0.0;
+        }
+    }
+
+    /**
+     * Elapsed time per stage of one pipeline run
+     */
+    private static final class Stages {
+        private final String pipeline;
+        private final List<String> names = new ArrayList<>();
+        private final List<long[]> timings = new ArrayList<>(); // [nanos, rows]
+        private final long start = System.nanoTime();
+        private long last = start;
+
+        Stages(String pipeline) {
+            this.pipeline = pipeline;
+        }
+
+        void mark(String stage, long rows) {
+            long now = System.nanoTime();
+            names.add(stage);
+            timings.add(new long[] { now - last, rows });
+            last = now;
+        }
+
+        void report(String invoiceNumber) {
+            long total = last - start;
+            StringBuilder sb = new StringBuilder();
+            for (int i = 0; i < names.size(); i++) {
+                long[] timing = timings.get(i);
+                QueryMetrics.recordStage(pipeline + "." + names.get(i), timing[0], timing[1]);
+                sb.append(i == 0 ? "" : ", ").append(names.get(i)).append(' ')
+                  .append(String.format("%.2f", timing[0] / 1_000_000.0));
+            }
+            QueryMetrics.recordStage(pipeline + ".total", total, -1);
+            if (Log.isInfoEnabled()) {
+                Log.info(pipeline + " " + invoiceNumber + " saved in " +
+                         String.format("%.2f", total / 1_000_000.0) + " ms (" + sb + ")");
+            }
+        }
+    }
+
+    private SalesInvoicePipeline() {
+    }
+
+    /**
+     * Save a sales invoice with its items, stock decrease, customer balance, ledger entries
+     * and Sales_Book rows
+     * @param items [production_id, quantity, unit_price, discount %, discount amount]
+     * @return the new sales_invoice_id
+     * @throws SQLException if any stage fails; nothing is kept in that case
+     */
+    static int saveSalesInvoice(Connection connection, String invoiceNumber, int customerId, String salesDate,
+                                double totalAmount, double discountAmount, double otherDiscount, double paidAmount,
+                                List<Object[]> items) throws SQLException {
+        Stages stages = new Stages(SALES);
+        boolean autoCommit = connection.getAutoCommit();
+        connection.setAutoCommit(false);
+        try {
+            // Reads
+            List<Line> lines = lines(items);
+            Customer customer = readCustomer(connection, customerId);
+            Map<Integer, BookWriter.Names> names = BookWriter.productionNames(connection, productionIds(lines));
+            stages.mark("read", -1);
+
+            double netInvoiceTotal = totalAmount - discountAmount - otherDiscount;
+            double netInvoiceAmount = netInvoiceTotal - paidAmount;   // what Customer.balance moves by
+            double previousBalance = customer.balanceAfter(0);
+            double currentBalance = customer.balanceAfter(netInvoiceAmount);
+            double totalBalance = previousBalance + netInvoiceTotal - otherDiscount;
+            double netBalance = totalBalance - paidAmount;
+
+            int salesInvoiceId;
+            try (PreparedStatement pstmt = connection.prepareStatement(INSERT_INVOICE)) {
+                pstmt.setString(1, invoiceNumber);
+                pstmt.setInt(2, customerId);
+                pstmt.setString(3, salesDate);
+                pstmt.setDouble(4, totalAmount);
+                pstmt.setDouble(5, discountAmount);
+                pstmt.setDouble(6, otherDiscount);
+                pstmt.setDouble(7, paidAmount);
+                salesInvoiceId = insertReturningId(pstmt, "Sales_Invoice " + invoiceNumber);
+            }
+            stages.mark("header", 1);
+
+            try (PreparedStatement pstmt = connection.prepareStatement(INSERT_INVOICE_ITEM)) {
+                for (Line line : lines) {
+                    double basePrice = line.quantity() * line.unitPrice();
+                    double totalPrice = basePrice - basePrice * (line.discountPercentage() / 100.0) - line.discountAmount();
+                    pstmt.setInt(1, salesInvoiceId);
+                    pstmt.setInt(2, line.productionId());
+                    pstmt.setDouble(3, line.quantity());
+                    pstmt.setDouble(4, line.unitPrice());
+                    pstmt.setDouble(5, line.discountPercentage());
+                    pstmt.setDouble(6, line.discountAmount());
+                    pstmt.setDouble(7, Math.max(0, totalPrice));
+                    pstmt.addBatch();
+                }
+                requireAll(pstmt.executeBatch(), "Sales_Invoice_Item");
+            }
+            stages.mark("items", lines.size());
+
+            adjustStock(connection, lines, -1, true);
+            stages.mark("stock", lines.size());
+
+            if (adjustCustomerBalance(connection, customerId, netInvoiceAmount) == 0) {
+                throw new SQLException("Customer " + customerId + " balance not updated");
+            }
+            stages.mark("balance", 1);
+
+            // The invoice charge must follow the items: its trigger sums them into Customer_Balance
+            try (PreparedStatement pstmt = connection.prepareStatement(INSERT_TRANSACTION)) {
+                addTransaction(pstmt, customerId, salesDate, "invoice_charge", totalAmount,
+                               "Sales Invoice - " + invoiceNumber, invoiceNumber,
+                               currentBalance - netInvoiceAmount + totalAmount);
+                if (paidAmount > 0) {
+                    addTransaction(pstmt, customerId, salesDate, "payment_received", paidAmount,
+                                   "Payment for Invoice - " + invoiceNumber, invoiceNumber, currentBalance);
+                }
+                requireAll(pstmt.executeBatch(), "Customer_Transaction");
+            }
+            stages.mark("ledger", paidAmount > 0 ? 2 : 1);
+
+            BookWriter.Batch book = new BookWriter.Batch(BookWriter.Book.SALES);
+            for (Line line : lines) {
+                BookWriter.Names name = names.get(line.productionId());
+                book.add(salesInvoiceId,
+                         invoiceNumber,
+                         customer.name(),
+                         salesDate,
+                         name != null ? name.product() : "Unknown Product",
+                         name != null && name.brand() != null ? name.brand() : "",
+                         name != null && name.manufacturer() != null ? name.manufacturer() : "",
+                         line.quantity(),
+                         line.unitPrice(),
+                         line.discountPercentage(),
+                         line.discountAmount(),
+                         line.quantity() * line.unitPrice() - line.discountAmount(),
+                         totalAmount,
+                         otherDiscount,
+                         paidAmount,
+                         netInvoiceTotal,    // Net invoice amount after all discounts
+                         previousBalance,    // Customer balance before this invoice
+                         totalBalance,       // Previous balance + net invoice amount
+                         netBalance);        // Total balance - paid amount
+            }
+            book.write(connection);
+            stages.mark("book", book.size());
+
+            connection.commit();
+            stages.mark("commit", -1);
+            stages.report(invoiceNumber);
+            return salesInvoiceId;
+        } catch (SQLException | RuntimeException e) {
+            rollback(connection);
+            throw e;
+        } finally {
+            connection.setAutoCommit(autoCommit);
+        }
+    }
+
+    /**
+     * Save a sales return with its items, stock increase, optional balance credit and
+     * Return_Sales_Book rows
+     * @param items [production_id, quantity, unit_price]
+     * @param updateBalance credit the return to the customer's balance (otherwise it is a cash refund)
+     * @return the new sales_return_invoice_id
+     * @throws SQLException if any stage fails; nothing is kept in that case
+     */
+    static int saveSalesReturn(Connection connection, String returnInvoiceNumber, int originalSalesInvoiceId,
+                               int customerId, String customerName, String customerContact, String customerTehsil,
+                               String returnDate, double totalReturnAmount, List<Object[]> items,
+                               boolean updateBalance, double previousBalance, double invoiceDiscount,
+                               double otherDiscount, double paidAmount, double calculatedBalance,
+                               String originalInvoiceNumber) throws SQLException {
+        Stages stages = new Stages(SALES_RETURN);
+        boolean autoCommit = connection.getAutoCommit();
+        connection.setAutoCommit(false);
+        try {
+            // Reads
+            List<Line> lines = lines(items);
+            Customer customer = updateBalance ? readCustomer(connection, customerId) : null;
+            Map<Integer, BookWriter.Names> names = BookWriter.productionNames(connection, productionIds(lines));
+            stages.mark("read", -1);
+
+            int salesReturnInvoiceId;
+            try (PreparedStatement pstmt = connection.prepareStatement(INSERT_RETURN)) {
+                pstmt.setString(1, returnInvoiceNumber);
+                pstmt.setInt(2, originalSalesInvoiceId);
+                pstmt.setInt(3, customerId);
+                pstmt.setString(4, returnDate);
+                pstmt.setDouble(5, totalReturnAmount);
+                salesReturnInvoiceId = insertReturningId(pstmt, "Sales_Return_Invoice " + returnInvoiceNumber);
+            }
+            stages.mark("header", 1);
+
+            try (PreparedStatement pstmt = connection.prepareStatement(INSERT_RETURN_ITEM)) {
+                for (Line line : lines) {
+                    pstmt.setInt(1, salesReturnInvoiceId);
+                    pstmt.setInt(2, line.productionId());
+                    pstmt.setDouble(3, line.quantity());
+                    pstmt.setDouble(4, line.unitPrice());
+                    pstmt.setDouble(5, line.quantity() * line.unitPrice());
+                    pstmt.addBatch();
+                }
+                requireAll(pstmt.executeBatch(), "Sales_Return_Invoice_Item");
+            }
+            stages.mark("items", lines.size());
+
+            // Returned items go back into stock; as before, a product deleted since the sale is skipped
+            adjustStock(connection, lines, 1, false);
+            stages.mark("stock", lines.size());
+
+            if (updateBalance) {
+                if (adjustCustomerBalance(connection, customerId, -totalReturnAmount) == 0) {
+                    throw new SQLException("Customer " + customerId + " balance not updated");
+                }
+                stages.mark("balance", 1);
+
+                try (PreparedStatement pstmt = connection.prepareStatement(INSERT_TRANSACTION)) {
+                    addTransaction(pstmt, customerId, returnDate, "adjustment", -totalReturnAmount,
+                                   "Sales Return - " + returnInvoiceNumber, returnInvoiceNumber,
+                                   customer.balanceAfter(-totalReturnAmount));
+                    requireAll(pstmt.executeBatch(), "Customer_Transaction");
+                }
+                stages.mark("ledger", 1);
+            } else {
+                Log.debug("Cash refund - customer balance not updated");
+            }
+
+            BookWriter.Batch book = new BookWriter.Batch(BookWriter.Book.RETURN_SALES);
+            for (Line line : lines) {
+                BookWriter.Names name = names.get(line.productionId());
+                // Return invoices carry no item-level discounts
+                book.add(salesReturnInvoiceId,
+                         returnInvoiceNumber,
+                         customerName,
+                         customerContact,
+                         customerTehsil,
+                         returnDate,
+                         name != null ? name.product() : "Unknown Product",
+                         name != null && name.brand() != null ? name.brand() : "",
+                         name != null && name.manufacturer() != null ? name.manufacturer() : "",
+                         name != null && name.unit() != null ? name.unit() : "N/A",
+                         (int) line.quantity(),
+                         line.unitPrice(),
+                         0.0,
+                         0.0,
+                         line.quantity() * line.unitPrice(),
+                         totalReturnAmount,
+                         previousBalance,
+                         invoiceDiscount,
+                         otherDiscount,
+                         paidAmount,
+                         calculatedBalance,
+                         originalInvoiceNumber);
+            }
+            book.write(connection);
+            stages.mark("book", book.size());
+
+            connection.commit();
+            stages.mark("commit", -1);
+            stages.report(returnInvoiceNumber);
+            return salesReturnInvoiceId;
+        } catch (SQLException | RuntimeException e) {
+            rollback(connection);
+            throw e;
+        } finally {
+            connection.setAutoCommit(autoCommit);
+        }
+    }
+
+    private static List<Line> lines(List<Object[]> items) {
+        List<Line> lines = new ArrayList<>(items.size());
+        for (Object[] item : items) {
+            lines.add(Line.of(item));
+        }
+        return lines;
+    }
+
+    private static List<Integer> productionIds(List<Line> lines) {
+        List<Integer> ids = new ArrayList<>(lines.size());
+        for (Line line : lines) {
+            ids.add(line.productionId());
+        }
+        return ids;
+    }
+
+    private static Customer readCustomer(Connection connection, int customerId) throws SQLException {
+        try (PreparedStatement pstmt = connection.prepareStatement(CUSTOMER_QUERY)) {
+            pstmt.setInt(1, customerId);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                if (!rs.next()) {
+                    throw new SQLException("Customer " + customerId + " not found");
+                }
+                return new Customer(rs.getString("customer_name"),
+                                    nullableDouble(rs, "stored_balance"),
+                                    nullableDouble(rs, "ledger_balance"));
+            }
+        }
+    }
+
+    private static Double nullableDouble(ResultSet rs, String column) throws SQLException {
+        double value = rs.getDouble(column);
+        return rs.wasNull() ? null : value;
+    }
+
+    private static int insertReturningId(PreparedStatement pstmt, String what) throws SQLException {
+        try (ResultSet rs = pstmt.executeQuery()) {
+            if (!rs.next()) {
+                throw new SQLException(what + " was not inserted");
+            }
+            return rs.getInt(1);
+        }
+    }
+
+    /**
+     * Move the stock of every line by sign * quantity in one batch
+     * @param required fail if a line's product no longer exists
+     */
+    private static void adjustStock(Connection connection, List<Line> lines, int sign, boolean required) throws SQLException {
+        try (PreparedStatement pstmt = connection.prepareStatement(ADJUST_STOCK)) {
+            for (Line line : lines) {
+                pstmt.setDouble(1, sign * line.quantity());
+                pstmt.setInt(2, line.productionId());
+                pstmt.addBatch();
+            }
+            int[] results = pstmt.executeBatch();
+            if (required) {
+                for (int i = 0; i < results.length; i++) {
+                    if (results[i] == 0 || results[i] == Statement.EXECUTE_FAILED) {
+                        throw new SQLException("Production stock " + lines.get(i).productionId() + " not found");
+                    }
+                }
+            }
+        }
+    }
+
+    private static int adjustCustomerBalance(Connection connection, int customerId, double delta) throws SQLException {
+        try (PreparedStatement pstmt = connection.prepareStatement(ADJUST_CUSTOMER_BALANCE)) {
+            pstmt.setDouble(1, delta);
+            pstmt.setInt(2, customerId);
+            return pstmt.executeUpdate();
+        }
+    }
+
+    private static void addTransaction(PreparedStatement pstmt, int customerId, String date, String type, double amount,
+                                       String description, String invoiceNumber, double balanceAfter) throws SQLException {
+        pstmt.setInt(1, customerId);
+        pstmt.setString(2, date);
+        pstmt.setString(3, type);
+        pstmt.setDouble(4, amount);
+        pstmt.setString(5, description);
+        pstmt.setString(6, invoiceNumber);
+        pstmt.setDouble(7, balanceAfter);
+        pstmt.addBatch();
+    }
+
+    private static void requireAll(int[] results, String table) throws SQLException {
+        for (int result : results) {
+            if (result == 0 || result == Statement.EXECUTE_FAILED) {
+                throw new SQLException("Failed to insert " + table + " row");
+            }
+        }
+    }
+
+    private static void rollback(Connection connection) {
+        try {
+            connection.rollback();
+        } catch (SQLException rollbackEx) {
+            System.err.println("Error rolling back transaction: " + rollbackEx.getMessage());
+        }
+    }
+}
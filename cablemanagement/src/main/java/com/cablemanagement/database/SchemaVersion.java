@@ -0,0 +1,55 @@
+package com.cablemanagement.database;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Tracks the applied version of each startup migration (indexes, balances, etc.)
+ * in the Schema_Version table so that migrations only run once per database file.
+ */
+class SchemaVersion {
+
+    private SchemaVersion() {
+    }
+
+    static void ensureTable(Connection connection) throws SQLException {
+        try (Statement stmt = connection.createStatement()) {
+            stmt.execute("CREATE TABLE IF NOT EXISTS Schema_Version (" +
+                        "component TEXT PRIMARY KEY, " +
+                        "version INTEGER NOT NULL, " +
+                        "applied_at TEXT DEFAULT CURRENT_TIMESTAMP" +
+                        ")");
+        }
+    }
+
+    /**
+     * Get the applied version of a component, or 0 if it has never been applied
+     */
+    static int get(Connection connection, String component) throws SQLException {
+        ensureTable(connection);
+        String query = "SELECT version FROM Schema_Version WHERE component = ?";
+        try (PreparedStatement pstmt = connection.prepareStatement(query)) {
+            pstmt.setString(1, component);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                if (rs.next()) {
+                    return rs.getInt("version");
+                }
+            }
+        }
+        return 0;
+    }
+
+    static void set(Connection connection, String component, int version) throws SQLException {
+        ensureTable(connection);
+        String query = "INSERT INTO Schema_Version (component, version, applied_at) VALUES (?, ?, CURRENT_TIMESTAMP) " +
+                      "ON CONFLICT(component) DO UPDATE SET version = excluded.version, applied_at = CURRENT_TIMESTAMP";
+        try (PreparedStatement pstmt = connection.prepareStatement(query)) {
+            pstmt.setString(1, component);
+            pstmt.setInt(2, version);
+            pstmt.executeUpdate();
+        }
+    }
+}
@@ -0,0 +1,232 @@
+package com.cablemanagement.database;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.cablemanagement.Log;
+import com.cablemanagement.model.SearchResult;
+
+/**
+ * FTS5 index over customers, suppliers, products, raw stock and invoice numbers,
+ * kept in Search_Index.
+ *
+ * Each indexed row is stored under rowid = id * 16 + type code, so triggers on the
+ * source tables can replace or remove it without scanning the index. Invoice rows
+ * carry the customer or supplier name, and are re-indexed when that name changes.
+ */
+class SearchIndex {
+
+    static final String COMPONENT = "search_index";
+    static final int VERSION = 1;
+
+    /**
+     * One indexed table. title and detail are SQL expressions over the alias t.
+     */
+    private static final class Source {
+        final int code;
+        final String type;
+        final String table;
+        final String idColumn;
+        final String title;
+        final String detail;
+        final String watchedColumns;
+        /** Table whose name appears in detail, and the column of t referencing it (or null) */
+        final String parentTable;
+        final String parentColumn;
+
+        Source(int code, String type, String table, String idColumn, String title, String detail,
+               String watchedColumns, String parentTable, String parentColumn) {
+            this.code = code;
+            this.type = type;
+            this.table = table;
+            this.idColumn = idColumn;
+            this.title = title;
+            this.detail = detail;
+            this.watchedColumns = watchedColumns;
+            this.parentTable = parentTable;
+            this.parentColumn = parentColumn;
+        }
+
+        String rowid(String row) {
+            return row + "." + idColumn + " * 16 + " + code;
+        }
+
+        /**
+         * INSERT ... SELECT of this table's index rows matching a condition on t (or all rows)
+         */
+        String insertRows(String where) {
+            return "INSERT INTO Search_Index (rowid, entity_type, entity_id, title, detail) " +
+                   "SELECT " + rowid("t") + ", '" + type + "', t." + idColumn + ", " + title + ", " + detail + " " +
+                   "FROM " + table + " t" + (where != null ? " WHERE " + where : "");
+        }
+    }
+
+    private static final String CUSTOMER_NAME = "(SELECT customer_name FROM Customer WHERE customer_id = t.customer_id)";
+    private static final String SUPPLIER_NAME = "(SELECT supplier_name FROM Supplier WHERE supplier_id = t.supplier_id)";
+    private static final String BRAND_NAME = "COALESCE((SELECT brand_name FROM Brand WHERE brand_id = t.brand_id), '')";
+
+    private static final Source[] SOURCES = {
+        new Source(1, "customer", "Customer", "customer_id", "t.customer_name",
+                   "TRIM(COALESCE(t.contact_number, '') || ' ' || COALESCE(t.address, ''))",
+                   "customer_name, contact_number, address", null, null),
+        new Source(2, "supplier", "Supplier", "supplier_id", "t.supplier_name",
+                   "TRIM(COALESCE(t.contact_number, '') || ' ' || COALESCE(t.address, ''))",
+                   "supplier_name, contact_number, address", null, null),
+        new Source(3, "product", "ProductionStock", "production_id", "t.product_name", BRAND_NAME,
+                   "product_name, brand_id", null, null),
+        new Source(4, "raw_stock", "Raw_Stock", "stock_id", "t.item_name", BRAND_NAME,
+                   "item_name, brand_id", null, null),
+        new Source(5, "sales_invoice", "Sales_Invoice", "sales_invoice_id", "t.sales_invoice_number",
+                   "COALESCE(" + CUSTOMER_NAME + ", '') || ' ' || t.sales_date",
+                   "sales_invoice_number, customer_id, sales_date", "Customer", "customer_id"),
+        new Source(6, "purchase_invoice", "Raw_Purchase_Invoice", "raw_purchase_invoice_id", "t.invoice_number",
+                   "COALESCE(" + SUPPLIER_NAME + ", '') || ' ' || t.invoice_date",
+                   "invoice_number, supplier_id, invoice_date", "Supplier", "supplier_id"),
+        new Source(7, "sales_return", "Sales_Return_Invoice", "sales_return_invoice_id", "t.return_invoice_number",
+                   "COALESCE(" + CUSTOMER_NAME + ", '') || ' ' || t.return_date",
+                   "return_invoice_number, customer_id, return_date", "Customer", "customer_id"),
+        new Source(8, "purchase_return", "Raw_Purchase_Return_Invoice", "raw_purchase_return_invoice_id", "t.return_invoice_number",
+                   "COALESCE(" + SUPPLIER_NAME + ", '') || ' ' || t.return_date",
+                   "return_invoice_number, supplier_id, return_date", "Supplier", "supplier_id"),
+    };
+
+    private static final String SEARCH_QUERY =
+        "SELECT entity_type, entity_id, title, detail FROM Search_Index " +
+        "WHERE Search_Index MATCH ? " +
+        "ORDER BY bm25(Search_Index, 0, 0, 10.0, 1.0) " +
+        "LIMIT ?";
+
+    private SearchIndex() {
+    }
+
+    /**
+     * Create Search_Index and its triggers and fill it, if the recorded version is behind VERSION
+     * @return true if the index was installed on this call
+     */
+    static boolean install(Connection connection) throws SQLException {
+        if (SchemaVersion.get(connection, COMPONENT) >= VERSION) {
+            return false;
+        }
+
+        try (Statement stmt = connection.createStatement()) {
+            stmt.execute("CREATE VIRTUAL TABLE IF NOT EXISTS Search_Index USING fts5(" +
+                        "entity_type UNINDEXED, entity_id UNINDEXED, title, detail, " +
+                        "tokenize = 'unicode61 remove_diacritics 2', prefix = '2 3')");
+
+            for (Source source : SOURCES) {
+                String prefix = "trg_search_" + source.table.toLowerCase();
+
+                stmt.execute("DROP TRIGGER IF EXISTS " + prefix + "_insert");
+                stmt.execute("CREATE TRIGGER " + prefix + "_insert AFTER INSERT ON " + source.table + " " +
+                            "BEGIN " +
+                            "  " + source.insertRows("t." + source.idColumn + " = NEW." + source.idColumn) + "; " +
+                            "END");
+
+                stmt.execute("DROP TRIGGER IF EXISTS " + prefix + "_update");
+                stmt.execute("CREATE TRIGGER " + prefix + "_update AFTER UPDATE OF " + source.watchedColumns +
+                            " ON " + source.table + " " +
+                            "BEGIN " +
+                            "  DELETE FROM Search_Index WHERE rowid = " + source.rowid("OLD") + "; " +
+                            "  " + source.insertRows("t." + source.idColumn + " = NEW." + source.idColumn) + "; " +
+                            "END");
+
+                stmt.execute("DROP TRIGGER IF EXISTS " + prefix + "_delete");
+                stmt.execute("CREATE TRIGGER " + prefix + "_delete AFTER DELETE ON " + source.table + " " +
+                            "BEGIN " +
+                            "  DELETE FROM Search_Index WHERE rowid = " + source.rowid("OLD") + "; " +
+                            "END");
+
+                if (source.parentTable != null) {
+                    // The counterparty name is part of the invoice's detail
+                    String parentTrigger = prefix + "_" + source.parentTable.toLowerCase() + "_rename";
+                    String parentName = source.parentTable.toLowerCase() + "_name";
+                    stmt.execute("DROP TRIGGER IF EXISTS " + parentTrigger);
+                    stmt.execute("CREATE TRIGGER " + parentTrigger + " AFTER UPDATE OF " + parentName +
+                                " ON " + source.parentTable + " " +
+                                "BEGIN " +
+                                "  DELETE FROM Search_Index WHERE rowid IN (" +
+                                "    SELECT " + source.rowid("t") + " FROM " + source.table + " t " +
+                                "    WHERE t." + source.parentColumn + " = NEW." + source.parentColumn + "); " +
+                                "  " + source.insertRows("t." + source.parentColumn + " = NEW." + source.parentColumn) + "; " +
+                                "END");
+                }
+            }
+        }
+
+        int indexed = rebuild(connection);
+        SchemaVersion.set(connection, COMPONENT, VERSION);
+        Log.info("Search index v" + VERSION + " installed (" + indexed + " rows indexed)");
+        return true;
+    }
+
+    /**
+     * Refill the index from the source tables
+     * @return the number of rows indexed
+     */
+    static int rebuild(Connection connection) throws SQLException {
+        int indexed = 0;
+        try (Statement stmt = connection.createStatement()) {
+            stmt.execute("DELETE FROM Search_Index");
+            for (Source source : SOURCES) {
+                indexed += stmt.executeUpdate(source.insertRows(null));
+            }
+        }
+        return indexed;
+    }
+
+    /**
+     * Ranked search: every word of text must match the start of a word in the title or
+     * detail; title matches rank above detail matches.
+     */
+    static List<SearchResult> search(Connection connection, String text, int limit) throws SQLException {
+        List<SearchResult> results = new ArrayList<>();
+        String match = toMatchExpression(text);
+        if (match.isEmpty()) {
+            return results;
+        }
+
+        try (PreparedStatement pstmt = connection.prepareStatement(SEARCH_QUERY)) {
+            pstmt.setString(1, match);
+            pstmt.setInt(2, limit);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    results.add(new SearchResult(
+                        rs.getString("entity_type"),
+                        rs.getInt("entity_id"),
+                        rs.getString("title"),
+                        rs.getString("detail")));
+                }
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Turn free text into an FTS5 query of quoted prefix terms, so user input can
+     * never be parsed as FTS syntax. "SI-00" becomes "SI-00"*, which matches the
+     * tokens si and 00... as a phrase.
+     */
+    static String toMatchExpression(String text) {
+        if (text == null) {
+            return "";
+        }
+        StringBuilder match = new StringBuilder();
+        for (String word : text.trim().split("\\s+")) {
+            String term = word.replace("\"", "");
+            if (!term.matches(".*[\\p{L}\\p{N}].*")) {
+                // Punctuation alone has no tokens to match
+                continue;
+            }
+            if (match.length() > 0) {
+                match.append(' ');
+            }
+            match.append('"').append(term).append("\"*");
+        }
+        return match.toString();
+    }
+}
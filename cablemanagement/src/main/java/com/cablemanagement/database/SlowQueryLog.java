@@ -0,0 +1,75 @@
+package com.cablemanagement.database;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+
+/**
+ * Appends slow database calls to logs/slow-queries.log. The file is rolled over to
+ * slow-queries.log.1 (and .2, .3) once it passes MAX_BYTES, so it never grows without
+ * bound on a counter PC that runs for months.
+ */
+class SlowQueryLog {
+
+    private static final String DIRECTORY = "logs";
+    private static final String FILE_NAME = "slow-queries.log";
+    private static final long MAX_BYTES = 1024 * 1024;
+    private static final int BACKUPS = 3;
+
+    private static final DateTimeFormatter TIMESTAMP = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss.SSS");
+
+    private SlowQueryLog() {
+    }
+
+    static String getPath() {
+        return new File(DIRECTORY, FILE_NAME).getPath();
+    }
+
+    /**
+     * Log one slow call
+     * @param name the db method, or "sql" for a statement run outside any db call
+     * @param rowCount rows returned or changed, or -1 if unknown
+     * @param slowestSql [nanos (Long), sql] of the slowest statements the call ran
+     */
+    static synchronized void write(String name, long nanos, long rowCount, List<Object[]> slowestSql) {
+        try {
+            File file = new File(DIRECTORY, FILE_NAME);
+            File directory = file.getParentFile();
+            if (!directory.exists() && !directory.mkdirs()) {
+                return;
+            }
+            if (file.length() > MAX_BYTES) {
+                roll(file);
+            }
+            try (PrintWriter out = new PrintWriter(new FileWriter(file, true))) {
+                out.printf("%s  %.1f ms  %s  rows=%s  thread=%s%n",
+                    LocalDateTime.now().format(TIMESTAMP), nanos / 1_000_000.0, name,
+                    rowCount < 0 ? "?" : String.valueOf(rowCount), Thread.currentThread().getName());
+                for (Object[] entry : slowestSql) {
+                    out.printf("    %8.1f ms  %s%n", (Long) entry[0] / 1_000_000.0,
+                        ((String) entry[1]).replaceAll("\\s+", " ").trim());
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("Could not write slow query log: " + e.getMessage());
+        }
+    }
+
+    private static void roll(File file) {
+        File oldest = new File(file.getPath() + "." + BACKUPS);
+        if (oldest.exists() && !oldest.delete()) {
+            return;
+        }
+        for (int i = BACKUPS - 1; i >= 1; i--) {
+            File backup = new File(file.getPath() + "." + i);
+            if (backup.exists()) {
+                backup.renameTo(new File(file.getPath() + "." + (i + 1)));
+            }
+        }
+        file.renameTo(new File(file.getPath() + ".1"));
+    }
+}
@@ -0,0 +1,303 @@
+package com.cablemanagement.database;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Prepared statement cache for one connection. wrap() returns a connection whose
+ * prepareStatement(sql) hands out a statement kept from an earlier call with the same
+ * SQL when one is idle, so the DAO's many constant queries are parsed and planned once
+ * instead of on every call.
+ *
+ * Callers keep using try-with-resources: closing a handed-out statement closes its
+ * result sets, clears its parameters and batch, and returns it to the cache. Only
+ * idle statements are cached; if the same SQL is requested while its statement is
+ * still open (nested loops, another thread) a second one is prepared. The least
+ * recently used idle statement is closed once more than capacity are cached.
+ *
+ * Every execution of a handed-out statement is timed and reported to QueryMetrics.
+ *
+ * afterTransaction() queues work, such as dropping cached reference data, to run when
+ * the open transaction commits or rolls back, so it sees the outcome of the write.
+ */
+class StatementCache implements InvocationHandler {
+
+    static final int DEFAULT_CAPACITY = 128;
+
+    private final Connection connection;
+    private final int capacity;
+    private final LinkedHashMap<String, PreparedStatement> idle = new LinkedHashMap<>(32, 0.75f, true);
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private final List<Runnable> transactionEndActions = new ArrayList<>();
+    private Connection proxy;
+
+    private StatementCache(Connection connection, int capacity) {
+        this.connection = connection;
+        this.capacity = capacity;
+    }
+
+    /**
+     * Wrap a connection so its prepared statements are cached
+     */
+    static Connection wrap(Connection connection, int capacity) {
+        StatementCache cache = new StatementCache(connection, capacity);
+        cache.proxy = (Connection) Proxy.newProxyInstance(
+            StatementCache.class.getClassLoader(), new Class<?>[] { Connection.class }, cache);
+        return cache.proxy;
+    }
+
+    /**
+     * The cache behind a connection returned by wrap(), or null for any other connection
+     */
+    static StatementCache of(Connection connection) {
+        if (connection != null && Proxy.isProxyClass(connection.getClass())
+                && Proxy.getInvocationHandler(connection) instanceof StatementCache) {
+            return (StatementCache) Proxy.getInvocationHandler(connection);
+        }
+        return null;
+    }
+
+    /**
+     * Run an action once the transaction open on the connection commits or rolls back,
+     * or right away when the connection is in auto-commit mode or is not a wrapped one
+     */
+    static void afterTransaction(Connection connection, Runnable action) throws SQLException {
+        StatementCache cache = of(connection);
+        if (cache == null || cache.connection.getAutoCommit()) {
+            action.run();
+            return;
+        }
+        synchronized (cache) {
+            cache.transactionEndActions.add(action);
+        }
+    }
+
+    long getHits() {
+        return hits.get();
+    }
+
+    long getMisses() {
+        return misses.get();
+    }
+
+    long getEvictions() {
+        return evictions.get();
+    }
+
+    synchronized int size() {
+        return idle.size();
+    }
+
+    @Override
+    public Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        switch (method.getName()) {
+            case "prepareStatement":
+                if (args.length == 1) {
+                    return checkOut((String) args[0], -1);
+                }
+                if (args.length == 2 && args[1] instanceof Integer) {
+                    return checkOut((String) args[0], (Integer) args[1]);
+                }
+                break;
+            case "close":
+                clear();
+                break;
+            case "commit":
+            case "rollback": {
+                Object result = delegate(connection, method, args);
+                // rollback(Savepoint) leaves the transaction open
+                if (args == null) {
+                    runTransactionEndActions();
+                }
+                return result;
+            }
+            case "setAutoCommit": {
+                // Turning auto-commit back on commits the open transaction
+                boolean ending = (Boolean) args[0] && !connection.getAutoCommit();
+                Object result = delegate(connection, method, args);
+                if (ending) {
+                    runTransactionEndActions();
+                }
+                return result;
+            }
+            case "equals":
+                return target == args[0];
+            case "hashCode":
+                return System.identityHashCode(target);
+            default:
+                break;
+        }
+        return delegate(connection, method, args);
+    }
+
+    private void runTransactionEndActions() {
+        List<Runnable> actions;
+        synchronized (this) {
+            if (transactionEndActions.isEmpty()) {
+                return;
+            }
+            actions = new ArrayList<>(transactionEndActions);
+            transactionEndActions.clear();
+        }
+        for (Runnable action : actions) {
+            action.run();
+        }
+    }
+
+    /**
+     * Close every cached statement
+     */
+    synchronized void clear() {
+        for (PreparedStatement statement : idle.values()) {
+            closeQuietly(statement);
+        }
+        idle.clear();
+    }
+
+    private PreparedStatement checkOut(String sql, int autoGeneratedKeys) throws SQLException {
+        String key = autoGeneratedKeys + ":" + sql;
+        PreparedStatement statement;
+        synchronized (this) {
+            statement = idle.remove(key);
+        }
+        if (statement != null) {
+            hits.incrementAndGet();
+        } else {
+            misses.incrementAndGet();
+            statement = autoGeneratedKeys < 0
+                ? connection.prepareStatement(sql)
+                : connection.prepareStatement(sql, autoGeneratedKeys);
+        }
+        return (PreparedStatement) Proxy.newProxyInstance(
+            StatementCache.class.getClassLoader(), new Class<?>[] { PreparedStatement.class },
+            new Handle(key, sql, statement));
+    }
+
+    private void checkIn(String key, PreparedStatement statement) {
+        try {
+            if (statement.isClosed()) {
+                return;
+            }
+            statement.clearParameters();
+            statement.clearBatch();
+        } catch (SQLException e) {
+            closeQuietly(statement);
+            return;
+        }
+
+        List<PreparedStatement> evicted = new ArrayList<>();
+        synchronized (this) {
+            PreparedStatement previous = idle.put(key, statement);
+            if (previous != null) {
+                // Another copy was returned first; keep one
+                evicted.add(previous);
+            }
+            Iterator<Map.Entry<String, PreparedStatement>> eldest = idle.entrySet().iterator();
+            while (idle.size() > capacity && eldest.hasNext()) {
+                evicted.add(eldest.next().getValue());
+                eldest.remove();
+                evictions.incrementAndGet();
+            }
+        }
+        for (PreparedStatement stale : evicted) {
+            closeQuietly(stale);
+        }
+    }
+
+    /**
+     * A statement as seen by one caller, between prepareStatement() and close()
+     */
+    private final class Handle implements InvocationHandler {
+        private final String key;
+        private final String sql;
+        private final PreparedStatement statement;
+        private final List<ResultSet> resultSets = new ArrayList<>();
+        private boolean closed = false;
+
+        Handle(String key, String sql, PreparedStatement statement) {
+            this.key = key;
+            this.sql = sql;
+            this.statement = statement;
+        }
+
+        @Override
+        public Object invoke(Object target, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    if (!closed) {
+                        closed = true;
+                        for (ResultSet rs : resultSets) {
+                            closeQuietly(rs);
+                        }
+                        resultSets.clear();
+                        checkIn(key, statement);
+                    }
+                    return null;
+                case "isClosed":
+                    return closed || statement.isClosed();
+                case "getConnection":
+                    return proxy;
+                case "equals":
+                    return target == args[0];
+                case "hashCode":
+                    return System.identityHashCode(target);
+                default:
+                    break;
+            }
+            if (closed) {
+                throw new SQLException("Statement is closed");
+            }
+            if (!method.getName().startsWith("execute")) {
+                return track(delegate(statement, method, args));
+            }
+            long start = System.nanoTime();
+            Object result = null;
+            try {
+                result = delegate(statement, method, args);
+                return track(result);
+            } finally {
+                long rowCount = result instanceof Integer ? (Integer) result
+                              : result instanceof int[] ? Arrays.stream((int[]) result).filter(n -> n > 0).sum() : -1;
+                QueryMetrics.recordStatement(sql, System.nanoTime() - start, rowCount, result == null);
+            }
+        }
+
+        private Object track(Object result) {
+            if (result instanceof ResultSet) {
+                resultSets.add((ResultSet) result);
+            }
+            return result;
+        }
+    }
+
+    private static Object delegate(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    private static void closeQuietly(AutoCloseable closeable) {
+        try {
+            closeable.close();
+        } catch (Exception e) {
+            // Already unusable; nothing to recover
+        }
+    }
+}
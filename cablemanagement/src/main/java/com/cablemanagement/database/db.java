@@ -1,17 +1,33 @@
 package com.cablemanagement.database;
 
+import java.io.File;
 import java.sql.Date;
 import java.sql.ResultSet;
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.Function;
 
+import com.cablemanagement.model.AreaPartyTotals;
+import com.cablemanagement.model.ArchivedYear;
 import com.cablemanagement.model.Bank;
 import com.cablemanagement.model.BankTransaction;
 import com.cablemanagement.model.Brand;
 import com.cablemanagement.model.Customer;
+import com.cablemanagement.model.DatabaseBackup;
+import com.cablemanagement.model.FiscalYear;
+import com.cablemanagement.model.LedgerRow;
 import com.cablemanagement.model.Manufacturer;
+import com.cablemanagement.model.ProductCatalogEntry;
+import com.cablemanagement.model.ProductionStockRow;
+import com.cablemanagement.model.ProductionStockSummary;
 import com.cablemanagement.model.RawStockPurchaseItem;
 import com.cablemanagement.model.RawStockUseItem;
+import com.cablemanagement.model.SalesBookRow;
+import com.cablemanagement.model.SalesInvoiceItemRow;
+import com.cablemanagement.model.SearchResult;
+import com.cablemanagement.model.StatementCacheStats;
 import com.cablemanagement.model.Supplier;
 
 public interface db {
@@ -84,6 +100,129 @@ public interface db {
 
     boolean SignIn(String userId, String password);
 
+    /**
+     * Run EXPLAIN QUERY PLAN over the main ledger, book and report queries
+     * to verify they are served by the secondary indexes
+     * @return A list of Object arrays [label, plan detail, uses index (Boolean)]
+     */
+    List<Object[]> getQueryPlanReport();
+
+    /**
+     * Ranked full-text search over customer and supplier names and contacts, product and
+     * raw stock names, and sales, purchase and return invoice numbers. Every word must
+     * match the start of a word; name and number matches rank first.
+     */
+    List<SearchResult> globalSearch(String text, int limit);
+
+    /**
+     * Refill the global search index from the source tables
+     * @return the number of rows indexed, or -1 on error
+     */
+    int rebuildSearchIndex();
+
+    /**
+     * Recompute the per-day sales, purchase and return totals used by the reports
+     * @return the number of day rows written, or -1 on error
+     */
+    int rebuildDailyRollups();
+
+    /**
+     * Hit, miss and eviction counts of the prepared statement cache on this database's connections
+     */
+    StatementCacheStats getStatementCacheStats();
+
+    /**
+     * Take a snapshot of the database now, while it stays in use, and verify it
+     * @return the new snapshot, or null on error
+     */
+    DatabaseBackup createBackup();
+
+    /**
+     * Verified snapshots in the backup directory, newest first
+     */
+    List<DatabaseBackup> getBackups();
+
+    /**
+     * Replace the database with one of the getBackups() snapshots. The current state is
+     * saved as a pre-restore snapshot first.
+     * @return true if the database was restored
+     */
+    boolean restoreBackup(String path);
+
+    // --------------------------
+    // Fiscal Year Archives
+    // --------------------------
+
+    /**
+     * Fiscal years moved into archive files, oldest first
+     */
+    List<ArchivedYear> getArchivedYears();
+
+    /**
+     * The oldest fiscal year still in the live database, if it has ended
+     * @return the year archiveFiscalYear() takes next, or null if none can be archived
+     */
+    FiscalYear getNextFiscalYearToArchive();
+
+    /**
+     * Move a closed fiscal year's invoices, ledger rows and book rows into an archive file
+     * and carry each customer's balance forward as an opening balance. A pre-archive
+     * snapshot is taken first. Reports and date-range ledgers reaching into the year keep
+     * reading it from the archive.
+     * @param startYear the year getNextFiscalYearToArchive() returned
+     * @return the archived year, or null on error
+     */
+    ArchivedYear archiveFiscalYear(int startYear);
+
+    // --------------------------
+    // Master Data Cache
+    // --------------------------
+
+    /**
+     * Get id -> name for a reference table (units, categories, brands, ...), ordered by name.
+     * Served from memory; the map is read-only.
+     */
+    Map<Integer, String> getMasterDataNamesById(MasterDataCache.Kind kind);
+
+    /**
+     * Get name -> id for a reference table. Served from memory; the map is read-only.
+     */
+    Map<String, Integer> getMasterDataIdsByName(MasterDataCache.Kind kind);
+
+    /**
+     * Get the names in a reference table starting with prefix (case-insensitive), ordered by name
+     * @param limit Maximum number of names, or 0 for all
+     */
+    List<String> searchMasterData(MasterDataCache.Kind kind, String prefix, int limit);
+
+    // --------------------------
+    // Product Catalog Index
+    // --------------------------
+
+    /**
+     * Get a production stock item's name, brand, unit and prices by id, from memory
+     * @return The entry, or null if there is no such item
+     */
+    ProductCatalogEntry getProductCatalogEntry(int productionId);
+
+    /**
+     * Find a production stock item by name (the lowest id if several share it), from memory
+     * @return The entry, or null if there is no such item
+     */
+    ProductCatalogEntry findProductCatalogEntry(String productName);
+
+    /**
+     * Find a production stock item by name and brand, from memory
+     * @return The entry, or null if there is no such item
+     */
+    ProductCatalogEntry findProductCatalogEntry(String productName, String brandName);
+
+    /**
+     * Drop the product catalog index after ProductionStock was written directly
+     * through getConnection(); the db methods that write it already do this
+     */
+    void invalidateProductCatalog();
+
     // --------------------------
     // Tehsil Operations
     // --------------------------
@@ -155,6 +294,13 @@ public interface db {
 
     double getCustomerCurrentBalance(String customerName);
 
+    /**
+     * Rebuild the materialized customer balances from the full transaction history
+     * @return A list of Object arrays [customerId, customerName, storedBalance, recomputedBalance, drift]
+     *         for each customer whose stored balance was wrong, or null on error
+     */
+    List<Object[]> reconcileCustomerBalances();
+
     /**
      * Get customer's balance BEFORE a specific invoice (for PDF generation)
      * @param customerName Customer name
@@ -393,6 +539,29 @@ public interface db {
      */
     List<Object[]> getCustomerLedger(int customerId);
     
+    /**
+     * Get one page of a customer ledger, continuing after the last row of the previous page
+     * @param customerId Customer ID
+     * @param afterRow Last row returned by the previous page, or null for the first page
+     * @param limit Maximum number of rows, or -1 for the rest of the ledger
+     * @return List of ledger rows [serial, date, time, description, invoice, totalBill, discount,
+     *         otherDiscount, netAmount, payment, return, balance, transactionId]
+     */
+    List<Object[]> getCustomerLedgerPage(int customerId, Object[] afterRow, int limit);
+    
+    /**
+     * Typed version of getCustomerLedgerPage()
+     * @param afterRow Last row returned by the previous page, or null for the first page
+     */
+    List<LedgerRow> getCustomerLedgerRows(int customerId, LedgerRow afterRow, int limit);
+    
+    /**
+     * Get totals over a customer's whole ledger
+     * @param customerId Customer ID
+     * @return Object array [totalSale, totalDiscount, totalPayment, totalReturn, currentBalance]
+     */
+    Object[] getCustomerLedgerSummary(int customerId);
+    
     /**
      * Get customer ledger for date range
      * @param customerName Customer name
@@ -451,6 +620,32 @@ public interface db {
     // --------------------------
     List<Object[]> getAllProductionStocks();
     
+    /**
+     * Typed version of getAllProductionStocks()
+     */
+    List<ProductionStockRow> getAllProductionStockRows();
+    
+    /**
+     * Stream every production stock item, ordered by product name, without building a list
+     */
+    void forEachProductionStockRow(Consumer<ProductionStockRow> consumer);
+
+    /**
+     * Search production stock with filtering, sorting and paging done in the database
+     * @param filters "search": product or brand name contains (case-insensitive);
+     *                "brand": brand name equals. Missing or empty filters are ignored.
+     * @param sortKey name, category, manufacturer, brand, unit, quantity, salePrice or totalValue
+     * @param limit Page size, or 0 for every matching item
+     */
+    List<ProductionStockRow> searchProductionStock(Map<String, String> filters, String sortKey, boolean ascending,
+                                                   int offset, int limit);
+
+    /**
+     * Get item count, total value and low stock count over the items matching the filters
+     * (same filters as searchProductionStock)
+     */
+    ProductionStockSummary getProductionStockSummary(Map<String, String> filters);
+    
     boolean insertProductionStock(String name, String category, String manufacturer, String brand, String unit, double openingQty, double unitCost, double salePrice);
     
     List<Object[]> getAllRawPurchaseInvoices();
@@ -465,6 +660,13 @@ public interface db {
     
     // New methods for enhanced invoice functionality
     String generateNextInvoiceNumber(String prefix);
+
+    /**
+     * Number the last invoice saved on this thread was given. The generate*Number() methods
+     * only show the next number; it is taken when the invoice is saved, and if another
+     * terminal saved one with it first the invoice gets the next free number instead.
+     */
+    String getLastSavedInvoiceNumber();
     
     List<Object[]> getAllRawStocksForDropdown();
     
@@ -538,6 +740,25 @@ public interface db {
     
     boolean insertProductionStockRawUsage(int productionInvoiceId, List<Object[]> rawMaterialsUsed);
 
+    // --------------------------
+    // Production Return Invoice Operations
+    // --------------------------
+    String generateProductionReturnInvoiceNumber();
+    
+    List<Object[]> getAllProductionInvoicesForDropdown();
+    
+    List<Object[]> getProductionItemsByInvoiceId(int productionInvoiceId);
+    
+    int insertProductionReturnInvoiceAndGetId(String returnInvoiceNumber, int originalProductionInvoiceId,
+                                             String returnDate, double totalReturnQuantity, 
+                                             double totalReturnAmount, String notes);
+    
+    boolean insertProductionReturnInvoiceItems(int returnInvoiceId, List<Object[]> returnItems);
+    
+    List<Object[]> getAllProductionReturnInvoices();
+    
+    List<Object[]> getProductionReturnInvoiceItems(int returnInvoiceId);
+
     // --------------------------
     // Production Stock Operations  
     // --------------------------
@@ -588,6 +809,29 @@ public interface db {
     
     List<Object[]> getSalesInvoiceItemsByInvoiceId(int salesInvoiceId);
     
+    /**
+     * Typed version of getSalesInvoiceItemsByInvoiceId()
+     */
+    List<SalesInvoiceItemRow> getSalesInvoiceItemRows(int salesInvoiceId);
+    
+    /**
+     * Items of many sales invoices in one query, for printing a customer ledger
+     * @param invoiceNumbers sales invoice numbers; unknown ones are left out
+     * @param fromDate yyyy-MM-dd date of the earliest invoice, so archived years it reaches are
+     *                 searched too; null for the whole history
+     * @return {item name, quantity, unit price, item discount amount} rows by invoice number, in item order
+     */
+    Map<String, List<Object[]>> getSalesInvoiceItemsByNumbers(Collection<String> invoiceNumbers, String fromDate);
+    
+    /**
+     * Items of many raw purchase invoices in one query, for printing a supplier ledger
+     * @param invoiceNumbers raw purchase invoice numbers; unknown ones are left out
+     * @param fromDate yyyy-MM-dd date of the earliest invoice, so archived years it reaches are
+     *                 searched too; null for the whole history
+     * @return {item name, quantity, unit price, invoice discount amount} rows by invoice number, in item order
+     */
+    Map<String, List<Object[]>> getRawPurchaseInvoiceItemsByNumbers(Collection<String> invoiceNumbers, String fromDate);
+    
     Object[] getSalesInvoiceById(int salesInvoiceId);
     
     int insertSalesReturnInvoiceAndGetId(String returnInvoiceNumber, int originalSalesInvoiceId, 
@@ -659,6 +903,20 @@ public interface db {
     List<Object[]> getAllEmployeeSalaryPayments();  // TODO: remove
     
     List<Object[]> getAllEmployeeLoans();
+    
+    boolean insertAdvanceSalary(int employeeId, double amount, String advanceDate, String description);
+    
+    List<Object[]> getAllAdvanceSalaries();
+    
+    List<Object[]> getSalaryReportByDateRange(String startDate, String endDate);
+    
+    boolean insertEmployeeLoan(int employeeId, double loanAmount, String loanDate, String dueDate, String description);
+    
+    List<Object[]> getEmployeeLoansByDateRange(String startDate, String endDate);
+    
+    List<Object[]> getLoansByEmployee(String employeeName);
+    
+    boolean updateLoanStatus(int loanId, String status, double remainingAmount);
 
     // --------------------------
     // Contract Employee Operations
@@ -861,10 +1119,34 @@ List<Object[]> getInvoiceItemsByID(Integer invoiceID);
      */
     List<Object[]> getSalesBookData(Map<String, String> filters);
     
+    /**
+     * Get sales book lines as typed rows, with the same filters as getSalesBookData()
+     */
+    List<SalesBookRow> getSalesBookRows(Map<String, String> filters);
+    
     /**
      * Get return sales book data with filters
      */
     List<Object[]> getReturnSalesBookData(Map<String, String> filters);
+    
+    /**
+     * Stream a book straight into a CSV file, with the same filters as its get*BookData()
+     * method, without loading it into memory
+     * @param book Purchase_Book, Return_Purchase_Book, Raw_Stock_Use_Book, Production_Book,
+     *        Return_Production_Book, Sales_Book or Return_Sales_Book
+     * @param job receives progress and may cancel the export; may be null
+     * @return rows written, or -1 if the export failed or was cancelled
+     */
+    long exportBookToCsv(String book, Map<String, String> filters, File file, CsvExport.Job job);
+
+    /**
+     * Stream a report straight into a CSV file. The report query runs on a pooled reader
+     * held for the whole export, never on the writer.
+     * @param report runs the report, e.g. database -> database.getSalesReport(from, to, type)
+     * @param job receives progress and may cancel the export; may be null
+     * @return rows written, or -1 if the export failed or was cancelled
+     */
+    long exportReportToCsv(Function<db, ResultSet> report, File file, CsvExport.Job job);
     ///////////////////////////////////////////////////////////////////////////////
     /// ///                   reports Methods
     ///////////////////////////////////////////////////////////////////////////////
@@ -882,6 +1164,18 @@ List<Object[]> getInvoiceItemsByID(Integer invoiceID);
     ResultSet getSuppliersReport();
     ResultSet getAreaWiseReport(Date fromDate, Date toDate);
     ResultSet getAreaWiseReport(String partyType, String areaType, String areaValue, Date fromDate, Date toDate);
+    
+    /**
+     * Ledger totals for every customer and/or supplier in an area with a sale, payment or
+     * return in the date range, computed with grouped queries over the whole area
+     * @param partyType "Customer", "Supplier" or "Both"
+     * @param areaType "province", "district", "tehsil" or "all"
+     * @param areaValue Area name, or "All" for every area
+     * @param startDate Start date (yyyy-MM-dd), or null with endDate for the whole history
+     * @param endDate End date (yyyy-MM-dd)
+     * @return One row per party, customers first
+     */
+    List<AreaPartyTotals> getAreaWiseTotals(String partyType, String areaType, String areaValue, String startDate, String endDate);
     ResultSet getBrandSalesReport(Date fromDate, Date toDate);
     ResultSet getBrandProfitReport(Date fromDate, Date toDate);  // TODO: remove
     ResultSet getCustomerSalesReport(int customerId, Date fromDate, Date toDate);  // TODO: remove
@@ -14,11 +14,11 @@ import java.time.format.DateTimeFormatter;
  */
 public class BalanceSheetGenerator {
     
-    private static final Font TITLE_FONT = FontFactory.getFont(FontFactory.HELVETICA_BOLD, 18, BaseColor.BLACK);
-    private static final Font HEADER_FONT = FontFactory.getFont(FontFactory.HELVETICA_BOLD, 14, BaseColor.BLACK);
-    private static final Font SECTION_FONT = FontFactory.getFont(FontFactory.HELVETICA_BOLD, 12, BaseColor.BLACK);
-    private static final Font NORMAL_FONT = FontFactory.getFont(FontFactory.HELVETICA, 10, BaseColor.BLACK);
-    private static final Font BOLD_FONT = FontFactory.getFont(FontFactory.HELVETICA_BOLD, 10, BaseColor.BLACK);
+    private static final Font TITLE_FONT = PdfResources.font(FontFactory.HELVETICA_BOLD, 18, BaseColor.BLACK);
+    private static final Font HEADER_FONT = PdfResources.font(FontFactory.HELVETICA_BOLD, 14, BaseColor.BLACK);
+    private static final Font SECTION_FONT = PdfResources.font(FontFactory.HELVETICA_BOLD, 12, BaseColor.BLACK);
+    private static final Font NORMAL_FONT = PdfResources.font(FontFactory.HELVETICA, 10, BaseColor.BLACK);
+    private static final Font BOLD_FONT = PdfResources.font(FontFactory.HELVETICA_BOLD, 10, BaseColor.BLACK);
     
     /**
      * Generate Balance Sheet PDF
@@ -129,7 +129,7 @@ public class BalanceSheetGenerator {
             document.add(footerInfo);
             
             // CODOC Footer
-            Font footerFont = FontFactory.getFont(FontFactory.HELVETICA, 8, BaseColor.GRAY);
+            Font footerFont = PdfResources.font(FontFactory.HELVETICA, 8, BaseColor.GRAY);
             document.add(new Paragraph("\n"));
             Paragraph codocLine1 = new Paragraph("⚡ Software Developed by CODOC", footerFont);
             codocLine1.setAlignment(Element.ALIGN_CENTER);
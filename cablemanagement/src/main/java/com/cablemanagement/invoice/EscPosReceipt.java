@@ -0,0 +1,301 @@
+package com.cablemanagement.invoice;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import javax.print.Doc;
+import javax.print.DocFlavor;
+import javax.print.DocPrintJob;
+import javax.print.PrintService;
+import javax.print.PrintServiceLookup;
+import javax.print.SimpleDoc;
+
+import com.cablemanagement.Log;
+
+/**
+ * Invoices as ESC/POS receipts for 80mm thermal printers.
+ *
+ * The receipt is plain text laid out in the printer's own font, with the commands
+ * for alignment, bold and double-size text and a paper cut at the end, so it goes to
+ * the printer as raw bytes without any PDF rendering or driver in between. It shows
+ * the same lines and figures as the PDF invoice from InvoiceGenerator.
+ *
+ * The line width defaults to 48 characters (font A on 80mm paper) and can be set with
+ * -Dcablemanagement.receipt.columns, e.g. 32 for 58mm paper. Text outside ASCII is
+ * printed as '?', as the printer's default code page has no other characters in common
+ * with Java strings.
+ */
+public final class EscPosReceipt {
+
+    private static final int COLUMNS = Math.max(24, Integer.getInteger("cablemanagement.receipt.columns", 48));
+    private static final String INDENT = "   ";
+
+    private static final byte ESC = 0x1B;
+    private static final byte GS = 0x1D;
+    private static final byte[] INITIALIZE = { ESC, '@' };
+    private static final byte[] ALIGN_LEFT = { ESC, 'a', 0 };
+    private static final byte[] ALIGN_CENTER = { ESC, 'a', 1 };
+    private static final byte[] BOLD_ON = { ESC, 'E', 1 };
+    private static final byte[] BOLD_OFF = { ESC, 'E', 0 };
+    private static final byte[] DOUBLE_SIZE = { GS, '!', 0x11 };
+    private static final byte[] NORMAL_SIZE = { GS, '!', 0x00 };
+    /** Feed the paper past the cutter and cut, leaving a small hinge */
+    private static final byte[] FEED_AND_CUT = { GS, 'V', 66, 0 };
+
+    private final ByteArrayOutputStream out = new ByteArrayOutputStream(4096);
+    private final int columns;
+
+    private EscPosReceipt(int columns) {
+        this.columns = columns;
+    }
+
+    /**
+     * Render an invoice as an ESC/POS byte stream, ending with a paper cut
+     */
+    public static byte[] render(InvoiceData data) {
+        return render(data, COLUMNS);
+    }
+
+    /**
+     * Render an invoice for a given line width
+     * @param columns characters per line of the printer's normal font
+     */
+    public static byte[] render(InvoiceData data, int columns) {
+        EscPosReceipt receipt = new EscPosReceipt(columns);
+        receipt.write(data);
+        return receipt.out.toByteArray();
+    }
+
+    /**
+     * Send a rendered receipt to a printer as raw bytes
+     * @param printerName the printer to use, or null for the default printer
+     * @return true if the printer accepted the job
+     */
+    public static boolean print(byte[] receipt, String printerName) {
+        try {
+            PrintService printService = null;
+            if (printerName == null) {
+                printService = PrintServiceLookup.lookupDefaultPrintService();
+            } else {
+                for (PrintService service : PrintServiceLookup.lookupPrintServices(null, null)) {
+                    if (service.getName().equals(printerName)) {
+                        printService = service;
+                        break;
+                    }
+                }
+            }
+            if (printService == null) {
+                Log.warn(printerName == null ? "No default printer found" : "Printer not found: " + printerName);
+                return false;
+            }
+
+            // AUTOSENSE with no document format is passed through to the printer untouched
+            DocPrintJob printJob = printService.createPrintJob();
+            Doc document = new SimpleDoc(receipt, DocFlavor.BYTE_ARRAY.AUTOSENSE, null);
+            printJob.print(document, null);
+            Log.info("Receipt sent to printer '" + printService.getName() + "' (" + receipt.length + " bytes)");
+            return true;
+        } catch (Exception e) {
+            Log.error("Failed to print receipt: " + e.getMessage());
+            e.printStackTrace();
+            return false;
+        }
+    }
+
+    /**
+     * Write a rendered receipt to a file, such as a printer device (/dev/usb/lp0, LPT1 or
+     * a shared printer's UNC path) or a file to inspect
+     * @return true if the receipt was written
+     */
+    public static boolean writeTo(byte[] receipt, File file) {
+        try (OutputStream stream = new FileOutputStream(file)) {
+            stream.write(receipt);
+            Log.info("Receipt written to " + file + " (" + receipt.length + " bytes)");
+            return true;
+        } catch (IOException e) {
+            Log.error("Failed to write receipt to " + file + ": " + e.getMessage());
+            e.printStackTrace();
+            return false;
+        }
+    }
+
+    private void write(InvoiceData data) {
+        String type = data.getType() == null ? "" : data.getType().toLowerCase();
+        boolean isPurchaseInvoice = type.contains("purchase");
+        boolean isProductionInvoice = type.equals(InvoiceData.TYPE_PRODUCTION) || type.equals(InvoiceData.TYPE_PRODUCTION_RETURN);
+        boolean isRawStockInvoice = type.equals(InvoiceData.TYPE_RAW_STOCK);
+
+        command(INITIALIZE);
+
+        // Header
+        command(ALIGN_CENTER);
+        command(DOUBLE_SIZE);
+        command(BOLD_ON);
+        wrapped("HASEEB WIRE & CABLES", columns / 2);
+        command(NORMAL_SIZE);
+        line(InvoiceGenerator.getInvoiceTitle(data));
+        command(BOLD_OFF);
+        line("Khalil Abad, Amangarh, Nowshera");
+        line("03334106520 / 03339265587");
+        command(ALIGN_LEFT);
+        rule();
+
+        // Customer/Supplier and invoice info
+        if (isRawStockInvoice) {
+            if (data.hasMetadata("reference")) {
+                wrapped("Reference/Purpose: " + data.getMetadata("reference"), columns);
+            }
+        } else if (isProductionInvoice) {
+            if (data.hasMetadata("notes")) {
+                wrapped("Notes: " + data.getMetadata("notes"), columns);
+            }
+        } else {
+            wrapped(isPurchaseInvoice ? data.getEntityName() : "Customer: " + data.getEntityName(), columns);
+            if (data.hasMetadata("tehsil") && !data.getMetadata("tehsil").toString().isEmpty()) {
+                wrapped("Tehsil: " + data.getMetadata("tehsil"), columns);
+            }
+            if (data.hasMetadata("contact") && !data.getMetadata("contact").toString().isEmpty()) {
+                wrapped("Contact: " + data.getMetadata("contact"), columns);
+            }
+        }
+        line(spread("Invoice #: " + data.getInvoiceNumber(), data.getDate()));
+        if (type.contains("return")) {
+            line("Original Invoice #: " + data.getOriginalInvoiceNumber());
+        }
+        line("Operator: " + data.getOperator());
+        rule();
+
+        // Items: the name on its own line(s), the figures below it
+        double total = 0;
+        double grossTotal = 0;
+        List<Item> items = data.getItems();
+        for (int i = 0; i < items.size(); i++) {
+            Item item = items.get(i);
+            double amount = item.getUnitPrice() * item.getQuantity();
+            double discount = amount * item.getDiscountPercent() / 100.0;
+            double net = amount - discount;
+            grossTotal += amount;
+            total += net;
+
+            if (isProductionInvoice) {
+                String quantity = String.valueOf(item.getQuantity());
+                List<String> name = wrap((i + 1) + ". " + item.getName(), columns - quantity.length() - 1);
+                line(spread(name.get(0), quantity));
+                for (String rest : name.subList(1, name.size())) {
+                    line(INDENT + rest);
+                }
+                continue;
+            }
+            List<String> name = wrap((i + 1) + ". " + item.getName(), columns - INDENT.length());
+            line(name.get(0));
+            for (String rest : name.subList(1, name.size())) {
+                line(INDENT + rest);
+            }
+            String figures = INDENT + item.getQuantity() + " x " + String.format("%.2f", item.getUnitPrice());
+            if (!isPurchaseInvoice && item.getDiscountPercent() > 0) {
+                figures += String.format(" -%.1f%%", item.getDiscountPercent());
+            }
+            line(spread(figures, String.format("%.2f", net)));
+        }
+        rule();
+
+        // Summary, with the figures of the PDF invoice
+        if (isRawStockInvoice) {
+            Object totalAmountObj = data.hasMetadata("totalAmount") ? data.getMetadata("totalAmount") : total;
+            double totalAmount = totalAmountObj instanceof Number ? ((Number) totalAmountObj).doubleValue() : total;
+            line(spread("Total Usage Amount:", String.format("%.2f", totalAmount)));
+        } else if (isProductionInvoice) {
+            line(spread("Total Items:", String.valueOf(items.size())));
+            double totalQuantity = items.stream().mapToDouble(Item::getQuantity).sum();
+            line(spread("Total Quantity Produced:", String.format("%.0f", totalQuantity)));
+        } else {
+            double invoiceLevelDiscount = data.getDiscountAmount();
+            double otherDiscount = data.getOtherDiscountAmount();
+            double netInvoiceAmount = isPurchaseInvoice && invoiceLevelDiscount > 0 ? grossTotal - invoiceLevelDiscount : total;
+            boolean isReturn = InvoiceData.TYPE_PURCHASE_RETURN.equals(data.getType()) ||
+                               InvoiceData.TYPE_SALE_RETURN.equals(data.getType());
+            double totalBalance = isReturn ? data.getPreviousBalance() - netInvoiceAmount
+                                           : data.getPreviousBalance() + netInvoiceAmount;
+            double netBalance = totalBalance - otherDiscount - data.getPaidAmount();
+
+            line(spread("Bill:", String.format("%.2f", grossTotal)));
+            line(spread("Discount:", invoiceLevelDiscount > 0 ? String.format("%.2f", invoiceLevelDiscount) : ""));
+            line(spread("Current Net Bill:", String.format("%.2f", netInvoiceAmount)));
+            line(spread("Previous Balance:", String.format("%.2f", data.getPreviousBalance())));
+            line(spread("Total Balance:", String.format("%.2f", totalBalance)));
+            line(spread("Other Discount:", otherDiscount > 0 ? String.format("%.2f", otherDiscount) : ""));
+            line(spread("Paid:", data.getPaidAmount() == 0.0 ? "" : String.format("%.2f", data.getPaidAmount())));
+            command(BOLD_ON);
+            line(spread("Net Balance:", String.format("%.2f", netBalance)));
+            command(BOLD_OFF);
+        }
+        rule();
+
+        command(ALIGN_CENTER);
+        command(BOLD_ON);
+        line("THANK YOU!");
+        command(BOLD_OFF);
+        command(ALIGN_LEFT);
+        command(FEED_AND_CUT);
+    }
+
+    /**
+     * Text on the left and right ends of one line; the left text is shortened if both do not fit
+     */
+    private String spread(String left, String right) {
+        left = left == null ? "" : left;
+        right = right == null ? "" : right;
+        if (right.isEmpty()) {
+            return left;
+        }
+        int space = columns - right.length() - 1;
+        if (left.length() > space) {
+            left = left.substring(0, Math.max(0, space));
+        }
+        return left + " ".repeat(Math.max(1, columns - left.length() - right.length())) + right;
+    }
+
+    private void rule() {
+        line("-".repeat(columns));
+    }
+
+    private void wrapped(String text, int width) {
+        for (String part : wrap(text, width)) {
+            line(part);
+        }
+    }
+
+    /**
+     * Break text into lines of at most width characters, at spaces where possible
+     */
+    private static List<String> wrap(String text, int width) {
+        List<String> lines = new ArrayList<>();
+        String rest = text == null ? "" : text.trim();
+        while (rest.length() > width) {
+            int cut = rest.lastIndexOf(' ', width);
+            if (cut <= 0) {
+                cut = width;
+            }
+            lines.add(rest.substring(0, cut).trim());
+            rest = rest.substring(cut).trim();
+        }
+        lines.add(rest);
+        return lines;
+    }
+
+    private void line(String text) {
+        // Characters outside ASCII come out as '?'
+        byte[] bytes = (text == null ? "" : text).getBytes(StandardCharsets.US_ASCII);
+        out.write(bytes, 0, bytes.length);
+        out.write('\n');
+    }
+
+    private void command(byte[] command) {
+        out.write(command, 0, command.length);
+    }
+}
@@ -1,19 +1,26 @@
 package com.cablemanagement.invoice;
 
+import com.cablemanagement.Log;
 import com.itextpdf.text.*;
 import com.itextpdf.text.pdf.*;
 import com.itextpdf.text.pdf.draw.DottedLineSeparator;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
 import java.util.List;
+import java.util.function.BooleanSupplier;
 import javax.print.*;
 import javax.print.attribute.HashPrintRequestAttributeSet;
 import javax.print.attribute.PrintRequestAttributeSet;
 import javax.print.attribute.standard.Copies;
 import javax.print.attribute.standard.MediaSizeName;
 import javax.print.attribute.standard.OrientationRequested;
+import javax.print.event.PrintJobAdapter;
 import javax.print.event.PrintJobEvent;
 import javax.print.event.PrintJobListener;
 
@@ -25,7 +32,7 @@ class FooterEvent extends PdfPageEventHelper {
     public void onEndPage(PdfWriter writer, Document document) {
         try {
             // Create the font for the footer
-            Font footerFont = FontFactory.getFont(FontFactory.HELVETICA, 8, BaseColor.GRAY);
+            Font footerFont = PdfResources.font(FontFactory.HELVETICA, 8, BaseColor.GRAY);
             
             // Create footer phrases with the new CODOC text
             Phrase footerLine1 = new Phrase("⚡ Software Developed by CODOC", footerFont);
@@ -56,7 +63,7 @@ public class InvoiceGenerator {
      * @param data The invoice data containing the type
      * @return The formatted invoice title
      */
-    private static String getInvoiceTitle(InvoiceData data) {
+    static String getInvoiceTitle(InvoiceData data) {
         String type = data.getType();
         if (type == null) {
             return "Invoice";
@@ -82,53 +89,47 @@ public class InvoiceGenerator {
         }
     }
     public static void generatePDF(InvoiceData data, String filename) {
+        try (FileOutputStream out = new FileOutputStream(filename)) {
+            generatePDF(data, out);
+        } catch (IOException e) {
+            System.err.println("Error generating PDF: " + e.getMessage());
+            e.printStackTrace();
+            throw new RuntimeException("Failed to generate PDF: " + e.getMessage(), e);
+        }
+        System.out.println("Invoice generated successfully: " + filename);
+    }
+
+    /**
+     * Render an invoice into memory, for printing without a temporary file
+     * @return the PDF document
+     */
+    public static byte[] generatePDFBytes(InvoiceData data) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(64 * 1024);
+        generatePDF(data, out);
+        return out.toByteArray();
+    }
+
+    /**
+     * Render an invoice into a stream; the stream is closed when the document is
+     */
+    public static void generatePDF(InvoiceData data, OutputStream out) {
         try {
             Document document = new Document(PageSize.A4, 50, 50, 50, 50);
             
             // Create PDF writer with footer event handler for bottom page footer
-            PdfWriter writer = PdfWriter.getInstance(document, new FileOutputStream(filename));
+            PdfWriter writer = PdfWriter.getInstance(document, out);
             writer.setPageEvent(new FooterEvent());
             document.open();
 
             // Fonts
-            Font titleFont = FontFactory.getFont(FontFactory.HELVETICA_BOLD, 18, BaseColor.BLACK);
-            Font headerFont = FontFactory.getFont(FontFactory.HELVETICA_BOLD, 12, BaseColor.BLACK);
-            Font regularFont = FontFactory.getFont(FontFactory.HELVETICA, 10, BaseColor.BLACK);
-
-            // Logo (Optional - only add if logo file exists)
-            try {
-                // Try multiple possible logo locations
-                String[] logoPaths = {
-                    "src/main/resources/LOGO.jpg",
-                    "CableManagement/cablemanagement/src/main/resources/LOGO.jpg",
-                    "CableManagement/cablemanagement/LOGO.jpg",
-                    InvoiceGenerator.class.getResource("/LOGO.jpg").getPath()
-                };
-                
-                boolean logoFound = false;
-                for (String logoPath : logoPaths) {
-                    try {
-                        File logoFile = new File(logoPath);
-                        if (logoFile.exists() && logoFile.length() > 0) {
-                            Image logo = Image.getInstance(logoPath);
-                            logo.scaleToFit(100, 100);
-                            logo.setAlignment(Element.ALIGN_CENTER);
-                            document.add(logo);
-                            System.out.println("Logo loaded successfully from: " + logoPath);
-                            logoFound = true;
-                            break;
-                        }
-                    } catch (Exception e) {
-                        // Continue to next path if this one fails
-                        continue;
-                    }
-                }
-                
-                if (!logoFound) {
-                    System.out.println("Logo file not found in any of the expected locations - proceeding without logo");
-                }
-            } catch (Exception logoEx) {
-                System.out.println("Could not load logo: " + logoEx.getMessage() + " - proceeding without logo");
+            Font titleFont = PdfResources.font(FontFactory.HELVETICA_BOLD, 18, BaseColor.BLACK);
+            Font headerFont = PdfResources.font(FontFactory.HELVETICA_BOLD, 12, BaseColor.BLACK);
+            Font regularFont = PdfResources.font(FontFactory.HELVETICA, 10, BaseColor.BLACK);
+
+            // Logo (optional - left out if LOGO.jpg is not on the classpath)
+            Image logo = PdfResources.logo(100);
+            if (logo != null) {
+                document.add(logo);
             }
 
             // Header
@@ -214,36 +215,22 @@ public class InvoiceGenerator {
 
             // Item Table - different layout for purchase vs production vs other invoices
             PdfPTable table;
-            String[] headers;
             boolean isPurchaseInvoice = data.getType().toLowerCase().contains("purchase");
             boolean isProductionInvoice = data.getType().toLowerCase().equals(InvoiceData.TYPE_PRODUCTION) || 
                                         data.getType().toLowerCase().equals(InvoiceData.TYPE_PRODUCTION_RETURN);
             
             if (isProductionInvoice) {
                 // Production invoice: simplified table with just item and quantity
-                table = new PdfPTable(3);
-                table.setWidthPercentage(100);
-                table.setWidths(new float[]{1, 6, 2});
-                headers = new String[]{"#", "Item", "Qty"};
+                table = PdfResources.headedTable(new float[]{1, 6, 2},
+                    new String[]{"#", "Item", "Qty"}, headerFont, 0);
             } else if (isPurchaseInvoice) {
                 // Purchase invoice: no discount column
-                table = new PdfPTable(6);
-                table.setWidthPercentage(100);
-                table.setWidths(new float[]{1, 4, 1.5f, 2, 2, 2.5f});
-                headers = new String[]{"#", "Item", "Qty", "Unit Price", "Total Price", "Net Price"};
+                table = PdfResources.headedTable(new float[]{1, 4, 1.5f, 2, 2, 2.5f},
+                    new String[]{"#", "Item", "Qty", "Unit Price", "Total Price", "Net Price"}, headerFont, 0);
             } else {
                 // Other invoices: include discount column
-                table = new PdfPTable(7);
-                table.setWidthPercentage(100);
-                table.setWidths(new float[]{1, 4, 1.5f, 2, 2, 2, 2.5f});
-                headers = new String[]{"#", "Item", "Qty", "Unit Price", "Total Price", "Discount %", "Net Price"};
-            }
-
-            for (String h : headers) {
-                PdfPCell cell = new PdfPCell(new Phrase(h, headerFont));
-                cell.setBackgroundColor(BaseColor.LIGHT_GRAY);
-                cell.setHorizontalAlignment(Element.ALIGN_CENTER);
-                table.addCell(cell);
+                table = PdfResources.headedTable(new float[]{1, 4, 1.5f, 2, 2, 2, 2.5f},
+                    new String[]{"#", "Item", "Qty", "Unit Price", "Total Price", "Discount %", "Net Price"}, headerFont, 0);
             }
 
             double total = 0;
@@ -301,14 +288,14 @@ public class InvoiceGenerator {
             }
             
             // Debug output
-            System.out.println("=== INVOICE BALANCE CALCULATION DEBUG ===");
-            System.out.println("Gross Total: " + grossTotal);
-            System.out.println("Total after item discounts: " + total);
-            System.out.println("Invoice discount: " + data.getDiscountAmount());
-            System.out.println("Net Invoice Amount: " + netInvoiceAmount);
-            System.out.println("Previous Balance: " + data.getPreviousBalance());
-            System.out.println("Other Discount: " + otherDiscount);
-            System.out.println("Paid Amount: " + data.getPaidAmount());
+            Log.debug("=== Invoice balance calculation ===");
+            Log.debug("Gross Total: " + grossTotal);
+            Log.debug("Total after item discounts: " + total);
+            Log.debug("Invoice discount: " + data.getDiscountAmount());
+            Log.debug("Net Invoice Amount: " + netInvoiceAmount);
+            Log.debug("Previous Balance: " + data.getPreviousBalance());
+            Log.debug("Other Discount: " + otherDiscount);
+            Log.debug("Paid Amount: " + data.getPaidAmount());
             
             // Always calculate Total Balance as Previous Balance + Current Net Bill
             // Don't use pre-calculated values to ensure accuracy
@@ -323,13 +310,12 @@ public class InvoiceGenerator {
                 totalBalance = data.getPreviousBalance() + netInvoiceAmount;
             }
             
-            System.out.println("Calculated Total Balance: " + totalBalance);
+            Log.debug("Calculated Total Balance: " + totalBalance);
             
             // Net Balance = Total Balance - Other Discount - Paid Amount
             double netBalance = totalBalance - otherDiscount - data.getPaidAmount();
             
-            System.out.println("Calculated Net Balance: " + netBalance);
-            System.out.println("=== END DEBUG ===");
+            Log.debug("Calculated Net Balance: " + netBalance);
 
             double paidAmount = data.getPaidAmount();
 
@@ -473,7 +459,6 @@ public class InvoiceGenerator {
             document.add(thankYou);
 
             document.close();
-            System.out.println("Invoice generated successfully: " + filename);
         } catch (Exception e) {
             System.err.println("Error generating PDF: " + e.getMessage());
             e.printStackTrace();
@@ -490,7 +475,7 @@ public class InvoiceGenerator {
         try {
             File file = new File(filename);
             if (!file.exists()) {
-                System.err.println("File not found: " + filename);
+                Log.error("File not found: " + filename);
                 return false;
             }
             
@@ -498,7 +483,7 @@ public class InvoiceGenerator {
             return printWithJavaxPrint(filename);
             
         } catch (Exception e) {
-            System.err.println("Failed to print PDF: " + e.getMessage());
+            Log.error("Failed to print PDF: " + e.getMessage());
             e.printStackTrace();
             return false;
         }
@@ -544,6 +529,82 @@ public class InvoiceGenerator {
         }
     }
     
+    /**
+     * Print a PDF held in memory, without writing it to disk
+     * @param pdf the PDF document, e.g. from generatePDFBytes()
+     * @param printerName the printer to use, or null for the default printer
+     * @return true if the printer accepted the job
+     */
+    public static boolean printPDFBytes(byte[] pdf, String printerName) {
+        try {
+            PrintService printService = null;
+            if (printerName == null) {
+                printService = PrintServiceLookup.lookupDefaultPrintService();
+            } else {
+                for (PrintService service : PrintServiceLookup.lookupPrintServices(null, null)) {
+                    if (service.getName().equals(printerName)) {
+                        printService = service;
+                        break;
+                    }
+                }
+            }
+            if (printService == null) {
+                Log.error(printerName == null ? "No default printer found" : "Printer not found: " + printerName);
+                return false;
+            }
+            
+            PrintRequestAttributeSet printAttributes = new HashPrintRequestAttributeSet();
+            printAttributes.add(new Copies(1));
+            printAttributes.add(MediaSizeName.ISO_A4);
+            printAttributes.add(OrientationRequested.PORTRAIT);
+            
+            // Hand over the bytes as they are where the service takes them, else as a stream over them
+            Doc document;
+            if (printService.isDocFlavorSupported(DocFlavor.BYTE_ARRAY.PDF)) {
+                document = new SimpleDoc(pdf, DocFlavor.BYTE_ARRAY.PDF, null);
+            } else if (printService.isDocFlavorSupported(DocFlavor.BYTE_ARRAY.AUTOSENSE)) {
+                document = new SimpleDoc(pdf, DocFlavor.BYTE_ARRAY.AUTOSENSE, null);
+            } else {
+                DocFlavor flavor = printService.isDocFlavorSupported(DocFlavor.INPUT_STREAM.PDF)
+                    ? DocFlavor.INPUT_STREAM.PDF : DocFlavor.INPUT_STREAM.AUTOSENSE;
+                document = new SimpleDoc(new ByteArrayInputStream(pdf), flavor, null);
+            }
+            
+            DocPrintJob printJob = printService.createPrintJob();
+            printJob.addPrintJobListener(new PrintJobAdapter() {
+                @Override
+                public void printJobFailed(PrintJobEvent pje) {
+                    Log.error("Print job failed on " + pje.getPrintJob().getPrintService().getName());
+                }
+            });
+            printJob.print(document, printAttributes);
+            Log.info("Document sent to printer '" + printService.getName() + "' (" + pdf.length + " bytes, " +
+                     document.getDocFlavor().getRepresentationClassName() + ")");
+            return true;
+            
+        } catch (Exception e) {
+            Log.error("Failed to print PDF: " + e.getMessage());
+            e.printStackTrace();
+            return false;
+        }
+    }
+    
+    /**
+     * Render an invoice in memory and print it on the default printer; no file is written
+     * @param data The invoice data
+     * @return true if generation and printing were successful
+     */
+    public static boolean generateAndPrint(InvoiceData data) {
+        byte[] pdf;
+        try {
+            pdf = generatePDFBytes(data);
+        } catch (Exception e) {
+            System.err.println("Failed to generate invoice: " + e.getMessage());
+            return false;
+        }
+        return awaitPrint(() -> printPDFBytes(pdf, null));
+    }
+    
     /**
      * Generate and immediately print an invoice
      * @param data The invoice data
@@ -575,37 +636,50 @@ public class InvoiceGenerator {
                 return false;
             }
 
-            // Print in a separate thread but with proper synchronization
-            final boolean[] printComplete = { false };
-            final boolean[] printSuccess = { false };
-            
-            Thread printThread = new Thread(() -> {
-                try {
-                    boolean result = printWithJavaxPrint(pdfPath);
-                    synchronized (printComplete) {
-                        printSuccess[0] = result;
-                        printComplete[0] = true;
-                        printComplete.notify();
-                    }
-                } catch (Exception e) {
-                    System.err.println("Print thread error: " + e.getMessage());
-                    synchronized (printComplete) {
-                        printComplete[0] = true;
-                        printComplete.notify();
-                    }
+            return awaitPrint(() -> printWithJavaxPrint(pdfPath));
+        } catch (Exception e) {
+            System.err.println("Failed to generate and print invoice: " + e.getMessage());
+            e.printStackTrace();
+            return false;
+        }
+    }
+
+    /**
+     * Run a print job on its own thread and wait up to 5 seconds for it, so a printer
+     * that does not answer cannot hang the caller
+     * @return the job's result, or false if it timed out
+     */
+    private static boolean awaitPrint(BooleanSupplier job) {
+        // Print in a separate thread but with proper synchronization
+        final boolean[] printComplete = { false };
+        final boolean[] printSuccess = { false };
+        
+        Thread printThread = new Thread(() -> {
+            try {
+                boolean result = job.getAsBoolean();
+                synchronized (printComplete) {
+                    printSuccess[0] = result;
+                    printComplete[0] = true;
+                    printComplete.notify();
                 }
-            });
-            printThread.setDaemon(true);
-            printThread.start();
-
-            // Wait for printing to complete with a timeout
-            synchronized (printComplete) {
-                if (!printComplete[0]) {
-                    try {
-                        printComplete.wait(5000); // 5 second timeout
-                    } catch (InterruptedException e) {
-                        System.err.println("Print wait interrupted");
-                    }
+            } catch (Exception e) {
+                System.err.println("Print thread error: " + e.getMessage());
+                synchronized (printComplete) {
+                    printComplete[0] = true;
+                    printComplete.notify();
+                }
+            }
+        });
+        printThread.setDaemon(true);
+        printThread.start();
+
+        // Wait for printing to complete with a timeout
+        synchronized (printComplete) {
+            if (!printComplete[0]) {
+                try {
+                    printComplete.wait(5000); // 5 second timeout
+                } catch (InterruptedException e) {
+                    System.err.println("Print wait interrupted");
                 }
             }
 
@@ -614,12 +688,7 @@ public class InvoiceGenerator {
                 System.err.println("Print operation timed out");
                 return false;
             }
-
             return printSuccess[0];
-        } catch (Exception e) {
-            System.err.println("Failed to generate and print invoice: " + e.getMessage());
-            e.printStackTrace();
-            return false;
         }
     }
     
@@ -4,15 +4,21 @@ package com.cablemanagement.invoice;
 import com.itextpdf.text.*;
 import com.itextpdf.text.pdf.*;
 import java.io.FileOutputStream;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
-import java.sql.Connection;
-import java.sql.PreparedStatement;
-import java.sql.ResultSet;
 import com.cablemanagement.config;
 
 public class LedgerPDFGenerator {
+
+    /**
+     * Ledger rows laid out and released at a time, so a long ledger never holds its whole table
+     */
+    private static final int FLUSH_ROWS = 50;
+
     public static void generateCustomerLedgerPDF(String customerName, List<Object[]> ledgerData,
             double totalSale, double totalDiscount, double totalPayment, double totalReturn, double currentBalance, String filename) {
         try {
@@ -23,9 +29,9 @@ public class LedgerPDFGenerator {
 
 
             // Fonts
-            Font titleFont = FontFactory.getFont(FontFactory.HELVETICA_BOLD, 32, BaseColor.BLACK);
-            Font headerFont = FontFactory.getFont(FontFactory.HELVETICA_BOLD, 20, BaseColor.BLACK);
-            Font regularFont = FontFactory.getFont(FontFactory.HELVETICA, 16, BaseColor.BLACK);
+            Font titleFont = PdfResources.font(FontFactory.HELVETICA_BOLD, 32, BaseColor.BLACK);
+            Font headerFont = PdfResources.font(FontFactory.HELVETICA_BOLD, 20, BaseColor.BLACK);
+            Font regularFont = PdfResources.font(FontFactory.HELVETICA, 16, BaseColor.BLACK);
 
             // Company Header
             Paragraph title = new Paragraph("Customer Ledger Report", titleFont);
@@ -45,24 +51,18 @@ public class LedgerPDFGenerator {
             dateInfo.setSpacingAfter(15);
             document.add(dateInfo);
 
-            // Create table with 12 columns (Description moved after Balance)
-            PdfPTable table = new PdfPTable(12);
-            table.setWidthPercentage(100);
+            // Table with 12 columns, Description last
+            String[] headers = {"S.No", "Date", "Time", "Invoice#", "Total Bill", "Discount", "Other Discount", "Net Amount", "Payment", "Return", "Balance", "Description"};
+            PdfPTable table = PdfResources.headedTable(new float[]{1f, 2f, 1.5f, 2f, 2f, 1.5f, 1.5f, 2f, 1.5f, 1.5f, 2f, 5f}, headers, headerFont, 5);
             table.setSpacingBefore(10f);
-            float[] columnWidths = {1f, 2f, 1.5f, 2f, 2f, 1.5f, 1.5f, 2f, 1.5f, 1.5f, 2f, 5f};
-            table.setWidths(columnWidths);
+            table.setComplete(false);
 
-            // Headers (Description last)
-            String[] headers = {"S.No", "Date", "Time", "Invoice#", "Total Bill", "Discount", "Other Discount", "Net Amount", "Payment", "Return", "Balance", "Description"};
-            for (String header : headers) {
-                PdfPCell cell = new PdfPCell(new Phrase(header, headerFont));
-                cell.setBackgroundColor(BaseColor.LIGHT_GRAY);
-                cell.setHorizontalAlignment(Element.ALIGN_CENTER);
-                cell.setPadding(5);
-                table.addCell(cell);
-            }
+            // Items of every invoice in the ledger, loaded in one query
+            Map<String, List<Object[]>> invoiceItems = config.database.getSalesInvoiceItemsByNumbers(
+                invoiceNumbers(ledgerData), earliestDate(ledgerData));
 
             // Add data rows - correctly map customer ledger data
+            int rowCount = 0;
             for (Object[] row : ledgerData) {
                 // Customer ledger data structure: [0]=S.No, [1]=Date, [2]=Time, [3]=Description, [4]=Invoice#, [5]=Total Bill, [6]=Discount, [7]=Other Discount, [8]=Net Amount, [9]=Payment, [10]=Return, [11]=Balance
                 // Table columns: S.No, Date, Time, Invoice#, Total Bill, Discount, Other Discount, Net Amount, Payment, Return, Balance, Description
@@ -149,15 +149,18 @@ public class LedgerPDFGenerator {
                 finalDesc.append((row.length > 3 && row[3] != null) ? row[3].toString() : "");
 
                 if (invoice != null && !invoice.trim().isEmpty() && !invoice.equals("N/A")) {
-                    finalDesc.append(getCustomerInvoiceItems(invoice));
+                    finalDesc.append(formatCustomerInvoiceItems(invoiceItems.get(invoice)));
                 }
 
                 PdfPCell descCell = new PdfPCell(new Phrase(finalDesc.toString(), regularFont));
                 descCell.setPadding(3);
                 descCell.setHorizontalAlignment(Element.ALIGN_LEFT);
                 table.addCell(descCell);
+
+                flushRows(document, table, ++rowCount);
             }
 
+            table.setComplete(true);
             document.add(table);
 
             // Summary section
@@ -191,84 +194,98 @@ public class LedgerPDFGenerator {
         }
     }
     
-    private static String getCustomerInvoiceItems(String invoiceNumber) {
-        try {
-            StringBuilder detailedDesc = new StringBuilder();
-            String itemQuery = "SELECT si.quantity, si.unit_price, si.discount_amount, " +
-                "(si.quantity * si.unit_price) as total_price, " +
-                "(si.quantity * si.unit_price - si.discount_amount) as net_price, " +
-                "sv.discount_amount as invoice_discount, " +
-                "sv.other_discount, " +  // Added other_discount
-                "COALESCE(ps.product_name, 'Product') as item_desc " +
-                "FROM Sales_Invoice_Item si " +
-                "LEFT JOIN ProductionStock ps ON si.production_stock_id = ps.production_id " +
-                "LEFT JOIN Sales_Invoice sv ON si.sales_invoice_id = sv.sales_invoice_id " +
-                "WHERE si.sales_invoice_id = (SELECT sales_invoice_id FROM Sales_Invoice WHERE sales_invoice_number = ?)";
-            
-            Connection conn = config.database.getConnection();
-            PreparedStatement stmt = conn.prepareStatement(itemQuery);
-            stmt.setString(1, invoiceNumber);
-            ResultSet rs = stmt.executeQuery();
-
-            detailedDesc.append("\nItems:\n");
-            while (rs.next()) {
-                double quantity = rs.getDouble("quantity");
-                double unitPrice = rs.getDouble("unit_price");
-                double totalPrice = quantity * unitPrice;
-                double discountAmount = rs.getDouble("discount_amount");
-                double netPrice = totalPrice - discountAmount;
-
-                detailedDesc.append(String.format("• %s\n  Qty: %.0f | Unit Price: %.2f | Total: %.2f | Item Disc: %.2f | Net: %.2f\n",
-                    rs.getString("item_desc"),
-                    quantity,
-                    unitPrice,
-                    totalPrice,
-                    discountAmount,
-                    netPrice));
+    /**
+     * Invoice numbers referenced by the ledger rows (column 4), skipping payments and other rows without one
+     */
+    private static Set<String> invoiceNumbers(List<Object[]> ledgerData) {
+        Set<String> numbers = new LinkedHashSet<>();
+        for (Object[] row : ledgerData) {
+            if (row.length > 4 && row[4] != null) {
+                String number = row[4].toString();
+                if (!number.trim().isEmpty() && !number.equals("N/A")) {
+                    numbers.add(number);
+                }
             }
-            rs.close();
-            stmt.close();
-            return detailedDesc.toString();
-        } catch (Exception e) {
-            return "\nError loading items: " + e.getMessage();
         }
+        return numbers;
     }
 
-    private static String getSupplierInvoiceItems(String invoiceNumber) {
-        try {
-            StringBuilder detailedDesc = new StringBuilder();
-            String itemQuery = "SELECT rpi.quantity, rpi.unit_price, " +
-                "(rpi.quantity * rpi.unit_price) as total_price, " +
-                "rpin.discount_amount as invoice_discount, " +
-                "COALESCE(rs.item_name, 'Item') as item_desc " +
-                "FROM Raw_Purchase_Invoice_Item rpi " +
-                "LEFT JOIN Raw_Stock rs ON rpi.raw_stock_id = rs.stock_id " +
-                "WHERE rpi.raw_purchase_invoice_id = (SELECT raw_purchase_invoice_id FROM Raw_Purchase_Invoice WHERE invoice_number = ?)";
-            
-            Connection conn = config.database.getConnection();
-            PreparedStatement stmt = conn.prepareStatement(itemQuery);
-            stmt.setString(1, invoiceNumber);
-            ResultSet rs = stmt.executeQuery();
-
-            detailedDesc.append("\nItems:\n");
-            while (rs.next()) {
-                double quantity = rs.getDouble("quantity");
-                double unitPrice = rs.getDouble("unit_price");
-                double totalPrice = quantity * unitPrice;
-                double discountAmount = rs.getDouble("invoice_discount");
-                detailedDesc.append(String.format("• %s\n  Qty: %.0f | Unit Price: %.2f | Total: %.2f | Discount: %.2f\n",
-                    rs.getString("item_desc"),
-                    quantity,
-                    unitPrice,
-                    totalPrice,
-                    discountAmount));
+    /**
+     * Earliest date of the ledger rows (column 1), so invoices in archived years get their
+     * items; null, meaning the whole history, if a row's date is not yyyy-MM-dd
+     */
+    private static String earliestDate(List<Object[]> ledgerData) {
+        String earliest = null;
+        for (Object[] row : ledgerData) {
+            String date = row.length > 1 && row[1] != null ? row[1].toString().trim() : "";
+            if (date.isEmpty()) {
+                continue;
             }
-            rs.close();
-            stmt.close();
+            if (!date.matches("\\d{4}-\\d{2}-\\d{2}.*")) {
+                return null;
+            }
+            date = date.substring(0, 10);
+            if (earliest == null || date.compareTo(earliest) < 0) {
+                earliest = date;
+            }
+        }
+        return earliest;
+    }
+
+    /**
+     * Hand the rows added so far to the document every FLUSH_ROWS rows; the table is
+     * incomplete until the last row, so iText lays them out and frees them instead of
+     * holding the whole ledger
+     */
+    private static void flushRows(Document document, PdfPTable table, int rowCount) throws DocumentException {
+        if (rowCount % FLUSH_ROWS == 0) {
+            document.add(table);
+        }
+    }
+
+    private static String formatCustomerInvoiceItems(List<Object[]> items) {
+        StringBuilder detailedDesc = new StringBuilder();
+        detailedDesc.append("\nItems:\n");
+        if (items == null) {
             return detailedDesc.toString();
-        } catch (Exception e) {
-            return "\nError loading items: " + e.getMessage();
         }
+        for (Object[] item : items) {
+            double quantity = (Double) item[1];
+            double unitPrice = (Double) item[2];
+            double totalPrice = quantity * unitPrice;
+            double discountAmount = (Double) item[3];
+            double netPrice = totalPrice - discountAmount;
+
+            detailedDesc.append(String.format("• %s\n  Qty: %.0f | Unit Price: %.2f | Total: %.2f | Item Disc: %.2f | Net: %.2f\n",
+                item[0],
+                quantity,
+                unitPrice,
+                totalPrice,
+                discountAmount,
+                netPrice));
+        }
+        return detailedDesc.toString();
+    }
+
+    private static String formatSupplierInvoiceItems(List<Object[]> items) {
+        StringBuilder detailedDesc = new StringBuilder();
+        detailedDesc.append("\nItems:\n");
+        if (items == null) {
+            return detailedDesc.toString();
+        }
+        for (Object[] item : items) {
+            double quantity = (Double) item[1];
+            double unitPrice = (Double) item[2];
+            double totalPrice = quantity * unitPrice;
+            double discountAmount = (Double) item[3];
+            detailedDesc.append(String.format("• %s\n  Qty: %.0f | Unit Price: %.2f | Total: %.2f | Discount: %.2f\n",
+                item[0],
+                quantity,
+                unitPrice,
+                totalPrice,
+                discountAmount));
+        }
+        return detailedDesc.toString();
     }
 
     public static void generateSupplierLedgerPDF(String supplierName, List<Object[]> ledgerData, 
@@ -280,9 +297,9 @@ public class LedgerPDFGenerator {
             document.open();
 
             // Fonts
-            Font titleFont = FontFactory.getFont(FontFactory.HELVETICA_BOLD, 16, BaseColor.BLACK);
-            Font headerFont = FontFactory.getFont(FontFactory.HELVETICA_BOLD, 10, BaseColor.BLACK);
-            Font regularFont = FontFactory.getFont(FontFactory.HELVETICA, 8, BaseColor.BLACK);
+            Font titleFont = PdfResources.font(FontFactory.HELVETICA_BOLD, 16, BaseColor.BLACK);
+            Font headerFont = PdfResources.font(FontFactory.HELVETICA_BOLD, 10, BaseColor.BLACK);
+            Font regularFont = PdfResources.font(FontFactory.HELVETICA, 8, BaseColor.BLACK);
 
             // Company Header
             Paragraph title = new Paragraph("Supplier Ledger Report", titleFont);
@@ -302,25 +319,18 @@ public class LedgerPDFGenerator {
             dateInfo.setSpacingAfter(15);
             document.add(dateInfo);
 
-            // Create table with 12 columns (Description moved after Balance)
-            PdfPTable table = new PdfPTable(12);
-            table.setWidthPercentage(100);
+            // Table with 12 columns, Description last and widest
+            String[] headers = {"S.No", "Date", "Time", "Invoice#", "Total Bill", "Discount", "Other Discount", "Net Amount", "Payment", "Return", "Balance", "Description"};
+            PdfPTable table = PdfResources.headedTable(new float[]{1f, 2f, 1.5f, 2f, 2f, 1.5f, 1.5f, 2f, 1.5f, 1.5f, 2f, 5f}, headers, headerFont, 5);
             table.setSpacingBefore(10f);
-            // Set relative column widths (increase Description width)
-            float[] columnWidths = {1f, 2f, 1.5f, 2f, 2f, 1.5f, 1.5f, 2f, 1.5f, 1.5f, 2f, 5f};
-            table.setWidths(columnWidths);
+            table.setComplete(false);
 
-            // Headers (Description last)
-            String[] headers = {"S.No", "Date", "Time", "Invoice#", "Total Bill", "Discount", "Other Discount", "Net Amount", "Payment", "Return", "Balance", "Description"};
-            for (String header : headers) {
-                PdfPCell cell = new PdfPCell(new Phrase(header, headerFont));
-                cell.setBackgroundColor(BaseColor.LIGHT_GRAY);
-                cell.setHorizontalAlignment(Element.ALIGN_CENTER);
-                cell.setPadding(5);
-                table.addCell(cell);
-            }
+            // Items of every invoice in the ledger, loaded in one query
+            Map<String, List<Object[]>> invoiceItems = config.database.getRawPurchaseInvoiceItemsByNumbers(
+                invoiceNumbers(ledgerData), earliestDate(ledgerData));
 
             // Add data rows (Description last, show all details)
+            int rowCount = 0;
             for (Object[] row : ledgerData) {
                 // S.No, Date, Time, Invoice#, Total Bill, Discount, Other Discount, Net Amount, Payment, Return, Balance
                 // Expected order: 0=S.No, 1=Date, 2=Time, 3=Invoice#, 4=Total Bill, 5=Discount, 6=Other Discount, 7=Net Amount, 8=Payment, 9=Return, 10=Balance
@@ -371,15 +381,18 @@ public class LedgerPDFGenerator {
                 finalDesc.append(row[3] != null ? row[3].toString() : "");
 
                 if (invoiceNumber != null && !invoiceNumber.trim().isEmpty() && !invoiceNumber.equals("N/A")) {
-                    finalDesc.append(getSupplierInvoiceItems(invoiceNumber));
+                    finalDesc.append(formatSupplierInvoiceItems(invoiceItems.get(invoiceNumber)));
                 }
 
                 PdfPCell descCell = new PdfPCell(new Phrase(finalDesc.toString(), regularFont));
                 descCell.setPadding(3);
                 descCell.setHorizontalAlignment(Element.ALIGN_LEFT);
                 table.addCell(descCell);
+
+                flushRows(document, table, ++rowCount);
             }
 
+            table.setComplete(true);
             document.add(table);
 
             // Summary section
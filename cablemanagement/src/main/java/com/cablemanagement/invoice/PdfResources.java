@@ -0,0 +1,112 @@
+package com.cablemanagement.invoice;
+
+import com.cablemanagement.Log;
+import com.itextpdf.text.BaseColor;
+import com.itextpdf.text.DocumentException;
+import com.itextpdf.text.Element;
+import com.itextpdf.text.Font;
+import com.itextpdf.text.FontFactory;
+import com.itextpdf.text.Image;
+import com.itextpdf.text.Phrase;
+import com.itextpdf.text.pdf.PdfPCell;
+import com.itextpdf.text.pdf.PdfPTable;
+
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Fonts, the logo and table header rows shared by the PDF generators.
+ *
+ * FontFactory.getFont() looks the font up in its registry and builds a new Font on
+ * every call, and the logo used to be searched for on disk and parsed again for
+ * every invoice. Here each is built once, the first time it is asked for, and never
+ * changed afterwards, so any number of PDFs can be rendered at once from it: fonts
+ * are handed out as they are, while logo() and headedTable() hand out copies of a
+ * template for the caller to scale or add rows to.
+ */
+final class PdfResources {
+
+    private static final String LOGO_RESOURCE = "/LOGO.jpg";
+
+    private static final Map<String, Font> FONTS = new ConcurrentHashMap<>();
+    private static final Map<String, PdfPTable> TABLES = new ConcurrentHashMap<>();
+
+    /**
+     * The logo, read from the classpath on first use; null when it is missing
+     */
+    private static final class Logo {
+        static final Image TEMPLATE = load();
+
+        private static Image load() {
+            try (InputStream in = PdfResources.class.getResourceAsStream(LOGO_RESOURCE)) {
+                if (in == null) {
+                    Log.warn("Logo " + LOGO_RESOURCE + " not found on the classpath - PDFs are generated without it");
+                    return null;
+                }
+                return Image.getInstance(in.readAllBytes());
+            } catch (Exception e) {
+                System.err.println("Could not load logo " + LOGO_RESOURCE + ": " + e.getMessage());
+                return null;
+            }
+        }
+    }
+
+    private PdfResources() {
+    }
+
+    /**
+     * A shared font. Callers must not change it.
+     * @param name a FontFactory font name, e.g. FontFactory.HELVETICA_BOLD
+     */
+    static Font font(String name, float size, BaseColor color) {
+        return FONTS.computeIfAbsent(name + "/" + size + "/" + color.getRGB(),
+                                     key -> FontFactory.getFont(name, size, color));
+    }
+
+    /**
+     * The logo scaled to fit a square and centred, or null if there is no logo
+     */
+    static Image logo(float maxSize) {
+        Image template = Logo.TEMPLATE;
+        if (template == null) {
+            return null;
+        }
+        // The copy shares the image data with the template
+        Image logo = Image.getInstance(template);
+        logo.scaleToFit(maxSize, maxSize);
+        logo.setAlignment(Element.ALIGN_CENTER);
+        return logo;
+    }
+
+    /**
+     * A full-width table whose first row holds the headers, on light grey and centred.
+     * Each layout is built once; every call returns a copy to add the rows to.
+     * @param headerFont a font from font(), so equal layouts share one template
+     * @param padding cell padding of the header row, 0 to keep the default
+     */
+    static PdfPTable headedTable(float[] widths, String[] headers, Font headerFont, float padding) {
+        String key = Arrays.toString(widths) + Arrays.toString(headers) + System.identityHashCode(headerFont) + "/" + padding;
+        PdfPTable template = TABLES.computeIfAbsent(key, k -> {
+            PdfPTable table = new PdfPTable(widths.length);
+            table.setWidthPercentage(100);
+            try {
+                table.setWidths(widths);
+            } catch (DocumentException e) {
+                throw new IllegalArgumentException("Invalid column widths " + Arrays.toString(widths), e);
+            }
+            for (String header : headers) {
+                PdfPCell cell = new PdfPCell(new Phrase(header, headerFont));
+                cell.setBackgroundColor(BaseColor.LIGHT_GRAY);
+                cell.setHorizontalAlignment(Element.ALIGN_CENTER);
+                if (padding > 0) {
+                    cell.setPadding(padding);
+                }
+                table.addCell(cell);
+            }
+            return table;
+        });
+        return new PdfPTable(template);
+    }
+}
@@ -1,16 +1,32 @@
 package com.cablemanagement.invoice;
 
+import com.cablemanagement.Log;
+
 import javafx.application.Platform;
+import javafx.geometry.Insets;
+import javafx.geometry.Pos;
+import javafx.scene.Scene;
 import javafx.scene.control.Alert;
+import javafx.scene.control.Button;
 import javafx.scene.control.ButtonType;
 import javafx.scene.control.ChoiceDialog;
+import javafx.scene.control.Label;
+import javafx.scene.control.ListView;
+import javafx.scene.control.ProgressBar;
+import javafx.scene.layout.HBox;
+import javafx.scene.layout.VBox;
+import javafx.stage.Stage;
 
 import java.awt.Desktop;
 import java.io.File;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.prefs.BackingStoreException;
+import java.util.prefs.Preferences;
 
 /**
  * Centralized print management for all invoice-related printing operations
@@ -20,6 +36,98 @@ public class PrintManager {
     private static final String TEMP_DIR = System.getProperty("java.io.tmpdir");
     private static final DateTimeFormatter TIMESTAMP_FORMAT = DateTimeFormatter.ofPattern("yyyyMMdd_HHmmss");
     
+    /**
+     * How invoices of a type are printed
+     */
+    public enum PrintFormat {
+        /** A4 PDF through the printer driver */
+        PDF,
+        /** ESC/POS receipt sent raw to a thermal printer, see EscPosReceipt */
+        RECEIPT
+    }
+    
+    /**
+     * Print format by InvoiceData type; types not listed print as PDF. Invoice types given
+     * in -Dcablemanagement.receipt.types (comma separated, e.g. "sale,sale_return") start
+     * out as receipts, and a format chosen in Settings overrides both.
+     */
+    private static final Map<String, PrintFormat> PRINT_FORMATS = new ConcurrentHashMap<>();
+    
+    /**
+     * Where receipts go when set (-Dcablemanagement.receipt.device, e.g. /dev/usb/lp0 or a
+     * shared printer's UNC path) instead of a print service
+     */
+    private static final String RECEIPT_DEVICE = System.getProperty("cablemanagement.receipt.device", "").trim();
+    
+    /**
+     * Print formats chosen with setPrintFormat(), kept in the user's preferences as they
+     * belong to the printers of this computer rather than to the shared database
+     */
+    private static final Preferences SAVED_FORMATS = Preferences.userNodeForPackage(PrintManager.class).node("printFormats");
+    
+    static {
+        for (String type : System.getProperty("cablemanagement.receipt.types", "").split(",")) {
+            if (!type.trim().isEmpty()) {
+                PRINT_FORMATS.put(type.trim().toLowerCase(), PrintFormat.RECEIPT);
+            }
+        }
+        try {
+            for (String type : SAVED_FORMATS.keys()) {
+                PRINT_FORMATS.put(type, PrintFormat.valueOf(SAVED_FORMATS.get(type, PrintFormat.PDF.name())));
+            }
+        } catch (BackingStoreException | IllegalArgumentException e) {
+            Log.warn("Could not read the saved print formats: " + e.getMessage());
+        }
+    }
+    
+    /**
+     * Choose how invoices of a type are printed; the choice is kept for later sessions
+     * @param type an InvoiceData type, e.g. InvoiceData.TYPE_SALE
+     */
+    public static void setPrintFormat(String type, PrintFormat format) {
+        PRINT_FORMATS.put(type.toLowerCase(), format);
+        SAVED_FORMATS.put(type.toLowerCase(), format.name());
+        try {
+            SAVED_FORMATS.flush();
+        } catch (BackingStoreException e) {
+            Log.warn("Could not save the print format of " + type + " invoices: " + e.getMessage());
+        }
+    }
+    
+    /**
+     * How invoices of a type are printed; PDF unless set otherwise
+     * @param type an InvoiceData type, e.g. InvoiceData.TYPE_SALE
+     */
+    public static PrintFormat getPrintFormat(String type) {
+        return type == null ? PrintFormat.PDF : PRINT_FORMATS.getOrDefault(type.toLowerCase(), PrintFormat.PDF);
+    }
+    
+    /**
+     * Render an invoice in the print format of its type
+     * @return the PDF document or the ESC/POS receipt
+     */
+    static byte[] render(InvoiceData invoiceData) {
+        return getPrintFormat(invoiceData.getType()) == PrintFormat.RECEIPT
+            ? EscPosReceipt.render(invoiceData)
+            : InvoiceGenerator.generatePDFBytes(invoiceData);
+    }
+    
+    /**
+     * Send an invoice rendered by render() to a printer. Receipts go to the receipt
+     * device instead when one is configured.
+     * @param printerName the printer to use, or null for the default printer
+     * @return true if the printer accepted the job
+     */
+    static boolean send(InvoiceData invoiceData, byte[] document, String printerName) {
+        if (getPrintFormat(invoiceData.getType()) != PrintFormat.RECEIPT) {
+            return InvoiceGenerator.printPDFBytes(document, printerName);
+        }
+        if (!RECEIPT_DEVICE.isEmpty()) {
+            return EscPosReceipt.writeTo(document, new File(RECEIPT_DEVICE));
+        }
+        return EscPosReceipt.print(document, printerName);
+    }
+    
     /**
      * Print an invoice with user confirmation
      * @param invoiceData The invoice data to print
@@ -51,13 +159,10 @@ public class PrintManager {
                 }
             }
             
-            // Generate temporary filename
-            String timestamp = LocalDateTime.now().format(TIMESTAMP_FORMAT);
-            String filename = TEMP_DIR + File.separator + invoiceType + "_Invoice_" + 
-                             invoiceData.getInvoiceNumber() + "_" + timestamp + ".pdf";
-            
-            // Generate and print
-            boolean success = InvoiceGenerator.generateAndPrint(invoiceData, filename);
+            // Generate in memory and print, no temporary file
+            boolean success = getPrintFormat(invoiceData.getType()) == PrintFormat.RECEIPT
+                ? send(invoiceData, render(invoiceData), null)
+                : InvoiceGenerator.generateAndPrint(invoiceData);
             
             if (success) {
                 showSuccessAlert("Print Successful", 
@@ -85,6 +190,11 @@ public class PrintManager {
      */
     public static boolean printInvoiceWithPrinterSelection(InvoiceData invoiceData, String invoiceType) {
         try {
+            // Receipts for a configured receipt device need no printer choice
+            if (getPrintFormat(invoiceData.getType()) == PrintFormat.RECEIPT && !RECEIPT_DEVICE.isEmpty()) {
+                return printInvoice(invoiceData, invoiceType, false);
+            }
+            
             // Get available printers
             String[] printers = InvoiceGenerator.getAvailablePrinters();
             
@@ -104,16 +214,11 @@ public class PrintManager {
                 return false;
             }
             
-            // Generate temporary filename
-            String timestamp = LocalDateTime.now().format(TIMESTAMP_FORMAT);
-            String filename = TEMP_DIR + File.separator + invoiceType + "_Invoice_" + 
-                             invoiceData.getInvoiceNumber() + "_" + timestamp + ".pdf";
-            
-            // Generate PDF first
-            InvoiceGenerator.generatePDF(invoiceData, filename);
+            // Generate the PDF or receipt in memory
+            byte[] document = render(invoiceData);
             
             // Print to selected printer
-            boolean success = InvoiceGenerator.printToSpecificPrinter(filename, selectedPrinter.get());
+            boolean success = send(invoiceData, document, selectedPrinter.get());
             
             if (success) {
                 showSuccessAlert("Print Successful", 
@@ -135,15 +240,17 @@ public class PrintManager {
     }
     
     /**
-     * Print multiple invoices in batch
-     * @param invoiceDataList List of invoice data to print
+     * Print multiple invoices in batch. The invoices are queued on a PrintQueue and
+     * printed in the background while a window shows the progress, lists any failures
+     * and lets the user pause, resume or cancel the batch.
+     * @param invoiceDataList List of invoice data to print, in printing order
      * @param invoiceType The type of invoices
-     * @return Number of successfully printed invoices
+     * @return the running queue, or null if nothing was queued
      */
-    public static int printInvoicesBatch(List<InvoiceData> invoiceDataList, String invoiceType) {
+    public static PrintQueue printInvoicesBatch(List<InvoiceData> invoiceDataList, String invoiceType) {
         if (invoiceDataList.isEmpty()) {
             showErrorAlert("No Data", "No invoices to print.");
-            return 0;
+            return null;
         }
         
         Alert confirmAlert = new Alert(Alert.AlertType.CONFIRMATION);
@@ -153,41 +260,90 @@ public class PrintManager {
         
         Optional<ButtonType> result = confirmAlert.showAndWait();
         if (result.isEmpty() || result.get() != ButtonType.OK) {
-            return 0;
+            return null;
         }
         
-        int successCount = 0;
-        String timestamp = LocalDateTime.now().format(TIMESTAMP_FORMAT);
+        int total = invoiceDataList.size();
+        Label statusLabel = new Label("Printing 0 of " + total + "...");
+        ProgressBar progressBar = new ProgressBar(0);
+        progressBar.setPrefWidth(360);
+        ListView<String> failureList = new ListView<>();
+        failureList.setPrefHeight(120);
+        failureList.setPlaceholder(new Label("No failures"));
+        Button pauseBtn = new Button("Pause");
+        Button cancelBtn = new Button("Cancel");
+        HBox buttons = new HBox(10, pauseBtn, cancelBtn);
+        buttons.setAlignment(Pos.CENTER);
+        
+        VBox layout = new VBox(12, statusLabel, progressBar, new Label("Failed invoices:"), failureList, buttons);
+        layout.setPadding(new Insets(20));
+        Stage stage = new Stage();
+        stage.setTitle("Batch Print - " + invoiceType + " Invoices");
+        stage.setScene(new Scene(layout));
         
-        for (int i = 0; i < invoiceDataList.size(); i++) {
-            InvoiceData invoiceData = invoiceDataList.get(i);
+        int[] done = { 0 };
+        PrintQueue queue = PrintQueue.start(invoiceDataList, invoiceType, new PrintQueue.Listener() {
+            @Override
+            public void jobDone(int index, InvoiceData invoice, String error) {
+                Platform.runLater(() -> {
+                    done[0]++;
+                    progressBar.setProgress((double) done[0] / total);
+                    statusLabel.setText("Printed " + done[0] + " of " + total);
+                    if (error != null) {
+                        failureList.getItems().add("Invoice #" + invoice.getInvoiceNumber() + ": " + error);
+                    }
+                });
+            }
             
-            try {
-                String filename = TEMP_DIR + File.separator + invoiceType + "_Invoice_" + 
-                                 invoiceData.getInvoiceNumber() + "_" + timestamp + "_" + (i + 1) + ".pdf";
-                
-                if (InvoiceGenerator.generateAndPrint(invoiceData, filename)) {
-                    successCount++;
-                }
-                
-                // Small delay between prints to avoid overwhelming the printer
-                Thread.sleep(500);
-                
-            } catch (Exception e) {
-                System.err.println("Failed to print invoice " + invoiceData.getInvoiceNumber() + ": " + e.getMessage());
+            @Override
+            public void finished(int printed, int failed, boolean cancelled) {
+                Platform.runLater(() -> {
+                    stage.close();
+                    if (cancelled) {
+                        showErrorAlert("Batch Print Cancelled", 
+                            printed + " out of " + total + " " + invoiceType + 
+                            " invoices were printed before the batch was cancelled.");
+                    } else if (printed == total) {
+                        showSuccessAlert("Batch Print Successful", 
+                            "All " + printed + " " + invoiceType + " invoices have been sent to the printer.");
+                    } else {
+                        StringBuilder message = new StringBuilder();
+                        message.append(printed).append(" out of ").append(total).append(" ").append(invoiceType)
+                               .append(" invoices were printed successfully.");
+                        List<String> failures = failureList.getItems();
+                        for (int i = 0; i < Math.min(10, failures.size()); i++) {
+                            message.append("\n").append(failures.get(i));
+                        }
+                        if (failures.size() > 10) {
+                            message.append("\n... and ").append(failures.size() - 10).append(" more");
+                        }
+                        showErrorAlert("Partial Print Success", message.toString());
+                    }
+                });
             }
-        }
+        });
         
-        if (successCount == invoiceDataList.size()) {
-            showSuccessAlert("Batch Print Successful", 
-                "All " + successCount + " " + invoiceType + " invoices have been sent to the printer.");
-        } else {
-            showErrorAlert("Partial Print Success", 
-                successCount + " out of " + invoiceDataList.size() + " " + invoiceType + 
-                " invoices were printed successfully.");
-        }
+        pauseBtn.setOnAction(e -> {
+            if (queue.isPaused()) {
+                queue.resume();
+                pauseBtn.setText("Pause");
+                statusLabel.setText("Printed " + done[0] + " of " + total);
+            } else {
+                queue.pause();
+                pauseBtn.setText("Resume");
+                statusLabel.setText("Paused after " + done[0] + " of " + total);
+            }
+        });
+        cancelBtn.setOnAction(e -> {
+            queue.cancel();
+            pauseBtn.setDisable(true);
+            cancelBtn.setDisable(true);
+            statusLabel.setText("Cancelling after the current invoice...");
+        });
+        stage.setOnCloseRequest(e -> queue.cancel());
+        stage.show();
         
-        return successCount;
+        return queue;
     }
     
     /**
@@ -198,16 +354,9 @@ public class PrintManager {
      */
     public static boolean previewAndPrint(InvoiceData invoiceData, String invoiceType) {
         try {
-            // Generate temporary filename for preview
-            String timestamp = LocalDateTime.now().format(TIMESTAMP_FORMAT);
-            String filename = TEMP_DIR + File.separator + invoiceType + "_Preview_" + 
-                             invoiceData.getInvoiceNumber() + "_" + timestamp + ".pdf";
-            
-            // Generate PDF for preview
-            InvoiceGenerator.generatePDF(invoiceData, filename);
-            
-            // Print directly without showing preview dialog
-            return InvoiceGenerator.printPDF(filename);
+            // Print directly without showing preview dialog, so no file is needed
+            byte[] pdf = InvoiceGenerator.generatePDFBytes(invoiceData);
+            return InvoiceGenerator.printPDFBytes(pdf, null);
             
         } catch (Exception e) {
             e.printStackTrace();
@@ -404,7 +553,8 @@ public class PrintManager {
     }
     
     /**
-     * Clean up temporary print files older than 24 hours
+     * Clean up temporary print files older than 24 hours. Printing renders in memory;
+     * only preview files are written to the temporary directory.
      */
     public static void cleanupTempFiles() {
         try {
@@ -0,0 +1,184 @@
+package com.cablemanagement.invoice;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.cablemanagement.Log;
+
+/**
+ * Prints a batch of invoices in the background.
+ *
+ * The invoices are rendered in memory, as PDFs or receipts as PrintManager has them
+ * set up, on a small pool of worker threads a few invoices ahead of the printer, while
+ * one spooler thread sends them to the default printer one at a time in list order,
+ * whichever render finishes first; nothing is written to disk.
+ * Every job is reported to the Listener as it completes, and the batch can be paused,
+ * resumed or cancelled; each takes effect between two jobs, so an invoice is never cut
+ * off halfway to the printer.
+ */
+public final class PrintQueue {
+
+    /**
+     * Receives the progress of a batch. Called on the spooler thread, never on the FX thread.
+     */
+    public interface Listener {
+        /**
+         * One invoice was sent to the printer, or failed
+         * @param index position of the invoice in the batch
+         * @param error why it failed, or null if it was printed
+         */
+        void jobDone(int index, InvoiceData invoice, String error);
+
+        /**
+         * The batch is over; called exactly once
+         */
+        void finished(int printed, int failed, boolean cancelled);
+    }
+
+    private static final int RENDER_THREADS = Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors() - 1));
+    private static final int RENDER_AHEAD = RENDER_THREADS * 2;
+    private static final AtomicInteger THREAD_COUNT = new AtomicInteger();
+
+    private final List<InvoiceData> invoices;
+    private final String invoiceType;
+    private final Listener listener;
+    private final ExecutorService renderers;
+    private final Object pauseLock = new Object();
+    private boolean paused;
+    private volatile boolean cancelled;
+
+    private PrintQueue(List<InvoiceData> invoices, String invoiceType, Listener listener) {
+        this.invoices = List.copyOf(invoices);
+        this.invoiceType = invoiceType;
+        this.listener = listener;
+        this.renderers = Executors.newFixedThreadPool(RENDER_THREADS, runnable -> {
+            Thread thread = new Thread(runnable, "invoice-render-" + THREAD_COUNT.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Start printing a batch
+     * @param invoices the invoices, printed in this order
+     * @param invoiceType shown in the log, e.g. "Sales"
+     */
+    public static PrintQueue start(List<InvoiceData> invoices, String invoiceType, Listener listener) {
+        PrintQueue queue = new PrintQueue(invoices, invoiceType, listener);
+        Thread spooler = new Thread(queue::spool, "invoice-spooler-" + THREAD_COUNT.incrementAndGet());
+        spooler.setDaemon(true);
+        spooler.start();
+        return queue;
+    }
+
+    public int size() {
+        return invoices.size();
+    }
+
+    /**
+     * Hold the printer after the current job; rendering carries on a few invoices ahead
+     */
+    public void pause() {
+        synchronized (pauseLock) {
+            paused = true;
+        }
+    }
+
+    public void resume() {
+        synchronized (pauseLock) {
+            paused = false;
+            pauseLock.notifyAll();
+        }
+    }
+
+    public boolean isPaused() {
+        synchronized (pauseLock) {
+            return paused;
+        }
+    }
+
+    /**
+     * Stop after the current job; invoices not yet printed are skipped
+     */
+    public void cancel() {
+        cancelled = true;
+        synchronized (pauseLock) {
+            pauseLock.notifyAll();
+        }
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    private void spool() {
+        List<Future<byte[]>> rendered = new ArrayList<>(invoices.size());
+        int printed = 0;
+        int failed = 0;
+        long start = System.nanoTime();
+        try {
+            for (int next = 0; next < invoices.size(); next++) {
+                while (rendered.size() < Math.min(invoices.size(), next + RENDER_AHEAD)) {
+                    InvoiceData invoice = invoices.get(rendered.size());
+                    rendered.add(renderers.submit(() -> PrintManager.render(invoice)));
+                }
+
+                byte[] document = null;
+                String error = null;
+                try {
+                    document = rendered.get(next).get();
+                } catch (ExecutionException e) {
+                    Throwable cause = e.getCause() != null ? e.getCause() : e;
+                    error = "Could not generate the invoice: " + cause.getMessage();
+                }
+                // Let the rendered invoice go once it is printed
+                rendered.set(next, null);
+                if (!awaitTurn()) {
+                    break;
+                }
+                if (error == null && !PrintManager.send(invoices.get(next), document, null)) {
+                    error = "The printer did not accept the job";
+                }
+
+                if (error == null) {
+                    printed++;
+                } else {
+                    failed++;
+                    Log.warn("Failed to print invoice " + invoices.get(next).getInvoiceNumber() + ": " + error);
+                }
+                listener.jobDone(next, invoices.get(next), error);
+            }
+        } catch (InterruptedException e) {
+            cancelled = true;
+            Thread.currentThread().interrupt();
+        } catch (RuntimeException e) {
+            Log.warn("Print queue stopped: " + e.getMessage());
+            e.printStackTrace();
+            cancelled = true;
+        } finally {
+            renderers.shutdownNow();
+            Log.info(String.format("Print queue for %s invoices %s: %d printed, %d failed of %d (%d ms)",
+                invoiceType, cancelled ? "cancelled" : "finished", printed, failed, invoices.size(),
+                (System.nanoTime() - start) / 1_000_000));
+            listener.finished(printed, failed, cancelled);
+        }
+    }
+
+    /**
+     * Wait while the queue is paused
+     * @return false if it was cancelled
+     */
+    private boolean awaitTurn() throws InterruptedException {
+        synchronized (pauseLock) {
+            while (paused && !cancelled) {
+                pauseLock.wait();
+            }
+        }
+        return !cancelled;
+    }
+}
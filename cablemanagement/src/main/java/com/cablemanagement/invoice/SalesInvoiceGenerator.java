@@ -1,5 +1,6 @@
 package com.cablemanagement.invoice;
 
+import com.cablemanagement.Log;
 import com.itextpdf.text.*;
 import com.itextpdf.text.pdf.*;
 import com.itextpdf.text.pdf.draw.DottedLineSeparator;
@@ -21,19 +22,15 @@ public class SalesInvoiceGenerator {
             document.open();
 
             // Fonts
-            Font titleFont = FontFactory.getFont(FontFactory.HELVETICA_BOLD, 18, BaseColor.BLACK);
-            Font headerFont = FontFactory.getFont(FontFactory.HELVETICA_BOLD, 12, BaseColor.BLACK);
-            Font regularFont = FontFactory.getFont(FontFactory.HELVETICA, 10, BaseColor.BLACK);
-            Font boldFont = FontFactory.getFont(FontFactory.HELVETICA_BOLD, 10, BaseColor.BLACK);
-
-            // Logo (Optional - comment out if no logo)
-            try {
-                Image logo = Image.getInstance("CableManagement/cablemanagement/src/main/java/com/cablemanagement/invoice/logo.png");
-                logo.scaleToFit(80, 80);
-                logo.setAlignment(Element.ALIGN_CENTER);
+            Font titleFont = PdfResources.font(FontFactory.HELVETICA_BOLD, 18, BaseColor.BLACK);
+            Font headerFont = PdfResources.font(FontFactory.HELVETICA_BOLD, 12, BaseColor.BLACK);
+            Font regularFont = PdfResources.font(FontFactory.HELVETICA, 10, BaseColor.BLACK);
+            Font boldFont = PdfResources.font(FontFactory.HELVETICA_BOLD, 10, BaseColor.BLACK);
+
+            // Logo (optional - left out if LOGO.jpg is not on the classpath)
+            Image logo = PdfResources.logo(80);
+            if (logo != null) {
                 document.add(logo);
-            } catch (Exception e) {
-                System.out.println("Logo not found, continuing without logo");
             }
 
             // Header
@@ -92,18 +89,8 @@ public class SalesInvoiceGenerator {
             document.add(Chunk.NEWLINE);
 
             // Item Table Header
-            PdfPTable table = new PdfPTable(6);
-            table.setWidthPercentage(100);
-            table.setWidths(new float[]{1, 4, 2, 2.5f, 2, 2.5f});
-
             String[] headers = {"#", "Description", "Qty", "Unit Price", "Discount", "Net Amount"};
-            for (String h : headers) {
-                PdfPCell cell = new PdfPCell(new Phrase(h, boldFont));
-                cell.setBackgroundColor(BaseColor.LIGHT_GRAY);
-                cell.setHorizontalAlignment(Element.ALIGN_CENTER);
-                cell.setPadding(8);
-                table.addCell(cell);
-            }
+            PdfPTable table = PdfResources.headedTable(new float[]{1, 4, 2, 2.5f, 2, 2.5f}, headers, boldFont, 8);
 
             // Add items to table
             double subtotal = 0;
@@ -169,17 +156,17 @@ public class SalesInvoiceGenerator {
                 totalBalance = data.getTotalBalance();
                 netBalance = data.getNetBalance();
                 
-                System.out.println("DEBUG: Using pre-calculated balance values from Sales_Book:");
-                System.out.println("  Total Balance: " + totalBalance);
-                System.out.println("  Net Balance: " + netBalance);
+                Log.debug("Using pre-calculated balance values from Sales_Book:");
+                Log.debug("  Total Balance: " + totalBalance);
+                Log.debug("  Net Balance: " + netBalance);
             } else {
                 // Fallback to calculation (for new invoices or when stored values not available)
                 totalBalance = data.getPreviousBalance() + totalAfterDiscounts;
                 netBalance = totalBalance - data.getPaidAmount();
                 
-                System.out.println("DEBUG: Calculating balance values (fallback):");
-                System.out.println("  Total Balance: " + totalBalance);
-                System.out.println("  Net Balance: " + netBalance);
+                Log.debug("Calculating balance values (fallback):");
+                Log.debug("  Total Balance: " + totalBalance);
+                Log.debug("  Net Balance: " + netBalance);
             }
             
             addSummaryRow(summaryTable, "Total Balance:", String.format("%.2f", totalBalance), boldFont, boldFont);
@@ -231,7 +218,7 @@ public class SalesInvoiceGenerator {
             document.add(thankYou);
             
             // CODOC Footer
-            Font footerFont = FontFactory.getFont(FontFactory.HELVETICA, 8, BaseColor.GRAY);
+            Font footerFont = PdfResources.font(FontFactory.HELVETICA, 8, BaseColor.GRAY);
             document.add(Chunk.NEWLINE);
             Paragraph codocLine1 = new Paragraph("⚡ Software Developed by CODOC", footerFont);
             codocLine1.setAlignment(Element.ALIGN_CENTER);
@@ -264,19 +251,15 @@ public class SalesInvoiceGenerator {
             document.open();
 
             // Fonts
-            Font titleFont = FontFactory.getFont(FontFactory.HELVETICA_BOLD, 18, BaseColor.BLACK);
-            Font headerFont = FontFactory.getFont(FontFactory.HELVETICA_BOLD, 12, BaseColor.BLACK);
-            Font regularFont = FontFactory.getFont(FontFactory.HELVETICA, 10, BaseColor.BLACK);
-            Font boldFont = FontFactory.getFont(FontFactory.HELVETICA_BOLD, 10, BaseColor.BLACK);
-
-            // Logo (Optional)
-            try {
-                Image logo = Image.getInstance("CableManagement/cablemanagement/src/main/java/com/cablemanagement/invoice/logo.png");
-                logo.scaleToFit(80, 80);
-                logo.setAlignment(Element.ALIGN_CENTER);
+            Font titleFont = PdfResources.font(FontFactory.HELVETICA_BOLD, 18, BaseColor.BLACK);
+            Font headerFont = PdfResources.font(FontFactory.HELVETICA_BOLD, 12, BaseColor.BLACK);
+            Font regularFont = PdfResources.font(FontFactory.HELVETICA, 10, BaseColor.BLACK);
+            Font boldFont = PdfResources.font(FontFactory.HELVETICA_BOLD, 10, BaseColor.BLACK);
+
+            // Logo (optional - left out if LOGO.jpg is not on the classpath)
+            Image logo = PdfResources.logo(80);
+            if (logo != null) {
                 document.add(logo);
-            } catch (Exception e) {
-                System.out.println("Logo not found, continuing without logo");
             }
 
             // Header
@@ -336,18 +319,8 @@ public class SalesInvoiceGenerator {
             document.add(Chunk.NEWLINE);
 
             // Return Items Table
-            PdfPTable table = new PdfPTable(5);
-            table.setWidthPercentage(100);
-            table.setWidths(new float[]{1, 5, 2, 2.5f, 2.5f});
-
             String[] headers = {"#", "Item Description", "Return Qty", "Unit Price", "Return Amount"};
-            for (String h : headers) {
-                PdfPCell cell = new PdfPCell(new Phrase(h, boldFont));
-                cell.setBackgroundColor(BaseColor.LIGHT_GRAY);
-                cell.setHorizontalAlignment(Element.ALIGN_CENTER);
-                cell.setPadding(8);
-                table.addCell(cell);
-            }
+            PdfPTable table = PdfResources.headedTable(new float[]{1, 5, 2, 2.5f, 2.5f}, headers, boldFont, 8);
 
             // Add return items to table
             double totalReturnAmount = 0;
@@ -437,7 +410,7 @@ public class SalesInvoiceGenerator {
             document.add(thankYou);
             
             // CODOC Footer
-            Font footerFont = FontFactory.getFont(FontFactory.HELVETICA, 8, BaseColor.GRAY);
+            Font footerFont = PdfResources.font(FontFactory.HELVETICA, 8, BaseColor.GRAY);
             document.add(Chunk.NEWLINE);
             Paragraph codocLine1 = new Paragraph("⚡ Software Developed by CODOC", footerFont);
             codocLine1.setAlignment(Element.ALIGN_CENTER);
@@ -15,9 +15,9 @@ public class SupplierLedgerPrint {
             PdfWriter writer = PdfWriter.getInstance(document, new FileOutputStream(filename));
             document.open();
 
-            Font titleFont = FontFactory.getFont(FontFactory.HELVETICA_BOLD, 32, BaseColor.BLACK);
-            Font headerFont = FontFactory.getFont(FontFactory.HELVETICA_BOLD, 20, BaseColor.BLACK);
-            Font regularFont = FontFactory.getFont(FontFactory.HELVETICA, 16, BaseColor.BLACK);
+            Font titleFont = PdfResources.font(FontFactory.HELVETICA_BOLD, 32, BaseColor.BLACK);
+            Font headerFont = PdfResources.font(FontFactory.HELVETICA_BOLD, 20, BaseColor.BLACK);
+            Font regularFont = PdfResources.font(FontFactory.HELVETICA, 16, BaseColor.BLACK);
 
             Paragraph title = new Paragraph("Supplier Ledger Report", titleFont);
             title.setAlignment(Element.ALIGN_CENTER);
@@ -34,20 +34,9 @@ public class SupplierLedgerPrint {
             dateInfo.setSpacingAfter(15);
             document.add(dateInfo);
 
-            PdfPTable table = new PdfPTable(11);
-            table.setWidthPercentage(100);
-            table.setSpacingBefore(10f);
-            float[] columnWidths = {1f, 2f, 1.5f, 2f, 2f, 1.5f, 2f, 1.5f, 1.5f, 2f, 5f};
-            table.setWidths(columnWidths);
-
             String[] headers = {"S.No", "Date", "Time", "Invoice#", "Total Bill", "Discount", "Net Amount", "Payment", "Return", "Balance", "Description"};
-            for (String header : headers) {
-                PdfPCell cell = new PdfPCell(new Phrase(header, headerFont));
-                cell.setBackgroundColor(BaseColor.LIGHT_GRAY);
-                cell.setHorizontalAlignment(Element.ALIGN_CENTER);
-                cell.setPadding(5);
-                table.addCell(cell);
-            }
+            PdfPTable table = PdfResources.headedTable(new float[]{1f, 2f, 1.5f, 2f, 2f, 1.5f, 2f, 1.5f, 1.5f, 2f, 5f}, headers, headerFont, 5);
+            table.setSpacingBefore(10f);
 
             for (Object[] row : ledgerData) {
                 int[] columnOrder = {0, 1, 2, 4, 5, 8, 9, 10, 11};
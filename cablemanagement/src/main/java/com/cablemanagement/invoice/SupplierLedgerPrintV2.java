@@ -21,9 +21,9 @@ public class SupplierLedgerPrintV2 {
             document.open();
 
             // Fonts
-            Font titleFont = FontFactory.getFont(FontFactory.HELVETICA_BOLD, 16, BaseColor.BLACK);
-            Font headerFont = FontFactory.getFont(FontFactory.HELVETICA_BOLD, 10, BaseColor.BLACK);
-            Font regularFont = FontFactory.getFont(FontFactory.HELVETICA, 8, BaseColor.BLACK);
+            Font titleFont = PdfResources.font(FontFactory.HELVETICA_BOLD, 16, BaseColor.BLACK);
+            Font headerFont = PdfResources.font(FontFactory.HELVETICA_BOLD, 10, BaseColor.BLACK);
+            Font regularFont = PdfResources.font(FontFactory.HELVETICA, 8, BaseColor.BLACK);
 
             // Company Header
             Paragraph title = new Paragraph("Supplier Ledger Report", titleFont);
@@ -43,23 +43,10 @@ public class SupplierLedgerPrintV2 {
             dateInfo.setSpacingAfter(15);
             document.add(dateInfo);
 
-            // Create table with 11 columns to match supplier ledger structure
-            PdfPTable table = new PdfPTable(11);
-            table.setWidthPercentage(100);
-            table.setSpacingBefore(10f);
-            // Set relative column widths 
-            float[] columnWidths = {1f, 2f, 1.5f, 2f, 2f, 1.5f, 2f, 1.5f, 1.5f, 2f, 5f};
-            table.setWidths(columnWidths);
-
-            // Headers - exactly matching supplier ledger UI
+            // Table with 11 columns, headers exactly matching the supplier ledger UI
             String[] headers = {"S.No", "Date", "Time", "Invoice#", "Total Bill", "Discount", "Net Amount", "Payment", "Return", "Balance", "Description"};
-            for (String header : headers) {
-                PdfPCell cell = new PdfPCell(new Phrase(header, headerFont));
-                cell.setBackgroundColor(BaseColor.LIGHT_GRAY);
-                cell.setHorizontalAlignment(Element.ALIGN_CENTER);
-                cell.setPadding(5);
-                table.addCell(cell);
-            }
+            PdfPTable table = PdfResources.headedTable(new float[]{1f, 2f, 1.5f, 2f, 2f, 1.5f, 2f, 1.5f, 1.5f, 2f, 5f}, headers, headerFont, 5);
+            table.setSpacingBefore(10f);
 
             // Add data rows - using correct supplier ledger data structure
             for (Object[] row : ledgerData) {
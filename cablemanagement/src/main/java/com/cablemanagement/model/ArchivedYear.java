@@ -0,0 +1,17 @@
+package com.cablemanagement.model;
+
+/**
+ * A fiscal year whose invoices, ledger rows and book rows were moved out of the live
+ * database into an archive file of their own
+ * @param path archive database file
+ * @param salesInvoices sales invoices moved into the archive
+ * @param customerTransactions customer ledger rows moved into the archive
+ * @param archivedAt when the year was archived
+ */
+public record ArchivedYear(
+        FiscalYear year,
+        String path,
+        int salesInvoices,
+        int customerTransactions,
+        String archivedAt) {
+}
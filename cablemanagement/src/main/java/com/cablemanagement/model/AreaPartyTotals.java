@@ -0,0 +1,21 @@
+package com.cablemanagement.model;
+
+/**
+ * Ledger totals of one customer or supplier for the area-wise report
+ * @param partyType "Customer" or "Supplier"
+ * @param totalSale invoice totals before discount (purchases for a supplier)
+ * @param totalDiscount invoice discounts, including other discounts for customers
+ * @param balance current overall balance, not limited to the date range
+ * @param itemsPurchased "Product (qty), ..." for the invoices in the date range
+ */
+public record AreaPartyTotals(
+        String partyType,
+        int partyId,
+        String name,
+        double totalSale,
+        double totalDiscount,
+        double totalPayment,
+        double totalReturn,
+        double balance,
+        String itemsPurchased) {
+}
@@ -0,0 +1,17 @@
+package com.cablemanagement.model;
+
+import java.time.LocalDateTime;
+
+/**
+ * One verified snapshot of the database file
+ * @param path snapshot file
+ * @param createdAt when the snapshot was taken
+ * @param kind "scheduled", "manual", "pre-restore" or "pre-archive" (taken just before
+ *        a restore or a fiscal-year archive)
+ */
+public record DatabaseBackup(
+        String path,
+        LocalDateTime createdAt,
+        long sizeBytes,
+        String kind) {
+}
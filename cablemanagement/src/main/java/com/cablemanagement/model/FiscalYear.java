@@ -0,0 +1,15 @@
+package com.cablemanagement.model;
+
+/**
+ * One fiscal year of the books
+ * @param startYear calendar year the fiscal year starts in
+ * @param label display name, e.g. "FY2023-24"
+ * @param firstDay first day as yyyy-MM-dd
+ * @param lastDay last day as yyyy-MM-dd
+ */
+public record FiscalYear(
+        int startYear,
+        String label,
+        String firstDay,
+        String lastDay) {
+}
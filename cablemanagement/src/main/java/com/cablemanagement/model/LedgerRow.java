@@ -0,0 +1,41 @@
+package com.cablemanagement.model;
+
+/**
+ * One customer ledger line with its running balance
+ */
+public record LedgerRow(
+        int serial,
+        String date,
+        String time,
+        String description,
+        String invoiceNumber,
+        double totalBill,
+        double discount,
+        double otherDiscount,
+        double netAmount,
+        double payment,
+        double returnAmount,
+        double balance,
+        int transactionId) {
+
+    /**
+     * Same layout as a getCustomerLedger() row
+     */
+    public Object[] toArray() {
+        return new Object[] {
+            serial,
+            date,
+            time,
+            description,
+            invoiceNumber,
+            totalBill,
+            discount,
+            otherDiscount,
+            netAmount,
+            payment,
+            returnAmount,
+            balance,
+            transactionId
+        };
+    }
+}
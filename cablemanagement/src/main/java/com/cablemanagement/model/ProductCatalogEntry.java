@@ -0,0 +1,14 @@
+package com.cablemanagement.model;
+
+/**
+ * Identity and pricing of one production stock item, as held by the product catalog index.
+ * Stock quantity is deliberately not part of it: always read that from the database.
+ */
+public record ProductCatalogEntry(
+        int productionId,
+        String productName,
+        String brandName,
+        String unitName,
+        double unitCost,
+        double salePrice) {
+}
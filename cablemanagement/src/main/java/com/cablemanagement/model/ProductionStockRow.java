@@ -0,0 +1,37 @@
+package com.cablemanagement.model;
+
+/**
+ * One production stock item as read by getAllProductionStockRows()
+ */
+public record ProductionStockRow(
+        int productionId,
+        String productName,
+        String categoryName,
+        String brandName,
+        String manufacturerName,
+        String unitName,
+        int quantity,
+        double unitCost,
+        double salePrice,
+        double totalCost,
+        String productionDate) {
+
+    /**
+     * Same layout as a getAllProductionStocks() row
+     */
+    public Object[] toArray() {
+        return new Object[] {
+            productionId,      // 0
+            productName,       // 1
+            categoryName,      // 2
+            brandName,         // 3
+            manufacturerName,  // 4
+            unitName,          // 5
+            quantity,          // 6
+            unitCost,          // 7
+            salePrice,         // 8
+            totalCost,         // 9
+            productionDate     // 10
+        };
+    }
+}
@@ -0,0 +1,10 @@
+package com.cablemanagement.model;
+
+/**
+ * Totals over the production stock items matching a search
+ */
+public record ProductionStockSummary(
+        int totalItems,
+        double totalValue,
+        int lowStockItems) {
+}
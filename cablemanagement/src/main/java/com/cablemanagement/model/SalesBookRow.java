@@ -0,0 +1,27 @@
+package com.cablemanagement.model;
+
+/**
+ * One Sales_Book line (one invoice item with its invoice totals)
+ */
+public record SalesBookRow(
+        int salesBookId,
+        int salesInvoiceId,
+        String salesInvoiceNumber,
+        String customerName,
+        String salesDate,
+        String productName,
+        String brandName,
+        String manufacturerName,
+        double quantity,
+        double unitPrice,
+        double discountPercentage,
+        double discountAmount,
+        double itemTotal,
+        double totalAmount,
+        double otherDiscount,
+        double paidAmount,
+        double netInvoiceAmount,
+        double previousBalance,
+        double totalBalance,
+        double netBalance) {
+}
@@ -0,0 +1,34 @@
+package com.cablemanagement.model;
+
+/**
+ * One sales invoice line as read by getSalesInvoiceItemRows()
+ */
+public record SalesInvoiceItemRow(
+        int productionStockId,
+        String productName,
+        double quantity,
+        double unitPrice,
+        double discountPercentage,
+        double discountAmount) {
+
+    /**
+     * Line total before discount
+     */
+    public double grossAmount() {
+        return quantity * unitPrice;
+    }
+
+    /**
+     * Same layout as a getSalesInvoiceItemsByInvoiceId() row
+     */
+    public Object[] toArray() {
+        return new Object[] {
+            productionStockId,
+            productName,
+            quantity,
+            unitPrice,
+            discountPercentage,
+            discountAmount
+        };
+    }
+}
@@ -0,0 +1,16 @@
+package com.cablemanagement.model;
+
+/**
+ * One hit from the global search index
+ * @param entityType customer, supplier, product, raw_stock, sales_invoice, purchase_invoice,
+ *                   sales_return or purchase_return
+ * @param entityId primary key of the row in its own table
+ * @param title the matched name or invoice number
+ * @param detail contact, brand or counterparty shown under the title
+ */
+public record SearchResult(
+        String entityType,
+        int entityId,
+        String title,
+        String detail) {
+}
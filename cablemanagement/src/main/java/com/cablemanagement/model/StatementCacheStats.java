@@ -0,0 +1,23 @@
+package com.cablemanagement.model;
+
+/**
+ * Prepared statement cache counters for one database file
+ * @param hits prepareStatement calls served by a cached statement
+ * @param misses prepareStatement calls that had to parse and plan the SQL
+ * @param evictions cached statements closed to stay within the cache size
+ * @param cachedStatements statements currently held in the cache
+ */
+public record StatementCacheStats(
+        long hits,
+        long misses,
+        long evictions,
+        int cachedStatements) {
+
+    /**
+     * Fraction of prepareStatement calls served from the cache (0 when there were none)
+     */
+    public double hitRate() {
+        long total = hits + misses;
+        return total == 0 ? 0.0 : (double) hits / total;
+    }
+}
@@ -1,6 +1,7 @@
 package com.cablemanagement.views;
 
 import java.net.URL;
+import java.util.function.Supplier;
 import com.cablemanagement.views.pages.HomeContent;
 import com.cablemanagement.views.pages.SettingsContent;
 import com.cablemanagement.views.pages.ProfileContent;
@@ -13,14 +14,17 @@ import com.cablemanagement.views.pages.BankManagementContent;
 import com.cablemanagement.views.pages.EmployeeManagementContent;
 import com.cablemanagement.views.pages.SalesmanContent;
 import com.cablemanagement.views.pages.AccountsContent;
+import com.cablemanagement.views.pages.GlobalSearchBox;
 import com.cablemanagement.config;
 
 import javafx.geometry.Insets;
+import javafx.geometry.Pos;
 import javafx.scene.Scene;
 import javafx.scene.control.Button;
 import javafx.scene.layout.*;
 import javafx.scene.Node;
 import javafx.scene.control.ScrollPane;
+import javafx.scene.control.TextField;
 import javafx.scene.text.Font;
 
 public class home_page {
@@ -83,6 +87,40 @@ public class home_page {
         mainLayout.setLeft(scrollPane);
         mainLayout.setCenter(contentArea);
 
+        // Global search: opening a hit shows its section with the hit selected, with the usual rights check
+        TextField globalSearch = GlobalSearchBox.create(result -> {
+            String pageName;
+            Supplier<Node> page;
+            switch (result.entityType()) {
+                case "customer":
+                case "supplier":
+                    pageName = "Accounts";
+                    page = () -> AccountsContent.open(result);
+                    break;
+                case "product":
+                    pageName = "Production";
+                    page = () -> ProductionStock.open(result);
+                    break;
+                case "raw_stock":
+                    pageName = "Raw Stock";
+                    page = () -> RawStock.open(result);
+                    break;
+                default:
+                    pageName = "Books"; // invoices and returns
+                    page = () -> BooksContent.open(result);
+                    break;
+            }
+            if (config.hasCurrentUserRight(pageName)) {
+                contentArea.getChildren().setAll(page.get());
+            } else {
+                showAccessDeniedAlert(pageName);
+            }
+        });
+        HBox searchBar = new HBox(globalSearch);
+        searchBar.setAlignment(Pos.CENTER_RIGHT);
+        searchBar.setPadding(new Insets(10, 20, 0, 20));
+        mainLayout.setTop(searchBar);
+
         // Button actions with rights checking
         homeBtn.setOnAction(e -> {
             if (com.cablemanagement.config.hasCurrentUserRight("Home")) {
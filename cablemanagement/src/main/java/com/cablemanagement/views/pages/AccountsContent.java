@@ -1,5 +1,6 @@
 package com.cablemanagement.views.pages;
 
+import com.cablemanagement.Log;
 import java.util.List;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
@@ -11,9 +12,12 @@ import java.time.format.DateTimeFormatter;
 import java.util.Optional;
 
 import com.cablemanagement.config;
+import com.cablemanagement.database.AsyncDatabase;
 import com.cablemanagement.model.Customer;
+import com.cablemanagement.model.SearchResult;
 import com.cablemanagement.model.Supplier;
 
+import javafx.application.Platform;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 import javafx.geometry.Insets;
@@ -84,7 +88,7 @@ public class AccountsContent {
 
     // Methods to get data with location details
     private static List<CustomerAccountData> getAllCustomersWithLocation() {
-        System.out.println("DEBUG: Loading customer data...");
+        Log.debug("Loading customer data...");
         List<CustomerAccountData> customers = new ArrayList<>();
         String query = "SELECT c.customer_name, c.contact_number, c.balance, " +
                       "COALESCE(t.tehsil_name, '') as tehsil_name, " +
@@ -115,7 +119,7 @@ public class AccountsContent {
             
             rs.close();
             stmt.close();
-            System.out.println("DEBUG: Loaded " + customers.size() + " customers");
+            Log.debug("Loaded " + customers.size() + " customers");
             // Don't close the connection as it's managed by the database class
         } catch (SQLException e) {
             System.err.println("ERROR: Failed to load customer data: " + e.getMessage());
@@ -163,8 +167,16 @@ public class AccountsContent {
     }
 
     public static Node get() {
+        return open(null);
+    }
+
+    /**
+     * The Accounts page with a customer or supplier found by the global search selected
+     * @param hit the search hit, or null to open the page as usual
+     */
+    public static Node open(SearchResult hit) {
         try {
-            System.out.println("DEBUG: Loading AccountsContent...");
+            Log.debug("Loading AccountsContent...");
             BorderPane mainLayout = new BorderPane();
             mainLayout.setPadding(new Insets(20));
 
@@ -190,19 +202,22 @@ public class AccountsContent {
             // Customer Account Tab
             Tab customerTab = new Tab("Customer Accounts");
             customerTab.setClosable(false);
-            customerTab.setContent(createCustomerAccountsContent());
+            customerTab.setContent(createCustomerAccountsContent(hit));
 
             // Supplier Account Tab
             Tab supplierTab = new Tab("Supplier Accounts");
             supplierTab.setClosable(false);
-            supplierTab.setContent(createSupplierAccountsContent());
+            supplierTab.setContent(createSupplierAccountsContent(hit));
 
             tabPane.getTabs().addAll(customerTab, supplierTab);
+            if (hit != null && "supplier".equals(hit.entityType())) {
+                tabPane.getSelectionModel().select(supplierTab);
+            }
 
             mainLayout.setTop(titleSection);
             mainLayout.setCenter(tabPane);
 
-            System.out.println("DEBUG: AccountsContent loaded successfully");
+            Log.debug("AccountsContent loaded successfully");
             return mainLayout;
         } catch (Exception e) {
             System.err.println("ERROR: Failed to load AccountsContent: " + e.getMessage());
@@ -218,7 +233,7 @@ public class AccountsContent {
         }
     }
 
-    private static VBox createCustomerAccountsContent() {
+    private static VBox createCustomerAccountsContent(SearchResult hit) {
         VBox content = new VBox(15);
         content.setPadding(new Insets(20));
 
@@ -383,11 +398,16 @@ public class AccountsContent {
             customerTable.setPlaceholder(noDataLabel);
         }
 
+        if (hit != null && "customer".equals(hit.entityType())) {
+            searchField.setText(hit.title());
+            GlobalSearchBox.selectHit(customerTable, customer -> hit.title().equals(customer.getCustomerName()));
+        }
+
         content.getChildren().addAll(heading, searchRow, customerTable, actionButtonsRow);
         return content;
     }
 
-    private static VBox createSupplierAccountsContent() {
+    private static VBox createSupplierAccountsContent(SearchResult hit) {
         VBox content = new VBox(15);
         content.setPadding(new Insets(20));
 
@@ -551,6 +571,11 @@ public class AccountsContent {
             supplierTable.setPlaceholder(noDataLabel);
         }
 
+        if (hit != null && "supplier".equals(hit.entityType())) {
+            searchField.setText(hit.title());
+            GlobalSearchBox.selectHit(supplierTable, supplier -> hit.title().equals(supplier.getSupplierName()));
+        }
+
         content.getChildren().addAll(heading, searchRow, supplierTable, actionButtonsRow);
         return content;
     }
@@ -992,7 +1017,37 @@ public class AccountsContent {
         // Load ledger data
         ObservableList<Object[]> ledgerData = FXCollections.observableArrayList();
         
-        // Method to update totals
+        // The full ledger is loaded a page at a time as the table is scrolled
+        final int ledgerPageSize = 500;
+        int customerId = config.database.getCustomerIdByName(customerName);
+        boolean[] hasMorePages = {false};
+        boolean[] loadingNextPage = {false};
+        
+        // Method to show totals: [totalSale, totalDiscount, totalPayment, totalReturn, currentBalance]
+        java.util.function.Consumer<Object[]> showTotals = totals -> {
+            double totalSale = (Double) totals[0];
+            double totalDiscount = (Double) totals[1];
+            double totalPayment = (Double) totals[2];
+            double totalReturn = (Double) totals[3];
+            double currentBalance = (Double) totals[4];
+            
+            totalSaleLabel.setText(String.format("Total Sale: %.2f", totalSale));
+            totalDiscountLabel.setText(String.format("Total Discount: %.2f", totalDiscount));
+            totalPaymentLabel.setText(String.format("Total Payment: %.2f", totalPayment));
+            totalReturnLabel.setText(String.format("Total Return: %.2f", totalReturn));
+            currentBalanceLabel.setText(String.format("Current Balance: %.2f", currentBalance));
+            
+            // Update balance color based on value
+            if (currentBalance > 0) {
+                currentBalanceLabel.setStyle("-fx-text-fill: #e74c3c; -fx-font-weight: bold;"); // Red for debt
+            } else if (currentBalance < 0) {
+                currentBalanceLabel.setStyle("-fx-text-fill: #27ae60; -fx-font-weight: bold;"); // Green for credit
+            } else {
+                currentBalanceLabel.setStyle("-fx-text-fill: #3498db; -fx-font-weight: bold;"); // Blue for zero
+            }
+        };
+        
+        // Method to update totals from the rows currently in the table
         Runnable updateTotals = () -> {
             double totalSale = 0.0;
             double totalDiscount = 0.0;
@@ -1010,67 +1065,86 @@ public class AccountsContent {
                 }
             }
             
-            totalSaleLabel.setText(String.format("Total Sale: %.2f", totalSale));
-            totalDiscountLabel.setText(String.format("Total Discount: %.2f", totalDiscount));
-            totalPaymentLabel.setText(String.format("Total Payment: %.2f", totalPayment));
-            totalReturnLabel.setText(String.format("Total Return: %.2f", totalReturn));
-            currentBalanceLabel.setText(String.format("Current Balance: %.2f", currentBalance));
-            
-            // Update balance color based on value
-            if (currentBalance > 0) {
-                currentBalanceLabel.setStyle("-fx-text-fill: #e74c3c; -fx-font-weight: bold;"); // Red for debt
-            } else if (currentBalance < 0) {
-                currentBalanceLabel.setStyle("-fx-text-fill: #27ae60; -fx-font-weight: bold;"); // Green for credit
-            } else {
-                currentBalanceLabel.setStyle("-fx-text-fill: #3498db; -fx-font-weight: bold;"); // Blue for zero
+            showTotals.accept(new Object[]{totalSale, totalDiscount, totalPayment, totalReturn, currentBalance});
+        };
+        
+        // Shares the key of the first page, so reloading or filtering drops a page still being fetched
+        Runnable loadNextLedgerPage = () -> {
+            if (!hasMorePages[0] || loadingNextPage[0]) {
+                return;
             }
+            Object[] lastRow = ledgerData.isEmpty() ? null : ledgerData.get(ledgerData.size() - 1);
+            loadingNextPage[0] = true;
+            AsyncTableLoader.run("accounts.customerLedger",
+                database -> database.getCustomerLedgerPage(customerId, lastRow, ledgerPageSize),
+                page -> {
+                    loadingNextPage[0] = false;
+                    hasMorePages[0] = page.size() == ledgerPageSize;
+                    ledgerData.addAll(page);
+                },
+                error -> loadingNextPage[0] = false);
         };
         
         Runnable loadLedgerData = () -> {
-            try {
-                ledgerData.clear();
-                List<Object[]> transactions = config.database.getCustomerLedger(customerName);
-                ledgerData.addAll(transactions);
-                ledgerTable.setItems(ledgerData);
-                updateTotals.run();
-            } catch (Exception e) {
-                e.printStackTrace();
-            }
+            ledgerData.clear();
+            hasMorePages[0] = false;
+            loadingNextPage[0] = false;
+            AsyncTableLoader.loadWith(ledgerTable, "accounts.customerLedger",
+                database -> database.getCustomerLedgerPage(customerId, null, ledgerPageSize),
+                page -> {
+                    ledgerData.setAll(page);
+                    hasMorePages[0] = page.size() == ledgerPageSize;
+                    ledgerTable.setItems(ledgerData);
+                },
+                error -> ledgerTable.setItems(ledgerData));
+            // Totals cover the whole ledger, not just the loaded pages
+            AsyncTableLoader.run("accounts.customerLedgerSummary",
+                database -> database.getCustomerLedgerSummary(customerId), showTotals, error -> { });
         };
         
         Runnable filterLedgerData = () -> {
-            try {
-                ledgerData.clear();
-                if (fromDatePicker.getValue() != null && toDatePicker.getValue() != null) {
-                    DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd");
-                    String startDate = fromDatePicker.getValue().format(formatter);
-                    String endDate = toDatePicker.getValue().format(formatter);
-                    List<Object[]> transactions = config.database.getCustomerLedgerByDateRange(customerName, startDate, endDate);
-                    ledgerData.addAll(transactions);
-                } else {
-                    List<Object[]> transactions = config.database.getCustomerLedger(customerName);
-                    ledgerData.addAll(transactions);
-                }
-                ledgerTable.setItems(ledgerData);
-                updateTotals.run();
-            } catch (Exception e) {
-                e.printStackTrace();
+            if (fromDatePicker.getValue() == null || toDatePicker.getValue() == null) {
+                loadLedgerData.run();
+                return;
             }
+            // The range query shares the full-ledger key, so a page still loading is dropped;
+            // the whole-ledger totals would overwrite the range totals, so drop those too
+            AsyncDatabase.getInstance().cancel("accounts.customerLedgerSummary");
+            ledgerData.clear();
+            hasMorePages[0] = false;
+            loadingNextPage[0] = false;
+            DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd");
+            String startDate = fromDatePicker.getValue().format(formatter);
+            String endDate = toDatePicker.getValue().format(formatter);
+            AsyncTableLoader.loadWith(ledgerTable, "accounts.customerLedger",
+                database -> database.getCustomerLedgerByDateRange(customerName, startDate, endDate),
+                transactions -> {
+                    ledgerData.setAll(transactions);
+                    ledgerTable.setItems(ledgerData);
+                    updateTotals.run();
+                },
+                error -> ledgerTable.setItems(ledgerData));
         };
         
         // Button actions
         filterBtn.setOnAction(e -> filterLedgerData.run());
         showAllBtn.setOnAction(e -> loadLedgerData.run());
         printBtn.setOnAction(e -> {
-            try {
-                // Generate timestamp for unique filename
-                String timestamp = java.time.LocalDateTime.now().format(
-                    java.time.format.DateTimeFormatter.ofPattern("yyyyMMdd_HHmmss"));
-                
-                // Create temporary filename
-                String tempDir = System.getProperty("java.io.tmpdir");
-                String filename = tempDir + java.io.File.separator + "Customer_Ledger_" + 
-                                customerName.replaceAll("[^a-zA-Z0-9]", "_") + "_" + timestamp + ".pdf";
+            // Generate timestamp for unique filename
+            String timestamp = java.time.LocalDateTime.now().format(
+                java.time.format.DateTimeFormatter.ofPattern("yyyyMMdd_HHmmss"));
+            
+            // Create temporary filename
+            String tempDir = System.getProperty("java.io.tmpdir");
+            String filename = tempDir + java.io.File.separator + "Customer_Ledger_" + 
+                            customerName.replaceAll("[^a-zA-Z0-9]", "_") + "_" + timestamp + ".pdf";
+            
+            // Snapshot what is loaded now; the PDF is built on a worker thread
+            List<Object[]> loadedRows = new ArrayList<>(ledgerData);
+            boolean wholeLedgerLoaded = !hasMorePages[0];
+            AsyncTableLoader.run("accounts.customerLedgerPrint", database -> {
+                // Print the whole ledger even if only the first pages have been scrolled into view
+                List<Object[]> printData = wholeLedgerLoaded ? loadedRows : database.getCustomerLedger(customerId);
                 
                 // Recalculate summary values for PDF generation
                 double pdfTotalSale = 0.0;
@@ -1079,7 +1153,7 @@ public class AccountsContent {
                 double pdfTotalReturn = 0.0;
                 double pdfCurrentBalance = 0.0;
                 
-                for (Object[] row : ledgerData) {
+                for (Object[] row : printData) {
                     if (row.length >= 12) {
                         pdfTotalSale += (Double) row[5];      // Total Bill column
                         pdfTotalDiscount += (Double) row[6] + (Double) row[7]; // Discount + Other Discount columns
@@ -1091,8 +1165,9 @@ public class AccountsContent {
                 
                 // Generate PDF
                 com.cablemanagement.invoice.LedgerPDFGenerator.generateCustomerLedgerPDF(
-                    customerName, ledgerData, pdfTotalSale, pdfTotalDiscount, pdfTotalPayment, pdfTotalReturn, pdfCurrentBalance, filename);
-                
+                    customerName, printData, pdfTotalSale, pdfTotalDiscount, pdfTotalPayment, pdfTotalReturn, pdfCurrentBalance, filename);
+                return filename;
+            }, file -> {
                 // Show success message and open PDF
                 javafx.scene.control.Alert alert = new javafx.scene.control.Alert(javafx.scene.control.Alert.AlertType.INFORMATION);
                 alert.setTitle("PDF Generated");
@@ -1125,14 +1200,13 @@ public class AccountsContent {
                         // Ignore deletion errors
                     }
                 }
-                
-            } catch (Exception ex) {
+            }, ex -> {
                 Alert alert = new Alert(Alert.AlertType.ERROR);
                 alert.setTitle("Print Error");
                 alert.setHeaderText("Failed to generate ledger PDF");
                 alert.setContentText(ex.getMessage());
                 alert.showAndWait();
-            }
+            });
         });
         
         // Initial load
@@ -1147,6 +1221,26 @@ public class AccountsContent {
         
         mainLayout.getChildren().addAll(titleLabel, dateRangeBox, ledgerTable, summaryBox, buttonBox);
         
+        // Fetch the next page when the table is scrolled to the bottom; the scroll bar
+        // only exists once the table's skin has been created
+        ledgerTable.skinProperty().addListener((obs, oldSkin, newSkin) -> {
+            if (newSkin == null) {
+                return;
+            }
+            Platform.runLater(() -> {
+                for (Node node : ledgerTable.lookupAll(".scroll-bar")) {
+                    if (node instanceof ScrollBar && ((ScrollBar) node).getOrientation() == javafx.geometry.Orientation.VERTICAL) {
+                        ScrollBar verticalBar = (ScrollBar) node;
+                        verticalBar.valueProperty().addListener((valueObs, oldValue, newValue) -> {
+                            if (hasMorePages[0] && newValue.doubleValue() >= verticalBar.getMax()) {
+                                loadNextLedgerPage.run();
+                            }
+                        });
+                    }
+                }
+            });
+        });
+        
         Scene scene = new Scene(mainLayout, 1200, 650);
         ledgerStage.setScene(scene);
         ledgerStage.show();
@@ -1612,51 +1706,53 @@ public class AccountsContent {
         };
         
         Runnable loadLedgerData = () -> {
-            try {
-                ledgerData.clear();
-                List<Object[]> transactions = config.database.getSupplierLedger(supplierName);
-                ledgerData.addAll(transactions);
-                ledgerTable.setItems(ledgerData);
-                updateTotals.run();
-            } catch (Exception e) {
-                e.printStackTrace();
-            }
+            ledgerData.clear();
+            AsyncTableLoader.loadWith(ledgerTable, "accounts.supplierLedger",
+                database -> database.getSupplierLedger(supplierName),
+                transactions -> {
+                    ledgerData.setAll(transactions);
+                    ledgerTable.setItems(ledgerData);
+                    updateTotals.run();
+                },
+                error -> ledgerTable.setItems(ledgerData));
         };
         
         Runnable filterLedgerData = () -> {
-            try {
-                ledgerData.clear();
-                if (fromDatePicker.getValue() != null && toDatePicker.getValue() != null) {
-                    DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd");
-                    String startDate = fromDatePicker.getValue().format(formatter);
-                    String endDate = toDatePicker.getValue().format(formatter);
-                    List<Object[]> transactions = config.database.getSupplierLedgerByDateRange(supplierName, startDate, endDate);
-                    ledgerData.addAll(transactions);
-                } else {
-                    List<Object[]> transactions = config.database.getSupplierLedger(supplierName);
-                    ledgerData.addAll(transactions);
-                }
-                ledgerTable.setItems(ledgerData);
-                updateTotals.run();
-            } catch (Exception e) {
-                e.printStackTrace();
+            if (fromDatePicker.getValue() == null || toDatePicker.getValue() == null) {
+                loadLedgerData.run();
+                return;
             }
+            // Shares the full-ledger key, so a load still running is dropped
+            ledgerData.clear();
+            DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd");
+            String startDate = fromDatePicker.getValue().format(formatter);
+            String endDate = toDatePicker.getValue().format(formatter);
+            AsyncTableLoader.loadWith(ledgerTable, "accounts.supplierLedger",
+                database -> database.getSupplierLedgerByDateRange(supplierName, startDate, endDate),
+                transactions -> {
+                    ledgerData.setAll(transactions);
+                    ledgerTable.setItems(ledgerData);
+                    updateTotals.run();
+                },
+                error -> ledgerTable.setItems(ledgerData));
         };
         
         // Button actions
         filterBtn.setOnAction(e -> filterLedgerData.run());
         showAllBtn.setOnAction(e -> loadLedgerData.run());
         printBtn.setOnAction(e -> {
-            try {
-                // Generate timestamp for unique filename
-                String timestamp = java.time.LocalDateTime.now().format(
-                    java.time.format.DateTimeFormatter.ofPattern("yyyyMMdd_HHmmss"));
-                
-                // Create temporary filename
-                String tempDir = System.getProperty("java.io.tmpdir");
-                String filename = tempDir + java.io.File.separator + "Supplier_Ledger_" + 
-                                supplierName.replaceAll("[^a-zA-Z0-9]", "_") + "_" + timestamp + ".pdf";
-                
+            // Generate timestamp for unique filename
+            String timestamp = java.time.LocalDateTime.now().format(
+                java.time.format.DateTimeFormatter.ofPattern("yyyyMMdd_HHmmss"));
+            
+            // Create temporary filename
+            String tempDir = System.getProperty("java.io.tmpdir");
+            String filename = tempDir + java.io.File.separator + "Supplier_Ledger_" + 
+                            supplierName.replaceAll("[^a-zA-Z0-9]", "_") + "_" + timestamp + ".pdf";
+            
+            // Snapshot what is loaded now; the PDF is built on a worker thread
+            List<Object[]> printData = new ArrayList<>(ledgerData);
+            AsyncTableLoader.run("accounts.supplierLedgerPrint", database -> {
                 // Get summary values
                 double totalPurchase = 0.0;
                 double totalDiscount = 0.0;
@@ -1664,7 +1760,7 @@ public class AccountsContent {
                 double totalReturn = 0.0;
                 double currentBalance = 0.0;
                 
-                for (Object[] row : ledgerData) {
+                for (Object[] row : printData) {
                     if (row.length >= 11) {
                         totalPurchase += (Double) row[5];   // Total Bill column
                         totalDiscount += (Double) row[6];   // Discount column
@@ -1676,8 +1772,9 @@ public class AccountsContent {
                 
                 // Generate PDF using the new V2 implementation
                 com.cablemanagement.invoice.SupplierLedgerPrintV2.generate(
-                    supplierName, ledgerData, totalPurchase, totalDiscount, totalPayment, totalReturn, currentBalance, filename);
-                
+                    supplierName, printData, totalPurchase, totalDiscount, totalPayment, totalReturn, currentBalance, filename);
+                return filename;
+            }, file -> {
                 // Show success message and open PDF
                 javafx.scene.control.Alert alert = new javafx.scene.control.Alert(javafx.scene.control.Alert.AlertType.INFORMATION);
                 alert.setTitle("PDF Generated");
@@ -1710,15 +1807,13 @@ public class AccountsContent {
                         // Ignore deletion errors
                     }
                 }
-                
-            } catch (Exception ex) {
+            }, ex -> {
                 javafx.scene.control.Alert alert = new javafx.scene.control.Alert(javafx.scene.control.Alert.AlertType.ERROR);
                 alert.setTitle("PDF Generation Error");
                 alert.setHeaderText("Failed to generate ledger PDF");
                 alert.setContentText(ex.getMessage());
                 alert.showAndWait();
-                ex.printStackTrace();
-            }
+            });
         });
         
         // Initial load
@@ -0,0 +1,119 @@
+package com.cablemanagement.views.pages;
+
+import com.cablemanagement.database.AsyncDatabase;
+import com.cablemanagement.database.db;
+
+import javafx.application.Platform;
+import javafx.collections.FXCollections;
+import javafx.scene.Node;
+import javafx.scene.control.Alert;
+import javafx.scene.control.ProgressIndicator;
+import javafx.scene.control.TableView;
+
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Loads table data through AsyncDatabase. While a load is running the table is
+ * emptied and shows a progress indicator as its placeholder; the rows are set on
+ * the FX thread once the query returns. Reloading a table cancels its previous
+ * load, so only the newest result is shown.
+ */
+final class AsyncTableLoader {
+
+    private AsyncTableLoader() {
+    }
+
+    /**
+     * Load rows into a table in the background
+     * @param key identifies the table; a newer load with the same key supersedes this one
+     * @param query runs on a worker thread and must not touch the scene graph
+     * @param errorMessage prefix of the alert shown if the query fails
+     */
+    static <T> void load(TableView<T> table, String key, Function<db, List<T>> query, String errorMessage) {
+        loadWith(table, key, query,
+            rows -> table.setItems(FXCollections.observableArrayList(rows)),
+            error -> showError(errorMessage, error));
+    }
+
+    /**
+     * Show the loading indicator in a table while a query runs in the background,
+     * then hand the result to onLoaded on the FX thread. Used where the page builds
+     * its own columns or rows from the result.
+     */
+    static <R> void loadWith(TableView<?> table, String key, Function<db, R> query,
+                             Consumer<R> onLoaded, Consumer<Throwable> onError) {
+        Node placeholder = showLoading(table);
+        run(key, query,
+            result -> {
+                table.setPlaceholder(placeholder);
+                onLoaded.accept(result);
+            },
+            error -> {
+                table.setPlaceholder(placeholder);
+                onError.accept(error);
+            });
+    }
+
+    /**
+     * Run a keyed query in the background and deliver its result or error on the
+     * FX thread. Nothing is delivered if the query is superseded by a newer one.
+     */
+    static <T> void run(String key, Function<db, T> query, Consumer<T> onSuccess, Consumer<Throwable> onError) {
+        CompletableFuture<T> future = AsyncDatabase.getInstance().submitLatest(key, query);
+        future.whenComplete((result, error) -> {
+            if (future.isCancelled()) {
+                return;
+            }
+            Platform.runLater(() -> {
+                if (error == null) {
+                    onSuccess.accept(result);
+                } else {
+                    Throwable cause = unwrap(error);
+                    if (!(cause instanceof CancellationException)) {
+                        cause.printStackTrace();
+                        onError.accept(cause);
+                    }
+                }
+            });
+        });
+    }
+
+    /**
+     * Empty the table and show a progress indicator in it.
+     * @return the placeholder to restore when loading is finished
+     */
+    private static Node showLoading(TableView<?> table) {
+        Node placeholder = table.getPlaceholder();
+        if (placeholder instanceof ProgressIndicator) {
+            // A previous load is still running; keep its original placeholder
+            placeholder = (Node) table.getProperties().get(AsyncTableLoader.class);
+        } else {
+            table.getProperties().put(AsyncTableLoader.class, placeholder);
+        }
+        ProgressIndicator indicator = new ProgressIndicator();
+        indicator.setMaxSize(40, 40);
+        table.setPlaceholder(indicator);
+        table.setItems(FXCollections.observableArrayList());
+        return placeholder;
+    }
+
+    private static Throwable unwrap(Throwable error) {
+        while (error instanceof CompletionException && error.getCause() != null) {
+            error = error.getCause();
+        }
+        return error;
+    }
+
+    static void showError(String message, Throwable error) {
+        Alert alert = new Alert(Alert.AlertType.ERROR);
+        alert.setTitle("Database Error");
+        alert.setHeaderText(null);
+        alert.setContentText(message + ": " + error.getMessage());
+        alert.showAndWait();
+    }
+}
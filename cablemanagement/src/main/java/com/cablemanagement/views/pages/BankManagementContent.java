@@ -1,6 +1,7 @@
 
 package com.cablemanagement.views.pages;
 
+import com.cablemanagement.Log;
 import com.cablemanagement.config;
 import com.cablemanagement.model.Bank;
 import com.cablemanagement.model.BankTransaction;
@@ -1097,7 +1098,7 @@ private static VBox viewCashLedger() {
         int relatedBankId = txn.getRelatedBankId();
         String type = txn.getTransactionType().toLowerCase();
         
-        System.out.println("DEBUG Bank In - Type: " + type + ", BankId: " + bankId + ", RelatedBankId: " + relatedBankId);
+        Log.debug("Bank In - Type: " + type + ", BankId: " + bankId + ", RelatedBankId: " + relatedBankId);
         
         switch (type) {
             case "deposit":
@@ -1106,25 +1107,25 @@ private static VBox viewCashLedger() {
                 // Money is coming INTO this bank
                 Bank bank = findBankById(bankId);
                 if (bank != null) {
-                    System.out.println("DEBUG Bank In - Found bank: " + bank.getBankName());
+                    Log.debug("Bank In - Found bank: " + bank.getBankName());
                     return new ReadOnlyStringWrapper(bank.getBankName());
                 } else if (type.equals("transfer_from_bank") && relatedBankId > 0) {
                     // For cash transactions from bank, show the source bank
                     Bank sourceBank = findBankById(relatedBankId);
                     String result = sourceBank != null ? sourceBank.getBankName() : "-";
-                    System.out.println("DEBUG Bank In - Transfer from bank, result: " + result);
+                    Log.debug("Bank In - Transfer from bank, result: " + result);
                     return new ReadOnlyStringWrapper(result);
                 }
-                System.out.println("DEBUG Bank In - No bank found, returning -");
+                Log.debug("Bank In - No bank found, returning -");
                 return new ReadOnlyStringWrapper("-");
                 
             case "cash_in":
                 // Pure cash transaction, no bank involved
-                System.out.println("DEBUG Bank In - Cash in, returning -");
+                Log.debug("Bank In - Cash in, returning -");
                 return new ReadOnlyStringWrapper("-");
                 
             default:
-                System.out.println("DEBUG Bank In - Default case, returning -");
+                Log.debug("Bank In - Default case, returning -");
                 return new ReadOnlyStringWrapper("-");
         }
     });
@@ -1137,7 +1138,7 @@ private static VBox viewCashLedger() {
         int relatedBankId = txn.getRelatedBankId();
         String type = txn.getTransactionType().toLowerCase();
         
-        System.out.println("DEBUG Bank Out - Type: " + type + ", BankId: " + bankId + ", RelatedBankId: " + relatedBankId);
+        Log.debug("Bank Out - Type: " + type + ", BankId: " + bankId + ", RelatedBankId: " + relatedBankId);
         
         switch (type) {
             case "withdraw":
@@ -1146,25 +1147,25 @@ private static VBox viewCashLedger() {
                 // Money is going OUT from this bank
                 Bank bank = findBankById(bankId);
                 if (bank != null) {
-                    System.out.println("DEBUG Bank Out - Found bank: " + bank.getBankName());
+                    Log.debug("Bank Out - Found bank: " + bank.getBankName());
                     return new ReadOnlyStringWrapper(bank.getBankName());
                 } else if (type.equals("transfer_to_bank") && relatedBankId > 0) {
                     // For cash transactions to bank, show the destination bank
                     Bank destBank = findBankById(relatedBankId);
                     String result = destBank != null ? destBank.getBankName() : "-";
-                    System.out.println("DEBUG Bank Out - Transfer to bank, result: " + result);
+                    Log.debug("Bank Out - Transfer to bank, result: " + result);
                     return new ReadOnlyStringWrapper(result);
                 }
-                System.out.println("DEBUG Bank Out - No bank found, returning -");
+                Log.debug("Bank Out - No bank found, returning -");
                 return new ReadOnlyStringWrapper("-");
                 
             case "cash_out":
                 // Pure cash transaction, no bank involved
-                System.out.println("DEBUG Bank Out - Cash out, returning -");
+                Log.debug("Bank Out - Cash out, returning -");
                 return new ReadOnlyStringWrapper("-");
                 
             default:
-                System.out.println("DEBUG Bank Out - Default case, returning -");
+                Log.debug("Bank Out - Default case, returning -");
                 return new ReadOnlyStringWrapper("-");
         }
     });
@@ -1,7 +1,7 @@
 package com.cablemanagement.views.pages;
 
+import com.cablemanagement.Log;
 import com.cablemanagement.config;
-import com.cablemanagement.database.SQLiteDatabase;
 import com.cablemanagement.invoice.*;
 import com.cablemanagement.model.*;
 
@@ -56,11 +56,20 @@ public class BooksContent {
     }
 
     public static Node get() {
+        return open(null);
+    }
+
+    /**
+     * The Books page showing the book that holds an invoice or return found by the global
+     * search, loaded over all dates with that invoice selected
+     * @param hit the search hit, or null to open the page as usual
+     */
+    public static Node open(SearchResult hit) {
         BorderPane mainLayout = new BorderPane();
         mainLayout.setPadding(new Insets(20));
 
         StackPane formArea = new StackPane();
-        formArea.getChildren().add(createPurchaseBookForm());
+        formArea.getChildren().add(createHitBookForm(hit));
 
         HBox buttonBar = createButtonBar(formArea);
 
@@ -73,6 +82,49 @@ public class BooksContent {
             return mainLayout;
         }
 
+    /**
+     * The book a search hit is listed in, if the user may see it; the Purchase Book otherwise
+     */
+    private static VBox createHitBookForm(SearchResult hit) {
+        String type = hit != null ? hit.entityType() : "";
+        switch (type) {
+            case "sales_invoice":
+                if (config.hasCurrentUserRight("Sales Book")) {
+                    return createSalesBookForm(hit.title());
+                }
+                break;
+            case "sales_return":
+                if (config.hasCurrentUserRight("Return Sales Book")) {
+                    return createReturnSalesBookForm(hit.title());
+                }
+                break;
+            case "purchase_invoice":
+                return createPurchaseBookForm(hit.title());
+            case "purchase_return":
+                if (config.hasCurrentUserRight("Return Purchase Book")) {
+                    return createReturnPurchaseBookForm(hit.title());
+                }
+                break;
+            default:
+                break;
+        }
+        return createPurchaseBookForm(null);
+    }
+
+    /**
+     * Before a book form's first load: drop its date range and select the given invoice once loaded
+     * @param invoiceNumber the invoice to open, or null to do nothing
+     */
+    private static <T> void openInvoice(HBox filters, TableView<T> table, String invoiceNumber,
+                                        java.util.function.Function<T, String> numberOf) {
+        if (invoiceNumber == null) {
+            return;
+        }
+        ((DatePicker) filters.getChildren().get(0).lookup(".date-picker")).setValue(null);
+        ((DatePicker) filters.getChildren().get(1).lookup(".date-picker")).setValue(null);
+        GlobalSearchBox.selectHit(table, row -> invoiceNumber.equals(numberOf.apply(row)));
+    }
+
     private static HBox createButtonBar(StackPane formArea) {
         HBox buttonBar = new HBox(10);
         buttonBar.setPadding(new Insets(10));
@@ -89,13 +141,13 @@ public class BooksContent {
         };
 
         Runnable[] actions = {
-            () -> formArea.getChildren().setAll(createPurchaseBookForm()),
-            () -> formArea.getChildren().setAll(createReturnPurchaseBookForm()),
+            () -> formArea.getChildren().setAll(createPurchaseBookForm(null)),
+            () -> formArea.getChildren().setAll(createReturnPurchaseBookForm(null)),
             () -> formArea.getChildren().setAll(createRawStockUsageBookForm()),
             () -> formArea.getChildren().setAll(createProductionBookForm()),
             () -> formArea.getChildren().setAll(createReturnProductionBookForm()),
-            () -> formArea.getChildren().setAll(createSalesBookForm()),
-            () -> formArea.getChildren().setAll(createReturnSalesBookForm())
+            () -> formArea.getChildren().setAll(createSalesBookForm(null)),
+            () -> formArea.getChildren().setAll(createReturnSalesBookForm(null))
         };
 
         for (int i = 0; i < buttonLabels.length; i++) {
@@ -169,7 +221,7 @@ public class BooksContent {
         alert.showAndWait();
     }
 
-    private static VBox createPurchaseBookForm() {
+    private static VBox createPurchaseBookForm(String openInvoiceNumber) {
         VBox form = createSection("Purchase Book", "View and manage purchase records.");
         ObservableList<PurchaseRecord> data = FXCollections.observableArrayList();
         TableView<PurchaseRecord> table = createPurchaseTable(data);
@@ -179,11 +231,13 @@ public class BooksContent {
         Button loadBtn = createSubmitButton("Load");
         Button printBtn = createActionButton("Print");
         printBtn.setStyle("-fx-background-color: #28a745; -fx-text-fill: white; -fx-font-size: 14px; -fx-padding: 8 15;"); // Green for print buttons
-        HBox buttons = new HBox(10, loadBtn, printBtn);
+        Button exportBtn = createActionButton("Export CSV");
+        HBox buttons = new HBox(10, loadBtn, printBtn, exportBtn);
         buttons.setAlignment(Pos.CENTER_RIGHT);
 
         loadBtn.setOnAction(e -> loadPurchaseData(table, (DatePicker) filters.getChildren().get(0).lookup(".date-picker"),
                 (DatePicker) filters.getChildren().get(1).lookup(".date-picker"), supplierFilter));
+        exportBtn.setOnAction(e -> CsvExportDialog.exportBook("Purchase Book", "Purchase_Book", bookFilters(filters, "supplier_name", supplierFilter)));
         
         // Enhanced print functionality for purchase invoices
         printBtn.setOnAction(e -> {
@@ -236,16 +290,18 @@ public class BooksContent {
                     totalBalance = (Double) balanceDetails[1];
                     netBalance = (Double) balanceDetails[2];
                     
-                    System.out.println("DEBUG Purchase Book Balance Calculation:");
-                    System.out.println("  Invoice number: " + invoiceNumber);
-                    System.out.println("  Supplier: " + supplier);
-                    System.out.println("  Invoice total (before discount): " + invoiceTotalBeforeDiscount);
-                    System.out.println("  Discount amount: " + discountAmount);
-                    System.out.println("  Invoice total (after discount): " + invoiceTotalAfterDiscount);
-                    System.out.println("  Paid amount: " + paidAmount);
-                    System.out.println("  Previous balance: " + previousBalance);
-                    System.out.println("  Total balance: " + totalBalance);
-                    System.out.println("  Net balance: " + netBalance);
+                    if (Log.isDebugEnabled()) {
+                        Log.debug("Purchase Book Balance Calculation:");
+                        Log.debug("  Invoice number: " + invoiceNumber);
+                        Log.debug("  Supplier: " + supplier);
+                        Log.debug("  Invoice total (before discount): " + invoiceTotalBeforeDiscount);
+                        Log.debug("  Discount amount: " + discountAmount);
+                        Log.debug("  Invoice total (after discount): " + invoiceTotalAfterDiscount);
+                        Log.debug("  Paid amount: " + paidAmount);
+                        Log.debug("  Previous balance: " + previousBalance);
+                        Log.debug("  Total balance: " + totalBalance);
+                        Log.debug("  Net balance: " + netBalance);
+                    }
                 } catch (Exception ex) {
                     System.err.println("Error calculating balance: " + ex.getMessage());
                     ex.printStackTrace();
@@ -361,12 +417,13 @@ public class BooksContent {
         });
 
         form.getChildren().addAll(filters, buttons, table);
+        openInvoice(filters, table, openInvoiceNumber, PurchaseRecord::getInvoiceNumber);
         loadPurchaseData(table, (DatePicker) filters.getChildren().get(0).lookup(".date-picker"),
                 (DatePicker) filters.getChildren().get(1).lookup(".date-picker"), supplierFilter);
         return form;
     }
 
-    private static VBox createReturnPurchaseBookForm() {
+    private static VBox createReturnPurchaseBookForm(String openInvoiceNumber) {
         VBox form = createSection("Return Purchase Book", "View and manage return purchase records.");
         ObservableList<ReturnPurchaseRecord> data = FXCollections.observableArrayList();
         TableView<ReturnPurchaseRecord> table = createReturnPurchaseTable(data);
@@ -376,11 +433,13 @@ public class BooksContent {
         Button loadBtn = createSubmitButton("Load");
         Button printBtn = createActionButton("Print");
         printBtn.setStyle("-fx-background-color: #28a745; -fx-text-fill: white; -fx-font-size: 14px; -fx-padding: 8 15;"); // Green for print buttons
-        HBox buttons = new HBox(10, loadBtn, printBtn);
+        Button exportBtn = createActionButton("Export CSV");
+        HBox buttons = new HBox(10, loadBtn, printBtn, exportBtn);
         buttons.setAlignment(Pos.CENTER_RIGHT);
 
         loadBtn.setOnAction(e -> loadReturnPurchaseData(table, (DatePicker) filters.getChildren().get(0).lookup(".date-picker"),
                 (DatePicker) filters.getChildren().get(1).lookup(".date-picker"), supplierFilter));
+        exportBtn.setOnAction(e -> CsvExportDialog.exportBook("Return Purchase Book", "Return_Purchase_Book", bookFilters(filters, "supplier_name", supplierFilter)));
                 
         // Enhanced print functionality for return purchase invoices
         printBtn.setOnAction(e -> {
@@ -495,12 +554,14 @@ public class BooksContent {
                     // Net balance = total balance (no payment involved in returns)
                     netBalance = totalBalance;
                     
-                    System.out.println("DEBUG Return Purchase Book Balance Calculation:");
-                    System.out.println("  Current balance: " + currentBalance);
-                    System.out.println("  Return impact amount: " + returnImpactAmount);
-                    System.out.println("  Previous balance: " + previousBalance);
-                    System.out.println("  Total balance: " + totalBalance);
-                    System.out.println("  Net balance: " + netBalance);
+                    if (Log.isDebugEnabled()) {
+                        Log.debug("Return Purchase Book Balance Calculation:");
+                        Log.debug("  Current balance: " + currentBalance);
+                        Log.debug("  Return impact amount: " + returnImpactAmount);
+                        Log.debug("  Previous balance: " + previousBalance);
+                        Log.debug("  Total balance: " + totalBalance);
+                        Log.debug("  Net balance: " + netBalance);
+                    }
                     
                     // Note: Return invoices typically don't have discount or payment amounts
                     discountAmount = 0.0;
@@ -547,6 +608,7 @@ public class BooksContent {
         });
 
         form.getChildren().addAll(filters, buttons, table);
+        openInvoice(filters, table, openInvoiceNumber, ReturnPurchaseRecord::getReturnInvoice);
         loadReturnPurchaseData(table, (DatePicker) filters.getChildren().get(0).lookup(".date-picker"),
                 (DatePicker) filters.getChildren().get(1).lookup(".date-picker"), supplierFilter);
         return form;
@@ -562,11 +624,13 @@ public class BooksContent {
         Button loadBtn = createSubmitButton("Load");
         Button printBtn = createActionButton("Print");
         printBtn.setStyle("-fx-background-color: #28a745; -fx-text-fill: white; -fx-font-size: 14px; -fx-padding: 8 15;"); // Green for print buttons
-        HBox buttons = new HBox(10, loadBtn, printBtn);
+        Button exportBtn = createActionButton("Export CSV");
+        HBox buttons = new HBox(10, loadBtn, printBtn, exportBtn);
         buttons.setAlignment(Pos.CENTER_RIGHT);
 
         loadBtn.setOnAction(e -> loadRawStockData(table, (DatePicker) filters.getChildren().get(0).lookup(".date-picker"),
                 (DatePicker) filters.getChildren().get(1).lookup(".date-picker"), itemFilter));
+        exportBtn.setOnAction(e -> CsvExportDialog.exportBook("Raw Stock Use Book", "Raw_Stock_Use_Book", bookFilters(filters, "item_name", itemFilter)));
         
         // Enhanced print functionality for raw stock usage
         printBtn.setOnAction(e -> {
@@ -711,11 +775,13 @@ public class BooksContent {
         Button loadBtn = createSubmitButton("Load");
         Button printBtn = createActionButton("Print");
         printBtn.setStyle("-fx-background-color: #28a745; -fx-text-fill: white; -fx-font-size: 14px; -fx-padding: 8 15;"); // Green for print buttons
-        HBox buttons = new HBox(10, loadBtn, printBtn);
+        Button exportBtn = createActionButton("Export CSV");
+        HBox buttons = new HBox(10, loadBtn, printBtn, exportBtn);
         buttons.setAlignment(Pos.CENTER_RIGHT);
 
         loadBtn.setOnAction(e -> loadProductionData(table, (DatePicker) filters.getChildren().get(0).lookup(".date-picker"),
                 (DatePicker) filters.getChildren().get(1).lookup(".date-picker"), productFilter));
+        exportBtn.setOnAction(e -> CsvExportDialog.exportBook("Production Book", "Production_Book", bookFilters(filters, "product_name", productFilter)));
         
         // Enhanced print functionality for production book
         printBtn.setOnAction(e -> {
@@ -827,11 +893,13 @@ public class BooksContent {
         Button loadBtn = createSubmitButton("Load");
         Button printBtn = createActionButton("Print");
         printBtn.setStyle("-fx-background-color: #28a745; -fx-text-fill: white; -fx-font-size: 14px; -fx-padding: 8 15;"); // Green for print buttons
-        HBox buttons = new HBox(10, loadBtn, printBtn);
+        Button exportBtn = createActionButton("Export CSV");
+        HBox buttons = new HBox(10, loadBtn, printBtn, exportBtn);
         buttons.setAlignment(Pos.CENTER_RIGHT);
 
         loadBtn.setOnAction(e -> loadReturnProductionData(table, (DatePicker) filters.getChildren().get(0).lookup(".date-picker"),
                 (DatePicker) filters.getChildren().get(1).lookup(".date-picker")));
+        exportBtn.setOnAction(e -> CsvExportDialog.exportBook("Return Production Book", "Return_Production_Book", bookFilters(filters, null, null)));
         
         // Enhanced print functionality for return production book
         printBtn.setOnAction(e -> {
@@ -864,9 +932,8 @@ public class BooksContent {
                 List<Item> printItems = new ArrayList<>();
                 
                 if (returnInvoiceId > 0) {
-                    // Get detailed return invoice items using SQLiteDatabase directly
-                    SQLiteDatabase sqliteDb = (SQLiteDatabase) config.database;
-                    List<Object[]> returnItems = sqliteDb.getProductionReturnInvoiceItems(returnInvoiceId);
+                    // Get detailed return invoice items
+                    List<Object[]> returnItems = config.database.getProductionReturnInvoiceItems(returnInvoiceId);
                     for (Object[] item : returnItems) {
                         int productionId = (Integer) item[1];
                         String productName = (String) item[2];
@@ -919,7 +986,7 @@ public class BooksContent {
         return form;
     }
 
-    private static VBox createSalesBookForm() {
+    private static VBox createSalesBookForm(String openInvoiceNumber) {
         VBox form = createSection("Sales Book", "View and manage sales records.");
         ObservableList<SalesRecord> data = FXCollections.observableArrayList();
         TableView<SalesRecord> table = createSalesTable(data);
@@ -968,11 +1035,13 @@ public class BooksContent {
         Button loadBtn = createSubmitButton("Load");
         Button printBtn = createActionButton("Print");
         printBtn.setStyle("-fx-background-color: #28a745; -fx-text-fill: white; -fx-font-size: 14px; -fx-padding: 8 15;"); // Green for print buttons
-        HBox buttons = new HBox(10, loadBtn, printBtn);
+        Button exportBtn = createActionButton("Export CSV");
+        HBox buttons = new HBox(10, loadBtn, printBtn, exportBtn);
         buttons.setAlignment(Pos.CENTER_RIGHT);
 
     loadBtn.setOnAction(e -> loadSalesData(table, (DatePicker) filters.getChildren().get(0).lookup(".date-picker"),
         (DatePicker) filters.getChildren().get(1).lookup(".date-picker"), customerFilter));
+        exportBtn.setOnAction(e -> CsvExportDialog.exportBook("Sales Book", "Sales_Book", bookFilters(filters, "customer_name", customerFilter)));
         
         // Enhanced print functionality
         printBtn.setOnAction(e -> {
@@ -992,7 +1061,7 @@ public class BooksContent {
                     return;
                 }
                 
-                List<Object[]> invoiceItems = config.database.getSalesInvoiceItemsByInvoiceId(salesInvoiceId);
+                List<SalesInvoiceItemRow> invoiceItems = config.database.getSalesInvoiceItemRows(salesInvoiceId);
                 if (invoiceItems.isEmpty()) {
                     showAlert("Error", "No items found for invoice " + invoiceNumber);
                     return;
@@ -1002,15 +1071,14 @@ public class BooksContent {
                 List<Item> printItems = new ArrayList<>();
                 double itemsSubtotal = 0.0; // Calculate the raw subtotal from items
                 
-                for (Object[] item : invoiceItems) {
-                    String productName = item[1].toString();
-                    double quantity = Double.parseDouble(item[2].toString());
-                    double unitPrice = Double.parseDouble(item[3].toString());
-                    double discountPercentage = item[4] != null ? Double.parseDouble(item[4].toString()) : 0.0;
-                    double discountAmount = item[5] != null ? Double.parseDouble(item[5].toString()) : 0.0;
+                for (SalesInvoiceItemRow item : invoiceItems) {
+                    String productName = item.productName();
+                    double quantity = item.quantity();
+                    double unitPrice = item.unitPrice();
+                    double discountPercentage = item.discountPercentage();
                     
                     // Get production stock ID to retrieve unit information
-                    int productionStockId = Integer.parseInt(item[0].toString());
+                    int productionStockId = item.productionStockId();
                     String unit = getProductionStockUnit(productionStockId);
                     
                     // Format the item name as "name - unit"
@@ -1076,14 +1144,16 @@ public class BooksContent {
                         storedOtherDiscount = balanceRs.getDouble("other_discount");
                         storedPaidAmount = balanceRs.getDouble("paid_amount");
                         
-                        System.out.println("DEBUG: Using EXACT stored Sales_Book balance data for " + invoiceNumber + ":");
-                        System.out.println("  Previous Balance: " + previousBalance);
-                        System.out.println("  Total Balance: " + totalBalance);
-                        System.out.println("  Net Balance: " + netBalance);
-                        System.out.println("  Stored Other Discount: " + storedOtherDiscount);
-                        System.out.println("  Stored Paid Amount: " + storedPaidAmount);
+                        if (Log.isDebugEnabled()) {
+                            Log.debug("Using EXACT stored Sales_Book balance data for " + invoiceNumber + ":");
+                            Log.debug("  Previous Balance: " + previousBalance);
+                            Log.debug("  Total Balance: " + totalBalance);
+                            Log.debug("  Net Balance: " + netBalance);
+                            Log.debug("  Stored Other Discount: " + storedOtherDiscount);
+                            Log.debug("  Stored Paid Amount: " + storedPaidAmount);
+                        }
                     } else {
-                        System.out.println("WARNING: No balance data found in Sales_Book for " + invoiceNumber + ", falling back to calculation");
+                        Log.warn("No balance data found in Sales_Book for " + invoiceNumber + ", falling back to calculation");
                         // Fallback to old calculation method
                         previousBalance = config.database.getCustomerPreviousBalance(selectedRecord.getCustomer(), invoiceNumber);
                         totalBalance = previousBalance + (itemsSubtotal - selectedRecord.getDiscount() - selectedRecord.getOtherDiscount());
@@ -1111,14 +1181,16 @@ public class BooksContent {
                 double otherDiscountAmount = storedOtherDiscount; // Use stored other discount
                 double paidAmount = storedPaidAmount; // Use stored paid amount
                 
-                System.out.println("DEBUG: Sales Book printing FINAL values for " + invoiceNumber + ":");
-                System.out.println("  itemsSubtotal: " + itemsSubtotal);
-                System.out.println("  itemLevelDiscount: " + itemLevelDiscount);
-                System.out.println("  otherDiscountAmount: " + otherDiscountAmount);
-                System.out.println("  paidAmount: " + paidAmount);
-                System.out.println("  previousBalance: " + previousBalance);
-                System.out.println("  totalBalance: " + totalBalance);
-                System.out.println("  netBalance: " + netBalance);
+                if (Log.isDebugEnabled()) {
+                    Log.debug("Sales Book printing FINAL values for " + invoiceNumber + ":");
+                    Log.debug("  itemsSubtotal: " + itemsSubtotal);
+                    Log.debug("  itemLevelDiscount: " + itemLevelDiscount);
+                    Log.debug("  otherDiscountAmount: " + otherDiscountAmount);
+                    Log.debug("  paidAmount: " + paidAmount);
+                    Log.debug("  previousBalance: " + previousBalance);
+                    Log.debug("  totalBalance: " + totalBalance);
+                    Log.debug("  netBalance: " + netBalance);
+                }
                 
                 // Create invoice data object with the exact stored balance details
                 InvoiceData invoiceData = new InvoiceData(
@@ -1160,12 +1232,13 @@ public class BooksContent {
         });
 
         form.getChildren().addAll(filters, buttons, table);
+        openInvoice(filters, table, openInvoiceNumber, SalesRecord::getInvoiceNumber);
         loadSalesData(table, (DatePicker) filters.getChildren().get(0).lookup(".date-picker"),
                 (DatePicker) filters.getChildren().get(1).lookup(".date-picker"), customerFilter);
         return form;
     }
 
-    private static VBox createReturnSalesBookForm() {
+    private static VBox createReturnSalesBookForm(String openInvoiceNumber) {
         VBox form = createSection("Return Sales Book", "View and manage return sales records.");
         ObservableList<ReturnSalesRecord> data = FXCollections.observableArrayList();
         TableView<ReturnSalesRecord> table = createReturnSalesTable(data);
@@ -1175,11 +1248,13 @@ public class BooksContent {
         Button loadBtn = createSubmitButton("Load");
         Button printBtn = createActionButton("Print");
         printBtn.setStyle("-fx-background-color: #28a745; -fx-text-fill: white; -fx-font-size: 14px; -fx-padding: 8 15;"); // Green for print buttons
-        HBox buttons = new HBox(10, loadBtn, printBtn);
+        Button exportBtn = createActionButton("Export CSV");
+        HBox buttons = new HBox(10, loadBtn, printBtn, exportBtn);
         buttons.setAlignment(Pos.CENTER_RIGHT);
 
         loadBtn.setOnAction(e -> loadReturnSalesData(table, (DatePicker) filters.getChildren().get(0).lookup(".date-picker"),
                 (DatePicker) filters.getChildren().get(1).lookup(".date-picker"), customerFilter));
+        exportBtn.setOnAction(e -> CsvExportDialog.exportBook("Return Sales Book", "Return_Sales_Book", bookFilters(filters, "customer_name", customerFilter)));
         
         // Enhanced print functionality for return sales
         printBtn.setOnAction(e -> {
@@ -1312,6 +1387,7 @@ public class BooksContent {
         });
 
         form.getChildren().addAll(filters, buttons, table);
+        openInvoice(filters, table, openInvoiceNumber, ReturnSalesRecord::getReturnInvoice);
         loadReturnSalesData(table, (DatePicker) filters.getChildren().get(0).lookup(".date-picker"),
                 (DatePicker) filters.getChildren().get(1).lookup(".date-picker"), customerFilter);
         return form;
@@ -1510,10 +1586,8 @@ private static TableView<PurchaseRecord> createPurchaseTable(ObservableList<Purc
     }
 
     // Data loading methods
-private static void loadPurchaseData(TableView<PurchaseRecord> table, DatePicker fromDatePicker, 
-                                    DatePicker toDatePicker, ComboBox<String> supplierFilter) {
-    ObservableList<PurchaseRecord> data = FXCollections.observableArrayList();
-    try {
+    private static void loadPurchaseData(TableView<PurchaseRecord> table, DatePicker fromDatePicker,
+                                         DatePicker toDatePicker, ComboBox<String> supplierFilter) {
         Map<String, String> filters = new HashMap<>();
         if (fromDatePicker.getValue() != null) {
             filters.put("fromDate", fromDatePicker.getValue().format(DATE_FORMATTER));
@@ -1525,54 +1599,45 @@ private static void loadPurchaseData(TableView<PurchaseRecord> table, DatePicker
             filters.put("supplier_name", supplierFilter.getValue());
         }
 
-        List<Object[]> result = config.database.getPurchaseBookData(filters);
-        System.out.println("Purchase_Book results: " + result.size() + " rows");
-
-        // Use a set to track seen invoice numbers and skip duplicates
-        java.util.HashSet<String> seenInvoiceIds = new java.util.HashSet<>();
-        for (Object[] row : result) {
-            // Purchase_Book table structure: purchase_book_id, raw_purchase_invoice_id, invoice_number, supplier_name, 
-            // invoice_date, item_name, brand_name, manufacturer_name, quantity, unit_price, item_total, 
-            // total_amount, discount_amount, paid_amount, balance, created_at
-            String invoiceId = row[1] != null ? row[1].toString() : ""; // raw_purchase_invoice_id
-            if (seenInvoiceIds.contains(invoiceId)) {
-            continue; // Skip duplicate invoice ids
-            }
-            seenInvoiceIds.add(invoiceId);
-
-            data.add(new PurchaseRecord(
-            invoiceId, // raw_purchase_invoice_id
-            row[2] != null ? row[2].toString() : "", // invoice_number
-            row[3] != null ? row[3].toString() : "", // supplier_name
-            row[4] != null ? row[4].toString() : "", // invoice_date
-            row[5] != null ? row[5].toString() : "", // item_name
-            row[6] != null ? row[6].toString() : "", // brand_name
-            row[7] != null ? row[7].toString() : "", // manufacturer_name
-            row[8] != null ? Double.parseDouble(row[8].toString()) : 0.0, // quantity
-            row[9] != null ? Double.parseDouble(row[9].toString()) : 0.0, // unit_price
-            row[10] != null ? Double.parseDouble(row[10].toString()) : 0.0, // item_total
-            row[11] != null ? Double.parseDouble(row[11].toString()) : 0.0, // total_amount
-            row[12] != null ? Double.parseDouble(row[12].toString()) : 0.0, // discount_amount
-            row[13] != null ? Double.parseDouble(row[13].toString()) : 0.0, // paid_amount
-            row[14] != null ? Double.parseDouble(row[14].toString()) : 0.0 // balance
-            ));
-        }
-    } catch (Exception e) {
-        showAlert("Database Error", "Failed to load purchase data: " + e.getMessage());
-        e.printStackTrace();
-    }
+        AsyncTableLoader.load(table, "books.purchase", database -> {
+            List<PurchaseRecord> data = new ArrayList<>();
+            List<Object[]> result = database.getPurchaseBookData(filters);
+            Log.debug("Purchase_Book results: " + result.size() + " rows");
 
-    table.setItems(data);
+            // Use a set to track seen invoice numbers and skip duplicates
+            java.util.HashSet<String> seenInvoiceIds = new java.util.HashSet<>();
+            for (Object[] row : result) {
+                // Purchase_Book table structure: purchase_book_id, raw_purchase_invoice_id, invoice_number, supplier_name, 
+                // invoice_date, item_name, brand_name, manufacturer_name, quantity, unit_price, item_total, 
+                // total_amount, discount_amount, paid_amount, balance, created_at
+                String invoiceId = row[1] != null ? row[1].toString() : ""; // raw_purchase_invoice_id
+                if (seenInvoiceIds.contains(invoiceId)) {
+                    continue; // Skip duplicate invoice ids
+                }
+                seenInvoiceIds.add(invoiceId);
 
-    // Debug output
-    System.out.println("Table items count: " + table.getItems().size());
-    if (!table.getItems().isEmpty()) {
-        System.out.println("First record: " + table.getItems().get(0).getInvoiceNumber());
+                data.add(new PurchaseRecord(
+                    invoiceId, // raw_purchase_invoice_id
+                    row[2] != null ? row[2].toString() : "", // invoice_number
+                    row[3] != null ? row[3].toString() : "", // supplier_name
+                    row[4] != null ? row[4].toString() : "", // invoice_date
+                    row[5] != null ? row[5].toString() : "", // item_name
+                    row[6] != null ? row[6].toString() : "", // brand_name
+                    row[7] != null ? row[7].toString() : "", // manufacturer_name
+                    row[8] != null ? Double.parseDouble(row[8].toString()) : 0.0, // quantity
+                    row[9] != null ? Double.parseDouble(row[9].toString()) : 0.0, // unit_price
+                    row[10] != null ? Double.parseDouble(row[10].toString()) : 0.0, // item_total
+                    row[11] != null ? Double.parseDouble(row[11].toString()) : 0.0, // total_amount
+                    row[12] != null ? Double.parseDouble(row[12].toString()) : 0.0, // discount_amount
+                    row[13] != null ? Double.parseDouble(row[13].toString()) : 0.0, // paid_amount
+                    row[14] != null ? Double.parseDouble(row[14].toString()) : 0.0 // balance
+                ));
+            }
+            return data;
+        }, "Failed to load purchase data");
     }
-}
-private static void loadReturnPurchaseData(TableView<ReturnPurchaseRecord> table, DatePicker fromDate, DatePicker toDate, ComboBox<String> supplierFilter) {
-    ObservableList<ReturnPurchaseRecord> data = FXCollections.observableArrayList();
-    try {
+
+    private static void loadReturnPurchaseData(TableView<ReturnPurchaseRecord> table, DatePicker fromDate, DatePicker toDate, ComboBox<String> supplierFilter) {
         Map<String, String> filters = new HashMap<>();
         if (fromDate.getValue() != null) {
             filters.put("fromDate", fromDate.getValue().format(DATE_FORMATTER));
@@ -1584,68 +1649,60 @@ private static void loadReturnPurchaseData(TableView<ReturnPurchaseRecord> table
             filters.put("supplier_name", supplierFilter.getValue());
         }
 
-        List<Object[]> result = config.database.getReturnPurchaseBookData(filters);
-        System.out.println("Return_Purchase_Book results: " + result.size() + " rows");
-
-        // Use a set to track seen invoice numbers and skip duplicates
-        java.util.HashSet<String> seenInvoiceIds = new java.util.HashSet<>();
-        for (Object[] row : result) {
-            // Return_Purchase_Book table structure: return_purchase_book_id, raw_purchase_return_invoice_id, 
-            // return_invoice_number, supplier_name, return_date, item_name, brand_name, manufacturer_name, 
-            // quantity, unit_price, item_total, total_return_amount, created_at
-            String invoiceId = row[1] != null ? row[1].toString() : ""; // raw_purchase_return_invoice_id
-            if (seenInvoiceIds.contains(invoiceId)) {
-                continue; // Skip duplicate invoice ids
-            }
-            seenInvoiceIds.add(invoiceId);
-
-            data.add(new ReturnPurchaseRecord(
-                invoiceId, // raw_purchase_return_invoice_id
-                row[2] != null ? row[2].toString() : "", // return_invoice_number
-                row[3] != null ? row[3].toString() : "", // supplier_name
-                row[4] != null ? row[4].toString() : "", // return_date
-                row[5] != null ? row[5].toString() : "", // item_name
-                row[6] != null ? row[6].toString() : "", // brand_name
-                row[7] != null ? row[7].toString() : "", // manufacturer_name
-                row[8] != null ? Double.parseDouble(row[8].toString()) : 0.0, // quantity
-                row[9] != null ? Double.parseDouble(row[9].toString()) : 0.0, // unit_price
-                row[10] != null ? Double.parseDouble(row[10].toString()) : 0.0, // item_total
-                row[11] != null ? Double.parseDouble(row[11].toString()) : 0.0, // total_return_amount
-                0.0, // discount_amount (not available in return invoices)
-                row[11] != null ? Double.parseDouble(row[11].toString()) : 0.0, // paid_amount (same as total)
-                0.0 // balance (no balance in returns)
-            ));
-        }
-    } catch (Exception e) {
-        showAlert("Database Error", "Failed to load return purchase data: " + e.getMessage());
-        e.printStackTrace();
-    }
+        AsyncTableLoader.load(table, "books.returnPurchase", database -> {
+            List<ReturnPurchaseRecord> data = new ArrayList<>();
+            List<Object[]> result = database.getReturnPurchaseBookData(filters);
+            Log.debug("Return_Purchase_Book results: " + result.size() + " rows");
 
-    table.setItems(data);
+            // Use a set to track seen invoice numbers and skip duplicates
+            java.util.HashSet<String> seenInvoiceIds = new java.util.HashSet<>();
+            for (Object[] row : result) {
+                // Return_Purchase_Book table structure: return_purchase_book_id, raw_purchase_return_invoice_id, 
+                // return_invoice_number, supplier_name, return_date, item_name, brand_name, manufacturer_name, 
+                // quantity, unit_price, item_total, total_return_amount, created_at
+                String invoiceId = row[1] != null ? row[1].toString() : ""; // raw_purchase_return_invoice_id
+                if (seenInvoiceIds.contains(invoiceId)) {
+                    continue; // Skip duplicate invoice ids
+                }
+                seenInvoiceIds.add(invoiceId);
 
-    // Debug output
-    System.out.println("Return Purchase Table items count: " + table.getItems().size());
-    if (!table.getItems().isEmpty()) {
-        System.out.println("First return record: " + table.getItems().get(0).getReturnInvoice());
+                data.add(new ReturnPurchaseRecord(
+                    invoiceId, // raw_purchase_return_invoice_id
+                    row[2] != null ? row[2].toString() : "", // return_invoice_number
+                    row[3] != null ? row[3].toString() : "", // supplier_name
+                    row[4] != null ? row[4].toString() : "", // return_date
+                    row[5] != null ? row[5].toString() : "", // item_name
+                    row[6] != null ? row[6].toString() : "", // brand_name
+                    row[7] != null ? row[7].toString() : "", // manufacturer_name
+                    row[8] != null ? Double.parseDouble(row[8].toString()) : 0.0, // quantity
+                    row[9] != null ? Double.parseDouble(row[9].toString()) : 0.0, // unit_price
+                    row[10] != null ? Double.parseDouble(row[10].toString()) : 0.0, // item_total
+                    row[11] != null ? Double.parseDouble(row[11].toString()) : 0.0, // total_return_amount
+                    0.0, // discount_amount (not available in return invoices)
+                    row[11] != null ? Double.parseDouble(row[11].toString()) : 0.0, // paid_amount (same as total)
+                    0.0 // balance (no balance in returns)
+                ));
+            }
+            return data;
+        }, "Failed to load return purchase data");
     }
-}
 
     private static void loadRawStockData(TableView<RawStockRecord> table, DatePicker fromDate, DatePicker toDate, ComboBox<String> itemFilter) {
-        ObservableList<RawStockRecord> data = FXCollections.observableArrayList();
-        try {
-            Map<String, String> filters = new HashMap<>();
-            if (fromDate.getValue() != null) {
-                filters.put("fromDate", fromDate.getValue().format(DATE_FORMATTER));
-            }
-            if (toDate.getValue() != null) {
-                filters.put("toDate", toDate.getValue().format(DATE_FORMATTER));
-            }
-            if (itemFilter.getValue() != null && !itemFilter.getValue().isEmpty() && !itemFilter.getValue().equals("All Items")) {
-                filters.put("item_name", itemFilter.getValue());
-            }
+        Map<String, String> filters = new HashMap<>();
+        if (fromDate.getValue() != null) {
+            filters.put("fromDate", fromDate.getValue().format(DATE_FORMATTER));
+        }
+        if (toDate.getValue() != null) {
+            filters.put("toDate", toDate.getValue().format(DATE_FORMATTER));
+        }
+        if (itemFilter.getValue() != null && !itemFilter.getValue().isEmpty() && !itemFilter.getValue().equals("All Items")) {
+            filters.put("item_name", itemFilter.getValue());
+        }
 
-            List<Object[]> result = config.database.getRawStockUseBookData(filters);
-            System.out.println("Raw_Stock_Use_Book results: " + result.size() + " rows");
+        AsyncTableLoader.load(table, "books.rawStockUse", database -> {
+            List<RawStockRecord> data = new ArrayList<>();
+            List<Object[]> result = database.getRawStockUseBookData(filters);
+            Log.debug("Raw_Stock_Use_Book results: " + result.size() + " rows");
 
             // Use a set to track seen invoice numbers and skip duplicates
             java.util.HashSet<String> seenInvoiceIds = new java.util.HashSet<>();
@@ -1666,18 +1723,8 @@ private static void loadReturnPurchaseData(TableView<ReturnPurchaseRecord> table
                     row[2] != null ? row[2].toString() : "" // use_invoice_number as reference
                 ));
             }
-        } catch (Exception e) {
-            showAlert("Database Error", "Failed to load raw stock usage data: " + e.getMessage());
-            e.printStackTrace();
-        }
-
-        table.setItems(data);
-
-        // Debug output
-        System.out.println("Raw Stock Usage Table items count: " + table.getItems().size());
-        if (!table.getItems().isEmpty()) {
-            System.out.println("First usage record: " + table.getItems().get(0).getReference());
-        }
+            return data;
+        }, "Failed to load raw stock usage data");
     }
 
     private static void loadProductionData(TableView<ProductionRecord> table, DatePicker fromDate, DatePicker toDate, ComboBox<String> productFilter) {
@@ -1689,38 +1736,38 @@ private static void loadReturnPurchaseData(TableView<ReturnPurchaseRecord> table
         Map<String, String> filters = new HashMap<>();
         if (fromDate.getValue() != null) {
             filters.put("fromDate", fromDate.getValue().format(DATE_FORMATTER));
-            System.out.println("From date filter: " + fromDate.getValue().format(DATE_FORMATTER));
+            Log.debug("From date filter: " + fromDate.getValue().format(DATE_FORMATTER));
         }
         if (toDate.getValue() != null) {
             filters.put("toDate", toDate.getValue().format(DATE_FORMATTER));
-            System.out.println("To date filter: " + toDate.getValue().format(DATE_FORMATTER));
+            Log.debug("To date filter: " + toDate.getValue().format(DATE_FORMATTER));
         }
         if (productFilter.getValue() != null && !productFilter.getValue().equals("All Products")) {
             filters.put("product_name", productFilter.getValue());
-            System.out.println("Product filter: " + productFilter.getValue());
+            Log.debug("Product filter: " + productFilter.getValue());
         }
 
-        System.out.println("Executing query for Production_Book");
-        List<Object[]> rows = config.database.getProductionBookData(filters);
-        System.out.println("Retrieved " + (rows != null ? rows.size() : 0) + " rows from Production_Book");
-        
-        ObservableList<ProductionRecord> data = FXCollections.observableArrayList();
-        if (rows != null) {
-            for (Object[] row : rows) {
-                if (row != null) {
-                    System.out.println("Processing row: " + java.util.Arrays.toString(row));
-                    // Production_Book table structure: production_book_id, production_invoice_id, production_date, 
-                    // product_name, brand_name, manufacturer_name, quantity_produced, unit_cost, total_cost, notes, created_at
-                    data.add(new ProductionRecord(
-                        row[2] != null ? row[2].toString() : "", // production_date
-                        row[3] != null ? row[3].toString() : "", // product_name
-                        row[6] != null ? Double.parseDouble(row[6].toString()) : 0.0, // quantity_produced
-                        row[9] != null ? row[9].toString() : "" // notes
-                    ));
+        AsyncTableLoader.load(table, "books.production", database -> {
+            List<Object[]> rows = database.getProductionBookData(filters);
+            Log.debug("Production_Book results: " + (rows != null ? rows.size() : 0) + " rows");
+
+            List<ProductionRecord> data = new ArrayList<>();
+            if (rows != null) {
+                for (Object[] row : rows) {
+                    if (row != null) {
+                        // Production_Book table structure: production_book_id, production_invoice_id, production_date, 
+                        // product_name, brand_name, manufacturer_name, quantity_produced, unit_cost, total_cost, notes, created_at
+                        data.add(new ProductionRecord(
+                            row[2] != null ? row[2].toString() : "", // production_date
+                            row[3] != null ? row[3].toString() : "", // product_name
+                            row[6] != null ? Double.parseDouble(row[6].toString()) : 0.0, // quantity_produced
+                            row[9] != null ? row[9].toString() : "" // notes
+                        ));
+                    }
                 }
             }
-        }
-        table.setItems(data);
+            return data;
+        }, "Failed to load production data");
     }
 
     private static void loadReturnProductionData(TableView<ReturnProductionRecord> table, DatePicker fromDate, DatePicker toDate) {
@@ -1732,79 +1779,70 @@ private static void loadReturnPurchaseData(TableView<ReturnPurchaseRecord> table
         Map<String, String> filters = new HashMap<>();
         if (fromDate.getValue() != null) {
             filters.put("fromDate", fromDate.getValue().format(DATE_FORMATTER));
-            System.out.println("From date filter: " + fromDate.getValue().format(DATE_FORMATTER));
+            Log.debug("From date filter: " + fromDate.getValue().format(DATE_FORMATTER));
         }
         if (toDate.getValue() != null) {
             filters.put("toDate", toDate.getValue().format(DATE_FORMATTER));
-            System.out.println("To date filter: " + toDate.getValue().format(DATE_FORMATTER));
+            Log.debug("To date filter: " + toDate.getValue().format(DATE_FORMATTER));
         }
 
-        System.out.println("Loading return production data with filters: " + filters);
-        System.out.println("Executing query for Return_Production_Book");
-        List<Object[]> rows = config.database.getReturnProductionBookData(filters);
-        System.out.println("Retrieved " + (rows != null ? rows.size() : 0) + " rows from Return_Production_Book");
-
-        ObservableList<ReturnProductionRecord> data = FXCollections.observableArrayList();
-        if (rows != null) {
-            for (Object[] row : rows) {
-                if (row != null) {
-                    System.out.println("Processing row: " + java.util.Arrays.toString(row));
-                    // Return_Production_Book table structure: return_production_book_id, production_return_invoice_id, 
-                    // return_invoice_number, return_date, product_name, brand_name, manufacturer_name, 
-                    // quantity_returned, unit_cost, total_cost, notes, created_at
-                    data.add(new ReturnProductionRecord(
-                        row[3] != null ? row[3].toString() : "", // return_date
-                        row[2] != null ? row[2].toString() : "", // return_invoice_number
-                        row[7] != null ? Double.parseDouble(row[7].toString()) : 0.0 // quantity_returned
-                    ));
+        Log.debug("Loading return production data with filters: " + filters);
+        AsyncTableLoader.load(table, "books.returnProduction", database -> {
+            List<Object[]> rows = database.getReturnProductionBookData(filters);
+            Log.debug("Return_Production_Book results: " + (rows != null ? rows.size() : 0) + " rows");
+
+            List<ReturnProductionRecord> data = new ArrayList<>();
+            if (rows != null) {
+                for (Object[] row : rows) {
+                    if (row != null) {
+                        // Return_Production_Book table structure: return_production_book_id, production_return_invoice_id, 
+                        // return_invoice_number, return_date, product_name, brand_name, manufacturer_name, 
+                        // quantity_returned, unit_cost, total_cost, notes, created_at
+                        data.add(new ReturnProductionRecord(
+                            row[3] != null ? row[3].toString() : "", // return_date
+                            row[2] != null ? row[2].toString() : "", // return_invoice_number
+                            row[7] != null ? Double.parseDouble(row[7].toString()) : 0.0 // quantity_returned
+                        ));
+                    }
                 }
             }
-        }
-        table.setItems(data);
+            return data;
+        }, "Failed to load return production data");
     }
 
     private static void loadSalesData(TableView<SalesRecord> table, DatePicker fromDate, DatePicker toDate, ComboBox<String> customerFilter) {
-        ObservableList<SalesRecord> data = FXCollections.observableArrayList();
-        try {
-            Map<String, String> filters = new HashMap<>();
-            if (fromDate.getValue() != null) {
-                filters.put("fromDate", fromDate.getValue().format(DATE_FORMATTER));
-            }
-            if (toDate.getValue() != null) {
-                filters.put("toDate", toDate.getValue().format(DATE_FORMATTER));
-            }
-            if (customerFilter.getValue() != null && !customerFilter.getValue().isEmpty() && !customerFilter.getValue().equals("All Customers")) {
-                filters.put("customer_name", customerFilter.getValue());
-            }
+        Map<String, String> filters = new HashMap<>();
+        if (fromDate.getValue() != null) {
+            filters.put("fromDate", fromDate.getValue().format(DATE_FORMATTER));
+        }
+        if (toDate.getValue() != null) {
+            filters.put("toDate", toDate.getValue().format(DATE_FORMATTER));
+        }
+        if (customerFilter.getValue() != null && !customerFilter.getValue().isEmpty() && !customerFilter.getValue().equals("All Customers")) {
+            filters.put("customer_name", customerFilter.getValue());
+        }
 
+        AsyncTableLoader.load(table, "books.sales", database -> {
+            List<SalesRecord> data = new ArrayList<>();
             // Use the new sales book data method
-            List<Object[]> result = config.database.getSalesBookData(filters);
-            System.out.println("Sales_Book results: " + result.size() + " rows");
+            List<SalesBookRow> result = database.getSalesBookRows(filters);
+            Log.debug("Sales_Book results: " + result.size() + " rows");
 
             // Use a set to track seen sales invoice numbers and skip duplicates
             java.util.HashSet<String> seenSalesInvoiceNumbers = new java.util.HashSet<>();
-            for (Object[] row : result) {
-                // Sales_Book table structure: sales_book_id, sales_invoice_id, sales_invoice_number, customer_name, 
-                // sales_date, product_name, brand_name, manufacturer_name, quantity, unit_price, 
-                // discount_percentage, discount_amount, item_total, total_amount, other_discount, paid_amount, balance, created_at
-                String salesInvoiceNumber = row[2] != null ? row[2].toString() : ""; // sales_invoice_number
+            for (SalesBookRow row : result) {
+                String salesInvoiceNumber = row.salesInvoiceNumber() != null ? row.salesInvoiceNumber() : "";
                 if (seenSalesInvoiceNumbers.contains(salesInvoiceNumber)) {
                     continue; // Skip duplicate sales invoice numbers
                 }
                 seenSalesInvoiceNumbers.add(salesInvoiceNumber);
 
-                String customerName = row[3] != null ? row[3].toString() : ""; // customer_name
-                String salesDate = row[4] != null ? row[4].toString() : ""; // sales_date
-                double totalAmount = row[13] != null ? Double.parseDouble(row[13].toString()) : 0.0; // total_amount
-                double discountAmount = row[11] != null ? Double.parseDouble(row[11].toString()) : 0.0; // discount_amount
-                double otherDiscountAmount = row[14] != null ? Double.parseDouble(row[14].toString()) : 0.0; // other_discount
-                double paidAmount = row[15] != null ? Double.parseDouble(row[15].toString()) : 0.0; // paid_amount
-
-                System.out.println("DEBUG: Sales_Book row data for " + salesInvoiceNumber + ":");
-                System.out.println("  totalAmount (row[13]): " + totalAmount);
-                System.out.println("  discountAmount (row[11]): " + discountAmount); 
-                System.out.println("  otherDiscountAmount (row[14]): " + otherDiscountAmount);
-                System.out.println("  paidAmount (row[15]): " + paidAmount);
+                String customerName = row.customerName() != null ? row.customerName() : "";
+                String salesDate = row.salesDate() != null ? row.salesDate() : "";
+                double totalAmount = row.totalAmount();
+                double discountAmount = row.discountAmount();
+                double otherDiscountAmount = row.otherDiscount();
+                double paidAmount = row.paidAmount();
 
                 // Data is already filtered, so just add to the results
                 data.add(new SalesRecord(
@@ -1817,18 +1855,8 @@ private static void loadReturnPurchaseData(TableView<ReturnPurchaseRecord> table
                     paidAmount
                 ));
             }
-        } catch (Exception e) {
-            showAlert("Database Error", "Failed to load sales data: " + e.getMessage());
-            e.printStackTrace();
-        }
-
-        table.setItems(data);
-
-        // Debug output
-        System.out.println("Sales Table items count: " + table.getItems().size());
-        if (!table.getItems().isEmpty()) {
-            System.out.println("First sales record: " + table.getItems().get(0).getInvoiceNumber());
-        }
+            return data;
+        }, "Failed to load sales data");
     }
 
     private static void loadReturnSalesData(TableView<ReturnSalesRecord> table, DatePicker fromDate, DatePicker toDate, ComboBox<String> customerFilter) {
@@ -1837,24 +1865,24 @@ private static void loadReturnPurchaseData(TableView<ReturnPurchaseRecord> table
             return;
         }
 
-        ObservableList<ReturnSalesRecord> data = FXCollections.observableArrayList();
-        try {
-            System.out.println("Loading return sales data...");
+        Log.debug("Loading return sales data...");
 
-            Map<String, String> filters = new HashMap<>();
-            if (fromDate.getValue() != null) {
-                filters.put("fromDate", fromDate.getValue().format(DATE_FORMATTER));
-            }
-            if (toDate.getValue() != null) {
-                filters.put("toDate", toDate.getValue().format(DATE_FORMATTER));
-            }
-            if (customerFilter.getValue() != null && !customerFilter.getValue().isEmpty() && !customerFilter.getValue().equals("All Customers")) {
-                filters.put("customer_name", customerFilter.getValue());
-            }
+        Map<String, String> filters = new HashMap<>();
+        if (fromDate.getValue() != null) {
+            filters.put("fromDate", fromDate.getValue().format(DATE_FORMATTER));
+        }
+        if (toDate.getValue() != null) {
+            filters.put("toDate", toDate.getValue().format(DATE_FORMATTER));
+        }
+        if (customerFilter.getValue() != null && !customerFilter.getValue().isEmpty() && !customerFilter.getValue().equals("All Customers")) {
+            filters.put("customer_name", customerFilter.getValue());
+        }
 
+        AsyncTableLoader.load(table, "books.returnSales", database -> {
+            List<ReturnSalesRecord> data = new ArrayList<>();
             // Use the new return sales book data method
-            List<Object[]> result = config.database.getReturnSalesBookData(filters);
-            System.out.println("Return_Sales_Book results: " + result.size() + " rows");
+            List<Object[]> result = database.getReturnSalesBookData(filters);
+            Log.debug("Return_Sales_Book results: " + result.size() + " rows");
 
             // Use a set to track seen return invoice numbers and skip duplicates
             java.util.HashSet<String> seenReturnInvoiceNumbers = new java.util.HashSet<>();
@@ -1897,16 +1925,8 @@ private static void loadReturnPurchaseData(TableView<ReturnPurchaseRecord> table
                     originalInvoiceNumber
                 ));
             }
-        } catch (Exception e) {
-            showAlert("Database Error", "Failed to load return sales data: " + e.getMessage());
-            e.printStackTrace();
-        }
-
-        table.setItems(data);
-        System.out.println("Return Sales Table items count: " + data.size());
-        if (!data.isEmpty()) {
-            System.out.println("First return sales record: " + data.get(0).getReturnInvoice());
-        }
+            return data;
+        }, "Failed to load return sales data");
     }
 
     private static ComboBox<String> createSupplierComboBox() {
@@ -1969,6 +1989,27 @@ private static void loadReturnPurchaseData(TableView<ReturnPurchaseRecord> table
         return comboBox;
     }
 
+    /**
+     * The filters a book page loads with: its date range and, unless the "All ..."
+     * entry is selected, a match on one column
+     */
+    private static Map<String, String> bookFilters(HBox filterControls, String column, ComboBox<String> filterCombo) {
+        Map<String, String> filters = new HashMap<>();
+        DatePicker fromDate = (DatePicker) filterControls.getChildren().get(0).lookup(".date-picker");
+        DatePicker toDate = (DatePicker) filterControls.getChildren().get(1).lookup(".date-picker");
+        if (fromDate.getValue() != null) {
+            filters.put("fromDate", fromDate.getValue().format(DATE_FORMATTER));
+        }
+        if (toDate.getValue() != null) {
+            filters.put("toDate", toDate.getValue().format(DATE_FORMATTER));
+        }
+        String value = filterCombo != null ? filterCombo.getValue() : null;
+        if (value != null && !value.isEmpty() && !value.equals(filterCombo.getPromptText())) {
+            filters.put(column, value);
+        }
+        return filters;
+    }
+
     private static HBox createFilterControls(ComboBox<String> filterCombo) {
         HBox filters = new HBox(20);
         filters.setAlignment(Pos.CENTER_LEFT);
@@ -2284,33 +2325,13 @@ private static void loadReturnPurchaseData(TableView<ReturnPurchaseRecord> table
     
     // Helper method to get production stock ID by name
     private static int getProductionStockIdByName(String productName) {
-        try {
-            List<Object[]> productionStocks = config.database.getAllProductionStocksForDropdown();
-            for (Object[] stock : productionStocks) {
-                if (stock[1].toString().equals(productName)) {
-                    return (Integer) stock[0]; // production_id
-                }
-            }
-        } catch (Exception e) {
-            e.printStackTrace();
-        }
-        return -1;
+        ProductCatalogEntry entry = config.database.findProductCatalogEntry(productName);
+        return entry != null ? entry.productionId() : -1;
     }
     
     // Helper method to get production stock unit by production ID
     private static String getProductionStockUnit(int productionId) {
-        try {
-            List<Object[]> productionStocks = config.database.getAllProductionStocksForDropdown();
-            for (Object[] stock : productionStocks) {
-                if (((Integer) stock[0]).equals(productionId)) {
-                    // stock[4] contains unit_name based on getAllProductionStocksForDropdown structure
-                    String unit = (String) stock[4]; // unit_name
-                    return unit != null ? unit : "N/A";
-                }
-            }
-        } catch (Exception e) {
-            e.printStackTrace();
-        }
-        return "N/A";
+        ProductCatalogEntry entry = config.database.getProductCatalogEntry(productionId);
+        return entry != null ? entry.unitName() : "N/A";
     }
 }
\ No newline at end of file
@@ -0,0 +1,151 @@
+package com.cablemanagement.views.pages;
+
+import com.cablemanagement.database.AsyncDatabase;
+import com.cablemanagement.database.CsvExport;
+import com.cablemanagement.database.db;
+
+import javafx.animation.KeyFrame;
+import javafx.animation.Timeline;
+import javafx.application.Platform;
+import javafx.geometry.Insets;
+import javafx.geometry.Pos;
+import javafx.scene.Scene;
+import javafx.scene.control.Alert;
+import javafx.scene.control.Button;
+import javafx.scene.control.Label;
+import javafx.scene.control.ProgressBar;
+import javafx.scene.layout.VBox;
+import javafx.stage.FileChooser;
+import javafx.stage.Modality;
+import javafx.stage.Stage;
+import javafx.util.Duration;
+
+import java.io.File;
+import java.sql.ResultSet;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Function;
+
+/**
+ * Exports a book or report to a CSV file in the background. The query is run again
+ * and streamed straight to the file by CsvExport, so the export does not depend on
+ * what the page's table holds. A small window shows the rows written so far and
+ * lets the user cancel; closing it cancels too.
+ */
+final class CsvExportDialog {
+
+    private static final DateTimeFormatter FILE_STAMP = DateTimeFormatter.ofPattern("yyyyMMdd_HHmmss");
+
+    /**
+     * Writes the CSV file on a worker thread
+     */
+    private interface Export {
+        long run(db database, File file, CsvExport.Job job) throws Exception;
+    }
+
+    private CsvExportDialog() {
+    }
+
+    /**
+     * Export one book with the filters its page loads it with
+     * @param book the book table, e.g. Sales_Book
+     */
+    static void exportBook(String title, String book, Map<String, String> filters) {
+        export(title, (database, file, job) -> {
+            long rows = database.exportBookToCsv(book, filters, file, job);
+            if (rows < 0 && !job.isCancelled()) {
+                throw new IllegalStateException("The book could not be written, see the log for details");
+            }
+            return rows;
+        });
+    }
+
+    /**
+     * Export a report. The query runs on a worker thread and must not touch the scene graph.
+     */
+    static void exportReport(String title, Function<db, ResultSet> query) {
+        export(title, (database, file, job) -> {
+            long rows = database.exportReportToCsv(query, file, job);
+            if (rows < 0 && !job.isCancelled()) {
+                throw new IllegalStateException("The report could not be written, see the log for details");
+            }
+            return rows;
+        });
+    }
+
+    private static void export(String title, Export export) {
+        FileChooser fileChooser = new FileChooser();
+        fileChooser.setTitle("Export " + title);
+        fileChooser.setInitialFileName(title.replace(" ", "") + "_" + LocalDateTime.now().format(FILE_STAMP) + ".csv");
+        fileChooser.getExtensionFilters().add(new FileChooser.ExtensionFilter("CSV files (*.csv)", "*.csv"));
+        File file = fileChooser.showSaveDialog(null);
+        if (file == null) {
+            return;
+        }
+
+        CsvExport.Job job = new CsvExport.Job();
+        Label rowsLabel = new Label("Starting export...");
+        ProgressBar progressBar = new ProgressBar();
+        progressBar.setPrefWidth(300);
+        Button cancelBtn = new Button("Cancel");
+        cancelBtn.setOnAction(e -> {
+            job.cancel();
+            cancelBtn.setDisable(true);
+            rowsLabel.setText("Cancelling...");
+        });
+
+        VBox layout = new VBox(12, new Label("Exporting to " + file.getName()), progressBar, rowsLabel, cancelBtn);
+        layout.setPadding(new Insets(20));
+        layout.setAlignment(Pos.CENTER);
+        Stage stage = new Stage();
+        stage.initModality(Modality.APPLICATION_MODAL);
+        stage.setTitle("Export " + title);
+        stage.setScene(new Scene(layout));
+        stage.setOnCloseRequest(e -> job.cancel());
+
+        // Poll the row count rather than posting every few rows to the FX thread
+        Timeline progress = new Timeline(new KeyFrame(Duration.millis(200), e -> {
+            if (!job.isCancelled()) {
+                rowsLabel.setText(String.format("%,d rows written", job.getRows()));
+            }
+        }));
+        progress.setCycleCount(Timeline.INDEFINITE);
+        progress.play();
+        stage.show();
+
+        CompletableFuture<Long> future = AsyncDatabase.getInstance().submit(database -> {
+            try {
+                return export.run(database, file, job);
+            } catch (RuntimeException e) {
+                throw e;
+            } catch (Exception e) {
+                throw new CompletionException(e);
+            }
+        });
+        future.whenComplete((rows, error) -> Platform.runLater(() -> {
+            progress.stop();
+            stage.close();
+            Throwable cause = error;
+            while (cause instanceof CompletionException && cause.getCause() != null) {
+                cause = cause.getCause();
+            }
+            if (job.isCancelled() || cause instanceof CancellationException) {
+                return;
+            }
+            if (cause != null) {
+                cause.printStackTrace();
+                AsyncTableLoader.showError("Failed to export " + title, cause);
+                return;
+            }
+            Alert alert = new Alert(Alert.AlertType.INFORMATION);
+            alert.setTitle("Export Successful");
+            alert.setHeaderText(title + " Exported");
+            alert.setContentText(String.format("%,d rows exported to:%n%s", rows, file.getAbsolutePath()));
+            alert.showAndWait();
+        }));
+    }
+}
@@ -16,7 +16,8 @@ import javafx.scene.control.cell.TextFieldTableCell;
 import javafx.scene.layout.*;
 import javafx.stage.Modality;
 import javafx.stage.Stage;
-import com.cablemanagement.database.SQLiteDatabase;
+import com.cablemanagement.config;
+import com.cablemanagement.database.db;
 import java.util.function.Function;
 import java.time.LocalDate;
 import java.util.List;
@@ -87,7 +88,7 @@ public class EmployeeManagementContent {
     private static ScrollPane createRegisterContractEmployeeForm() {
         VBox box = baseForm("Contract Employee Management");
 
-        SQLiteDatabase database = new SQLiteDatabase();
+        db database = config.database;
 
         // Employee Registration Section
         Label regLabel = new Label("Employee Registration");
@@ -338,7 +339,7 @@ public class EmployeeManagementContent {
     private static ScrollPane createContractEmployeeRecordsView() {
         VBox box = baseForm("Contract Employee Task Records");
 
-        SQLiteDatabase database = new SQLiteDatabase();
+        db database = config.database;
 
         // Filters
         DatePicker dateFromPicker = new DatePicker();
@@ -506,7 +507,7 @@ public class EmployeeManagementContent {
         VBox box = baseForm("Designation Management");
         
         // Database instance
-        SQLiteDatabase database = new SQLiteDatabase();
+        db database = config.database;
         
         // Form controls
         TextField nameField = new TextField();
@@ -659,7 +660,7 @@ public class EmployeeManagementContent {
     }
     
     // Helper method to load designation data into the table
-    private static void loadDesignationData(SQLiteDatabase database, ObservableList<DesignationTableData> designationData) {
+    private static void loadDesignationData(db database, ObservableList<DesignationTableData> designationData) {
         designationData.clear();
         for (Object[] row : database.getAllDesignations()) {
             designationData.add(new DesignationTableData((Integer) row[0], (String) row[1]));
@@ -693,7 +694,7 @@ public class EmployeeManagementContent {
         VBox box = baseForm("Register New Employee");
         
         // Database instance
-        SQLiteDatabase database = new SQLiteDatabase();
+        db database = config.database;
 
         TextField nameField = new TextField();
         nameField.setPromptText("Full Name");
@@ -788,7 +789,7 @@ public class EmployeeManagementContent {
     private static VBox createContractEmployeeForm() {
         VBox box = baseForm("Contract-Based Employees");
 
-        SQLiteDatabase database = new SQLiteDatabase();
+        db database = config.database;
 
         // Search field
         TextField searchField = new TextField();
@@ -857,7 +858,7 @@ public class EmployeeManagementContent {
     private static VBox createSalaryEmployeeForm() {
         VBox box = baseForm("Manage Employees");
 
-        SQLiteDatabase database = new SQLiteDatabase();
+        db database = config.database;
 
         // Form fields
         TextField nameField = new TextField();
@@ -985,7 +986,7 @@ public class EmployeeManagementContent {
         VBox box = baseForm("View Salary Reports");
         
         // Database instance
-        SQLiteDatabase database = new SQLiteDatabase();
+        db database = config.database;
         
         // Date range filters
         HBox dateFilterBox = new HBox(10);
@@ -1134,7 +1135,7 @@ public class EmployeeManagementContent {
     private static VBox createAttendanceMarkForm() {
         VBox box = baseForm("Mark All Employees Attendance");
 
-        SQLiteDatabase database = new SQLiteDatabase();
+        db database = config.database;
 
         // Top: Date Picker
         Label dateLabel = new Label("Select Date:");
@@ -1356,7 +1357,7 @@ public class EmployeeManagementContent {
         VBox box = baseForm("View Attendance Report");
         
         // Database instance
-        SQLiteDatabase database = new SQLiteDatabase();
+        db database = config.database;
         
         // Date range filters
         HBox dateFilterBox = new HBox(10);
@@ -1465,7 +1466,7 @@ public class EmployeeManagementContent {
         VBox box = baseForm("Grant Advance Salary");
         
         // Database instance
-        SQLiteDatabase database = new SQLiteDatabase();
+        db database = config.database;
 
         // Employee search section
         VBox searchSection = new VBox(10);
@@ -1696,7 +1697,7 @@ public class EmployeeManagementContent {
 
     private static VBox createLoanRegisterForm() {
         VBox box = baseForm("Register New Employee Loan");
-        SQLiteDatabase database = new SQLiteDatabase();
+        db database = config.database;
 
         // --- Search Section ---
         VBox searchSection = new VBox(10);
@@ -1916,7 +1917,7 @@ public class EmployeeManagementContent {
     private static VBox createLoanReportForm() {
         VBox box = baseForm("View Employee Loan Report");
 
-        SQLiteDatabase database = new SQLiteDatabase();
+        db database = config.database;
 
         // --- Filter Section ---
         FlowPane filterPane = new FlowPane(10, 10);
@@ -2128,7 +2129,7 @@ public class EmployeeManagementContent {
     
 
     // Helper method to load employee data into the table
-    private static void loadEmployeeData(SQLiteDatabase database, ObservableList<EmployeeTableData> employeeData) {
+    private static void loadEmployeeData(db database, ObservableList<EmployeeTableData> employeeData) {
         employeeData.clear();
         for (Object[] row : database.getAllEmployees()) {
             employeeData.add(new EmployeeTableData(
@@ -2146,7 +2147,7 @@ public class EmployeeManagementContent {
     }
     
     // Helper method to load contract employee data (non-monthly employees)
-    private static void loadContractEmployeeData(SQLiteDatabase database, ObservableList<EmployeeTableData> contractEmployeeData) {
+    private static void loadContractEmployeeData(db database, ObservableList<EmployeeTableData> contractEmployeeData) {
         contractEmployeeData.clear();
         for (Object[] row : database.getAllEmployees()) {
             String salaryType = (String) row[6];
@@ -2183,7 +2184,7 @@ public class EmployeeManagementContent {
     // Helper method to setup event handlers for employee management table and form
     private static void setupEventHandlers(
         TableView<EmployeeTableData> table,
-        SQLiteDatabase database,
+        db database,
         TextField nameField,
         TextField phoneField,
         TextField cnicField,
@@ -2370,7 +2371,7 @@ public class EmployeeManagementContent {
     }
 
     // Helper method to load attendance data into the table
-    private static void loadAttendanceData(SQLiteDatabase database, ObservableList<AttendanceTableData> attendanceData, String startDate, String endDate) {
+    private static void loadAttendanceData(db database, ObservableList<AttendanceTableData> attendanceData, String startDate, String endDate) {
         attendanceData.clear();
         List<Object[]> attendanceList;
         
@@ -2437,7 +2438,7 @@ public class EmployeeManagementContent {
     }
 
     // Helper method to load salary report data into the table
-    private static void loadSalaryReportData(SQLiteDatabase database, ObservableList<SalaryReportData> salaryData, String startDate, String endDate) {
+    private static void loadSalaryReportData(db database, ObservableList<SalaryReportData> salaryData, String startDate, String endDate) {
         salaryData.clear();
         List<Object[]> reportList = database.getSalaryReportByDateRange(startDate, endDate);
         
@@ -2603,7 +2604,7 @@ public class EmployeeManagementContent {
     }
 
     // Helper methods for advance salary form
-    private static void loadEmployeeComboBox(SQLiteDatabase database, ComboBox<String> comboBox, String searchTerm) {
+    private static void loadEmployeeComboBox(db database, ComboBox<String> comboBox, String searchTerm) {
         comboBox.getItems().clear();
         
         for (Object[] row : database.getAllEmployees()) {
@@ -2619,7 +2620,7 @@ public class EmployeeManagementContent {
         }
     }
     
-    private static void loadEmployeeDetails(SQLiteDatabase database, String employeeName, 
+    private static void loadEmployeeDetails(db database, String employeeName, 
                                           Label empIdValue, Label designationValue, 
                                           Label salaryTypeValue, Label baseSalaryValue) {
         for (Object[] row : database.getAllEmployees()) {
@@ -2642,7 +2643,7 @@ public class EmployeeManagementContent {
         baseSalaryValue.setText("-");
     }
     
-    private static void loadRecentAdvances(SQLiteDatabase database, ObservableList<AdvanceSalaryData> historyData) {
+    private static void loadRecentAdvances(db database, ObservableList<AdvanceSalaryData> historyData) {
         historyData.clear();
         List<Object[]> advances = database.getAllAdvanceSalaries();
         
@@ -2660,7 +2661,7 @@ public class EmployeeManagementContent {
         }
     }
     
-    private static void loadRecentLoans(SQLiteDatabase database, ObservableList<LoanData> loansData) {
+    private static void loadRecentLoans(db database, ObservableList<LoanData> loansData) {
         loansData.clear();
         List<Object[]> loans = database.getAllEmployeeLoans();
         
@@ -2718,7 +2719,7 @@ public class EmployeeManagementContent {
     }
 
     // Helper methods for loan functionality
-    private static void loadLoanReportData(SQLiteDatabase database, ObservableList<LoanData> loanData, 
+    private static void loadLoanReportData(db database, ObservableList<LoanData> loanData, 
                                          String startDate, String endDate, String employeeName, String status) {
         loanData.clear();
         List<Object[]> loans;
@@ -2775,7 +2776,7 @@ public class EmployeeManagementContent {
         }
     }
     
-    private static void showUpdateLoanDialog(SQLiteDatabase database, LoanData loan, TableView<LoanData> table) {
+    private static void showUpdateLoanDialog(db database, LoanData loan, TableView<LoanData> table) {
         Dialog<ButtonType> dialog = new Dialog<>();
         dialog.setTitle("Update Loan Status");
         dialog.setHeaderText("Update loan for: " + loan.getEmployeeName());
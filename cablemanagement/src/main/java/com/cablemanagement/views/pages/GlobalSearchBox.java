@@ -0,0 +1,173 @@
+package com.cablemanagement.views.pages;
+
+import com.cablemanagement.model.SearchResult;
+
+import javafx.animation.PauseTransition;
+import javafx.application.Platform;
+import javafx.beans.value.ChangeListener;
+import javafx.beans.value.ObservableValue;
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
+import javafx.geometry.Bounds;
+import javafx.scene.control.ListCell;
+import javafx.scene.control.ListView;
+import javafx.scene.control.TableView;
+import javafx.scene.control.TextField;
+import javafx.scene.input.KeyCode;
+import javafx.stage.Popup;
+import javafx.util.Duration;
+
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+/**
+ * Search field for the home page: looks customers, suppliers, products, raw stock and
+ * invoice numbers up in the full-text search index as the user types, and lists the
+ * ranked hits in a popup below the field. The page a hit is opened on selects it
+ * with selectHit().
+ */
+public class GlobalSearchBox {
+
+    private static final int MAX_RESULTS = 20;
+
+    /**
+     * Create the search field
+     * @param onOpen called with the hit the user picks (by click or Enter)
+     */
+    public static TextField create(Consumer<SearchResult> onOpen) {
+        TextField searchField = new TextField();
+        searchField.setPromptText("Search customers, suppliers, products, invoices...");
+        searchField.setPrefWidth(380);
+        searchField.setStyle("-fx-padding: 8; -fx-font-size: 14px;");
+
+        Popup resultsPopup = new Popup();
+        ListView<SearchResult> resultsList = new ListView<>();
+        resultsList.setPrefSize(480, 300);
+        resultsList.setStyle("-fx-background-color: white; -fx-border-color: #ccc; -fx-border-width: 1; -fx-effect: dropshadow(gaussian, rgba(0,0,0,0.2), 10, 0, 0, 2);");
+        resultsList.setCellFactory(list -> new ListCell<>() {
+            @Override
+            protected void updateItem(SearchResult item, boolean empty) {
+                super.updateItem(item, empty);
+                if (empty || item == null) {
+                    setText(null);
+                } else {
+                    String detail = item.detail() != null && !item.detail().isBlank() ? " - " + item.detail() : "";
+                    setText("[" + typeLabel(item.entityType()) + "] " + item.title() + detail);
+                }
+            }
+        });
+        resultsPopup.getContent().add(resultsList);
+        resultsPopup.setAutoHide(true);
+
+        Runnable openSelected = () -> {
+            SearchResult selected = resultsList.getSelectionModel().getSelectedItem();
+            if (selected != null) {
+                resultsPopup.hide();
+                onOpen.accept(selected);
+            }
+        };
+
+        // Query once typing pauses; a newer query supersedes one still running
+        PauseTransition searchDelay = new PauseTransition(Duration.millis(150));
+        searchDelay.setOnFinished(e -> {
+            String text = searchField.getText();
+            if (text == null || text.trim().isEmpty()) {
+                resultsPopup.hide();
+                return;
+            }
+            AsyncTableLoader.run("home.globalSearch",
+                database -> database.globalSearch(text, MAX_RESULTS),
+                results -> {
+                    if (results.isEmpty() || !text.equals(searchField.getText())) {
+                        resultsPopup.hide();
+                        return;
+                    }
+                    resultsList.setItems(FXCollections.observableArrayList(results));
+                    if (!resultsPopup.isShowing() && searchField.getScene() != null) {
+                        Bounds bounds = searchField.localToScreen(searchField.getBoundsInLocal());
+                        resultsPopup.show(searchField, bounds.getMinX(), bounds.getMaxY());
+                    }
+                },
+                error -> resultsPopup.hide());
+        });
+        searchField.textProperty().addListener((obs, oldVal, newVal) -> searchDelay.playFromStart());
+
+        resultsList.setOnMouseClicked(event -> openSelected.run());
+
+        searchField.setOnKeyPressed(event -> {
+            if (event.getCode() == KeyCode.DOWN && resultsPopup.isShowing()) {
+                resultsList.requestFocus();
+                if (!resultsList.getItems().isEmpty()) {
+                    resultsList.getSelectionModel().select(0);
+                }
+            } else if (event.getCode() == KeyCode.ESCAPE) {
+                resultsPopup.hide();
+            } else if (event.getCode() == KeyCode.ENTER && resultsPopup.isShowing()) {
+                if (resultsList.getSelectionModel().getSelectedItem() == null && !resultsList.getItems().isEmpty()) {
+                    resultsList.getSelectionModel().select(0);
+                }
+                openSelected.run();
+            }
+        });
+
+        resultsList.setOnKeyPressed(event -> {
+            if (event.getCode() == KeyCode.ENTER) {
+                openSelected.run();
+            } else if (event.getCode() == KeyCode.ESCAPE) {
+                resultsPopup.hide();
+                Platform.runLater(() -> searchField.requestFocus());
+            }
+        });
+
+        return searchField;
+    }
+
+    /**
+     * Select and scroll to the first row of a table that is the hit being opened, right
+     * away or, for a table still loading in the background, as soon as its rows arrive
+     */
+    static <T> void selectHit(TableView<T> table, Predicate<T> isHit) {
+        if (select(table, isHit)) {
+            return;
+        }
+        table.itemsProperty().addListener(new ChangeListener<ObservableList<T>>() {
+            @Override
+            public void changed(ObservableValue<? extends ObservableList<T>> obs,
+                                ObservableList<T> oldRows, ObservableList<T> rows) {
+                if (rows == null || rows.isEmpty()) {
+                    return; // Emptied while loading
+                }
+                table.itemsProperty().removeListener(this);
+                select(table, isHit);
+            }
+        });
+    }
+
+    private static <T> boolean select(TableView<T> table, Predicate<T> isHit) {
+        if (table.getItems() == null) {
+            return false;
+        }
+        for (T row : table.getItems()) {
+            if (isHit.test(row)) {
+                table.getSelectionModel().select(row);
+                table.scrollTo(row);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String typeLabel(String entityType) {
+        switch (entityType) {
+            case "customer": return "Customer";
+            case "supplier": return "Supplier";
+            case "product": return "Product";
+            case "raw_stock": return "Raw Stock";
+            case "sales_invoice": return "Sales Invoice";
+            case "purchase_invoice": return "Purchase Invoice";
+            case "sales_return": return "Sales Return";
+            case "purchase_return": return "Purchase Return";
+            default: return entityType;
+        }
+    }
+}
@@ -0,0 +1,178 @@
+package com.cablemanagement.views.pages;
+
+import com.cablemanagement.database.db;
+
+import javafx.application.Platform;
+import javafx.collections.FXCollections;
+import javafx.geometry.Orientation;
+import javafx.scene.Node;
+import javafx.scene.control.ScrollBar;
+import javafx.scene.control.TableColumn;
+import javafx.scene.control.TableView;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Backs a TableView with a query that is filtered, sorted and paged in the database.
+ *
+ * The first page is loaded on reload(); further pages are appended as the table is
+ * scrolled to the bottom. Clicking a column header re-queries with that column's sort
+ * key (its userData); columns without a sort key are not sortable. Loads go through
+ * AsyncTableLoader, so a reload supersedes any page still being fetched.
+ */
+final class PagedTableModel<T> {
+
+    /**
+     * Fetches one page of rows; runs on a worker thread
+     */
+    @FunctionalInterface
+    interface PageQuery<T> {
+        List<T> fetch(db database, Map<String, String> filters, String sortKey, boolean ascending, int offset, int limit);
+    }
+
+    private final TableView<T> table;
+    private final String key;
+    private final int pageSize;
+    private final String defaultSortKey;
+    private final PageQuery<T> query;
+    private final String errorMessage;
+
+    private Map<String, String> filters = new HashMap<>();
+    private String sortKey;
+    private boolean ascending = true;
+    private boolean hasMorePages = false;
+    private boolean loadingNextPage = false;
+
+    PagedTableModel(TableView<T> table, String key, int pageSize, String defaultSortKey,
+                    PageQuery<T> query, String errorMessage) {
+        this.table = table;
+        this.key = key;
+        this.pageSize = pageSize;
+        this.defaultSortKey = defaultSortKey;
+        this.sortKey = defaultSortKey;
+        this.query = query;
+        this.errorMessage = errorMessage;
+
+        table.getProperties().put(PagedTableModel.class, this);
+        for (TableColumn<T, ?> column : table.getColumns()) {
+            if (!(column.getUserData() instanceof String)) {
+                column.setSortable(false);
+            }
+        }
+        table.setSortPolicy(t -> {
+            applySortOrder();
+            return true;
+        });
+        table.skinProperty().addListener((obs, oldSkin, newSkin) -> {
+            if (newSkin != null) {
+                Platform.runLater(this::installScrollListener);
+            }
+        });
+    }
+
+    /**
+     * Get the model attached to a table, or null if it has none
+     */
+    @SuppressWarnings("unchecked")
+    static <T> PagedTableModel<T> of(TableView<T> table) {
+        return (PagedTableModel<T>) table.getProperties().get(PagedTableModel.class);
+    }
+
+    /**
+     * Replace the filters and reload from the first page
+     */
+    void setFilters(Map<String, String> filters) {
+        this.filters = new HashMap<>(filters);
+        reload();
+    }
+
+    Map<String, String> getFilters() {
+        return new HashMap<>(filters);
+    }
+
+    /**
+     * Reload from the first page with the current filters and sort order
+     */
+    void reload() {
+        Map<String, String> pageFilters = getFilters();
+        String pageSortKey = sortKey;
+        boolean pageAscending = ascending;
+
+        hasMorePages = false;
+        loadingNextPage = false;
+        AsyncTableLoader.loadWith(table, key,
+            database -> query.fetch(database, pageFilters, pageSortKey, pageAscending, 0, pageSize),
+            rows -> {
+                table.setItems(FXCollections.observableArrayList(rows));
+                hasMorePages = rows.size() == pageSize;
+            },
+            error -> AsyncTableLoader.showError(errorMessage, error));
+    }
+
+    /**
+     * Fetch every row matching the current filters, in the current order (used for printing).
+     * Runs on the calling thread.
+     */
+    List<T> fetchAll(db database) {
+        return query.fetch(database, getFilters(), sortKey, ascending, 0, 0);
+    }
+
+    private void loadNextPage() {
+        if (!hasMorePages || loadingNextPage) {
+            return;
+        }
+        Map<String, String> pageFilters = getFilters();
+        String pageSortKey = sortKey;
+        boolean pageAscending = ascending;
+        int offset = table.getItems().size();
+
+        loadingNextPage = true;
+        AsyncTableLoader.run(key,
+            database -> query.fetch(database, pageFilters, pageSortKey, pageAscending, offset, pageSize),
+            rows -> {
+                loadingNextPage = false;
+                table.getItems().addAll(rows);
+                hasMorePages = rows.size() == pageSize;
+            },
+            error -> {
+                loadingNextPage = false;
+                AsyncTableLoader.showError(errorMessage, error);
+            });
+    }
+
+    /**
+     * Re-query when the table's primary sort column or direction changed
+     */
+    private void applySortOrder() {
+        String newSortKey = defaultSortKey;
+        boolean newAscending = true;
+        if (!table.getSortOrder().isEmpty()) {
+            TableColumn<T, ?> column = table.getSortOrder().get(0);
+            if (column.getUserData() instanceof String) {
+                newSortKey = (String) column.getUserData();
+                newAscending = column.getSortType() == TableColumn.SortType.ASCENDING;
+            }
+        }
+        if (!newSortKey.equals(sortKey) || newAscending != ascending) {
+            sortKey = newSortKey;
+            ascending = newAscending;
+            reload();
+        }
+    }
+
+    // Fetch the next page when the table is scrolled to the bottom
+    private void installScrollListener() {
+        for (Node node : table.lookupAll(".scroll-bar")) {
+            if (node instanceof ScrollBar && ((ScrollBar) node).getOrientation() == Orientation.VERTICAL) {
+                ScrollBar verticalBar = (ScrollBar) node;
+                verticalBar.valueProperty().addListener((obs, oldValue, newValue) -> {
+                    if (newValue.doubleValue() >= verticalBar.getMax()) {
+                        loadNextPage();
+                    }
+                });
+            }
+        }
+    }
+}
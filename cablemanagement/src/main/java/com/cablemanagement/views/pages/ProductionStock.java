@@ -1,5 +1,6 @@
 package com.cablemanagement.views.pages;
 
+import com.cablemanagement.Log;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 import javafx.geometry.Insets;
@@ -22,19 +23,26 @@ import javafx.stage.Modality;
 import javafx.stage.Stage;
 import javafx.stage.Popup;
 import javafx.application.Platform;
+import javafx.animation.PauseTransition;
+import javafx.util.Duration;
 import java.time.format.DateTimeFormatter;
 import java.time.LocalDate;
 import java.util.List;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.Optional;
 
-import com.cablemanagement.database.SQLiteDatabase;
 import com.cablemanagement.database.db;
 import com.cablemanagement.model.Brand;
 import com.cablemanagement.model.Customer;
 import com.cablemanagement.model.Manufacturer;
+import com.cablemanagement.model.ProductCatalogEntry;
 import com.cablemanagement.model.ProductionStockRecord;
+import com.cablemanagement.model.ProductionStockRow;
+import com.cablemanagement.model.ProductionStockSummary;
 import com.cablemanagement.model.ProductionStockItem;
+import com.cablemanagement.model.SearchResult;
 import com.cablemanagement.invoice.PrintManager;
 import com.cablemanagement.invoice.InvoiceData;
 import com.cablemanagement.invoice.Item;
@@ -42,15 +50,23 @@ import com.cablemanagement.invoice.Item;
 public class ProductionStock {
 
     private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd");
-    private static final db database = new SQLiteDatabase();
-    private static final SQLiteDatabase sqliteDatabase = new SQLiteDatabase();
+    private static final db database = com.cablemanagement.config.database;
+    private static final int STOCK_PAGE_SIZE = 200;
 
     public static Node get() {
+        return open(null);
+    }
+
+    /**
+     * The Production page with a product found by the global search selected in the stock table
+     * @param hit the search hit, or null to open the page as usual
+     */
+    public static Node open(SearchResult hit) {
         BorderPane mainLayout = new BorderPane();
         mainLayout.setPadding(new Insets(20));
 
         StackPane formArea = new StackPane();
-        formArea.getChildren().add(createProductionStockForm());
+        formArea.getChildren().add(createProductionStockForm(hit));
 
         HBox buttonBar = createButtonBar(formArea);
 
@@ -78,7 +94,7 @@ public class ProductionStock {
         };
 
         Runnable[] actions = {
-            () -> formArea.getChildren().setAll(createProductionStockForm()),
+            () -> formArea.getChildren().setAll(createProductionStockForm(null)),
             () -> formArea.getChildren().setAll(createProductionInvoiceForm()),
             () -> formArea.getChildren().setAll(createReturnProductionInvoiceForm()),
             () -> formArea.getChildren().setAll(createSalesInvoiceForm()),
@@ -113,7 +129,7 @@ public class ProductionStock {
         bar.getChildren().add(btn);
     }
 
-    private static VBox createProductionStockForm() {
+    private static VBox createProductionStockForm(SearchResult hit) {
         VBox mainContainer = new VBox(20);
         mainContainer.setPadding(new Insets(20));
         mainContainer.getStyleClass().add("form-container");
@@ -163,7 +179,7 @@ public class ProductionStock {
         List<String> allCategories = new ArrayList<>();
         try {
             allCategories.addAll(database.getAllCategories());
-            System.out.println("DEBUG: Loaded " + allCategories.size() + " categories for search");
+            Log.debug("Loaded " + allCategories.size() + " categories for search");
         } catch (Exception e) {
             showAlert("Database Error", "Failed to load categories: " + e.getMessage());
         }
@@ -267,7 +283,7 @@ public class ProductionStock {
             for (Manufacturer manufacturer : manufacturers) {
                 allManufacturers.add(manufacturer.nameProperty().get());
             }
-            System.out.println("DEBUG: Loaded " + allManufacturers.size() + " manufacturers for search");
+            Log.debug("Loaded " + allManufacturers.size() + " manufacturers for search");
         } catch (Exception e) {
             showAlert("Database Error", "Failed to load manufacturers: " + e.getMessage());
         }
@@ -371,7 +387,7 @@ public class ProductionStock {
             for (Brand brand : brands) {
                 allBrands.add(brand.nameProperty().get());
             }
-            System.out.println("DEBUG: Loaded " + allBrands.size() + " brands for search");
+            Log.debug("Loaded " + allBrands.size() + " brands for search");
         } catch (Exception e) {
             showAlert("Database Error", "Failed to load brands: " + e.getMessage());
         }
@@ -472,7 +488,7 @@ public class ProductionStock {
         List<String> allUnits = new ArrayList<>();
         try {
             allUnits.addAll(database.getAllUnits());
-            System.out.println("DEBUG: Loaded " + allUnits.size() + " units for search");
+            Log.debug("Loaded " + allUnits.size() + " units for search");
         } catch (Exception e) {
             showAlert("Database Error", "Failed to load units: " + e.getMessage());
         }
@@ -734,50 +750,71 @@ public class ProductionStock {
 
         // Print handlers
         printAllBtn.setOnAction(e -> {
-            try {
-                // Export current table items (all displayed) to PDF
-                ObservableList<ProductionStockRecord> items = stockTable.getItems();
-                exportProductionStockToPDF(items, stockTable, "All Production Stock");
-            } catch (Exception ex) {
-                ex.printStackTrace();
-                showAlert("Export Error", "Failed to export production stock: " + ex.getMessage());
-            }
+            // Export every item matching the current search, including pages not yet scrolled to
+            AsyncTableLoader.run("production.stockExport",
+                database -> PagedTableModel.of(stockTable).fetchAll(database),
+                items -> {
+                    try {
+                        exportProductionStockToPDF(FXCollections.observableArrayList(items), stockTable, "All Production Stock");
+                    } catch (Exception ex) {
+                        ex.printStackTrace();
+                        showAlert("Export Error", "Failed to export production stock: " + ex.getMessage());
+                    }
+                },
+                error -> showAlert("Export Error", "Failed to export production stock: " + error.getMessage()));
         });
 
         printLowBtn.setOnAction(e -> {
-            try {
-                // Filter low-stock items and export
-                ObservableList<ProductionStockRecord> lowItems = FXCollections.observableArrayList();
-                for (ProductionStockRecord r : stockTable.getItems()) {
-                    if (r.getQuantity() < 10) lowItems.add(r);
-                }
-                if (lowItems.isEmpty()) {
-                    Alert alert = new Alert(Alert.AlertType.INFORMATION);
-                    alert.setTitle("No Low Stock Items");
-                    alert.setHeaderText(null);
-                    alert.setContentText("There are no low-stock items to print.");
-                    alert.showAndWait();
-                    return;
-                }
-                exportProductionStockToPDF(lowItems, stockTable, "Low Stock Items");
-            } catch (Exception ex) {
-                ex.printStackTrace();
-                showAlert("Export Error", "Failed to export low-stock items: " + ex.getMessage());
-            }
+            AsyncTableLoader.run("production.stockExport",
+                database -> PagedTableModel.of(stockTable).fetchAll(database),
+                items -> {
+                    try {
+                        // Filter low-stock items and export
+                        ObservableList<ProductionStockRecord> lowItems = FXCollections.observableArrayList();
+                        for (ProductionStockRecord r : items) {
+                            if (r.getQuantity() < 10) lowItems.add(r);
+                        }
+                        if (lowItems.isEmpty()) {
+                            Alert alert = new Alert(Alert.AlertType.INFORMATION);
+                            alert.setTitle("No Low Stock Items");
+                            alert.setHeaderText(null);
+                            alert.setContentText("There are no low-stock items to print.");
+                            alert.showAndWait();
+                            return;
+                        }
+                        exportProductionStockToPDF(lowItems, stockTable, "Low Stock Items");
+                    } catch (Exception ex) {
+                        ex.printStackTrace();
+                        showAlert("Export Error", "Failed to export low-stock items: " + ex.getMessage());
+                    }
+                },
+                error -> showAlert("Export Error", "Failed to export low-stock items: " + error.getMessage()));
         });
 
-        // Search functionality
-        searchField.textProperty().addListener((obs, oldVal, newVal) -> {
-            filterProductionStockTable(stockTable, newVal, filterCombo.getValue());
+        // Search functionality: query once typing pauses rather than on every keystroke
+        PauseTransition searchDelay = new PauseTransition(Duration.millis(250));
+        searchDelay.setOnFinished(e -> {
+            filterProductionStockTable(stockTable, searchField.getText(), filterCombo.getValue());
+            updateStockSummary(stockTable, totalItemsLabel, totalValueLabel, lowStockLabel);
         });
+        searchField.textProperty().addListener((obs, oldVal, newVal) -> searchDelay.playFromStart());
 
         // Filter functionality
         filterCombo.setOnAction(e -> {
+            searchDelay.stop();
             filterProductionStockTable(stockTable, searchField.getText(), filterCombo.getValue());
+            updateStockSummary(stockTable, totalItemsLabel, totalValueLabel, lowStockLabel);
         });
 
-        // Load initial data
-        refreshProductionStockTable(stockTable);
+        // Load initial data, narrowed to the product when opened from the global search
+        if (hit != null) {
+            searchField.setText(hit.title());
+            searchDelay.stop();
+            filterProductionStockTable(stockTable, hit.title(), filterCombo.getValue());
+            GlobalSearchBox.selectHit(stockTable, record -> record.getProductionId() == hit.entityId());
+        } else {
+            refreshProductionStockTable(stockTable);
+        }
         updateStockSummary(stockTable, totalItemsLabel, totalValueLabel, lowStockLabel);
 
         return mainContainer;
@@ -803,7 +840,7 @@ public class ProductionStock {
         invoiceNumberField.getStyleClass().add("readonly-field");
         
         try {
-            String autoGeneratedNumber = sqliteDatabase.generateProductionInvoiceNumber();
+            String autoGeneratedNumber = database.generateProductionInvoiceNumber();
             invoiceNumberField.setText(autoGeneratedNumber);
         } catch (Exception e) {
             invoiceNumberField.setText("Error generating number");
@@ -854,7 +891,7 @@ public class ProductionStock {
                 );
                 allProductStocks.add(item);
             }
-            System.out.println("DEBUG: Loaded " + allProductStocks.size() + " production stocks for search");
+            Log.debug("Loaded " + allProductStocks.size() + " production stocks for search");
         } catch (Exception e) {
             showAlert("Database Error", "Failed to load production stocks: " + e.getMessage());
         }
@@ -987,7 +1024,7 @@ public class ProductionStock {
                 );
                 allRawMaterials.add(item);
             }
-            System.out.println("DEBUG: Loaded " + allRawMaterials.size() + " raw materials for search");
+            Log.debug("Loaded " + allRawMaterials.size() + " raw materials for search");
         } catch (Exception e) {
             showAlert("Database Error", "Failed to load raw materials: " + e.getMessage());
         }
@@ -1162,7 +1199,7 @@ public class ProductionStock {
         returnInvoiceNumberField.setEditable(false);
         
         try {
-            String autoGeneratedNumber = sqliteDatabase.generateProductionReturnInvoiceNumber();
+            String autoGeneratedNumber = database.generateProductionReturnInvoiceNumber();
             returnInvoiceNumberField.setText(autoGeneratedNumber);
         } catch (Exception e) {
             returnInvoiceNumberField.setText("Error generating number");
@@ -1189,8 +1226,8 @@ public class ProductionStock {
         // Load production invoices
         final ObservableList<String> allInvoices = FXCollections.observableArrayList();
         try {
-            List<Object[]> productionInvoiceData = sqliteDatabase.getAllProductionInvoicesForDropdown();
-            System.out.println("DEBUG: Loaded " + productionInvoiceData.size() + " production invoices for return");
+            List<Object[]> productionInvoiceData = database.getAllProductionInvoicesForDropdown();
+            Log.debug("Loaded " + productionInvoiceData.size() + " production invoices for return");
             for (Object[] invoice : productionInvoiceData) {
                 int invoiceId = (Integer) invoice[0];
                 String date = (String) invoice[1];
@@ -1378,7 +1415,7 @@ public class ProductionStock {
                     String productionInvoiceId = newVal.split(" - ")[0].replace("Invoice #", "");
                     
                     // Load items from selected production invoice
-                    List<Object[]> itemsData = sqliteDatabase.getProductionItemsByInvoiceId(Integer.parseInt(productionInvoiceId));
+                    List<Object[]> itemsData = database.getProductionItemsByInvoiceId(Integer.parseInt(productionInvoiceId));
                     
                     // Populate the table with available items
                     ObservableList<AvailableProductionItem> availableItems = FXCollections.observableArrayList();
@@ -1652,7 +1689,7 @@ public class ProductionStock {
                 );
                 allCustomerNames.add(displayName);
             }
-            System.out.println("DEBUG: Loaded " + allCustomerNames.size() + " customers for search");
+            Log.debug("Loaded " + allCustomerNames.size() + " customers for search");
         } catch (Exception e) {
             showAlert("Database Error", "Failed to load customers: " + e.getMessage());
         }
@@ -2725,6 +2762,9 @@ public class ProductionStock {
                     totalAmount, itemDiscounts, discount, paidAmount, items);
                     
                     if (success) {
+                        // The number the invoice was saved under, which may differ from the one shown
+                        String savedInvoiceNumber = database.getLastSavedInvoiceNumber();
+
                         // Prepare invoice data for printing
                         List<Item> printItems = new ArrayList<>();
                         for (SalesInvoiceItemUI item : invoiceItems) {
@@ -2752,7 +2792,7 @@ public class ProductionStock {
                         
                         try {
                             // Get all customers and find the matching one to extract details
-                            List<Customer> allCustomers = sqliteDatabase.getAllCustomers();
+                            List<Customer> allCustomers = database.getAllCustomers();
                             for (Customer c : allCustomers) {
                                 if (c.nameProperty().get().equals(customer)) {
                                     contactNumber = c.contactProperty().get();
@@ -2767,7 +2807,7 @@ public class ProductionStock {
                         
                         // Get customer balance details for PDF (use captured previous balance instead of calculating backwards)
                         Object[] balanceDetails = database.getCustomerInvoiceBalanceDetails(
-                            customer, invoiceNumber, currentNetBill, paidAmount, previousBalance
+                            customer, savedInvoiceNumber, currentNetBill, paidAmount, previousBalance
                         );
                         // Use the captured previous balance instead of the calculated one
                         // double previousBalance = (Double) balanceDetails[0]; // Remove this duplicate line
@@ -2777,7 +2817,7 @@ public class ProductionStock {
                         // Create invoice data with proper type and metadata
                         InvoiceData invoiceData = new InvoiceData(
                             InvoiceData.TYPE_SALE,
-                            invoiceNumber,
+                            savedInvoiceNumber,
                             date,
                             customer,
                             "", // Empty address field as requested
@@ -2871,7 +2911,7 @@ public class ProductionStock {
         // Load sales invoices
         List<Object[]> salesInvoices = database.getAllSalesInvoicesForDropdown();
         final ObservableList<String> allInvoiceNumbers = FXCollections.observableArrayList();
-        System.out.println("DEBUG: Loaded " + salesInvoices.size() + " sales invoices for return");
+        Log.debug("Loaded " + salesInvoices.size() + " sales invoices for return");
         for (Object[] invoice : salesInvoices) {
             String displayText = String.format("%s - %s (%s)", 
                 invoice[1], // invoice_number
@@ -3401,7 +3441,7 @@ public class ProductionStock {
                 
                 try {
                     // Get all customers and find the matching one to extract details
-                    List<Customer> customers = sqliteDatabase.getAllCustomers();
+                    List<Customer> customers = database.getAllCustomers();
                     for (Customer c : customers) {
                         if (c.nameProperty().get().equals(customer)) {
                             contactNumber = c.contactProperty().get();
@@ -3450,6 +3490,9 @@ public class ProductionStock {
                 );
                 
                 if (success) {
+                    // The number the return was saved under, which may differ from the one shown
+                    String savedReturnInvoiceNumber = database.getLastSavedInvoiceNumber();
+
                     // Prepare invoice data for printing
                     List<Item> printItems = new ArrayList<>();
                     for (SalesInvoiceItemUI item : returnItems) {
@@ -3481,7 +3524,7 @@ public class ProductionStock {
                     // Create invoice data for printing with proper type and metadata
                     InvoiceData invoiceData = new InvoiceData(
                         InvoiceData.TYPE_SALE_RETURN,
-                        returnInvoiceNumber,
+                        savedReturnInvoiceNumber,
                         date,
                         customer,
                         "", // Empty address field as requested
@@ -3721,148 +3764,145 @@ public class ProductionStock {
     // Load production stock usage report data from database (only production purchase and return invoices)
     private static void loadProductionStockUsageReportData(TableView<UsageReportRecord> table, String startDate, String endDate,
                                           Label totalRecordsLabel, Label productionRecordsLabel, Label rawUsageRecordsLabel) {
-        ObservableList<UsageReportRecord> records = FXCollections.observableArrayList();
-        int productionPurchaseCount = 0;
-        int productionReturnCount = 0;
+        // Keyed by table, so the report window and the form do not cancel each other's loads
+        AsyncTableLoader.loadWith(table, "production.usageReport@" + System.identityHashCode(table),
+            database -> readProductionStockUsageReport(database, startDate, endDate),
+            records -> {
+                table.setItems(FXCollections.observableArrayList(records));
+                long productionPurchaseCount = records.stream().filter(r -> "Production Purchase".equals(r.getType())).count();
+                totalRecordsLabel.setText("Total Records: " + records.size());
+                productionRecordsLabel.setText("Production Purchase Records: " + productionPurchaseCount);
+                rawUsageRecordsLabel.setText("Production Return Records: " + (records.size() - productionPurchaseCount));
+            },
+            error -> {
+                showAlert("Database Error", "Failed to load production stock usage report data: " + error.getMessage());
+                
+                // Reset summary labels on error
+                totalRecordsLabel.setText("Total Records: 0");
+                productionRecordsLabel.setText("Production Purchase Records: 0");
+                rawUsageRecordsLabel.setText("Production Return Records: 0");
+            });
+    }
+
+    // Read the usage report rows on a worker thread, most recent first
+    private static List<UsageReportRecord> readProductionStockUsageReport(db database, String startDate, String endDate) {
+        List<UsageReportRecord> records = new ArrayList<>();
         
-        try {
-            // Load Production Invoice records (Production Stock Purchase)
-            List<Object[]> productionInvoices = database.getAllProductionInvoices();
-            for (Object[] invoice : productionInvoices) {
-                String invoiceDate = (String) invoice[1]; // production_date
+        // Load Production Invoice records (Production Stock Purchase)
+        List<Object[]> productionInvoices = database.getAllProductionInvoices();
+        for (Object[] invoice : productionInvoices) {
+            String invoiceDate = (String) invoice[1]; // production_date
+            
+            // Check if date falls within range
+            if (isDateInRange(invoiceDate, startDate, endDate)) {
+                int invoiceId = (Integer) invoice[0];
+                String notes = (String) invoice[2];
+                String productName = (String) invoice[3];
+                double quantity = ((Number) invoice[4]).doubleValue();
                 
-                // Check if date falls within range
-                if (isDateInRange(invoiceDate, startDate, endDate)) {
-                    int invoiceId = (Integer) invoice[0];
-                    String notes = (String) invoice[2];
-                    String productName = (String) invoice[3];
-                    double quantity = ((Number) invoice[4]).doubleValue();
-                    
-                    // Get additional details for production items
-                    try {
-                        List<Object[]> productionItems = sqliteDatabase.getProductionItemsByInvoiceId(invoiceId);
-                        for (Object[] item : productionItems) {
-                            String itemProductName = (String) item[1];
-                            String brandName = (String) item[2];
-                            double itemQuantity = ((Number) item[3]).doubleValue();
-                            double unitCost = ((Number) item[4]).doubleValue();
-                            
-                            records.add(new UsageReportRecord(
-                                invoiceDate,
-                                "Production Purchase",
-                                "PROD-" + invoiceId,
-                                itemProductName,
-                                brandName,
-                                itemQuantity,
-                                notes != null ? notes : "Production",
-                                unitCost,
-                                itemQuantity * unitCost
-                            ));
-                            productionPurchaseCount++;
-                        }
-                    } catch (Exception e) {
-                        // Fallback - use invoice level data
+                // Get additional details for production items
+                try {
+                    List<Object[]> productionItems = database.getProductionItemsByInvoiceId(invoiceId);
+                    for (Object[] item : productionItems) {
+                        String itemProductName = (String) item[1];
+                        String brandName = (String) item[2];
+                        double itemQuantity = ((Number) item[3]).doubleValue();
+                        double unitCost = ((Number) item[4]).doubleValue();
+                        
                         records.add(new UsageReportRecord(
                             invoiceDate,
                             "Production Purchase",
                             "PROD-" + invoiceId,
-                            productName,
-                            "Unknown",
-                            quantity,
+                            itemProductName,
+                            brandName,
+                            itemQuantity,
                             notes != null ? notes : "Production",
-                            0.0,
-                            0.0
+                            unitCost,
+                            itemQuantity * unitCost
                         ));
-                        productionPurchaseCount++;
                     }
+                } catch (Exception e) {
+                    // Fallback - use invoice level data
+                    records.add(new UsageReportRecord(
+                        invoiceDate,
+                        "Production Purchase",
+                        "PROD-" + invoiceId,
+                        productName,
+                        "Unknown",
+                        quantity,
+                        notes != null ? notes : "Production",
+                        0.0,
+                        0.0
+                    ));
                 }
             }
+        }
+        
+        // Load Production Return Invoice records (Production Stock Return Purchase)
+        List<Object[]> productionReturnInvoices = database.getAllProductionReturnInvoices();
+        for (Object[] invoice : productionReturnInvoices) {
+            String returnDate = (String) invoice[2]; // return_date (corrected index)
             
-            // Load Production Return Invoice records (Production Stock Return Purchase)
-            List<Object[]> productionReturnInvoices = sqliteDatabase.getAllProductionReturnInvoices();
-            for (Object[] invoice : productionReturnInvoices) {
-                String returnDate = (String) invoice[2]; // return_date (corrected index)
+            // Check if date falls within range
+            if (isDateInRange(returnDate, startDate, endDate)) {
+                int returnInvoiceId = (Integer) invoice[0];
+                String returnInvoiceNumber = (String) invoice[1];
+                double totalReturnQuantity = ((Number) invoice[3]).doubleValue();
+                double totalReturnAmount = ((Number) invoice[4]).doubleValue();
+                String notes = (String) invoice[5];
                 
-                // Check if date falls within range
-                if (isDateInRange(returnDate, startDate, endDate)) {
-                    int returnInvoiceId = (Integer) invoice[0];
-                    String returnInvoiceNumber = (String) invoice[1];
-                    double totalReturnQuantity = ((Number) invoice[3]).doubleValue();
-                    double totalReturnAmount = ((Number) invoice[4]).doubleValue();
-                    String notes = (String) invoice[5];
-                    
-                    // Get return invoice items
-                    try {
-                        List<Object[]> returnItems = sqliteDatabase.getProductionReturnInvoiceItems(returnInvoiceId);
-                        for (Object[] item : returnItems) {
-                            int productionId = (Integer) item[1]; // production_id
-                            double returnQuantity = ((Number) item[2]).doubleValue();
-                            double unitCost = ((Number) item[3]).doubleValue();
-                            double totalCost = ((Number) item[4]).doubleValue();
-                            
-                            // Get production stock details
-                            String itemName = "Unknown Item";
-                            String brandName = "Unknown Brand";
-                            try {
-                                itemName = getProductionStockNameById(productionId);
-                                // For now, we'll use "Unknown Brand" as we need brand info from production stock
-                                brandName = "Production Stock";
-                            } catch (Exception e) {
-                                System.err.println("Error getting production stock details: " + e.getMessage());
-                            }
-                            
-                            records.add(new UsageReportRecord(
-                                returnDate,
-                                "Production Return",
-                                returnInvoiceNumber,
-                                itemName,
-                                brandName,
-                                returnQuantity,
-                                notes != null ? notes : "Production Return",
-                                unitCost,
-                                totalCost
-                            ));
-                            productionReturnCount++;
+                // Get return invoice items
+                try {
+                    List<Object[]> returnItems = database.getProductionReturnInvoiceItems(returnInvoiceId);
+                    for (Object[] item : returnItems) {
+                        int productionId = (Integer) item[1]; // production_id
+                        double returnQuantity = ((Number) item[2]).doubleValue();
+                        double unitCost = ((Number) item[3]).doubleValue();
+                        double totalCost = ((Number) item[4]).doubleValue();
+                        
+                        // Get production stock details
+                        String itemName = "Unknown Item";
+                        String brandName = "Unknown Brand";
+                        try {
+                            itemName = getProductionStockNameById(productionId);
+                            // For now, we'll use "Unknown Brand" as we need brand info from production stock
+                            brandName = "Production Stock";
+                        } catch (Exception e) {
+                            System.err.println("Error getting production stock details: " + e.getMessage());
                         }
-                    } catch (Exception e) {
-                        // Fallback - use invoice level data
+                        
                         records.add(new UsageReportRecord(
                             returnDate,
                             "Production Return",
                             returnInvoiceNumber,
-                            "Mixed Production Items",
-                            "Various",
-                            totalReturnQuantity,
+                            itemName,
+                            brandName,
+                            returnQuantity,
                             notes != null ? notes : "Production Return",
-                            totalReturnAmount / totalReturnQuantity,
-                            totalReturnAmount
+                            unitCost,
+                            totalCost
                         ));
-                        productionReturnCount++;
                     }
+                } catch (Exception e) {
+                    // Fallback - use invoice level data
+                    records.add(new UsageReportRecord(
+                        returnDate,
+                        "Production Return",
+                        returnInvoiceNumber,
+                        "Mixed Production Items",
+                        "Various",
+                        totalReturnQuantity,
+                        notes != null ? notes : "Production Return",
+                        totalReturnAmount / totalReturnQuantity,
+                        totalReturnAmount
+                    ));
                 }
             }
-            
-            // Sort records by date (most recent first)
-            records.sort((r1, r2) -> r2.getDate().compareTo(r1.getDate()));
-            
-            // Update table
-            table.setItems(records);
-            
-            // Update summary labels
-            totalRecordsLabel.setText("Total Records: " + records.size());
-            productionRecordsLabel.setText("Production Purchase Records: " + productionPurchaseCount);
-            rawUsageRecordsLabel.setText("Production Return Records: " + productionReturnCount);
-            
-        } catch (Exception e) {
-            System.err.println("Error loading production stock usage report data: " + e.getMessage());
-            e.printStackTrace();
-            showAlert("Database Error", "Failed to load production stock usage report data: " + e.getMessage());
-            
-            // Reset summary labels on error
-            totalRecordsLabel.setText("Total Records: 0");
-            productionRecordsLabel.setText("Production Purchase Records: 0");
-            rawUsageRecordsLabel.setText("Production Return Records: 0");
         }
+        
+        // Sort records by date (most recent first)
+        records.sort((r1, r2) -> r2.getDate().compareTo(r1.getDate()));
+        return records;
     }
     
     // Helper method to check if a date falls within the specified range
@@ -4204,12 +4244,14 @@ public class ProductionStock {
         nameCol.setPrefWidth(180);
         nameCol.setMinWidth(150);
         nameCol.setResizable(true);
+        nameCol.setUserData("name"); // server-side sort key
 
         TableColumn<ProductionStockRecord, String> categoryCol = new TableColumn<>("Category");
         categoryCol.setCellValueFactory(data -> new SimpleStringProperty(data.getValue().getDescription())); // Using description field for category for now
         categoryCol.setPrefWidth(120);
         categoryCol.setMinWidth(100);
         categoryCol.setResizable(true);
+        categoryCol.setUserData("category"); // server-side sort key
 
         TableColumn<ProductionStockRecord, String> manufacturerCol = new TableColumn<>("Manufacturer");
         manufacturerCol.setCellValueFactory(data -> new SimpleStringProperty(data.getValue().getDescription())); // Using brandDescription field for manufacturer for now
@@ -4222,30 +4264,35 @@ public class ProductionStock {
         brandCol.setPrefWidth(130);
         brandCol.setMinWidth(110);
         brandCol.setResizable(true);
+        brandCol.setUserData("brand"); // server-side sort key
         
         TableColumn<ProductionStockRecord, String> unitCol = new TableColumn<>("Unit");
         unitCol.setCellValueFactory(data -> new SimpleStringProperty(data.getValue().getUnit()));
         unitCol.setPrefWidth(80);
         unitCol.setMinWidth(70);
         unitCol.setResizable(true);
+        unitCol.setUserData("unit"); // server-side sort key
         
         TableColumn<ProductionStockRecord, String> quantityCol = new TableColumn<>("Quantity");
         quantityCol.setCellValueFactory(data -> new SimpleStringProperty(String.valueOf(data.getValue().getQuantity())));
         quantityCol.setPrefWidth(100);
         quantityCol.setMinWidth(90);
         quantityCol.setResizable(true);
+        quantityCol.setUserData("quantity"); // server-side sort key
         
         TableColumn<ProductionStockRecord, String> salePriceCol = new TableColumn<>("Sale Price");
         salePriceCol.setCellValueFactory(data -> new SimpleStringProperty(formatNumber(data.getValue().getSalePrice())));
         salePriceCol.setPrefWidth(110);
         salePriceCol.setMinWidth(100);
         salePriceCol.setResizable(true);
+        salePriceCol.setUserData("salePrice"); // server-side sort key
         
         TableColumn<ProductionStockRecord, String> totalValueCol = new TableColumn<>("Total Value");
         totalValueCol.setCellValueFactory(data -> new SimpleStringProperty(formatNumber(data.getValue().getQuantity() * data.getValue().getSalePrice())));
         totalValueCol.setPrefWidth(120);
         totalValueCol.setMinWidth(110);
         totalValueCol.setResizable(true);
+        totalValueCol.setUserData("totalValue"); // server-side sort key
         
         // Add Actions column with Edit and Delete buttons
         TableColumn<ProductionStockRecord, Void> actionsCol = new TableColumn<>("Actions");
@@ -4295,35 +4342,38 @@ public class ProductionStock {
         table.setPrefWidth(1170); // Updated width to accommodate wider Actions column
         table.setMinWidth(980);    // Updated minimum width
         
+        // Search, sort and page in the database; more rows are fetched as the table scrolls
+        new PagedTableModel<>(table, "production.stockTable", STOCK_PAGE_SIZE, "name",
+            (database, filters, sortKey, ascending, offset, limit) ->
+                toStockRecords(database.searchProductionStock(filters, sortKey, ascending, offset, limit)),
+            "Failed to load production stock data");
+        
         return table;
     }
 
     private static void refreshProductionStockTable(TableView<ProductionStockRecord> table) {
-        ObservableList<ProductionStockRecord> data = FXCollections.observableArrayList();
-        
-        try {
-            // Get all production stocks from database
-            List<Object[]> stockList = database.getAllProductionStocks();
-            for (Object[] stock : stockList) {
-                data.add(new ProductionStockRecord(
-                    (Integer) stock[0],   // production_id
-                    (String) stock[1],    // product_name
-                    (String) stock[2],    // product_description (empty string)
-                    (String) stock[3],    // brand_name
-                    (String) stock[4],    // brand_description (empty string)
-                    (String) stock[5] != null ? (String) stock[5] : "N/A",   // unit_name
-                    (Integer) stock[6],   // quantity
-                    (Double) stock[7],    // unit_cost
-                    (Double) stock[8]     // sale_price
-                ));
-            }
-        } catch (Exception e) {
-            System.err.println("ERROR: Failed to refresh production stock table: " + e.getMessage());
-            e.printStackTrace();
-            showAlert("Database Error", "Failed to load production stock data: " + e.getMessage());
+        PagedTableModel<ProductionStockRecord> model = PagedTableModel.of(table);
+        if (model != null) {
+            model.reload();
         }
-        
-        table.setItems(data);
+    }
+
+    private static List<ProductionStockRecord> toStockRecords(List<ProductionStockRow> rows) {
+        List<ProductionStockRecord> records = new ArrayList<>(rows.size());
+        for (ProductionStockRow stock : rows) {
+            records.add(new ProductionStockRecord(
+                stock.productionId(),
+                stock.productName(),
+                stock.categoryName(),     // shown as the product description
+                stock.brandName(),
+                stock.manufacturerName(), // shown as the brand description
+                stock.unitName(),
+                stock.quantity(),
+                stock.unitCost(),
+                stock.salePrice()
+            ));
+        }
+        return records;
     }
 
     // Simple record class for table display
@@ -4698,7 +4748,7 @@ public class ProductionStock {
             // Remove success message - just continue silently
             
             // Clear form
-            invoiceNumberField.setText(sqliteDatabase.generateProductionInvoiceNumber());
+            invoiceNumberField.setText(database.generateProductionInvoiceNumber());
             productionDatePicker.setValue(LocalDate.now());
             notesArea.clear();
             itemsList.getItems().clear();
@@ -4712,65 +4762,26 @@ public class ProductionStock {
 
     // Helper method to get production stock ID by name
     private static int getProductionStockIdByName(String productName) {
-        try {
-            List<Object[]> productionStocks = database.getAllProductionStocksForDropdown();
-            for (Object[] stock : productionStocks) {
-                if (stock[1].toString().equals(productName)) {
-                    return (Integer) stock[0]; // production_id
-                }
-            }
-        } catch (Exception e) {
-            e.printStackTrace();
-        }
-        return -1;
+        ProductCatalogEntry entry = database.findProductCatalogEntry(productName);
+        return entry != null ? entry.productionId() : -1;
     }
 
     // Helper method to get production stock name by ID
     private static String getProductionStockNameById(int productionId) {
-        try {
-            List<Object[]> productionStocks = database.getAllProductionStocksForDropdown();
-            for (Object[] stock : productionStocks) {
-                if (((Integer) stock[0]).equals(productionId)) {
-                    return stock[1].toString(); // product_name
-                }
-            }
-        } catch (Exception e) {
-            e.printStackTrace();
-        }
-        return "Unknown Product";
+        ProductCatalogEntry entry = database.getProductCatalogEntry(productionId);
+        return entry != null ? entry.productName() : "Unknown Product";
     }
 
     // Helper method to get production stock unit cost by production ID
     private static double getProductionStockUnitCost(int productionId) {
-        try {
-            List<Object[]> productionStocks = database.getAllProductionStocksForDropdown();
-            for (Object[] stock : productionStocks) {
-                if (((Integer) stock[0]).equals(productionId)) {
-                    // stock[5] contains unit_cost based on getAllProductionStocksForDropdown structure
-                    return (Double) stock[5]; // unit_cost
-                }
-            }
-        } catch (Exception e) {
-            e.printStackTrace();
-        }
-        return 0.0;
+        ProductCatalogEntry entry = database.getProductCatalogEntry(productionId);
+        return entry != null ? entry.unitCost() : 0.0;
     }
 
     // Helper method to get production stock unit by production ID
     private static String getProductionStockUnit(int productionId) {
-        try {
-            List<Object[]> productionStocks = database.getAllProductionStocksForDropdown();
-            for (Object[] stock : productionStocks) {
-                if (((Integer) stock[0]).equals(productionId)) {
-                    // stock[4] contains unit_name based on getAllProductionStocksForDropdown structure
-                    String unit = (String) stock[4]; // unit_name
-                    return unit != null ? unit : "N/A";
-                }
-            }
-        } catch (Exception e) {
-            e.printStackTrace();
-        }
-        return "N/A";
+        ProductCatalogEntry entry = database.getProductCatalogEntry(productionId);
+        return entry != null ? entry.unitName() : "N/A";
     }
 
     // Handle return production invoice submission
@@ -4860,7 +4871,7 @@ public class ProductionStock {
             }
             
             // Insert return invoice and get ID
-            int returnInvoiceId = sqliteDatabase.insertProductionReturnInvoiceAndGetId(
+            int returnInvoiceId = database.insertProductionReturnInvoiceAndGetId(
                 returnInvoiceNumber, 
                 originalProductionInvoiceId, 
                 formattedDate, 
@@ -4872,7 +4883,7 @@ public class ProductionStock {
             if (returnInvoiceId > 0) {
                 // Insert return invoice items
                 if (!returnInvoiceItems.isEmpty()) {
-                    sqliteDatabase.insertProductionReturnInvoiceItems(returnInvoiceId, returnInvoiceItems);
+                    database.insertProductionReturnInvoiceItems(returnInvoiceId, returnInvoiceItems);
                     
                     // Wrap printing logic in try-catch like Purchase Return
                     try {
@@ -4933,7 +4944,7 @@ public class ProductionStock {
                     
                     // Clear form
                     try {
-                        String newReturnInvoiceNumber = sqliteDatabase.generateProductionReturnInvoiceNumber();
+                        String newReturnInvoiceNumber = database.generateProductionReturnInvoiceNumber();
                         returnInvoiceNumberField.setText(newReturnInvoiceNumber);
                     } catch (Exception e) {
                         returnInvoiceNumberField.setText("Error generating number");
@@ -4963,10 +4974,10 @@ public class ProductionStock {
             // Handle UNIQUE constraint failure by retrying with a new invoice number
             if (e.getMessage() != null && e.getMessage().contains("UNIQUE constraint failed") && originalProductionInvoiceId != -1) {
                 try {
-                    String newReturnInvoiceNumber = sqliteDatabase.generateProductionReturnInvoiceNumber();
+                    String newReturnInvoiceNumber = database.generateProductionReturnInvoiceNumber();
                     
                     // Retry with new invoice number
-                    int retryInvoiceId = sqliteDatabase.insertProductionReturnInvoiceAndGetId(
+                    int retryInvoiceId = database.insertProductionReturnInvoiceAndGetId(
                         newReturnInvoiceNumber, 
                         originalProductionInvoiceId, 
                         formattedDate, 
@@ -4981,7 +4992,7 @@ public class ProductionStock {
                         
                         // Insert return invoice items
                         if (!returnInvoiceItems.isEmpty()) {
-                            sqliteDatabase.insertProductionReturnInvoiceItems(retryInvoiceId, returnInvoiceItems);
+                            database.insertProductionReturnInvoiceItems(retryInvoiceId, returnInvoiceItems);
                             
                             // Continue with printing and form clearing as before
                             try {
@@ -5040,7 +5051,7 @@ public class ProductionStock {
                             
                             // Clear form
                             try {
-                                String newInvoiceNumber = sqliteDatabase.generateProductionReturnInvoiceNumber();
+                                String newInvoiceNumber = database.generateProductionReturnInvoiceNumber();
                                 returnInvoiceNumberField.setText(newInvoiceNumber);
                             } catch (Exception ex) {
                                 returnInvoiceNumberField.setText("Error generating number");
@@ -5255,87 +5266,46 @@ public class ProductionStock {
     
     private static void updateStockSummary(TableView<ProductionStockRecord> stockTable, 
                                          Label totalItemsLabel, Label totalValueLabel, Label lowStockLabel) {
-        try {
-            ObservableList<ProductionStockRecord> items = stockTable.getItems();
-            int totalItems = items.size();
-            double totalValue = 0.0;
-            int lowStockCount = 0;
-            
-            for (ProductionStockRecord record : items) {
-                // Calculate total value (quantity * sale_price)
-                totalValue += record.getQuantity() * record.getSalePrice();
-                
-                // Count low stock items (less than 10)
-                if (record.getQuantity() < 10) {
-                    lowStockCount++;
-                }
-            }
-            
-            totalItemsLabel.setText("Total Items: " + totalItems);
-            totalValueLabel.setText(String.format("Total Value: %.2f", totalValue));
-            
-            if (lowStockCount > 0) {
-                lowStockLabel.setText("Low Stock Items: " + lowStockCount);
-                lowStockLabel.setStyle("-fx-font-size: 14px; -fx-font-weight: bold; -fx-text-fill: #dc3545;");
-            } else {
-                lowStockLabel.setText("Low Stock Items: 0");
-                lowStockLabel.setStyle("-fx-font-size: 14px; -fx-font-weight: bold; -fx-text-fill: #28a745;");
-            }
-            
-        } catch (Exception e) {
-            System.err.println("Error updating stock summary: " + e.getMessage());
-            totalItemsLabel.setText("Total Items: 0");
-            totalValueLabel.setText("Total Value: 0.00");
+        // Totals cover every item matching the current search, not just the loaded pages
+        PagedTableModel<ProductionStockRecord> model = PagedTableModel.of(stockTable);
+        Map<String, String> filters = model != null ? model.getFilters() : new HashMap<>();
+        
+        AsyncTableLoader.run("production.stockSummary",
+            database -> database.getProductionStockSummary(filters),
+            summary -> showStockSummary(summary, totalItemsLabel, totalValueLabel, lowStockLabel),
+            error -> {
+                System.err.println("Error updating stock summary: " + error.getMessage());
+                showStockSummary(new ProductionStockSummary(0, 0.0, 0), totalItemsLabel, totalValueLabel, lowStockLabel);
+            });
+    }
+    
+    private static void showStockSummary(ProductionStockSummary summary,
+                                         Label totalItemsLabel, Label totalValueLabel, Label lowStockLabel) {
+        totalItemsLabel.setText("Total Items: " + summary.totalItems());
+        totalValueLabel.setText(String.format("Total Value: %.2f", summary.totalValue()));
+        
+        if (summary.lowStockItems() > 0) {
+            lowStockLabel.setText("Low Stock Items: " + summary.lowStockItems());
+            lowStockLabel.setStyle("-fx-font-size: 14px; -fx-font-weight: bold; -fx-text-fill: #dc3545;");
+        } else {
             lowStockLabel.setText("Low Stock Items: 0");
+            lowStockLabel.setStyle("-fx-font-size: 14px; -fx-font-weight: bold; -fx-text-fill: #28a745;");
         }
     }
     
     private static void filterProductionStockTable(TableView<ProductionStockRecord> stockTable, 
                                                  String searchText, String brandFilter) {
-        try {
-            // Get all production stock from database
-            List<Object[]> allStock = database.getAllProductionStocks();
-            ObservableList<ProductionStockRecord> filteredRecords = FXCollections.observableArrayList();
-            
-            for (Object[] stock : allStock) {
-                int productionId = (Integer) stock[0];
-                String productName = (String) stock[1];
-                String productDesc = (String) stock[2];
-                String brandName = (String) stock[3];
-                String brandDesc = (String) stock[4];
-                String unitName = (String) stock[5];
-                int quantity = (Integer) stock[6];
-                double unitCost = (Double) stock[7];
-                double salePrice = (Double) stock[8];
-                
-                boolean matchesSearch = true;
-                boolean matchesBrand = true;
-                
-                // Apply search filter
-                if (searchText != null && !searchText.trim().isEmpty()) {
-                    String search = searchText.toLowerCase();
-                    matchesSearch = productName.toLowerCase().contains(search) || 
-                                  brandName.toLowerCase().contains(search);
-                }
-                
-                // Apply brand filter
-                if (brandFilter != null && !brandFilter.equals("All Brands")) {
-                    matchesBrand = brandName.equals(brandFilter);
-                }
-                
-                if (matchesSearch && matchesBrand) {
-                    filteredRecords.add(new ProductionStockRecord(
-                        productionId, productName, productDesc, brandName, brandDesc, unitName, 
-                        quantity, unitCost, salePrice
-                    ));
-                }
-            }
-            
-            stockTable.setItems(filteredRecords);
-            
-        } catch (Exception e) {
-            System.err.println("Error filtering production stock table: " + e.getMessage());
-            showAlert("Error", "Failed to filter table: " + e.getMessage());
+        Map<String, String> filters = new HashMap<>();
+        if (searchText != null && !searchText.trim().isEmpty()) {
+            filters.put("search", searchText.trim());
+        }
+        if (brandFilter != null && !brandFilter.equals("All Brands")) {
+            filters.put("brand", brandFilter);
+        }
+        
+        PagedTableModel<ProductionStockRecord> model = PagedTableModel.of(stockTable);
+        if (model != null) {
+            model.setFilters(filters);
         }
     }
 
@@ -5742,6 +5712,7 @@ public class ProductionStock {
             
             int rowsAffected = pstmt.executeUpdate();
             pstmt.close();
+            database.invalidateProductCatalog();
             
             return rowsAffected > 0;
         } catch (Exception e) {
@@ -1,5 +1,6 @@
 package com.cablemanagement.views.pages;
 
+import com.cablemanagement.Log;
 import javafx.application.Platform;
 import javafx.beans.property.SimpleStringProperty;
 import javafx.collections.FXCollections;
@@ -19,8 +20,10 @@ import javafx.stage.Modality;
 import javafx.stage.Popup;
 import javafx.stage.Stage;
 import java.io.File;
-import java.io.FileWriter;
 import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.time.format.DateTimeFormatter;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
@@ -28,11 +31,11 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 
-import com.cablemanagement.database.SQLiteDatabase;
 import com.cablemanagement.database.db;
 import com.cablemanagement.model.Brand;
 import com.cablemanagement.model.RawStockPurchaseItem;
 import com.cablemanagement.model.RawStockUseItem;
+import com.cablemanagement.model.SearchResult;
 import com.cablemanagement.invoice.Item;
 import com.cablemanagement.invoice.InvoiceData;
 import com.cablemanagement.invoice.PrintManager;
@@ -40,14 +43,25 @@ import com.cablemanagement.invoice.PrintManager;
 public class RawStock {
 
     private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd");
-    private static final db database = new SQLiteDatabase();
+    private static final db database = com.cablemanagement.config.database;
 
     public static Node get() {
+        return open(null);
+    }
+
+    /**
+     * The Raw Stock page with an item found by the global search selected in the stock table
+     * @param hit the search hit, or null to open the page as usual
+     */
+    public static Node open(SearchResult hit) {
         BorderPane mainLayout = new BorderPane();
         mainLayout.setPadding(new Insets(20));
 
         StackPane formArea = new StackPane();
         formArea.getChildren().add(createRawStockForm());
+        if (hit != null) {
+            GlobalSearchBox.selectHit(rawStockTable, record -> record.getId() != null && record.getId() == hit.entityId());
+        }
 
         HBox buttonBar = createButtonBar(formArea);
 
@@ -169,17 +183,17 @@ public class RawStock {
         for (Brand b : database.getAllBrands()) {
             allBrands.add(b.nameProperty().get());
         }
-        System.out.println("DEBUG: Loaded " + allBrands.size() + " brands: " + allBrands);
+        Log.debug("Loaded " + allBrands.size() + " brands: " + allBrands);
         
         rawStockBrandField.textProperty().addListener((observable, oldValue, newValue) -> {
-            System.out.println("DEBUG: Brand field text changed to: '" + newValue + "'");
+            Log.debug("Brand field text changed to: '" + newValue + "'");
             if (newValue.trim().isEmpty()) {
                 brandPopup.hide();
-                System.out.println("DEBUG: Hiding brand suggestions (empty text)");
+                Log.debug("Hiding brand suggestions (empty text)");
             } else {
                 ObservableList<String> filteredBrands = allBrands.filtered(brand -> 
                     brand.toLowerCase().contains(newValue.toLowerCase()));
-                System.out.println("DEBUG: Filtered brands: " + filteredBrands.size() + " matches");
+                Log.debug("Filtered brands: " + filteredBrands.size() + " matches");
                 if (!filteredBrands.isEmpty()) {
                     brandSuggestions.setItems(filteredBrands);
                     if (!brandPopup.isShowing()) {
@@ -187,10 +201,10 @@ public class RawStock {
                         Bounds bounds = rawStockBrandField.localToScreen(rawStockBrandField.getBoundsInLocal());
                         brandPopup.show(rawStockBrandField, bounds.getMinX(), bounds.getMaxY());
                     }
-                    System.out.println("DEBUG: Brand suggestions visible: true");
+                    Log.debug("Brand suggestions visible: true");
                 } else {
                     brandPopup.hide();
-                    System.out.println("DEBUG: No brand matches, hiding popup");
+                    Log.debug("No brand matches, hiding popup");
                 }
             }
         });
@@ -200,7 +214,7 @@ public class RawStock {
             if (selected != null) {
                 rawStockBrandField.setText(selected);
                 brandPopup.hide();
-                System.out.println("DEBUG: Brand selected: " + selected);
+                Log.debug("Brand selected: " + selected);
             }
         });
         
@@ -223,17 +237,17 @@ public class RawStock {
         
         ObservableList<String> allCategories = FXCollections.observableArrayList();
         allCategories.addAll(database.getAllCategories());
-        System.out.println("DEBUG: Loaded " + allCategories.size() + " categories: " + allCategories);
+        Log.debug("Loaded " + allCategories.size() + " categories: " + allCategories);
         
         rawStockCategoryField.textProperty().addListener((observable, oldValue, newValue) -> {
-            System.out.println("DEBUG: Category field text changed to: '" + newValue + "'");
+            Log.debug("Category field text changed to: '" + newValue + "'");
             if (newValue.trim().isEmpty()) {
                 categoryPopup.hide();
-                System.out.println("DEBUG: Hiding category suggestions (empty text)");
+                Log.debug("Hiding category suggestions (empty text)");
             } else {
                 ObservableList<String> filteredCategories = allCategories.filtered(category -> 
                     category.toLowerCase().contains(newValue.toLowerCase()));
-                System.out.println("DEBUG: Filtered categories: " + filteredCategories.size() + " matches");
+                Log.debug("Filtered categories: " + filteredCategories.size() + " matches");
                 if (!filteredCategories.isEmpty()) {
                     categorySuggestions.setItems(filteredCategories);
                     if (!categoryPopup.isShowing()) {
@@ -241,10 +255,10 @@ public class RawStock {
                         Bounds bounds = rawStockCategoryField.localToScreen(rawStockCategoryField.getBoundsInLocal());
                         categoryPopup.show(rawStockCategoryField, bounds.getMinX(), bounds.getMaxY());
                     }
-                    System.out.println("DEBUG: Category suggestions visible: true");
+                    Log.debug("Category suggestions visible: true");
                 } else {
                     categoryPopup.hide();
-                    System.out.println("DEBUG: No category matches, hiding popup");
+                    Log.debug("No category matches, hiding popup");
                 }
             }
         });
@@ -254,7 +268,7 @@ public class RawStock {
             if (selected != null) {
                 rawStockCategoryField.setText(selected);
                 categoryPopup.hide();
-                System.out.println("DEBUG: Category selected: " + selected);
+                Log.debug("Category selected: " + selected);
             }
         });
         
@@ -280,17 +294,17 @@ public class RawStock {
         
         ObservableList<String> allUnits = FXCollections.observableArrayList();
         allUnits.addAll(database.getAllUnits());
-        System.out.println("DEBUG: Loaded " + allUnits.size() + " units: " + allUnits);
+        Log.debug("Loaded " + allUnits.size() + " units: " + allUnits);
         
         rawStockUnitField.textProperty().addListener((observable, oldValue, newValue) -> {
-            System.out.println("DEBUG: Unit field text changed to: '" + newValue + "'");
+            Log.debug("Unit field text changed to: '" + newValue + "'");
             if (newValue.trim().isEmpty()) {
                 unitPopup.hide();
-                System.out.println("DEBUG: Hiding unit suggestions (empty text)");
+                Log.debug("Hiding unit suggestions (empty text)");
             } else {
                 ObservableList<String> filteredUnits = allUnits.filtered(unit -> 
                     unit.toLowerCase().contains(newValue.toLowerCase()));
-                System.out.println("DEBUG: Filtered units: " + filteredUnits.size() + " matches");
+                Log.debug("Filtered units: " + filteredUnits.size() + " matches");
                 unitSuggestions.setItems(filteredUnits);
                 
                 if (!filteredUnits.isEmpty()) {
@@ -301,7 +315,7 @@ public class RawStock {
                 } else {
                     unitPopup.hide();
                 }
-                System.out.println("DEBUG: Unit suggestions showing: " + unitPopup.isShowing());
+                Log.debug("Unit suggestions showing: " + unitPopup.isShowing());
             }
         });
         
@@ -340,17 +354,17 @@ public class RawStock {
         
         ObservableList<String> allSuppliers = FXCollections.observableArrayList();
         allSuppliers.addAll(database.getAllSupplierNamesWithTehsil());
-        System.out.println("DEBUG: Loaded " + allSuppliers.size() + " suppliers with tehsil: " + allSuppliers);
+        Log.debug("Loaded " + allSuppliers.size() + " suppliers with tehsil: " + allSuppliers);
         
         rawStockSupplierField.textProperty().addListener((observable, oldValue, newValue) -> {
-            System.out.println("DEBUG: Supplier field text changed to: '" + newValue + "'");
+            Log.debug("Supplier field text changed to: '" + newValue + "'");
             if (newValue.trim().isEmpty()) {
                 supplierPopup.hide();
-                System.out.println("DEBUG: Hiding supplier suggestions (empty text)");
+                Log.debug("Hiding supplier suggestions (empty text)");
             } else {
                 ObservableList<String> filteredSuppliers = allSuppliers.filtered(supplier -> 
                     supplier.toLowerCase().contains(newValue.toLowerCase()));
-                System.out.println("DEBUG: Filtered suppliers: " + filteredSuppliers.size() + "matches");
+                Log.debug("Filtered suppliers: " + filteredSuppliers.size() + "matches");
                 supplierSuggestions.setItems(filteredSuppliers);
                 
                 if (!filteredSuppliers.isEmpty()) {
@@ -361,7 +375,7 @@ public class RawStock {
                 } else {
                     supplierPopup.hide();
                 }
-                System.out.println("DEBUG: Supplier suggestions showing: " + supplierPopup.isShowing());
+                Log.debug("Supplier suggestions showing: " + supplierPopup.isShowing());
             }
         });
         
@@ -591,26 +605,24 @@ public class RawStock {
     }
 
     private static void refreshRawStockTable(TableView<RawStockRecord> table) {
-        ObservableList<RawStockRecord> data = FXCollections.observableArrayList();
-        List<Object[]> rawStocks = database.getAllRawStocks();
-
-        
-        for (Object[] row : rawStocks) {
-            System.out.println("Raw stock data: " + row[0] + ", " + row[1] + ", " + row[2] + ", " + row[3] + ", " + row[4] + ", " + row[5] + ", " + row[6] + ", " + row[7] + ", " + row[8]);
-            data.add(new RawStockRecord(
-                (Integer) row[0],  // stock_id
-                (String) row[1],   // item_name
-                (String) row[3],   // category_name
-                (String) row[4],   // manufacturer_name
-                (String) row[2],   // brand_name
-                (String) row[5],   // unit_name
-                (Double) row[6],   // quantity
-                (Double) row[7],   // unit_price
-                (Double) row[8]    // total_cost
-            ));
-        }
-        
-        table.setItems(data);
+        AsyncTableLoader.load(table, "rawStock.stock", database -> {
+            List<RawStockRecord> data = new ArrayList<>();
+            for (Object[] row : database.getAllRawStocks()) {
+                data.add(new RawStockRecord(
+                    (Integer) row[0],  // stock_id
+                    (String) row[1],   // item_name
+                    (String) row[3],   // category_name
+                    (String) row[4],   // manufacturer_name
+                    (String) row[2],   // brand_name
+                    (String) row[5],   // unit_name
+                    (Double) row[6],   // quantity
+                    (Double) row[7],   // unit_price
+                    (Double) row[8]    // total_cost
+                ));
+            }
+            Log.debug("Raw stock rows loaded: " + data.size());
+            return data;
+        }, "Failed to load raw stock");
     }
 
     private static VBox createRawStockPurchaseInvoiceForm() {
@@ -651,17 +663,17 @@ public class RawStock {
         
         ObservableList<String> allSuppliers = FXCollections.observableArrayList();
         allSuppliers.addAll(database.getAllSupplierNamesWithTehsil());
-        System.out.println("DEBUG: Purchase Invoice - Loaded " + allSuppliers.size() + " suppliers with tehsil: " + allSuppliers);
+        Log.debug("Purchase Invoice - Loaded " + allSuppliers.size() + " suppliers with tehsil: " + allSuppliers);
         
         supplierField.textProperty().addListener((observable, oldValue, newValue) -> {
-            System.out.println("DEBUG: Purchase Invoice - Supplier field text changed to: '" + newValue + "'");
+            Log.debug("Purchase Invoice - Supplier field text changed to: '" + newValue + "'");
             if (newValue.trim().isEmpty()) {
                 supplierPopup.hide();
-                System.out.println("DEBUG: Purchase Invoice - Hiding supplier suggestions (empty text)");
+                Log.debug("Purchase Invoice - Hiding supplier suggestions (empty text)");
             } else {
                 ObservableList<String> filteredSuppliers = allSuppliers.filtered(supplier -> 
                     supplier.toLowerCase().contains(newValue.toLowerCase()));
-                System.out.println("DEBUG: Purchase Invoice - Filtered suppliers: " + filteredSuppliers.size() + " matches");
+                Log.debug("Purchase Invoice - Filtered suppliers: " + filteredSuppliers.size() + " matches");
                 supplierSuggestions.setItems(filteredSuppliers);
                 
                 if (!filteredSuppliers.isEmpty()) {
@@ -672,7 +684,7 @@ public class RawStock {
                 } else {
                     supplierPopup.hide();
                 }
-                System.out.println("DEBUG: Purchase Invoice - Supplier suggestions showing: " + supplierPopup.isShowing());
+                Log.debug("Purchase Invoice - Supplier suggestions showing: " + supplierPopup.isShowing());
             }
         });
         
@@ -681,7 +693,7 @@ public class RawStock {
             if (selected != null) {
                 supplierField.setText(selected);
                 supplierPopup.hide();
-                System.out.println("DEBUG: Purchase Invoice - Supplier selected: " + selected);
+                Log.debug("Purchase Invoice - Supplier selected: " + selected);
             }
         });
         
@@ -744,18 +756,18 @@ public class RawStock {
             String displayName = String.format("%s (%s - %s)", stock[1], stock[2], stock[3]); // name (category - brand)
             allRawStocks.add(displayName);
         }
-        System.out.println("DEBUG: Purchase Invoice - Loaded " + allRawStocks.size() + " raw stocks");
+        Log.debug("Purchase Invoice - Loaded " + allRawStocks.size() + " raw stocks");
         
         rawStockField.textProperty().addListener((observable, oldValue, newValue) -> {
-            System.out.println("DEBUG: Purchase Invoice - Raw stock field text changed to: '" + newValue + "'");
+            Log.debug("Purchase Invoice - Raw stock field text changed to: '" + newValue + "'");
             if (newValue.trim().isEmpty()) {
                 rawStockPopup.hide();
                 unitPriceField.clear();
-                System.out.println("DEBUG: Purchase Invoice - Hiding raw stock suggestions (empty text)");
+                Log.debug("Purchase Invoice - Hiding raw stock suggestions (empty text)");
             } else {
                 ObservableList<String> filteredRawStocks = allRawStocks.filtered(stock -> 
                     stock.toLowerCase().contains(newValue.toLowerCase()));
-                System.out.println("DEBUG: Purchase Invoice - Filtered raw stocks: " + filteredRawStocks.size() + " matches");
+                Log.debug("Purchase Invoice - Filtered raw stocks: " + filteredRawStocks.size() + " matches");
                 rawStockSuggestions.setItems(filteredRawStocks);
                 
                 if (!filteredRawStocks.isEmpty()) {
@@ -766,7 +778,7 @@ public class RawStock {
                 } else {
                     rawStockPopup.hide();
                 }
-                System.out.println("DEBUG: Purchase Invoice - Raw stock suggestions showing: " + rawStockPopup.isShowing());
+                Log.debug("Purchase Invoice - Raw stock suggestions showing: " + rawStockPopup.isShowing());
             }
         });
         
@@ -775,7 +787,7 @@ public class RawStock {
             if (selected != null) {
                 rawStockField.setText(selected);
                 rawStockPopup.hide();
-                System.out.println("DEBUG: Purchase Invoice - Raw stock selected: " + selected);
+                Log.debug("Purchase Invoice - Raw stock selected: " + selected);
                 
                 // Auto-fill price when raw stock is selected
                 if (selected != null && !selected.isEmpty()) {
@@ -787,7 +799,7 @@ public class RawStock {
                         if (stockName.equals(stock[1])) { // stock[1] is the item_name
                             double unitPrice = ((Number) stock[5]).doubleValue(); // stock[5] is unit_price
                             unitPriceField.setText(String.format("%.2f", unitPrice));
-                            System.out.println("DEBUG: Purchase Invoice - Auto-filled price: " + unitPrice);
+                            Log.debug("Purchase Invoice - Auto-filled price: " + unitPrice);
                             break;
                         }
                     }
@@ -910,15 +922,15 @@ public class RawStock {
             // Get supplier details early to ensure we have them - use extracted supplier name
             Object[] supplierDetailsBeforeSubmit = database.getSupplierDetails(capturedSupplierName);
             // Debug print supplier details before any database operations
-            System.out.println("DEBUG: Supplier details before submit:");
+            Log.debug("Supplier details before submit:");
             if (supplierDetailsBeforeSubmit != null) {
-                System.out.println("  Array length: " + supplierDetailsBeforeSubmit.length);
+                Log.debug("  Array length: " + supplierDetailsBeforeSubmit.length);
                 for (int i = 0; i < supplierDetailsBeforeSubmit.length; i++) {
                     Object value = supplierDetailsBeforeSubmit[i];
-                    System.out.println("  Index " + i + ": " + (value != null ? value.toString() + " (Type: " + value.getClass().getSimpleName() + ")" : "null"));
+                    Log.debug("  Index " + i + ": " + (value != null ? value.toString() + " (Type: " + value.getClass().getSimpleName() + ")" : "null"));
                 }
             } else {
-                System.out.println("  Supplier details array is null");
+                Log.debug("  Supplier details array is null");
             }
             // Capture item data before any clearing happens
             List<RawStockPurchaseItem> capturedItems = new ArrayList<>(itemsTable.getItems());
@@ -927,12 +939,11 @@ public class RawStock {
             double capturedDiscount = discountField.getText().trim().isEmpty() ? 0.0 : Double.parseDouble(discountField.getText().trim());
             double capturedPaidAmount = paidAmountField.getText().trim().isEmpty() ? 0.0 : Double.parseDouble(paidAmountField.getText().trim());
             
-            // CRITICAL: Capture the invoice number BEFORE calling submit method to prevent using the new number generated after form clear
-            String capturedInvoiceNumber = invoiceNumberField.getText();
-            
             if (handleEnhancedPurchaseInvoiceSubmit(
                 invoiceNumberField, supplierField, invoiceDatePicker,
                 itemsTable, discountField, paidAmountField, totalLabel)) {
+                // The number the invoice was saved under, which may differ from the one shown
+                String savedInvoiceNumber = database.getLastSavedInvoiceNumber();
                     
                 // Prepare invoice data for printing using the captured items
                 List<Item> printItems = new ArrayList<>();
@@ -959,7 +970,7 @@ public class RawStock {
                 } else {
                     System.out.println("Supplier details array length: " + supplierDetailsBeforeSubmit.length);
                     for (int i = 0; i < supplierDetailsBeforeSubmit.length; i++) {
-                        System.out.println("  details[" + i + "]: " + 
+                        Log.debug("  details[" + i + "]: " + 
                             (supplierDetailsBeforeSubmit[i] != null ? supplierDetailsBeforeSubmit[i].toString() : "null"));
                     }
                 }
@@ -983,16 +994,16 @@ public class RawStock {
                 double totalAfterDiscount = totalBeforeDiscount - invoiceDiscount; // Subtract discount from total
                 double balance = totalAfterDiscount - invoicePaidAmount;
                 
-                System.out.println("DEBUG: Invoice totals:");
-                System.out.println("  Total before discount: " + totalBeforeDiscount);
-                System.out.println("  Discount amount: " + invoiceDiscount);
-                System.out.println("  Total after discount: " + totalAfterDiscount);
-                System.out.println("  Paid amount: " + invoicePaidAmount);
-                System.out.println("  Balance: " + balance);
+                Log.debug("Invoice totals:");
+                Log.debug("  Total before discount: " + totalBeforeDiscount);
+                Log.debug("  Discount amount: " + invoiceDiscount);
+                Log.debug("  Total after discount: " + totalAfterDiscount);
+                Log.debug("  Paid amount: " + invoicePaidAmount);
+                Log.debug("  Balance: " + balance);
                 
                 // Get supplier balance details for PDF using the total AFTER discount
                 Object[] balanceDetails = database.getSupplierInvoiceBalanceDetails(
-                    capturedSupplierName, capturedInvoiceNumber, totalAfterDiscount, invoicePaidAmount
+                    capturedSupplierName, savedInvoiceNumber, totalAfterDiscount, invoicePaidAmount
                 );
                 double previousBalance = (Double) balanceDetails[0];
                 double totalBalance = (Double) balanceDetails[1];
@@ -1000,7 +1011,7 @@ public class RawStock {
 
                 // Create invoice data object using factory method
                 InvoiceData invoiceData = InvoiceData.createPurchaseInvoice(
-                    capturedInvoiceNumber,
+                    savedInvoiceNumber,
                     invoiceDatePicker.getValue().format(DATE_FORMATTER),
                     capturedSupplierName,
                     "",  // Empty address as we're using metadata instead
@@ -1079,17 +1090,17 @@ private static ScrollPane createRawStockReturnPurchaseInvoiceForm() {
         String displayText = String.format("%s - %s (%.2f)", invoice[1], invoice[2], (Double) invoice[4]);
         allOriginalInvoices.add(displayText);
     }
-    System.out.println("DEBUG: Return Invoice - Loaded " + allOriginalInvoices.size() + " original invoices");
+    Log.debug("Return Invoice - Loaded " + allOriginalInvoices.size() + " original invoices");
     
     originalInvoiceField.textProperty().addListener((observable, oldValue, newValue) -> {
-        System.out.println("DEBUG: Return Invoice - Original invoice field text changed to: '" + newValue + "'");
+        Log.debug("Return Invoice - Original invoice field text changed to: '" + newValue + "'");
         if (newValue.trim().isEmpty()) {
             originalInvoicePopup.hide();
-            System.out.println("DEBUG: Return Invoice - Hiding original invoice suggestions (empty text)");
+            Log.debug("Return Invoice - Hiding original invoice suggestions (empty text)");
         } else {
             ObservableList<String> filteredInvoices = allOriginalInvoices.filtered(invoice -> 
                 invoice.toLowerCase().contains(newValue.toLowerCase()));
-            System.out.println("DEBUG: Return Invoice - Filtered invoices: " + filteredInvoices.size() + " matches");
+            Log.debug("Return Invoice - Filtered invoices: " + filteredInvoices.size() + " matches");
             originalInvoiceSuggestions.setItems(filteredInvoices);
             
             if (!filteredInvoices.isEmpty()) {
@@ -1100,7 +1111,7 @@ private static ScrollPane createRawStockReturnPurchaseInvoiceForm() {
             } else {
                 originalInvoicePopup.hide();
             }
-            System.out.println("DEBUG: Return Invoice - Original invoice suggestions showing: " + originalInvoicePopup.isShowing());
+            Log.debug("Return Invoice - Original invoice suggestions showing: " + originalInvoicePopup.isShowing());
         }
     });
     
@@ -1128,7 +1139,7 @@ private static ScrollPane createRawStockReturnPurchaseInvoiceForm() {
         if (selected != null) {
             originalInvoiceField.setText(selected);
             originalInvoicePopup.hide();
-            System.out.println("DEBUG: Return Invoice - Original invoice selected: " + selected);
+            Log.debug("Return Invoice - Original invoice selected: " + selected);
             
             // Auto-populate supplier and load items
             handleOriginalInvoiceSelectionForField(selected, supplierComboBox, availableItemsTable);
@@ -1232,11 +1243,11 @@ private static ScrollPane createRawStockReturnPurchaseInvoiceForm() {
             if (displayText.equals(selected)) {
                 supplierComboBox.setValue((String) invoice[2]);
                 int invoiceId = (Integer) invoice[0];
-                System.out.println("DEBUG: Loading items for invoice ID: " + invoiceId);
+                Log.debug("Loading items for invoice ID: " + invoiceId);
                 List<Object[]> items = database.getRawStockItemsByInvoiceId(invoiceId);
                 ObservableList<RawStockPurchaseItem> itemsList = FXCollections.observableArrayList();
                 for (Object[] item : items) {
-                    System.out.println("DEBUG: Processing item with " + item.length + " elements");
+                    Log.debug("Processing item with " + item.length + " elements");
                     RawStockPurchaseItem purchaseItem = new RawStockPurchaseItem(
                         (Integer) item[0],    // rawStockId
                         (String) item[1],     // rawStockName (item_name)
@@ -1248,9 +1259,9 @@ private static ScrollPane createRawStockReturnPurchaseInvoiceForm() {
                         (String) item[5]      // unitName
                     );
                     itemsList.add(purchaseItem);
-                    System.out.println("DEBUG: Added item to list: " + purchaseItem.getRawStockName());
+                    Log.debug("Added item to list: " + purchaseItem.getRawStockName());
                 }
-                System.out.println("DEBUG: Setting " + itemsList.size() + " items to availableItemsTable");
+                Log.debug("Setting " + itemsList.size() + " items to availableItemsTable");
                 availableItemsTable.setItems(itemsList);
                 break;
             }
@@ -1531,6 +1542,9 @@ private static TableView<RawStockPurchaseItem> createAvailableItemsTable() {
                 returnInvoiceNumber, originalInvoiceId, supplierId, returnDate, totalAmount);
             
             if (returnInvoiceId > 0) {
+                // Print the number the return was saved under, which may differ from the one shown
+                returnInvoiceNumber = database.getLastSavedInvoiceNumber();
+
                 // Insert return invoice items and update stock quantities
                 List<RawStockPurchaseItem> items = new ArrayList<>(selectedItemsTable.getItems());
                 boolean itemsInserted = database.insertRawPurchaseReturnInvoiceItems(returnInvoiceId, items);
@@ -1888,6 +1902,9 @@ private static TableView<RawStockPurchaseItem> createAvailableItemsTable() {
                 int invoiceId = database.insertRawStockUseInvoiceAndGetId(invoiceNumber, usageDate, totalAmount, referencePurpose);
                 
                 if (invoiceId > 0) {
+                    // Print the number the invoice was saved under, which may differ from the one shown
+                    invoiceNumber = database.getLastSavedInvoiceNumber();
+
                     List<RawStockUseItem> items = new ArrayList<>(selectedItemsTable.getItems());
                     boolean itemsInserted = database.insertRawStockUseInvoiceItems(invoiceId, items);
                     
@@ -2019,16 +2036,20 @@ private static TableView<RawStockPurchaseItem> createAvailableItemsTable() {
                 String reportType = reportTypeCombo.getValue();
                 
                 // Generate summary statistics for the main form
-                Object[] summaryStats = database.getUsageSummaryStatistics(startDate, endDate);
-                if (summaryStats != null && summaryStats.length > 0) {
-                    totalInvoicesLabel.setText("Total Invoices: " + summaryStats[0]);
-                    uniqueItemsLabel.setText("Unique Items Used: " + summaryStats[1]);
-                    totalValueLabel.setText("Total Value Used: " + String.format("%.2f", Double.parseDouble(summaryStats[2].toString())));
-                } else {
-                    totalInvoicesLabel.setText("Total Invoices: 0");
-                    uniqueItemsLabel.setText("Unique Items Used: 0");
-                    totalValueLabel.setText("Total Value Used: 0.00");
-                }
+                AsyncTableLoader.run("rawStock.usageSummary",
+                    database -> database.getUsageSummaryStatistics(startDate, endDate),
+                    summaryStats -> {
+                        if (summaryStats != null && summaryStats.length > 0) {
+                            totalInvoicesLabel.setText("Total Invoices: " + summaryStats[0]);
+                            uniqueItemsLabel.setText("Unique Items Used: " + summaryStats[1]);
+                            totalValueLabel.setText("Total Value Used: " + String.format("%.2f", Double.parseDouble(summaryStats[2].toString())));
+                        } else {
+                            totalInvoicesLabel.setText("Total Invoices: 0");
+                            uniqueItemsLabel.setText("Unique Items Used: 0");
+                            totalValueLabel.setText("Total Value Used: 0.00");
+                        }
+                    },
+                    error -> showAlert("Error", "Failed to load usage summary: " + error.getMessage()));
                 
                 // Show report in a new window
                 showReportInNewWindow(reportType, startDate, endDate);
@@ -2050,10 +2071,8 @@ private static TableView<RawStockPurchaseItem> createAvailableItemsTable() {
         return form;
     }
 
-    private static void generateSummaryReport(VBox reportContent, String startDate, String endDate) {
+    private static void generateSummaryReport(VBox reportContent, List<Object[]> usageData, String startDate, String endDate) {
         try {
-            List<Object[]> usageData = database.getRawStockUsageReportByDateRange(startDate, endDate);
-            
             if (usageData.isEmpty()) {
                 reportContent.getChildren().add(new Label("No usage data found for the selected date range."));
                 return;
@@ -2101,10 +2120,8 @@ private static TableView<RawStockPurchaseItem> createAvailableItemsTable() {
         }
     }
 
-    private static void generateDetailedReport(VBox reportContent, String startDate, String endDate) {
+    private static void generateDetailedReport(VBox reportContent, List<Object[]> detailData, String startDate, String endDate) {
         try {
-            List<Object[]> detailData = database.getRawStockUsageDetails(startDate, endDate);
-            
             if (detailData.isEmpty()) {
                 reportContent.getChildren().add(new Label("No detailed usage data found for the selected date range."));
                 return;
@@ -2158,10 +2175,8 @@ private static TableView<RawStockPurchaseItem> createAvailableItemsTable() {
         }
     }
 
-    private static void generateItemUsageReport(VBox reportContent, String startDate, String endDate) {
+    private static void generateItemUsageReport(VBox reportContent, List<Object[]> usageData, String startDate, String endDate) {
         try {
-            List<Object[]> usageData = database.getRawStockUsageReportByDateRange(startDate, endDate);
-            
             if (usageData.isEmpty()) {
                 reportContent.getChildren().add(new Label("No item usage data found for the selected date range."));
                 return;
@@ -2226,22 +2241,27 @@ private static TableView<RawStockPurchaseItem> createAvailableItemsTable() {
         VBox reportContent = new VBox(10);
         reportScrollPane.setContent(reportContent);
         
-        // Generate the selected report type
-        try {
-            switch (reportType) {
-                case "Summary Report":
-                    generateSummaryReport(reportContent, startDate, endDate);
-                    break;
-                case "Detailed Report":
-                    generateDetailedReport(reportContent, startDate, endDate);
-                    break;
-                case "Item Usage Report":
-                    generateItemUsageReport(reportContent, startDate, endDate);
-                    break;
-            }
-        } catch (Exception ex) {
-            reportContent.getChildren().add(new Label("Error generating report: " + ex.getMessage()));
-        }
+        // Query in the background and fill the window once the rows arrive
+        reportContent.getChildren().add(new Label("Loading..."));
+        AsyncTableLoader.run("rawStock.usageReport@" + System.identityHashCode(reportStage),
+            database -> "Detailed Report".equals(reportType)
+                ? database.getRawStockUsageDetails(startDate, endDate)
+                : database.getRawStockUsageReportByDateRange(startDate, endDate),
+            rows -> {
+                reportContent.getChildren().clear();
+                switch (reportType) {
+                    case "Summary Report":
+                        generateSummaryReport(reportContent, rows, startDate, endDate);
+                        break;
+                    case "Detailed Report":
+                        generateDetailedReport(reportContent, rows, startDate, endDate);
+                        break;
+                    case "Item Usage Report":
+                        generateItemUsageReport(reportContent, rows, startDate, endDate);
+                        break;
+                }
+            },
+            error -> reportContent.getChildren().setAll(new Label("Error generating report: " + error.getMessage())));
         
         // Control buttons
         HBox buttonBox = new HBox(10);
@@ -2278,24 +2298,20 @@ private static TableView<RawStockPurchaseItem> createAvailableItemsTable() {
             // Show save dialog
             File file = fileChooser.showSaveDialog(null);
             if (file != null) {
-                // Generate CSV content based on report type
-                StringBuilder csvContent = new StringBuilder();
-                
-                switch (reportType) {
-                    case "Summary Report":
-                        generateCSVSummaryReport(csvContent, startDate, endDate);
-                        break;
-                    case "Detailed Report":
-                        generateCSVDetailedReport(csvContent, startDate, endDate);
-                        break;
-                    case "Item Usage Report":
-                        generateCSVItemUsageReport(csvContent, startDate, endDate);
-                        break;
-                }
-
-                // Write to file
-                try (FileWriter writer = new FileWriter(file)) {
-                    writer.write(csvContent.toString());
+                // Rows go straight to the file; UTF-8 with a byte order mark so Excel reads it as such
+                try (Writer writer = Files.newBufferedWriter(file.toPath(), StandardCharsets.UTF_8)) {
+                    writer.write('\uFEFF');
+                    switch (reportType) {
+                        case "Summary Report":
+                            generateCSVSummaryReport(writer, startDate, endDate);
+                            break;
+                        case "Detailed Report":
+                            generateCSVDetailedReport(writer, startDate, endDate);
+                            break;
+                        case "Item Usage Report":
+                            generateCSVItemUsageReport(writer, startDate, endDate);
+                            break;
+                    }
                 }
 
                 // Show success message
@@ -2303,7 +2319,7 @@ private static TableView<RawStockPurchaseItem> createAvailableItemsTable() {
                 successAlert.setTitle("Export Successful");
                 successAlert.setHeaderText("Report Exported Successfully");
                 successAlert.setContentText("The " + reportType + " has been exported to:\n" + file.getAbsolutePath() + 
-                                          "\n\nTotal size: " + csvContent.length() + " characters");
+                                          "\n\nTotal size: " + file.length() + " bytes");
                 successAlert.showAndWait();
             }
 
@@ -2401,7 +2417,7 @@ private static TableView<RawStockPurchaseItem> createAvailableItemsTable() {
     }
 
     // Generate CSV summary report content
-    private static void generateCSVSummaryReport(StringBuilder csvContent, String startDate, String endDate) {
+    private static void generateCSVSummaryReport(Writer csvContent, String startDate, String endDate) throws IOException {
         try {
             csvContent.append("Raw Stock Usage Summary Report\n");
             csvContent.append("Date Range:,").append(startDate).append(" to ").append(endDate).append("\n");
@@ -2426,7 +2442,7 @@ private static TableView<RawStockPurchaseItem> createAvailableItemsTable() {
     }
 
     // Generate CSV detailed report content
-    private static void generateCSVDetailedReport(StringBuilder csvContent, String startDate, String endDate) {
+    private static void generateCSVDetailedReport(Writer csvContent, String startDate, String endDate) throws IOException {
         try {
             csvContent.append("Raw Stock Usage Detailed Report\n");
             csvContent.append("Date Range:,").append(startDate).append(" to ").append(endDate).append("\n");
@@ -2453,7 +2469,7 @@ private static TableView<RawStockPurchaseItem> createAvailableItemsTable() {
     }
 
     // Generate CSV item usage report content
-    private static void generateCSVItemUsageReport(StringBuilder csvContent, String startDate, String endDate) {
+    private static void generateCSVItemUsageReport(Writer csvContent, String startDate, String endDate) throws IOException {
         try {
             csvContent.append("Raw Stock Item Usage Analysis Report\n");
             csvContent.append("Date Range:,").append(startDate).append(" to ").append(endDate).append("\n");
@@ -3184,11 +3200,10 @@ private static TableView<RawStockPurchaseItem> createAvailableItemsTable() {
      * Load available raw stock items into the table
      */
     private static void loadAvailableRawStockItems(TableView<RawStockUseItem> table) {
-        try {
-            List<Object[]> rawStocks = database.getAllRawStocksWithUnitsForDropdown();
-            ObservableList<RawStockUseItem> items = FXCollections.observableArrayList();
+        AsyncTableLoader.load(table, "rawStock.availableItems", database -> {
+            List<RawStockUseItem> items = new ArrayList<>();
             
-            for (Object[] row : rawStocks) {
+            for (Object[] row : database.getAllRawStocksWithUnitsForDropdown()) {
                 int rawStockId = (Integer) row[0];
                 String rawStockName = (String) row[1];
                 String categoryName = (String) row[2];
@@ -3204,12 +3219,8 @@ private static TableView<RawStockPurchaseItem> createAvailableItemsTable() {
                 items.add(item);
             }
             
-            table.setItems(items);
-            
-        } catch (Exception e) {
-            e.printStackTrace();
-            showAlert(Alert.AlertType.ERROR, "Database Error", "Failed to load raw stock items: " + e.getMessage());
-        }
+            return items;
+        }, "Failed to load raw stock items");
     }
     
     /**
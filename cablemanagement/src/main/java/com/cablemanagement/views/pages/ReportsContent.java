@@ -1,5 +1,6 @@
 package com.cablemanagement.views.pages;
 
+import com.cablemanagement.Log;
 import javafx.beans.property.SimpleStringProperty;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
@@ -20,12 +21,14 @@ import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
 import com.cablemanagement.config;
 import com.cablemanagement.invoice.PrintManager;
+import com.cablemanagement.model.AreaPartyTotals;
 import com.cablemanagement.model.Customer;
 import com.cablemanagement.model.Supplier;
 
@@ -223,36 +226,34 @@ public class ReportsContent {
                     java.sql.Date to = java.sql.Date.valueOf(toDatePicker.getValue());
                     String selectedReport = reportComboBox.getValue();
 
-                    ResultSet rs = config.database.getPurchaseReport(from, to, selectedReport);
-                    if (rs != null && rs.next()) {
-                        ResultSetMetaData metaData = rs.getMetaData();
-                        int columnCount = metaData.getColumnCount();
+                    // Run the report off the FX thread; a newer filter cancels this one
+                    AsyncTableLoader.loadWith(table, "reports.purchase", database ->
+                        readReportRows(database.getPurchaseReport(from, to, selectedReport)),
+                    report -> {
+                        if (report.rows.isEmpty()) {
+                            errorLabel.setText("No data found for selected filters.");
+                            return;
+                        }
 
                         // Create columns dynamically
-                        for (int i = 1; i <= columnCount; i++) {
-                            final String colName = metaData.getColumnLabel(i);
+                        for (String colName : report.columns) {
                             TableColumn<Map<String, String>, String> col = new TableColumn<>(colName);
                             col.setCellValueFactory(data -> new SimpleStringProperty(data.getValue().getOrDefault(colName, "")));
                             table.getColumns().add(col);
                         }
 
-                        // Remove rs.beforeFirst(); because SQLite ResultSet is TYPE_FORWARD_ONLY
-
                         // Fill table with data
                         ObservableList<Map<String, String>> data = FXCollections.observableArrayList();
-                        // The first rs.next() above already moved to the first row, so process that row first
-                        do {
+                        for (List<String> values : report.rows) {
                             Map<String, String> row = new HashMap<>();
-                            for (int i = 1; i <= columnCount; i++) {
-                                row.put(metaData.getColumnLabel(i), rs.getString(i));
+                            for (int i = 0; i < report.columns.size(); i++) {
+                                row.put(report.columns.get(i), values.get(i));
                             }
                             data.add(row);
-                        } while (rs.next());
-
+                        }
                         table.setItems(data);
-                    } else {
-                        errorLabel.setText("No data found for selected filters.");
-                    }
+                    },
+                    ex -> errorLabel.setText("Error loading data: " + ex.getMessage()));
                 } else {
                     errorLabel.setText("Database not connected.");
                 }
@@ -285,46 +286,10 @@ public class ReportsContent {
                 errorLabel.setText("No data to export. Please apply filters first.");
                 return;
             }
-            try {
-                // Create CSV export content
-                StringBuilder csvContent = new StringBuilder();
-                
-                // Add headers - dynamically from table columns
-                for (int i = 0; i < table.getColumns().size(); i++) {
-                    csvContent.append(table.getColumns().get(i).getText());
-                    if (i < table.getColumns().size() - 1) csvContent.append(",");
-                }
-                csvContent.append("\n");
-                
-                // Add data rows
-                for (Map<String, String> row : table.getItems()) {
-                    for (int i = 0; i < table.getColumns().size(); i++) {
-                        String columnName = table.getColumns().get(i).getText();
-                        String value = row.getOrDefault(columnName, "");
-                        // Escape quotes and commas in CSV
-                        if (value.contains(",") || value.contains("\"")) {
-                            value = "\"" + value.replace("\"", "\"\"") + "\"";
-                        }
-                        csvContent.append(value);
-                        if (i < table.getColumns().size() - 1) csvContent.append(",");
-                    }
-                    csvContent.append("\n");
-                }
-                
-                // Show export dialog
-                Alert alert = new Alert(Alert.AlertType.INFORMATION);
-                alert.setTitle("Export Report");
-                alert.setHeaderText("Purchase Report Export");
-                alert.setContentText("Export functionality would be implemented here.\n" +
-                                   "Report contains " + table.getItems().size() + " records ready for CSV export.\n\n" +
-                                   "Sample CSV format:\n" + 
-                                   csvContent.toString().substring(0, Math.min(200, csvContent.length())) + "...");
-                alert.showAndWait();
-                
-            } catch (Exception ex) {
-                ex.printStackTrace();
-                errorLabel.setText("Error preparing report for export: " + ex.getMessage());
-            }
+            java.sql.Date from = java.sql.Date.valueOf(fromDatePicker.getValue());
+            java.sql.Date to = java.sql.Date.valueOf(toDatePicker.getValue());
+            String selectedReport = reportComboBox.getValue();
+            CsvExportDialog.exportReport("Purchase Report", database -> database.getPurchaseReport(from, to, selectedReport));
         });
 
         form.getChildren().addAll(heading, reportTypeBox, dateRangeBox, buttons, errorLabel);
@@ -391,38 +356,34 @@ public class ReportsContent {
                     java.sql.Date to = java.sql.Date.valueOf(toDatePicker.getValue());
                     String selectedReport = reportComboBox.getValue();
 
-                    ResultSet rs = config.database.getSalesReport(from, to, selectedReport);
-
-                    if (rs != null) {
-                        ResultSetMetaData meta = rs.getMetaData();
-                        int columnCount = meta.getColumnCount();
+                    // Run the report off the FX thread; a newer filter cancels this one
+                    AsyncTableLoader.loadWith(table, "reports.sales", database ->
+                        readReportRows(database.getSalesReport(from, to, selectedReport)),
+                    report -> {
+                        if (report.rows.isEmpty()) {
+                            errorLabel.setText("No data found for selected filters.");
+                            return;
+                        }
 
-                        // Auto-create columns
-                        for (int i = 1; i <= columnCount; i++) {
+                        // Create columns dynamically
+                        for (int i = 0; i < report.columns.size(); i++) {
                             final int colIndex = i;
                             TableColumn<ObservableList<String>, String> col =
-                                new TableColumn<>(meta.getColumnLabel(i));
+                                new TableColumn<>(report.columns.get(i));
                             col.setCellValueFactory(data ->
-                                new SimpleStringProperty(data.getValue().get(colIndex - 1))
+                                new SimpleStringProperty(data.getValue().get(colIndex))
                             );
                             table.getColumns().add(col);
                         }
 
                         // Add rows
-                        while (rs.next()) {
-                            ObservableList<String> row = FXCollections.observableArrayList();
-                            for (int i = 1; i <= columnCount; i++) {
-                                row.add(rs.getString(i));
-                            }
-                            table.getItems().add(row);
-                        }
-
-                        if (table.getItems().isEmpty()) {
-                            errorLabel.setText("No data found for selected filters.");
+                        ObservableList<ObservableList<String>> data = FXCollections.observableArrayList();
+                        for (List<String> values : report.rows) {
+                            data.add(FXCollections.observableArrayList(values));
                         }
-                    } else {
-                        errorLabel.setText("No data returned from query.");
-                    }
+                        table.setItems(data);
+                    },
+                    ex -> errorLabel.setText("Error loading sales data: " + ex.getMessage()));
                 } else {
                     errorLabel.setText("Database not connected.");
                 }
@@ -454,45 +415,10 @@ public class ReportsContent {
                 errorLabel.setText("No data to export. Please apply filters first.");
                 return;
             }
-            try {
-                // Create CSV export content
-                StringBuilder csvContent = new StringBuilder();
-                
-                // Add headers
-                for (int i = 0; i < table.getColumns().size(); i++) {
-                    csvContent.append(table.getColumns().get(i).getText());
-                    if (i < table.getColumns().size() - 1) csvContent.append(",");
-                }
-                csvContent.append("\n");
-                
-                // Add data rows
-                for (ObservableList<String> row : table.getItems()) {
-                    for (int i = 0; i < row.size(); i++) {
-                        String value = row.get(i);
-                        // Escape quotes and commas in CSV
-                        if (value.contains(",") || value.contains("\"")) {
-                            value = "\"" + value.replace("\"", "\"\"") + "\"";
-                        }
-                        csvContent.append(value);
-                        if (i < row.size() - 1) csvContent.append(",");
-                    }
-                    csvContent.append("\n");
-                }
-                
-                // For now, just show export dialog (actual file saving implementation depends on requirements)
-                Alert alert = new Alert(Alert.AlertType.INFORMATION);
-                alert.setTitle("Export Report");
-                alert.setHeaderText("Sales Report Export");
-                alert.setContentText("Export functionality would be implemented here.\n" +
-                                   "Report contains " + table.getItems().size() + " records ready for CSV export.\n\n" +
-                                   "Sample CSV format:\n" + 
-                                   csvContent.toString().substring(0, Math.min(200, csvContent.length())) + "...");
-                alert.showAndWait();
-                
-            } catch (Exception ex) {
-                ex.printStackTrace();
-                errorLabel.setText("Error preparing report for export: " + ex.getMessage());
-            }
+            java.sql.Date from = java.sql.Date.valueOf(fromDatePicker.getValue());
+            java.sql.Date to = java.sql.Date.valueOf(toDatePicker.getValue());
+            String selectedReport = reportComboBox.getValue();
+            CsvExportDialog.exportReport("Sales Report", database -> database.getSalesReport(from, to, selectedReport));
         });
 
         form.getChildren().addAll(heading, reportTypeBox, dateRangeBox, buttons, errorLabel);
@@ -565,36 +491,34 @@ public class ReportsContent {
                     java.sql.Date to = java.sql.Date.valueOf(toDatePicker.getValue());
                     String selectedReport = reportComboBox.getValue();
 
-                    ResultSet rs = config.database.getReturnPurchaseReport(from, to, selectedReport); // Make sure backend handles report type
-
-                    if (rs != null && rs.next()) {
-                        ResultSetMetaData metaData = rs.getMetaData();
-                        int columnCount = metaData.getColumnCount();
+                    // Run the report off the FX thread; a newer filter cancels this one
+                    AsyncTableLoader.loadWith(table, "reports.returnPurchase", database ->
+                        readReportRows(database.getReturnPurchaseReport(from, to, selectedReport)),
+                    report -> {
+                        if (report.rows.isEmpty()) {
+                            errorLabel.setText("No data found for selected filters.");
+                            return;
+                        }
 
                         // Create columns dynamically
-                        for (int i = 1; i <= columnCount; i++) {
-                            final String colName = metaData.getColumnLabel(i);
+                        for (String colName : report.columns) {
                             TableColumn<Map<String, String>, String> col = new TableColumn<>(colName);
                             col.setCellValueFactory(data -> new SimpleStringProperty(data.getValue().getOrDefault(colName, "")));
                             table.getColumns().add(col);
                         }
 
-                        // Fill data
+                        // Fill table with data
                         ObservableList<Map<String, String>> data = FXCollections.observableArrayList();
-                        
-                        // The first rs.next() above already moved to the first row, so process that row first
-                        do {
+                        for (List<String> values : report.rows) {
                             Map<String, String> row = new HashMap<>();
-                            for (int i = 1; i <= columnCount; i++) {
-                                row.put(metaData.getColumnLabel(i), rs.getString(i));
+                            for (int i = 0; i < report.columns.size(); i++) {
+                                row.put(report.columns.get(i), values.get(i));
                             }
                             data.add(row);
-                        } while (rs.next());
-
+                        }
                         table.setItems(data);
-                    } else {
-                        errorLabel.setText("No data found for selected filters.");
-                    }
+                    },
+                    ex -> errorLabel.setText("Error loading data: " + ex.getMessage()));
                 } else {
                     errorLabel.setText("Database not connected.");
                 }
@@ -627,46 +551,10 @@ public class ReportsContent {
                 errorLabel.setText("No data to export. Please apply filters first.");
                 return;
             }
-            try {
-                // Create CSV export content
-                StringBuilder csvContent = new StringBuilder();
-                
-                // Add headers - dynamically from table columns
-                for (int i = 0; i < table.getColumns().size(); i++) {
-                    csvContent.append(table.getColumns().get(i).getText());
-                    if (i < table.getColumns().size() - 1) csvContent.append(",");
-                }
-                csvContent.append("\n");
-                
-                // Add data rows
-                for (Map<String, String> row : table.getItems()) {
-                    for (int i = 0; i < table.getColumns().size(); i++) {
-                        String columnName = table.getColumns().get(i).getText();
-                        String value = row.getOrDefault(columnName, "");
-                        // Escape quotes and commas in CSV
-                        if (value.contains(",") || value.contains("\"")) {
-                            value = "\"" + value.replace("\"", "\"\"") + "\"";
-                        }
-                        csvContent.append(value);
-                        if (i < table.getColumns().size() - 1) csvContent.append(",");
-                    }
-                    csvContent.append("\n");
-                }
-                
-                // Show export dialog
-                Alert alert = new Alert(Alert.AlertType.INFORMATION);
-                alert.setTitle("Export Report");
-                alert.setHeaderText("Return Purchase Report Export");
-                alert.setContentText("Export functionality would be implemented here.\n" +
-                                   "Report contains " + table.getItems().size() + " records ready for CSV export.\n\n" +
-                                   "Sample CSV format:\n" + 
-                                   csvContent.toString().substring(0, Math.min(200, csvContent.length())) + "...");
-                alert.showAndWait();
-                
-            } catch (Exception ex) {
-                ex.printStackTrace();
-                errorLabel.setText("Error preparing report for export: " + ex.getMessage());
-            }
+            java.sql.Date from = java.sql.Date.valueOf(fromDatePicker.getValue());
+            java.sql.Date to = java.sql.Date.valueOf(toDatePicker.getValue());
+            String selectedReport = reportComboBox.getValue();
+            CsvExportDialog.exportReport("Return Purchase Report", database -> database.getReturnPurchaseReport(from, to, selectedReport));
         });
 
         form.getChildren().addAll(heading, reportTypeBox, dateRangeBox, buttons, errorLabel);
@@ -814,7 +702,7 @@ public class ReportsContent {
                             totalLabel.setText("Total: " + String.format("%.2f", total));
                         } catch (Exception exTot) {
                             // don't break loading if total calculation fails
-                            System.out.println("DEBUG: Error calculating total: " + exTot.getMessage());
+                            Log.debug("Error calculating total: " + exTot.getMessage());
                         }
                     } else {
                         errorLabel.setText("No data found for selected filters.");
@@ -851,46 +739,10 @@ public class ReportsContent {
                 errorLabel.setText("No data to export. Please apply filters first.");
                 return;
             }
-            try {
-                // Create CSV export content
-                StringBuilder csvContent = new StringBuilder();
-                
-                // Add headers - dynamically from table columns
-                for (int i = 0; i < table.getColumns().size(); i++) {
-                    csvContent.append(table.getColumns().get(i).getText());
-                    if (i < table.getColumns().size() - 1) csvContent.append(",");
-                }
-                csvContent.append("\n");
-                
-                // Add data rows
-                for (Map<String, String> row : table.getItems()) {
-                    for (int i = 0; i < table.getColumns().size(); i++) {
-                        String columnName = table.getColumns().get(i).getText();
-                        String value = row.getOrDefault(columnName, "");
-                        // Escape quotes and commas in CSV
-                        if (value.contains(",") || value.contains("\"")) {
-                            value = "\"" + value.replace("\"", "\"\"") + "\"";
-                        }
-                        csvContent.append(value);
-                        if (i < table.getColumns().size() - 1) csvContent.append(",");
-                    }
-                    csvContent.append("\n");
-                }
-                
-                // Show export dialog
-                Alert alert = new Alert(Alert.AlertType.INFORMATION);
-                alert.setTitle("Export Report");
-                alert.setHeaderText("Return Sales Report Export");
-                alert.setContentText("Export functionality would be implemented here.\n" +
-                                   "Report contains " + table.getItems().size() + " records ready for CSV export.\n\n" +
-                                   "Sample CSV format:\n" + 
-                                   csvContent.toString().substring(0, Math.min(200, csvContent.length())) + "...");
-                alert.showAndWait();
-                
-            } catch (Exception ex) {
-                ex.printStackTrace();
-                errorLabel.setText("Error preparing report for export: " + ex.getMessage());
-            }
+            java.sql.Date from = java.sql.Date.valueOf(fromDatePicker.getValue());
+            java.sql.Date to = java.sql.Date.valueOf(toDatePicker.getValue());
+            String selectedReport = reportComboBox.getValue();
+            CsvExportDialog.exportReport("Return Sales Report", database -> database.getReturnSalesReport(from, to, selectedReport));
         });
 
         form.getChildren().addAll(heading, reportTypeBox, dateRangeBox, buttons, errorLabel, table, totalBox);
@@ -979,7 +831,7 @@ public class ReportsContent {
                             rs.close();
                         }
                     }
-                    System.out.println("BankTransferReport rows loaded: " + count);
+                    Log.debug("BankTransferReport rows loaded: " + count);
                     if (count == 0) {
                         errorLabel.setText("No bank transfer data found for selected date range.\n" +
                                          "Bank transfers are created when you use 'Transfer Bank to Bank' in Bank Management.\n" +
@@ -1012,34 +864,9 @@ public class ReportsContent {
 
         // Export button action (CSV export)
         ((Button) buttons.getChildren().get(2)).setOnAction(e -> {
-            try {
-                // Create CSV export content
-                StringBuilder csvContent = new StringBuilder();
-                csvContent.append("Date,From Bank,To Bank,Amount\n");
-                
-                for (BankTransferReport item : table.getItems()) {
-                    csvContent.append(String.format("%s,%s,%s,%s\n",
-                        item.getTransactionDate(),
-                        item.getFromBank(),
-                        item.getToBank(),
-                        item.getAmount()
-                    ));
-                }
-                
-                // Show export dialog
-                Alert alert = new Alert(Alert.AlertType.INFORMATION);
-                alert.setTitle("Export Report");
-                alert.setHeaderText("Bank Transfer Report Export");
-                alert.setContentText("Export functionality would be implemented here.\n" +
-                                   "Report contains " + table.getItems().size() + " records ready for CSV export.\n\n" +
-                                   "Sample CSV format:\n" + 
-                                   csvContent.toString().substring(0, Math.min(200, csvContent.length())) + "...");
-                alert.showAndWait();
-                
-            } catch (Exception ex) {
-                ex.printStackTrace();
-                errorLabel.setText("Error preparing report for export: " + ex.getMessage());
-            }
+            java.sql.Date from = java.sql.Date.valueOf(fromDatePicker.getValue());
+            java.sql.Date to = java.sql.Date.valueOf(toDatePicker.getValue());
+            CsvExportDialog.exportReport("Bank Transfer Report", database -> database.getBankTransferReport(from, to));
         });
 
         form.getChildren().addAll(heading, dateRangeBox, buttons, errorLabel, table);
@@ -1106,12 +933,12 @@ public class ReportsContent {
             table.getItems().clear();
             errorLabel.setText("");
             try {
-                System.out.println("DEBUG: Profit Report - Loading data...");
+                Log.debug("Profit Report - Loading data...");
                 if (config.database != null && config.database.isConnected()) {
                     java.sql.Date from = java.sql.Date.valueOf(fromDatePicker.getValue());
                     java.sql.Date to = java.sql.Date.valueOf(toDatePicker.getValue());
                     
-                    System.out.println("DEBUG: Date range: " + from + " to " + to);
+                    Log.debug("Date range: " + from + " to " + to);
                     
                     java.sql.ResultSet rs = config.database.getProfitReport(from, to);
                     int count = 0;
@@ -1127,7 +954,7 @@ public class ReportsContent {
                         String formattedCostAmount = String.format("%.2f", costAmount);
                         String formattedProfit = String.format("%.2f", profitAmount);
                         
-                        System.out.println("DEBUG: Processing profit record - Invoice: " + invoiceNumber + 
+                        Log.debug("Processing profit record - Invoice: " + invoiceNumber + 
                                          ", Date: " + invoiceDate + 
                                          ", Sale: " + formattedSaleAmount + 
                                          ", Cost: " + formattedCostAmount + 
@@ -1143,14 +970,14 @@ public class ReportsContent {
                         count++;
                     }
                     
-                    System.out.println("ProfitReport rows loaded: " + count);
+                    Log.debug("ProfitReport rows loaded: " + count);
                     if (count == 0) {
                         errorLabel.setText("No profit data found for selected date range.\n" +
                                          "Profit is calculated as (Sale Amount - Cost Amount) per invoice.\n" +
                                          "Data comes from Sales_Invoice, Sales_Invoice_Item, and ProductionStock tables.");
                     }
                 } else {
-                    System.out.println("DEBUG: Database is null or not connected");
+                    Log.debug("Database is null or not connected");
                     errorLabel.setText("Database not connected.");
                 }
             } catch (Exception ex) {
@@ -1218,35 +1045,9 @@ public class ReportsContent {
                 errorLabel.setText("No data to export. Please apply filters first.");
                 return;
             }
-            try {
-                // Create CSV export content
-                StringBuilder csvContent = new StringBuilder();
-                csvContent.append("Invoice Number,Date,Sale Amount,Cost Amount,Profit\n");
-                
-                for (ProfitReport item : table.getItems()) {
-                    csvContent.append(String.format("%s,%s,%s,%s,%s\n",
-                        item.getInvoiceNumber(),
-                        item.getInvoiceDate(),
-                        item.getSaleAmount(),
-                        item.getCostAmount(),
-                        item.getProfit()
-                    ));
-                }
-                
-                // For now, just show export dialog (actual file saving implementation depends on requirements)
-                Alert alert = new Alert(Alert.AlertType.INFORMATION);
-                alert.setTitle("Export Report");
-                alert.setHeaderText("Profit Report Export");
-                alert.setContentText("Export functionality would be implemented here.\n" +
-                                   "Data would be saved as CSV with " + table.getItems().size() + " records.\n\n" +
-                                   "Sample CSV format:\n" + 
-                                   csvContent.toString().substring(0, Math.min(200, csvContent.length())) + "...");
-                alert.showAndWait();
-                
-            } catch (Exception ex) {
-                ex.printStackTrace();
-                errorLabel.setText("Error preparing report for export: " + ex.getMessage());
-            }
+            java.sql.Date from = java.sql.Date.valueOf(fromDatePicker.getValue());
+            java.sql.Date to = java.sql.Date.valueOf(toDatePicker.getValue());
+            CsvExportDialog.exportReport("Profit Report", database -> database.getProfitReport(from, to));
         });
 
         form.getChildren().addAll(heading, dateRangeBox, buttons, errorLabel);
@@ -1295,7 +1096,7 @@ public class ReportsContent {
                     java.sql.Date fromDate = java.sql.Date.valueOf(fromDatePicker.getValue());
                     java.sql.Date toDate = java.sql.Date.valueOf(toDatePicker.getValue());
                     
-                    System.out.println("DEBUG: Summary Report - Loading data from " + fromDate + " to " + toDate);
+                    Log.debug("Summary Report - Loading data from " + fromDate + " to " + toDate);
                     
                     java.sql.ResultSet rs = config.database.getSummaryReport(fromDate, toDate);
                     if (rs != null && rs.next()) {
@@ -1308,7 +1109,7 @@ public class ReportsContent {
                         int totalSuppliers = rs.getInt("total_suppliers");
                         double totalInventoryValue = rs.getDouble("total_inventory_value");
                         
-                        System.out.println("DEBUG: Summary data loaded - Purchases: " + totalPurchases + 
+                        Log.debug("Summary data loaded - Purchases: " + totalPurchases + 
                                          ", Sales: " + totalSales + ", Bank Balance: " + totalBankBalance);
                         
                         // Update the grid with real data
@@ -1318,10 +1119,10 @@ public class ReportsContent {
                         try {
                             rs.close();
                         } catch (SQLException closeEx) {
-                            System.out.println("DEBUG: Error closing ResultSet: " + closeEx.getMessage());
+                            Log.debug("Error closing ResultSet: " + closeEx.getMessage());
                         }
                     } else {
-                        System.out.println("DEBUG: No summary data found");
+                        Log.debug("No summary data found");
                         errorLabel.setText("No data found for selected date range.");
                         updateSummaryGrid(summaryGrid, 0.0, 0.0, 0.0, 0.0, 0.0, 0, 0, 0.0);
                         
@@ -1329,7 +1130,7 @@ public class ReportsContent {
                             try {
                                 rs.close();
                             } catch (SQLException closeEx) {
-                                System.out.println("DEBUG: Error closing empty ResultSet: " + closeEx.getMessage());
+                                Log.debug("Error closing empty ResultSet: " + closeEx.getMessage());
                             }
                         }
                     }
@@ -1389,34 +1190,9 @@ public class ReportsContent {
                 errorLabel.setText("No data available to export. Please load data first.");
                 return;
             }
-            try {
-                // Create CSV export content
-                StringBuilder csvContent = new StringBuilder();
-                csvContent.append("Summary Item,Value\n");
-                
-                // Extract current values from the grid
-                for (int i = 0; i < summaryGrid.getChildren().size(); i += 2) {
-                    if (i + 1 < summaryGrid.getChildren().size()) {
-                        Label labelNode = (Label) summaryGrid.getChildren().get(i);
-                        Label valueNode = (Label) summaryGrid.getChildren().get(i + 1);
-                        String label = labelNode.getText().replace(":", "").replace(",", ";");
-                        String value = valueNode.getText().replace(",", "");
-                        csvContent.append(String.format("%s,%s\n", label, value));
-                    }
-                }
-                
-                Alert alert = new Alert(Alert.AlertType.INFORMATION);
-                alert.setTitle("Export Summary Report");
-                alert.setHeaderText("Business Summary Report Export");
-                alert.setContentText("Export functionality would be implemented here.\n\n" +
-                                   "Sample CSV format:\n" + 
-                                   csvContent.toString().substring(0, Math.min(200, csvContent.length())) + "...");
-                alert.showAndWait();
-                
-            } catch (Exception ex) {
-                ex.printStackTrace();
-                errorLabel.setText("Error preparing report for export: " + ex.getMessage());
-            }
+            java.sql.Date from = java.sql.Date.valueOf(fromDatePicker.getValue());
+            java.sql.Date to = java.sql.Date.valueOf(toDatePicker.getValue());
+            CsvExportDialog.exportReport("Summary Report", database -> database.getSummaryReport(from, to));
         });
 
         // Load initial data
@@ -1655,19 +1431,19 @@ public class ReportsContent {
 
         // Load data from backend
         try {
-            System.out.println("DEBUG: Starting to load customer data...");
+            Log.debug("Starting to load customer data...");
             if (config.database != null && config.database.isConnected()) {
-                System.out.println("DEBUG: Database is connected, executing query...");
+                Log.debug("Database is connected, executing query...");
                 java.sql.ResultSet rs = config.database.getCustomersReport();
                 int count = 0;
                 if (rs != null) {
-                    System.out.println("DEBUG: ResultSet is not null, processing results...");
+                    Log.debug("ResultSet is not null, processing results...");
                     while (rs.next()) {
                         String customerName = rs.getString("customer_name");
                         String phoneNumber = rs.getString("contact_number");
                         String address = rs.getString("address");
                         
-                        System.out.println("DEBUG: Processing customer: " + customerName + ", phone: " + phoneNumber);
+                        Log.debug("Processing customer: " + customerName + ", phone: " + phoneNumber);
                         
                         // Handle null values
                         if (customerName == null) customerName = "Unknown";
@@ -1678,9 +1454,9 @@ public class ReportsContent {
                         count++;
                     }
                 } else {
-                    System.out.println("DEBUG: ResultSet is null!");
+                    Log.debug("ResultSet is null!");
                 }
-                System.out.println("CustomersReport rows loaded: " + count);
+                Log.debug("CustomersReport rows loaded: " + count);
                 if (count == 0) {
                     errorLabel.setText("No customer data found.");
                 }
@@ -1713,7 +1489,7 @@ public class ReportsContent {
                         table.getItems().add(new CustomerReport(customerName, phoneNumber, address));
                         count++;
                     }
-                    System.out.println("CustomersReport rows refreshed: " + count);
+                    Log.debug("CustomersReport rows refreshed: " + count);
                     if (count == 0) {
                         errorLabel.setText("No customer data found.");
                     }
@@ -1746,33 +1522,7 @@ public class ReportsContent {
                 errorLabel.setText("No data to export. Please apply filters first.");
                 return;
             }
-            try {
-                // Create CSV export content
-                StringBuilder csvContent = new StringBuilder();
-                csvContent.append("Customer Name,Phone Number,Address\n");
-                
-                for (CustomerReport item : table.getItems()) {
-                    csvContent.append(String.format("%s,%s,%s\n",
-                        item.getCustomerName(),
-                        item.getPhoneNumber(),
-                        item.getAddress()
-                    ));
-                }
-                
-                // Show export dialog
-                Alert alert = new Alert(Alert.AlertType.INFORMATION);
-                alert.setTitle("Export Report");
-                alert.setHeaderText("Customers Report Export");
-                alert.setContentText("Export functionality would be implemented here.\n" +
-                                   "Report contains " + table.getItems().size() + " records ready for CSV export.\n\n" +
-                                   "Sample CSV format:\n" + 
-                                   csvContent.toString().substring(0, Math.min(200, csvContent.length())) + "...");
-                alert.showAndWait();
-                
-            } catch (Exception ex) {
-                ex.printStackTrace();
-                errorLabel.setText("Error preparing report for export: " + ex.getMessage());
-            }
+            CsvExportDialog.exportReport("Customers Report", database -> database.getCustomersReport());
         });
 
         form.getChildren().addAll(heading, buttons, errorLabel);
@@ -1837,7 +1587,7 @@ public class ReportsContent {
                     table.getItems().add(new SupplierReport(supplierName, phoneNumber, address));
                     count++;
                 }
-                System.out.println("SuppliersReport rows loaded: " + count);
+                Log.debug("SuppliersReport rows loaded: " + count);
                 if (count == 0) {
                     errorLabel.setText("No supplier data found.");
                 }
@@ -1870,7 +1620,7 @@ public class ReportsContent {
                         table.getItems().add(new SupplierReport(supplierName, phoneNumber, address));
                         count++;
                     }
-                    System.out.println("SuppliersReport rows refreshed: " + count);
+                    Log.debug("SuppliersReport rows refreshed: " + count);
                     if (count == 0) {
                         errorLabel.setText("No supplier data found.");
                     }
@@ -1930,33 +1680,7 @@ public class ReportsContent {
                 errorLabel.setText("No data to export. Please apply filters first.");
                 return;
             }
-            try {
-                // Create CSV export content
-                StringBuilder csvContent = new StringBuilder();
-                csvContent.append("Supplier Name,Phone Number,Address\n");
-                
-                for (SupplierReport item : table.getItems()) {
-                    csvContent.append(String.format("%s,%s,%s\n",
-                        item.getSupplierName(),
-                        item.getPhoneNumber(),
-                        item.getAddress()
-                    ));
-                }
-                
-                // Show export dialog
-                Alert alert = new Alert(Alert.AlertType.INFORMATION);
-                alert.setTitle("Export Report");
-                alert.setHeaderText("Suppliers Report Export");
-                alert.setContentText("Export functionality would be implemented here.\n" +
-                                   "Report contains " + table.getItems().size() + " records ready for CSV export.\n\n" +
-                                   "Sample CSV format:\n" + 
-                                   csvContent.toString().substring(0, Math.min(200, csvContent.length())) + "...");
-                alert.showAndWait();
-                
-            } catch (Exception ex) {
-                ex.printStackTrace();
-                errorLabel.setText("Error preparing report for export: " + ex.getMessage());
-            }
+            CsvExportDialog.exportReport("Suppliers Report", database -> database.getSuppliersReport());
         });
 
         form.getChildren().addAll(heading, buttons, errorLabel);
@@ -2227,12 +1951,12 @@ public class ReportsContent {
             table.getItems().clear();
             errorLabel.setText("");
             try {
-                System.out.println("DEBUG: Brand Sales Report - Loading data...");
+                Log.debug("Brand Sales Report - Loading data...");
                 if (config.database != null && config.database.isConnected()) {
                     java.sql.Date from = java.sql.Date.valueOf(fromDatePicker.getValue());
                     java.sql.Date to = java.sql.Date.valueOf(toDatePicker.getValue());
                     
-                    System.out.println("DEBUG: Date range: " + from + " to " + to);
+                    Log.debug("Date range: " + from + " to " + to);
                     
                     java.sql.ResultSet rs = config.database.getBrandSalesReport(from, to);
                     int count = 0;
@@ -2242,7 +1966,7 @@ public class ReportsContent {
                         String totalSales = String.format("%.2f", rs.getDouble("total_sales"));
                         String salesmanName = rs.getString("salesman_name");
                         
-                        System.out.println("DEBUG: Processing record - Brand: " + brandName + ", Quantity: " + totalQuantity + ", Sales: " + totalSales);
+                        Log.debug("Processing record - Brand: " + brandName + ", Quantity: " + totalQuantity + ", Sales: " + totalSales);
                         
                         // Handle null values
                         if (brandName == null) brandName = "Unknown Brand";
@@ -2252,12 +1976,12 @@ public class ReportsContent {
                         count++;
                     }
                     
-                    System.out.println("BrandSalesReport rows loaded: " + count);
+                    Log.debug("BrandSalesReport rows loaded: " + count);
                     if (count == 0) {
                         errorLabel.setText("No brand sales data found for selected date range.");
                     }
                 } else {
-                    System.out.println("DEBUG: Database is null or not connected");
+                    Log.debug("Database is null or not connected");
                     errorLabel.setText("Database not connected.");
                 }
             } catch (Exception ex) {
@@ -2308,30 +2032,9 @@ public class ReportsContent {
                 errorLabel.setText("No data available to export. Please load data first.");
                 return;
             }
-            try {
-                // Create CSV export content
-                StringBuilder csvContent = new StringBuilder();
-                csvContent.append("Salesman,Brand,Quantity,Total Sales\n");
-                
-                for (BrandSalesReport item : table.getItems()) {
-                    csvContent.append(String.format("%s,%s,%s,%s\n", 
-                        item.getSalesmanName(), 
-                        item.getBrandName(), 
-                        item.getTotalQuantity(), 
-                        item.getTotalSale()));
-                }
-                
-                // For now, just show export dialog (actual file saving implementation depends on requirements)
-                Alert alert = new Alert(Alert.AlertType.INFORMATION);
-                alert.setTitle("Export Report");
-                alert.setHeaderText("Brand Sales Report Export");
-                alert.setContentText("Export functionality would be implemented here.\nReport contains " + table.getItems().size() + " records ready for CSV export.");
-                alert.showAndWait();
-                
-            } catch (Exception ex) {
-                ex.printStackTrace();
-                errorLabel.setText("Error preparing report for export: " + ex.getMessage());
-            }
+            java.sql.Date from = java.sql.Date.valueOf(fromDatePicker.getValue());
+            java.sql.Date to = java.sql.Date.valueOf(toDatePicker.getValue());
+            CsvExportDialog.exportReport("Brand Sales Report", database -> database.getBrandSalesReport(from, to));
         });
 
         // Optionally, trigger filter on load
@@ -2731,11 +2434,11 @@ public class ReportsContent {
                 java.sql.Date sqlFromDate = java.sql.Date.valueOf(fromDate);
                 java.sql.Date sqlToDate = java.sql.Date.valueOf(toDate);
                 
-                System.out.println("DEBUG: ReportsContent - Date range: " + fromDate + " to " + toDate);
-                System.out.println("DEBUG: ReportsContent - SQL Date range: " + sqlFromDate + " to " + sqlToDate);
+                Log.debug("ReportsContent - Date range: " + fromDate + " to " + toDate);
+                Log.debug("ReportsContent - SQL Date range: " + sqlFromDate + " to " + sqlToDate);
                 
                 // Get data and totals using the same method as individual ledgers to ensure consistency
-                AreaWiseReportResult result = generateAreaWiseDataFromLedgers(table, partyType, fromDate, toDate, lowerAreaType, areaValue);
+                AreaWiseReportResult result = generateAreaWiseData(table, partyType, fromDate, toDate, lowerAreaType, areaValue);
                 int count = result.count;
                 
                 // Remove loading message
@@ -3531,6 +3234,39 @@ public class ReportsContent {
     }
 
     // Model classes for reports
+    /**
+     * Column labels and rows of a report result, read on a worker thread so the
+     * page can build its table afterwards on the FX thread
+     */
+    private static class ReportRows {
+        final List<String> columns = new ArrayList<>();
+        final List<List<String>> rows = new ArrayList<>();
+    }
+
+    private static ReportRows readReportRows(ResultSet rs) {
+        ReportRows report = new ReportRows();
+        if (rs == null) {
+            return report;
+        }
+        try {
+            ResultSetMetaData metaData = rs.getMetaData();
+            int columnCount = metaData.getColumnCount();
+            for (int i = 1; i <= columnCount; i++) {
+                report.columns.add(metaData.getColumnLabel(i));
+            }
+            while (rs.next()) {
+                List<String> row = new ArrayList<>(columnCount);
+                for (int i = 1; i <= columnCount; i++) {
+                    row.add(rs.getString(i));
+                }
+                report.rows.add(row);
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException(e.getMessage(), e);
+        }
+        return report;
+    }
+
     public static class PurchaseReport {
         private final String invoiceNumber;
         private final String invoiceDate;
@@ -3724,8 +3460,8 @@ public class ReportsContent {
         }
     }
 
-    // Method to generate area-wise data using the same ledger methods as individual customer/supplier ledgers
-    private static AreaWiseReportResult generateAreaWiseDataFromLedgers(TableView<AreaWiseReport> table, String partyType, 
+    // Method to generate area-wise data; the totals match the individual customer/supplier ledgers
+    private static AreaWiseReportResult generateAreaWiseData(TableView<AreaWiseReport> table, String partyType, 
                                                       LocalDate fromDate, LocalDate toDate, String areaType, String areaValue) {
         int count = 0;
         
@@ -3737,282 +3473,33 @@ public class ReportsContent {
         double grandTotalBalance = 0.0;
         
         try {
-            System.out.println("DEBUG: Generating area-wise data from ledgers for " + partyType);
+            Log.debug("Generating area-wise data for " + partyType);
             
-            // Get all customers and suppliers based on area filter
-            String partiesQuery = "";
-            
-            if (partyType.equals("Customer") || partyType.equals("Both")) {
-                if (areaType.equals("all") || areaValue.equals("All")) {
-                    partiesQuery = "SELECT customer_name FROM Customer";
-                } else {
-                    switch (areaType.toLowerCase()) {
-                        case "province":
-                            partiesQuery = "SELECT c.customer_name FROM Customer c " +
-                                         "LEFT JOIN Tehsil t ON c.tehsil_id = t.tehsil_id " +
-                                         "LEFT JOIN District d ON t.district_id = d.district_id " +
-                                         "LEFT JOIN Province p ON d.province_id = p.province_id " +
-                                         "WHERE p.province_name = ?";
-                            break;
-                        case "district":
-                            partiesQuery = "SELECT c.customer_name FROM Customer c " +
-                                         "LEFT JOIN Tehsil t ON c.tehsil_id = t.tehsil_id " +
-                                         "LEFT JOIN District d ON t.district_id = d.district_id " +
-                                         "WHERE d.district_name = ?";
-                            break;
-                        case "tehsil":
-                            partiesQuery = "SELECT c.customer_name FROM Customer c " +
-                                         "LEFT JOIN Tehsil t ON c.tehsil_id = t.tehsil_id " +
-                                         "WHERE t.tehsil_name = ?";
-                            break;
-                    }
-                }
-                
-                java.sql.Connection conn = config.database.getConnection();
-                java.sql.PreparedStatement stmt;
-                if (areaType.equals("all") || areaValue.equals("All")) {
-                    stmt = conn.prepareStatement(partiesQuery);
-                } else {
-                    stmt = conn.prepareStatement(partiesQuery);
-                    stmt.setString(1, areaValue);
-                }
-                
-                java.sql.ResultSet customersResult = stmt.executeQuery();
-                while (customersResult.next()) {
-                    String customerName = customersResult.getString("customer_name");
-                    
-                    // Get customer ledger data using the same method as AccountsContent
-                    List<Object[]> ledgerData;
-                    if (fromDate != null && toDate != null) {
-                        java.time.format.DateTimeFormatter formatter = java.time.format.DateTimeFormatter.ofPattern("yyyy-MM-dd");
-                        String startDate = fromDate.format(formatter);
-                        String endDate = toDate.format(formatter);
-                        ledgerData = config.database.getCustomerLedgerByDateRange(customerName, startDate, endDate);
-                    } else {
-                        ledgerData = config.database.getCustomerLedger(customerName);
-                    }
-                    
-                    // Calculate totals using the same logic as AccountsContent
-                    double totalSale = 0.0;
-                    double totalDiscount = 0.0;
-                    double totalPayment = 0.0;
-                    double totalReturn = 0.0;
-                    double currentBalance = 0.0;
-                    
-                    for (Object[] row : ledgerData) {
-                        if (row.length >= 12) {
-                            totalSale += (Double) row[5];      // Total Bill column
-                            totalDiscount += (Double) row[6] + (Double) row[7]; // Discount + Other Discount columns
-                            totalPayment += (Double) row[9];   // Payment column
-                            totalReturn += (Double) row[10];    // Return Amount column
-                        }
-                    }
-                    
-                    // Get actual current balance using the same method as customer ledger
-                    // (Customer.balance field is not updated, so we need to calculate from transactions)
-                    currentBalance = config.database.getCustomerCurrentBalance(customerName);
-                    
-                    // Build items purchased string for this customer in the selected date range
-                    String itemsPurchased = "";
-                    try {
-                        StringBuilder itemsSb = new StringBuilder();
-                        java.sql.Connection conn2 = config.database.getConnection();
-                        String itemsQuery = "SELECT ps.product_name, SUM(sii.quantity) as qty " +
-                                            "FROM Sales_Invoice si " +
-                                            "JOIN Sales_Invoice_Item sii ON si.sales_invoice_id = sii.sales_invoice_id " +
-                                            "JOIN ProductionStock ps ON sii.production_stock_id = ps.production_id " +
-                                            "JOIN Customer c ON si.customer_id = c.customer_id " +
-                                            "WHERE c.customer_name = ? ";
-
-                        if (fromDate != null && toDate != null) {
-                            itemsQuery += " AND si.sales_date BETWEEN ? AND ? ";
-                        }
-                        itemsQuery += " GROUP BY ps.product_name ORDER BY ps.product_name";
-
-                        java.sql.PreparedStatement itemsStmt = conn2.prepareStatement(itemsQuery);
-                        itemsStmt.setString(1, customerName);
-                        if (fromDate != null && toDate != null) {
-                            java.time.format.DateTimeFormatter formatter = java.time.format.DateTimeFormatter.ofPattern("yyyy-MM-dd");
-                            itemsStmt.setString(2, fromDate.format(formatter));
-                            itemsStmt.setString(3, toDate.format(formatter));
-                        }
-
-                        java.sql.ResultSet itemsRs = itemsStmt.executeQuery();
-                        while (itemsRs.next()) {
-                            String prod = itemsRs.getString("product_name");
-                            double qty = itemsRs.getDouble("qty");
-                            // Show as Name(qty) with integer qty if whole number
-                            String qtyStr = (Math.floor(qty) == qty) ? String.format("%.0f", qty) : String.format("%.2f", qty);
-                            itemsSb.append(prod).append(" (").append(qtyStr).append("), ");
-                        }
-                        if (itemsSb.length() > 2) itemsPurchased = itemsSb.substring(0, itemsSb.length() - 2);
-                        itemsRs.close();
-                        itemsStmt.close();
-                    } catch (Exception ex) {
-                        // ignore and leave itemsPurchased empty
-                    }
-
-                    // Only add customers with transactions in the date range
-                    if (totalSale > 0 || totalPayment > 0 || totalReturn > 0) {
-                        // Add to grand totals
-                        grandTotalPurchase += totalSale;
-                        grandTotalDiscount += totalDiscount;
-                        grandTotalPayment += totalPayment;
-                        grandTotalReturn += totalReturn;
-                        grandTotalBalance += currentBalance;
-                        
-                        String formattedSale = String.format("%.2f", totalSale);
-                        String formattedDiscount = String.format("%.2f", totalDiscount);
-                        String formattedPayment = String.format("%.2f", totalPayment);
-                        String formattedReturn = String.format("%.2f", totalReturn);
-                        String formattedBalance = String.format("%.2f", currentBalance);
-                        
-                        table.getItems().add(new AreaWiseReport("Customer", customerName, formattedSale,
-                                                              formattedDiscount, formattedPayment, formattedReturn, formattedBalance, itemsPurchased));
-                        count++;
-                    }
-                }
-                customersResult.close();
-                stmt.close();
+            String startDate = null;
+            String endDate = null;
+            if (fromDate != null && toDate != null) {
+                startDate = fromDate.format(DateTimeFormatter.ofPattern("yyyy-MM-dd"));
+                endDate = toDate.format(DateTimeFormatter.ofPattern("yyyy-MM-dd"));
             }
             
-            if (partyType.equals("Supplier") || partyType.equals("Both")) {
-                if (areaType.equals("all") || areaValue.equals("All")) {
-                    partiesQuery = "SELECT supplier_name FROM Supplier";
-                } else {
-                    switch (areaType.toLowerCase()) {
-                        case "province":
-                            partiesQuery = "SELECT s.supplier_name FROM Supplier s " +
-                                         "LEFT JOIN Tehsil t ON s.tehsil_id = t.tehsil_id " +
-                                         "LEFT JOIN District d ON t.district_id = d.district_id " +
-                                         "LEFT JOIN Province p ON d.province_id = p.province_id " +
-                                         "WHERE p.province_name = ?";
-                            break;
-                        case "district":
-                            partiesQuery = "SELECT s.supplier_name FROM Supplier s " +
-                                         "LEFT JOIN Tehsil t ON s.tehsil_id = t.tehsil_id " +
-                                         "LEFT JOIN District d ON t.district_id = d.district_id " +
-                                         "WHERE d.district_name = ?";
-                            break;
-                        case "tehsil":
-                            partiesQuery = "SELECT s.supplier_name FROM Supplier s " +
-                                         "LEFT JOIN Tehsil t ON s.tehsil_id = t.tehsil_id " +
-                                         "WHERE t.tehsil_name = ?";
-                            break;
-                    }
-                }
+            // One grouped pass per party type instead of a ledger per customer/supplier
+            List<AreaPartyTotals> parties = config.database.getAreaWiseTotals(partyType, areaType, areaValue, startDate, endDate);
+            for (AreaPartyTotals party : parties) {
+                // Add to grand totals
+                grandTotalPurchase += party.totalSale();
+                grandTotalDiscount += party.totalDiscount();
+                grandTotalPayment += party.totalPayment();
+                grandTotalReturn += party.totalReturn();
+                grandTotalBalance += party.balance();
                 
-                java.sql.Connection conn = config.database.getConnection();
-                java.sql.PreparedStatement stmt;
-                if (areaType.equals("all") || areaValue.equals("All")) {
-                    stmt = conn.prepareStatement(partiesQuery);
-                } else {
-                    stmt = conn.prepareStatement(partiesQuery);
-                    stmt.setString(1, areaValue);
-                }
-                
-                java.sql.ResultSet suppliersResult = stmt.executeQuery();
-                while (suppliersResult.next()) {
-                    String supplierName = suppliersResult.getString("supplier_name");
-                    
-                    // Get supplier ledger data using the same method as AccountsContent
-                    List<Object[]> ledgerData;
-                    if (fromDate != null && toDate != null) {
-                        java.time.format.DateTimeFormatter formatter = java.time.format.DateTimeFormatter.ofPattern("yyyy-MM-dd");
-                        String startDate = fromDate.format(formatter);
-                        String endDate = toDate.format(formatter);
-                        ledgerData = config.database.getSupplierLedgerByDateRange(supplierName, startDate, endDate);
-                    } else {
-                        ledgerData = config.database.getSupplierLedger(supplierName);
-                    }
-                    
-                    // Calculate totals using the same logic as AccountsContent
-                    double totalPurchase = 0.0;
-                    double totalDiscount = 0.0;
-                    double totalPayment = 0.0;
-                    double totalReturn = 0.0;
-                    double currentBalance = 0.0;
-                    
-                    for (Object[] row : ledgerData) {
-                        if (row.length >= 11) {
-                            totalPurchase += (Double) row[5];   // Total Bill column
-                            totalDiscount += (Double) row[6];   // Discount column
-                            totalPayment += (Double) row[8];    // Payment column
-                            totalReturn += (Double) row[9];     // Return Amount column
-                        }
-                    }
-                    
-                    // Get actual current balance from Supplier table, not filtered ledger data
-                    java.sql.PreparedStatement balanceStmt = conn.prepareStatement("SELECT balance FROM Supplier WHERE supplier_name = ?");
-                    balanceStmt.setString(1, supplierName);
-                    java.sql.ResultSet balanceResult = balanceStmt.executeQuery();
-                    if (balanceResult.next()) {
-                        currentBalance = balanceResult.getDouble("balance");
-                    }
-                    balanceResult.close();
-                    balanceStmt.close();
-                    
-                    // Build items purchased/ supplied string for this supplier in the selected date range
-                    String itemsPurchased = "";
-                    try {
-                        StringBuilder itemsSb = new StringBuilder();
-                        java.sql.Connection conn2 = config.database.getConnection();
-                        String itemsQuery = "SELECT rs.item_name, SUM(rpi.quantity) as qty " +
-                                            "FROM Raw_Purchase_Invoice rpin " +
-                                            "JOIN Raw_Purchase_Invoice_Item rpi ON rpin.raw_purchase_invoice_id = rpi.raw_purchase_invoice_id " +
-                                            "JOIN Raw_Stock rs ON rpi.raw_stock_id = rs.stock_id " +
-                                            "JOIN Supplier s ON rpin.supplier_id = s.supplier_id " +
-                                            "WHERE s.supplier_name = ? ";
-
-                        if (fromDate != null && toDate != null) {
-                            itemsQuery += " AND rpin.invoice_date BETWEEN ? AND ? ";
-                        }
-                        itemsQuery += " GROUP BY rs.item_name ORDER BY rs.item_name";
-
-                        java.sql.PreparedStatement itemsStmt = conn2.prepareStatement(itemsQuery);
-                        itemsStmt.setString(1, supplierName);
-                        if (fromDate != null && toDate != null) {
-                            java.time.format.DateTimeFormatter formatter = java.time.format.DateTimeFormatter.ofPattern("yyyy-MM-dd");
-                            itemsStmt.setString(2, fromDate.format(formatter));
-                            itemsStmt.setString(3, toDate.format(formatter));
-                        }
-
-                        java.sql.ResultSet itemsRs = itemsStmt.executeQuery();
-                        while (itemsRs.next()) {
-                            String prod = itemsRs.getString("item_name");
-                            double qty = itemsRs.getDouble("qty");
-                            String qtyStr = (Math.floor(qty) == qty) ? String.format("%.0f", qty) : String.format("%.2f", qty);
-                            itemsSb.append(prod).append(" (").append(qtyStr).append("), ");
-                        }
-                        if (itemsSb.length() > 2) itemsPurchased = itemsSb.substring(0, itemsSb.length() - 2);
-                        itemsRs.close();
-                        itemsStmt.close();
-                    } catch (Exception ex) {
-                        // ignore
-                    }
-
-                    // Only add suppliers with transactions in the date range
-                    if (totalPurchase > 0 || totalPayment > 0 || totalReturn > 0) {
-                        // Add to grand totals
-                        grandTotalPurchase += totalPurchase;
-                        grandTotalDiscount += totalDiscount;
-                        grandTotalPayment += totalPayment;
-                        grandTotalReturn += totalReturn;
-                        grandTotalBalance += currentBalance;
-                        
-                        String formattedPurchase = String.format("%.2f", totalPurchase);
-                        String formattedDiscount = String.format("%.2f", totalDiscount);
-                        String formattedPayment = String.format("%.2f", totalPayment);
-                        String formattedReturn = String.format("%.2f", totalReturn);
-                        String formattedBalance = String.format("%.2f", currentBalance);
-                        
-                        table.getItems().add(new AreaWiseReport("Supplier", supplierName, formattedPurchase,
-                                                              formattedDiscount, formattedPayment, formattedReturn, formattedBalance, itemsPurchased));
-                        count++;
-                    }
-                }
-                suppliersResult.close();
-                stmt.close();
+                table.getItems().add(new AreaWiseReport(party.partyType(), party.name(),
+                                                      String.format("%.2f", party.totalSale()),
+                                                      String.format("%.2f", party.totalDiscount()),
+                                                      String.format("%.2f", party.totalPayment()),
+                                                      String.format("%.2f", party.totalReturn()),
+                                                      String.format("%.2f", party.balance()),
+                                                      party.itemsPurchased()));
+                count++;
             }
             
             // Format totals for return
@@ -4022,14 +3509,14 @@ public class ReportsContent {
             String formattedGrandReturn = String.format("%.2f", grandTotalReturn);
             String formattedGrandBalance = String.format("%.2f", grandTotalBalance);
             
-            System.out.println("DEBUG: Generated " + count + " records using ledger data");
+            Log.debug("Generated " + count + " area-wise records");
             
             return new AreaWiseReportResult(count, formattedGrandPurchase, formattedGrandDiscount, 
                                           formattedGrandPayment, formattedGrandReturn, formattedGrandBalance);
             
         } catch (Exception e) {
             e.printStackTrace();
-            System.err.println("Error generating area-wise data from ledgers: " + e.getMessage());
+            System.err.println("Error generating area-wise data: " + e.getMessage());
             return new AreaWiseReportResult(0, "0.00", "0.00", "0.00", "0.00", "0.00");
         }
     }
@@ -4276,7 +3763,7 @@ public class ReportsContent {
         AreaWiseReportResult grandTotals = null;
         try {
             // Recalculate grand totals using the same method as UI
-            grandTotals = generateAreaWiseDataFromLedgers(table, partyType, fromDate, toDate, areaType, areaValue);
+            grandTotals = generateAreaWiseData(table, partyType, fromDate, toDate, areaType, areaValue);
         } catch (Exception e) {
             // Fallback: leave grandTotals null
         }
@@ -5472,23 +4959,23 @@ public class ReportsContent {
         ObservableList<AreaSummary> summaryData = FXCollections.observableArrayList();
         Map<String, Double> areaMap = new HashMap<>();
         
-        System.out.println("DEBUG: Generating area summary - Type: " + summaryType + ", Party: " + partyType);
+        Log.debug("Generating area summary - Type: " + summaryType + ", Party: " + partyType);
         
         try {
             if ("Customer".equals(partyType)) {
                 List<Customer> customers = config.database.getAllCustomers();
-                System.out.println("DEBUG: Found " + customers.size() + " customers");
+                Log.debug("Found " + customers.size() + " customers");
                 
                 for (Customer customer : customers) {
                     try {
                         String areaName = getAreaNameForCustomer(customer, summaryType);
-                        System.out.println("DEBUG: Processing customer: " + customer.getName() + ", area: " + areaName);
+                        Log.debug("Processing customer: " + customer.getName() + ", area: " + areaName);
                         
                         // Calculate customer totals using the same method as ledger
                         Map<String, Object> totals = calculateCustomerTotals(customer.getName(), fromDate, toDate);
                         double totalSales = (Double) totals.get("totalSales");
                         
-                        System.out.println("DEBUG: Customer " + customer.getName() + " total sales: " + totalSales);
+                        Log.debug("Customer " + customer.getName() + " total sales: " + totalSales);
                         
                         areaMap.put(areaName, areaMap.getOrDefault(areaName, 0.0) + totalSales);
                     } catch (Exception e) {
@@ -5498,18 +4985,18 @@ public class ReportsContent {
                 }
             } else if ("Supplier".equals(partyType)) {
                 List<Supplier> suppliers = config.database.getAllSuppliers();
-                System.out.println("DEBUG: Found " + suppliers.size() + " suppliers");
+                Log.debug("Found " + suppliers.size() + " suppliers");
                 
                 for (Supplier supplier : suppliers) {
                     try {
                         String areaName = getAreaNameForSupplier(supplier, summaryType);
-                        System.out.println("DEBUG: Processing supplier: " + supplier.nameProperty().get() + ", area: " + areaName);
+                        Log.debug("Processing supplier: " + supplier.nameProperty().get() + ", area: " + areaName);
                         
                         // Calculate supplier totals using the same method as ledger
                         Map<String, Object> totals = calculateSupplierTotals(supplier.nameProperty().get(), fromDate, toDate);
                         double totalPurchase = (Double) totals.get("totalPurchase");
                         
-                        System.out.println("DEBUG: Supplier " + supplier.nameProperty().get() + " total purchase: " + totalPurchase);
+                        Log.debug("Supplier " + supplier.nameProperty().get() + " total purchase: " + totalPurchase);
                         
                         areaMap.put(areaName, areaMap.getOrDefault(areaName, 0.0) + totalPurchase);
                     } catch (Exception e) {
@@ -5519,7 +5006,7 @@ public class ReportsContent {
                 }
             }
             
-            System.out.println("DEBUG: Area map contents: " + areaMap);
+            Log.debug("Area map contents: " + areaMap);
             
             // Convert map to observable list and sort
             double grandTotal = 0.0;
@@ -5534,7 +5021,7 @@ public class ReportsContent {
             // Add grand total row
             summaryData.add(new AreaSummary("=== GRAND TOTAL ===", String.format("%.2f", grandTotal)));
             
-            System.out.println("DEBUG: Final summary data size: " + summaryData.size());
+            Log.debug("Final summary data size: " + summaryData.size());
             
         } catch (Exception e) {
             e.printStackTrace();
@@ -5590,7 +5077,7 @@ public class ReportsContent {
         double totalSales = 0.0;
         double totalReceived = 0.0;
         
-        System.out.println("DEBUG: Calculating totals for customer: " + customerName);
+        Log.debug("Calculating totals for customer: " + customerName);
         
         try {
             if (config.database != null && config.database.isConnected()) {
@@ -5599,18 +5086,18 @@ public class ReportsContent {
                 if (fromDate != null && toDate != null) {
                     String fromStr = fromDate.toString();
                     String toStr = toDate.toString();
-                    System.out.println("DEBUG: Using date range: " + fromStr + " to " + toStr);
+                    Log.debug("Using date range: " + fromStr + " to " + toStr);
                     ledgerData = config.database.getCustomerLedgerByDateRange(customerName, fromStr, toStr);
                 } else {
-                    System.out.println("DEBUG: Using all dates");
+                    Log.debug("Using all dates");
                     ledgerData = config.database.getCustomerLedger(customerName);
                 }
                 
-                System.out.println("DEBUG: Ledger data size: " + (ledgerData != null ? ledgerData.size() : "null"));
+                Log.debug("Ledger data size: " + (ledgerData != null ? ledgerData.size() : "null"));
                 
                 if (ledgerData != null) {
                     for (Object[] row : ledgerData) {
-                        System.out.println("DEBUG: Row length: " + row.length);
+                        Log.debug("Row length: " + row.length);
                         if (row.length >= 12) {
                             // Based on the database structure:
                             // row[5] = totalBillAmount (total sales before discount)
@@ -5620,19 +5107,19 @@ public class ReportsContent {
                                 double paymentAmount = row[9] != null ? Double.parseDouble(row[9].toString()) : 0.0;
                                 double returnAmount = row[10] != null ? Double.parseDouble(row[10].toString()) : 0.0;
                                 
-                                System.out.println("DEBUG: totalBillAmount=" + totalBillAmount + ", paymentAmount=" + paymentAmount + ", returnAmount=" + returnAmount);
+                                Log.debug("totalBillAmount=" + totalBillAmount + ", paymentAmount=" + paymentAmount + ", returnAmount=" + returnAmount);
                                 
                                 // Use total bill amount (before discount) for total sales
                                 if (totalBillAmount > 0) {
                                     totalSales += totalBillAmount;
-                                    System.out.println("DEBUG: Added totalBillAmount, new totalSales=" + totalSales);
+                                    Log.debug("Added totalBillAmount, new totalSales=" + totalSales);
                                 }
                                 if (paymentAmount > 0) {
                                     totalReceived += paymentAmount;
                                 }
                                 // Note: Not subtracting returns to match ledger gross total behavior
                             } catch (NumberFormatException e) {
-                                System.out.println("DEBUG: Number format error: " + e.getMessage());
+                                Log.debug("Number format error: " + e.getMessage());
                                 // Skip invalid number formats
                                 continue;
                             }
@@ -5640,7 +5127,7 @@ public class ReportsContent {
                     }
                 }
                 
-                System.out.println("DEBUG: Final totals - totalSales=" + totalSales + ", totalReceived=" + totalReceived);
+                Log.debug("Final totals - totalSales=" + totalSales + ", totalReceived=" + totalReceived);
             }
         } catch (Exception e) {
             e.printStackTrace();
@@ -5656,7 +5143,7 @@ public class ReportsContent {
         double totalPurchase = 0.0;
         double totalPaid = 0.0;
         
-        System.out.println("DEBUG: Calculating totals for supplier: " + supplierName);
+        Log.debug("Calculating totals for supplier: " + supplierName);
         
         try {
             if (config.database != null && config.database.isConnected()) {
@@ -5665,18 +5152,18 @@ public class ReportsContent {
                 if (fromDate != null && toDate != null) {
                     String fromStr = fromDate.toString();
                     String toStr = toDate.toString();
-                    System.out.println("DEBUG: Using date range: " + fromStr + " to " + toStr);
+                    Log.debug("Using date range: " + fromStr + " to " + toStr);
                     ledgerData = config.database.getSupplierLedgerByDateRange(supplierName, fromStr, toStr);
                 } else {
-                    System.out.println("DEBUG: Using all dates");
+                    Log.debug("Using all dates");
                     ledgerData = config.database.getSupplierLedger(supplierName);
                 }
                 
-                System.out.println("DEBUG: Ledger data size: " + (ledgerData != null ? ledgerData.size() : "null"));
+                Log.debug("Ledger data size: " + (ledgerData != null ? ledgerData.size() : "null"));
                 
                 if (ledgerData != null) {
                     for (Object[] row : ledgerData) {
-                        System.out.println("DEBUG: Row length: " + row.length);
+                        Log.debug("Row length: " + row.length);
                         if (row.length >= 11) {
                             // Based on the database structure:
                             // row[5] = totalBillAmount (total purchase before discount)
@@ -5686,19 +5173,19 @@ public class ReportsContent {
                                 double paymentAmount = row[8] != null ? Double.parseDouble(row[8].toString()) : 0.0;
                                 double returnAmount = row[9] != null ? Double.parseDouble(row[9].toString()) : 0.0;
                                 
-                                System.out.println("DEBUG: totalBillAmount=" + totalBillAmount + ", paymentAmount=" + paymentAmount + ", returnAmount=" + returnAmount);
+                                Log.debug("totalBillAmount=" + totalBillAmount + ", paymentAmount=" + paymentAmount + ", returnAmount=" + returnAmount);
                                 
                                 // Use total bill amount (before discount) for total purchases
                                 if (totalBillAmount > 0) {
                                     totalPurchase += totalBillAmount;
-                                    System.out.println("DEBUG: Added totalBillAmount, new totalPurchase=" + totalPurchase);
+                                    Log.debug("Added totalBillAmount, new totalPurchase=" + totalPurchase);
                                 }
                                 if (paymentAmount > 0) {
                                     totalPaid += paymentAmount;
                                 }
                                 // Note: Not subtracting returns to match ledger gross total behavior
                             } catch (NumberFormatException e) {
-                                System.out.println("DEBUG: Number format error: " + e.getMessage());
+                                Log.debug("Number format error: " + e.getMessage());
                                 // Skip invalid number formats
                                 continue;
                             }
@@ -5706,7 +5193,7 @@ public class ReportsContent {
                     }
                 }
                 
-                System.out.println("DEBUG: Final totals - totalPurchase=" + totalPurchase + ", totalPaid=" + totalPaid);
+                Log.debug("Final totals - totalPurchase=" + totalPurchase + ", totalPaid=" + totalPaid);
             }
         } catch (Exception e) {
             e.printStackTrace();
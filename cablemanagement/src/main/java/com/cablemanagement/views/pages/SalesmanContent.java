@@ -10,14 +10,13 @@ import javafx.scene.layout.*;
 import java.util.List;
 
 import com.cablemanagement.model.Salesman;
-import com.cablemanagement.database.SQLiteDatabase;
 import com.cablemanagement.database.db;
 
 public class SalesmanContent {
 
     private static final ObservableList<Salesman> salesmanList = FXCollections.observableArrayList();
     private static Salesman selectedSalesman = null;
-    private static final db database = new SQLiteDatabase();
+    private static final db database = com.cablemanagement.config.database;
 
     public static Node get() {
         VBox mainLayout = new VBox(20);
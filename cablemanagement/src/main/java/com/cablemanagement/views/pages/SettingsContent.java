@@ -1,6 +1,11 @@
 package com.cablemanagement.views.pages;
 
+import com.cablemanagement.Log;
 import com.cablemanagement.config;
+import com.cablemanagement.database.AsyncDatabase;
+import com.cablemanagement.database.db;
+import com.cablemanagement.invoice.InvoiceData;
+import com.cablemanagement.invoice.PrintManager;
 import javafx.application.Platform;
 import javafx.geometry.Insets;
 import javafx.geometry.Pos;
@@ -8,14 +13,21 @@ import javafx.scene.Node;
 import javafx.scene.control.Alert;
 import javafx.scene.control.Button;
 import javafx.scene.control.ButtonType;
+import javafx.scene.control.ChoiceDialog;
 import javafx.scene.control.ComboBox;
 import javafx.scene.control.Label;
 import javafx.scene.control.PasswordField;
+import javafx.scene.control.ProgressIndicator;
 import javafx.scene.control.ScrollPane;
+import javafx.scene.control.TextArea;
 import javafx.scene.control.TextField;
+import javafx.scene.Scene;
 import javafx.scene.layout.*;
+import javafx.stage.Modality;
 import javafx.stage.Stage;
 import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.function.Function;
 
 public class SettingsContent {
     // Helper to check if current user has a specific Settings subright
@@ -75,6 +87,22 @@ public class SettingsContent {
             }
         });
 
+        addButton(buttonColumn, "Printing", () -> {
+            if (hasCurrentUserSubright("Printing")) {
+                formArea.getChildren().setAll(createPrintingForm());
+            } else {
+                showAlert("Access Denied", "You do not have permission to access Printing.");
+            }
+        });
+
+        addButton(buttonColumn, "Database Maintenance", () -> {
+            if (hasCurrentUserSubright("Database Maintenance")) {
+                formArea.getChildren().setAll(createDatabaseMaintenanceForm());
+            } else {
+                showAlert("Access Denied", "You do not have permission to access Database Maintenance.");
+            }
+        });
+
         mainLayout.setLeft(buttonScroll);
         mainLayout.setCenter(formArea);
 
@@ -273,13 +301,273 @@ public class SettingsContent {
         return box;
     }
 
+    private static VBox createPrintingForm() {
+        VBox box = new VBox(15);
+        box.setPadding(new Insets(30));
+        box.setAlignment(Pos.TOP_LEFT);
+
+        Label heading = new Label("Printing");
+        heading.setStyle("-fx-font-size: 18px; -fx-text-fill: #007bff; -fx-font-weight: bold;");
+
+        Label note = new Label("Choose how each kind of invoice is printed on this computer: as an A4 PDF, " +
+            "or as a receipt on an 80mm thermal printer. Changes apply to the next invoice printed.");
+        note.setWrapText(true);
+
+        String[][] invoiceTypes = {
+            { InvoiceData.TYPE_SALE, "Sales Invoice" },
+            { InvoiceData.TYPE_SALE_RETURN, "Sales Return Invoice" },
+            { InvoiceData.TYPE_PURCHASE, "Purchase Invoice" },
+            { InvoiceData.TYPE_PURCHASE_RETURN, "Purchase Return Invoice" },
+            { InvoiceData.TYPE_PRODUCTION, "Production Invoice" },
+            { InvoiceData.TYPE_PRODUCTION_RETURN, "Production Return Invoice" },
+            { InvoiceData.TYPE_RAW_STOCK, "Raw Stock Use Invoice" }
+        };
+        GridPane formats = new GridPane();
+        formats.setHgap(15);
+        formats.setVgap(10);
+        for (int i = 0; i < invoiceTypes.length; i++) {
+            String type = invoiceTypes[i][0];
+            ComboBox<String> formatCombo = new ComboBox<>();
+            formatCombo.getItems().addAll("PDF", "Receipt");
+            formatCombo.setValue(PrintManager.getPrintFormat(type) == PrintManager.PrintFormat.RECEIPT ? "Receipt" : "PDF");
+            formatCombo.setOnAction(e -> PrintManager.setPrintFormat(type,
+                "Receipt".equals(formatCombo.getValue()) ? PrintManager.PrintFormat.RECEIPT : PrintManager.PrintFormat.PDF));
+            formats.addRow(i, new Label(invoiceTypes[i][1] + ":"), formatCombo);
+        }
+
+        box.getChildren().addAll(heading, note, formats);
+        return box;
+    }
+
+    private static VBox createDatabaseMaintenanceForm() {
+        VBox box = new VBox(15);
+        box.setPadding(new Insets(30));
+        box.setAlignment(Pos.TOP_LEFT);
+
+        Label heading = new Label("Database Maintenance");
+        heading.setStyle("-fx-font-size: 18px; -fx-text-fill: #007bff; -fx-font-weight: bold;");
+
+        TextArea output = new TextArea();
+        output.setEditable(false);
+        output.setWrapText(true);
+        output.setPrefRowCount(20);
+        output.setStyle("-fx-font-family: monospace;");
+        VBox.setVgrow(output, Priority.ALWAYS);
+
+        Button reconcileBtn = new Button("Reconcile Customer Balances");
+        reconcileBtn.setOnAction(e -> {
+            java.util.List<Object[]> drift = config.database.reconcileCustomerBalances();
+            if (drift == null) {
+                showAlert("Error", "Failed to reconcile customer balances!");
+                return;
+            }
+            StringBuilder sb = new StringBuilder();
+            sb.append("Customer balances rebuilt from transaction history.\n");
+            sb.append(drift.size()).append(" balance(s) had drifted.\n\n");
+            for (Object[] row : drift) {
+                sb.append(String.format("%s (ID %s): stored %.2f, recomputed %.2f, drift %.2f%n",
+                    row[1], row[0], (Double) row[2], (Double) row[3], (Double) row[4]));
+            }
+            output.setText(sb.toString());
+        });
+
+        Button indexReportBtn = new Button("Index Usage Report");
+        indexReportBtn.setOnAction(e -> {
+            StringBuilder sb = new StringBuilder();
+            for (Object[] row : config.database.getQueryPlanReport()) {
+                sb.append(Boolean.TRUE.equals(row[2]) ? "[INDEX] " : "[SCAN]  ")
+                  .append(row[0]).append("\n    ").append(row[1]).append("\n");
+            }
+            output.setText(sb.toString());
+        });
+
+        Button searchIndexBtn = new Button("Rebuild Search Index");
+        searchIndexBtn.setOnAction(e -> {
+            int indexed = config.database.rebuildSearchIndex();
+            if (indexed < 0) {
+                showAlert("Error", "Failed to rebuild the search index!");
+                return;
+            }
+            output.setText("Search index rebuilt: " + indexed + " row(s) indexed.\n");
+        });
+
+        Button rollupBtn = new Button("Rebuild Report Totals");
+        rollupBtn.setOnAction(e -> {
+            int rows = config.database.rebuildDailyRollups();
+            if (rows < 0) {
+                showAlert("Error", "Failed to rebuild the daily report totals!");
+                return;
+            }
+            output.setText("Daily report totals rebuilt: " + rows + " day row(s) written.\n");
+        });
+
+        Button statementCacheBtn = new Button("Statement Cache Stats");
+        statementCacheBtn.setOnAction(e -> {
+            com.cablemanagement.model.StatementCacheStats stats = config.database.getStatementCacheStats();
+            output.setText(String.format("Prepared statement cache%n" +
+                "Hits: %d%nMisses: %d%nHit rate: %.1f%%%nEvictions: %d%nStatements cached: %d%n",
+                stats.hits(), stats.misses(), stats.hitRate() * 100, stats.evictions(), stats.cachedStatements()));
+        });
+
+        Button queryStatsBtn = new Button("Query Statistics");
+        queryStatsBtn.setOnAction(e -> output.setText(com.cablemanagement.database.QueryMetrics.formatReport(40)));
+
+        Button backupBtn = new Button("Back Up Now");
+        backupBtn.setOnAction(e -> runMaintenance("Back Up Now", "Writing and verifying the backup...",
+            database -> database.createBackup(),
+            backup -> {
+                if (backup == null) {
+                    showAlert("Error", "Failed to back up the database!");
+                    return;
+                }
+                output.setText("Backup written and verified: " + backup.path() + "\n\n" +
+                    formatBackups(config.database.getBackups()));
+            }));
+
+        Button restoreBtn = new Button("Restore Backup");
+        restoreBtn.setOnAction(e -> {
+            java.util.List<com.cablemanagement.model.DatabaseBackup> backups = config.database.getBackups();
+            if (backups.isEmpty()) {
+                showAlert("Restore Backup", "There are no backups to restore.");
+                return;
+            }
+            java.util.Map<String, com.cablemanagement.model.DatabaseBackup> byLabel = new java.util.LinkedHashMap<>();
+            for (com.cablemanagement.model.DatabaseBackup backup : backups) {
+                byLabel.put(backupLabel(backup), backup);
+            }
+            ChoiceDialog<String> chooser = new ChoiceDialog<>(byLabel.keySet().iterator().next(), byLabel.keySet());
+            chooser.setTitle("Restore Backup");
+            chooser.setHeaderText("Choose the backup to restore");
+            chooser.setContentText("Backup:");
+            Optional<String> choice = chooser.showAndWait();
+            if (choice.isEmpty()) {
+                return;
+            }
+
+            com.cablemanagement.model.DatabaseBackup backup = byLabel.get(choice.get());
+            Alert confirm = new Alert(Alert.AlertType.CONFIRMATION);
+            confirm.setTitle("Restore Backup");
+            confirm.setHeaderText("Replace all current data with the backup of " + backupLabel(backup) + "?");
+            confirm.setContentText("Everything saved after that backup will be replaced. " +
+                "The current data is backed up first, so this can be undone.");
+            confirm.getButtonTypes().setAll(ButtonType.YES, ButtonType.NO);
+            Optional<ButtonType> result = confirm.showAndWait();
+            if (result.isEmpty() || result.get() != ButtonType.YES) {
+                return;
+            }
+            runMaintenance("Restore Backup", "Restoring " + backupLabel(backup) + "...",
+                database -> database.restoreBackup(backup.path()),
+                restored -> {
+                    if (!restored) {
+                        showAlert("Error", "Failed to restore the backup!");
+                        return;
+                    }
+                    output.setText("Database restored from " + backup.path() + "\n" +
+                        "Reopen any open pages to see the restored data.\n\n" + formatBackups(config.database.getBackups()));
+                });
+        });
+
+        Button archiveBtn = new Button("Archive Fiscal Year");
+        archiveBtn.setOnAction(e -> {
+            com.cablemanagement.model.FiscalYear year = config.database.getNextFiscalYearToArchive();
+            if (year == null) {
+                showAlert("Archive Fiscal Year", "There is no closed fiscal year left to archive.");
+                return;
+            }
+            Alert confirm = new Alert(Alert.AlertType.CONFIRMATION);
+            confirm.setTitle("Archive Fiscal Year");
+            confirm.setHeaderText("Archive " + year.label() + " (" + year.firstDay() + " to " + year.lastDay() + ")?");
+            confirm.setContentText("Its invoices, ledger entries and book entries move to an archive file and " +
+                "each customer's balance is carried forward as an opening balance. Reports for those dates " +
+                "still include them, but global search no longer finds them. The database is backed up first.");
+            confirm.getButtonTypes().setAll(ButtonType.YES, ButtonType.NO);
+            Optional<ButtonType> result = confirm.showAndWait();
+            if (result.isEmpty() || result.get() != ButtonType.YES) {
+                return;
+            }
+            com.cablemanagement.model.ArchivedYear archived = config.database.archiveFiscalYear(year.startYear());
+            if (archived == null) {
+                showAlert("Error", "Failed to archive " + year.label() + "!");
+                return;
+            }
+            output.setText(String.format("%s archived to %s%n%d sales invoice(s) and %d ledger entry(ies) moved.%n%n%s",
+                year.label(), archived.path(), archived.salesInvoices(), archived.customerTransactions(),
+                formatArchives(config.database.getArchivedYears())));
+        });
+
+        HBox actions = new HBox(10, reconcileBtn, indexReportBtn, searchIndexBtn, rollupBtn, statementCacheBtn, queryStatsBtn);
+        HBox backupActions = new HBox(10, backupBtn, restoreBtn, archiveBtn);
+        box.getChildren().addAll(heading, actions, backupActions, output);
+        output.setText(formatBackups(config.database.getBackups()));
+        return box;
+    }
+
+    /**
+     * Run a backup or restore off the FX thread behind a modal progress window, which
+     * keeps the rest of the application from saving anything until it is done
+     */
+    private static <T> void runMaintenance(String title, String message, Function<db, T> call, Consumer<T> onDone) {
+        ProgressIndicator indicator = new ProgressIndicator();
+        VBox layout = new VBox(12, indicator, new Label(message));
+        layout.setPadding(new Insets(20));
+        layout.setAlignment(Pos.CENTER);
+        Stage stage = new Stage();
+        stage.initModality(Modality.APPLICATION_MODAL);
+        stage.setTitle(title);
+        stage.setScene(new Scene(layout));
+        // It cannot be stopped halfway, so the window stays until it is done
+        stage.setOnCloseRequest(e -> e.consume());
+        stage.show();
+
+        AsyncDatabase.getInstance().submitMaintenance(call).whenComplete((value, error) -> Platform.runLater(() -> {
+            stage.close();
+            if (error != null) {
+                error.printStackTrace();
+                AsyncTableLoader.showError(title + " failed", error);
+                return;
+            }
+            onDone.accept(value);
+        }));
+    }
+
+    private static String formatArchives(java.util.List<com.cablemanagement.model.ArchivedYear> archives) {
+        if (archives.isEmpty()) {
+            return "No archived fiscal years.\n";
+        }
+        StringBuilder sb = new StringBuilder("Archived fiscal years\n");
+        for (com.cablemanagement.model.ArchivedYear archived : archives) {
+            sb.append(String.format("  %s (%s to %s): %d invoice(s), %d ledger entry(ies)  %s%n",
+                archived.year().label(), archived.year().firstDay(), archived.year().lastDay(),
+                archived.salesInvoices(), archived.customerTransactions(), archived.path()));
+        }
+        return sb.toString();
+    }
+
+    private static String backupLabel(com.cablemanagement.model.DatabaseBackup backup) {
+        return backup.createdAt().format(java.time.format.DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss")) +
+            " (" + backup.kind() + ", " + String.format("%.1f MB", backup.sizeBytes() / (1024.0 * 1024.0)) + ")";
+    }
+
+    private static String formatBackups(java.util.List<com.cablemanagement.model.DatabaseBackup> backups) {
+        if (backups.isEmpty()) {
+            return "No backups yet.\n";
+        }
+        StringBuilder sb = new StringBuilder("Backups (newest first)\n");
+        for (com.cablemanagement.model.DatabaseBackup backup : backups) {
+            sb.append("  ").append(backupLabel(backup)).append("  ").append(backup.path()).append('\n');
+        }
+        return sb.toString();
+    }
+
     private static Node createAssignRightsForm() {
         // Settings sub-rights (from attached image)
         String[] settingsSubRights = {
             "Change Password",
             "Logout",
             "Signup",
-            "Assign Rights"
+            "Assign Rights",
+            "Printing",
+            "Database Maintenance"
         };
         // Bank Mgmt sub-rights (from attached image)
         String[] bankMgmtSubRights = {
@@ -805,7 +1093,7 @@ public class SettingsContent {
             if (hasSettingsSubRight && !newlySelectedRights.contains("Settings")) {
                 newlySelectedRights.add("Settings");
             }
-            System.out.println("DEBUG: Newly selected rights to add: " + newlySelectedRights);
+            Log.debug("Newly selected rights to add: " + newlySelectedRights);
             if (targetUser.isEmpty() || adminUser.isEmpty() || adminPass.isEmpty() || newlySelectedRights.isEmpty()) {
                 showAlert("Error", "All fields are required! Please select at least one new right to add.");
                 return;
@@ -4,6 +4,7 @@ module com.cablemanagement {
     requires transitive java.sql;
     requires itextpdf;
     requires java.desktop;
+    requires java.prefs;
 
     opens com.cablemanagement to javafx.fxml;
     opens com.cablemanagement.views to javafx.fxml, javafx.graphics;
@@ -0,0 +1,102 @@
+package com.cablemanagement.database;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Saves invoices into a scratch database and prints how many per second
+ * insertSalesInvoice() and insertSalesReturnInvoiceWithFullData() sustain, followed by
+ * the query statistics (including the per-stage times of the commit pipeline).
+ *
+ * Lives with the tests so it is not shipped in the application jar. After
+ * mvn test-compile, run from the cablemanagement directory so schema.sql is found:
+ *   java -cp "target/test-classes:target/classes:$CLASSPATH" com.cablemanagement.database.SalesInvoiceBenchmark [invoices] [items per invoice]
+ *
+ * The live database is never touched; the scratch file is deleted afterwards.
+ */
+public class SalesInvoiceBenchmark {
+
+    private static final int CUSTOMERS = 50;
+    private static final int PRODUCTS = 40;
+    private static final int WARMUP = 50;
+
+    public static void main(String[] args) throws IOException {
+        int invoices = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+        int itemsPerInvoice = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+
+        File file = File.createTempFile("invoice-benchmark", ".db");
+        file.delete();
+        try {
+            SQLiteDatabase database = new SQLiteDatabase(file.getPath());
+            db timed = QueryMetrics.instrument(database);
+            seed(database);
+
+            run(timed, "WARM", WARMUP, itemsPerInvoice);
+            QueryMetrics.reset();
+
+            long start = System.nanoTime();
+            run(timed, "BENCH", invoices, itemsPerInvoice);
+            double salesSeconds = (System.nanoTime() - start) / 1_000_000_000.0;
+
+            int returns = Math.max(1, invoices / 5);
+            start = System.nanoTime();
+            for (int i = 0; i < returns; i++) {
+                int customerId = 1 + i % CUSTOMERS;
+                List<Object[]> items = new ArrayList<>();
+                items.add(new Object[] { 1 + i % PRODUCTS, 1.0, 10.0 });
+                if (!timed.insertSalesReturnInvoiceWithFullData("BENCH-R-" + i, WARMUP + 1 + i, customerId,
+                        "Customer " + customerId, "0300", "Lahore City", "2024-02-01", 10.0, items, true,
+                        0, 0, 0, 0, 0, "BENCH-" + i)) {
+                    throw new IllegalStateException("Sales return " + i + " was not saved");
+                }
+            }
+            double returnSeconds = (System.nanoTime() - start) / 1_000_000_000.0;
+
+            System.out.println();
+            System.out.println(String.format("Sales invoices: %d x %d items in %.2f s = %.1f invoices/sec",
+                invoices, itemsPerInvoice, salesSeconds, invoices / salesSeconds));
+            System.out.println(String.format("Sales returns:  %d x 1 item in %.2f s = %.1f returns/sec",
+                returns, returnSeconds, returns / returnSeconds));
+            System.out.println();
+            System.out.println(QueryMetrics.formatReport(25));
+            database.disconnect();
+        } finally {
+            for (String suffix : new String[] { "", "-wal", "-shm" }) {
+                new File(file.getPath() + suffix).delete();
+            }
+        }
+    }
+
+    private static void seed(SQLiteDatabase database) {
+        database.insertProvince("Punjab");
+        database.insertDistrict("Lahore", "Punjab");
+        database.insertTehsil("Lahore City", "Lahore");
+        database.insertUnit("Meter");
+        database.insertCategory("Cable");
+        database.insertBrand("Benchmark Brand", "Punjab", "Lahore", "Lahore City");
+        for (int i = 1; i <= PRODUCTS; i++) {
+            database.insertProductionStock("Cable " + i, "Cable", "Default Manufacturer", "Benchmark Brand", "Meter",
+                                           1_000_000, 5, 10);
+        }
+        for (int i = 1; i <= CUSTOMERS; i++) {
+            database.insertCustomer("Customer " + i, "0300", "Lahore City", 100);
+        }
+    }
+
+    private static void run(db timed, String prefix, int invoices, int itemsPerInvoice) {
+        for (int i = 0; i < invoices; i++) {
+            List<Object[]> items = new ArrayList<>();
+            double total = 0;
+            for (int j = 0; j < itemsPerInvoice; j++) {
+                items.add(new Object[] { 1 + (i + j) % PRODUCTS, 2.0, 10.0, 0.0, 0.0 });
+                total += 20.0;
+            }
+            if (!timed.insertSalesInvoice(prefix + "-" + i, 1 + i % CUSTOMERS, "2024-02-01",
+                                          total, 0, 0, i % 2 == 0 ? total / 2 : 0, items)) {
+                throw new IllegalStateException("Sales invoice " + prefix + "-" + i + " was not saved");
+            }
+        }
+    }
+}
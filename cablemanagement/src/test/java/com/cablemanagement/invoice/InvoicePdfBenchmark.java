@@ -0,0 +1,105 @@
+package com.cablemanagement.invoice;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Renders sales invoice PDFs into a scratch directory and prints how many per second
+ * InvoiceGenerator.generatePDF() sustains, first on one thread and then on several at
+ * once, which also exercises the shared fonts, logo and table templates in PdfResources.
+ *
+ * Run from the cablemanagement directory:
+ *   java -cp "target/test-classes:target/classes:$CLASSPATH" com.cablemanagement.invoice.InvoicePdfBenchmark [invoices] [items per invoice] [threads]
+ *
+ * The scratch PDFs are deleted afterwards.
+ */
+public class InvoicePdfBenchmark {
+
+    private static final int WARMUP = 20;
+
+    public static void main(String[] args) throws Exception {
+        int invoices = args.length > 0 ? Integer.parseInt(args[0]) : 500;
+        int itemsPerInvoice = args.length > 1 ? Integer.parseInt(args[1]) : 20;
+        int threads = args.length > 2 ? Integer.parseInt(args[2])
+                                      : Math.max(2, Runtime.getRuntime().availableProcessors());
+
+        File directory = File.createTempFile("invoice-pdf-benchmark", "");
+        directory.delete();
+        if (!directory.mkdirs()) {
+            throw new IOException("Cannot create " + directory);
+        }
+        InvoiceData data = invoice(itemsPerInvoice);
+        try {
+            run(directory, data, "warm", WARMUP, 1);
+            double singleSeconds = run(directory, data, "single", invoices, 1);
+            double parallelSeconds = run(directory, data, "parallel", invoices, threads);
+
+            System.out.println();
+            System.out.println(String.format("1 thread:   %d x %d items in %.2f s = %.1f PDFs/sec",
+                invoices, itemsPerInvoice, singleSeconds, invoices / singleSeconds));
+            System.out.println(String.format("%d threads: %d x %d items in %.2f s = %.1f PDFs/sec",
+                threads, invoices, itemsPerInvoice, parallelSeconds, invoices / parallelSeconds));
+        } finally {
+            File[] files = directory.listFiles();
+            if (files != null) {
+                for (File file : files) {
+                    file.delete();
+                }
+            }
+            directory.delete();
+        }
+    }
+
+    private static InvoiceData invoice(int itemsPerInvoice) {
+        List<Item> items = new ArrayList<>();
+        for (int i = 1; i <= itemsPerInvoice; i++) {
+            items.add(new Item("Copper Cable " + i + " x 1.5mm", 10 + i, 125.50 + i, i % 4 == 0 ? 5 : 0));
+        }
+        InvoiceData data = new InvoiceData(InvoiceData.TYPE_SALE, "BENCH-1", "01/02/2024", "Benchmark Customer",
+                                           "Lahore City", items, 1500.0);
+        data.setMetadata("contact", "0300-0000000");
+        data.setMetadata("tehsil", "Lahore City");
+        data.setDiscountAmount(250.0);
+        data.setPaidAmount(20000.0);
+        return data;
+    }
+
+    /**
+     * Render count invoices on the given number of threads
+     * @return the seconds taken
+     */
+    private static double run(File directory, InvoiceData data, String prefix, int count, int threads)
+            throws Exception {
+        AtomicInteger next = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        long start = System.nanoTime();
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                futures.add(executor.submit(() -> {
+                    for (int i = next.getAndIncrement(); i < count; i = next.getAndIncrement()) {
+                        File file = new File(directory, prefix + "-" + i + ".pdf");
+                        InvoiceGenerator.generatePDF(data, file.getPath());
+                        if (file.length() == 0) {
+                            throw new IllegalStateException("Invoice " + i + " was not rendered");
+                        }
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+            executor.awaitTermination(1, TimeUnit.MINUTES);
+        }
+        return (System.nanoTime() - start) / 1_000_000_000.0;
+    }
+}